@@ -17,6 +17,10 @@
 
 package java.util.zip;
 
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import org.apache.harmony.nio.AddressUtil;
 
 /**
  * This class compresses data using the <i>DEFLATE</i> algorithm (see <a
@@ -75,6 +79,26 @@ public class Deflater {
      */
     public static final int NO_COMPRESSION = 0;
 
+    /**
+     * Flush mode for {@code deflate(byte[], int, int, int)}: output only as
+     * much as the compression algorithm decides to.
+     */
+    public static final int NO_FLUSH = 0;
+
+    /**
+     * Flush mode for {@code deflate(byte[], int, int, int)}: output all
+     * pending data and align the output to a byte boundary, so that a reader
+     * can decode everything given so far.
+     */
+    public static final int SYNC_FLUSH = 2;
+
+    /**
+     * Flush mode for {@code deflate(byte[], int, int, int)}: as
+     * {@code SYNC_FLUSH}, and also reset the compression state so that the
+     * output that follows can be decoded without the data before it.
+     */
+    public static final int FULL_FLUSH = 3;
+
     /**
      * Use buffering for best compression.
      */
@@ -118,6 +142,14 @@ public class Deflater {
 
     private int inLength;
 
+    // Set when the input came from a ByteBuffer, whose position follows the
+    // bytes consumed
+    private ByteBuffer inputByteBuffer;
+
+    private int inputByteBufferStart;
+
+    private long inputTotalIn;
+
     /**
      * Constructs a new {@code Deflater} instance with default compression
      * level. The strategy can be specified with {@link #setStrategy}, only. A
@@ -187,17 +219,38 @@ public class Deflater {
      * @return the number of bytes of compressed data written to {@code buf}.
      */
     public int deflate(byte[] buf, int off, int nbytes) {
-        return deflate(buf, off, nbytes, flushParm);
+        return deflate(buf, off, nbytes, NO_FLUSH);
     }
 
     /**
-     * @param flushParam one of {@link #Z_NO_FLUSH}, {@link #Z_FINISH} or
-     *            {@link #Z_SYNC_FLUSH}.
+     * Deflates data (previously passed to {@code setInput}) into a specific
+     * region within the supplied buffer, flushing the output as requested.
+     * With {@code NO_FLUSH} this is the same as
+     * {@code deflate(byte[], int, int)}. A flush is complete once a call
+     * leaves part of the region unused; until then the call should be
+     * repeated with the same flush mode and more space.
+     *
+     * @param buf
+     *            the buffer to write compressed data to.
+     * @param off
+     *            the offset within {@code buf} at which to start writing to.
+     * @param nbytes
+     *            maximum number of bytes of compressed data to be written.
+     * @param flush
+     *            one of {@link #NO_FLUSH}, {@link #SYNC_FLUSH} or
+     *            {@link #FULL_FLUSH}.
+     * @return the number of bytes of compressed data written to {@code buf}.
+     * @throws IllegalArgumentException
+     *             if {@code flush} is not a valid flush mode.
      */
-    synchronized int deflate(byte[] buf, int off, int nbytes, int flushParam) {
+    public synchronized int deflate(byte[] buf, int off, int nbytes, int flush) {
+        if (flush != NO_FLUSH && flush != SYNC_FLUSH && flush != FULL_FLUSH) {
+            throw new IllegalArgumentException();
+        }
         if (streamHandle == -1) {
             throw new IllegalStateException();
         }
+        int flushParam = flush == NO_FLUSH ? flushParm : flush;
         // avoid int overflow, check null buf
         if (off > buf.length || nbytes < 0 || off < 0 || buf.length - off < nbytes) {
             throw new ArrayIndexOutOfBoundsException();
@@ -206,12 +259,67 @@ public class Deflater {
         if (inputBuffer == null) {
             setInput(STUB_INPUT_BUFFER);
         }
-        return deflateImpl(buf, off, nbytes, streamHandle, flushParam);
+        int result = deflateImpl(buf, off, nbytes, streamHandle, flushParam);
+        advanceInput();
+        return result;
+    }
+
+    /**
+     * Deflates data (previously passed to {@code setInput}) into the space
+     * between the position and the limit of the supplied buffer, and advances
+     * its position past the bytes written. A direct buffer is written in
+     * place, without an intermediate copy.
+     *
+     * @param buf
+     *            the buffer to write compressed data to.
+     * @return the number of bytes of compressed data written to {@code buf}.
+     * @throws ReadOnlyBufferException
+     *             if {@code buf} is read-only.
+     */
+    public synchronized int deflate(ByteBuffer buf) {
+        if (streamHandle == -1) {
+            throw new IllegalStateException();
+        }
+        if (buf.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        int position = buf.position();
+        int nbytes = buf.remaining();
+        int result;
+        long address = AddressUtil.getDirectBufferAddress(buf);
+        if (address != 0) {
+            if (inputBuffer == null) {
+                setInput(STUB_INPUT_BUFFER);
+            }
+            result = deflateDirectImpl(address + position, nbytes,
+                    streamHandle, flushParm);
+            advanceInput();
+        } else if (buf.hasArray()) {
+            result = deflate(buf.array(), buf.arrayOffset() + position,
+                    nbytes, NO_FLUSH);
+        } else {
+            byte[] bytes = new byte[nbytes];
+            result = deflate(bytes, 0, nbytes, NO_FLUSH);
+            buf.put(bytes, 0, result);
+        }
+        buf.position(position + result);
+        return result;
     }
 
     private synchronized native int deflateImpl(byte[] buf, int off,
             int nbytes, long handle, int flushParm);
 
+    private synchronized native int deflateDirectImpl(long address,
+            int nbytes, long handle, int flushParm);
+
+    // Moves the position of the input ByteBuffer, if any, past the bytes read
+    private void advanceInput() {
+        if (inputByteBuffer != null) {
+            inputByteBuffer.position(inputByteBufferStart
+                    + (int) (getTotalInImpl(streamHandle) - inputTotalIn));
+        }
+    }
+
     private synchronized native void endImpl(long handle);
 
     /**
@@ -225,6 +333,7 @@ public class Deflater {
         if (streamHandle != -1) {
             endImpl(streamHandle);
             inputBuffer = null;
+            inputByteBuffer = null;
             streamHandle = -1;
         }
     }
@@ -341,6 +450,7 @@ public class Deflater {
         finished = false;
         resetImpl(streamHandle);
         inputBuffer = null;
+        inputByteBuffer = null;
     }
 
     private synchronized native void resetImpl(long handle);
@@ -425,18 +535,61 @@ public class Deflater {
                 setLevelsImpl(compressLevel, strategy, streamHandle);
             }
             inputBuffer = buf;
+            inputByteBuffer = null;
             setInputImpl(buf, off, nbytes, streamHandle);
         } else {
             throw new ArrayIndexOutOfBoundsException();
         }
     }
 
+    /**
+     * Sets the input buffer the {@code Deflater} will use to extract
+     * uncompressed bytes for later compression: the bytes between the
+     * position and the limit of {@code buf}. The position of the buffer
+     * advances as the bytes are compressed. The bytes of a direct buffer are
+     * read in place rather than copied, so they must not be changed until
+     * {@code needsInput()} returns {@code true} or new input is set.
+     *
+     * @param buf
+     *            the buffer containing the input data bytes.
+     */
+    public synchronized void setInput(ByteBuffer buf) {
+        if (streamHandle == -1) {
+            throw new IllegalStateException();
+        }
+        int position = buf.position();
+        int nbytes = buf.remaining();
+        long address = AddressUtil.getDirectBufferAddress(buf);
+        if (address != 0) {
+            inLength = nbytes;
+            inRead = 0;
+            if (inputBuffer == null) {
+                setLevelsImpl(compressLevel, strategy, streamHandle);
+            }
+            // the bytes stay in buf, this only records that input was set
+            inputBuffer = STUB_INPUT_BUFFER;
+            setInputDirectImpl(address + position, nbytes, streamHandle);
+        } else if (buf.hasArray()) {
+            setInput(buf.array(), buf.arrayOffset() + position, nbytes);
+        } else {
+            byte[] bytes = new byte[nbytes];
+            buf.duplicate().get(bytes);
+            setInput(bytes, 0, nbytes);
+        }
+        inputByteBuffer = buf;
+        inputByteBufferStart = position;
+        inputTotalIn = getTotalInImpl(streamHandle);
+    }
+
     private synchronized native void setLevelsImpl(int level, int strategy,
             long handle);
 
     private synchronized native void setInputImpl(byte[] buf, int off,
             int nbytes, long handle);
 
+    private synchronized native void setInputDirectImpl(long address,
+            int nbytes, long handle);
+
     /**
      * Sets the compression level to be used when compressing data. The
      * compression level must be a value between 0 and 9. This value must be set
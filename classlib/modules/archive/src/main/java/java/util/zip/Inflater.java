@@ -17,7 +17,11 @@
 
 package java.util.zip;
 
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
 import org.apache.harmony.archive.internal.nls.Messages;
+import org.apache.harmony.nio.AddressUtil;
 
 /**
  * This class uncompresses data that was compressed using the <i>DEFLATE</i>
@@ -53,6 +57,12 @@ public class Inflater {
 
     private long streamHandle = -1;
 
+    // Set when the input came from a ByteBuffer, whose position follows the
+    // bytes consumed
+    private ByteBuffer inputByteBuffer;
+
+    private int inputByteBufferStart;
+
     /**
      * This constructor creates an inflater that expects a header from the input
      * stream. Use {@code Inflater(boolean)} if the input comes without a ZLIB
@@ -85,6 +95,7 @@ public class Inflater {
             endImpl(streamHandle);
             inRead = 0;
             inLength = 0;
+            inputByteBuffer = null;
             streamHandle = -1;
         }
     }
@@ -251,13 +262,75 @@ public class Inflater {
             throw new DataFormatException(
                     Messages.getString("archive.27")); //$NON-NLS-1$
         }
+        advanceInput();
+
+        return result;
+    }
 
+    /**
+     * Inflates bytes from the current input into the space between the
+     * position and the limit of {@code buf}, and advances its position past
+     * the bytes written. A direct buffer is written in place, without an
+     * intermediate copy.
+     *
+     * @param buf
+     *            the buffer to write inflated bytes to.
+     * @return the number of bytes inflated.
+     * @throws DataFormatException
+     *             if the underlying stream is corrupted or was not compressed
+     *             using a {@code Deflater}.
+     * @throws ReadOnlyBufferException
+     *             if {@code buf} is read-only.
+     */
+    public synchronized int inflate(ByteBuffer buf)
+            throws DataFormatException {
+        if (buf.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        if (streamHandle == -1) {
+            throw new IllegalStateException();
+        }
+        int position = buf.position();
+        int nbytes = buf.remaining();
+        int result;
+        long address = AddressUtil.getDirectBufferAddress(buf);
+        if (address != 0) {
+            if (needsInput()) {
+                return 0;
+            }
+            boolean neededDict = needsDictionary;
+            needsDictionary = false;
+            result = inflateDirectImpl(address + position, nbytes,
+                    streamHandle);
+            if (needsDictionary && neededDict) {
+                throw new DataFormatException(
+                        Messages.getString("archive.27")); //$NON-NLS-1$
+            }
+            advanceInput();
+        } else if (buf.hasArray()) {
+            result = inflate(buf.array(), buf.arrayOffset() + position, nbytes);
+        } else {
+            byte[] bytes = new byte[nbytes];
+            result = inflate(bytes, 0, nbytes);
+            buf.put(bytes, 0, result);
+        }
+        buf.position(position + result);
         return result;
     }
 
     private native synchronized int inflateImpl(byte[] buf, int off,
             int nbytes, long handle);
 
+    private native synchronized int inflateDirectImpl(long address,
+            int nbytes, long handle);
+
+    // Moves the position of the input ByteBuffer, if any, past the bytes read
+    private void advanceInput() {
+        if (inputByteBuffer != null) {
+            inputByteBuffer.position(inputByteBufferStart + inRead);
+        }
+    }
+
     /**
      * Indicates whether the input bytes were compressed with a preset
      * dictionary. This method should be called prior to {@code inflate()} to
@@ -295,6 +368,7 @@ public class Inflater {
         finished = false;
         needsDictionary = false;
         inLength = inRead = 0;
+        inputByteBuffer = null;
         resetImpl(streamHandle);
     }
 
@@ -380,12 +454,49 @@ public class Inflater {
                 && buf.length - off >= nbytes) {
             inRead = 0;
             inLength = nbytes;
+            inputByteBuffer = null;
             setInputImpl(buf, off, nbytes, streamHandle);
         } else {
             throw new ArrayIndexOutOfBoundsException();
         }
     }
 
+    /**
+     * Sets the current input to the bytes between the position and the limit
+     * of {@code buf}. The position of the buffer advances as the bytes are
+     * inflated. The bytes of a direct buffer are read in place rather than
+     * copied, so they must not be changed until {@code needsInput()} returns
+     * {@code true} or new input is set.
+     *
+     * @param buf
+     *            the input buffer.
+     * @see #needsInput
+     */
+    public synchronized void setInput(ByteBuffer buf) {
+        if (streamHandle == -1) {
+            throw new IllegalStateException();
+        }
+        int position = buf.position();
+        int nbytes = buf.remaining();
+        long address = AddressUtil.getDirectBufferAddress(buf);
+        if (address != 0) {
+            inRead = 0;
+            inLength = nbytes;
+            setInputDirectImpl(address + position, nbytes, streamHandle);
+        } else if (buf.hasArray()) {
+            setInput(buf.array(), buf.arrayOffset() + position, nbytes);
+        } else {
+            byte[] bytes = new byte[nbytes];
+            buf.duplicate().get(bytes);
+            setInput(bytes, 0, nbytes);
+        }
+        inputByteBuffer = buf;
+        inputByteBufferStart = position;
+    }
+
     private native synchronized void setInputImpl(byte[] buf, int off,
             int nbytes, long handle);
+
+    private native synchronized void setInputDirectImpl(long address,
+            int nbytes, long handle);
 }
@@ -339,67 +339,36 @@ public class ZipEntry implements ZipConstants, Cloneable {
     }
 
     /*
-     * Internal constructor.  Creates a new ZipEntry by reading the
-     * Central Directory Entry from "in", which must be positioned at
-     * the CDE signature.
+     * Internal constructor.  Creates a new ZipEntry from the Central
+     * Directory Entry at offset "off" of "cd", which holds the raw bytes of
+     * the central directory.  The caller has already checked the signature
+     * and that the whole record lies within "cd".
      *
-     * On exit, "in" will be positioned at the start of the next entry.
+     * Note that some lines look a bit different, because the corresponding
+     * fields are long and so we need to do & 0xffffffffl to avoid problems
+     * induced by sign extension.
      */
-    ZipEntry(LittleEndianReader ler, InputStream in) throws IOException {
-
-        /*
-         * We're seeing performance issues when we call readShortLE and
-         * readIntLE, so we're going to read the entire header at once
-         * and then parse the results out without using any function calls.
-         * Uglier, but should be much faster.
-         *
-         * Note that some lines look a bit different, because the corresponding
-         * fields or locals are long and so we need to do & 0xffffffffl to avoid
-         * problems induced by sign extension.
-         */
-
-        byte[] hdrBuf = ler.hdrBuf;
-        myReadFully(in, hdrBuf);
-
-        long sig = (hdrBuf[0] & 0xff) | ((hdrBuf[1] & 0xff) << 8) |
-            ((hdrBuf[2] & 0xff) << 16) | ((hdrBuf[3] << 24) & 0xffffffffL);
-        if (sig != CENSIG) {
-             throw new ZipException(Messages.getString("archive.3A"));
-        }
-
-        compressionMethod = (hdrBuf[10] & 0xff) | ((hdrBuf[11] & 0xff) << 8);
-        time = (hdrBuf[12] & 0xff) | ((hdrBuf[13] & 0xff) << 8);
-        modDate = (hdrBuf[14] & 0xff) | ((hdrBuf[15] & 0xff) << 8);
-        crc = (hdrBuf[16] & 0xff) | ((hdrBuf[17] & 0xff) << 8)
-                | ((hdrBuf[18] & 0xff) << 16)
-                | ((hdrBuf[19] << 24) & 0xffffffffL);
-        compressedSize = (hdrBuf[20] & 0xff) | ((hdrBuf[21] & 0xff) << 8)
-                | ((hdrBuf[22] & 0xff) << 16)
-                | ((hdrBuf[23] << 24) & 0xffffffffL);
-        size = (hdrBuf[24] & 0xff) | ((hdrBuf[25] & 0xff) << 8)
-                | ((hdrBuf[26] & 0xff) << 16)
-                | ((hdrBuf[27] << 24) & 0xffffffffL);
-        nameLen = (hdrBuf[28] & 0xff) | ((hdrBuf[29] & 0xff) << 8);
-        int extraLen = (hdrBuf[30] & 0xff) | ((hdrBuf[31] & 0xff) << 8);
-        int commentLen = (hdrBuf[32] & 0xff) | ((hdrBuf[33] & 0xff) << 8);
-        mLocalHeaderRelOffset = (hdrBuf[42] & 0xff) | ((hdrBuf[43] & 0xff) << 8)
-                | ((hdrBuf[44] & 0xff) << 16)
-                | ((hdrBuf[45] << 24) & 0xffffffffL);
-
-        byte[] nameBytes = new byte[nameLen];
-        myReadFully(in, nameBytes);
-
-        byte[] commentBytes = null;
-        if (commentLen > 0) {
-            commentBytes = new byte[commentLen];
-            myReadFully(in, commentBytes);
-        }
-
-        if (extraLen > 0) {
-            extra = new byte[extraLen];
-            myReadFully(in, extra);
-        }
-
+    ZipEntry(byte[] cd, int off) {
+        compressionMethod = (cd[off + 10] & 0xff) | ((cd[off + 11] & 0xff) << 8);
+        time = (cd[off + 12] & 0xff) | ((cd[off + 13] & 0xff) << 8);
+        modDate = (cd[off + 14] & 0xff) | ((cd[off + 15] & 0xff) << 8);
+        crc = (cd[off + 16] & 0xff) | ((cd[off + 17] & 0xff) << 8)
+                | ((cd[off + 18] & 0xff) << 16)
+                | ((cd[off + 19] << 24) & 0xffffffffL);
+        compressedSize = (cd[off + 20] & 0xff) | ((cd[off + 21] & 0xff) << 8)
+                | ((cd[off + 22] & 0xff) << 16)
+                | ((cd[off + 23] << 24) & 0xffffffffL);
+        size = (cd[off + 24] & 0xff) | ((cd[off + 25] & 0xff) << 8)
+                | ((cd[off + 26] & 0xff) << 16)
+                | ((cd[off + 27] << 24) & 0xffffffffL);
+        nameLen = (cd[off + 28] & 0xff) | ((cd[off + 29] & 0xff) << 8);
+        int extraLen = (cd[off + 30] & 0xff) | ((cd[off + 31] & 0xff) << 8);
+        int commentLen = (cd[off + 32] & 0xff) | ((cd[off + 33] & 0xff) << 8);
+        mLocalHeaderRelOffset = (cd[off + 42] & 0xff) | ((cd[off + 43] & 0xff) << 8)
+                | ((cd[off + 44] & 0xff) << 16)
+                | ((cd[off + 45] << 24) & 0xffffffffL);
+
+        off += CENHDR;
         try {
             /*
              * The actual character set is "IBM Code Page 437".  As of
@@ -409,9 +378,15 @@ public class ZipEntry implements ZipConstants, Cloneable {
              *
              * TODO: add correct UTF-8 support.
              */
-            name = new String(nameBytes, "ISO-8859-1");
-            if (commentBytes != null) {
-                comment = new String(commentBytes, "ISO-8859-1");
+            name = new String(cd, off, nameLen, "ISO-8859-1");
+            off += nameLen;
+            if (extraLen > 0) {
+                extra = new byte[extraLen];
+                System.arraycopy(cd, off, extra, 0, extraLen);
+                off += extraLen;
+            }
+            if (commentLen > 0) {
+                comment = new String(cd, off, commentLen, "ISO-8859-1");
             } else {
                 comment = null;
             }
@@ -420,20 +395,6 @@ public class ZipEntry implements ZipConstants, Cloneable {
         }
     }
 
-    private void myReadFully(InputStream in, byte[] b) throws IOException {
-        int len = b.length;
-        int off = 0;
-
-        while (len > 0) {
-            int count = in.read(b, off, len);
-            if (count <= 0) {
-                throw new EOFException();
-            }
-            off += count;
-            len -= count;
-        }
-    }
-
     /*
      * Read a four-byte int in little-endian order.
      */
@@ -451,7 +412,6 @@ public class ZipEntry implements ZipConstants, Cloneable {
 
     static class LittleEndianReader {
         private byte[] b = new byte[4];
-        byte[] hdrBuf = new byte[CENHDR];
 
         /*
          * Read a two-byte short in little-endian order.
@@ -18,15 +18,18 @@
 package java.util.zip;
 
 import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Enumeration;
-import java.util.LinkedHashMap;
-import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.apache.harmony.archive.internal.nls.Messages;
 
 /**
@@ -39,6 +42,12 @@ import org.apache.harmony.archive.internal.nls.Messages;
  * Use {@code ZipOutputStream} if you want to create an archive.
  * <p>
  * A temporary ZIP file can be marked for automatic deletion upon closing it.
+ * <p>
+ * When the system property {@code org.apache.harmony.archive.zip.mapped} is
+ * {@code true}, archives smaller than 2GB are mapped into memory and the
+ * streams returned by {@link #getInputStream} read their own slice of the
+ * mapping without locking. Otherwise all streams share one file handle and
+ * their reads are serialized.
  *
  * @see ZipEntry
  * @see ZipOutputStream
@@ -59,12 +68,43 @@ public class ZipFile implements ZipConstants {
 
     private File fileToDeleteOnClose;
 
+    private static final String MAPPED_PROPERTY = "org.apache.harmony.archive.zip.mapped"; //$NON-NLS-1$
+
     private RandomAccessFile mRaf;
 
+    /*
+     * The whole archive mapped read-only, or null if entries are read through
+     * mRaf or the file is closed.  Never read relative to its own position;
+     * every user works on a duplicate, so it is safe to share between
+     * threads.  Streams only hold on to this file, not to the mapping, so the
+     * mapping can be collected once the file is closed.
+     */
+    private volatile ByteBuffer mMapped;
+
     private final ZipEntry.LittleEndianReader ler = new ZipEntry.LittleEndianReader();
 
-    private final LinkedHashMap<String, ZipEntry> mEntries
-            = new LinkedHashMap<String, ZipEntry>();
+    /*
+     * The entries are kept as the raw central directory plus an index into
+     * it, and ZipEntry objects are only created when asked for.
+     *
+     * mEntryOffsets holds the offset in mCentralDir of each entry's record
+     * in archive order, and mEntryHashes the String hash code of its name.
+     * mTable is an open-addressed (linear probing) hash table of indexes
+     * into those arrays plus one; zero marks a free slot. Names are decoded
+     * as ISO-8859-1, so their hash codes can be computed on the raw bytes.
+     * mEntries holds the ZipEntry of each index once it has been created.
+     */
+    private byte[] mCentralDir;
+
+    private int[] mEntryOffsets;
+
+    private int[] mEntryHashes;
+
+    private int[] mTable;
+
+    private AtomicReferenceArray<ZipEntry> mEntries;
+
+    private int mSize;
 
     /**
      * Constructs a new {@code ZipFile} with the specified file.
@@ -113,6 +153,9 @@ public class ZipFile implements ZipConstants {
 
         mRaf = new RandomAccessFile(fileName, "r");
 
+        if (useMapping()) {
+            mapArchive();
+        }
         readCentralDir();
     }
 
@@ -145,6 +188,10 @@ public class ZipFile implements ZipConstants {
         if (raf != null) { // Only close initialized instances
             synchronized(raf) {
                 mRaf = null;
+                // The mapping cannot be unmapped safely while a stream may
+                // still be reading it.  Dropping the only reference to it
+                // leaves it to the garbage collector.
+                mMapped = null;
                 raf.close();
             }
             if (fileToDeleteOnClose != null) {
@@ -175,17 +222,21 @@ public class ZipFile implements ZipConstants {
      */
     public Enumeration<? extends ZipEntry> entries() {
         checkNotClosed();
-        final Iterator<ZipEntry> iterator = mEntries.values().iterator();
 
         return new Enumeration<ZipEntry>() {
+            private int next;
+
             public boolean hasMoreElements() {
                 checkNotClosed();
-                return iterator.hasNext();
+                return next < mSize;
             }
 
             public ZipEntry nextElement() {
                 checkNotClosed();
-                return iterator.next();
+                if (next >= mSize) {
+                    throw new NoSuchElementException();
+                }
+                return entryAt(next++);
             }
         };
     }
@@ -205,11 +256,65 @@ public class ZipFile implements ZipConstants {
             throw new NullPointerException();
         }
 
-        ZipEntry ze = mEntries.get(entryName);
-        if (ze == null) {
-            ze = mEntries.get(entryName + "/");
+        int index = findEntry(entryName, false);
+        if (index < 0) {
+            index = findEntry(entryName, true);
+            if (index < 0) {
+                return null;
+            }
+        }
+        return entryAt(index);
+    }
+
+    /*
+     * Returns the entry at "index", creating it on first use.
+     */
+    private ZipEntry entryAt(int index) {
+        ZipEntry entry = mEntries.get(index);
+        if (entry == null) {
+            entry = new ZipEntry(mCentralDir, mEntryOffsets[index]);
+            if (!mEntries.compareAndSet(index, null, entry)) {
+                entry = mEntries.get(index);
+            }
+        }
+        return entry;
+    }
+
+    /*
+     * Returns the index of the entry called "name", or "name/" if
+     * "directory" is set, or -1 if there is none.
+     */
+    private int findEntry(String name, boolean directory) {
+        int length = name.length();
+        int hash = name.hashCode();
+        if (directory) {
+            hash = 31 * hash + '/';
+        }
+        byte[] cd = mCentralDir;
+        int[] table = mTable;
+        int mask = table.length - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            int index = table[i] - 1;
+            if (index < 0) {
+                return -1;
+            }
+            if (mEntryHashes[index] != hash) {
+                continue;
+            }
+            int off = mEntryOffsets[index];
+            int nameLen = (cd[off + 28] & 0xff) | ((cd[off + 29] & 0xff) << 8);
+            if (nameLen != (directory ? length + 1 : length)) {
+                continue;
+            }
+            off += CENHDR;
+            int j = 0;
+            while (j < length && name.charAt(j) == (cd[off + j] & 0xff)) {
+                j++;
+            }
+            if (j == length && (!directory || cd[off + j] == '/')) {
+                return index;
+            }
         }
-        return ze;
     }
 
     /**
@@ -235,6 +340,28 @@ public class ZipFile implements ZipConstants {
         /*
          * Create a ZipInputStream at the right part of the file.
          */
+        ByteBuffer mapped = mMapped;
+        if (mapped != null) {
+            // Same layout as below: skip the local header, the name and the
+            // local extra data, whose length is at position 28
+            long pos = entry.mLocalHeaderRelOffset + 28;
+            if (pos < 0 || pos + 2 > mapped.capacity()) {
+                throw new EOFException(Messages.getString("archive.3C"));
+            }
+            int localExtraLenOrWhatever = (mapped.get((int) pos) & 0xff)
+                    | ((mapped.get((int) pos + 1) & 0xff) << 8);
+            long start = pos + 2 + entry.nameLen + localExtraLenOrWhatever;
+            long end = Math.min(start + entry.compressedSize, mapped.capacity());
+            MappedStream strm = new MappedStream(this,
+                    (int) Math.min(start, end), (int) end);
+            if (entry.compressionMethod == ZipEntry.DEFLATED) {
+                int bufSize = Math.max(1024, (int)Math.min(entry.getSize(), 65535L));
+                return new ZipInflaterInputStream(strm, new Inflater(true), bufSize, entry);
+            } else {
+                return strm;
+            }
+        }
+
         RandomAccessFile raf = mRaf;
         synchronized (raf) {
             // We don't know the entry data's start position. All we have is the
@@ -273,7 +400,36 @@ public class ZipFile implements ZipConstants {
      */
     public int size() {
         checkNotClosed();
-        return mEntries.size();
+        return mSize;
+    }
+
+    /*
+     * Answers whether archives should be mapped into memory.
+     */
+    private static boolean useMapping() {
+        String value = AccessController
+                .doPrivileged(new PrivilegedAction<String>() {
+                    public String run() {
+                        return System.getProperty(MAPPED_PROPERTY);
+                    }
+                });
+        return "true".equalsIgnoreCase(value); //$NON-NLS-1$
+    }
+
+    /*
+     * Maps the whole archive read-only.  Archives too large for a single
+     * buffer, or which cannot be mapped, are read through mRaf instead.
+     */
+    private void mapArchive() {
+        try {
+            long length = mRaf.length();
+            if (length > 0 && length <= Integer.MAX_VALUE) {
+                mMapped = mRaf.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        0, length);
+            }
+        } catch (IOException e) {
+            mMapped = null;
+        }
     }
 
     /**
@@ -328,6 +484,7 @@ public class ZipFile implements ZipConstants {
          * object.  If we just read from the RandomAccessFile we'll be
          * doing a read() system call every time.
          */
+        long eocdOffset = scanOffset;
         RAFStream rafs = new RAFStream(mRaf, mRaf.getFilePointer());
         BufferedInputStream bin = new BufferedInputStream(rafs, ENDHDR);
 
@@ -367,13 +524,104 @@ public class ZipFile implements ZipConstants {
             }
         }
         
-        // If CDE is found then go and read all the entries
-        rafs = new RAFStream(mRaf, scanOffset);
-        bin = new BufferedInputStream(rafs, 4096);
+        /*
+         * If CDE is found then read the whole directory, which runs up to
+         * the EOCD, in one go and index the entries.
+         */
+        long centralDirLength = eocdOffset - scanOffset;
+        if (centralDirLength > Integer.MAX_VALUE) {
+            throw new ZipException(Messages.getString("archive.3A"));
+        }
+        byte[] cd = new byte[(int) centralDirLength];
+        if (mMapped != null) {
+            ByteBuffer buf = mMapped.duplicate();
+            buf.position((int) scanOffset);
+            buf.get(cd);
+        } else {
+            mRaf.seek(scanOffset);
+            mRaf.readFully(cd);
+        }
+        indexCentralDir(cd, numEntries);
+    }
+
+    /*
+     * Builds the entry index over the central directory "cd".  A name that
+     * occurs more than once keeps its first position but refers to the
+     * last record carrying it.
+     */
+    private void indexCentralDir(byte[] cd, int numEntries)
+            throws ZipException {
+        int[] offsets = new int[numEntries];
+        int[] hashes = new int[numEntries];
+        int capacity = 2;
+        while (capacity < numEntries * 2) {
+            capacity <<= 1;
+        }
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        int count = 0;
+        int off = 0;
+
         for (int i = 0; i < numEntries; i++) {
-            ZipEntry newEntry = new ZipEntry(ler, bin);
-            mEntries.put(newEntry.getName(), newEntry);
+            if (off + CENHDR > cd.length
+                    || ((cd[off] & 0xff) | ((cd[off + 1] & 0xff) << 8)
+                            | ((cd[off + 2] & 0xff) << 16)
+                            | ((cd[off + 3] << 24) & 0xffffffffL)) != CENSIG) {
+                throw new ZipException(Messages.getString("archive.3A"));
+            }
+            int nameLen = (cd[off + 28] & 0xff) | ((cd[off + 29] & 0xff) << 8);
+            int extraLen = (cd[off + 30] & 0xff) | ((cd[off + 31] & 0xff) << 8);
+            int commentLen = (cd[off + 32] & 0xff) | ((cd[off + 33] & 0xff) << 8);
+            int next = off + CENHDR + nameLen + extraLen + commentLen;
+            if (next > cd.length) {
+                throw new ZipException(Messages.getString("archive.3A"));
+            }
+
+            int hash = 0;
+            for (int j = off + CENHDR, end = j + nameLen; j < end; j++) {
+                hash = 31 * hash + (cd[j] & 0xff);
+            }
+            int slot = hash & mask;
+            int index;
+            while ((index = table[slot] - 1) >= 0
+                    && !(hashes[index] == hash
+                            && sameName(cd, offsets[index], off, nameLen))) {
+                slot = (slot + 1) & mask;
+            }
+            if (index < 0) {
+                offsets[count] = off;
+                hashes[count] = hash;
+                table[slot] = ++count;
+            } else {
+                offsets[index] = off;
+            }
+            off = next;
         }
+
+        mCentralDir = cd;
+        mEntryOffsets = offsets;
+        mEntryHashes = hashes;
+        mTable = table;
+        mSize = count;
+        mEntries = new AtomicReferenceArray<ZipEntry>(count);
+    }
+
+    /*
+     * Answers whether the record at "off" in "cd" has the "nameLen" byte
+     * long name of the record at "other".
+     */
+    private static boolean sameName(byte[] cd, int off, int other, int nameLen) {
+        if (((cd[off + 28] & 0xff) | ((cd[off + 29] & 0xff) << 8)) != nameLen) {
+            return false;
+        }
+        off += CENHDR;
+        other += CENHDR;
+        for (int j = 0; j < nameLen; j++) {
+            if (cd[off + j] != cd[other + j]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -445,7 +693,81 @@ public class ZipFile implements ZipConstants {
             return n;
         }
     }
-    
+
+    /**
+     * Wrap a stream around a slice of the mapped archive.  Each stream keeps
+     * a position of its own, so unlike RAFStream no locking is needed.  The
+     * mapping is looked up in the ZipFile on every read, so that closing the
+     * ZipFile releases it.
+     */
+    static class MappedStream extends InputStream {
+
+        final ZipFile mZipFile;
+        int mPosition;
+        final int mLimit;
+
+        MappedStream(ZipFile zipFile, int position, int limit) {
+            mZipFile = zipFile;
+            mPosition = position;
+            mLimit = limit;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return mLimit - mPosition;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer mapped = mapping();
+            if (mPosition >= mLimit) {
+                return -1;
+            }
+            return mapped.get(mPosition++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            ByteBuffer mapped = mapping();
+            if (len == 0) {
+                return 0;
+            }
+            int remaining = mLimit - mPosition;
+            if (remaining <= 0) {
+                return -1;
+            }
+            if (len > remaining) {
+                len = remaining;
+            }
+            ByteBuffer buf = mapped.duplicate();
+            buf.position(mPosition);
+            buf.get(b, off, len);
+            mPosition += len;
+            return len;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            int remaining = mLimit - mPosition;
+            if (n > remaining) {
+                n = remaining;
+            }
+            if (n <= 0) {
+                return 0;
+            }
+            mPosition += (int) n;
+            return n;
+        }
+
+        private ByteBuffer mapping() throws IOException {
+            ByteBuffer mapped = mZipFile.mMapped;
+            if (mapped == null) {
+                throw new IOException(Messages.getString("archive.36"));
+            }
+            return mapped;
+        }
+    }
+
     static class ZipInflaterInputStream extends InflaterInputStream {
 
         ZipEntry entry;
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.archive.util;
+
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of {@code Deflater}s sharing one compression level, strategy
+ * and header setting. Creating a {@code Deflater} allocates and initializes a
+ * native zlib stream, which costs more than compressing a small payload;
+ * taking one from the pool instead only resets a stream already in use.
+ * Deflaters released while the pool is full are ended at once, so a pool
+ * never holds more than its capacity of native streams.
+ */
+public class DeflaterPool {
+
+    private final int level;
+
+    private final int strategy;
+
+    private final boolean noHeader;
+
+    // idle deflaters, the most recently released last
+    private final Deflater[] idle;
+
+    private int idleCount;
+
+    /**
+     * Constructs a new pool of deflaters with the given settings.
+     * 
+     * @param level
+     *            the compression level in the range between 0 and 9, or
+     *            {@code Deflater.DEFAULT_COMPRESSION}.
+     * @param strategy
+     *            one of {@code Deflater.DEFAULT_STRATEGY}, {@code FILTERED}
+     *            or {@code HUFFMAN_ONLY}.
+     * @param noHeader
+     *            {@code true} if no ZLIB header should be written.
+     * @param capacity
+     *            the largest number of idle deflaters kept.
+     */
+    public DeflaterPool(int level, int strategy, boolean noHeader,
+            int capacity) {
+        if (level < Deflater.DEFAULT_COMPRESSION
+                || level > Deflater.BEST_COMPRESSION
+                || strategy < Deflater.DEFAULT_STRATEGY
+                || strategy > Deflater.HUFFMAN_ONLY || capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.level = level;
+        this.strategy = strategy;
+        this.noHeader = noHeader;
+        idle = new Deflater[capacity];
+    }
+
+    /**
+     * Returns a deflater ready for new input, reusing an idle one if there
+     * is any.
+     * 
+     * @return a deflater with the settings of this pool.
+     */
+    public Deflater acquire() {
+        synchronized (this) {
+            if (idleCount > 0) {
+                Deflater deflater = idle[--idleCount];
+                idle[idleCount] = null;
+                return deflater;
+            }
+        }
+        Deflater deflater = new Deflater(level, noHeader);
+        deflater.setStrategy(strategy);
+        return deflater;
+    }
+
+    /**
+     * Resets a deflater taken from this pool and makes it available to
+     * {@code acquire()} again, or ends it if the pool is full. The deflater
+     * must not be used by the caller afterwards.
+     * 
+     * @param deflater
+     *            a deflater returned by {@code acquire()} that has not been
+     *            ended.
+     */
+    public void release(Deflater deflater) {
+        deflater.reset();
+        // undo any change made while it was borrowed
+        deflater.setLevel(level);
+        deflater.setStrategy(strategy);
+        synchronized (this) {
+            if (idleCount < idle.length) {
+                idle[idleCount++] = deflater;
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    /**
+     * Ends all idle deflaters, freeing their native streams.
+     */
+    public void clear() {
+        Deflater[] ended;
+        synchronized (this) {
+            ended = new Deflater[idleCount];
+            System.arraycopy(idle, 0, ended, 0, idleCount);
+            while (idleCount > 0) {
+                idle[--idleCount] = null;
+            }
+        }
+        for (int i = 0; i < ended.length; i++) {
+            ended[i].end();
+        }
+    }
+}
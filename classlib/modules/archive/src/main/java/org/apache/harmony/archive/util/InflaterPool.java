@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.archive.util;
+
+import java.util.zip.Inflater;
+
+/**
+ * A bounded pool of {@code Inflater}s sharing one header setting. Taking an
+ * {@code Inflater} from the pool resets a native zlib stream already in use
+ * instead of allocating a new one. Inflaters released while the pool is full
+ * are ended at once, so a pool never holds more than its capacity of native
+ * streams.
+ * 
+ * @see DeflaterPool
+ */
+public class InflaterPool {
+
+    private final boolean noHeader;
+
+    // idle inflaters, the most recently released last
+    private final Inflater[] idle;
+
+    private int idleCount;
+
+    /**
+     * Constructs a new pool of inflaters with the given header setting.
+     * 
+     * @param noHeader
+     *            {@code true} if the input comes without a ZLIB header.
+     * @param capacity
+     *            the largest number of idle inflaters kept.
+     */
+    public InflaterPool(boolean noHeader, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.noHeader = noHeader;
+        idle = new Inflater[capacity];
+    }
+
+    /**
+     * Returns an inflater ready for new input, reusing an idle one if there
+     * is any.
+     * 
+     * @return an inflater with the header setting of this pool.
+     */
+    public Inflater acquire() {
+        synchronized (this) {
+            if (idleCount > 0) {
+                Inflater inflater = idle[--idleCount];
+                idle[idleCount] = null;
+                return inflater;
+            }
+        }
+        return new Inflater(noHeader);
+    }
+
+    /**
+     * Resets an inflater taken from this pool and makes it available to
+     * {@code acquire()} again, or ends it if the pool is full. The inflater
+     * must not be used by the caller afterwards.
+     * 
+     * @param inflater
+     *            an inflater returned by {@code acquire()} that has not been
+     *            ended.
+     */
+    public void release(Inflater inflater) {
+        inflater.reset();
+        synchronized (this) {
+            if (idleCount < idle.length) {
+                idle[idleCount++] = inflater;
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    /**
+     * Ends all idle inflaters, freeing their native streams.
+     */
+    public void clear() {
+        Inflater[] ended;
+        synchronized (this) {
+            ended = new Inflater[idleCount];
+            System.arraycopy(idle, 0, ended, 0, idleCount);
+            while (idleCount > 0) {
+                idle[--idleCount] = null;
+            }
+        }
+        for (int i = 0; i < ended.length; i++) {
+            ended[i].end();
+        }
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.archive.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+import org.apache.harmony.archive.internal.nls.Messages;
+
+/**
+ * An output stream that compresses its data in the ZLIB format on several
+ * threads at once. The data is cut into blocks that are deflated
+ * concurrently, each by its own {@code Deflater} primed with the 32K of
+ * data before the block as a preset dictionary, so that the compression
+ * ratio stays close to that of a single {@code Deflater}. Every block but the
+ * last ends with a sync flush, which makes the compressed blocks concatenate
+ * into one ordinary deflate stream; their checksums are combined in the same
+ * order. The result can be read by any {@code InflaterInputStream}.
+ * <p>
+ * Up to twice as many blocks as threads are in flight, which bounds the
+ * memory used. Each block costs a few bytes of compression ratio, so blocks
+ * should not be made much smaller than the default.
+ * <p>
+ * Blocks are compressed by the given {@code Executor}, or else by threads of
+ * the stream's own. Those are daemon threads that end once they have been
+ * idle for a few seconds, so a stream that is never closed does not keep
+ * its threads.
+ * 
+ * @see ParallelGZIPOutputStream
+ */
+public class ParallelDeflaterOutputStream extends FilterOutputStream {
+
+    /**
+     * The default block size, 128K.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    // The window of the deflate algorithm, the most history a block can use
+    static final int DICTIONARY_SIZE = 32 * 1024;
+
+    // How long the stream's own threads wait for another block
+    private static final long KEEP_ALIVE_SECONDS = 5;
+
+    // The result of compressing one block
+    static final class Block {
+
+        byte[] compressed;
+
+        int compressedLength;
+
+        int length;
+
+        long checksum;
+    }
+
+    private final Executor executor;
+
+    // The executor the stream created, or null if the caller supplied one
+    private final ThreadPoolExecutor ownExecutor;
+
+    private final DeflaterPool deflaters;
+
+    private final int maxPending;
+
+    private final LinkedList<Future<Block>> pending = new LinkedList<Future<Block>>();
+
+    private byte[] block;
+
+    private int blockLength;
+
+    // The last input, which becomes the dictionary of the next block
+    private final byte[] window = new byte[DICTIONARY_SIZE];
+
+    private int windowLength;
+
+    private long checksum;
+
+    private long totalIn;
+
+    private boolean finished;
+
+    private boolean closed;
+
+    /**
+     * Constructs a new stream that compresses with the default compression
+     * level on the given number of threads, in blocks of the default size.
+     * 
+     * @param os
+     *            the {@code OutputStream} to write compressed data to.
+     * @param threads
+     *            the number of threads compressing at once.
+     * @throws IOException
+     *             if an {@code IOException} occurs writing the header.
+     */
+    public ParallelDeflaterOutputStream(OutputStream os, int threads)
+            throws IOException {
+        this(os, Deflater.DEFAULT_COMPRESSION, threads, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a new stream that compresses with the given level on the
+     * given number of threads, in blocks of the given size.
+     * 
+     * @param os
+     *            the {@code OutputStream} to write compressed data to.
+     * @param level
+     *            the compression level in the range between 0 and 9, or
+     *            {@code Deflater.DEFAULT_COMPRESSION}.
+     * @param threads
+     *            the number of threads compressing at once.
+     * @param blockSize
+     *            the number of bytes of input in each block.
+     * @throws IOException
+     *             if an {@code IOException} occurs writing the header.
+     */
+    public ParallelDeflaterOutputStream(OutputStream os, int level,
+            int threads, int blockSize) throws IOException {
+        this(os, level, null, threads, blockSize);
+    }
+
+    /**
+     * Constructs a new stream that compresses with the given level, in
+     * blocks of the given size, on the threads of the given executor. The
+     * executor is shared rather than owned: closing the stream does not shut
+     * it down.
+     * 
+     * @param os
+     *            the {@code OutputStream} to write compressed data to.
+     * @param level
+     *            the compression level in the range between 0 and 9, or
+     *            {@code Deflater.DEFAULT_COMPRESSION}.
+     * @param executor
+     *            the executor that compresses the blocks, or {@code null}
+     *            for threads of the stream's own.
+     * @param threads
+     *            the number of blocks compressing at once.
+     * @param blockSize
+     *            the number of bytes of input in each block.
+     * @throws IOException
+     *             if an {@code IOException} occurs writing the header.
+     */
+    public ParallelDeflaterOutputStream(OutputStream os, int level,
+            Executor executor, int threads, int blockSize) throws IOException {
+        super(os);
+        if (os == null) {
+            throw new NullPointerException();
+        }
+        if (threads < 1 || blockSize < 1) {
+            throw new IllegalArgumentException();
+        }
+        deflaters = new DeflaterPool(level, Deflater.DEFAULT_STRATEGY, true,
+                threads);
+        if (executor == null) {
+            ownExecutor = new ThreadPoolExecutor(threads, threads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "ParallelDeflater"); //$NON-NLS-1$
+                            // an unclosed stream must not keep the VM alive
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            // nor its threads, once it stops writing
+            ownExecutor.allowCoreThreadTimeOut(true);
+            executor = ownExecutor;
+        } else {
+            ownExecutor = null;
+        }
+        this.executor = executor;
+        maxPending = 2 * threads;
+        block = new byte[blockSize];
+        checksum = initialChecksum();
+        writeHeader(level);
+    }
+
+    /**
+     * Writes a byte to be compressed.
+     * 
+     * @param oneByte
+     *            the byte to write.
+     * @throws IOException
+     *             if an {@code IOException} occurs.
+     */
+    @Override
+    public void write(int oneByte) throws IOException {
+        write(new byte[] { (byte) oneByte }, 0, 1);
+    }
+
+    /**
+     * Writes bytes from a buffer to be compressed. Blocks are handed to the
+     * compressing threads as they fill up, and compressed blocks are written
+     * to the underlying stream in order as they complete.
+     * 
+     * @param buffer
+     *            the buffer of bytes to write.
+     * @param off
+     *            the offset in {@code buffer} to start at.
+     * @param nbytes
+     *            the number of bytes to write.
+     * @throws IOException
+     *             if an {@code IOException} occurs.
+     */
+    @Override
+    public void write(byte[] buffer, int off, int nbytes) throws IOException {
+        if (finished) {
+            throw new IOException(Messages.getString("archive.26")); //$NON-NLS-1$
+        }
+        // avoid int overflow, check null buf
+        if (off > buffer.length || nbytes < 0 || off < 0
+                || buffer.length - off < nbytes) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        while (nbytes > 0) {
+            int count = Math.min(nbytes, block.length - blockLength);
+            System.arraycopy(buffer, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            nbytes -= count;
+            if (blockLength == block.length) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Compresses the data written so far, waits for all blocks to be
+     * compressed and writes them, then flushes the underlying stream.
+     * 
+     * @throws IOException
+     *             if an {@code IOException} occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!finished) {
+            if (blockLength > 0) {
+                submit(false);
+            }
+            while (!pending.isEmpty()) {
+                writeBlock();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Compresses the data written so far and writes the end of the
+     * compressed data, without closing the underlying stream.
+     * 
+     * @throws IOException
+     *             if an {@code IOException} occurs.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        submit(true);
+        while (!pending.isEmpty()) {
+            writeBlock();
+        }
+        finished = true;
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+        deflaters.clear();
+        writeTrailer(checksum, totalIn);
+    }
+
+    /**
+     * Writes the end of the compressed data, stops the compressing threads
+     * and closes the underlying stream.
+     * 
+     * @throws IOException
+     *             if an {@code IOException} occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            finish();
+        } finally {
+            if (!finished) {
+                for (Future<Block> future : pending) {
+                    future.cancel(false);
+                }
+                pending.clear();
+                if (ownExecutor != null) {
+                    ownExecutor.shutdownNow();
+                }
+                deflaters.clear();
+            }
+            out.close();
+        }
+    }
+
+    /*
+     * Hands the current block to the compressing threads, then writes out
+     * compressed blocks until few enough are pending.
+     */
+    private void submit(boolean last) throws IOException {
+        final byte[] data = block;
+        final int length = blockLength;
+        final byte[] dictionary = new byte[windowLength];
+        System.arraycopy(window, 0, dictionary, 0, windowLength);
+        final boolean finish = last;
+        FutureTask<Block> task = new FutureTask<Block>(new Callable<Block>() {
+            public Block call() {
+                return compress(data, length, dictionary, finish);
+            }
+        });
+        executor.execute(task);
+        pending.addLast(task);
+
+        // slide the window over the new data
+        if (length >= DICTIONARY_SIZE) {
+            System.arraycopy(data, length - DICTIONARY_SIZE, window, 0,
+                    DICTIONARY_SIZE);
+            windowLength = DICTIONARY_SIZE;
+        } else {
+            int kept = Math.min(windowLength, DICTIONARY_SIZE - length);
+            System.arraycopy(window, windowLength - kept, window, 0, kept);
+            System.arraycopy(data, 0, window, kept, length);
+            windowLength = kept + length;
+        }
+
+        if (!last) {
+            block = new byte[block.length];
+            blockLength = 0;
+        }
+        while (pending.size() > maxPending) {
+            writeBlock();
+        }
+    }
+
+    /*
+     * Deflates one block on a compressing thread. The deflater is raw, as
+     * the header and trailer are written by the stream itself.
+     */
+    private Block compress(byte[] data, int length, byte[] dictionary,
+            boolean last) {
+        Block result = new Block();
+        result.length = length;
+        result.checksum = checksum(data, length);
+        byte[] compressed = new byte[length + length / 1000 + 64];
+        int compressedLength = 0;
+        Deflater deflater = deflaters.acquire();
+        try {
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data, 0, length);
+            if (last) {
+                deflater.finish();
+            }
+            while (true) {
+                int space = compressed.length - compressedLength;
+                if (last) {
+                    compressedLength += deflater.deflate(compressed,
+                            compressedLength, space);
+                    if (deflater.finished()) {
+                        break;
+                    }
+                } else {
+                    int count = deflater.deflate(compressed,
+                            compressedLength, space, Deflater.SYNC_FLUSH);
+                    compressedLength += count;
+                    if (count < space) {
+                        break;
+                    }
+                }
+                if (compressedLength == compressed.length) {
+                    byte[] larger = new byte[compressed.length * 2];
+                    System.arraycopy(compressed, 0, larger, 0,
+                            compressedLength);
+                    compressed = larger;
+                }
+            }
+        } finally {
+            deflaters.release(deflater);
+        }
+        result.compressed = compressed;
+        result.compressedLength = compressedLength;
+        return result;
+    }
+
+    /*
+     * Waits for the oldest pending block, writes it and adds it to the
+     * checksum.
+     */
+    private void writeBlock() throws IOException {
+        Future<Block> future = pending.removeFirst();
+        Block result = null;
+        boolean interrupted = false;
+        try {
+            // the block is needed for a valid stream, so wait on
+            while (result == null) {
+                try {
+                    result = future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            IOException ioe = new IOException(cause.toString());
+            ioe.initCause(cause);
+            throw ioe;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        out.write(result.compressed, 0, result.compressedLength);
+        checksum = combineChecksums(checksum, result.checksum, result.length);
+        totalIn += result.length;
+    }
+
+    /**
+     * Writes the ZLIB header.
+     */
+    void writeHeader(int level) throws IOException {
+        int flags;
+        if (level >= 0 && level < 2) {
+            flags = 0;
+        } else if (level >= 0 && level < 6) {
+            flags = 1;
+        } else if (level == 6 || level == Deflater.DEFAULT_COMPRESSION) {
+            flags = 2;
+        } else {
+            flags = 3;
+        }
+        int header = (0x78 << 8) | (flags << 6);
+        header += 31 - header % 31;
+        out.write(header >> 8);
+        out.write(header & 0xFF);
+    }
+
+    /**
+     * Writes the ZLIB trailer, the Adler32 checksum of all data.
+     */
+    void writeTrailer(long sum, long length) throws IOException {
+        out.write((int) (sum >> 24) & 0xFF);
+        out.write((int) (sum >> 16) & 0xFF);
+        out.write((int) (sum >> 8) & 0xFF);
+        out.write((int) sum & 0xFF);
+    }
+
+    /**
+     * Returns the checksum of no data.
+     */
+    long initialChecksum() {
+        return 1;
+    }
+
+    /**
+     * Returns the checksum of one block, called on a compressing thread.
+     */
+    long checksum(byte[] data, int length) {
+        Adler32 adler = new Adler32();
+        adler.update(data, 0, length);
+        return adler.getValue();
+    }
+
+    /**
+     * Returns the checksum of two runs of data given the checksum of each.
+     * 
+     * @param sum1
+     *            the checksum of the first run.
+     * @param sum2
+     *            the checksum of the second run.
+     * @param length2
+     *            the length of the second run.
+     */
+    long combineChecksums(long sum1, long sum2, long length2) {
+        // as adler32_combine() in zlib
+        final long base = 65521;
+        long rem = length2 % base;
+        long s1 = sum1 & 0xFFFF;
+        long s2 = (rem * s1) % base;
+        s1 += (sum2 & 0xFFFF) + base - 1;
+        s2 += ((sum1 >> 16) & 0xFFFF) + ((sum2 >> 16) & 0xFFFF) + base - rem;
+        if (s1 >= base) {
+            s1 -= base;
+        }
+        if (s1 >= base) {
+            s1 -= base;
+        }
+        if (s2 >= base << 1) {
+            s2 -= base << 1;
+        }
+        if (s2 >= base) {
+            s2 -= base;
+        }
+        return s1 | (s2 << 16);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.archive.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream that compresses its data in the GZIP format on several
+ * threads at once, as {@code ParallelDeflaterOutputStream} does for the ZLIB
+ * format. The CRC32 of each block is computed by the thread that compresses
+ * it, and the results are combined into the CRC32 of all data. The output is
+ * a single GZIP member that any {@code GZIPInputStream} can read.
+ */
+public class ParallelGZIPOutputStream extends ParallelDeflaterOutputStream {
+
+    // GZIP header magic number
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    // CRC32 polynomial, reversed
+    private static final long CRC32_POLYNOMIAL = 0xEDB88320L;
+
+    /**
+     * Constructs a new stream that compresses with the default compression
+     * level on the given number of threads, in blocks of the default size.
+     * 
+     * @param os
+     *            the {@code OutputStream} to write compressed data to.
+     * @param threads
+     *            the number of threads compressing at once.
+     * @throws IOException
+     *             if an {@code IOException} occurs writing the header.
+     */
+    public ParallelGZIPOutputStream(OutputStream os, int threads)
+            throws IOException {
+        super(os, threads);
+    }
+
+    /**
+     * Constructs a new stream that compresses with the given level on the
+     * given number of threads, in blocks of the given size.
+     * 
+     * @param os
+     *            the {@code OutputStream} to write compressed data to.
+     * @param level
+     *            the compression level in the range between 0 and 9, or
+     *            {@code Deflater.DEFAULT_COMPRESSION}.
+     * @param threads
+     *            the number of threads compressing at once.
+     * @param blockSize
+     *            the number of bytes of input in each block.
+     * @throws IOException
+     *             if an {@code IOException} occurs writing the header.
+     */
+    public ParallelGZIPOutputStream(OutputStream os, int level, int threads,
+            int blockSize) throws IOException {
+        super(os, level, threads, blockSize);
+    }
+
+    /**
+     * Constructs a new stream that compresses with the given level, in
+     * blocks of the given size, on the threads of the given executor. The
+     * executor is shared rather than owned: closing the stream does not shut
+     * it down.
+     * 
+     * @param os
+     *            the {@code OutputStream} to write compressed data to.
+     * @param level
+     *            the compression level in the range between 0 and 9, or
+     *            {@code Deflater.DEFAULT_COMPRESSION}.
+     * @param executor
+     *            the executor that compresses the blocks, or {@code null}
+     *            for threads of the stream's own.
+     * @param threads
+     *            the number of blocks compressing at once.
+     * @param blockSize
+     *            the number of bytes of input in each block.
+     * @throws IOException
+     *             if an {@code IOException} occurs writing the header.
+     */
+    public ParallelGZIPOutputStream(OutputStream os, int level,
+            Executor executor, int threads, int blockSize) throws IOException {
+        super(os, level, executor, threads, blockSize);
+    }
+
+    /**
+     * Writes the GZIP header, as {@code GZIPOutputStream} does.
+     */
+    @Override
+    void writeHeader(int level) throws IOException {
+        writeShort(GZIP_MAGIC);
+        out.write(Deflater.DEFLATED);
+        out.write(0); // flags
+        writeInt(0); // mod time
+        out.write(0); // extra flags
+        out.write(0); // operating system
+    }
+
+    /**
+     * Writes the GZIP trailer, the CRC32 and length of all data.
+     */
+    @Override
+    void writeTrailer(long sum, long length) throws IOException {
+        writeInt(sum);
+        writeInt(length);
+    }
+
+    @Override
+    long initialChecksum() {
+        return 0;
+    }
+
+    @Override
+    long checksum(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return crc.getValue();
+    }
+
+    /**
+     * Combines two CRC32s as crc32_combine() in zlib does: the CRC32 of the
+     * first run is carried over the zeros of the second run's length by
+     * repeated squaring of the matrix that advances a CRC by one zero bit.
+     */
+    @Override
+    long combineChecksums(long sum1, long sum2, long length2) {
+        if (length2 <= 0) {
+            return sum1;
+        }
+        long[] even = new long[32];
+        long[] odd = new long[32];
+
+        // the operator for one zero bit
+        odd[0] = CRC32_POLYNOMIAL;
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // the operators for two and four zero bits
+        square(even, odd);
+        square(odd, even);
+
+        // apply the operator for each one bit of the length in bytes
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                sum1 = times(even, sum1);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                sum1 = times(odd, sum1);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+        return sum1 ^ sum2;
+    }
+
+    private static long times(long[] matrix, long vector) {
+        long sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(long[] square, long[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    private void writeInt(long i) throws IOException {
+        // Write out the long value as an unsigned int
+        int unsigned = (int) i;
+        out.write(unsigned & 0xFF);
+        out.write((unsigned >> 8) & 0xFF);
+        out.write((unsigned >> 16) & 0xFF);
+        out.write((unsigned >> 24) & 0xFF);
+    }
+
+    private void writeShort(int i) throws IOException {
+        out.write(i & 0xFF);
+        out.write((i >> 8) & 0xFF);
+    }
+}
@@ -52,6 +52,8 @@ Java_java_util_zip_Deflater_setDictionaryImpl (JNIEnv * env, jobject recv,
       THROW_ZIP_EXCEPTION(env, err, IllegalArgumentException);
       return;
     }
+  if (stream->dict != NULL)	/*A dictionary was set before, free it */
+    jclmem_free_memory (env, stream->dict);
   stream->dict = (U_8*) dBytes;
 }
 
@@ -172,34 +174,33 @@ Java_java_util_zip_Deflater_setInputImpl (JNIEnv * env, jobject recv,
   return;
 }
 
-JNIEXPORT jint JNICALL
-Java_java_util_zip_Deflater_deflateImpl (JNIEnv * env, jobject recv,
-					 jbyteArray buf, int off, int len,
-					 jlong handle, int flushParm)
+JNIEXPORT void JNICALL
+Java_java_util_zip_Deflater_setInputDirectImpl (JNIEnv * env, jobject recv,
+						jlong address, jint len,
+						jlong handle)
 {
-  jbyte *out;
-  JCLZipStream *stream;
-  jint err = 0;
-  jint sin, sout, inBytes = 0;
+  PORT_ACCESS_FROM_ENV (env);
 
-  /* We need to get the number of bytes already read */
-  inBytes =
-    ((*env)->
-     GetIntField (env, recv,
-		  JCL_CACHE_GET (env, FID_java_util_zip_Deflater_inRead)));
+  JCLZipStream *stream;
 
   stream = (JCLZipStream *) ((IDATA) handle);
-  stream->stream->avail_out = len;
-  sin = stream->stream->total_in;
-  sout = stream->stream->total_out;
-  out = ((*env)->GetPrimitiveArrayCritical (env, buf, 0));
-  if (out == NULL) {
-    throwNewOutOfMemoryError(env, "");
-    return -1;
-  }
-  stream->stream->next_out = (Bytef *) out + off;
-  err = deflate (stream->stream, flushParm);
-  ((*env)->ReleasePrimitiveArrayCritical (env, buf, out, 0));
+  if (stream->inaddr != NULL)	/*Input has already been provided, free the old buffer */
+    {
+      jclmem_free_memory (env, stream->inaddr);
+      stream->inaddr = NULL;
+    }
+  /* Read in place; the Deflater keeps the buffer reachable meanwhile */
+  stream->stream->next_in = (Bytef *) ((IDATA) address);
+  stream->stream->avail_in = len;
+
+  return;
+}
+
+/* Records the outcome of a deflate() call on the Deflater and returns the number of bytes written */
+static jint
+deflateResult (JNIEnv * env, jobject recv, JCLZipStream * stream, jint err,
+	       jint sin, jint sout, jint inBytes, int flushParm)
+{
   if (err != Z_OK) {
     if (err == Z_MEM_ERROR) {
       throwNewOutOfMemoryError(env, "");
@@ -226,6 +227,61 @@ Java_java_util_zip_Deflater_deflateImpl (JNIEnv * env, jobject recv,
   return stream->stream->total_out - sout;
 }
 
+JNIEXPORT jint JNICALL
+Java_java_util_zip_Deflater_deflateImpl (JNIEnv * env, jobject recv,
+					 jbyteArray buf, int off, int len,
+					 jlong handle, int flushParm)
+{
+  jbyte *out;
+  JCLZipStream *stream;
+  jint err = 0;
+  jint sin, sout, inBytes = 0;
+
+  /* We need to get the number of bytes already read */
+  inBytes =
+    ((*env)->
+     GetIntField (env, recv,
+		  JCL_CACHE_GET (env, FID_java_util_zip_Deflater_inRead)));
+
+  stream = (JCLZipStream *) ((IDATA) handle);
+  stream->stream->avail_out = len;
+  sin = stream->stream->total_in;
+  sout = stream->stream->total_out;
+  out = ((*env)->GetPrimitiveArrayCritical (env, buf, 0));
+  if (out == NULL) {
+    throwNewOutOfMemoryError(env, "");
+    return -1;
+  }
+  stream->stream->next_out = (Bytef *) out + off;
+  err = deflate (stream->stream, flushParm);
+  ((*env)->ReleasePrimitiveArrayCritical (env, buf, out, 0));
+  return deflateResult (env, recv, stream, err, sin, sout, inBytes, flushParm);
+}
+
+JNIEXPORT jint JNICALL
+Java_java_util_zip_Deflater_deflateDirectImpl (JNIEnv * env, jobject recv,
+					       jlong address, int len,
+					       jlong handle, int flushParm)
+{
+  JCLZipStream *stream;
+  jint err = 0;
+  jint sin, sout, inBytes = 0;
+
+  /* We need to get the number of bytes already read */
+  inBytes =
+    ((*env)->
+     GetIntField (env, recv,
+		  JCL_CACHE_GET (env, FID_java_util_zip_Deflater_inRead)));
+
+  stream = (JCLZipStream *) ((IDATA) handle);
+  stream->stream->avail_out = len;
+  sin = stream->stream->total_in;
+  sout = stream->stream->total_out;
+  stream->stream->next_out = (Bytef *) ((IDATA) address);
+  err = deflate (stream->stream, flushParm);
+  return deflateResult (env, recv, stream, err, sin, sout, inBytes, flushParm);
+}
+
 JNIEXPORT void JNICALL
 Java_java_util_zip_Deflater_endImpl (JNIEnv * env, jobject recv, jlong handle)
 {
@@ -117,33 +117,34 @@ Java_java_util_zip_Inflater_setInputImpl (JNIEnv * env, jobject recv,
   return;
 }
 
-JNIEXPORT jint JNICALL
-Java_java_util_zip_Inflater_inflateImpl (JNIEnv * env, jobject recv,
-                                         jbyteArray buf, int off, int len,
-                                         jlong handle)
+JNIEXPORT void JNICALL
+Java_java_util_zip_Inflater_setInputDirectImpl (JNIEnv * env, jobject recv,
+                                                jlong address, jint len,
+                                                jlong handle)
 {
-  jbyte *out;
+  PORT_ACCESS_FROM_ENV (env);
+
   JCLZipStream *stream = (JCLZipStream *) ((IDATA) handle);
-  jint err = 0;
-  jfieldID fid = 0, fid2 = 0;
-  jint sin, sout, inBytes = 0;
 
-  /* We need to get the number of bytes already read */
-  fid = JCL_CACHE_GET (env, FID_java_util_zip_Inflater_inRead);
-  inBytes = ((*env)->GetIntField (env, recv, fid));
+  if (stream->inaddr != NULL)   /*Input has already been provided, free the old buffer */
+    {
+      jclmem_free_memory (env, stream->inaddr);
+      stream->inaddr = NULL;
+    }
+  /* Read in place; the Inflater keeps the buffer reachable meanwhile */
+  stream->stream->next_in = (Bytef *) ((IDATA) address);
+  stream->stream->avail_in = len;
+  return;
+}
 
-  stream->stream->avail_out = len;
-  sin = stream->stream->total_in;
-  sout = stream->stream->total_out;
-  out = ((*env)->GetPrimitiveArrayCritical (env, buf, 0));
-  if (out == NULL) {
-    throwNewOutOfMemoryError(env, "");
-    return -1;
-  }
-  stream->stream->next_out = (Bytef *) out + off;
-  err = inflate (stream->stream, Z_SYNC_FLUSH);
-  ((*env)->ReleasePrimitiveArrayCritical (env, buf, out, 0));
+/* Records the outcome of an inflate() call on the Inflater and returns the number of bytes written */
+static jint
+inflateResult (JNIEnv * env, jobject recv, JCLZipStream * stream, jint err,
+               jint sin, jint sout, jint inBytes)
+{
+  jfieldID fid = 0, fid2 = 0;
 
+  fid = JCL_CACHE_GET (env, FID_java_util_zip_Inflater_inRead);
   if (err != Z_OK)
     {
       if(err == Z_STREAM_ERROR) {
@@ -178,6 +179,55 @@ Java_java_util_zip_Inflater_inflateImpl (JNIEnv * env, jobject recv,
   return stream->stream->total_out - sout;
 }
 
+JNIEXPORT jint JNICALL
+Java_java_util_zip_Inflater_inflateImpl (JNIEnv * env, jobject recv,
+                                         jbyteArray buf, int off, int len,
+                                         jlong handle)
+{
+  jbyte *out;
+  JCLZipStream *stream = (JCLZipStream *) ((IDATA) handle);
+  jint err = 0;
+  jint sin, sout, inBytes = 0;
+
+  /* We need to get the number of bytes already read */
+  inBytes = ((*env)->GetIntField (env, recv,
+                                  JCL_CACHE_GET (env, FID_java_util_zip_Inflater_inRead)));
+
+  stream->stream->avail_out = len;
+  sin = stream->stream->total_in;
+  sout = stream->stream->total_out;
+  out = ((*env)->GetPrimitiveArrayCritical (env, buf, 0));
+  if (out == NULL) {
+    throwNewOutOfMemoryError(env, "");
+    return -1;
+  }
+  stream->stream->next_out = (Bytef *) out + off;
+  err = inflate (stream->stream, Z_SYNC_FLUSH);
+  ((*env)->ReleasePrimitiveArrayCritical (env, buf, out, 0));
+  return inflateResult (env, recv, stream, err, sin, sout, inBytes);
+}
+
+JNIEXPORT jint JNICALL
+Java_java_util_zip_Inflater_inflateDirectImpl (JNIEnv * env, jobject recv,
+                                               jlong address, int len,
+                                               jlong handle)
+{
+  JCLZipStream *stream = (JCLZipStream *) ((IDATA) handle);
+  jint err = 0;
+  jint sin, sout, inBytes = 0;
+
+  /* We need to get the number of bytes already read */
+  inBytes = ((*env)->GetIntField (env, recv,
+                                  JCL_CACHE_GET (env, FID_java_util_zip_Inflater_inRead)));
+
+  stream->stream->avail_out = len;
+  sin = stream->stream->total_in;
+  sout = stream->stream->total_out;
+  stream->stream->next_out = (Bytef *) ((IDATA) address);
+  err = inflate (stream->stream, Z_SYNC_FLUSH);
+  return inflateResult (env, recv, stream, err, sin, sout, inBytes);
+}
+
 JNIEXPORT jint JNICALL
 Java_java_util_zip_Inflater_getAdlerImpl (JNIEnv * env, jobject recv,
                                           jlong handle)
@@ -229,6 +279,8 @@ Java_java_util_zip_Inflater_setDictionaryImpl (JNIEnv * env, jobject recv,
       THROW_ZIP_EXCEPTION(env, err, IllegalArgumentException);
       return;
     }
+  if (stream->dict != NULL)     /*A dictionary was set before, free it */
+    jclmem_free_memory (env, stream->dict);
   stream->dict = dBytes;
 }
 
@@ -35,10 +35,20 @@ JNIEXPORT void JNICALL Java_java_util_zip_Inflater_setInputImpl (JNIEnv * env,
                                                        jbyteArray buf,
                                                        jint off, jint len,
                                                        jlong handle);
+JNIEXPORT void JNICALL Java_java_util_zip_Inflater_setInputDirectImpl (JNIEnv * env,
+                                                             jobject recv,
+                                                             jlong address,
+                                                             jint len,
+                                                             jlong handle);
 JNIEXPORT jint JNICALL Java_java_util_zip_Inflater_inflateImpl (JNIEnv * env,
                                                       jobject recv,
                                                       jbyteArray buf, int off,
                                                       int len, jlong handle);
+JNIEXPORT jint JNICALL Java_java_util_zip_Inflater_inflateDirectImpl (JNIEnv * env,
+                                                            jobject recv,
+                                                            jlong address,
+                                                            int len,
+                                                            jlong handle);
 JNIEXPORT void JNICALL Java_java_util_zip_Inflater_setDictionaryImpl (JNIEnv * env,
                                                             jobject recv,
                                                             jbyteArray dict,
@@ -0,0 +1,124 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.archive.util;
+
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import junit.framework.TestCase;
+
+public class DeflaterPoolTest extends TestCase {
+
+    private static byte[] compress(Deflater deflater, byte[] input) {
+        byte[] output = new byte[input.length + 64];
+        deflater.setInput(input);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(output, length, output.length - length);
+        }
+        byte[] result = new byte[length];
+        System.arraycopy(output, 0, result, 0, length);
+        return result;
+    }
+
+    public void testAcquireRelease() throws Exception {
+        DeflaterPool pool = new DeflaterPool(Deflater.BEST_SPEED,
+                Deflater.DEFAULT_STRATEGY, false, 1);
+        byte[] input = "aaaaaaaaaabbbbbbbbbbaaaaaaaaaabbbbbbbbbb".getBytes("UTF-8");
+
+        Deflater first = pool.acquire();
+        byte[] expected = compress(first, input);
+        pool.release(first);
+
+        // the released deflater is handed out again, reset
+        Deflater second = pool.acquire();
+        assertSame(first, second);
+        assertEquals(0, second.getTotalIn());
+        assertFalse(second.finished());
+
+        // changes made while borrowed do not outlive the loan
+        second.setLevel(Deflater.NO_COMPRESSION);
+        pool.release(second);
+        Deflater third = pool.acquire();
+        byte[] actual = compress(third, input);
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i]);
+        }
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(actual);
+        byte[] result = new byte[input.length];
+        assertEquals(input.length, inflater.inflate(result));
+        inflater.end();
+        pool.release(third);
+        pool.clear();
+    }
+
+    public void testCapacity() {
+        DeflaterPool pool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION,
+                Deflater.FILTERED, true, 1);
+        Deflater first = pool.acquire();
+        Deflater second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+
+        // the pool was full, so the second one was ended
+        try {
+            second.getTotalIn();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertSame(first, pool.acquire());
+
+        pool.release(first);
+        pool.clear();
+        try {
+            first.getTotalIn();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertNotSame(first, pool.acquire());
+    }
+
+    public void testConstructor() {
+        try {
+            new DeflaterPool(10, Deflater.DEFAULT_STRATEGY, false, 1);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new DeflaterPool(Deflater.BEST_SPEED, 3, false, 1);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new DeflaterPool(Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY,
+                    false, -1);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.archive.util;
+
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import junit.framework.TestCase;
+
+public class InflaterPoolTest extends TestCase {
+
+    public void testAcquireRelease() throws Exception {
+        byte[] input = "aaaaaaaaaabbbbbbbbbbaaaaaaaaaabbbbbbbbbb".getBytes("UTF-8");
+        byte[] compressed = new byte[100];
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(input);
+        deflater.finish();
+        int length = deflater.deflate(compressed);
+        deflater.end();
+
+        InflaterPool pool = new InflaterPool(true, 2);
+        Inflater first = pool.acquire();
+        for (int i = 0; i < 3; i++) {
+            Inflater inflater = pool.acquire();
+            if (i > 0) {
+                assertSame(first, inflater);
+            }
+            // raw streams need one extra byte to see the end
+            byte[] in = new byte[length + 1];
+            System.arraycopy(compressed, 0, in, 0, length);
+            inflater.setInput(in);
+            byte[] result = new byte[input.length];
+            assertEquals(input.length, inflater.inflate(result));
+            assertTrue(inflater.finished());
+            for (int j = 0; j < input.length; j++) {
+                assertEquals(input[j], result[j]);
+            }
+            pool.release(inflater);
+            if (i == 0) {
+                // first goes back last, so it is handed out next
+                pool.release(first);
+            }
+        }
+        pool.clear();
+        try {
+            first.getTotalIn();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testConstructor() {
+        try {
+            new InflaterPool(false, -1);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
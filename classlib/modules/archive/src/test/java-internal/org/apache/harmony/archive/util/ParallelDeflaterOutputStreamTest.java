@@ -0,0 +1,164 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.archive.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+
+import junit.framework.TestCase;
+
+public class ParallelDeflaterOutputStreamTest extends TestCase {
+
+    // text-like data, so that the dictionaries matter
+    static byte[] data(int size) {
+        byte[] data = new byte[size];
+        int seed = 7;
+        for (int i = 0; i < size; i++) {
+            seed = seed * 1103515245 + 12345;
+            data[i] = (byte) ('a' + ((seed >>> 16) % 8) + (i / 5000) % 3);
+        }
+        return data;
+    }
+
+    static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buf = new byte[1000];
+        int count;
+        while ((count = in.read(buf)) > 0) {
+            result.write(buf, 0, count);
+        }
+        in.close();
+        return result.toByteArray();
+    }
+
+    static void assertEquals(byte[] expected, byte[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i]);
+        }
+    }
+
+    public void testRoundTrip() throws Exception {
+        int blockSize = 1000;
+        int[] sizes = { 0, 1, blockSize - 1, blockSize, 100 * blockSize + 17 };
+        for (int threads = 1; threads <= 4; threads++) {
+            for (int i = 0; i < sizes.length; i++) {
+                byte[] data = data(sizes[i]);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(
+                        bytes, Deflater.BEST_SPEED, threads, blockSize);
+                // in uneven pieces, with a flush on the way
+                int half = data.length / 2;
+                out.write(data, 0, half);
+                out.flush();
+                for (int j = half; j < data.length; j += 333) {
+                    out.write(data, j, Math.min(333, data.length - j));
+                }
+                out.close();
+                assertEquals(data, readAll(new InflaterInputStream(
+                        new ByteArrayInputStream(bytes.toByteArray()))));
+            }
+        }
+    }
+
+    public void testCompressionRatio() throws Exception {
+        byte[] data = data(1024 * 1024);
+        ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buf = new byte[data.length];
+        while (!deflater.finished()) {
+            serial.write(buf, 0, deflater.deflate(buf));
+        }
+        deflater.end();
+
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(
+                parallel, 4);
+        out.write(data);
+        out.close();
+        // the dictionaries keep the blocks within 1% of a single stream
+        assertTrue(parallel.size() < serial.size() * 101 / 100);
+    }
+
+    public void testExecutor() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            byte[] data = data(10 * 1000 + 1);
+            for (int i = 0; i < 2; i++) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(
+                        bytes, Deflater.DEFAULT_COMPRESSION, executor, 3, 1000);
+                out.write(data);
+                out.close();
+                // the executor is the caller's, so it is left running
+                assertFalse(executor.isShutdown());
+                assertEquals(data, readAll(new InflaterInputStream(
+                        new ByteArrayInputStream(bytes.toByteArray()))));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testFinish() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ParallelDeflaterOutputStream out = new ParallelDeflaterOutputStream(
+                bytes, 2);
+        out.write(data(10));
+        out.finish();
+        try {
+            out.write(1);
+            fail("IOException expected");
+        } catch (IOException e) {
+            // expected
+        }
+        out.close();
+        assertEquals(data(10), readAll(new InflaterInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    public void testConstructor() throws Exception {
+        try {
+            new ParallelDeflaterOutputStream(new ByteArrayOutputStream(), 0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new ParallelDeflaterOutputStream(new ByteArrayOutputStream(),
+                    Deflater.DEFAULT_COMPRESSION, 1, 0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new ParallelDeflaterOutputStream(null, 1);
+            fail("NullPointerException expected");
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+}
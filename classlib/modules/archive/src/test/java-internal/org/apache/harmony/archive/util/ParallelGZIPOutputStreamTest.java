@@ -0,0 +1,69 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.archive.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+public class ParallelGZIPOutputStreamTest extends TestCase {
+
+    public void testRoundTrip() throws Exception {
+        int blockSize = 4096;
+        int[] sizes = { 0, 1, blockSize, 50 * blockSize + 1 };
+        for (int threads = 1; threads <= 4; threads++) {
+            for (int i = 0; i < sizes.length; i++) {
+                byte[] data = ParallelDeflaterOutputStreamTest.data(sizes[i]);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(
+                        bytes, Deflater.DEFAULT_COMPRESSION, threads,
+                        blockSize);
+                out.write(data);
+                out.close();
+                // GZIPInputStream checks the combined CRC32 and the length
+                byte[] result = ParallelDeflaterOutputStreamTest
+                        .readAll(new GZIPInputStream(new ByteArrayInputStream(
+                                bytes.toByteArray())));
+                ParallelDeflaterOutputStreamTest.assertEquals(data, result);
+            }
+        }
+    }
+
+    public void testCombineChecksums() throws Exception {
+        ParallelGZIPOutputStream out = new ParallelGZIPOutputStream(
+                new ByteArrayOutputStream(), 1);
+        byte[] data = ParallelDeflaterOutputStreamTest.data(100000);
+        CRC32 all = new CRC32();
+        all.update(data);
+        int[] splits = { 0, 1, 12345, 99999, 100000 };
+        for (int i = 0; i < splits.length; i++) {
+            int split = splits[i];
+            long sum1 = out.checksum(data, split);
+            byte[] rest = new byte[data.length - split];
+            System.arraycopy(data, split, rest, 0, rest.length);
+            long sum2 = out.checksum(rest, rest.length);
+            assertEquals(all.getValue(), out.combineChecksums(sum1, sum2,
+                    rest.length));
+        }
+        out.close();
+    }
+}
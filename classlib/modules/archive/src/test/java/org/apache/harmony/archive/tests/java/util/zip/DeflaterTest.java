@@ -19,6 +19,8 @@ package org.apache.harmony.archive.tests.java.util.zip;
 
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
 import java.util.zip.Adler32;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
@@ -1158,4 +1160,125 @@ public class DeflaterTest extends TestCase {
             assertEquals(expectedBytes[i], buffer[i]);
         }
     }
+
+    /**
+     * @tests java.util.zip.Deflater#setInput(java.nio.ByteBuffer)
+     * @tests java.util.zip.Deflater#deflate(java.nio.ByteBuffer)
+     */
+    public void test_deflateLjava_nio_ByteBuffer() throws Exception {
+        byte[] input = new byte[10000];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (i % 7 + i / 1000);
+        }
+        ByteBuffer[] inputs = { ByteBuffer.wrap(input),
+                ByteBuffer.allocateDirect(input.length).put(input),
+                ByteBuffer.wrap(input).asReadOnlyBuffer() };
+        inputs[1].flip();
+        for (int i = 0; i < inputs.length; i++) {
+            ByteBuffer[] outputs = { ByteBuffer.allocate(100),
+                    ByteBuffer.allocateDirect(100) };
+            for (int j = 0; j < outputs.length; j++) {
+                ByteBuffer in = inputs[i].duplicate();
+                ByteBuffer out = outputs[j];
+                byte[] compressed = new byte[input.length];
+                int length = 0;
+                Deflater defl = new Deflater();
+                defl.setInput(in);
+                defl.finish();
+                while (!defl.finished()) {
+                    out.clear();
+                    int n = defl.deflate(out);
+                    assertEquals(n, out.position());
+                    out.flip();
+                    out.get(compressed, length, n);
+                    length += n;
+                }
+                assertEquals(input.length, defl.getTotalIn());
+                assertEquals(length, defl.getTotalOut());
+                assertFalse(in.hasRemaining());
+                defl.end();
+
+                Inflater infl = new Inflater();
+                infl.setInput(compressed, 0, length);
+                byte[] result = new byte[input.length];
+                assertEquals(input.length, infl.inflate(result));
+                assertTrue(infl.finished());
+                infl.end();
+                for (int k = 0; k < input.length; k++) {
+                    assertEquals(input[k], result[k]);
+                }
+            }
+        }
+
+        Deflater defl = new Deflater();
+        try {
+            defl.deflate(ByteBuffer.allocate(10).asReadOnlyBuffer());
+            fail("ReadOnlyBufferException expected");
+        } catch (ReadOnlyBufferException e) {
+            // expected
+        }
+        defl.end();
+        try {
+            defl.deflate(ByteBuffer.allocateDirect(10));
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * @tests java.util.zip.Deflater#setInput(java.nio.ByteBuffer)
+     */
+    public void test_setInputLjava_nio_ByteBuffer() {
+        ByteBuffer in = ByteBuffer.allocateDirect(20);
+        in.put(new byte[] { 1, 3, 4, 7, 8 });
+        in.flip();
+        Deflater defl = new Deflater();
+        defl.setInput(in);
+        assertFalse(defl.needsInput());
+        defl.deflate(new byte[50]);
+        assertTrue(defl.needsInput());
+        assertEquals(5, in.position());
+
+        // array input replaces the buffer, whose position no longer moves
+        in.position(0);
+        defl.setInput(new byte[] { 2, 4 });
+        defl.deflate(new byte[50]);
+        assertEquals(0, in.position());
+        defl.end();
+    }
+
+    /**
+     * @tests java.util.zip.Deflater#deflate(byte[], int, int, int)
+     */
+    public void test_deflate$BIII() throws Exception {
+        byte[] input = "a sync flush makes everything so far decodable".getBytes("UTF-8");
+        Deflater defl = new Deflater();
+        defl.setInput(input);
+        byte[] compressed = new byte[100];
+        int length = defl.deflate(compressed, 0, compressed.length,
+                Deflater.SYNC_FLUSH);
+        assertTrue(length > 0);
+        assertTrue(defl.needsInput());
+        assertFalse(defl.finished());
+
+        // without the end of the stream
+        Inflater infl = new Inflater();
+        infl.setInput(compressed, 0, length);
+        byte[] result = new byte[input.length];
+        assertEquals(input.length, infl.inflate(result));
+        assertFalse(infl.finished());
+        for (int i = 0; i < input.length; i++) {
+            assertEquals(input[i], result[i]);
+        }
+        infl.end();
+
+        try {
+            defl.deflate(compressed, 0, compressed.length, 4);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        defl.end();
+    }
 }
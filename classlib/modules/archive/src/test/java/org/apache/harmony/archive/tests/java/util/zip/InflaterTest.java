@@ -21,6 +21,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
 import java.util.zip.Adler32;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
@@ -1131,4 +1133,69 @@ public class InflaterTest extends junit.framework.TestCase {
         }
          
     }
+
+    /**
+     * @tests java.util.zip.Inflater#setInput(java.nio.ByteBuffer)
+     * @tests java.util.zip.Inflater#inflate(java.nio.ByteBuffer)
+     */
+    public void test_inflateLjava_nio_ByteBuffer() throws Exception {
+        byte[] input = new byte[10000];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (i % 7 + i / 1000);
+        }
+        byte[] compressed = new byte[input.length];
+        Deflater defl = new Deflater();
+        defl.setInput(input);
+        defl.finish();
+        int length = defl.deflate(compressed);
+        assertTrue(defl.finished());
+        defl.end();
+
+        ByteBuffer[] inputs = { ByteBuffer.wrap(compressed, 0, length),
+                ByteBuffer.allocateDirect(length).put(compressed, 0, length),
+                ByteBuffer.wrap(compressed, 0, length).asReadOnlyBuffer() };
+        inputs[1].flip();
+        for (int i = 0; i < inputs.length; i++) {
+            ByteBuffer[] outputs = { ByteBuffer.allocate(input.length),
+                    ByteBuffer.allocateDirect(input.length) };
+            for (int j = 0; j < outputs.length; j++) {
+                ByteBuffer in = inputs[i].duplicate();
+                ByteBuffer out = outputs[j];
+                Inflater infl = new Inflater();
+                infl.setInput(in);
+                // inflate in small steps to check the positions move along
+                while (!infl.finished()) {
+                    out.limit(Math.min(out.position() + 100, out.capacity()));
+                    int before = out.position();
+                    int n = infl.inflate(out);
+                    assertEquals(before + n, out.position());
+                }
+                assertFalse(in.hasRemaining());
+                assertEquals(0, infl.getRemaining());
+                assertEquals(input.length, out.position());
+                assertEquals(input.length, infl.getTotalOut());
+                infl.end();
+                out.flip();
+                for (int k = 0; k < input.length; k++) {
+                    assertEquals(input[k], out.get(k));
+                }
+            }
+        }
+
+        Inflater infl = new Inflater();
+        try {
+            infl.inflate(ByteBuffer.allocate(10).asReadOnlyBuffer());
+            fail("ReadOnlyBufferException expected");
+        } catch (ReadOnlyBufferException e) {
+            // expected
+        }
+        infl.setInput(ByteBuffer.allocateDirect(10));
+        try {
+            infl.inflate(ByteBuffer.allocateDirect(10));
+            fail("DataFormatException expected");
+        } catch (DataFormatException e) {
+            // expected
+        }
+        infl.end();
+    }
 }
@@ -265,7 +265,66 @@ public class ZipFileTest extends junit.framework.TestCase {
     public void test_size() {
         assertEquals(6, zfile.size());
     }
-    
+
+    /**
+     * @tests java.util.zip.ZipFile#getInputStream(java.util.zip.ZipEntry)
+     */
+    public void test_getInputStream_mapped() throws IOException {
+        String key = "org.apache.harmony.archive.zip.mapped";
+        String old = System.getProperty(key);
+        System.setProperty(key, "true");
+        ZipFile mapped;
+        try {
+            mapped = new ZipFile(tempFileName);
+        } finally {
+            if (old == null) {
+                System.getProperties().remove(key);
+            } else {
+                System.setProperty(key, old);
+            }
+        }
+        try {
+            assertEquals(zfile.size(), mapped.size());
+            Enumeration<? extends ZipEntry> expected = zfile.entries();
+            Enumeration<? extends ZipEntry> actual = mapped.entries();
+            while (expected.hasMoreElements()) {
+                ZipEntry ze = expected.nextElement();
+                assertEquals(ze.getName(), actual.nextElement().getName());
+                InputStream in1 = zfile.getInputStream(ze);
+                InputStream in2 = mapped.getInputStream(ze);
+                assertEquals(ze.getName(), new String(getAllBytesFromStream(in1)),
+                        new String(getAllBytesFromStream(in2)));
+                in1.close();
+                in2.close();
+            }
+            assertFalse(actual.hasMoreElements());
+
+            // Streams on the same entry do not share a position
+            ZipEntry zentry = mapped.getEntry("File1.txt");
+            assertSame(zentry, mapped.getEntry("File1.txt"));
+            InputStream in1 = mapped.getInputStream(zentry);
+            InputStream in2 = mapped.getInputStream(zentry);
+            byte[] rbuf = new byte[4];
+            assertEquals(0, in1.read(rbuf, 0, 0));
+            assertEquals(4, in1.read(rbuf));
+            assertEquals("This", new String(rbuf, "UTF-8"));
+            assertEquals(4, in2.read(rbuf));
+            assertEquals("This", new String(rbuf, "UTF-8"));
+            assertEquals(' ', in1.read());
+
+            mapped.close();
+            try {
+                in1.read();
+                fail("IOException expected");
+            } catch (IOException expected) {
+            }
+            in1.close();
+            in2.close();
+        } finally {
+            mapped.close();
+        }
+    }
+
     /**
      * @tests java.io.InputStream#reset()
      */
@@ -18,11 +18,13 @@
 package java.beans;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.HashMap;
 
+import org.apache.harmony.beans.BeanAccessor;
 import org.apache.harmony.beans.BeansUtils;
 
 /**
@@ -106,15 +108,16 @@ public class DefaultPersistenceDelegate extends PersistenceDelegate {
             return;
         }
 
-        // Get all bean properties
-        BeanInfo info = null;
+        // Get all bean properties, from the BeanInfo the accessor numbers
+        BeanAccessor accessor = null;
         try {
-            info = Introspector.getBeanInfo(type);
+            accessor = BeanAccessor.getAccessor(type);
         } catch (IntrospectionException ex) {
             enc.getExceptionListener().exceptionThrown(ex);
             return;
         }
-        PropertyDescriptor[] pds = info.getPropertyDescriptors();
+        PropertyDescriptor[] pds = accessor.getBeanInfo()
+                .getPropertyDescriptors();
         Method getter, setter;
         // Initialize each found non-transient property
         for (int i = 0; i < pds.length; i++) {
@@ -129,23 +132,37 @@ public class DefaultPersistenceDelegate extends PersistenceDelegate {
                 continue;
             }
 
-            // Get the value of the property in the old instance
-            Expression getterExp = new Expression(oldInstance,
-                    getter.getName(), null);
+            // -1 if a BeanInfo answers descriptors that vary between calls,
+            // or if the getter is one the accessor does not call
+            int property = accessor.indexOf(pds[i].getName());
+            if (property >= 0 && !accessor.isReadable(property)) {
+                property = -1;
+            }
             try {
                 // Calculate the old value of the property
-                Object oldVal = getterExp.getValue();
+                Object oldVal = property >= 0 ? accessor.get(oldInstance,
+                        property) : new Expression(oldInstance, getter
+                        .getName(), null).getValue();
                 // Write the getter expression to the encoder
+                Expression getterExp = new Expression(oldVal, oldInstance,
+                        getter.getName(), null);
                 enc.writeExpression(getterExp);
                 // Get the target value that exists in the new environment
                 Object targetVal = enc.get(oldVal);
-                Object newVal = new Expression(newInstance, getter.getName(),
-                        null).getValue();
+                Object newVal = property >= 0
+                        && newInstance.getClass() == type ? accessor.get(
+                        newInstance, property) : new Expression(newInstance,
+                        getter.getName(), null).getValue();
                 if (targetVal == null ? (newVal != null && oldVal == null)
                         : targetVal != newVal && !targetVal.equals(newVal)) {
                     enc.writeStatement(new Statement(oldInstance, setter
                             .getName(), new Object[] { oldVal }));
                 }
+            } catch (InvocationTargetException ex) {
+                // Report what the getter threw, as Expression would
+                Throwable t = ex.getCause();
+                enc.getExceptionListener().exceptionThrown(
+                        t instanceof Exception ? (Exception) t : ex);
             } catch (Exception ex) {
                 enc.getExceptionListener().exceptionThrown(ex);
             }
@@ -17,9 +17,7 @@
 
 package java.beans;
 
-import java.util.Collections;
-import java.util.Map;
-import java.util.WeakHashMap;
+import org.apache.harmony.beans.ClassCache;
 
 /**
  * The <code>Introspector</code> is a utility for developers to figure out
@@ -80,10 +78,11 @@ public class Introspector extends java.lang.Object {
     // - an array of package names that are used in turn
     private static String[] searchPath = { DEFAULT_BEANINFO_SEARCHPATH };
 
-    // The cache to store Bean Info objects that have been found or created
-    private static final int DEFAULT_CAPACITY = 128;
-
-    private static Map<Class<?>, StandardBeanInfo> theCache = Collections.synchronizedMap(new WeakHashMap<Class<?>, StandardBeanInfo>(DEFAULT_CAPACITY));
+    // The cache to store Bean Info objects that have been found or created.
+    // It is read without locking. Bean Info is kept for as long as its class
+    // is loaded, so that values set on its descriptors are not lost, but it
+    // does not keep the class loaders of the bean classes alive
+    private static final ClassCache<StandardBeanInfo> theCache = new ClassCache<StandardBeanInfo>();
 
     private Introspector() {
         super();
@@ -122,8 +121,6 @@ public class Introspector extends java.lang.Object {
      *  
      */
     public static void flushCaches() {
-        // Flush the cache by throwing away the cache HashMap and creating a
-        // new empty one
         theCache.clear();
     }
 
@@ -160,7 +157,8 @@ public class Introspector extends java.lang.Object {
         StandardBeanInfo beanInfo = theCache.get(beanClass);
         if (beanInfo == null) {
             beanInfo = getBeanInfoImplAndInit(beanClass, null, USE_ALL_BEANINFO);
-            theCache.put(beanClass, beanInfo);
+            // If another thread got here first, share its Bean Info
+            beanInfo = theCache.putIfAbsent(beanClass, beanInfo);
         }
         return beanInfo;
     }
@@ -29,9 +29,9 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 import org.apache.harmony.beans.BeansUtils;
+import org.apache.harmony.beans.ClassCache;
 import org.apache.harmony.beans.internal.nls.Messages;
 
 public class Statement {
@@ -43,7 +43,7 @@ public class Statement {
     private Object[] arguments;
 
     // cache used methods of specified target class to accelerate method search
-    private static WeakHashMap<Class<?>, Method[]> classMethodsCache = new WeakHashMap<Class<?>, Method[]>();
+    private static final ClassCache<Method[]> classMethodsCache = new ClassCache<Method[]>();
 
     public Statement(Object target, String methodName, Object[] arguments) {
         this.target = target;
@@ -334,12 +334,9 @@ public class Statement {
             boolean isStatic) throws NoSuchMethodException {
         Class<?>[] argTypes = getTypes(args);
 
-        Method[] methods = null;
-        if (classMethodsCache.containsKey(clazz)) {
-            methods = classMethodsCache.get(clazz);
-        } else {
-            methods = clazz.getMethods();
-            classMethodsCache.put(clazz, methods);
+        Method[] methods = classMethodsCache.get(clazz);
+        if (methods == null) {
+            methods = classMethodsCache.putIfAbsent(clazz, clazz.getMethods());
         }
 
         ArrayList<Method> fitMethods = new ArrayList<Method>();
@@ -0,0 +1,245 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.beans;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+
+import org.apache.harmony.beans.internal.nls.Messages;
+
+/**
+ * Reads and writes the properties of beans of one class.
+ * <p>
+ * An accessor is built once per class from the <code>BeanInfo</code> the
+ * <code>Introspector</code> returns, and cached alongside it. It numbers the
+ * properties and keeps their read and write methods, so that getting or
+ * setting a property is a single reflective call rather than a walk over
+ * the property descriptors. Callers that touch the same properties again
+ * and again can look the index up once with {@link #indexOf(String)}.
+ * <p>
+ * Only public methods of public classes, which any caller may call, are
+ * kept, and they are called with the usual access checks. A property whose
+ * read or write method is not such a method is not readable or writable
+ * through the accessor, and has to be reached as any caller would, for
+ * instance through an <code>Expression</code>.
+ * <p>
+ * Accessors are immutable and may be shared between threads.
+ */
+public final class BeanAccessor {
+
+    private static final ClassCache<BeanAccessor> accessors = new ClassCache<BeanAccessor>();
+
+    // The Bean Info this accessor was built from
+    private final BeanInfo info;
+
+    private final String[] names;
+
+    private final Class<?>[] types;
+
+    private final Method[] readMethods;
+
+    private final Method[] writeMethods;
+
+    private final HashMap<String, Integer> indexes;
+
+    /**
+     * Returns the accessor for the given bean class.
+     *
+     * @throws IntrospectionException
+     *             if the class cannot be introspected
+     */
+    public static BeanAccessor getAccessor(Class<?> beanClass)
+            throws IntrospectionException {
+        BeanInfo info = Introspector.getBeanInfo(beanClass);
+        BeanAccessor accessor = accessors.get(beanClass);
+        // Rebuild the accessor if the class was flushed from the
+        // Introspector's caches since
+        if (accessor == null || accessor.info != info) {
+            accessor = new BeanAccessor(info);
+            accessors.put(beanClass, accessor);
+        }
+        return accessor;
+    }
+
+    private BeanAccessor(BeanInfo info) {
+        PropertyDescriptor[] pds = info.getPropertyDescriptors();
+        this.info = info;
+        names = new String[pds.length];
+        types = new Class<?>[pds.length];
+        readMethods = new Method[pds.length];
+        writeMethods = new Method[pds.length];
+        indexes = new HashMap<String, Integer>(pds.length * 2);
+        for (int i = 0; i < pds.length; i++) {
+            names[i] = pds[i].getName();
+            types[i] = pds[i].getPropertyType();
+            readMethods[i] = accessible(pds[i].getReadMethod());
+            writeMethods[i] = accessible(pds[i].getWriteMethod());
+            indexes.put(names[i], Integer.valueOf(i));
+        }
+    }
+
+    /*
+     * Returns the method if it is public and declared by a public class, and
+     * null otherwise.
+     */
+    private static Method accessible(Method method) {
+        if (method == null || !Modifier.isPublic(method.getModifiers())
+                || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return null;
+        }
+        return method;
+    }
+
+    /**
+     * Returns the <code>BeanInfo</code> this accessor was built from, whose
+     * property descriptors are the ones the accessor numbers.
+     */
+    public BeanInfo getBeanInfo() {
+        return info;
+    }
+
+    /**
+     * Returns the number of properties of the bean class.
+     */
+    public int getPropertyCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of the property with the given index.
+     */
+    public String getPropertyName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Returns the type of the property with the given index.
+     */
+    public Class<?> getPropertyType(int index) {
+        return types[index];
+    }
+
+    /**
+     * Returns the index of the named property, or -1 if the bean class has
+     * no such property.
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /**
+     * Answers whether the property with the given index has a read method
+     * that the accessor may call.
+     */
+    public boolean isReadable(int index) {
+        return readMethods[index] != null;
+    }
+
+    /**
+     * Answers whether the property with the given index has a write method
+     * that the accessor may call.
+     */
+    public boolean isWritable(int index) {
+        return writeMethods[index] != null;
+    }
+
+    /**
+     * Returns the value of the property with the given index.
+     *
+     * @throws IllegalArgumentException
+     *             if the property is not readable, or if the bean is not an
+     *             instance of the bean class
+     * @throws IllegalAccessException
+     *             if the read method is not accessible
+     * @throws InvocationTargetException
+     *             if the read method throws an exception
+     */
+    public Object get(Object bean, int index) throws IllegalAccessException,
+            InvocationTargetException {
+        Method method = readMethods[index];
+        if (method == null) {
+            throw new IllegalArgumentException(Messages.getString(
+                    "beans.11", names[index])); //$NON-NLS-1$
+        }
+        return method.invoke(bean, (Object[]) null);
+    }
+
+    /**
+     * Returns the value of the named property.
+     *
+     * @throws IllegalArgumentException
+     *             if the bean class has no such property, or if it cannot be
+     *             read
+     * @see #get(Object, int)
+     */
+    public Object get(Object bean, String name) throws IllegalAccessException,
+            InvocationTargetException {
+        return get(bean, checkedIndexOf(name));
+    }
+
+    /**
+     * Sets the value of the property with the given index.
+     *
+     * @throws IllegalArgumentException
+     *             if the property is not writable, if the bean is not an
+     *             instance of the bean class or if the value is not of the
+     *             property type
+     * @throws IllegalAccessException
+     *             if the write method is not accessible
+     * @throws InvocationTargetException
+     *             if the write method throws an exception
+     */
+    public void set(Object bean, int index, Object value)
+            throws IllegalAccessException, InvocationTargetException {
+        Method method = writeMethods[index];
+        if (method == null) {
+            throw new IllegalArgumentException(Messages.getString(
+                    "beans.13", names[index])); //$NON-NLS-1$
+        }
+        method.invoke(bean, new Object[] { value });
+    }
+
+    /**
+     * Sets the value of the named property.
+     *
+     * @throws IllegalArgumentException
+     *             if the bean class has no such property, or if it cannot be
+     *             written
+     * @see #set(Object, int, Object)
+     */
+    public void set(Object bean, String name, Object value)
+            throws IllegalAccessException, InvocationTargetException {
+        set(bean, checkedIndexOf(name), value);
+    }
+
+    private int checkedIndexOf(String name) {
+        int index = indexOf(name);
+        if (index < 0) {
+            throw new IllegalArgumentException(Messages.getString(
+                    "beans.01", name)); //$NON-NLS-1$
+        }
+        return index;
+    }
+}
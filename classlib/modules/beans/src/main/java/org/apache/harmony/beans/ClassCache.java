@@ -0,0 +1,200 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.beans;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of values computed per class, which may be read and updated by
+ * any number of threads without locking.
+ * <p>
+ * Classes are held weakly. A value such as a <code>BeanInfo</code> refers
+ * to its class through its methods, so a value held strongly keeps its
+ * class, and with it the class loader, from ever being unloaded. Values are
+ * therefore held strongly only for classes of the bootstrap loader, the
+ * system loader and their parents, which are never unloaded anyway, so that
+ * such a value lives exactly as long as its class and any state callers
+ * store in it is kept. Values for classes of any other loader are held
+ * softly and may be computed again after a collection.
+ */
+public final class ClassCache<V> {
+
+    // The loaders whose classes live as long as the cache does
+    private static final ClassLoader[] permanentLoaders = AccessController
+            .doPrivileged(new PrivilegedAction<ClassLoader[]>() {
+                public ClassLoader[] run() {
+                    List<ClassLoader> loaders = new ArrayList<ClassLoader>();
+                    addWithParents(loaders, ClassLoader.getSystemClassLoader());
+                    addWithParents(loaders, ClassCache.class.getClassLoader());
+                    return loaders.toArray(new ClassLoader[loaders.size()]);
+                }
+            });
+
+    private final ConcurrentHashMap<Key, Object> map = new ConcurrentHashMap<Key, Object>();
+
+    private final ReferenceQueue<Class<?>> queue = new ReferenceQueue<Class<?>>();
+
+    /**
+     * Returns the value cached for the given class, or null if there is
+     * none.
+     */
+    public V get(Class<?> clazz) {
+        return unwrap(map.get(new Key(clazz, null)));
+    }
+
+    /**
+     * Caches the value for the given class, replacing any cached before.
+     */
+    public void put(Class<?> clazz, V value) {
+        expungeStaleEntries();
+        map.put(new Key(clazz, queue), wrap(clazz, value));
+    }
+
+    /**
+     * Caches the value for the given class unless one is cached already.
+     *
+     * @return the value now cached for the class, which is the given value
+     *         unless another thread cached one first
+     */
+    public V putIfAbsent(Class<?> clazz, V value) {
+        expungeStaleEntries();
+        Key key = new Key(clazz, queue);
+        Object wrapped = wrap(clazz, value);
+        while (true) {
+            Object old = map.putIfAbsent(key, wrapped);
+            if (old == null) {
+                return value;
+            }
+            V oldValue = unwrap(old);
+            if (oldValue != null) {
+                return oldValue;
+            }
+            // The cached value has been collected
+            if (map.replace(key, old, wrapped)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Removes the value cached for the given class.
+     */
+    public void remove(Class<?> clazz) {
+        map.remove(new Key(clazz, null));
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void clear() {
+        map.clear();
+        expungeStaleEntries();
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends Class<?>> ref;
+        while ((ref = queue.poll()) != null) {
+            map.remove(ref);
+        }
+    }
+
+    private static Object wrap(Class<?> clazz, Object value) {
+        return isPermanent(clazz.getClassLoader()) ? value
+                : new SoftValue<Object>(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V unwrap(Object value) {
+        if (value instanceof SoftValue) {
+            return ((SoftValue<V>) value).get();
+        }
+        return (V) value;
+    }
+
+    static boolean isPermanent(ClassLoader loader) {
+        if (loader == null) {
+            return true;
+        }
+        for (ClassLoader permanent : permanentLoaders) {
+            if (loader == permanent) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addWithParents(List<ClassLoader> loaders,
+            ClassLoader loader) {
+        for (; loader != null; loader = loader.getParent()) {
+            if (!loaders.contains(loader)) {
+                loaders.add(loader);
+            }
+        }
+    }
+
+    /*
+     * A value held softly, which only the cache itself creates, so that it
+     * cannot be mistaken for a value that is a reference.
+     */
+    private static final class SoftValue<V> extends SoftReference<V> {
+
+        SoftValue(V value) {
+            super(value);
+        }
+    }
+
+    /*
+     * Compares classes by identity, as WeakHashMap would. A key whose class
+     * has been collected is equal only to itself, so that it can still be
+     * removed once it is polled from the queue.
+     */
+    private static final class Key extends WeakReference<Class<?>> {
+
+        private final int hash;
+
+        Key(Class<?> clazz, ReferenceQueue<Class<?>> queue) {
+            super(clazz, queue);
+            hash = System.identityHashCode(clazz);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Class<?> clazz = get();
+            return clazz != null && clazz == ((Key) obj).get();
+        }
+    }
+}
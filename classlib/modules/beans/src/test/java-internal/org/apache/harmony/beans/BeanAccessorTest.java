@@ -0,0 +1,196 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.beans;
+
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the internal class org.apache.harmony.beans.BeanAccessor.
+ */
+public class BeanAccessorTest extends TestCase {
+
+    public static class Bean {
+
+        private String name;
+
+        private int count;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public void setOnlyWritten(String value) {
+        }
+
+        public String getBroken() {
+            throw new IllegalStateException("broken");
+        }
+    }
+
+    public void test_getAccessor() throws Exception {
+        BeanAccessor accessor = BeanAccessor.getAccessor(Bean.class);
+        assertSame(accessor, BeanAccessor.getAccessor(Bean.class));
+
+        assertSame(Introspector.getBeanInfo(Bean.class), accessor
+                .getBeanInfo());
+        PropertyDescriptor[] pds = accessor.getBeanInfo()
+                .getPropertyDescriptors();
+        assertEquals(pds.length, accessor.getPropertyCount());
+        for (int i = 0; i < pds.length; i++) {
+            int index = accessor.indexOf(pds[i].getName());
+            assertEquals(pds[i].getName(), accessor.getPropertyName(index));
+            assertEquals(pds[i].getPropertyType(), accessor
+                    .getPropertyType(index));
+            assertEquals(pds[i].getReadMethod() != null, accessor
+                    .isReadable(index));
+            assertEquals(pds[i].getWriteMethod() != null, accessor
+                    .isWritable(index));
+        }
+        assertEquals(-1, accessor.indexOf("missing"));
+    }
+
+    public void test_getAccessor_Flushed() throws Exception {
+        BeanAccessor accessor = BeanAccessor.getAccessor(Bean.class);
+        Introspector.flushFromCaches(Bean.class);
+        BeanAccessor accessor2 = BeanAccessor.getAccessor(Bean.class);
+        assertNotSame(accessor, accessor2);
+        assertSame(accessor2, BeanAccessor.getAccessor(Bean.class));
+
+        Introspector.flushCaches();
+        assertNotSame(accessor2, BeanAccessor.getAccessor(Bean.class));
+    }
+
+    public void test_get_set() throws Exception {
+        BeanAccessor accessor = BeanAccessor.getAccessor(Bean.class);
+        Bean bean = new Bean();
+
+        accessor.set(bean, "name", "bean");
+        assertEquals("bean", bean.getName());
+        assertEquals("bean", accessor.get(bean, "name"));
+
+        int count = accessor.indexOf("count");
+        accessor.set(bean, count, new Integer(3));
+        assertEquals(3, bean.getCount());
+        assertEquals(new Integer(3), accessor.get(bean, count));
+    }
+
+    // Not public, so its methods may not be called from other packages
+    static class HiddenBean extends Bean {
+
+        private String secret;
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+    }
+
+    public void test_get_set_NotPublic() throws Exception {
+        BeanAccessor accessor = BeanAccessor.getAccessor(HiddenBean.class);
+        HiddenBean bean = new HiddenBean();
+
+        int secret = accessor.indexOf("secret");
+        assertTrue(secret >= 0);
+        assertFalse(accessor.isReadable(secret));
+        assertFalse(accessor.isWritable(secret));
+        try {
+            accessor.get(bean, secret);
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            accessor.set(bean, secret, "secret");
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertNull(bean.getSecret());
+
+        // Inherited from a public class
+        accessor.set(bean, "name", "bean");
+        assertEquals("bean", accessor.get(bean, "name"));
+    }
+
+    public void test_get_set_Illegal() throws Exception {
+        BeanAccessor accessor = BeanAccessor.getAccessor(Bean.class);
+        Bean bean = new Bean();
+
+        try {
+            accessor.get(bean, "missing");
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            accessor.set(bean, "missing", null);
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            accessor.get(bean, "onlyWritten");
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            accessor.set(bean, "broken", null);
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            accessor.set(bean, "count", "three");
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            accessor.get(new Object(), "name");
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            accessor.get(bean, "broken");
+            fail("Should throw InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.beans;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the internal class org.apache.harmony.beans.ClassCache.
+ */
+public class ClassCacheTest extends TestCase {
+
+    public void test_get_put() {
+        ClassCache<String> cache = new ClassCache<String>();
+        assertNull(cache.get(String.class));
+        assertNull(cache.get(null));
+
+        cache.put(String.class, "a");
+        cache.put(Integer.class, "b");
+        assertEquals("a", cache.get(String.class));
+        assertEquals("b", cache.get(Integer.class));
+
+        cache.put(String.class, "c");
+        assertEquals("c", cache.get(String.class));
+    }
+
+    public void test_putIfAbsent() {
+        ClassCache<String> cache = new ClassCache<String>();
+        String a = new String("a");
+        assertSame(a, cache.putIfAbsent(String.class, a));
+        assertSame(a, cache.putIfAbsent(String.class, new String("a")));
+        assertSame(a, cache.get(String.class));
+    }
+
+    public void test_remove_clear() {
+        ClassCache<String> cache = new ClassCache<String>();
+        cache.put(String.class, "a");
+        cache.put(Integer.class, "b");
+
+        cache.remove(String.class);
+        assertNull(cache.get(String.class));
+        assertEquals("b", cache.get(Integer.class));
+
+        cache.clear();
+        assertNull(cache.get(Integer.class));
+    }
+
+    public void test_isPermanent() {
+        assertTrue(ClassCache.isPermanent(null));
+        assertTrue(ClassCache.isPermanent(ClassLoader.getSystemClassLoader()));
+        assertTrue(ClassCache.isPermanent(ClassCache.class.getClassLoader()));
+        assertFalse(ClassCache.isPermanent(new LoneLoader()));
+    }
+
+    /*
+     * A value that refers to its class must not keep the class loader alive
+     */
+    public void test_valueDoesNotPinLoader() throws Exception {
+        ClassCache<Object> cache = new ClassCache<Object>();
+        LoneLoader loader = new LoneLoader();
+        Class<?> clazz = loader.loadClass(Lone.class.getName());
+        assertNotSame(Lone.class, clazz);
+        cache.put(clazz, clazz.newInstance());
+        assertSame(clazz, cache.get(clazz).getClass());
+
+        WeakReference<ClassLoader> ref = new WeakReference<ClassLoader>(loader);
+        loader = null;
+        clazz = null;
+        for (int i = 0; i < 10 && ref.get() != null; i++) {
+            System.gc();
+            // Soft values are only cleared when memory runs short
+            List<byte[]> fill = new ArrayList<byte[]>();
+            try {
+                while (true) {
+                    fill.add(new byte[1 << 20]);
+                }
+            } catch (OutOfMemoryError e) {
+                fill = null;
+            }
+        }
+        assertNull(ref.get());
+    }
+
+    public static class Lone {
+    }
+
+    /*
+     * Defines its own copy of Lone rather than delegating to its parent
+     */
+    static class LoneLoader extends ClassLoader {
+
+        LoneLoader() {
+            super(ClassCacheTest.class.getClassLoader());
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve)
+                throws ClassNotFoundException {
+            if (!name.equals(Lone.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> clazz = findLoadedClass(name);
+            if (clazz == null) {
+                byte[] bytes;
+                try {
+                    bytes = readClass(name);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+                clazz = defineClass(name, bytes, 0, bytes.length);
+            }
+            return clazz;
+        }
+
+        private static byte[] readClass(String name) throws IOException {
+            InputStream in = ClassLoader.getSystemResourceAsStream(name
+                    .replace('.', '/')
+                    + ".class");
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buf = new byte[1024];
+                int count;
+                while ((count = in.read(buf)) != -1) {
+                    out.write(buf, 0, count);
+                }
+                return out.toByteArray();
+            } finally {
+                in.close();
+            }
+        }
+    }
+}
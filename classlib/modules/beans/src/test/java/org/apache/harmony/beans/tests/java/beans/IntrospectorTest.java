@@ -344,6 +344,37 @@ public class IntrospectorTest extends TestCase {
         assertNotSame(info, info3);
     }
 
+    public void testGetBeanInfo_Concurrent() throws Exception {
+        Introspector.flushFromCaches(MockFooSubSub.class);
+        final BeanInfo[] infos = new BeanInfo[8];
+        final Exception[] failures = new Exception[infos.length];
+        Thread[] threads = new Thread[infos.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        infos[n] = Introspector.getBeanInfo(MockFooSubSub.class);
+                    } catch (Exception e) {
+                        failures[n] = e;
+                    }
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < infos.length; i++) {
+            assertNull(failures[i]);
+            assertSame(infos[0], infos[i]);
+        }
+        assertSame(infos[0], Introspector.getBeanInfo(MockFooSubSub.class));
+    }
+
     public void testFlushFromCaches_Null() throws IntrospectionException {
         BeanInfo info = Introspector.getBeanInfo(MockJavaBean.class);
         BeanDescriptor beanDesc = new BeanDescriptor(MockJavaBean.class);
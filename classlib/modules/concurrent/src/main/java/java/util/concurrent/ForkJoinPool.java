@@ -0,0 +1,825 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util.concurrent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link ExecutorService} for running {@link ForkJoinTask}s.
+ * A {@code ForkJoinPool} differs from other kinds of
+ * {@link ExecutorService} mainly by virtue of employing
+ * <em>work-stealing</em>: all threads in the pool attempt to find and
+ * execute subtasks created by other active tasks (eventually blocking
+ * waiting for work if none exist). This enables efficient processing
+ * when most tasks spawn other subtasks (as do most
+ * {@code ForkJoinTask}s). When setting <em>asyncMode</em> to true in
+ * constructors, {@code ForkJoinPool}s may also be appropriate for use
+ * with event-style tasks that are never joined.
+ *
+ * <p>A {@code ForkJoinPool} is constructed with a given target
+ * parallelism level; by default, equal to the number of available
+ * processors. Worker threads are started on demand, up to the
+ * parallelism level, the first time there is work for them. A worker
+ * that waits in {@link ForkJoinTask#join} runs other tasks meanwhile,
+ * so nested joins neither deadlock nor need additional threads.
+ *
+ * <p>In addition to execution and lifecycle control methods, this
+ * class provides status check methods (for example
+ * {@link #getStealCount}) that are intended to aid in developing,
+ * tuning, and monitoring fork/join applications.
+ *
+ * <p><b>Implementation notes</b>: This implementation restricts the
+ * maximum parallelism to 32767. Attempts to create pools with greater
+ * than the maximum number result in {@code IllegalArgumentException}.
+ * Tasks forked by a worker are kept in the worker's own deque, see
+ * {@link ForkJoinWorkerThread}; tasks submitted from other threads
+ * are kept in a shared submission queue.
+ *
+ * @since 1.7
+ */
+public class ForkJoinPool extends AbstractExecutorService {
+
+    /**
+     * Factory for creating new {@link ForkJoinWorkerThread}s.
+     */
+    public static interface ForkJoinWorkerThreadFactory {
+        /**
+         * Returns a new worker thread operating in the given pool.
+         *
+         * @param pool the pool this thread works in
+         * @throws NullPointerException if the pool is null
+         */
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool);
+    }
+
+    static class DefaultForkJoinWorkerThreadFactory implements
+            ForkJoinWorkerThreadFactory {
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            return new ForkJoinWorkerThread(pool);
+        }
+    }
+
+    /**
+     * Creates a new ForkJoinWorkerThread. This factory is used unless
+     * overridden in ForkJoinPool constructors.
+     */
+    public static final ForkJoinWorkerThreadFactory defaultForkJoinWorkerThreadFactory = new DefaultForkJoinWorkerThreadFactory();
+
+    private static final RuntimePermission modifyThreadPermission = new RuntimePermission(
+            "modifyThread"); //$NON-NLS-1$
+
+    private static final int MAX_PARALLELISM = 0x7fff;
+
+    private static final AtomicInteger poolNumberGenerator = new AtomicInteger();
+
+    private static final int RUNNING = 0;
+
+    private static final int SHUTDOWN = 1;
+
+    private static final int TERMINATING = 2;
+
+    private static final int TERMINATED = 3;
+
+    private final int parallelism;
+
+    private final ForkJoinWorkerThreadFactory factory;
+
+    private final Thread.UncaughtExceptionHandler ueh;
+
+    private final boolean locallyFifo;
+
+    private final int poolNumber = poolNumberGenerator.incrementAndGet();
+
+    private final AtomicInteger workerNumberGenerator = new AtomicInteger();
+
+    /*
+     * Workers by pool index. Slots are only written under workerLock,
+     * a null slot is free.
+     */
+    private final ForkJoinWorkerThread[] workers;
+
+    private final Object workerLock = new Object();
+
+    private volatile int poolSize;
+
+    /*
+     * Number of workers that are not waiting for work.
+     */
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private final ConcurrentLinkedQueue<ForkJoinTask<?>> submissionQueue = new ConcurrentLinkedQueue<ForkJoinTask<?>>();
+
+    /*
+     * Workers parked in awaitWork. A worker is woken by whoever
+     * succeeds to clear its waiting flag.
+     */
+    private final ConcurrentLinkedQueue<ForkJoinWorkerThread> waiters = new ConcurrentLinkedQueue<ForkJoinWorkerThread>();
+
+    /*
+     * Steals of terminated workers.
+     */
+    private final AtomicLong stealCount = new AtomicLong();
+
+    private volatile int runState;
+
+    private final Object terminationLock = new Object();
+
+    /**
+     * Creates a {@code ForkJoinPool} with parallelism equal to
+     * {@link java.lang.Runtime#availableProcessors}, using the
+     * {@linkplain #defaultForkJoinWorkerThreadFactory default thread
+     * factory}, no UncaughtExceptionHandler, and non-async LIFO
+     * processing mode.
+     */
+    public ForkJoinPool() {
+        this(Runtime.getRuntime().availableProcessors(),
+                defaultForkJoinWorkerThreadFactory, null, false);
+    }
+
+    /**
+     * Creates a {@code ForkJoinPool} with the indicated parallelism
+     * level, the {@linkplain #defaultForkJoinWorkerThreadFactory default
+     * thread factory}, no UncaughtExceptionHandler, and non-async LIFO
+     * processing mode.
+     *
+     * @param parallelism the parallelism level
+     * @throws IllegalArgumentException if parallelism less than or
+     *         equal to zero, or greater than implementation limit
+     */
+    public ForkJoinPool(int parallelism) {
+        this(parallelism, defaultForkJoinWorkerThreadFactory, null, false);
+    }
+
+    /**
+     * Creates a {@code ForkJoinPool} with the given parameters.
+     *
+     * @param parallelism the parallelism level
+     * @param factory the factory for creating new threads
+     * @param handler the handler for internal worker threads that
+     *        terminate due to unrecoverable errors encountered while
+     *        executing tasks, or {@code null} for the default
+     * @param asyncMode if true, establishes local first-in-first-out
+     *        scheduling mode for forked tasks that are never joined
+     * @throws IllegalArgumentException if parallelism less than or
+     *         equal to zero, or greater than implementation limit
+     * @throws NullPointerException if the factory is null
+     */
+    public ForkJoinPool(int parallelism, ForkJoinWorkerThreadFactory factory,
+            Thread.UncaughtExceptionHandler handler, boolean asyncMode) {
+        if (parallelism <= 0 || parallelism > MAX_PARALLELISM) {
+            throw new IllegalArgumentException();
+        }
+        if (factory == null) {
+            throw new NullPointerException();
+        }
+        this.parallelism = parallelism;
+        this.factory = factory;
+        this.ueh = handler;
+        this.locallyFifo = asyncMode;
+        this.workers = new ForkJoinWorkerThread[parallelism];
+    }
+
+    final String nextWorkerName() {
+        return "ForkJoinPool-" + poolNumber + "-worker-" //$NON-NLS-1$ //$NON-NLS-2$
+                + workerNumberGenerator.incrementAndGet();
+    }
+
+    /*
+     * Worker management
+     */
+
+    /**
+     * Starts a new worker if the pool has fewer than parallelism.
+     */
+    private void addWorker() {
+        ForkJoinWorkerThread w = null;
+        synchronized (workerLock) {
+            if (poolSize >= parallelism || runState >= TERMINATING) {
+                return;
+            }
+            int i = 0;
+            while (workers[i] != null) {
+                i++;
+            }
+            w = factory.newThread(this);
+            if (w == null) {
+                return;
+            }
+            w.poolIndex = i;
+            workers[i] = w;
+            activeCount.incrementAndGet();
+            poolSize++;
+        }
+        w.start();
+    }
+
+    final void deregisterWorker(ForkJoinWorkerThread w, Throwable ex) {
+        boolean terminated = false;
+        synchronized (workerLock) {
+            if (workers[w.poolIndex] == w) {
+                workers[w.poolIndex] = null;
+                stealCount.addAndGet(w.stealCount);
+                activeCount.decrementAndGet();
+                terminated = --poolSize == 0 && runState >= TERMINATING;
+            }
+        }
+        if (terminated) {
+            synchronized (terminationLock) {
+                runState = TERMINATED;
+                terminationLock.notifyAll();
+            }
+        } else if (runState < TERMINATING) {
+            // replace the worker that died
+            signalWork();
+        }
+    }
+
+    /**
+     * Wakes up a waiting worker, or starts a new one if the pool is
+     * not yet complete. Called after making a task available; the
+     * check of the waiters pairs with the rescan in awaitWork, so that
+     * the task cannot be missed by a worker going to sleep.
+     */
+    final void signalWork() {
+        ForkJoinWorkerThread w;
+        while ((w = waiters.poll()) != null) {
+            if (w.waiting.compareAndSet(true, false)) {
+                LockSupport.unpark(w);
+                return;
+            }
+        }
+        if (poolSize < parallelism) {
+            addWorker();
+        }
+    }
+
+    /**
+     * The main loop of a worker.
+     */
+    final void work(ForkJoinWorkerThread w) {
+        while (runState < TERMINATING) {
+            ForkJoinTask<?> t = w.nextLocalTask();
+            if (t == null) {
+                t = scan(w);
+            }
+            if (t == null) {
+                t = awaitWork(w);
+            }
+            if (t != null) {
+                w.execStolen(t);
+            }
+        }
+    }
+
+    /**
+     * Tries to steal a task from another worker, starting with a
+     * random victim.
+     */
+    final ForkJoinTask<?> steal(ForkJoinWorkerThread w) {
+        ForkJoinWorkerThread[] ws = workers;
+        int n = ws.length;
+        if (n > 1) {
+            int start = (w.nextSeed() >>> 1) % n;
+            for (int i = 0; i < n; i++) {
+                ForkJoinWorkerThread v = ws[(start + i) % n];
+                if (v != null && v != w) {
+                    ForkJoinTask<?> t = v.deqTask();
+                    if (t != null) {
+                        w.stealCount++;
+                        return t;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a task from the queue of the worker running the given
+     * task, or, while that worker is itself joining, from the queue of
+     * the worker running the task it joins, and so on down the chain.
+     *
+     * @return a task the given task waits for, or {@code null}
+     */
+    final ForkJoinTask<?> helpStealer(ForkJoinWorkerThread w,
+            ForkJoinTask<?> joinMe) {
+        ForkJoinWorkerThread[] ws = workers;
+        ForkJoinTask<?> task = joinMe;
+        // the bound stops a chain that changes while it is followed
+        for (int depth = 0; depth < ws.length; depth++) {
+            if (task == null || task.status < 0) {
+                break;
+            }
+            ForkJoinWorkerThread stealer = null;
+            for (ForkJoinWorkerThread v : ws) {
+                if (v != null && v != w && v.currentSteal == task) {
+                    stealer = v;
+                    break;
+                }
+            }
+            if (stealer == null) {
+                break;
+            }
+            ForkJoinTask<?> t = stealer.deqTask();
+            if (t != null) {
+                w.stealCount++;
+                return t;
+            }
+            task = stealer.currentJoin;
+        }
+        return null;
+    }
+
+    private ForkJoinTask<?> scan(ForkJoinWorkerThread w) {
+        ForkJoinTask<?> t = steal(w);
+        return t != null ? t : submissionQueue.poll();
+    }
+
+    /**
+     * Parks the worker until there is work or the pool terminates.
+     *
+     * @return a task found while going to sleep, or {@code null}
+     */
+    private ForkJoinTask<?> awaitWork(ForkJoinWorkerThread w) {
+        w.waiting.set(true);
+        waiters.offer(w);
+        activeCount.decrementAndGet();
+        ForkJoinTask<?> t = scan(w);
+        if (t == null) {
+            if (runState == SHUTDOWN) {
+                tryTerminate();
+            }
+            while (w.waiting.get() && runState < TERMINATING) {
+                LockSupport.park();
+                // interrupts are only used by shutdownNow
+                Thread.interrupted();
+            }
+        }
+        if (w.waiting.compareAndSet(true, false)) {
+            waiters.remove(w);
+        }
+        activeCount.incrementAndGet();
+        return t;
+    }
+
+    /**
+     * Starts termination once the pool is shut down and has run out of
+     * work.
+     */
+    private void tryTerminate() {
+        if (runState == SHUTDOWN && activeCount.get() == 0
+                && submissionQueue.isEmpty()) {
+            startTermination();
+        }
+    }
+
+    private void startTermination() {
+        synchronized (terminationLock) {
+            if (runState >= TERMINATING) {
+                return;
+            }
+            runState = TERMINATING;
+        }
+        boolean terminated;
+        synchronized (workerLock) {
+            terminated = poolSize == 0;
+            for (ForkJoinWorkerThread w : workers) {
+                if (w != null) {
+                    LockSupport.unpark(w);
+                }
+            }
+        }
+        if (terminated) {
+            synchronized (terminationLock) {
+                runState = TERMINATED;
+                terminationLock.notifyAll();
+            }
+        }
+    }
+
+    final int getIdleCount() {
+        int n = poolSize - activeCount.get();
+        return n < 0 ? 0 : n;
+    }
+
+    /*
+     * Execution methods
+     */
+
+    private void addSubmission(ForkJoinTask<?> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (runState != RUNNING) {
+            throw new RejectedExecutionException();
+        }
+        submissionQueue.offer(task);
+        if (runState != RUNNING && submissionQueue.remove(task)) {
+            throw new RejectedExecutionException();
+        }
+        signalWork();
+    }
+
+    /**
+     * Performs the given task, returning its result upon completion.
+     * If called from a task of this pool, the task is simply invoked.
+     *
+     * @param task the task
+     * @return the task's result
+     * @throws NullPointerException if the task is null
+     * @throws RejectedExecutionException if the task cannot be
+     *         scheduled for execution
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        Thread t = Thread.currentThread();
+        if (task != null && t instanceof ForkJoinWorkerThread
+                && ((ForkJoinWorkerThread) t).pool == this) {
+            return task.invoke();
+        }
+        addSubmission(task);
+        return task.join();
+    }
+
+    /**
+     * Arranges for (asynchronous) execution of the given task.
+     *
+     * @param task the task
+     * @throws NullPointerException if the task is null
+     * @throws RejectedExecutionException if the task cannot be
+     *         scheduled for execution
+     */
+    public void execute(ForkJoinTask<?> task) {
+        forkOrSubmit(task);
+    }
+
+    /**
+     * @throws NullPointerException if the task is null
+     * @throws RejectedExecutionException if the task cannot be
+     *         scheduled for execution
+     */
+    public void execute(Runnable task) {
+        ForkJoinTask<?> job;
+        if (task instanceof ForkJoinTask<?>) {
+            job = (ForkJoinTask<?>) task;
+        } else {
+            job = ForkJoinTask.adapt(task, null);
+        }
+        forkOrSubmit(job);
+    }
+
+    /**
+     * Submits a ForkJoinTask for execution.
+     *
+     * @param task the task to submit
+     * @return the task
+     * @throws NullPointerException if the task is null
+     * @throws RejectedExecutionException if the task cannot be
+     *         scheduled for execution
+     */
+    public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+        forkOrSubmit(task);
+        return task;
+    }
+
+    /**
+     * @throws NullPointerException if the task is null
+     * @throws RejectedExecutionException if the task cannot be
+     *         scheduled for execution
+     */
+    @Override
+    public <T> ForkJoinTask<T> submit(Callable<T> task) {
+        ForkJoinTask<T> job = ForkJoinTask.adapt(task);
+        forkOrSubmit(job);
+        return job;
+    }
+
+    /**
+     * @throws NullPointerException if the task is null
+     * @throws RejectedExecutionException if the task cannot be
+     *         scheduled for execution
+     */
+    @Override
+    public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+        ForkJoinTask<T> job = ForkJoinTask.adapt(task, result);
+        forkOrSubmit(job);
+        return job;
+    }
+
+    /**
+     * @throws NullPointerException if the task is null
+     * @throws RejectedExecutionException if the task cannot be
+     *         scheduled for execution
+     */
+    @Override
+    public ForkJoinTask<?> submit(Runnable task) {
+        ForkJoinTask<?> job;
+        if (task instanceof ForkJoinTask<?>) {
+            job = (ForkJoinTask<?>) task;
+        } else {
+            job = ForkJoinTask.adapt(task, null);
+        }
+        forkOrSubmit(job);
+        return job;
+    }
+
+    /*
+     * Tasks submitted by a worker of this pool go to the worker's own
+     * queue, all others to the submission queue.
+     */
+    private void forkOrSubmit(ForkJoinTask<?> task) {
+        Thread t = Thread.currentThread();
+        if (task != null && t instanceof ForkJoinWorkerThread
+                && ((ForkJoinWorkerThread) t).pool == this
+                && runState == RUNNING) {
+            ((ForkJoinWorkerThread) t).pushTask(task);
+        } else {
+            addSubmission(task);
+        }
+    }
+
+    /*
+     * Status methods
+     */
+
+    /**
+     * Returns the factory used for constructing new workers.
+     *
+     * @return the factory used for constructing new workers
+     */
+    public ForkJoinWorkerThreadFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Returns the handler for internal worker threads that terminate
+     * due to unrecoverable errors encountered while executing tasks.
+     *
+     * @return the handler, or {@code null} if none
+     */
+    public Thread.UncaughtExceptionHandler getUncaughtExceptionHandler() {
+        return ueh;
+    }
+
+    /**
+     * Returns the targeted parallelism level of this pool.
+     *
+     * @return the targeted parallelism level of this pool
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns the number of worker threads that have started but not
+     * yet terminated.
+     *
+     * @return the number of worker threads
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Returns {@code true} if this pool uses local first-in-first-out
+     * scheduling mode for forked tasks that are never joined.
+     *
+     * @return {@code true} if this pool uses async mode
+     */
+    public boolean getAsyncMode() {
+        return locallyFifo;
+    }
+
+    /**
+     * Returns an estimate of the number of threads that are currently
+     * stealing or executing tasks.
+     *
+     * @return the number of active threads
+     */
+    public int getActiveThreadCount() {
+        int n = activeCount.get();
+        return n < 0 ? 0 : n;
+    }
+
+    /**
+     * Returns {@code true} if all worker threads are currently idle.
+     *
+     * @return {@code true} if all threads are currently idle
+     */
+    public boolean isQuiescent() {
+        return activeCount.get() <= 0;
+    }
+
+    /**
+     * Returns an estimate of the total number of tasks stolen from one
+     * thread's work queue by another. The reported value
+     * underestimates the actual total number of steals when the pool
+     * is not quiescent.
+     *
+     * @return the number of steals
+     */
+    public long getStealCount() {
+        long count = stealCount.get();
+        for (ForkJoinWorkerThread w : workers) {
+            if (w != null) {
+                count += w.stealCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns an estimate of the total number of tasks currently held
+     * in queues by worker threads (but not including tasks submitted
+     * to the pool that have not begun executing).
+     *
+     * @return the number of queued tasks
+     */
+    public long getQueuedTaskCount() {
+        long count = 0;
+        for (ForkJoinWorkerThread w : workers) {
+            if (w != null) {
+                count += w.getQueueSize();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns an estimate of the number of tasks submitted to this pool
+     * that have not yet begun executing.
+     *
+     * @return the number of queued submissions
+     */
+    public int getQueuedSubmissionCount() {
+        return submissionQueue.size();
+    }
+
+    /**
+     * Returns {@code true} if there are any tasks submitted to this
+     * pool that have not yet begun executing.
+     *
+     * @return {@code true} if there are any queued submissions
+     */
+    public boolean hasQueuedSubmissions() {
+        return !submissionQueue.isEmpty();
+    }
+
+    /**
+     * Returns a string identifying this pool, as well as its state,
+     * including indications of run state, parallelism level, and
+     * worker and task counts.
+     *
+     * @return a string identifying this pool, as well as its state
+     */
+    @Override
+    public String toString() {
+        int rs = runState;
+        String level = rs == RUNNING ? "Running" //$NON-NLS-1$
+                : rs == SHUTDOWN ? "Shutting down" //$NON-NLS-1$
+                        : rs == TERMINATING ? "Terminating" : "Terminated"; //$NON-NLS-1$ //$NON-NLS-2$
+        return super.toString() + "[" + level //$NON-NLS-1$
+                + ", parallelism = " + parallelism //$NON-NLS-1$
+                + ", size = " + poolSize //$NON-NLS-1$
+                + ", active = " + getActiveThreadCount() //$NON-NLS-1$
+                + ", steals = " + getStealCount() //$NON-NLS-1$
+                + ", tasks = " + getQueuedTaskCount() //$NON-NLS-1$
+                + ", submissions = " + getQueuedSubmissionCount() //$NON-NLS-1$
+                + "]"; //$NON-NLS-1$
+    }
+
+    /*
+     * Lifecycle methods
+     */
+
+    private static void checkPermission() {
+        SecurityManager security = System.getSecurityManager();
+        if (security != null) {
+            security.checkPermission(modifyThreadPermission);
+        }
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * tasks are executed, but no new tasks will be accepted.
+     * Invocation has no additional effect if already shut down.
+     *
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     */
+    public void shutdown() {
+        checkPermission();
+        synchronized (terminationLock) {
+            if (runState == RUNNING) {
+                runState = SHUTDOWN;
+            }
+        }
+        tryTerminate();
+    }
+
+    /**
+     * Attempts to cancel and/or stop all tasks, and reject all
+     * subsequently submitted tasks. Tasks that are running are not
+     * stopped, but their workers are interrupted. Queued tasks are
+     * cancelled; this method always returns an empty list.
+     *
+     * @return an empty list
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     */
+    public List<Runnable> shutdownNow() {
+        checkPermission();
+        startTermination();
+        ForkJoinTask<?> t;
+        while ((t = submissionQueue.poll()) != null) {
+            t.cancel(false);
+        }
+        synchronized (workerLock) {
+            for (ForkJoinWorkerThread w : workers) {
+                if (w != null) {
+                    w.cancelTasks();
+                    try {
+                        w.interrupt();
+                    } catch (SecurityException ignore) {
+                    }
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns {@code true} if all tasks have completed following shut
+     * down.
+     *
+     * @return {@code true} if all tasks have completed following shut
+     *         down
+     */
+    public boolean isTerminated() {
+        return runState == TERMINATED;
+    }
+
+    /**
+     * Returns {@code true} if the process of termination has commenced
+     * but not yet completed.
+     *
+     * @return {@code true} if terminating but not yet terminated
+     */
+    public boolean isTerminating() {
+        return runState == TERMINATING;
+    }
+
+    /**
+     * Returns {@code true} if this pool has been shut down.
+     *
+     * @return {@code true} if this pool has been shut down
+     */
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    /**
+     * Blocks until all tasks have completed execution after a shutdown
+     * request, or the timeout occurs, or the current thread is
+     * interrupted, whichever happens first.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return {@code true} if this executor terminated and
+     *         {@code false} if the timeout elapsed before termination
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (terminationLock) {
+            while (runState != TERMINATED) {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    return false;
+                }
+                terminationLock.wait(Math.max(1, TimeUnit.NANOSECONDS
+                        .toMillis(nanos)));
+            }
+            return true;
+        }
+    }
+}
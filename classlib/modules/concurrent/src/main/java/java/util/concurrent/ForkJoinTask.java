@@ -0,0 +1,682 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util.concurrent;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Abstract base class for tasks that run within a {@link ForkJoinPool}.
+ * A {@code ForkJoinTask} is a thread-like entity that is much
+ * lighter weight than a normal thread.  Huge numbers of tasks and
+ * subtasks may be hosted by a small number of actual threads in a
+ * ForkJoinPool.
+ *
+ * <p>A task begins execution when it is submitted to a pool with
+ * {@link ForkJoinPool#invoke}, {@link ForkJoinPool#execute} or
+ * {@link ForkJoinPool#submit}, or, from within a running task, with
+ * {@link #fork}, {@link #invoke} or one of the {@code invokeAll}
+ * methods.  The primary coordination mechanisms are {@link #fork},
+ * which arranges asynchronous execution, and {@link #join}, which
+ * does not proceed until the task's result has been computed.  A
+ * worker thread that joins a task which has not completed yet runs
+ * the task itself if it is still in its own queue, and otherwise
+ * helps by running tasks stolen from other workers while it waits.
+ *
+ * <p>Computations should avoid {@code synchronized} methods or
+ * blocks, and should minimize other blocking synchronization apart
+ * from joining other tasks.  Tasks should also not perform blocking
+ * IO, and should ideally access variables that are completely
+ * independent of those accessed by other running tasks.
+ *
+ * <p>Most programs do not subclass {@code ForkJoinTask} directly but
+ * one of {@link RecursiveAction} or {@link RecursiveTask}.
+ *
+ * <p>If a task completes abnormally, {@link #join} and {@link #invoke}
+ * rethrow its exception: unchecked exceptions and errors as they are,
+ * checked exceptions wrapped in a {@code RuntimeException}.  A
+ * cancelled task throws a {@link CancellationException}.
+ *
+ * @since 1.7
+ * @param <V> the type of the result of the task
+ */
+public abstract class ForkJoinTask<V> implements Future<V>, Serializable {
+
+    private static final long serialVersionUID = -7721805057305804111L;
+
+    /*
+     * The run status of the task: zero or SIGNAL while the task is
+     * pending, a negative completion value once it is done. SIGNAL
+     * records that some thread waits on the task monitor and has to
+     * be notified on completion.
+     */
+    static final int NORMAL = -1;
+
+    static final int CANCELLED = -2;
+
+    static final int EXCEPTIONAL = -3;
+
+    static final int SIGNAL = 1;
+
+    private static final AtomicIntegerFieldUpdater<ForkJoinTask> statusUpdater = AtomicIntegerFieldUpdater
+            .newUpdater(ForkJoinTask.class, "status");
+
+    volatile int status;
+
+    private Throwable exception;
+
+    /**
+     * Marks the task as completed with the given status unless it has
+     * completed already, and wakes up any waiting threads.
+     *
+     * @return the final status
+     */
+    private int setCompletion(int completion) {
+        for (;;) {
+            int s = status;
+            if (s < 0) {
+                return s;
+            }
+            if (statusUpdater.compareAndSet(this, s, completion)) {
+                if (s != 0) {
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+                return completion;
+            }
+        }
+    }
+
+    private int setExceptionalCompletion(Throwable ex) {
+        if (status >= 0) {
+            exception = ex;
+            return setCompletion(EXCEPTIONAL);
+        }
+        return status;
+    }
+
+    /**
+     * Runs the task unless it has completed already and records the
+     * outcome.
+     *
+     * @return the status after running
+     */
+    final int doExec() {
+        if (status >= 0) {
+            boolean completed;
+            try {
+                completed = exec();
+            } catch (Throwable ex) {
+                return setExceptionalCompletion(ex);
+            }
+            if (completed) {
+                return setCompletion(NORMAL);
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Blocks the current thread until the task completes or the timeout
+     * elapses.
+     *
+     * @param millis
+     *            the timeout, zero to wait forever
+     */
+    final void awaitDone(long millis) throws InterruptedException {
+        int s;
+        while ((s = status) >= 0) {
+            if (statusUpdater.compareAndSet(this, s, SIGNAL)) {
+                synchronized (this) {
+                    if (status >= 0) {
+                        wait(millis);
+                    }
+                }
+                if (millis != 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Blocks a thread that is not a pool worker until the task
+     * completes, deferring interrupts.
+     */
+    private int externalAwaitDone() {
+        boolean interrupted = false;
+        while (status >= 0) {
+            try {
+                awaitDone(0);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return status;
+    }
+
+    private int doJoin() {
+        int s = status;
+        if (s < 0) {
+            return s;
+        }
+        Thread t = Thread.currentThread();
+        if (t instanceof ForkJoinWorkerThread) {
+            ForkJoinWorkerThread w = (ForkJoinWorkerThread) t;
+            if (w.unpushTask(this)) {
+                s = doExec();
+                if (s < 0) {
+                    return s;
+                }
+            }
+            return w.joinTask(this);
+        }
+        return externalAwaitDone();
+    }
+
+    private int doInvoke() {
+        int s = doExec();
+        if (s < 0) {
+            return s;
+        }
+        Thread t = Thread.currentThread();
+        if (t instanceof ForkJoinWorkerThread) {
+            return ((ForkJoinWorkerThread) t).joinTask(this);
+        }
+        return externalAwaitDone();
+    }
+
+    private V reportResult(int s) {
+        if (s == CANCELLED) {
+            throw new CancellationException();
+        }
+        if (s == EXCEPTIONAL) {
+            Throwable ex = exception;
+            if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            }
+            if (ex instanceof Error) {
+                throw (Error) ex;
+            }
+            throw new RuntimeException(ex);
+        }
+        return getRawResult();
+    }
+
+    /**
+     * Arranges to asynchronously execute this task in the pool the
+     * current task is running in. While it is not necessarily
+     * enforced, it is a usage error to fork a task more than once
+     * unless it has completed and been reinitialized.
+     *
+     * @return {@code this}, to simplify usage
+     * @throws ClassCastException if the current thread is not a
+     *         {@link ForkJoinWorkerThread}
+     */
+    public final ForkJoinTask<V> fork() {
+        ((ForkJoinWorkerThread) Thread.currentThread()).pushTask(this);
+        return this;
+    }
+
+    /**
+     * Returns the result of the computation when it {@link #isDone is
+     * done}. Unlike {@link #get}, abnormal completion results in a
+     * {@code RuntimeException} or {@code Error} rather than an
+     * {@code ExecutionException}, and interrupts of the calling thread
+     * do not cause the method to return early.
+     *
+     * @return the computed result
+     */
+    public final V join() {
+        return reportResult(doJoin());
+    }
+
+    /**
+     * Commences performing this task, awaits its completion if
+     * necessary, and returns its result, or throws an (unchecked)
+     * {@code RuntimeException} or {@code Error} if the underlying
+     * computation did so.
+     *
+     * @return the computed result
+     */
+    public final V invoke() {
+        return reportResult(doInvoke());
+    }
+
+    /**
+     * Forks the given tasks, returning when {@code isDone} holds for
+     * each task or an (unchecked) exception is encountered, in which
+     * case the exception is rethrown and the remaining tasks are
+     * cancelled.
+     *
+     * @param t1 the first task
+     * @param t2 the second task
+     * @throws NullPointerException if any task is null
+     */
+    public static void invokeAll(ForkJoinTask<?> t1, ForkJoinTask<?> t2) {
+        t2.fork();
+        t1.invoke();
+        t2.join();
+    }
+
+    /**
+     * Forks the given tasks, returning when {@code isDone} holds for
+     * each task or an (unchecked) exception is encountered, in which
+     * case the exception is rethrown and the remaining tasks are
+     * cancelled.
+     *
+     * @param tasks the tasks
+     * @throws NullPointerException if any task is null
+     */
+    public static void invokeAll(ForkJoinTask<?>... tasks) {
+        int last = tasks.length - 1;
+        if (last < 0) {
+            return;
+        }
+        for (int i = last; i > 0; i--) {
+            tasks[i].fork();
+        }
+        RuntimeException rex = null;
+        Error err = null;
+        for (int i = 0; i <= last; i++) {
+            ForkJoinTask<?> t = tasks[i];
+            if (rex != null || err != null) {
+                t.cancel(false);
+                continue;
+            }
+            try {
+                if (i == 0) {
+                    t.invoke();
+                } else {
+                    t.join();
+                }
+            } catch (RuntimeException e) {
+                rex = e;
+            } catch (Error e) {
+                err = e;
+            }
+        }
+        if (err != null) {
+            throw err;
+        }
+        if (rex != null) {
+            throw rex;
+        }
+    }
+
+    /**
+     * Forks all tasks in the collection, returning when {@code isDone}
+     * holds for each task or an (unchecked) exception is encountered.
+     *
+     * @param tasks the tasks
+     * @return the tasks argument, to simplify usage
+     * @throws NullPointerException if tasks or any element is null
+     */
+    public static <T extends ForkJoinTask<?>> Collection<T> invokeAll(
+            Collection<T> tasks) {
+        invokeAll(tasks.toArray(new ForkJoinTask<?>[tasks.size()]));
+        return tasks;
+    }
+
+    /**
+     * Attempts to cancel execution of this task. The attempt fails if
+     * the task has already completed. A task that is running when it
+     * is cancelled still runs to the end, but its result is discarded.
+     *
+     * @param mayInterruptIfRunning ignored, tasks are never interrupted
+     * @return {@code true} if this task is now cancelled
+     */
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return setCompletion(CANCELLED) == CANCELLED;
+    }
+
+    public final boolean isDone() {
+        return status < 0;
+    }
+
+    public final boolean isCancelled() {
+        return status == CANCELLED;
+    }
+
+    /**
+     * Returns {@code true} if this task threw an exception or was
+     * cancelled.
+     */
+    public final boolean isCompletedAbnormally() {
+        return status < NORMAL;
+    }
+
+    /**
+     * Returns {@code true} if this task completed without throwing an
+     * exception and was not cancelled.
+     */
+    public final boolean isCompletedNormally() {
+        return status == NORMAL;
+    }
+
+    /**
+     * Returns the exception thrown by the computation, a
+     * {@code CancellationException} if cancelled, or {@code null} if
+     * none or if the task has not yet completed.
+     */
+    public final Throwable getException() {
+        int s = status;
+        if (s == CANCELLED) {
+            return new CancellationException();
+        }
+        return s == EXCEPTIONAL ? exception : null;
+    }
+
+    /**
+     * Completes this task abnormally, so that {@code join} and related
+     * operations throw the given exception.
+     *
+     * @param ex the exception to throw
+     */
+    public void completeExceptionally(Throwable ex) {
+        setExceptionalCompletion(ex);
+    }
+
+    /**
+     * Completes this task and, if not already aborted or cancelled,
+     * returns the given value as the result of subsequent invocations
+     * of {@code join} and related operations.
+     *
+     * @param value the result value for this task
+     */
+    public void complete(V value) {
+        try {
+            setRawResult(value);
+        } catch (Throwable ex) {
+            setExceptionalCompletion(ex);
+            return;
+        }
+        setCompletion(NORMAL);
+    }
+
+    public final V get() throws InterruptedException, ExecutionException {
+        int s = status;
+        if (s >= 0) {
+            Thread t = Thread.currentThread();
+            if (t instanceof ForkJoinWorkerThread) {
+                s = doJoin();
+            } else {
+                while (status >= 0) {
+                    awaitDone(0);
+                }
+                s = status;
+            }
+        }
+        return reportFutureResult(s);
+    }
+
+    public final V get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (;;) {
+            if (status < 0) {
+                break;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long nanos = deadline - System.nanoTime();
+            if (nanos <= 0) {
+                throw new TimeoutException();
+            }
+            awaitDone(Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        }
+        return reportFutureResult(status);
+    }
+
+    private V reportFutureResult(int s) throws ExecutionException {
+        if (s == CANCELLED) {
+            throw new CancellationException();
+        }
+        if (s == EXCEPTIONAL) {
+            throw new ExecutionException(exception);
+        }
+        return getRawResult();
+    }
+
+    /**
+     * Joins this task, without returning its result or throwing its
+     * exception.
+     */
+    public final void quietlyJoin() {
+        doJoin();
+    }
+
+    /**
+     * Commences performing this task and awaits its completion if
+     * necessary, without returning its result or throwing its
+     * exception.
+     */
+    public final void quietlyInvoke() {
+        doInvoke();
+    }
+
+    /**
+     * Resets the internal bookkeeping state of this task, allowing a
+     * subsequent {@code fork}. The effects are undefined if the task
+     * is still queued or running.
+     */
+    public void reinitialize() {
+        exception = null;
+        status = 0;
+    }
+
+    /**
+     * Tries to unschedule this task for execution. This succeeds if
+     * the task is the most recently forked task of the current worker
+     * thread and has not commenced executing in another thread.
+     *
+     * @return {@code true} if unforked
+     */
+    public boolean tryUnfork() {
+        return ((ForkJoinWorkerThread) Thread.currentThread()).unpushTask(this);
+    }
+
+    /**
+     * Returns the pool hosting the current task execution, or null if
+     * this task is executing outside of any ForkJoinPool.
+     */
+    public static ForkJoinPool getPool() {
+        Thread t = Thread.currentThread();
+        return t instanceof ForkJoinWorkerThread ? ((ForkJoinWorkerThread) t)
+                .getPool() : null;
+    }
+
+    /**
+     * Returns {@code true} if the current thread is a
+     * {@link ForkJoinWorkerThread} executing as a ForkJoinPool
+     * computation.
+     */
+    public static boolean inForkJoinPool() {
+        return Thread.currentThread() instanceof ForkJoinWorkerThread;
+    }
+
+    /**
+     * Returns the number of tasks that have been forked by the current
+     * worker thread but not yet executed.
+     */
+    public static int getQueuedTaskCount() {
+        return ((ForkJoinWorkerThread) Thread.currentThread()).getQueueSize();
+    }
+
+    /**
+     * Returns an estimate of how many more locally queued tasks are
+     * held by the current worker thread than there are idle workers
+     * that might steal them. Tasks commonly use this to decide whether
+     * to fork further subtasks or to compute directly.
+     */
+    public static int getSurplusQueuedTaskCount() {
+        ForkJoinWorkerThread w = (ForkJoinWorkerThread) Thread.currentThread();
+        return w.getQueueSize() - w.getPool().getIdleCount();
+    }
+
+    /**
+     * Returns the result that would be returned by {@link #join}, even
+     * if this task completed abnormally, or {@code null} if this task
+     * is not known to have been completed.
+     */
+    public abstract V getRawResult();
+
+    /**
+     * Forces the given value to be returned as a result.
+     *
+     * @param value the value
+     */
+    protected abstract void setRawResult(V value);
+
+    /**
+     * Immediately performs the base action of this task.
+     *
+     * @return {@code true} if completed normally
+     */
+    protected abstract boolean exec();
+
+    /**
+     * Returns a new {@code ForkJoinTask} that performs the {@code run}
+     * method of the given {@code Runnable} as its action, and returns
+     * a null result upon {@link #join}.
+     *
+     * @param runnable the runnable action
+     * @return the task
+     */
+    public static ForkJoinTask<?> adapt(Runnable runnable) {
+        return new AdaptedRunnable<Object>(runnable, null);
+    }
+
+    /**
+     * Returns a new {@code ForkJoinTask} that performs the {@code run}
+     * method of the given {@code Runnable} as its action, and returns
+     * the given result upon {@link #join}.
+     *
+     * @param runnable the runnable action
+     * @param result the result upon completion
+     * @return the task
+     */
+    public static <T> ForkJoinTask<T> adapt(Runnable runnable, T result) {
+        return new AdaptedRunnable<T>(runnable, result);
+    }
+
+    /**
+     * Returns a new {@code ForkJoinTask} that performs the {@code call}
+     * method of the given {@code Callable} as its action, and returns
+     * its result upon {@link #join}, translating any checked exceptions
+     * encountered into {@code RuntimeException}.
+     *
+     * @param callable the callable action
+     * @return the task
+     */
+    public static <T> ForkJoinTask<T> adapt(Callable<? extends T> callable) {
+        return new AdaptedCallable<T>(callable);
+    }
+
+    static final class AdaptedRunnable<T> extends ForkJoinTask<T> implements
+            Runnable {
+
+        private static final long serialVersionUID = 5232453952276885070L;
+
+        final Runnable runnable;
+
+        final T resultOnCompletion;
+
+        T result;
+
+        AdaptedRunnable(Runnable runnable, T result) {
+            if (runnable == null) {
+                throw new NullPointerException();
+            }
+            this.runnable = runnable;
+            this.resultOnCompletion = result;
+        }
+
+        @Override
+        public T getRawResult() {
+            return result;
+        }
+
+        @Override
+        public void setRawResult(T v) {
+            result = v;
+        }
+
+        @Override
+        public boolean exec() {
+            runnable.run();
+            result = resultOnCompletion;
+            return true;
+        }
+
+        public void run() {
+            invoke();
+        }
+    }
+
+    static final class AdaptedCallable<T> extends ForkJoinTask<T> implements
+            Runnable {
+
+        private static final long serialVersionUID = 2838392045355241008L;
+
+        final Callable<? extends T> callable;
+
+        T result;
+
+        AdaptedCallable(Callable<? extends T> callable) {
+            if (callable == null) {
+                throw new NullPointerException();
+            }
+            this.callable = callable;
+        }
+
+        @Override
+        public T getRawResult() {
+            return result;
+        }
+
+        @Override
+        public void setRawResult(T v) {
+            result = v;
+        }
+
+        @Override
+        public boolean exec() {
+            try {
+                result = callable.call();
+                return true;
+            } catch (Error err) {
+                throw err;
+            } catch (RuntimeException rex) {
+                throw rex;
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        public void run() {
+            invoke();
+        }
+    }
+}
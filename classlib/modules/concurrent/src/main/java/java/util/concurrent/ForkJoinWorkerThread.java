@@ -0,0 +1,352 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread managed by a {@link ForkJoinPool}, which executes
+ * {@link ForkJoinTask}s.  This class is subclassable solely for the
+ * sake of adding functionality -- there are no overridable methods
+ * dealing with scheduling or execution.  However, you can override
+ * initialization and termination methods surrounding the main task
+ * processing loop.  If you do create such a subclass, you will also
+ * need to supply a custom {@link ForkJoinPool.ForkJoinWorkerThreadFactory}
+ * to use it in a {@code ForkJoinPool}.
+ *
+ * @since 1.7
+ */
+public class ForkJoinWorkerThread extends Thread {
+
+    /*
+     * Each worker owns a work-stealing deque of the tasks it has
+     * forked. The owner pushes and pops at the top (sp) without any
+     * atomic instruction other than the compare-and-set that takes a
+     * task out of its slot, while other workers steal at the bottom
+     * (base). A slot is emptied only by a successful compare-and-set,
+     * so a task is taken exactly once even when the owner and several
+     * thieves race for the last element. The array grows when full;
+     * elements are moved with the same compare-and-set, so a
+     * concurrent thief finds each task either in the old or in the
+     * new array.
+     *
+     * A worker only takes tasks from other queues once its own is
+     * empty, so the tasks in its queue were all forked while it ran
+     * its current steal. A worker joining a task that another worker
+     * stole therefore helps by taking tasks from the stealer's queue,
+     * and, if the stealer is itself joining, from the queue of the
+     * worker it waits for, and so on. Only when no such task and no
+     * other work is left does it block, and it is then woken by the
+     * thread that completes the task.
+     */
+
+    static final int INITIAL_QUEUE_CAPACITY = 1 << 13;
+
+    static final int MAXIMUM_QUEUE_CAPACITY = 1 << 24;
+
+    final ForkJoinPool pool;
+
+    final boolean locallyFifo;
+
+    volatile AtomicReferenceArray<ForkJoinTask<?>> queue;
+
+    volatile int base;
+
+    volatile int sp;
+
+    /*
+     * Set while the worker waits for work; cleared by whoever wakes it.
+     */
+    final AtomicBoolean waiting = new AtomicBoolean();
+
+    int poolIndex;
+
+    volatile int stealCount;
+
+    /*
+     * The task taken from outside the queue that the worker is
+     * running, and the task it is joining, for joiners looking for
+     * the worker to help.
+     */
+    volatile ForkJoinTask<?> currentSteal;
+
+    volatile ForkJoinTask<?> currentJoin;
+
+    private int seed;
+
+    /**
+     * Creates a ForkJoinWorkerThread operating in the given pool.
+     *
+     * @param pool the pool this thread works in
+     * @throws NullPointerException if pool is null
+     */
+    protected ForkJoinWorkerThread(ForkJoinPool pool) {
+        super(pool.nextWorkerName());
+        this.pool = pool;
+        this.locallyFifo = pool.getAsyncMode();
+        this.queue = new AtomicReferenceArray<ForkJoinTask<?>>(
+                INITIAL_QUEUE_CAPACITY);
+        this.seed = System.identityHashCode(this) | 1;
+        setDaemon(true);
+        Thread.UncaughtExceptionHandler handler = pool
+                .getUncaughtExceptionHandler();
+        if (handler != null) {
+            setUncaughtExceptionHandler(handler);
+        }
+    }
+
+    /**
+     * Returns the pool hosting this thread.
+     *
+     * @return the pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the index number of this thread in its pool, a value
+     * between zero and the pool's parallelism minus one. Indices of
+     * terminated workers are reused by their replacements.
+     *
+     * @return the index number
+     */
+    public int getPoolIndex() {
+        return poolIndex;
+    }
+
+    /**
+     * Initializes internal state after construction but before
+     * processing any tasks. If you override this method, you must
+     * invoke {@code super.onStart()} at the beginning of the method.
+     */
+    protected void onStart() {
+        // nothing to do
+    }
+
+    /**
+     * Performs cleanup associated with termination of this worker
+     * thread. If you override this method, you must invoke
+     * {@code super.onTermination} at the end of the overridden method.
+     *
+     * @param exception the exception causing this thread to abort due
+     *        to an unrecoverable error, or {@code null} if completed
+     *        normally
+     */
+    protected void onTermination(Throwable exception) {
+        cancelTasks();
+    }
+
+    /**
+     * This method is required to be public, but should never be
+     * called explicitly. It performs the main run loop to execute
+     * {@link ForkJoinTask}s.
+     */
+    @Override
+    public void run() {
+        Throwable exception = null;
+        try {
+            onStart();
+            pool.work(this);
+        } catch (Throwable ex) {
+            exception = ex;
+        } finally {
+            try {
+                onTermination(exception);
+            } finally {
+                pool.deregisterWorker(this, exception);
+            }
+        }
+    }
+
+    /**
+     * Pushes a task forked by this worker and signals idle workers.
+     */
+    final void pushTask(ForkJoinTask<?> t) {
+        AtomicReferenceArray<ForkJoinTask<?>> q = queue;
+        int mask = q.length() - 1;
+        int s = sp;
+        q.set(s & mask, t);
+        sp = ++s;
+        if (s - base > mask) {
+            growQueue();
+        }
+        pool.signalWork();
+    }
+
+    private void growQueue() {
+        AtomicReferenceArray<ForkJoinTask<?>> oldQ = queue;
+        int oldSize = oldQ.length();
+        int newSize = oldSize << 1;
+        if (newSize > MAXIMUM_QUEUE_CAPACITY) {
+            throw new RejectedExecutionException("Queue capacity exceeded"); //$NON-NLS-1$
+        }
+        AtomicReferenceArray<ForkJoinTask<?>> newQ = new AtomicReferenceArray<ForkJoinTask<?>>(
+                newSize);
+        queue = newQ;
+        int oldMask = oldSize - 1;
+        int newMask = newSize - 1;
+        for (int b = base, end = sp; b != end; b++) {
+            int oldIndex = b & oldMask;
+            ForkJoinTask<?> t = oldQ.get(oldIndex);
+            if (t != null && oldQ.compareAndSet(oldIndex, t, null)) {
+                newQ.set(b & newMask, t);
+            }
+        }
+    }
+
+    /**
+     * Takes a task from the base of the queue. Called by thieves, and
+     * by the owner in FIFO mode.
+     *
+     * @return a task, or {@code null} if the queue is empty
+     */
+    final ForkJoinTask<?> deqTask() {
+        int b;
+        while ((b = base) != sp) {
+            AtomicReferenceArray<ForkJoinTask<?>> q = queue;
+            int i = b & (q.length() - 1);
+            ForkJoinTask<?> t = q.get(i);
+            if (base == b && t != null && q.compareAndSet(i, t, null)) {
+                base = b + 1;
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes the most recently pushed task. Called only by the owner.
+     *
+     * @return a task, or {@code null} if the queue is empty
+     */
+    final ForkJoinTask<?> popTask() {
+        int s;
+        while ((s = sp) != base) {
+            AtomicReferenceArray<ForkJoinTask<?>> q = queue;
+            int i = --s & (q.length() - 1);
+            ForkJoinTask<?> t = q.get(i);
+            if (t == null) {
+                break;
+            }
+            if (q.compareAndSet(i, t, null)) {
+                sp = s;
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the given task if it is the most recently pushed one.
+     * Called only by the owner.
+     */
+    final boolean unpushTask(ForkJoinTask<?> t) {
+        int s = sp;
+        if (s != base) {
+            AtomicReferenceArray<ForkJoinTask<?>> q = queue;
+            if (q.compareAndSet(--s & (q.length() - 1), t, null)) {
+                sp = s;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes the next local task in the order determined by the pool's
+     * mode.
+     */
+    final ForkJoinTask<?> nextLocalTask() {
+        return locallyFifo ? deqTask() : popTask();
+    }
+
+    final int getQueueSize() {
+        int n = sp - base;
+        return n < 0 ? 0 : n;
+    }
+
+    /**
+     * Returns the next pseudo random number, used to pick the victim
+     * a steal attempt starts with.
+     */
+    final int nextSeed() {
+        int r = seed;
+        r ^= r << 13;
+        r ^= r >>> 17;
+        r ^= r << 5;
+        seed = r;
+        return r;
+    }
+
+    /**
+     * Runs a task that was not forked by the task the worker is
+     * running, recording it as the worker's current steal.
+     */
+    final void execStolen(ForkJoinTask<?> t) {
+        ForkJoinTask<?> prevSteal = currentSteal;
+        currentSteal = t;
+        t.doExec();
+        currentSteal = prevSteal;
+    }
+
+    /**
+     * Runs other tasks until the given task completes, preferring
+     * those of the worker that stole it.
+     *
+     * @return the completion status of the task
+     */
+    final int joinTask(ForkJoinTask<?> joinMe) {
+        ForkJoinTask<?> prevJoin = currentJoin;
+        currentJoin = joinMe;
+        int s;
+        while ((s = joinMe.status) >= 0) {
+            ForkJoinTask<?> t = popTask();
+            if (t != null) {
+                t.doExec();
+                continue;
+            }
+            t = pool.helpStealer(this, joinMe);
+            if (t == null) {
+                t = pool.steal(this);
+            }
+            if (t != null) {
+                execStolen(t);
+                continue;
+            }
+            try {
+                joinMe.awaitDone(0);
+            } catch (InterruptedException e) {
+                // only used by shutdownNow, checked by the main loop
+            }
+        }
+        currentJoin = prevJoin;
+        return s;
+    }
+
+    /**
+     * Cancels the tasks left in the queue of a terminating worker.
+     */
+    final void cancelTasks() {
+        ForkJoinTask<?> t;
+        while ((t = deqTask()) != null) {
+            t.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util.concurrent;
+
+/**
+ * A recursive resultless {@link ForkJoinTask}. This class establishes
+ * conventions to parameterize resultless actions as {@code Void}
+ * {@code ForkJoinTask}s. Because {@code null} is the only valid value
+ * of type {@code Void}, methods such as {@code join} always return
+ * {@code null} upon completion.
+ *
+ * <p>Here is a simple but complete task that increments every element
+ * of an array:
+ *
+ * <pre> {@code
+ * class IncrementTask extends RecursiveAction {
+ *   final long[] array; final int lo, hi;
+ *   IncrementTask(long[] array, int lo, int hi) {
+ *     this.array = array; this.lo = lo; this.hi = hi;
+ *   }
+ *   protected void compute() {
+ *     if (hi - lo < THRESHOLD) {
+ *       for (int i = lo; i < hi; ++i)
+ *         array[i]++;
+ *     }
+ *     else {
+ *       int mid = (lo + hi) >>> 1;
+ *       invokeAll(new IncrementTask(array, lo, mid),
+ *                 new IncrementTask(array, mid, hi));
+ *     }
+ *   }
+ * }}</pre>
+ *
+ * @since 1.7
+ */
+public abstract class RecursiveAction extends ForkJoinTask<Void> {
+
+    private static final long serialVersionUID = 5232453952276485070L;
+
+    /**
+     * The main computation performed by this task.
+     */
+    protected abstract void compute();
+
+    /**
+     * Always returns {@code null}.
+     *
+     * @return {@code null} always
+     */
+    @Override
+    public final Void getRawResult() {
+        return null;
+    }
+
+    /**
+     * Requires null completion value.
+     */
+    @Override
+    protected final void setRawResult(Void mustBeNull) {
+        // nothing to store
+    }
+
+    /**
+     * Implements execution conventions for RecursiveActions.
+     */
+    @Override
+    protected final boolean exec() {
+        compute();
+        return true;
+    }
+}
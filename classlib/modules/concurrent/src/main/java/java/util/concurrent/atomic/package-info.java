@@ -135,6 +135,13 @@
  * used for example, to represent version numbers corresponding to
  * series of updates.
  *
+ * <p>The {@link java.util.concurrent.atomic.LongAdder},
+ * {@link java.util.concurrent.atomic.DoubleAdder} and
+ * {@link java.util.concurrent.atomic.LongAccumulator} classes spread
+ * contended updates over several variables and combine them only when
+ * the value is read.  They are preferable to a single atomic variable
+ * for sums and statistics that many threads update but few read.
+ *
  * <p>Atomic classes are designed primarily as building blocks for
  * implementing non-blocking data structures and related infrastructure
  * classes.  The {@code compareAndSet} method is not a general
@@ -53,6 +53,13 @@
  * {@link java.util.concurrent.ScheduledThreadPoolExecutor}
  * provide tunable, flexible thread pools.
  *
+ * The {@link java.util.concurrent.ForkJoinPool} class provides an
+ * Executor primarily designed for processing instances of {@link
+ * java.util.concurrent.ForkJoinTask} and its subclasses.  These
+ * classes employ a work-stealing scheduler that attains high
+ * throughput for tasks conforming to restrictions that often hold in
+ * computation-intensive parallel processing.
+ *
  * The {@link java.util.concurrent.Executors} class provides
  * factory methods for the most common kinds and configurations
  * of Executors, as well as a few utility methods for using
@@ -0,0 +1,134 @@
+/*
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/licenses/publicdomain
+ */
+
+import junit.framework.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.io.*;
+
+public class DoubleAdderTest extends JSR166TestCase {
+    public static void main (String[] args) {
+        junit.textui.TestRunner.run (suite());
+    }
+    public static Test suite() {
+        return new TestSuite(DoubleAdderTest.class);
+    }
+
+    /**
+     * default constructed initializes to zero
+     */
+    public void testConstructor() {
+        DoubleAdder ai = new DoubleAdder();
+        assertEquals(0.0, ai.sum());
+    }
+
+    /**
+     * add adds given value to current, and sum returns current value
+     */
+    public void testAddAndSum() {
+        DoubleAdder ai = new DoubleAdder();
+        ai.add(2.0);
+        assertEquals(2.0, ai.sum());
+        ai.add(-4.0);
+        assertEquals(-2.0, ai.sum());
+    }
+
+    /**
+     * reset() causes subsequent sum() to return zero
+     */
+    public void testReset() {
+        DoubleAdder ai = new DoubleAdder();
+        ai.add(2.0);
+        assertEquals(2.0, ai.sum());
+        ai.reset();
+        assertEquals(0.0, ai.sum());
+    }
+
+    /**
+     * sumThenReset() returns sum; subsequent sum() returns zero
+     */
+    public void testSumThenReset() {
+        DoubleAdder ai = new DoubleAdder();
+        ai.add(2.0);
+        assertEquals(2.0, ai.sum());
+        assertEquals(2.0, ai.sumThenReset());
+        assertEquals(0.0, ai.sum());
+    }
+
+    /**
+     * a deserialized serialized adder holds same value
+     */
+    public void testSerialization() {
+        DoubleAdder l = new DoubleAdder();
+        l.add(-22.0);
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream(10000);
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(bout));
+            out.writeObject(l);
+            out.close();
+
+            ByteArrayInputStream bin = new ByteArrayInputStream(bout.toByteArray());
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(bin));
+            DoubleAdder r = (DoubleAdder) in.readObject();
+            assertEquals(l.sum(), r.sum());
+        } catch(Exception e){
+            unexpectedException();
+        }
+    }
+
+    /**
+     * toString returns current value.
+     */
+    public void testToString() {
+        DoubleAdder ai = new DoubleAdder();
+        assertEquals(Double.toString(0.0), ai.toString());
+        ai.add(1.0);
+        assertEquals(Double.toString(1.0), ai.toString());
+    }
+
+    /**
+     * numeric conversions return the current value
+     */
+    public void testNumberValues() {
+        DoubleAdder ai = new DoubleAdder();
+        ai.add(2.5);
+        assertEquals(2, ai.intValue());
+        assertEquals(2L, ai.longValue());
+        assertEquals(2.5f, ai.floatValue());
+        assertEquals(2.5, ai.doubleValue());
+    }
+
+    /**
+     * adds by multiple threads produce correct sum
+     */
+    public void testAddAndSumMT() {
+        final int incs = 100000;
+        final int nthreads = 4;
+        final DoubleAdder a = new DoubleAdder();
+        final CyclicBarrier barrier = new CyclicBarrier(nthreads + 1);
+        ExecutorService pool = Executors.newCachedThreadPool();
+        for (int i = 0; i < nthreads; ++i)
+            pool.execute(new Runnable() {
+                public void run() {
+                    try {
+                        barrier.await();
+                        for (int i = 0; i < incs; ++i)
+                            a.add(1.0);
+                        barrier.await();
+                    } catch (Throwable t) {
+                        threadUnexpectedException();
+                    }
+                }});
+        try {
+            barrier.await();
+            barrier.await();
+        } catch (Exception e) {
+            unexpectedException();
+        }
+        assertEquals((double)(incs * nthreads), a.sum());
+        joinPool(pool);
+    }
+}
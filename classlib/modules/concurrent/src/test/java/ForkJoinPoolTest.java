@@ -0,0 +1,366 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import junit.framework.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class ForkJoinPoolTest extends JSR166TestCase {
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run (suite());
+    }
+    public static Test suite() {
+        return new TestSuite(ForkJoinPoolTest.class);
+    }
+
+    /**
+     * Sums a range of an array, splitting it while it is large.
+     */
+    static final class SumTask extends RecursiveTask<Long> {
+        final long[] array; final int lo, hi;
+        SumTask(long[] array, int lo, int hi) {
+            this.array = array; this.lo = lo; this.hi = hi;
+        }
+        protected Long compute() {
+            if (hi - lo <= 16) {
+                long sum = 0;
+                for (int i = lo; i < hi; i++)
+                    sum += array[i];
+                return sum;
+            }
+            int mid = (lo + hi) >>> 1;
+            SumTask left = new SumTask(array, lo, mid);
+            left.fork();
+            long right = new SumTask(array, mid, hi).compute();
+            return right + left.join();
+        }
+    }
+
+    static long[] range(int n) {
+        long[] array = new long[n];
+        for (int i = 0; i < n; i++)
+            array[i] = i;
+        return array;
+    }
+
+    /**
+     * Successfully constructed pool reports default factory,
+     * parallelism and async mode, and is running with no workers
+     */
+    public void testDefaultInitialState() {
+        ForkJoinPool p = new ForkJoinPool(1);
+        try {
+            assertSame(ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                       p.getFactory());
+            assertNull(p.getUncaughtExceptionHandler());
+            assertEquals(1, p.getParallelism());
+            assertFalse(p.getAsyncMode());
+            assertEquals(0, p.getPoolSize());
+            assertEquals(0, p.getStealCount());
+            assertEquals(0, p.getQueuedTaskCount());
+            assertEquals(0, p.getQueuedSubmissionCount());
+            assertFalse(p.hasQueuedSubmissions());
+            assertFalse(p.isShutdown());
+            assertFalse(p.isTerminating());
+            assertFalse(p.isTerminated());
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * Constructor throws if size argument is less than zero
+     */
+    public void testConstructor1() {
+        try {
+            new ForkJoinPool(-1);
+            shouldThrow();
+        } catch (IllegalArgumentException success) {}
+    }
+
+    /**
+     * Constructor throws if factory argument is null
+     */
+    public void testConstructor2() {
+        try {
+            new ForkJoinPool(1, null, null, false);
+            shouldThrow();
+        } catch (NullPointerException success) {}
+    }
+
+    /**
+     * invoke returns the result of a recursive computation
+     */
+    public void testInvoke() {
+        ForkJoinPool p = new ForkJoinPool(4);
+        try {
+            long[] array = range(100000);
+            long sum = p.invoke(new SumTask(array, 0, array.length));
+            assertEquals(100000L * 99999L / 2, sum);
+            assertTrue(p.getPoolSize() <= 4);
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * Deeply nested joins complete even with a single worker
+     */
+    public void testNestedJoinsWithOneWorker() {
+        ForkJoinPool p = new ForkJoinPool(1);
+        try {
+            long[] array = range(50000);
+            assertEquals(50000L * 49999L / 2,
+                         p.invoke(new SumTask(array, 0, array.length)).longValue());
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * Many concurrent external submissions all complete
+     */
+    public void testConcurrentSubmissions() throws Exception {
+        final ForkJoinPool p = new ForkJoinPool(2);
+        try {
+            final long[] array = range(10000);
+            List<ForkJoinTask<Long>> tasks = new ArrayList<ForkJoinTask<Long>>();
+            for (int i = 0; i < SIZE; i++)
+                tasks.add(p.submit(new SumTask(array, 0, array.length)));
+            for (ForkJoinTask<Long> task : tasks)
+                assertEquals(10000L * 9999L / 2, task.get().longValue());
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * submit(Callable) returns a future whose get returns the result
+     */
+    public void testSubmitCallable() throws Exception {
+        ForkJoinPool p = new ForkJoinPool(1);
+        try {
+            Future<String> future = p.submit(new StringTask());
+            assertSame(TEST_STRING, future.get());
+            assertTrue(future.isDone());
+            assertFalse(future.isCancelled());
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * execute(Runnable) runs the runnable
+     */
+    public void testExecuteRunnable() throws Exception {
+        ForkJoinPool p = new ForkJoinPool(1);
+        try {
+            final CountDownLatch done = new CountDownLatch(1);
+            p.execute(new Runnable() {
+                public void run() { done.countDown(); }
+            });
+            assertTrue(done.await(LONG_DELAY_MS, TimeUnit.MILLISECONDS));
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * get of a submitted callable that throws wraps the exception
+     * in an ExecutionException
+     */
+    public void testSubmitThrowingCallable() throws Exception {
+        ForkJoinPool p = new ForkJoinPool(1);
+        try {
+            p.submit(new NPETask()).get();
+            shouldThrow();
+        } catch (ExecutionException success) {
+            assertTrue(success.getCause() instanceof NullPointerException);
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * invokeAll of callables returns completed futures
+     */
+    public void testInvokeAll() throws Exception {
+        ForkJoinPool p = new ForkJoinPool(2);
+        try {
+            List<Callable<String>> l = new ArrayList<Callable<String>>();
+            l.add(new StringTask());
+            l.add(new StringTask());
+            List<Future<String>> futures = p.invokeAll(l);
+            assertEquals(2, futures.size());
+            for (Future<String> future : futures)
+                assertSame(TEST_STRING, future.get());
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * Tasks forked by one worker are stolen by the others
+     */
+    public void testStealing() {
+        final int n = 4;
+        ForkJoinPool p = new ForkJoinPool(n);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(n);
+            final AtomicInteger runs = new AtomicInteger();
+            p.invoke(new RecursiveAction() {
+                protected void compute() {
+                    ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[n];
+                    for (int i = 0; i < n; i++) {
+                        tasks[i] = new RecursiveAction() {
+                            protected void compute() {
+                                try {
+                                    // only completes if n workers run at once
+                                    barrier.await(LONG_DELAY_MS,
+                                                  TimeUnit.MILLISECONDS);
+                                    runs.incrementAndGet();
+                                } catch (Exception e) {
+                                    threadUnexpectedException(e);
+                                }
+                            }
+                        };
+                    }
+                    invokeAll(tasks);
+                }
+            });
+            assertEquals(n, runs.get());
+            assertTrue(p.getStealCount() >= n - 1);
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * A worker joining a stolen task runs the subtasks the stealer
+     * forked while the stealer waits for them
+     */
+    public void testJoinHelpsStealer() {
+        final int n = 4;
+        ForkJoinPool p = new ForkJoinPool(2);
+        try {
+            final CountDownLatch stolen = new CountDownLatch(1);
+            final CountDownLatch subtasksDone = new CountDownLatch(n);
+            final RecursiveAction stealMe = new RecursiveAction() {
+                protected void compute() {
+                    for (int i = 0; i < n; i++) {
+                        new RecursiveAction() {
+                            protected void compute() {
+                                subtasksDone.countDown();
+                            }
+                        }.fork();
+                    }
+                    stolen.countDown();
+                    try {
+                        // only the joining worker is left to run them
+                        threadAssertTrue(subtasksDone.await(LONG_DELAY_MS,
+                                                            TimeUnit.MILLISECONDS));
+                    } catch (InterruptedException e) {
+                        threadUnexpectedException(e);
+                    }
+                }
+            };
+            p.invoke(new RecursiveAction() {
+                protected void compute() {
+                    stealMe.fork();
+                    try {
+                        threadAssertTrue(stolen.await(LONG_DELAY_MS,
+                                                      TimeUnit.MILLISECONDS));
+                    } catch (InterruptedException e) {
+                        threadUnexpectedException(e);
+                    }
+                    stealMe.join();
+                }
+            });
+            assertTrue(stealMe.isCompletedNormally());
+            assertEquals(0, subtasksDone.getCount());
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * A submission after shutdown is rejected
+     */
+    public void testSubmitAfterShutdown() {
+        ForkJoinPool p = new ForkJoinPool(1);
+        p.shutdown();
+        try {
+            p.submit(new StringTask());
+            shouldThrow();
+        } catch (RejectedExecutionException success) {
+        } finally {
+            joinPool(p);
+        }
+    }
+
+    /**
+     * shutdown lets queued tasks complete before termination
+     */
+    public void testShutdownCompletesQueuedTasks() throws Exception {
+        ForkJoinPool p = new ForkJoinPool(1);
+        final long[] array = range(1000);
+        List<ForkJoinTask<Long>> tasks = new ArrayList<ForkJoinTask<Long>>();
+        for (int i = 0; i < SIZE; i++)
+            tasks.add(p.submit(new SumTask(array, 0, array.length)));
+        p.shutdown();
+        assertTrue(p.isShutdown());
+        assertTrue(p.awaitTermination(LONG_DELAY_MS, TimeUnit.MILLISECONDS));
+        assertTrue(p.isTerminated());
+        assertEquals(0, p.getPoolSize());
+        for (ForkJoinTask<Long> task : tasks)
+            assertEquals(1000L * 999L / 2, task.join().longValue());
+    }
+
+    /**
+     * shutdownNow cancels queued submissions and terminates the pool
+     */
+    public void testShutdownNow() throws Exception {
+        ForkJoinPool p = new ForkJoinPool(1);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        p.execute(new Runnable() {
+            public void run() {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ok) {
+                }
+            }
+        });
+        assertTrue(running.await(LONG_DELAY_MS, TimeUnit.MILLISECONDS));
+        Future<String> queued = p.submit(new StringTask());
+        assertTrue(p.shutdownNow().isEmpty());
+        assertTrue(queued.isCancelled());
+        assertTrue(p.awaitTermination(LONG_DELAY_MS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * An unused pool terminates immediately on shutdown
+     */
+    public void testShutdownUnusedPool() {
+        ForkJoinPool p = new ForkJoinPool(2);
+        p.shutdown();
+        assertTrue(p.isTerminated());
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/licenses/publicdomain
+ */
+
+import junit.framework.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.LongBinaryOperator;
+import java.io.*;
+
+public class LongAccumulatorTest extends JSR166TestCase {
+    public static void main (String[] args) {
+        junit.textui.TestRunner.run (suite());
+    }
+    public static Test suite() {
+        return new TestSuite(LongAccumulatorTest.class);
+    }
+
+    static class Max implements LongBinaryOperator, Serializable {
+        public long applyAsLong(long x, long y) {
+            return Math.max(x, y);
+        }
+    }
+
+    /**
+     * new instance initialized to supplied identity
+     */
+    public void testConstructor() {
+        LongAccumulator ai = new LongAccumulator(new Max(), 0L);
+        assertEquals(0, ai.get());
+    }
+
+    /**
+     * constructing with a null function throws NPE
+     */
+    public void testConstructor_NullPointerException() {
+        try {
+            new LongAccumulator(null, 0L);
+            shouldThrow();
+        } catch (NullPointerException success) {}
+    }
+
+    /**
+     * accumulate accumulates given value to current, and get returns current value
+     */
+    public void testAccumulateAndGet() {
+        LongAccumulator ai = new LongAccumulator(new Max(), 0L);
+        ai.accumulate(2);
+        assertEquals(2, ai.get());
+        ai.accumulate(-4);
+        assertEquals(2, ai.get());
+        ai.accumulate(4);
+        assertEquals(4, ai.get());
+    }
+
+    /**
+     * reset() causes subsequent get() to return zero
+     */
+    public void testReset() {
+        LongAccumulator ai = new LongAccumulator(new Max(), 0L);
+        ai.accumulate(2);
+        assertEquals(2, ai.get());
+        ai.reset();
+        assertEquals(0, ai.get());
+    }
+
+    /**
+     * getThenReset() returns current value; subsequent get() returns zero
+     */
+    public void testGetThenReset() {
+        LongAccumulator ai = new LongAccumulator(new Max(), 0L);
+        ai.accumulate(2);
+        assertEquals(2, ai.get());
+        assertEquals(2, ai.getThenReset());
+        assertEquals(0, ai.get());
+    }
+
+    /**
+     * a deserialized serialized accumulator holds same value
+     */
+    public void testSerialization() {
+        LongAccumulator l = new LongAccumulator(new Max(), Long.MIN_VALUE);
+        l.accumulate(-22);
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream(10000);
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(bout));
+            out.writeObject(l);
+            out.close();
+
+            ByteArrayInputStream bin = new ByteArrayInputStream(bout.toByteArray());
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(bin));
+            LongAccumulator r = (LongAccumulator) in.readObject();
+            assertEquals(l.get(), r.get());
+            r.reset();
+            assertEquals(Long.MIN_VALUE, r.get());
+        } catch(Exception e){
+            unexpectedException();
+        }
+    }
+
+    /**
+     * toString returns current value.
+     */
+    public void testToString() {
+        LongAccumulator ai = new LongAccumulator(new Max(), 0L);
+        assertEquals("0", ai.toString());
+        ai.accumulate(1);
+        assertEquals(Long.toString(1), ai.toString());
+    }
+
+    /**
+     * numeric conversions return the current value
+     */
+    public void testNumberValues() {
+        LongAccumulator ai = new LongAccumulator(new Max(), 0L);
+        ai.accumulate(3);
+        assertEquals(3, ai.intValue());
+        assertEquals(3L, ai.longValue());
+        assertEquals(3.0f, ai.floatValue());
+        assertEquals(3.0, ai.doubleValue());
+    }
+
+    /**
+     * accumulates by multiple threads produce correct result
+     */
+    public void testAccumulateAndGetMT() {
+        final int incs = 100000;
+        final int nthreads = 4;
+        final LongAccumulator a = new LongAccumulator(new Max(), 0L);
+        final CyclicBarrier barrier = new CyclicBarrier(nthreads + 1);
+        ExecutorService pool = Executors.newCachedThreadPool();
+        for (int i = 0; i < nthreads; ++i) {
+            final int offset = i;
+            pool.execute(new Runnable() {
+                public void run() {
+                    try {
+                        barrier.await();
+                        for (int i = 0; i < incs; ++i)
+                            a.accumulate(i * nthreads + offset);
+                        barrier.await();
+                    } catch (Throwable t) {
+                        threadUnexpectedException();
+                    }
+                }});
+        }
+        try {
+            barrier.await();
+            barrier.await();
+        } catch (Exception e) {
+            unexpectedException();
+        }
+        assertEquals(incs * nthreads - 1, a.get());
+        joinPool(pool);
+    }
+}
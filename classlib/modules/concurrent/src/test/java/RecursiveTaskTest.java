@@ -0,0 +1,298 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import junit.framework.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class RecursiveTaskTest extends JSR166TestCase {
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run (suite());
+    }
+    public static Test suite() {
+        return new TestSuite(RecursiveTaskTest.class);
+    }
+
+    static final class FibTask extends RecursiveTask<Integer> {
+        final int number;
+        FibTask(int n) { number = n; }
+        protected Integer compute() {
+            int n = number;
+            if (n <= 1)
+                return n;
+            FibTask f1 = new FibTask(n - 1);
+            f1.fork();
+            return new FibTask(n - 2).compute() + f1.join();
+        }
+    }
+
+    static final class FailingFibTask extends RecursiveTask<Integer> {
+        final int number;
+        FailingFibTask(int n) { number = n; }
+        protected Integer compute() {
+            int n = number;
+            if (n <= 1)
+                throw new FJException();
+            FailingFibTask f1 = new FailingFibTask(n - 1);
+            f1.fork();
+            return new FibTask(n - 2).compute() + f1.join();
+        }
+    }
+
+    static final class FJException extends RuntimeException {
+        FJException() { super(); }
+    }
+
+    static final class IncrementAction extends RecursiveAction {
+        final int[] array; final int lo, hi;
+        IncrementAction(int[] array, int lo, int hi) {
+            this.array = array; this.lo = lo; this.hi = hi;
+        }
+        protected void compute() {
+            if (hi - lo <= 8) {
+                for (int i = lo; i < hi; i++)
+                    array[i]++;
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new IncrementAction(array, lo, mid),
+                          new IncrementAction(array, mid, hi));
+            }
+        }
+    }
+
+    private <T> T testInvokeOnPool(ForkJoinPool pool, RecursiveTask<T> a) {
+        try {
+            return pool.invoke(a);
+        } finally {
+            joinPool(pool);
+        }
+    }
+
+    /**
+     * invoke returns value when task completes normally,
+     * isCompletedAbnormally and isCancelled return false
+     */
+    public void testInvoke() {
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                FibTask f = new FibTask(8);
+                Integer r = f.invoke();
+                threadAssertEquals(21, r.intValue());
+                threadAssertTrue(f.isDone());
+                threadAssertTrue(f.isCompletedNormally());
+                threadAssertFalse(f.isCompletedAbnormally());
+                threadAssertFalse(f.isCancelled());
+                threadAssertNull(f.getException());
+                return r;
+            }
+        };
+        assertEquals(21, testInvokeOnPool(new ForkJoinPool(), a).intValue());
+    }
+
+    /**
+     * join of a forked task returns its result
+     */
+    public void testForkJoin() {
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                FibTask f = new FibTask(8);
+                threadAssertTrue(f.fork() == f);
+                return f.join();
+            }
+        };
+        assertEquals(21, testInvokeOnPool(new ForkJoinPool(), a).intValue());
+    }
+
+    /**
+     * get of a forked task returns when task completes
+     */
+    public void testForkGet() {
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                try {
+                    FibTask f = new FibTask(8);
+                    f.fork();
+                    return f.get();
+                } catch (Exception ex) {
+                    threadUnexpectedException(ex);
+                    return null;
+                }
+            }
+        };
+        assertEquals(21, testInvokeOnPool(new ForkJoinPool(), a).intValue());
+    }
+
+    /**
+     * The result of a computation is the same for any parallelism
+     */
+    public void testParallelism() {
+        for (int n = 1; n <= 4; n++) {
+            assertEquals(6765, testInvokeOnPool(new ForkJoinPool(n),
+                                                new FibTask(20)).intValue());
+        }
+    }
+
+    /**
+     * join of a task that throws rethrows the exception
+     */
+    public void testAbnormalForkJoin() {
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                FailingFibTask f = new FailingFibTask(8);
+                f.fork();
+                try {
+                    f.join();
+                    threadShouldThrow();
+                } catch (FJException success) {
+                    threadAssertTrue(f.isCompletedAbnormally());
+                    threadAssertTrue(f.getException() instanceof FJException);
+                }
+                return null;
+            }
+        };
+        assertNull(testInvokeOnPool(new ForkJoinPool(), a));
+    }
+
+    /**
+     * get of a task that throws throws ExecutionException
+     */
+    public void testAbnormalForkGet() {
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                FailingFibTask f = new FailingFibTask(8);
+                f.fork();
+                try {
+                    f.get();
+                    threadShouldThrow();
+                } catch (ExecutionException success) {
+                    threadAssertTrue(success.getCause() instanceof FJException);
+                } catch (InterruptedException ex) {
+                    threadUnexpectedException(ex);
+                }
+                return null;
+            }
+        };
+        assertNull(testInvokeOnPool(new ForkJoinPool(), a));
+    }
+
+    /**
+     * join of a cancelled task throws CancellationException
+     */
+    public void testCancelledForkJoin() {
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                FibTask f = new FibTask(8);
+                threadAssertTrue(f.cancel(true));
+                f.fork();
+                try {
+                    f.join();
+                    threadShouldThrow();
+                } catch (CancellationException success) {
+                    threadAssertTrue(f.isCancelled());
+                    threadAssertTrue(f.isCompletedAbnormally());
+                }
+                return null;
+            }
+        };
+        assertNull(testInvokeOnPool(new ForkJoinPool(), a));
+    }
+
+    /**
+     * A forked task can be unforked and run by the caller
+     */
+    public void testTryUnfork() {
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                FibTask f = new FibTask(8);
+                f.fork();
+                threadAssertEquals(1, getQueuedTaskCount());
+                threadAssertTrue(f.tryUnfork());
+                threadAssertEquals(0, getQueuedTaskCount());
+                threadAssertFalse(f.isDone());
+                return f.invoke();
+            }
+        };
+        assertEquals(21, testInvokeOnPool(new ForkJoinPool(1), a).intValue());
+    }
+
+    /**
+     * reinitialize allows a completed task to be invoked again
+     */
+    public void testReinitialize() {
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                FibTask f = new FibTask(8);
+                threadAssertEquals(21, f.invoke().intValue());
+                f.reinitialize();
+                threadAssertFalse(f.isDone());
+                return f.invoke();
+            }
+        };
+        assertEquals(21, testInvokeOnPool(new ForkJoinPool(), a).intValue());
+    }
+
+    /**
+     * complete sets the result of a task that has not run
+     */
+    public void testComplete() {
+        FibTask f = new FibTask(8);
+        f.complete(42);
+        assertTrue(f.isCompletedNormally());
+        assertEquals(42, f.join().intValue());
+    }
+
+    /**
+     * completeExceptionally causes join to throw the given exception
+     */
+    public void testCompleteExceptionally() {
+        FibTask f = new FibTask(8);
+        f.completeExceptionally(new FJException());
+        try {
+            f.join();
+            shouldThrow();
+        } catch (FJException success) {
+        }
+    }
+
+    /**
+     * invokeAll of actions runs all of them
+     */
+    public void testInvokeAllActions() {
+        int[] array = new int[1000];
+        new ForkJoinPool().invoke(new IncrementAction(array, 0, array.length));
+        for (int i = 0; i < array.length; i++)
+            assertEquals(1, array[i]);
+    }
+
+    /**
+     * getPool and inForkJoinPool report the hosting pool inside a task
+     */
+    public void testGetPool() {
+        final ForkJoinPool mainPool = new ForkJoinPool();
+        RecursiveTask<Integer> a = new RecursiveTask<Integer>() {
+            public Integer compute() {
+                threadAssertTrue(inForkJoinPool());
+                threadAssertTrue(getPool() == mainPool);
+                return 0;
+            }
+        };
+        testInvokeOnPool(mainPool, a);
+        assertFalse(ForkJoinTask.inForkJoinPool());
+        assertNull(ForkJoinTask.getPool());
+    }
+}
@@ -254,7 +254,7 @@ public class Cipher {
      * @throws NoSuchAlgorithmException
      * @throws NoSuchPaddingException
      */
-    private static synchronized Cipher getCipher(String transformation, Provider provider)
+    private static Cipher getCipher(String transformation, Provider provider)
             throws NoSuchAlgorithmException, NoSuchPaddingException {
 
         if (transformation == null || "".equals(transformation)) { //$NON-NLS-1$
@@ -264,13 +264,14 @@ public class Cipher {
 
         String[] transf = checkTransformation(transformation);
 
+        Engine.SpiAndProvider sap = null;
         boolean needSetPadding = false;
         boolean needSetMode = false;
         if (transf[1] == null && transf[2] == null) { // "algorithm"
             if (provider == null) {
-                engine.getInstance(transf[0], null);
+                sap = engine.newInstance(transf[0], null);
             } else {
-                engine.getInstance(transf[0], provider, null);
+                sap = engine.newInstance(transf[0], provider, null);
             }
         } else {
             String[] searhOrder = {
@@ -283,9 +284,9 @@ public class Cipher {
             for (i = 0; i < searhOrder.length; i++) {
                 try {
                     if (provider == null) {
-                        engine.getInstance(searhOrder[i], null);
+                        sap = engine.newInstance(searhOrder[i], null);
                     } else {
-                        engine.getInstance(searhOrder[i], provider, null);
+                        sap = engine.newInstance(searhOrder[i], provider, null);
                     }
                     break;
                 } catch (NoSuchAlgorithmException e) {
@@ -308,11 +309,11 @@ public class Cipher {
         }
         CipherSpi cspi;
         try {
-            cspi = (CipherSpi) engine.spi;
+            cspi = (CipherSpi) sap.spi;
         } catch (ClassCastException e) {
             throw new NoSuchAlgorithmException(e);
         }
-        Cipher c = new Cipher(cspi, engine.provider, transformation);
+        Cipher c = new Cipher(cspi, sap.provider, transformation);
         if (needSetMode) {
             c.spiImpl.engineSetMode(transf[1]);
         }
@@ -102,11 +102,9 @@ public class ExemptionMechanism {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new ExemptionMechanism((ExemptionMechanismSpi) engine.spi,
-                    engine.provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new ExemptionMechanism((ExemptionMechanismSpi) sap.spi,
+                sap.provider, algorithm);
     }
 
     /**
@@ -169,11 +167,9 @@ public class ExemptionMechanism {
         if (provider == null) {
             throw new IllegalArgumentException(Messages.getString("crypto.04")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new ExemptionMechanism((ExemptionMechanismSpi) engine.spi,
-                    provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new ExemptionMechanism((ExemptionMechanismSpi) sap.spi,
+                provider, algorithm);
     }
 
     /**
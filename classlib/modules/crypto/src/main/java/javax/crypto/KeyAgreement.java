@@ -107,11 +107,9 @@ public class KeyAgreement {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new KeyAgreement((KeyAgreementSpi) engine.spi, engine.provider,
-                    algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new KeyAgreement((KeyAgreementSpi) sap.spi, sap.provider,
+                algorithm);
     }
 
     /**
@@ -172,11 +170,9 @@ public class KeyAgreement {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new KeyAgreement((KeyAgreementSpi) engine.spi, provider,
-                    algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new KeyAgreement((KeyAgreementSpi) sap.spi, provider,
+                algorithm);
     }
 
     /**
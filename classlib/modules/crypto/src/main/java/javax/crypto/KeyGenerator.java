@@ -106,11 +106,9 @@ public class KeyGenerator {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new KeyGenerator((KeyGeneratorSpi) engine.spi, engine.provider,
-                    algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new KeyGenerator((KeyGeneratorSpi) sap.spi, sap.provider,
+                algorithm);
     }
 
     /**
@@ -170,11 +168,9 @@ public class KeyGenerator {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new KeyGenerator((KeyGeneratorSpi) engine.spi, provider,
-                    algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new KeyGenerator((KeyGeneratorSpi) sap.spi, provider,
+                algorithm);
     }
 
     /**
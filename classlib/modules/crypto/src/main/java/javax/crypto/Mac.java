@@ -109,10 +109,8 @@ public class Mac implements Cloneable {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new Mac((MacSpi) engine.spi, engine.provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new Mac((MacSpi) sap.spi, sap.provider, algorithm);
     }
 
     /**
@@ -173,10 +171,8 @@ public class Mac implements Cloneable {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new Mac((MacSpi) engine.spi, provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new Mac((MacSpi) sap.spi, provider, algorithm);
     }
 
     /**
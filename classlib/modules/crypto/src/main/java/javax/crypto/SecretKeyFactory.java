@@ -111,11 +111,9 @@ public class SecretKeyFactory {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new SecretKeyFactory((SecretKeyFactorySpi) engine.spi,
-                    engine.provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new SecretKeyFactory((SecretKeyFactorySpi) sap.spi,
+                sap.provider, algorithm);
     }
 
     /**
@@ -176,11 +174,9 @@ public class SecretKeyFactory {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("crypto.02")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new SecretKeyFactory((SecretKeyFactorySpi) engine.spi, provider,
-                    algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new SecretKeyFactory((SecretKeyFactorySpi) sap.spi, provider,
+                algorithm);
     }
 
     /**
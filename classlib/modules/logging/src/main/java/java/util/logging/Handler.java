@@ -22,6 +22,8 @@ import java.nio.charset.Charset;
 import java.security.AccessController;
 import java.security.PrivilegedExceptionAction;
 
+import org.apache.harmony.logging.AsyncHandler;
+import org.apache.harmony.logging.LoggingAccess;
 import org.apache.harmony.logging.internal.nls.Messages;
 
 /**
@@ -33,6 +35,10 @@ public abstract class Handler {
 
     private static final Level DEFAULT_LEVEL = Level.ALL;
 
+    static {
+        AsyncHandler.door = new LoggingDoor();
+    }
+
     // the error manager to report errors during logging
     private ErrorManager errorMan;
 
@@ -404,4 +410,30 @@ public abstract class Handler {
         LogManager.getLogManager().checkAccess();
         this.level = newLevel;
     }
+
+    private static class LoggingDoor implements LoggingAccess {
+        // Access to LogRecord.captureSource()
+        public void captureSource(LogRecord record) {
+            record.captureSource();
+        }
+
+        // Access to Handler.initProperties()
+        public void initProperties(Handler handler, String defaultLevel,
+                String defaultFilter, String defaultFormatter,
+                String defaultEncoding) {
+            handler.initProperties(defaultLevel, defaultFilter,
+                    defaultFormatter, defaultEncoding);
+        }
+
+        // Access to Handler.internalSetFormatter()
+        public void internalSetFormatter(Handler handler, Formatter formatter) {
+            handler.internalSetFormatter(formatter);
+        }
+
+        // Access to Handler.printInvalidPropMessage()
+        public void printInvalidPropMessage(Handler handler, String key,
+                String value, Exception e) {
+            handler.printInvalidPropMessage(key, value, e);
+        }
+    }
 }
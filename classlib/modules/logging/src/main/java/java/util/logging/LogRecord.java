@@ -139,6 +139,10 @@ public class LogRecord implements Serializable {
     // If the source method and source class has been initialized
     private transient boolean sourceInited;
 
+    // The stack the source is to be inferred from, if it was captured before
+    // the record left the logging thread
+    private transient Throwable sourceStack;
+
     /**
      * Constructs a {@code LogRecord} object using the supplied the logging
      * level and message. The millis property is set to the current time. The
@@ -360,12 +364,27 @@ public class LogRecord implements Serializable {
         return sourceClassName;
     }
 
+    /*
+     * Captures the stack of the logging thread, so that the source can still
+     * be inferred once the record has been handed over to another thread.
+     * Only the capture is paid for here: on VMs that record the stack as a
+     * handle, as DRLVM does, resolving it to stack trace elements is left to
+     * initSource(), and is skipped if nobody asks for the source.
+     */
+    void captureSource() {
+        if (!sourceInited && sourceStack == null) {
+            sourceStack = new Throwable();
+        }
+    }
+
     /*
      *  Init the sourceClass and sourceMethod fields.
      */
     private void initSource() {
         if (!sourceInited) {
-            StackTraceElement[] elements = (new Throwable()).getStackTrace();
+            Throwable stack = sourceStack != null ? sourceStack
+                    : new Throwable();
+            StackTraceElement[] elements = stack.getStackTrace();
             int i = 0;
             String current = null;
             FINDLOG: for (; i < elements.length; i++) {
@@ -383,6 +402,7 @@ public class LogRecord implements Serializable {
                 this.sourceMethodName = elements[i].getMethodName();
             }
             sourceInited = true;
+            sourceStack = null;
         }
     }
 
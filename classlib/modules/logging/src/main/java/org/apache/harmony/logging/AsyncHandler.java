@@ -0,0 +1,568 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.logging;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+import org.apache.harmony.logging.internal.nls.Messages;
+
+/**
+ * A {@code Handler} that formats and writes log records on a thread of its
+ * own, so that a logging call costs the calling thread little more than
+ * handing the record over.
+ * <p>
+ * Published records are put into a ring buffer of bounded capacity. A single
+ * writer thread takes them out in batches and formats them into a buffer that
+ * is reused from batch to batch. The buffer is written out and the stream
+ * flushed when the buffer reaches a given size, when a given time has passed
+ * since its first record, or when {@link #flush()} is called. What happens to
+ * records published while the ring buffer is full is decided by the
+ * {@link Overflow} policy.
+ * <p>
+ * The stack of the calling thread is captured when a record is published, but
+ * the source class and method are only inferred from it if the formatter asks
+ * for them. The parameters of a record, on the other hand, are formatted on
+ * the writer thread, so they should not be changed once they are logged.
+ * <p>
+ * An {@code AsyncHandler} reads the following {@code LogManager} properties
+ * for initialization, if given properties are not defined or have invalid
+ * values, default values will be used.
+ * <ul>
+ * <li>org.apache.harmony.logging.AsyncHandler.capacity specifies the number
+ * of records the ring buffer holds, defaults to 1024.</li>
+ * <li>org.apache.harmony.logging.AsyncHandler.encoding specifies the
+ * encoding to write with, defaults to the platform encoding.</li>
+ * <li>org.apache.harmony.logging.AsyncHandler.filter specifies the
+ * {@code Filter} class name, defaults to no {@code Filter}.</li>
+ * <li>org.apache.harmony.logging.AsyncHandler.flushInterval specifies the
+ * number of milliseconds a formatted record may wait before it is written,
+ * defaults to 200.</li>
+ * <li>org.apache.harmony.logging.AsyncHandler.flushSize specifies the number
+ * of formatted characters that are written at once, defaults to 8192.</li>
+ * <li>org.apache.harmony.logging.AsyncHandler.formatter specifies the
+ * {@code Formatter} class name, defaults to
+ * {@code java.util.logging.SimpleFormatter}.</li>
+ * <li>org.apache.harmony.logging.AsyncHandler.level specifies the level for
+ * this {@code Handler}, defaults to {@code Level.INFO}.</li>
+ * <li>org.apache.harmony.logging.AsyncHandler.overflow specifies the
+ * {@code Overflow} policy by name, defaults to {@code BLOCK}.</li>
+ * </ul>
+ */
+public class AsyncHandler extends Handler {
+
+    /**
+     * The policies for records published while the ring buffer is full.
+     */
+    public enum Overflow {
+        /**
+         * The publishing thread waits until there is room.
+         */
+        BLOCK,
+
+        /**
+         * The record being published is discarded.
+         */
+        DISCARD_NEWEST,
+
+        /**
+         * The oldest record in the ring buffer is discarded to make room.
+         */
+        DISCARD_OLDEST
+    }
+
+    // Access to package visible api in java.util.logging, set by Handler
+    public static LoggingAccess door;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int DEFAULT_FLUSH_SIZE = 8192;
+
+    private static final int DEFAULT_FLUSH_INTERVAL = 200;
+
+    // the output stream this handler writes to
+    private OutputStream os;
+
+    // whether the output stream is closed along with this handler
+    private boolean closeStream;
+
+    private Overflow overflow = Overflow.BLOCK;
+
+    private int flushSize = DEFAULT_FLUSH_SIZE;
+
+    private int flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // signalled when records are published, or a flush or close requested
+    private final Condition notEmpty = lock.newCondition();
+
+    // signalled when the writer takes records out of the ring buffer
+    private final Condition notFull = lock.newCondition();
+
+    // signalled when the writer completes a flush
+    private final Condition flushed = lock.newCondition();
+
+    // The fields below are guarded by lock
+
+    private LogRecord[] ring;
+
+    // the index of the oldest record in the ring buffer
+    private int head;
+
+    // the number of records in the ring buffer
+    private int count;
+
+    private boolean closed;
+
+    // the number of flushes requested, and completed by the writer
+    private long flushRequested;
+
+    private long flushCompleted;
+
+    private long discarded;
+
+    // The fields below are only used by the writer thread
+
+    private Thread writerThread;
+
+    private Writer writer;
+
+    private final StringBuilder batch = new StringBuilder();
+
+    private char[] chars = new char[DEFAULT_FLUSH_SIZE];
+
+    /**
+     * Constructs an {@code AsyncHandler} that writes to {@code System.err},
+     * using {@code LogManager} properties or default values.
+     */
+    public AsyncHandler() {
+        door.initProperties(this, "INFO", null, //$NON-NLS-1$
+                "java.util.logging.SimpleFormatter", null); //$NON-NLS-1$
+        initAsyncProperties();
+        start(System.err, false, readIntProperty("capacity", //$NON-NLS-1$
+                DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Constructs an {@code AsyncHandler} that writes to the given output
+     * stream with the given formatter, using {@code LogManager} properties or
+     * default values for everything else. The stream is closed when the
+     * handler is.
+     *
+     * @param os
+     *            the output stream to write to
+     * @param formatter
+     *            the formatter to format records with
+     * @throws NullPointerException
+     *             if {@code os} or {@code formatter} is {@code null}
+     */
+    public AsyncHandler(OutputStream os, Formatter formatter) {
+        initStream(os, formatter);
+        start(os, true, readIntProperty("capacity", DEFAULT_CAPACITY)); //$NON-NLS-1$
+    }
+
+    /**
+     * Constructs an {@code AsyncHandler} that writes to the given output
+     * stream with the given formatter, keeping up to {@code capacity} records
+     * and following the given overflow policy. {@code LogManager} properties
+     * or default values are used for everything else. The stream is closed
+     * when the handler is.
+     *
+     * @param os
+     *            the output stream to write to
+     * @param formatter
+     *            the formatter to format records with
+     * @param capacity
+     *            the number of records the ring buffer holds, greater than
+     *            zero
+     * @param overflow
+     *            the policy for records published while the ring buffer is
+     *            full
+     * @throws IllegalArgumentException
+     *             if {@code capacity <= 0}
+     * @throws NullPointerException
+     *             if {@code os}, {@code formatter} or {@code overflow} is
+     *             {@code null}
+     */
+    public AsyncHandler(OutputStream os, Formatter formatter, int capacity,
+            Overflow overflow) {
+        if (capacity <= 0) {
+            // logging.11=Size must be positive.
+            throw new IllegalArgumentException(Messages.getString("logging.11")); //$NON-NLS-1$
+        }
+        if (overflow == null) {
+            throw new NullPointerException();
+        }
+        initStream(os, formatter);
+        this.overflow = overflow;
+        start(os, true, capacity);
+    }
+
+    private void initStream(OutputStream os, Formatter formatter) {
+        if (os == null) {
+            // logging.2=The OutputStream parameter is null
+            throw new NullPointerException(Messages.getString("logging.2")); //$NON-NLS-1$
+        }
+        if (formatter == null) {
+            // logging.3=The Formatter parameter is null.
+            throw new NullPointerException(Messages.getString("logging.3")); //$NON-NLS-1$
+        }
+        door.initProperties(this, "INFO", null, //$NON-NLS-1$
+                "java.util.logging.SimpleFormatter", null); //$NON-NLS-1$
+        door.internalSetFormatter(this, formatter);
+        initAsyncProperties();
+    }
+
+    private void initAsyncProperties() {
+        flushSize = readIntProperty("flushSize", DEFAULT_FLUSH_SIZE); //$NON-NLS-1$
+        flushInterval = readIntProperty("flushInterval", //$NON-NLS-1$
+                DEFAULT_FLUSH_INTERVAL);
+        String overflowName = LogManager.getLogManager().getProperty(
+                getClass().getName() + ".overflow"); //$NON-NLS-1$
+        if (null != overflowName) {
+            try {
+                overflow = Overflow.valueOf(overflowName.trim());
+            } catch (Exception e) {
+                door.printInvalidPropMessage(this, "overflow", overflowName, e); //$NON-NLS-1$
+            }
+        }
+    }
+
+    // read a positive int property, or use the default value
+    private int readIntProperty(String key, int defaultValue) {
+        String value = LogManager.getLogManager().getProperty(
+                getClass().getName() + "." + key); //$NON-NLS-1$
+        if (null != value) {
+            try {
+                int result = Integer.parseInt(value.trim());
+                if (result > 0) {
+                    return result;
+                }
+            } catch (Exception e) {
+                door.printInvalidPropMessage(this, key, value, e);
+            }
+        }
+        return defaultValue;
+    }
+
+    private void start(OutputStream os, boolean closeStream, int capacity) {
+        this.os = os;
+        this.closeStream = closeStream;
+        ring = new LogRecord[capacity];
+        writerThread = AccessController
+                .doPrivileged(new PrivilegedAction<Thread>() {
+                    public Thread run() {
+                        Thread thread = new Thread("AsyncHandler writer") { //$NON-NLS-1$
+                            @Override
+                            public void run() {
+                                writeRecords();
+                            }
+                        };
+                        thread.setDaemon(true);
+                        thread.start();
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Puts a given {@code LogRecord} into the ring buffer, if it is loggable
+     * and this handler is not closed. If the ring buffer is full, the overflow
+     * policy decides whether to wait for room, or which record to discard.
+     *
+     * @param record
+     *            the log record to publish
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+        // Pin the source to the calling thread
+        door.captureSource(record);
+        lock.lock();
+        try {
+            if (count == ring.length && !closed) {
+                // The writer cannot wait for itself, should a formatter log
+                if (overflow == Overflow.BLOCK
+                        && Thread.currentThread() != writerThread) {
+                    while (count == ring.length && !closed) {
+                        notFull.awaitUninterruptibly();
+                    }
+                } else if (overflow == Overflow.DISCARD_OLDEST) {
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    count--;
+                    discarded++;
+                } else {
+                    discarded++;
+                    return;
+                }
+            }
+            if (closed) {
+                return;
+            }
+            ring[(head + count) % ring.length] = record;
+            count++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes out all records published before this call, and flushes the
+     * output stream. Returns once the writer thread is done.
+     */
+    @Override
+    public void flush() {
+        if (Thread.currentThread() == writerThread) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            long request = ++flushRequested;
+            notEmpty.signal();
+            while (flushCompleted < request) {
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes out all records published before this call, then the tail
+     * string of the formatter, and closes the output stream unless it is
+     * {@code System.err}. Records published afterwards are ignored.
+     *
+     * @throws SecurityException
+     *             if security manager exists and it determines that caller does
+     *             not have the required permissions to control this handler.
+     */
+    @Override
+    public void close() {
+        LogManager.getLogManager().checkAccess();
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (Thread.currentThread() != writerThread) {
+            boolean interrupted = false;
+            while (writerThread.isAlive()) {
+                try {
+                    writerThread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        setLevel(Level.OFF);
+    }
+
+    /**
+     * Returns the number of records discarded so far because the ring buffer
+     * was full.
+     */
+    public long getDiscardedCount() {
+        lock.lock();
+        try {
+            return discarded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The body of the writer thread
+    private void writeRecords() {
+        LogRecord[] taken = new LogRecord[ring.length];
+        // when the batch is due to be written, if it is not empty
+        long deadline = 0;
+        long completed = 0;
+        try {
+            while (true) {
+                int n;
+                long request;
+                boolean done;
+                lock.lock();
+                try {
+                    while (count == 0 && !closed
+                            && flushRequested == completed) {
+                        if (batch.length() == 0) {
+                            notEmpty.awaitUninterruptibly();
+                        } else {
+                            long wait = deadline - System.currentTimeMillis();
+                            if (wait <= 0) {
+                                break;
+                            }
+                            try {
+                                notEmpty.await(wait, TimeUnit.MILLISECONDS);
+                            } catch (InterruptedException e) {
+                                // Write the batch out early
+                                break;
+                            }
+                        }
+                    }
+                    n = count;
+                    for (int i = 0; i < n; i++) {
+                        taken[i] = ring[head];
+                        ring[head] = null;
+                        head = (head + 1) % ring.length;
+                    }
+                    count = 0;
+                    if (n > 0) {
+                        notFull.signalAll();
+                    }
+                    request = flushRequested;
+                    done = closed;
+                } finally {
+                    lock.unlock();
+                }
+
+                for (int i = 0; i < n; i++) {
+                    if (batch.length() == 0) {
+                        deadline = System.currentTimeMillis() + flushInterval;
+                    }
+                    format(taken[i]);
+                    taken[i] = null;
+                    if (batch.length() >= flushSize) {
+                        write();
+                    }
+                }
+                if (batch.length() > 0
+                        && (request != completed || done || System
+                                .currentTimeMillis() >= deadline)) {
+                    write();
+                }
+                if (done) {
+                    writeTail();
+                    return;
+                }
+                if (request != completed) {
+                    completed = request;
+                    lock.lock();
+                    try {
+                        flushCompleted = completed;
+                        flushed.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        } finally {
+            // Release anyone waiting on the writer, even if it failed
+            lock.lock();
+            try {
+                closed = true;
+                flushCompleted = flushRequested;
+                flushed.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // format a record at the end of the batch
+    private void format(LogRecord record) {
+        try {
+            batch.append(getFormatter().format(record));
+        } catch (Exception e) {
+            // logging.17=Exception occurred while formatting the log record.
+            reportError(Messages.getString("logging.17"), //$NON-NLS-1$
+                    e, ErrorManager.FORMAT_FAILURE);
+        }
+    }
+
+    // write the batch out, and flush the output stream
+    private void write() {
+        try {
+            initializeWriter();
+            int length = batch.length();
+            if (chars.length < length) {
+                chars = new char[length];
+            }
+            batch.getChars(0, length, chars, 0);
+            writer.write(chars, 0, length);
+            writer.flush();
+        } catch (Exception e) {
+            // logging.14=Exception occurred when writing to the output stream.
+            reportError(Messages.getString("logging.14"), //$NON-NLS-1$
+                    e, ErrorManager.WRITE_FAILURE);
+        }
+        batch.setLength(0);
+    }
+
+    // write the tail string, and close the output stream if it is ours
+    private void writeTail() {
+        try {
+            initializeWriter();
+            writer.write(getFormatter().getTail(this));
+            writer.flush();
+            if (closeStream) {
+                writer.close();
+            }
+        } catch (Exception e) {
+            // logging.15=Exception occurred when closing the output stream.
+            reportError(Messages.getString("logging.15"), //$NON-NLS-1$
+                    e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    // create the writer and write the head string, on first use
+    private void initializeWriter() throws Exception {
+        if (writer != null) {
+            return;
+        }
+        if (null == getEncoding()) {
+            writer = new OutputStreamWriter(os);
+        } else {
+            try {
+                writer = new OutputStreamWriter(os, getEncoding());
+            } catch (UnsupportedEncodingException e) {
+                // Checked by Handler already
+                writer = new OutputStreamWriter(os);
+            }
+        }
+        writer.write(getFormatter().getHead(this));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.logging;
+
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * This interface provides access to package visible api in java.util.logging
+ */
+public interface LoggingAccess {
+
+    /**
+     * Access to LogRecord.captureSource()
+     */
+    public void captureSource(LogRecord record);
+
+    /**
+     * Access to Handler.initProperties()
+     */
+    public void initProperties(Handler handler, String defaultLevel,
+            String defaultFilter, String defaultFormatter,
+            String defaultEncoding);
+
+    /**
+     * Access to Handler.internalSetFormatter()
+     */
+    public void internalSetFormatter(Handler handler, Formatter formatter);
+
+    /**
+     * Access to Handler.printInvalidPropMessage()
+     */
+    public void printInvalidPropMessage(Handler handler, String key,
+            String value, Exception e);
+}
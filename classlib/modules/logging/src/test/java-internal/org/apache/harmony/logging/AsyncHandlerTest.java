@@ -0,0 +1,221 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the internal class org.apache.harmony.logging.AsyncHandler.
+ */
+public class AsyncHandlerTest extends TestCase {
+
+    private MockOutputStream out;
+
+    private MockFormatter formatter;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        out = new MockOutputStream();
+        formatter = new MockFormatter();
+    }
+
+    public void testConstructor_Illegal() {
+        try {
+            new AsyncHandler(null, formatter);
+            fail("Should throw NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            new AsyncHandler(out, null);
+            fail("Should throw NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            new AsyncHandler(out, formatter, 1, null);
+            fail("Should throw NullPointerException");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        try {
+            new AsyncHandler(out, formatter, 0, AsyncHandler.Overflow.BLOCK);
+            fail("Should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testPublish_Flush_Close() {
+        AsyncHandler handler = new AsyncHandler(out, formatter);
+        assertEquals(Level.INFO, handler.getLevel());
+        assertSame(formatter, handler.getFormatter());
+
+        StringBuilder expected = new StringBuilder("head");
+        for (int i = 0; i < 100; i++) {
+            handler.publish(new LogRecord(Level.INFO, "message" + i));
+            expected.append("message" + i + "\n");
+        }
+        handler.publish(new LogRecord(Level.FINE, "not loggable"));
+        handler.flush();
+        assertEquals(expected.toString(), out.toString());
+        assertFalse(out.closed);
+
+        handler.close();
+        expected.append("tail");
+        assertEquals(expected.toString(), out.toString());
+        assertTrue(out.closed);
+        assertEquals(Level.OFF, handler.getLevel());
+
+        // Ignored once closed
+        handler.publish(new LogRecord(Level.SEVERE, "closed"));
+        handler.flush();
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    public void testPublish_FlushInterval() throws Exception {
+        AsyncHandler handler = new AsyncHandler(out, formatter);
+        handler.publish(new LogRecord(Level.INFO, "message"));
+        for (int i = 0; i < 100 && out.size() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals("headmessage\n", out.toString());
+        handler.close();
+    }
+
+    public void testPublish_Source() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        AsyncHandler handler = new AsyncHandler(out, new Formatter() {
+            @Override
+            public String format(LogRecord r) {
+                return r.getSourceClassName() + "." + r.getSourceMethodName();
+            }
+        });
+        logger.addHandler(handler);
+        logger.info("message");
+        handler.close();
+        assertEquals(getClass().getName() + ".testPublish_Source", out
+                .toString());
+    }
+
+    public void testPublish_DiscardNewest() throws Exception {
+        AsyncHandler handler = new AsyncHandler(out, formatter, 2,
+                AsyncHandler.Overflow.DISCARD_NEWEST);
+        fill(handler);
+        handler.publish(new LogRecord(Level.INFO, "3"));
+        assertEquals(1, handler.getDiscardedCount());
+        formatter.release.countDown();
+        handler.close();
+        assertEquals("head0\n1\n2\ntail", out.toString());
+    }
+
+    public void testPublish_DiscardOldest() throws Exception {
+        AsyncHandler handler = new AsyncHandler(out, formatter, 2,
+                AsyncHandler.Overflow.DISCARD_OLDEST);
+        fill(handler);
+        handler.publish(new LogRecord(Level.INFO, "3"));
+        assertEquals(1, handler.getDiscardedCount());
+        formatter.release.countDown();
+        handler.close();
+        assertEquals("head0\n2\n3\ntail", out.toString());
+    }
+
+    public void testPublish_Block() throws Exception {
+        final AsyncHandler handler = new AsyncHandler(out, formatter, 2,
+                AsyncHandler.Overflow.BLOCK);
+        fill(handler);
+        Thread publisher = new Thread() {
+            @Override
+            public void run() {
+                handler.publish(new LogRecord(Level.INFO, "3"));
+            }
+        };
+        publisher.start();
+        publisher.join(200);
+        assertTrue(publisher.isAlive());
+        formatter.release.countDown();
+        publisher.join();
+        handler.close();
+        assertEquals(0, handler.getDiscardedCount());
+        assertEquals("head0\n1\n2\n3\ntail", out.toString());
+    }
+
+    /*
+     * Publishes "0", which keeps the writer busy until the formatter is
+     * released, then "1" and "2", which fill a ring buffer of two.
+     */
+    private void fill(Handler handler) throws InterruptedException {
+        formatter.release = new CountDownLatch(1);
+        handler.publish(new LogRecord(Level.INFO, "0"));
+        formatter.blocked.await();
+        handler.publish(new LogRecord(Level.INFO, "1"));
+        handler.publish(new LogRecord(Level.INFO, "2"));
+    }
+
+    static class MockFormatter extends Formatter {
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+
+        volatile CountDownLatch release;
+
+        @Override
+        public String format(LogRecord r) {
+            if (release != null && blocked.getCount() > 0) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            }
+            return r.getMessage() + "\n";
+        }
+
+        @Override
+        public String getHead(Handler h) {
+            return "head";
+        }
+
+        @Override
+        public String getTail(Handler h) {
+            return "tail";
+        }
+    }
+
+    static class MockOutputStream extends ByteArrayOutputStream {
+
+        volatile boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -122,6 +122,9 @@ public class ObjectInputStream extends InputStream implements ObjectInput,
 
     private ObjectAccessor accessor = AccessorFactory.getObjectAccessor();
 
+    // Scratch space for the primitive field values of an object
+    private byte[] primitiveBuffer = new byte[64];
+
     // Internal type used to keep track of validators & corresponding priority
     static class InputValidationDesc {
         ObjectInputValidation validator;
@@ -1208,7 +1211,21 @@ public class ObjectInputStream extends InputStream implements ObjectInput,
             throw new ClassNotFoundException(classDesc.getName());
         }
 
-        for (ObjectStreamField fieldDesc : fields) {
+        PrimitiveFieldTable primitives = classDesc
+                .primitiveFieldsForReading(accessor);
+        if (primitives.size() > 0) {
+            int size = primitives.dataSize();
+            if (primitiveBuffer.length < size) {
+                primitiveBuffer = new byte[size];
+            }
+            input.readFully(primitiveBuffer, 0, size);
+            if (obj != null) {
+                primitives.setValues(accessor, obj, primitiveBuffer);
+            }
+        }
+
+        for (int i = primitives.size(); i < fields.length; i++) {
+            ObjectStreamField fieldDesc = fields[i];
 
             // get associated Field 
             long fieldID = fieldDesc.getFieldID(accessor, declaringClass);
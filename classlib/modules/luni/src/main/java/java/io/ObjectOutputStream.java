@@ -115,6 +115,9 @@ public class ObjectOutputStream extends OutputStream implements ObjectOutput,
 
     private ObjectAccessor accessor = AccessorFactory.getObjectAccessor();
 
+    // Scratch space for the primitive field values of an object
+    private byte[] primitiveBuffer = new byte[64];
+
     /*
      * Descriptor for java.lang.reflect.Proxy
      */
@@ -1045,7 +1048,22 @@ public class ObjectOutputStream extends OutputStream implements ObjectOutput,
             throws IOException {
         ObjectStreamField[] fields = classDesc.fields();
         Class<?> declaringClass = classDesc.forClass();
-        for(ObjectStreamField fieldDesc : fields) {
+        PrimitiveFieldTable primitives = classDesc
+                .primitiveFieldsForWriting(accessor);
+        if (primitives.size() > 0) {
+            int size = primitives.dataSize();
+            if (primitiveBuffer.length < size) {
+                primitiveBuffer = new byte[size];
+            }
+            try {
+                primitives.getValues(accessor, obj, primitiveBuffer);
+            } catch (NoSuchFieldError nsf) {
+                throw new InvalidClassException(classDesc.getName());
+            }
+            output.write(primitiveBuffer, 0, size);
+        }
+        for (int i = primitives.size(); i < fields.length; i++) {
+            ObjectStreamField fieldDesc = fields[i];
             try {
                 
                 // get associated Field 
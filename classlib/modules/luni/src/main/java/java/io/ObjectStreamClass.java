@@ -17,6 +17,9 @@
 
 package java.io;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -30,11 +33,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.harmony.luni.internal.nls.Messages;
 import org.apache.harmony.luni.util.PriviAction;
-import org.apache.harmony.luni.util.ThreadLocalCache;
+import org.apache.harmony.misc.accessors.ObjectAccessor;
 
 /**
  * Represents a descriptor for identifying a class during serialization and
@@ -71,6 +74,11 @@ public class ObjectStreamClass implements Serializable {
 
     private static final Class<Void> VOID_CLASS;
 
+    // Descriptors of local classes shared by all threads
+    private static final ConcurrentHashMap<ClassKey, SoftReference<ObjectStreamClass>> descriptorCache = new ConcurrentHashMap<ClassKey, SoftReference<ObjectStreamClass>>();
+
+    private static final ReferenceQueue<Class<?>> staleClassKeys = new ReferenceQueue<Class<?>>();
+
     static final Class<?>[] UNSHARED_PARAM_TYPES;
 
     private static native void oneTimeInitialization();
@@ -150,7 +158,7 @@ public class ObjectStreamClass implements Serializable {
      * 
      * @see #resolveProperties()
      */
-    private transient boolean arePropertiesResolved;
+    private transient volatile boolean arePropertiesResolved;
     
     /**
      * Cached class properties
@@ -197,6 +205,12 @@ public class ObjectStreamClass implements Serializable {
     // MethodID for deserialization constructor
     private transient long constructor = CONSTRUCTOR_IS_NOT_RESOLVED;
 
+    // Primitive fields of fields(), resolved on first use
+    private transient volatile PrimitiveFieldTable writeTable;
+
+    // Primitive fields of loadFields, resolved on first use
+    private transient volatile PrimitiveFieldTable readTable;
+
     void setConstructor(long newConstructor) {
         constructor = newConstructor;
     }
@@ -988,16 +1002,25 @@ public class ObjectStreamClass implements Serializable {
      * @return the corresponding descriptor
      */
     static ObjectStreamClass lookupStreamClass(Class<?> cl) {
-
-        WeakHashMap<Class<?>,ObjectStreamClass> tlc = OSCThreadLocalCache.oscWeakHashMap.get();
-
-        ObjectStreamClass cachedValue = tlc.get(cl);
+        purgeDescriptorCache();
+        SoftReference<ObjectStreamClass> ref = descriptorCache.get(new ClassKey(cl, null));
+        ObjectStreamClass cachedValue = ref == null ? null : ref.get();
         if (cachedValue == null) {
             cachedValue = createClassDesc(cl);
-            tlc.put(cl, cachedValue);
+            descriptorCache.put(new ClassKey(cl, staleClassKeys),
+                    new SoftReference<ObjectStreamClass>(cachedValue));
         }
         return cachedValue;
+    }
 
+    /*
+     * Drops the cache entries of classes which have been unloaded.
+     */
+    private static void purgeDescriptorCache() {
+        Reference<? extends Class<?>> key;
+        while ((key = staleClassKeys.poll()) != null) {
+            descriptorCache.remove(key);
+        }
     }
 
     /**
@@ -1121,6 +1144,7 @@ public class ObjectStreamClass implements Serializable {
      */
     void setFields(ObjectStreamField[] f) {
         fields = f;
+        writeTable = null;
     }
 
     /**
@@ -1133,6 +1157,35 @@ public class ObjectStreamClass implements Serializable {
      */
     void setLoadFields(ObjectStreamField[] f) {
         loadFields = f;
+        readTable = null;
+    }
+
+    /**
+     * Returns the table of the leading primitive fields of {@link #fields()},
+     * used to write their values in one block.
+     */
+    PrimitiveFieldTable primitiveFieldsForWriting(ObjectAccessor accessor) {
+        PrimitiveFieldTable table = writeTable;
+        if (table == null) {
+            table = PrimitiveFieldTable.build(fields(), accessor, forClass());
+            writeTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * Returns the table of the leading primitive fields of
+     * {@link #getLoadFields()}, used to read their values in one block.
+     */
+    PrimitiveFieldTable primitiveFieldsForReading(ObjectAccessor accessor) {
+        PrimitiveFieldTable table = readTable;
+        if (table == null) {
+            ObjectStreamField[] fields = loadFields;
+            table = fields == null ? PrimitiveFieldTable.EMPTY
+                    : PrimitiveFieldTable.build(fields, accessor, forClass());
+            readTable = table;
+        }
+        return table;
     }
 
     /**
@@ -1210,15 +1263,36 @@ public class ObjectStreamClass implements Serializable {
                 + getSerialVersionUID() + "L;"; //$NON-NLS-1$
     }
 
-    static class OSCThreadLocalCache extends ThreadLocalCache {
+    /*
+     * Weak key of the descriptor cache. Keys are compared by the identity of
+     * the class they refer to, so that a class and the class loader which
+     * defined it can be unloaded while their descriptor is cached.
+     */
+    private static final class ClassKey extends WeakReference<Class<?>> {
 
-        // thread-local cache for ObjectStreamClass.lookup
-        public static ThreadLocalCache<WeakHashMap<Class<?>,ObjectStreamClass>> oscWeakHashMap = new ThreadLocalCache<WeakHashMap<Class<?>,ObjectStreamClass>>() {
-            protected WeakHashMap<Class<?>,ObjectStreamClass> initialValue() {
-                return new WeakHashMap<Class<?>,ObjectStreamClass>();
-            }
-        };
+        private final int hash;
 
+        ClassKey(Class<?> cl, ReferenceQueue<Class<?>> queue) {
+            super(cl, queue);
+            hash = System.identityHashCode(cl);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof ClassKey)) {
+                return false;
+            }
+            Class<?> cl = get();
+            return cl != null && cl == ((ClassKey) obj).get();
+        }
     }
 
 }
@@ -0,0 +1,240 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.io;
+
+import org.apache.harmony.misc.accessors.ObjectAccessor;
+
+/**
+ * The resolved field IDs and type codes of the leading primitive fields of a
+ * class descriptor. It lets the object streams copy all primitive field
+ * values of an instance to or from one byte array, which is then written or
+ * read with a single call, instead of going through the stream once per field.
+ * <p>
+ * Primitive values are laid out in big-endian order, exactly as
+ * {@link DataOutput} would write them.
+ */
+final class PrimitiveFieldTable {
+
+    static final PrimitiveFieldTable EMPTY = new PrimitiveFieldTable(
+            new long[0], new char[0], 0);
+
+    // IDs of the fields, or FIELD_IS_ABSENT
+    private final long[] fieldIDs;
+
+    private final char[] typeCodes;
+
+    // number of bytes the primitive values take in the stream
+    private final int dataSize;
+
+    private PrimitiveFieldTable(long[] fieldIDs, char[] typeCodes, int dataSize) {
+        this.fieldIDs = fieldIDs;
+        this.typeCodes = typeCodes;
+        this.dataSize = dataSize;
+    }
+
+    /**
+     * Builds the table for the primitive fields at the start of
+     * {@code fields}, stopping at the first non-primitive field.
+     *
+     * @param fields
+     *            the sorted field descriptors of a class descriptor
+     * @param accessor
+     *            the accessor used to resolve field IDs
+     * @param declaringClass
+     *            the class declaring the fields, or {@code null} if it could
+     *            not be resolved
+     * @return the table
+     */
+    static PrimitiveFieldTable build(ObjectStreamField[] fields,
+            ObjectAccessor accessor, Class<?> declaringClass) {
+        int count = 0;
+        while (count < fields.length && fields[count].isPrimitive()) {
+            count++;
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        long[] fieldIDs = new long[count];
+        char[] typeCodes = new char[count];
+        int dataSize = 0;
+        for (int i = 0; i < count; i++) {
+            ObjectStreamField field = fields[i];
+            fieldIDs[i] = declaringClass == null ? ObjectStreamField.FIELD_IS_ABSENT
+                    : field.getFieldID(accessor, declaringClass);
+            typeCodes[i] = field.getTypeCode();
+            dataSize += sizeOf(typeCodes[i]);
+        }
+        return new PrimitiveFieldTable(fieldIDs, typeCodes, dataSize);
+    }
+
+    private static int sizeOf(char typeCode) {
+        switch (typeCode) {
+            case 'B':
+            case 'Z':
+                return 1;
+            case 'C':
+            case 'S':
+                return 2;
+            case 'I':
+            case 'F':
+                return 4;
+            default:
+                return 8;
+        }
+    }
+
+    /**
+     * Answers the number of fields in this table.
+     */
+    int size() {
+        return fieldIDs.length;
+    }
+
+    /**
+     * Answers the number of bytes the values of the fields take.
+     */
+    int dataSize() {
+        return dataSize;
+    }
+
+    /**
+     * Copies the field values of {@code obj} into {@code buffer}.
+     *
+     * @throws NoSuchFieldError
+     *             if a field of the table is absent from the class
+     */
+    void getValues(ObjectAccessor accessor, Object obj, byte[] buffer) {
+        int pos = 0;
+        for (int i = 0; i < fieldIDs.length; i++) {
+            long fieldID = fieldIDs[i];
+            if (fieldID == ObjectStreamField.FIELD_IS_ABSENT) {
+                throw new NoSuchFieldError();
+            }
+            switch (typeCodes[i]) {
+                case 'B':
+                    buffer[pos++] = accessor.getByte(obj, fieldID);
+                    break;
+                case 'Z':
+                    buffer[pos++] = (byte) (accessor.getBoolean(obj, fieldID) ? 1 : 0);
+                    break;
+                case 'C':
+                    pos = putShort(buffer, pos, accessor.getChar(obj, fieldID));
+                    break;
+                case 'S':
+                    pos = putShort(buffer, pos, accessor.getShort(obj, fieldID));
+                    break;
+                case 'I':
+                    pos = putInt(buffer, pos, accessor.getInt(obj, fieldID));
+                    break;
+                case 'F':
+                    pos = putInt(buffer, pos, Float.floatToIntBits(accessor
+                            .getFloat(obj, fieldID)));
+                    break;
+                case 'J':
+                    pos = putLong(buffer, pos, accessor.getLong(obj, fieldID));
+                    break;
+                case 'D':
+                    pos = putLong(buffer, pos, Double
+                            .doubleToLongBits(accessor.getDouble(obj, fieldID)));
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Assigns the values in {@code buffer} to the fields of {@code obj},
+     * skipping the fields which are absent from the local class.
+     */
+    void setValues(ObjectAccessor accessor, Object obj, byte[] buffer) {
+        int pos = 0;
+        for (int i = 0; i < fieldIDs.length; i++) {
+            char typeCode = typeCodes[i];
+            long fieldID = fieldIDs[i];
+            if (fieldID == ObjectStreamField.FIELD_IS_ABSENT) {
+                pos += sizeOf(typeCode);
+                continue;
+            }
+            try {
+                switch (typeCode) {
+                    case 'B':
+                        accessor.setByte(obj, fieldID, buffer[pos]);
+                        break;
+                    case 'Z':
+                        accessor.setBoolean(obj, fieldID, buffer[pos] != 0);
+                        break;
+                    case 'C':
+                        accessor.setChar(obj, fieldID, (char) getShort(buffer, pos));
+                        break;
+                    case 'S':
+                        accessor.setShort(obj, fieldID, getShort(buffer, pos));
+                        break;
+                    case 'I':
+                        accessor.setInt(obj, fieldID, getInt(buffer, pos));
+                        break;
+                    case 'F':
+                        accessor.setFloat(obj, fieldID, Float
+                                .intBitsToFloat(getInt(buffer, pos)));
+                        break;
+                    case 'J':
+                        accessor.setLong(obj, fieldID, getLong(buffer, pos));
+                        break;
+                    case 'D':
+                        accessor.setDouble(obj, fieldID, Double
+                                .longBitsToDouble(getLong(buffer, pos)));
+                        break;
+                }
+            } catch (NoSuchFieldError err) {
+                // Ignored, as for a field which is absent
+            }
+            pos += sizeOf(typeCode);
+        }
+    }
+
+    private static int putShort(byte[] buffer, int pos, int value) {
+        buffer[pos] = (byte) (value >> 8);
+        buffer[pos + 1] = (byte) value;
+        return pos + 2;
+    }
+
+    private static int putInt(byte[] buffer, int pos, int value) {
+        buffer[pos] = (byte) (value >> 24);
+        buffer[pos + 1] = (byte) (value >> 16);
+        buffer[pos + 2] = (byte) (value >> 8);
+        buffer[pos + 3] = (byte) value;
+        return pos + 4;
+    }
+
+    private static int putLong(byte[] buffer, int pos, long value) {
+        putInt(buffer, pos, (int) (value >> 32));
+        return putInt(buffer, pos + 4, (int) value);
+    }
+
+    private static short getShort(byte[] buffer, int pos) {
+        return (short) ((buffer[pos] << 8) | (buffer[pos + 1] & 0xff));
+    }
+
+    private static int getInt(byte[] buffer, int pos) {
+        return (buffer[pos] << 24) | ((buffer[pos + 1] & 0xff) << 16)
+                | ((buffer[pos + 2] & 0xff) << 8) | (buffer[pos + 3] & 0xff);
+    }
+
+    private static long getLong(byte[] buffer, int pos) {
+        return ((long) getInt(buffer, pos) << 32)
+                | (getInt(buffer, pos + 4) & 0xffffffffL);
+    }
+}
@@ -35,6 +35,7 @@ import java.util.regex.PatternSyntaxException;
 
 import org.apache.harmony.kernel.vm.VM;
 import org.apache.harmony.luni.util.PriviAction;
+import org.apache.harmony.luni.util.RegexUtil;
 
 import com.ibm.icu.lang.UCharacter;
 
@@ -1742,7 +1743,7 @@ public final class String implements Serializable, Comparable<String>,
      * @since 1.4
      */
     public boolean matches(String expr) {
-        return Pattern.matches(expr, this);
+        return RegexUtil.matches(this, expr);
     }
 
     /**
@@ -1761,7 +1762,7 @@ public final class String implements Serializable, Comparable<String>,
      * @since 1.4
      */
     public String replaceAll(String expr, String substitute) {
-        return Pattern.compile(expr).matcher(this).replaceAll(substitute);
+        return RegexUtil.replaceAll(this, expr, substitute);
     }
 
     /**
@@ -1782,7 +1783,7 @@ public final class String implements Serializable, Comparable<String>,
      * @since 1.4
      */
     public String replaceFirst(String expr, String substitute) {
-        return Pattern.compile(expr).matcher(this).replaceFirst(substitute);
+        return RegexUtil.replaceFirst(this, expr, substitute);
     }
 
     /**
@@ -1801,7 +1802,7 @@ public final class String implements Serializable, Comparable<String>,
      * @since 1.4
      */
     public String[] split(String expr) {
-        return Pattern.compile(expr).split(this);
+        return RegexUtil.split(this, expr, 0);
     }
 
     /**
@@ -1824,7 +1825,7 @@ public final class String implements Serializable, Comparable<String>,
      * @since 1.4
      */
     public String[] split(String expr, int max) {
-        return Pattern.compile(expr).split(this, max);
+        return RegexUtil.split(this, expr, max);
     }
 
     /**
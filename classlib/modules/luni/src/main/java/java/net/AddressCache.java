@@ -0,0 +1,317 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.net;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.harmony.luni.util.PriviAction;
+
+/**
+ * This class caches the results of host name lookups, both successful and
+ * failed, for {@link InetAddress}.
+ * <p>
+ * Entries are kept in a bounded concurrent hash map, so a lookup of a cached
+ * name takes no global lock. Each entry records when it was resolved and is
+ * checked against the current value of <code>networkaddress.cache.ttl</code>
+ * or <code>networkaddress.cache.negative.ttl</code> when it is read. Threads
+ * which miss the cache for the same host at the same time share a single
+ * native resolve. A positive entry which is close to expiry is refreshed in
+ * the background while callers keep using the cached address, and a failed
+ * refresh does not replace it before its ttl runs out.
+ */
+class AddressCache {
+
+    // maximum number of entries in the cache
+    private static final int MAX_ENTRIES = 512;
+
+    // default lifetime of a failed lookup, in seconds
+    private static final int DEFAULT_NEGATIVE_TTL = 10;
+
+    // entries are refreshed during the last 1/REFRESH_FRACTION of their ttl
+    private static final int REFRESH_FRACTION = 10;
+
+    // seconds an idle refresh thread waits for more work
+    private static final long REFRESH_KEEP_ALIVE = 60;
+
+    private static final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+    private static final ConcurrentHashMap<String, Resolution> pending = new ConcurrentHashMap<String, Resolution>();
+
+    /*
+     * The result of resolving a host name. Exactly one of address and
+     * failedMessage is set.
+     */
+    private static final class Entry {
+
+        // we need the time to figure out when the entry is stale
+        final long timeAdded = System.currentTimeMillis();
+
+        final InetAddress address;
+
+        final String failedMessage;
+
+        Entry(InetAddress address, String failedMessage) {
+            this.address = address;
+            this.failedMessage = failedMessage;
+        }
+    }
+
+    /*
+     * A native resolve of a host which other threads looking up the same
+     * host can wait for. It caches its result, and is no longer pending
+     * once done.
+     */
+    private static final class Resolution extends FutureTask<Entry> {
+
+        private final String host;
+
+        Resolution(final String host) {
+            super(new Callable<Entry>() {
+                public Entry call() {
+                    Entry result;
+                    try {
+                        result = new Entry(InetAddress.getHostByNameImpl(host,
+                                InetAddress.preferIPv6Addresses()), null);
+                    } catch (UnknownHostException e) {
+                        result = new Entry(null, e.getMessage());
+                    }
+                    put(host, result);
+                    return result;
+                }
+            });
+            this.host = host;
+        }
+
+        @Override
+        protected void done() {
+            pending.remove(host, this);
+        }
+    }
+
+    /*
+     * Runs the background refreshes, on a single daemon thread which is only
+     * started when there is something to refresh.
+     */
+    private static final class RefreshExecutor {
+
+        static final ThreadPoolExecutor executor;
+
+        static {
+            executor = new ThreadPoolExecutor(1, 1, REFRESH_KEEP_ALIVE,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        public Thread newThread(final Runnable r) {
+                            return AccessController
+                                    .doPrivileged(new PrivilegedAction<Thread>() {
+                                        public Thread run() {
+                                            Thread thread = new Thread(r,
+                                                    "AddressCache refresh"); //$NON-NLS-1$
+                                            thread.setDaemon(true);
+                                            thread.setContextClassLoader(null);
+                                            return thread;
+                                        }
+                                    });
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    private AddressCache() {
+        // no instances
+    }
+
+    /**
+     * Returns the address of the given host, resolving it with the native
+     * name service if there is no usable cached result.
+     *
+     * @param host
+     *            the name of the host to look up.
+     * @return the address of the host.
+     * @throws UnknownHostException
+     *             if the lookup fails or failed recently.
+     */
+    static InetAddress lookup(String host) throws UnknownHostException {
+        int ttl = getTTL("networkaddress.cache.ttl", -1); //$NON-NLS-1$
+        Entry entry = cache.get(host);
+        if (entry != null) {
+            long now = System.currentTimeMillis();
+            if (entry.address != null) {
+                if (ttl < 0) {
+                    return entry.address;
+                }
+                long age = now - entry.timeAdded;
+                long lifetime = ttl * 1000L;
+                if (age < lifetime - lifetime / REFRESH_FRACTION) {
+                    return entry.address;
+                }
+                if (age < lifetime) {
+                    refresh(host);
+                    return entry.address;
+                }
+                cache.remove(host, entry);
+            } else {
+                int negativeTtl = getTTL(
+                        "networkaddress.cache.negative.ttl", DEFAULT_NEGATIVE_TTL); //$NON-NLS-1$
+                if (negativeTtl < 0
+                        || (negativeTtl > 0 && entry.timeAdded + negativeTtl
+                                * 1000L >= now)) {
+                    throw new UnknownHostException(host);
+                }
+                cache.remove(host, entry);
+            }
+        }
+
+        entry = resolve(host);
+        if (entry.address == null) {
+            // use host for message to match RI, save the cause for giggles
+            throw (UnknownHostException) new UnknownHostException(host)
+                    .initCause(new UnknownHostException(entry.failedMessage));
+        }
+        return entry.address;
+    }
+
+    /*
+     * Starts resolving the host on the refresh thread, unless it is already
+     * being resolved.
+     */
+    private static void refresh(String host) {
+        if (pending.containsKey(host)) {
+            return;
+        }
+        Resolution task = new Resolution(host);
+        if (pending.putIfAbsent(host, task) == null) {
+            RefreshExecutor.executor.execute(task);
+        }
+    }
+
+    /*
+     * Resolves the host, sharing the native call with any other thread which
+     * is resolving the same host, and caches the result.
+     */
+    private static Entry resolve(String host) throws UnknownHostException {
+        Resolution task = new Resolution(host);
+        Resolution existing = pending.putIfAbsent(host, task);
+        if (existing == null) {
+            task.run();
+        } else {
+            task = existing;
+        }
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (UnknownHostException) new UnknownHostException(host)
+                    .initCause(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+     * Caches the result of a resolve. Positive results are not cached when
+     * the ttl is 0, and a failure does not replace an address whose ttl has
+     * not run out yet.
+     */
+    private static void put(String host, Entry entry) {
+        int ttl = getTTL("networkaddress.cache.ttl", -1); //$NON-NLS-1$
+        if (entry.address != null && ttl == 0) {
+            return;
+        }
+        if (entry.address == null) {
+            if (getTTL("networkaddress.cache.negative.ttl", //$NON-NLS-1$
+                    DEFAULT_NEGATIVE_TTL) == 0) {
+                return;
+            }
+            Entry current = cache.get(host);
+            if (current != null
+                    && current.address != null
+                    && (ttl < 0 || current.timeAdded + ttl * 1000L > entry.timeAdded)) {
+                return;
+            }
+        }
+        if (cache.size() >= MAX_ENTRIES) {
+            evict();
+        }
+        cache.put(host, entry);
+    }
+
+    /*
+     * Makes room for a new entry by dropping the oldest of a few entries
+     * taken from the front of the map.
+     */
+    private static void evict() {
+        Iterator<java.util.Map.Entry<String, Entry>> iter = cache.entrySet()
+                .iterator();
+        java.util.Map.Entry<String, Entry> oldest = null;
+        for (int i = 0; i < 8 && iter.hasNext(); i++) {
+            java.util.Map.Entry<String, Entry> next = iter.next();
+            if (oldest == null
+                    || next.getValue().timeAdded < oldest.getValue().timeAdded) {
+                oldest = next;
+            }
+        }
+        if (oldest != null) {
+            cache.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    private static int getTTL(String property, int defaultValue) {
+        String ttlValue;
+        if (System.getSecurityManager() == null) {
+            ttlValue = System.getProperty(property);
+        } else {
+            ttlValue = AccessController.doPrivileged(new PriviAction<String>(
+                    property));
+        }
+        if (ttlValue != null) {
+            try {
+                return Integer.decode(ttlValue).intValue();
+            } catch (NumberFormatException e) {
+                // Ignored
+            }
+        }
+        return defaultValue;
+    }
+}
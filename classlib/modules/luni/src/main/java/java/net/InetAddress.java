@@ -24,7 +24,6 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.security.AccessController;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.StringTokenizer;
@@ -34,7 +33,6 @@ import org.apache.harmony.luni.platform.INetworkSystem;
 import org.apache.harmony.luni.platform.Platform;
 import org.apache.harmony.luni.util.Inet6Util;
 import org.apache.harmony.luni.internal.nls.Messages;
-import org.apache.harmony.luni.util.PriviAction;
 
 /**
  * The Internet Protocol (IP) address representation class. This class
@@ -113,10 +111,6 @@ public class InetAddress extends Object implements Serializable {
         this.hostName = hostName;
     }
 
-    CacheElement cacheElement() {
-        return new CacheElement();
-    }
-
     /**
      * Compares this {@code InetAddress} instance against the specified address
      * in {@code obj}. Two addresses are equal if their address byte arrays have
@@ -392,56 +386,9 @@ public class InetAddress extends Object implements Serializable {
         return ((ipaddress[0] & 255) >>> 4) == 0xE;
     }
 
-    static synchronized InetAddress lookupHostByName(String host)
+    static InetAddress lookupHostByName(String host)
             throws UnknownHostException {
-        int ttl = -1;
-
-        String ttlValue = AccessController
-                .doPrivileged(new PriviAction<String>(
-                        "networkaddress.cache.ttl")); //$NON-NLS-1$
-        try {
-            if (ttlValue != null) {
-                ttl = Integer.decode(ttlValue).intValue();
-            }
-        } catch (NumberFormatException e) {
-            // Ignored
-        }
-        CacheElement element = null;
-        if (ttl == 0) {
-            Cache.clear();
-        } else {
-            element = Cache.get(host);
-            if (element != null
-                    && ttl > 0
-                    && element.timeAdded + (ttl * 1000) < System
-                            .currentTimeMillis()) {
-                element = null;
-            }
-        }
-        if (element != null) {
-            return element.inetAddress();
-        }
-
-        // TODO Clean up NegativeCache; there's no need to maintain the failure message
-        
-        // now try the negative cache
-        String failedMessage = NegativeCache.getFailedMessage(host);
-        if (failedMessage != null) {
-            throw new UnknownHostException(host);
-        }
-
-        InetAddress anInetAddress;
-        try {
-            anInetAddress = getHostByNameImpl(host, preferIPv6Addresses());
-        } catch (UnknownHostException e) {
-            // put the entry in the negative cache
-            NegativeCache.put(host, e.getMessage());
-            // use host for message to match RI, save the cause for giggles
-            throw (UnknownHostException)new UnknownHostException(host).initCause(e);
-        }
-
-        Cache.add(anInetAddress);
-        return anInetAddress;
+        return AddressCache.lookup(host);
     }
 
     /**
@@ -534,92 +481,6 @@ public class InetAddress extends Object implements Serializable {
         return (hostName == null ? "" : hostName) + "/" + getHostAddress(); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
-    class CacheElement {
-        final long timeAdded = System.currentTimeMillis();
-
-        CacheElement next;
-
-        CacheElement() {
-            super();
-        }
-
-        String hostName() {
-            return hostName;
-        }
-
-        InetAddress inetAddress() {
-            return InetAddress.this;
-        }
-    }
-
-    static class Cache {
-        private static int maxSize = 5;
-
-        private static int size = 0;
-
-        private static CacheElement head;
-
-        static synchronized void clear() {
-            size = 0;
-            head = null;
-        }
-
-        static synchronized void add(InetAddress value) {
-            CacheElement newElement = value.cacheElement();
-            if (size < maxSize) {
-                size++;
-            } else {
-                deleteTail();
-            }
-            newElement.next = head; // If the head is null, this does no harm.
-            head = newElement;
-        }
-
-        static synchronized CacheElement get(String name) {
-            CacheElement previous = null;
-            CacheElement current = head;
-            boolean notFound = true;
-            while ((null != current)
-                    && (notFound = !(name.equals(current.hostName())))) {
-                previous = current;
-                current = current.next;
-            }
-            if (notFound) {
-                return null;
-            }
-            moveToHead(current, previous);
-            return current;
-        }
-
-        private synchronized static void deleteTail() {
-            if (0 == size) {
-                return;
-            }
-            if (1 == size) {
-                head = null;
-            }
-
-            CacheElement previous = null;
-            CacheElement current = head;
-            while (null != current.next) {
-                previous = current;
-                current = current.next;
-            }
-            previous.next = null;
-        }
-
-        private synchronized static void moveToHead(CacheElement element,
-                CacheElement elementPredecessor) {
-            if (null == elementPredecessor) {
-                head = element;
-            } else {
-                elementPredecessor.next = element.next;
-                element.next = head;
-                head = element;
-            }
-        }
-    }
-
     /**
      * Returns true if the string is a host name, false if it is an IP Address.
      */
@@ -1496,26 +1496,6 @@ public class Arrays {
         return equals((short[]) e1, (short[]) e2);
     }
 
-    private static boolean isSame(double double1, double double2) {
-        // Simple case
-        if (double1 == double2 && 0.0d != double1) {
-            return true;
-        }
-
-        // Deal with NaNs
-        if (Double.isNaN(double1)) {
-            return Double.isNaN(double2);
-        }
-        if (Double.isNaN(double2)) {
-            return false;
-        }
-
-        // Deal with +0.0 and -0.0
-        long d1 = Double.doubleToRawLongBits(double1);
-        long d2 = Double.doubleToRawLongBits(double2);
-        return d1 == d2;
-    }
-
     private static boolean lessThan(double double1, double double2) {
         // A slightly specialized version of
         // Double.compare(double1, double2) < 0.
@@ -1544,26 +1524,6 @@ public class Arrays {
         return d1 < d2;
     }
 
-    private static boolean isSame(float float1, float float2) {
-        // Simple case
-        if (float1 == float2 && 0.0d != float1) {
-            return true;
-        }
-
-        // Deal with NaNs
-        if (Float.isNaN(float1)) {
-            return Float.isNaN(float2);
-        }
-        if (Float.isNaN(float2)) {
-            return false;
-        }
-
-        // Deal with +0.0 and -0.0
-        int f1 = Float.floatToRawIntBits(float1);
-        int f2 = Float.floatToRawIntBits(float2);
-        return f1 == f2;
-    }
-    
     private static boolean lessThan(float float1, float float2) {
         // A slightly specialized version of Float.compare(float1, float2) < 0.
 
@@ -1591,48 +1551,6 @@ public class Arrays {
         return f1 < f2;
     }
 
-    private static int med3(byte[] array, int a, int b, int c) {
-        byte x = array[a], y = array[b], z = array[c];
-        return x < y ? (y < z ? b : (x < z ? c : a)) : (y > z ? b : (x > z ? c
-                : a));
-    }
-
-    private static int med3(char[] array, int a, int b, int c) {
-        char x = array[a], y = array[b], z = array[c];
-        return x < y ? (y < z ? b : (x < z ? c : a)) : (y > z ? b : (x > z ? c
-                : a));
-    }
-
-    private static int med3(double[] array, int a, int b, int c) {
-        double x = array[a], y = array[b], z = array[c];
-        return lessThan(x, y) ? (lessThan(y, z) ? b : (lessThan(x, z) ? c : a))
-                : (lessThan(z, y) ? b : (lessThan(z, x) ? c : a));
-    }
-
-    private static int med3(float[] array, int a, int b, int c) {
-        float x = array[a], y = array[b], z = array[c];
-        return lessThan(x, y) ? (lessThan(y, z) ? b : (lessThan(x, z) ? c : a))
-                : (lessThan(z, y) ? b : (lessThan(z, x) ? c : a));
-    }
-
-    private static int med3(int[] array, int a, int b, int c) {
-        int x = array[a], y = array[b], z = array[c];
-        return x < y ? (y < z ? b : (x < z ? c : a)) : (y > z ? b : (x > z ? c
-                : a));
-    }
-
-    private static int med3(long[] array, int a, int b, int c) {
-        long x = array[a], y = array[b], z = array[c];
-        return x < y ? (y < z ? b : (x < z ? c : a)) : (y > z ? b : (x > z ? c
-                : a));
-    }
-
-    private static int med3(short[] array, int a, int b, int c) {
-        short x = array[a], y = array[b], z = array[c];
-        return x < y ? (y < z ? b : (x < z ? c : a)) : (y > z ? b : (x > z ? c
-                : a));
-    }
-
     /**
      * Sorts the specified array in ascending numerical order.
      * 
@@ -1640,7 +1558,7 @@ public class Arrays {
      *            the {@code byte} array to be sorted.
      */
     public static void sort(byte[] array) {
-        sort(0, array.length, array);
+        DualPivotQuicksort.sort(array, 0, array.length);
     }
 
     /**
@@ -1662,7 +1580,7 @@ public class Arrays {
             throw new NullPointerException();
         }
         checkBounds(array.length, start, end);
-        sort(start, end, array);
+        DualPivotQuicksort.sort(array, start, end);
     }
 
     private static void checkBounds(int arrLength, int start, int end) {
@@ -1681,84 +1599,6 @@ public class Arrays {
         }
     }
 
-    private static void sort(int start, int end, byte[] array) {
-        byte temp;
-        int length = end - start;
-        if (length < 7) {
-            for (int i = start + 1; i < end; i++) {
-                for (int j = i; j > start && array[j - 1] > array[j]; j--) {
-                    temp = array[j];
-                    array[j] = array[j - 1];
-                    array[j - 1] = temp;
-                }
-            }
-            return;
-        }
-        int middle = (start + end) / 2;
-        if (length > 7) {
-            int bottom = start;
-            int top = end - 1;
-            if (length > 40) {
-                length /= 8;
-                bottom = med3(array, bottom, bottom + length, bottom
-                        + (2 * length));
-                middle = med3(array, middle - length, middle, middle + length);
-                top = med3(array, top - (2 * length), top - length, top);
-            }
-            middle = med3(array, bottom, middle, top);
-        }
-        byte partionValue = array[middle];
-        int a, b, c, d;
-        a = b = start;
-        c = d = end - 1;
-        while (true) {
-            while (b <= c && array[b] <= partionValue) {
-                if (array[b] == partionValue) {
-                    temp = array[a];
-                    array[a++] = array[b];
-                    array[b] = temp;
-                }
-                b++;
-            }
-            while (c >= b && array[c] >= partionValue) {
-                if (array[c] == partionValue) {
-                    temp = array[c];
-                    array[c] = array[d];
-                    array[d--] = temp;
-                }
-                c--;
-            }
-            if (b > c) {
-                break;
-            }
-            temp = array[b];
-            array[b++] = array[c];
-            array[c--] = temp;
-        }
-        length = a - start < b - a ? a - start : b - a;
-        int l = start;
-        int h = b - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        length = d - c < end - 1 - d ? d - c : end - 1 - d;
-        l = b;
-        h = end - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        if ((length = b - a) > 0) {
-            sort(start, start + length, array);
-        }
-        if ((length = d - c) > 0) {
-            sort(end - length, end, array);
-        }
-    }
-
     /**
      * Sorts the specified array in ascending numerical order.
      * 
@@ -1766,7 +1606,7 @@ public class Arrays {
      *            the {@code char} array to be sorted.
      */
     public static void sort(char[] array) {
-        sort(0, array.length, array);
+        DualPivotQuicksort.sort(array, 0, array.length);
     }
 
     /**
@@ -1788,85 +1628,7 @@ public class Arrays {
             throw new NullPointerException();
         }
         checkBounds(array.length, start, end);
-        sort(start, end, array);
-    }
-
-    private static void sort(int start, int end, char[] array) {
-        char temp;
-        int length = end - start;
-        if (length < 7) {
-            for (int i = start + 1; i < end; i++) {
-                for (int j = i; j > start && array[j - 1] > array[j]; j--) {
-                    temp = array[j];
-                    array[j] = array[j - 1];
-                    array[j - 1] = temp;
-                }
-            }
-            return;
-        }
-        int middle = (start + end) / 2;
-        if (length > 7) {
-            int bottom = start;
-            int top = end - 1;
-            if (length > 40) {
-                length /= 8;
-                bottom = med3(array, bottom, bottom + length, bottom
-                        + (2 * length));
-                middle = med3(array, middle - length, middle, middle + length);
-                top = med3(array, top - (2 * length), top - length, top);
-            }
-            middle = med3(array, bottom, middle, top);
-        }
-        char partionValue = array[middle];
-        int a, b, c, d;
-        a = b = start;
-        c = d = end - 1;
-        while (true) {
-            while (b <= c && array[b] <= partionValue) {
-                if (array[b] == partionValue) {
-                    temp = array[a];
-                    array[a++] = array[b];
-                    array[b] = temp;
-                }
-                b++;
-            }
-            while (c >= b && array[c] >= partionValue) {
-                if (array[c] == partionValue) {
-                    temp = array[c];
-                    array[c] = array[d];
-                    array[d--] = temp;
-                }
-                c--;
-            }
-            if (b > c) {
-                break;
-            }
-            temp = array[b];
-            array[b++] = array[c];
-            array[c--] = temp;
-        }
-        length = a - start < b - a ? a - start : b - a;
-        int l = start;
-        int h = b - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        length = d - c < end - 1 - d ? d - c : end - 1 - d;
-        l = b;
-        h = end - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        if ((length = b - a) > 0) {
-            sort(start, start + length, array);
-        }
-        if ((length = d - c) > 0) {
-            sort(end - length, end, array);
-        }
+        DualPivotQuicksort.sort(array, start, end);
     }
 
     /**
@@ -1877,7 +1639,7 @@ public class Arrays {
      * @see #sort(double[], int, int)
      */
     public static void sort(double[] array) {
-        sort(0, array.length, array);
+        DualPivotQuicksort.sort(array, 0, array.length);
     }
 
     /**
@@ -1901,85 +1663,7 @@ public class Arrays {
             throw new NullPointerException();
         }
         checkBounds(array.length, start, end);
-        sort(start, end, array);
-    }
-
-    private static void sort(int start, int end, double[] array) {
-        double temp;
-        int length = end - start;
-        if (length < 7) {
-            for (int i = start + 1; i < end; i++) {
-                for (int j = i; j > start && lessThan(array[j], array[j - 1]); j--) {
-                    temp = array[j];
-                    array[j] = array[j - 1];
-                    array[j - 1] = temp;
-                }
-            }
-            return;
-        }
-        int middle = (start + end) / 2;
-        if (length > 7) {
-            int bottom = start;
-            int top = end - 1;
-            if (length > 40) {
-                length /= 8;
-                bottom = med3(array, bottom, bottom + length, bottom
-                        + (2 * length));
-                middle = med3(array, middle - length, middle, middle + length);
-                top = med3(array, top - (2 * length), top - length, top);
-            }
-            middle = med3(array, bottom, middle, top);
-        }
-        double partionValue = array[middle];
-        int a, b, c, d;
-        a = b = start;
-        c = d = end - 1;
-        while (true) {
-            while (b <= c && !lessThan(partionValue, array[b])) {
-                if (isSame(array[b], partionValue)) {
-                    temp = array[a];
-                    array[a++] = array[b];
-                    array[b] = temp;
-                }
-                b++;
-            }
-            while (c >= b && !lessThan(array[c], partionValue)) {
-                if (isSame(array[c], partionValue)) {
-                    temp = array[c];
-                    array[c] = array[d];
-                    array[d--] = temp;
-                }
-                c--;
-            }
-            if (b > c) {
-                break;
-            }
-            temp = array[b];
-            array[b++] = array[c];
-            array[c--] = temp;
-        }
-        length = a - start < b - a ? a - start : b - a;
-        int l = start;
-        int h = b - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        length = d - c < end - 1 - d ? d - c : end - 1 - d;
-        l = b;
-        h = end - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        if ((length = b - a) > 0) {
-            sort(start, start + length, array);
-        }
-        if ((length = d - c) > 0) {
-            sort(end - length, end, array);
-        }
+        DualPivotQuicksort.sort(array, start, end);
     }
 
     /**
@@ -1990,7 +1674,7 @@ public class Arrays {
      * @see #sort(float[], int, int)
      */
     public static void sort(float[] array) {
-        sort(0, array.length, array);
+        DualPivotQuicksort.sort(array, 0, array.length);
     }
 
     /**
@@ -2014,85 +1698,7 @@ public class Arrays {
             throw new NullPointerException();
         }
         checkBounds(array.length, start, end);
-        sort(start, end, array);
-    }
-
-    private static void sort(int start, int end, float[] array) {
-        float temp;
-        int length = end - start;
-        if (length < 7) {
-            for (int i = start + 1; i < end; i++) {
-                for (int j = i; j > start && lessThan(array[j], array[j - 1]); j--) {
-                    temp = array[j];
-                    array[j] = array[j - 1];
-                    array[j - 1] = temp;
-                }
-            }
-            return;
-        }
-        int middle = (start + end) / 2;
-        if (length > 7) {
-            int bottom = start;
-            int top = end - 1;
-            if (length > 40) {
-                length /= 8;
-                bottom = med3(array, bottom, bottom + length, bottom
-                        + (2 * length));
-                middle = med3(array, middle - length, middle, middle + length);
-                top = med3(array, top - (2 * length), top - length, top);
-            }
-            middle = med3(array, bottom, middle, top);
-        }
-        float partionValue = array[middle];
-        int a, b, c, d;
-        a = b = start;
-        c = d = end - 1;
-        while (true) {
-            while (b <= c && !lessThan(partionValue, array[b])) {
-                if (isSame(array[b], partionValue)) {
-                    temp = array[a];
-                    array[a++] = array[b];
-                    array[b] = temp;
-                }
-                b++;
-            }
-            while (c >= b && !lessThan(array[c], partionValue)) {
-                if (isSame(array[c], partionValue)) {
-                    temp = array[c];
-                    array[c] = array[d];
-                    array[d--] = temp;
-                }
-                c--;
-            }
-            if (b > c) {
-                break;
-            }
-            temp = array[b];
-            array[b++] = array[c];
-            array[c--] = temp;
-        }
-        length = a - start < b - a ? a - start : b - a;
-        int l = start;
-        int h = b - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        length = d - c < end - 1 - d ? d - c : end - 1 - d;
-        l = b;
-        h = end - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        if ((length = b - a) > 0) {
-            sort(start, start + length, array);
-        }
-        if ((length = d - c) > 0) {
-            sort(end - length, end, array);
-        }
+        DualPivotQuicksort.sort(array, start, end);
     }
 
     /**
@@ -2102,7 +1708,7 @@ public class Arrays {
      *            the {@code int} array to be sorted.
      */
     public static void sort(int[] array) {
-        sort(0, array.length, array);
+        DualPivotQuicksort.sort(array, 0, array.length);
     }
 
     /**
@@ -2124,85 +1730,7 @@ public class Arrays {
             throw new NullPointerException();
         }
         checkBounds(array.length, start, end);
-        sort(start, end, array);
-    }
-
-    private static void sort(int start, int end, int[] array) {
-        int temp;
-        int length = end - start;
-        if (length < 7) {
-            for (int i = start + 1; i < end; i++) {
-                for (int j = i; j > start && array[j - 1] > array[j]; j--) {
-                    temp = array[j];
-                    array[j] = array[j - 1];
-                    array[j - 1] = temp;
-                }
-            }
-            return;
-        }
-        int middle = (start + end) / 2;
-        if (length > 7) {
-            int bottom = start;
-            int top = end - 1;
-            if (length > 40) {
-                length /= 8;
-                bottom = med3(array, bottom, bottom + length, bottom
-                        + (2 * length));
-                middle = med3(array, middle - length, middle, middle + length);
-                top = med3(array, top - (2 * length), top - length, top);
-            }
-            middle = med3(array, bottom, middle, top);
-        }
-        int partionValue = array[middle];
-        int a, b, c, d;
-        a = b = start;
-        c = d = end - 1;
-        while (true) {
-            while (b <= c && array[b] <= partionValue) {
-                if (array[b] == partionValue) {
-                    temp = array[a];
-                    array[a++] = array[b];
-                    array[b] = temp;
-                }
-                b++;
-            }
-            while (c >= b && array[c] >= partionValue) {
-                if (array[c] == partionValue) {
-                    temp = array[c];
-                    array[c] = array[d];
-                    array[d--] = temp;
-                }
-                c--;
-            }
-            if (b > c) {
-                break;
-            }
-            temp = array[b];
-            array[b++] = array[c];
-            array[c--] = temp;
-        }
-        length = a - start < b - a ? a - start : b - a;
-        int l = start;
-        int h = b - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        length = d - c < end - 1 - d ? d - c : end - 1 - d;
-        l = b;
-        h = end - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        if ((length = b - a) > 0) {
-            sort(start, start + length, array);
-        }
-        if ((length = d - c) > 0) {
-            sort(end - length, end, array);
-        }
+        DualPivotQuicksort.sort(array, start, end);
     }
 
     /**
@@ -2212,7 +1740,7 @@ public class Arrays {
      *            the {@code long} array to be sorted.
      */
     public static void sort(long[] array) {
-        sort(0, array.length, array);
+        DualPivotQuicksort.sort(array, 0, array.length);
     }
 
     /**
@@ -2234,85 +1762,7 @@ public class Arrays {
             throw new NullPointerException();
         }
         checkBounds(array.length, start, end);
-        sort(start, end, array);
-    }
-
-    private static void sort(int start, int end, long[] array) {
-        long temp;
-        int length = end - start;
-        if (length < 7) {
-            for (int i = start + 1; i < end; i++) {
-                for (int j = i; j > start && array[j - 1] > array[j]; j--) {
-                    temp = array[j];
-                    array[j] = array[j - 1];
-                    array[j - 1] = temp;
-                }
-            }
-            return;
-        }
-        int middle = (start + end) / 2;
-        if (length > 7) {
-            int bottom = start;
-            int top = end - 1;
-            if (length > 40) {
-                length /= 8;
-                bottom = med3(array, bottom, bottom + length, bottom
-                        + (2 * length));
-                middle = med3(array, middle - length, middle, middle + length);
-                top = med3(array, top - (2 * length), top - length, top);
-            }
-            middle = med3(array, bottom, middle, top);
-        }
-        long partionValue = array[middle];
-        int a, b, c, d;
-        a = b = start;
-        c = d = end - 1;
-        while (true) {
-            while (b <= c && array[b] <= partionValue) {
-                if (array[b] == partionValue) {
-                    temp = array[a];
-                    array[a++] = array[b];
-                    array[b] = temp;
-                }
-                b++;
-            }
-            while (c >= b && array[c] >= partionValue) {
-                if (array[c] == partionValue) {
-                    temp = array[c];
-                    array[c] = array[d];
-                    array[d--] = temp;
-                }
-                c--;
-            }
-            if (b > c) {
-                break;
-            }
-            temp = array[b];
-            array[b++] = array[c];
-            array[c--] = temp;
-        }
-        length = a - start < b - a ? a - start : b - a;
-        int l = start;
-        int h = b - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        length = d - c < end - 1 - d ? d - c : end - 1 - d;
-        l = b;
-        h = end - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        if ((length = b - a) > 0) {
-            sort(start, start + length, array);
-        }
-        if ((length = d - c) > 0) {
-            sort(end - length, end, array);
-        }
+        DualPivotQuicksort.sort(array, start, end);
     }
 
     /**
@@ -2358,17 +1808,38 @@ public class Arrays {
     }
 
     private static void sort(int start, int end, Object[] array) {
-        int length = end - start;
-        if (length <= 0) {
-            return;
-        }
-        if (array instanceof String[]) {
+        if (array instanceof String[]
+                && !hasLongRuns((String[]) array, start, end)) {
             stableStringSort((String[]) array, start, end);
         } else {
-            Object[] out = new Object[end];
-            System.arraycopy(array, start, out, start, length);
-            mergeSort(out, array, start, end);
+            TimSort.sort(array, start, end);
+        }
+    }
+
+    /*
+     * Returns true if the range consists of runs that are 32 elements long
+     * on average or longer, which the adaptive mergesort sorts faster than
+     * the string sort. Gives up as soon as there are too many runs, so an
+     * unordered range costs about one comparison per sixteen elements.
+     */
+    private static boolean hasLongRuns(String[] arr, int start, int end) {
+        int maxRuns = (end - start) >>> 5;
+        int runs = 0;
+        for (int i = start + 1; i < end; i++) {
+            if (++runs > maxRuns) {
+                return false;
+            }
+            if (arr[i].compareTo(arr[i - 1]) < 0) {
+                while (++i < end && arr[i].compareTo(arr[i - 1]) < 0) {
+                    // strictly descending run
+                }
+            } else {
+                while (++i < end && arr[i].compareTo(arr[i - 1]) >= 0) {
+                    // ascending run
+                }
+            }
         }
+        return true;
     }
 
     /**
@@ -2387,283 +1858,27 @@ public class Arrays {
         arr[b] = tmp;
     }
 
-    /**
-     * Performs a sort on the section of the array between the given indices
-     * using a mergesort with exponential search algorithm (in which the merge
-     * is performed by exponential search). n*log(n) performance is guaranteed
-     * and in the average case it will be faster then any mergesort in which the
-     * merge is performed by linear search.
-     * 
-     * @param in -
-     *            the array for sorting.
-     * @param out -
-     *            the result, sorted array.
-     * @param start
-     *            the start index
-     * @param end
-     *            the end index + 1
+    /*
+     * returns the median index.
      */
-    @SuppressWarnings("unchecked")
-    private static void mergeSort(Object[] in, Object[] out, int start,
-            int end) {
-        int len = end - start;
-        // use insertion sort for small arrays
-        if (len <= SIMPLE_LENGTH) {
-            for (int i = start + 1; i < end; i++) {
-                Comparable<Object> current = (Comparable<Object>) out[i];
-                Object prev = out[i - 1];
-                if (current.compareTo(prev) < 0) {
-                    int j = i;
-                    do {
-                        out[j--] = prev;
-                    } while (j > start
-                            && current.compareTo(prev = out[j - 1]) < 0);
-                    out[j] = current;
-                }
-            }
-            return;
-        }
-        int med = (end + start) >>> 1;
-        mergeSort(out, in, start, med);
-        mergeSort(out, in, med, end);
-
-        // merging
-
-        // if arrays are already sorted - no merge
-        if (((Comparable<Object>) in[med - 1]).compareTo(in[med]) <= 0) {
-            System.arraycopy(in, start, out, start, len);
-            return;
-        }
-        int r = med, i = start;
-
-        // use merging with exponential search
-        do {
-            Comparable<Object> fromVal = (Comparable<Object>) in[start];
-            Comparable<Object> rVal = (Comparable<Object>) in[r];
-            if (fromVal.compareTo(rVal) <= 0) {
-                int l_1 = find(in, rVal, -1, start + 1, med - 1);
-                int toCopy = l_1 - start + 1;
-                System.arraycopy(in, start, out, i, toCopy);
-                i += toCopy;
-                out[i++] = rVal;
-                r++;
-                start = l_1 + 1;
-            } else {
-                int r_1 = find(in, fromVal, 0, r + 1, end - 1);
-                int toCopy = r_1 - r + 1;
-                System.arraycopy(in, r, out, i, toCopy);
-                i += toCopy;
-                out[i++] = fromVal;
-                start++;
-                r = r_1 + 1;
-            }
-        } while ((end - r) > 0 && (med - start) > 0);
+    private static int medChar(int a, int b, int c, String[] arr, int id) {
+        int ac = charAt(arr[a], id);
+        int bc = charAt(arr[b], id);
+        int cc = charAt(arr[c], id);
+        return ac < bc ? (bc < cc ? b : (ac < cc ? c : a))
+                : (bc < cc ? (ac < cc ? a : c) : b);
 
-        // copy rest of array
-        if ((end - r) <= 0) {
-            System.arraycopy(in, start, out, i, med - start);
-        } else {
-            System.arraycopy(in, r, out, i, end - r);
-        }
     }
 
-    /**
-     * Performs a sort on the section of the array between the given indices
-     * using a mergesort with exponential search algorithm (in which the merge
-     * is performed by exponential search). n*log(n) performance is guaranteed
-     * and in the average case it will be faster then any mergesort in which the
-     * merge is performed by linear search.
-     * 
-     * @param in -
-     *            the array for sorting.
-     * @param out -
-     *            the result, sorted array.
-     * @param start
-     *            the start index
-     * @param end
-     *            the end index + 1
-     * @param c -
-     *            the comparator to determine the order of the array.
+    /*
+     * Returns the char value at the specified index of string or -1 if the
+     * index more than the length of this string.
      */
-    @SuppressWarnings("unchecked")
-    private static void mergeSort(Object[] in, Object[] out, int start,
-            int end, Comparator c) {
-        int len = end - start;
-        // use insertion sort for small arrays
-        if (len <= SIMPLE_LENGTH) {
-            for (int i = start + 1; i < end; i++) {
-                Object current = out[i];
-                Object prev = out[i - 1];
-                if (c.compare(prev, current) > 0) {
-                    int j = i;
-                    do {
-                        out[j--] = prev;
-                    } while (j > start
-                            && (c.compare(prev = out[j - 1], current) > 0));
-                    out[j] = current;
-                }
-            }
-            return;
-        }
-        int med = (end + start) >>> 1;
-        mergeSort(out, in, start, med, c);
-        mergeSort(out, in, med, end, c);
-
-        // merging
-
-        // if arrays are already sorted - no merge
-        if (c.compare(in[med - 1],in[med] ) <= 0) {
-            System.arraycopy(in, start, out, start, len);
-            return;
-        }
-        int r = med, i = start;
-
-        // use merging with exponential search
-        do {
-            Object fromVal = in[start];
-            Object rVal = in[r];
-            if (c.compare(fromVal, rVal) <= 0) {
-                int l_1 = find(in, rVal, -1, start + 1, med - 1, c);
-                int toCopy = l_1 - start + 1;
-                System.arraycopy(in, start, out, i, toCopy);
-                i += toCopy;
-                out[i++] = rVal;
-                r++;
-                start = l_1 + 1;
-            } else {
-                int r_1 = find(in, fromVal, 0, r + 1, end - 1, c);
-                int toCopy = r_1 - r + 1;
-                System.arraycopy(in, r, out, i, toCopy);
-                i += toCopy;
-                out[i++] = fromVal;
-                start++;
-                r = r_1 + 1;
-            }
-        } while ((end - r) > 0 && (med - start) > 0);
-
-        // copy rest of array
-        if ((end - r) <= 0) {
-            System.arraycopy(in, start, out, i, med - start);
-        } else {
-            System.arraycopy(in, r, out, i, end - r);
+    private static int charAt(String str, int i) {
+        if (i >= str.length()) {
+            return -1;
         }
-    }
-
-    /**
-     * Finds the place in the given range of specified sorted array, where the
-     * element should be inserted for getting sorted array. Uses exponential
-     * search algorithm.
-     * 
-     * @param arr -
-     *            the array with already sorted range
-     * 
-     * @param val -
-     *            object to be inserted
-     * 
-     * @param l -
-     *            the start index
-     * 
-     * @param r -
-     *            the end index
-     * 
-     * @param bnd -
-     *            possible values 0,-1. "-1" - val is located at index more then
-     *            elements equals to val. "0" - val is located at index less
-     *            then elements equals to val.
-     * 
-     */
-    @SuppressWarnings("unchecked")
-    private static int find(Object[] arr, Comparable val, int bnd, int l, int r) {
-        int m = l;
-        int d = 1;
-        while (m <= r) {
-            if (val.compareTo(arr[m]) > bnd) {
-                l = m + 1;
-            } else {
-                r = m - 1;
-                break;
-            }
-            m += d;
-            d <<= 1;
-        }
-        while (l <= r) {
-            m = (l + r) >>> 1;
-            if (val.compareTo(arr[m]) > bnd) {
-                l = m + 1;
-            } else {
-                r = m - 1;
-            }
-        }
-        return l - 1;
-    }
-
-    /**
-     * Finds the place of specified range of specified sorted array, where the
-     * element should be inserted for getting sorted array. Uses exponential
-     * search algorithm.
-     * 
-     * @param arr -
-     *            the array with already sorted range
-     * @param val -
-     *            object to be inserted
-     * @param l -
-     *            the start index
-     * @param r -
-     *            the end index
-     * @param bnd -
-     *            possible values 0,-1. "-1" - val is located at index more then
-     *            elements equals to val. "0" - val is located at index less
-     *            then elements equals to val.
-     * @param c -
-     *            the comparator used to compare Objects
-     */
-    @SuppressWarnings("unchecked")
-    private static int find(Object[] arr, Object val, int bnd, int l, int r,
-            Comparator c) {
-        int m = l;
-        int d = 1;
-        while (m <= r) {
-            if (c.compare(val, arr[m]) > bnd) {
-                l = m + 1;
-            } else {
-                r = m - 1;
-                break;
-            }
-            m += d;
-            d <<= 1;
-        }
-        while (l <= r) {
-            m = (l + r) >>> 1;
-            if (c.compare(val, arr[m]) > bnd) {
-                l = m + 1;
-            } else {
-                r = m - 1;
-            }
-        }
-        return l - 1;
-    }
-
-    /*
-     * returns the median index.
-     */
-    private static int medChar(int a, int b, int c, String[] arr, int id) {
-        int ac = charAt(arr[a], id);
-        int bc = charAt(arr[b], id);
-        int cc = charAt(arr[c], id);
-        return ac < bc ? (bc < cc ? b : (ac < cc ? c : a))
-                : (bc < cc ? (ac < cc ? a : c) : b);
-
-    }
-
-    /*
-     * Returns the char value at the specified index of string or -1 if the
-     * index more than the length of this string.
-     */
-    private static int charAt(String str, int i) {
-        if (i >= str.length()) {
-            return -1;
-        }
-        return str.charAt(i);
+        return str.charAt(i);
     }
 
     /**
@@ -2713,6 +1928,9 @@ public class Arrays {
      */
     private static void stableStringSort(String[] arr, int start,
             int end) {
+        if (end - start < 2) {
+            return;
+        }
         stableStringSort(arr, arr, new String[end], start, end, 0);
     }
 
@@ -2866,10 +2084,7 @@ public class Arrays {
         if (comparator == null) {
             sort(start, end, array);
         } else {
-            int length = end - start;
-            Object[] out = new Object[end];
-            System.arraycopy(array, start, out, start, length);
-            mergeSort(out, array, start, end, comparator);
+            TimSort.sort(array, start, end, comparator);
         }
     }
 
@@ -2896,7 +2111,7 @@ public class Arrays {
      *            the {@code short} array to be sorted.
      */
     public static void sort(short[] array) {
-        sort(0, array.length, array);
+        DualPivotQuicksort.sort(array, 0, array.length);
     }
 
     /**
@@ -2918,84 +2133,394 @@ public class Arrays {
             throw new NullPointerException();
         }
         checkBounds(array.length, start, end);
-        sort(start, end, array);
+        DualPivotQuicksort.sort(array, start, end);
     }
 
-    private static void sort(int start, int end, short[] array) {
-        short temp;
-        int length = end - start;
-        if (length < 7) {
-            for (int i = start + 1; i < end; i++) {
-                for (int j = i; j > start && array[j - 1] > array[j]; j--) {
-                    temp = array[j];
-                    array[j] = array[j - 1];
-                    array[j - 1] = temp;
-                }
-            }
-            return;
+    /**
+     * Sorts the specified array in ascending numerical order. Long
+     * arrays are split into pieces that are sorted concurrently on a shared
+     * pool of worker threads and then merged.
+     * 
+     * @param array
+     *            the {@code byte} array to be sorted.
+     * @see #sort(byte[])
+     * @since 1.8
+     */
+    public static void parallelSort(byte[] array) {
+        ParallelSort.sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order,
+     * splitting the work over a shared pool of worker threads if the range
+     * is long.
+     * 
+     * @param array
+     *            the {@code byte} array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(byte[], int, int)
+     * @since 1.8
+     */
+    public static void parallelSort(byte[] array, int start, int end) {
+        if (array == null) {
+            throw new NullPointerException();
         }
-        int middle = (start + end) / 2;
-        if (length > 7) {
-            int bottom = start;
-            int top = end - 1;
-            if (length > 40) {
-                length /= 8;
-                bottom = med3(array, bottom, bottom + length, bottom
-                        + (2 * length));
-                middle = med3(array, middle - length, middle, middle + length);
-                top = med3(array, top - (2 * length), top - length, top);
-            }
-            middle = med3(array, bottom, middle, top);
+        checkBounds(array.length, start, end);
+        ParallelSort.sort(array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Long
+     * arrays are split into pieces that are sorted concurrently on a shared
+     * pool of worker threads and then merged.
+     * 
+     * @param array
+     *            the {@code char} array to be sorted.
+     * @see #sort(char[])
+     * @since 1.8
+     */
+    public static void parallelSort(char[] array) {
+        ParallelSort.sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order,
+     * splitting the work over a shared pool of worker threads if the range
+     * is long.
+     * 
+     * @param array
+     *            the {@code char} array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(char[], int, int)
+     * @since 1.8
+     */
+    public static void parallelSort(char[] array, int start, int end) {
+        if (array == null) {
+            throw new NullPointerException();
         }
-        short partionValue = array[middle];
-        int a, b, c, d;
-        a = b = start;
-        c = d = end - 1;
-        while (true) {
-            while (b <= c && array[b] <= partionValue) {
-                if (array[b] == partionValue) {
-                    temp = array[a];
-                    array[a++] = array[b];
-                    array[b] = temp;
-                }
-                b++;
-            }
-            while (c >= b && array[c] >= partionValue) {
-                if (array[c] == partionValue) {
-                    temp = array[c];
-                    array[c] = array[d];
-                    array[d--] = temp;
-                }
-                c--;
-            }
-            if (b > c) {
-                break;
-            }
-            temp = array[b];
-            array[b++] = array[c];
-            array[c--] = temp;
-        }
-        length = a - start < b - a ? a - start : b - a;
-        int l = start;
-        int h = b - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        length = d - c < end - 1 - d ? d - c : end - 1 - d;
-        l = b;
-        h = end - length;
-        while (length-- > 0) {
-            temp = array[l];
-            array[l++] = array[h];
-            array[h++] = temp;
-        }
-        if ((length = b - a) > 0) {
-            sort(start, start + length, array);
-        }
-        if ((length = d - c) > 0) {
-            sort(end - length, end, array);
+        checkBounds(array.length, start, end);
+        ParallelSort.sort(array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order, as imposed by
+     * {@code Double.compareTo()}. Long arrays are split into pieces that are
+     * sorted concurrently on a shared pool of worker threads and then merged.
+     * 
+     * @param array
+     *            the {@code double} array to be sorted.
+     * @see #sort(double[])
+     * @since 1.8
+     */
+    public static void parallelSort(double[] array) {
+        ParallelSort.sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order, as
+     * imposed by {@code Double.compareTo()}, splitting the work over a shared
+     * pool of worker threads if the range is long.
+     * 
+     * @param array
+     *            the {@code double} array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(double[], int, int)
+     * @since 1.8
+     */
+    public static void parallelSort(double[] array, int start, int end) {
+        if (array == null) {
+            throw new NullPointerException();
+        }
+        checkBounds(array.length, start, end);
+        ParallelSort.sort(array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order, as imposed by
+     * {@code Float.compareTo()}. Long arrays are split into pieces that are
+     * sorted concurrently on a shared pool of worker threads and then merged.
+     * 
+     * @param array
+     *            the {@code float} array to be sorted.
+     * @see #sort(float[])
+     * @since 1.8
+     */
+    public static void parallelSort(float[] array) {
+        ParallelSort.sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order, as
+     * imposed by {@code Float.compareTo()}, splitting the work over a shared
+     * pool of worker threads if the range is long.
+     * 
+     * @param array
+     *            the {@code float} array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(float[], int, int)
+     * @since 1.8
+     */
+    public static void parallelSort(float[] array, int start, int end) {
+        if (array == null) {
+            throw new NullPointerException();
+        }
+        checkBounds(array.length, start, end);
+        ParallelSort.sort(array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Long
+     * arrays are split into pieces that are sorted concurrently on a shared
+     * pool of worker threads and then merged.
+     * 
+     * @param array
+     *            the {@code int} array to be sorted.
+     * @see #sort(int[])
+     * @since 1.8
+     */
+    public static void parallelSort(int[] array) {
+        ParallelSort.sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order,
+     * splitting the work over a shared pool of worker threads if the range
+     * is long.
+     * 
+     * @param array
+     *            the {@code int} array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(int[], int, int)
+     * @since 1.8
+     */
+    public static void parallelSort(int[] array, int start, int end) {
+        if (array == null) {
+            throw new NullPointerException();
+        }
+        checkBounds(array.length, start, end);
+        ParallelSort.sort(array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Long
+     * arrays are split into pieces that are sorted concurrently on a shared
+     * pool of worker threads and then merged.
+     * 
+     * @param array
+     *            the {@code long} array to be sorted.
+     * @see #sort(long[])
+     * @since 1.8
+     */
+    public static void parallelSort(long[] array) {
+        ParallelSort.sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order,
+     * splitting the work over a shared pool of worker threads if the range
+     * is long.
+     * 
+     * @param array
+     *            the {@code long} array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(long[], int, int)
+     * @since 1.8
+     */
+    public static void parallelSort(long[] array, int start, int end) {
+        if (array == null) {
+            throw new NullPointerException();
+        }
+        checkBounds(array.length, start, end);
+        ParallelSort.sort(array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending numerical order. Long
+     * arrays are split into pieces that are sorted concurrently on a shared
+     * pool of worker threads and then merged.
+     * 
+     * @param array
+     *            the {@code short} array to be sorted.
+     * @see #sort(short[])
+     * @since 1.8
+     */
+    public static void parallelSort(short[] array) {
+        ParallelSort.sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending numerical order,
+     * splitting the work over a shared pool of worker threads if the range
+     * is long.
+     * 
+     * @param array
+     *            the {@code short} array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(short[], int, int)
+     * @since 1.8
+     */
+    public static void parallelSort(short[] array, int start, int end) {
+        if (array == null) {
+            throw new NullPointerException();
+        }
+        checkBounds(array.length, start, end);
+        ParallelSort.sort(array, start, end);
+    }
+
+    /**
+     * Sorts the specified array in ascending natural order. Long arrays are
+     * split into pieces that are sorted concurrently on a shared pool of
+     * worker threads and then merged. The sort is stable.
+     * 
+     * @param array
+     *            the array to be sorted.
+     * @throws ClassCastException
+     *                if some elements cannot be compared to each other.
+     * @see #sort(Object[])
+     * @since 1.8
+     */
+    public static <T extends Comparable<? super T>> void parallelSort(T[] array) {
+        ParallelSort.sort(array, 0, array.length, TimSort.NATURAL_ORDER);
+    }
+
+    /**
+     * Sorts the specified range in the array in ascending natural order,
+     * splitting the work over a shared pool of worker threads if the range
+     * is long. The sort is stable.
+     * 
+     * @param array
+     *            the array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @throws ClassCastException
+     *                if some elements cannot be compared to each other.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(Object[], int, int)
+     * @since 1.8
+     */
+    public static <T extends Comparable<? super T>> void parallelSort(
+            T[] array, int start, int end) {
+        if (array == null) {
+            throw new NullPointerException();
+        }
+        checkBounds(array.length, start, end);
+        ParallelSort.sort(array, start, end, TimSort.NATURAL_ORDER);
+    }
+
+    /**
+     * Sorts the specified array using the specified {@code Comparator}, or in
+     * natural order if it is {@code null}. Long arrays are split into pieces
+     * that are sorted concurrently on a shared pool of worker threads and
+     * then merged. The sort is stable.
+     * 
+     * @param array
+     *            the array to be sorted.
+     * @param comparator
+     *            the {@code Comparator}.
+     * @throws ClassCastException
+     *                if elements in the array cannot be compared to each other
+     *                using the {@code Comparator}.
+     * @see #sort(Object[], Comparator)
+     * @since 1.8
+     */
+    public static <T> void parallelSort(T[] array,
+            Comparator<? super T> comparator) {
+        parallelSort(0, array.length, array, comparator);
+    }
+
+    /**
+     * Sorts the specified range in the array using the specified
+     * {@code Comparator}, or in natural order if it is {@code null},
+     * splitting the work over a shared pool of worker threads if the range
+     * is long. The sort is stable.
+     * 
+     * @param array
+     *            the array to be sorted.
+     * @param start
+     *            the start index to sort.
+     * @param end
+     *            the last + 1 index to sort.
+     * @param comparator
+     *            the {@code Comparator}.
+     * @throws ClassCastException
+     *                if elements in the array cannot be compared to each other
+     *                using the {@code Comparator}.
+     * @throws IllegalArgumentException
+     *                if {@code start > end}.
+     * @throws ArrayIndexOutOfBoundsException
+     *                if {@code start < 0} or {@code end > array.length}.
+     * @see #sort(Object[], int, int, Comparator)
+     * @since 1.8
+     */
+    public static <T> void parallelSort(T[] array, int start, int end,
+            Comparator<? super T> comparator) {
+        if (array == null) {
+            throw new NullPointerException();
+        }
+        checkBounds(array.length, start, end);
+        parallelSort(start, end, array, comparator);
+    }
+
+    private static <T> void parallelSort(int start, int end, T[] array,
+            Comparator<? super T> comparator) {
+        if (comparator == null) {
+            ParallelSort.sort(array, start, end, TimSort.NATURAL_ORDER);
+        } else {
+            ParallelSort.sort(array, start, end, comparator);
         }
     }
 
@@ -0,0 +1,1808 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util;
+
+/**
+ * Dual-pivot quicksort for the primitive arrays of {@link Arrays}. Each step
+ * picks two pivots out of five samples and splits the range into three
+ * parts, which does fewer comparisons and far fewer swaps than a classic
+ * single-pivot quicksort. Short ranges use insertion sort, and
+ * {@code byte}, {@code char} and {@code short} arrays that are long compared
+ * to their value range are counted instead of compared.
+ * <p>
+ * All methods take a range that has already been checked against the
+ * array bounds, from {@code start} inclusive to {@code end} exclusive.
+ */
+final class DualPivotQuicksort {
+
+    /* Ranges shorter than this are sorted by insertion sort */
+    private static final int INSERTION_SORT_THRESHOLD = 47;
+
+    /* Byte ranges longer than this are sorted by counting */
+    private static final int COUNTING_SORT_THRESHOLD_FOR_BYTE = 29;
+
+    /* Char and short ranges longer than this are sorted by counting */
+    private static final int COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR = 3200;
+
+    private DualPivotQuicksort() {
+        // no instances
+    }
+
+    /**
+     * Sorts the range of the {@code int} array in ascending numerical order.
+     */
+    static void sort(int[] a, int start, int end) {
+        sort(a, start, end - 1, true);
+    }
+    /**
+     * Sorts the range from {@code left} to {@code right} inclusive of the
+     * array. {@code leftmost} is false when the element just before
+     * {@code left} is known to be no greater than any element of the range,
+     * so that it can serve as a sentinel for the insertion sort.
+     */
+    private static void sort(int[] a, int left, int right, boolean leftmost) {
+        int length = right - left + 1;
+
+        if (length < INSERTION_SORT_THRESHOLD) {
+            if (leftmost) {
+                for (int i = left + 1; i <= right; i++) {
+                    int ai = a[i];
+                    int j = i - 1;
+                    while (j >= left && ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            } else {
+                for (int i = left + 1; i <= right; i++) {
+                    int ai = a[i];
+                    int j = i - 1;
+                    while (ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            }
+            return;
+        }
+
+        // Five evenly spaced elements around the middle, sorted in place
+        int seventh = (length >> 3) + (length >> 6) + 1;
+        int e3 = (left + right) >>> 1;
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) {
+            int t = a[e2];
+            a[e2] = a[e1];
+            a[e1] = t;
+        }
+        if (a[e3] < a[e2]) {
+            int t = a[e3];
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1]) {
+                a[e2] = a[e1];
+                a[e1] = t;
+            }
+        }
+        if (a[e4] < a[e3]) {
+            int t = a[e4];
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2]) {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1]) {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                }
+            }
+        }
+        if (a[e5] < a[e4]) {
+            int t = a[e5];
+            a[e5] = a[e4];
+            a[e4] = t;
+            if (t < a[e3]) {
+                a[e4] = a[e3];
+                a[e3] = t;
+                if (t < a[e2]) {
+                    a[e3] = a[e2];
+                    a[e2] = t;
+                    if (t < a[e1]) {
+                        a[e2] = a[e1];
+                        a[e1] = t;
+                    }
+                }
+            }
+        }
+
+        int less = left;
+        int great = right;
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4]
+                && a[e4] != a[e5]) {
+            /*
+             * Partition into three parts using the second and fourth sample
+             * as pivots:
+             * 
+             *   left        less              k          great         right
+             * +-----------------------------------------------------------+
+             * | < pivot1 | pivot1 <= && <= pivot2 |  ?  |    > pivot2      |
+             * +-----------------------------------------------------------+
+             */
+            int pivot1 = a[e2];
+            int pivot2 = a[e4];
+            a[e2] = a[left];
+            a[e4] = a[right];
+
+            while (a[++less] < pivot1) {
+                // skip the prefix that is already in place
+            }
+            while (a[--great] > pivot2) {
+                // skip the suffix that is already in place
+            }
+
+            outer: for (int k = less - 1; ++k <= great;) {
+                int ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else if (ak > pivot2) {
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            // Put the pivots in their final positions
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+
+            sort(a, left, less - 2, leftmost);
+            sort(a, great + 2, right, false);
+
+            if (less < e1 && e5 < great) {
+                /*
+                 * The middle part is suspiciously large, which usually means
+                 * many elements equal to the pivots: move those to its ends
+                 * as they are already in their final position.
+                 */
+                while (a[less] == pivot1) {
+                    less++;
+                }
+                while (a[great] == pivot2) {
+                    great--;
+                }
+                outer: for (int k = less - 1; ++k <= great;) {
+                    int ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less] = ak;
+                        less++;
+                    } else if (ak == pivot2) {
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) {
+                            a[k] = a[less];
+                            a[less] = a[great];
+                            less++;
+                        } else {
+                            a[k] = a[great];
+                        }
+                        a[great] = ak;
+                        great--;
+                    }
+                }
+            }
+
+            sort(a, less, great, false);
+        } else {
+            /*
+             * The samples are not distinct, so split three ways around the
+             * middle one instead, which handles runs of equal elements in
+             * linear time:
+             * 
+             *   left        less          k          great         right
+             * +-----------------------------------------------------------+
+             * |  < pivot  |   == pivot   |     ?     |     > pivot        |
+             * +-----------------------------------------------------------+
+             */
+            int pivot = a[e3];
+
+            for (int k = less; k <= great; k++) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                int ak = a[k];
+                if (ak < pivot) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else {
+                    while (a[great] > pivot) {
+                        great--;
+                    }
+                    if (a[great] < pivot) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            sort(a, left, less - 1, leftmost);
+            sort(a, great + 1, right, false);
+        }
+    }
+
+    /**
+     * Sorts the range of the {@code long} array in ascending numerical order.
+     */
+    static void sort(long[] a, int start, int end) {
+        sort(a, start, end - 1, true);
+    }
+    /**
+     * Sorts the range from {@code left} to {@code right} inclusive of the
+     * array. {@code leftmost} is false when the element just before
+     * {@code left} is known to be no greater than any element of the range,
+     * so that it can serve as a sentinel for the insertion sort.
+     */
+    private static void sort(long[] a, int left, int right, boolean leftmost) {
+        int length = right - left + 1;
+
+        if (length < INSERTION_SORT_THRESHOLD) {
+            if (leftmost) {
+                for (int i = left + 1; i <= right; i++) {
+                    long ai = a[i];
+                    int j = i - 1;
+                    while (j >= left && ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            } else {
+                for (int i = left + 1; i <= right; i++) {
+                    long ai = a[i];
+                    int j = i - 1;
+                    while (ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            }
+            return;
+        }
+
+        // Five evenly spaced elements around the middle, sorted in place
+        int seventh = (length >> 3) + (length >> 6) + 1;
+        int e3 = (left + right) >>> 1;
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) {
+            long t = a[e2];
+            a[e2] = a[e1];
+            a[e1] = t;
+        }
+        if (a[e3] < a[e2]) {
+            long t = a[e3];
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1]) {
+                a[e2] = a[e1];
+                a[e1] = t;
+            }
+        }
+        if (a[e4] < a[e3]) {
+            long t = a[e4];
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2]) {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1]) {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                }
+            }
+        }
+        if (a[e5] < a[e4]) {
+            long t = a[e5];
+            a[e5] = a[e4];
+            a[e4] = t;
+            if (t < a[e3]) {
+                a[e4] = a[e3];
+                a[e3] = t;
+                if (t < a[e2]) {
+                    a[e3] = a[e2];
+                    a[e2] = t;
+                    if (t < a[e1]) {
+                        a[e2] = a[e1];
+                        a[e1] = t;
+                    }
+                }
+            }
+        }
+
+        int less = left;
+        int great = right;
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4]
+                && a[e4] != a[e5]) {
+            /*
+             * Partition into three parts using the second and fourth sample
+             * as pivots:
+             * 
+             *   left        less              k          great         right
+             * +-----------------------------------------------------------+
+             * | < pivot1 | pivot1 <= && <= pivot2 |  ?  |    > pivot2      |
+             * +-----------------------------------------------------------+
+             */
+            long pivot1 = a[e2];
+            long pivot2 = a[e4];
+            a[e2] = a[left];
+            a[e4] = a[right];
+
+            while (a[++less] < pivot1) {
+                // skip the prefix that is already in place
+            }
+            while (a[--great] > pivot2) {
+                // skip the suffix that is already in place
+            }
+
+            outer: for (int k = less - 1; ++k <= great;) {
+                long ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else if (ak > pivot2) {
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            // Put the pivots in their final positions
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+
+            sort(a, left, less - 2, leftmost);
+            sort(a, great + 2, right, false);
+
+            if (less < e1 && e5 < great) {
+                /*
+                 * The middle part is suspiciously large, which usually means
+                 * many elements equal to the pivots: move those to its ends
+                 * as they are already in their final position.
+                 */
+                while (a[less] == pivot1) {
+                    less++;
+                }
+                while (a[great] == pivot2) {
+                    great--;
+                }
+                outer: for (int k = less - 1; ++k <= great;) {
+                    long ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less] = ak;
+                        less++;
+                    } else if (ak == pivot2) {
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) {
+                            a[k] = a[less];
+                            a[less] = a[great];
+                            less++;
+                        } else {
+                            a[k] = a[great];
+                        }
+                        a[great] = ak;
+                        great--;
+                    }
+                }
+            }
+
+            sort(a, less, great, false);
+        } else {
+            /*
+             * The samples are not distinct, so split three ways around the
+             * middle one instead, which handles runs of equal elements in
+             * linear time:
+             * 
+             *   left        less          k          great         right
+             * +-----------------------------------------------------------+
+             * |  < pivot  |   == pivot   |     ?     |     > pivot        |
+             * +-----------------------------------------------------------+
+             */
+            long pivot = a[e3];
+
+            for (int k = less; k <= great; k++) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                long ak = a[k];
+                if (ak < pivot) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else {
+                    while (a[great] > pivot) {
+                        great--;
+                    }
+                    if (a[great] < pivot) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            sort(a, left, less - 1, leftmost);
+            sort(a, great + 1, right, false);
+        }
+    }
+
+    /**
+     * Sorts the range of the {@code short} array in ascending numerical order.
+     */
+    static void sort(short[] a, int start, int end) {
+        if (end - start > COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR) {
+            int[] count = new int[1 << 16];
+            for (int i = start; i < end; i++) {
+                count[a[i] - Short.MIN_VALUE]++;
+            }
+            for (int i = count.length, k = end; k > start;) {
+                while (count[--i] == 0) {
+                    // skip values that do not occur
+                }
+                short value = (short) (i + Short.MIN_VALUE);
+                for (int s = count[i]; s > 0; s--) {
+                    a[--k] = value;
+                }
+            }
+        } else {
+            sort(a, start, end - 1, true);
+        }
+    }
+    /**
+     * Sorts the range from {@code left} to {@code right} inclusive of the
+     * array. {@code leftmost} is false when the element just before
+     * {@code left} is known to be no greater than any element of the range,
+     * so that it can serve as a sentinel for the insertion sort.
+     */
+    private static void sort(short[] a, int left, int right, boolean leftmost) {
+        int length = right - left + 1;
+
+        if (length < INSERTION_SORT_THRESHOLD) {
+            if (leftmost) {
+                for (int i = left + 1; i <= right; i++) {
+                    short ai = a[i];
+                    int j = i - 1;
+                    while (j >= left && ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            } else {
+                for (int i = left + 1; i <= right; i++) {
+                    short ai = a[i];
+                    int j = i - 1;
+                    while (ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            }
+            return;
+        }
+
+        // Five evenly spaced elements around the middle, sorted in place
+        int seventh = (length >> 3) + (length >> 6) + 1;
+        int e3 = (left + right) >>> 1;
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) {
+            short t = a[e2];
+            a[e2] = a[e1];
+            a[e1] = t;
+        }
+        if (a[e3] < a[e2]) {
+            short t = a[e3];
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1]) {
+                a[e2] = a[e1];
+                a[e1] = t;
+            }
+        }
+        if (a[e4] < a[e3]) {
+            short t = a[e4];
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2]) {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1]) {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                }
+            }
+        }
+        if (a[e5] < a[e4]) {
+            short t = a[e5];
+            a[e5] = a[e4];
+            a[e4] = t;
+            if (t < a[e3]) {
+                a[e4] = a[e3];
+                a[e3] = t;
+                if (t < a[e2]) {
+                    a[e3] = a[e2];
+                    a[e2] = t;
+                    if (t < a[e1]) {
+                        a[e2] = a[e1];
+                        a[e1] = t;
+                    }
+                }
+            }
+        }
+
+        int less = left;
+        int great = right;
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4]
+                && a[e4] != a[e5]) {
+            /*
+             * Partition into three parts using the second and fourth sample
+             * as pivots:
+             * 
+             *   left        less              k          great         right
+             * +-----------------------------------------------------------+
+             * | < pivot1 | pivot1 <= && <= pivot2 |  ?  |    > pivot2      |
+             * +-----------------------------------------------------------+
+             */
+            short pivot1 = a[e2];
+            short pivot2 = a[e4];
+            a[e2] = a[left];
+            a[e4] = a[right];
+
+            while (a[++less] < pivot1) {
+                // skip the prefix that is already in place
+            }
+            while (a[--great] > pivot2) {
+                // skip the suffix that is already in place
+            }
+
+            outer: for (int k = less - 1; ++k <= great;) {
+                short ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else if (ak > pivot2) {
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            // Put the pivots in their final positions
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+
+            sort(a, left, less - 2, leftmost);
+            sort(a, great + 2, right, false);
+
+            if (less < e1 && e5 < great) {
+                /*
+                 * The middle part is suspiciously large, which usually means
+                 * many elements equal to the pivots: move those to its ends
+                 * as they are already in their final position.
+                 */
+                while (a[less] == pivot1) {
+                    less++;
+                }
+                while (a[great] == pivot2) {
+                    great--;
+                }
+                outer: for (int k = less - 1; ++k <= great;) {
+                    short ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less] = ak;
+                        less++;
+                    } else if (ak == pivot2) {
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) {
+                            a[k] = a[less];
+                            a[less] = a[great];
+                            less++;
+                        } else {
+                            a[k] = a[great];
+                        }
+                        a[great] = ak;
+                        great--;
+                    }
+                }
+            }
+
+            sort(a, less, great, false);
+        } else {
+            /*
+             * The samples are not distinct, so split three ways around the
+             * middle one instead, which handles runs of equal elements in
+             * linear time:
+             * 
+             *   left        less          k          great         right
+             * +-----------------------------------------------------------+
+             * |  < pivot  |   == pivot   |     ?     |     > pivot        |
+             * +-----------------------------------------------------------+
+             */
+            short pivot = a[e3];
+
+            for (int k = less; k <= great; k++) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                short ak = a[k];
+                if (ak < pivot) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else {
+                    while (a[great] > pivot) {
+                        great--;
+                    }
+                    if (a[great] < pivot) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            sort(a, left, less - 1, leftmost);
+            sort(a, great + 1, right, false);
+        }
+    }
+
+    /**
+     * Sorts the range of the {@code char} array in ascending numerical order.
+     */
+    static void sort(char[] a, int start, int end) {
+        if (end - start > COUNTING_SORT_THRESHOLD_FOR_SHORT_OR_CHAR) {
+            int[] count = new int[1 << 16];
+            for (int i = start; i < end; i++) {
+                count[a[i]]++;
+            }
+            for (int i = count.length, k = end; k > start;) {
+                while (count[--i] == 0) {
+                    // skip values that do not occur
+                }
+                char value = (char) i;
+                for (int s = count[i]; s > 0; s--) {
+                    a[--k] = value;
+                }
+            }
+        } else {
+            sort(a, start, end - 1, true);
+        }
+    }
+    /**
+     * Sorts the range from {@code left} to {@code right} inclusive of the
+     * array. {@code leftmost} is false when the element just before
+     * {@code left} is known to be no greater than any element of the range,
+     * so that it can serve as a sentinel for the insertion sort.
+     */
+    private static void sort(char[] a, int left, int right, boolean leftmost) {
+        int length = right - left + 1;
+
+        if (length < INSERTION_SORT_THRESHOLD) {
+            if (leftmost) {
+                for (int i = left + 1; i <= right; i++) {
+                    char ai = a[i];
+                    int j = i - 1;
+                    while (j >= left && ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            } else {
+                for (int i = left + 1; i <= right; i++) {
+                    char ai = a[i];
+                    int j = i - 1;
+                    while (ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            }
+            return;
+        }
+
+        // Five evenly spaced elements around the middle, sorted in place
+        int seventh = (length >> 3) + (length >> 6) + 1;
+        int e3 = (left + right) >>> 1;
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) {
+            char t = a[e2];
+            a[e2] = a[e1];
+            a[e1] = t;
+        }
+        if (a[e3] < a[e2]) {
+            char t = a[e3];
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1]) {
+                a[e2] = a[e1];
+                a[e1] = t;
+            }
+        }
+        if (a[e4] < a[e3]) {
+            char t = a[e4];
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2]) {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1]) {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                }
+            }
+        }
+        if (a[e5] < a[e4]) {
+            char t = a[e5];
+            a[e5] = a[e4];
+            a[e4] = t;
+            if (t < a[e3]) {
+                a[e4] = a[e3];
+                a[e3] = t;
+                if (t < a[e2]) {
+                    a[e3] = a[e2];
+                    a[e2] = t;
+                    if (t < a[e1]) {
+                        a[e2] = a[e1];
+                        a[e1] = t;
+                    }
+                }
+            }
+        }
+
+        int less = left;
+        int great = right;
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4]
+                && a[e4] != a[e5]) {
+            /*
+             * Partition into three parts using the second and fourth sample
+             * as pivots:
+             * 
+             *   left        less              k          great         right
+             * +-----------------------------------------------------------+
+             * | < pivot1 | pivot1 <= && <= pivot2 |  ?  |    > pivot2      |
+             * +-----------------------------------------------------------+
+             */
+            char pivot1 = a[e2];
+            char pivot2 = a[e4];
+            a[e2] = a[left];
+            a[e4] = a[right];
+
+            while (a[++less] < pivot1) {
+                // skip the prefix that is already in place
+            }
+            while (a[--great] > pivot2) {
+                // skip the suffix that is already in place
+            }
+
+            outer: for (int k = less - 1; ++k <= great;) {
+                char ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else if (ak > pivot2) {
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            // Put the pivots in their final positions
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+
+            sort(a, left, less - 2, leftmost);
+            sort(a, great + 2, right, false);
+
+            if (less < e1 && e5 < great) {
+                /*
+                 * The middle part is suspiciously large, which usually means
+                 * many elements equal to the pivots: move those to its ends
+                 * as they are already in their final position.
+                 */
+                while (a[less] == pivot1) {
+                    less++;
+                }
+                while (a[great] == pivot2) {
+                    great--;
+                }
+                outer: for (int k = less - 1; ++k <= great;) {
+                    char ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less] = ak;
+                        less++;
+                    } else if (ak == pivot2) {
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) {
+                            a[k] = a[less];
+                            a[less] = a[great];
+                            less++;
+                        } else {
+                            a[k] = a[great];
+                        }
+                        a[great] = ak;
+                        great--;
+                    }
+                }
+            }
+
+            sort(a, less, great, false);
+        } else {
+            /*
+             * The samples are not distinct, so split three ways around the
+             * middle one instead, which handles runs of equal elements in
+             * linear time:
+             * 
+             *   left        less          k          great         right
+             * +-----------------------------------------------------------+
+             * |  < pivot  |   == pivot   |     ?     |     > pivot        |
+             * +-----------------------------------------------------------+
+             */
+            char pivot = a[e3];
+
+            for (int k = less; k <= great; k++) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                char ak = a[k];
+                if (ak < pivot) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else {
+                    while (a[great] > pivot) {
+                        great--;
+                    }
+                    if (a[great] < pivot) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            sort(a, left, less - 1, leftmost);
+            sort(a, great + 1, right, false);
+        }
+    }
+
+    /**
+     * Sorts the range of the {@code byte} array in ascending numerical order.
+     */
+    static void sort(byte[] a, int start, int end) {
+        if (end - start > COUNTING_SORT_THRESHOLD_FOR_BYTE) {
+            int[] count = new int[1 << 8];
+            for (int i = start; i < end; i++) {
+                count[a[i] - Byte.MIN_VALUE]++;
+            }
+            for (int i = count.length, k = end; k > start;) {
+                while (count[--i] == 0) {
+                    // skip values that do not occur
+                }
+                byte value = (byte) (i + Byte.MIN_VALUE);
+                for (int s = count[i]; s > 0; s--) {
+                    a[--k] = value;
+                }
+            }
+        } else {
+            sort(a, start, end - 1, true);
+        }
+    }
+    /**
+     * Sorts the range from {@code left} to {@code right} inclusive of the
+     * array. {@code leftmost} is false when the element just before
+     * {@code left} is known to be no greater than any element of the range,
+     * so that it can serve as a sentinel for the insertion sort.
+     */
+    private static void sort(byte[] a, int left, int right, boolean leftmost) {
+        int length = right - left + 1;
+
+        if (length < INSERTION_SORT_THRESHOLD) {
+            if (leftmost) {
+                for (int i = left + 1; i <= right; i++) {
+                    byte ai = a[i];
+                    int j = i - 1;
+                    while (j >= left && ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            } else {
+                for (int i = left + 1; i <= right; i++) {
+                    byte ai = a[i];
+                    int j = i - 1;
+                    while (ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            }
+            return;
+        }
+
+        // Five evenly spaced elements around the middle, sorted in place
+        int seventh = (length >> 3) + (length >> 6) + 1;
+        int e3 = (left + right) >>> 1;
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) {
+            byte t = a[e2];
+            a[e2] = a[e1];
+            a[e1] = t;
+        }
+        if (a[e3] < a[e2]) {
+            byte t = a[e3];
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1]) {
+                a[e2] = a[e1];
+                a[e1] = t;
+            }
+        }
+        if (a[e4] < a[e3]) {
+            byte t = a[e4];
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2]) {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1]) {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                }
+            }
+        }
+        if (a[e5] < a[e4]) {
+            byte t = a[e5];
+            a[e5] = a[e4];
+            a[e4] = t;
+            if (t < a[e3]) {
+                a[e4] = a[e3];
+                a[e3] = t;
+                if (t < a[e2]) {
+                    a[e3] = a[e2];
+                    a[e2] = t;
+                    if (t < a[e1]) {
+                        a[e2] = a[e1];
+                        a[e1] = t;
+                    }
+                }
+            }
+        }
+
+        int less = left;
+        int great = right;
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4]
+                && a[e4] != a[e5]) {
+            /*
+             * Partition into three parts using the second and fourth sample
+             * as pivots:
+             * 
+             *   left        less              k          great         right
+             * +-----------------------------------------------------------+
+             * | < pivot1 | pivot1 <= && <= pivot2 |  ?  |    > pivot2      |
+             * +-----------------------------------------------------------+
+             */
+            byte pivot1 = a[e2];
+            byte pivot2 = a[e4];
+            a[e2] = a[left];
+            a[e4] = a[right];
+
+            while (a[++less] < pivot1) {
+                // skip the prefix that is already in place
+            }
+            while (a[--great] > pivot2) {
+                // skip the suffix that is already in place
+            }
+
+            outer: for (int k = less - 1; ++k <= great;) {
+                byte ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else if (ak > pivot2) {
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            // Put the pivots in their final positions
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+
+            sort(a, left, less - 2, leftmost);
+            sort(a, great + 2, right, false);
+
+            if (less < e1 && e5 < great) {
+                /*
+                 * The middle part is suspiciously large, which usually means
+                 * many elements equal to the pivots: move those to its ends
+                 * as they are already in their final position.
+                 */
+                while (a[less] == pivot1) {
+                    less++;
+                }
+                while (a[great] == pivot2) {
+                    great--;
+                }
+                outer: for (int k = less - 1; ++k <= great;) {
+                    byte ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less] = ak;
+                        less++;
+                    } else if (ak == pivot2) {
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) {
+                            a[k] = a[less];
+                            a[less] = a[great];
+                            less++;
+                        } else {
+                            a[k] = a[great];
+                        }
+                        a[great] = ak;
+                        great--;
+                    }
+                }
+            }
+
+            sort(a, less, great, false);
+        } else {
+            /*
+             * The samples are not distinct, so split three ways around the
+             * middle one instead, which handles runs of equal elements in
+             * linear time:
+             * 
+             *   left        less          k          great         right
+             * +-----------------------------------------------------------+
+             * |  < pivot  |   == pivot   |     ?     |     > pivot        |
+             * +-----------------------------------------------------------+
+             */
+            byte pivot = a[e3];
+
+            for (int k = less; k <= great; k++) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                byte ak = a[k];
+                if (ak < pivot) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else {
+                    while (a[great] > pivot) {
+                        great--;
+                    }
+                    if (a[great] < pivot) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            sort(a, left, less - 1, leftmost);
+            sort(a, great + 1, right, false);
+        }
+    }
+
+    /**
+     * Sorts the range of the {@code float} array in the order imposed by
+     * {@code Float.compareTo()}: -0.0 before 0.0 and NaNs last. The NaNs are
+     * moved to the end first, the rest is sorted with the plain numerical
+     * comparisons, which consider -0.0 and 0.0 equal, and the zeros are put
+     * in order afterwards.
+     */
+    static void sort(float[] a, int start, int end) {
+        int left = start;
+        int right = end - 1;
+        while (left <= right && Float.isNaN(a[right])) {
+            right--;
+        }
+        for (int k = right; --k >= left;) {
+            float ak = a[k];
+            if (ak != ak) {
+                a[k] = a[right];
+                a[right] = ak;
+                right--;
+            }
+        }
+
+        sort(a, left, right, true);
+
+        // Find the first zero, if any, and move the negative zeros before it
+        int hi = right;
+        while (left < hi) {
+            int middle = (left + hi) >>> 1;
+            if (a[middle] < 0) {
+                left = middle + 1;
+            } else {
+                hi = middle;
+            }
+        }
+        while (left <= right && Float.floatToRawIntBits(a[left]) < 0) {
+            left++;
+        }
+        for (int k = left, p = left - 1; ++k <= right;) {
+            float ak = a[k];
+            if (ak != 0) {
+                break;
+            }
+            if (Float.floatToRawIntBits(ak) < 0) {
+                a[k] = 0;
+                a[++p] = -0.0f;
+            }
+        }
+    }
+    /**
+     * Sorts the range from {@code left} to {@code right} inclusive of the
+     * array. {@code leftmost} is false when the element just before
+     * {@code left} is known to be no greater than any element of the range,
+     * so that it can serve as a sentinel for the insertion sort.
+     */
+    private static void sort(float[] a, int left, int right, boolean leftmost) {
+        int length = right - left + 1;
+
+        if (length < INSERTION_SORT_THRESHOLD) {
+            if (leftmost) {
+                for (int i = left + 1; i <= right; i++) {
+                    float ai = a[i];
+                    int j = i - 1;
+                    while (j >= left && ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            } else {
+                for (int i = left + 1; i <= right; i++) {
+                    float ai = a[i];
+                    int j = i - 1;
+                    while (ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            }
+            return;
+        }
+
+        // Five evenly spaced elements around the middle, sorted in place
+        int seventh = (length >> 3) + (length >> 6) + 1;
+        int e3 = (left + right) >>> 1;
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) {
+            float t = a[e2];
+            a[e2] = a[e1];
+            a[e1] = t;
+        }
+        if (a[e3] < a[e2]) {
+            float t = a[e3];
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1]) {
+                a[e2] = a[e1];
+                a[e1] = t;
+            }
+        }
+        if (a[e4] < a[e3]) {
+            float t = a[e4];
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2]) {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1]) {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                }
+            }
+        }
+        if (a[e5] < a[e4]) {
+            float t = a[e5];
+            a[e5] = a[e4];
+            a[e4] = t;
+            if (t < a[e3]) {
+                a[e4] = a[e3];
+                a[e3] = t;
+                if (t < a[e2]) {
+                    a[e3] = a[e2];
+                    a[e2] = t;
+                    if (t < a[e1]) {
+                        a[e2] = a[e1];
+                        a[e1] = t;
+                    }
+                }
+            }
+        }
+
+        int less = left;
+        int great = right;
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4]
+                && a[e4] != a[e5]) {
+            /*
+             * Partition into three parts using the second and fourth sample
+             * as pivots:
+             * 
+             *   left        less              k          great         right
+             * +-----------------------------------------------------------+
+             * | < pivot1 | pivot1 <= && <= pivot2 |  ?  |    > pivot2      |
+             * +-----------------------------------------------------------+
+             */
+            float pivot1 = a[e2];
+            float pivot2 = a[e4];
+            a[e2] = a[left];
+            a[e4] = a[right];
+
+            while (a[++less] < pivot1) {
+                // skip the prefix that is already in place
+            }
+            while (a[--great] > pivot2) {
+                // skip the suffix that is already in place
+            }
+
+            outer: for (int k = less - 1; ++k <= great;) {
+                float ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else if (ak > pivot2) {
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            // Put the pivots in their final positions
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+
+            sort(a, left, less - 2, leftmost);
+            sort(a, great + 2, right, false);
+
+            if (less < e1 && e5 < great) {
+                /*
+                 * The middle part is suspiciously large, which usually means
+                 * many elements equal to the pivots: move those to its ends
+                 * as they are already in their final position.
+                 */
+                while (a[less] == pivot1) {
+                    less++;
+                }
+                while (a[great] == pivot2) {
+                    great--;
+                }
+                outer: for (int k = less - 1; ++k <= great;) {
+                    float ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less] = ak;
+                        less++;
+                    } else if (ak == pivot2) {
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) {
+                            a[k] = a[less];
+                            a[less] = a[great];
+                            less++;
+                        } else {
+                            a[k] = a[great];
+                        }
+                        a[great] = ak;
+                        great--;
+                    }
+                }
+            }
+
+            sort(a, less, great, false);
+        } else {
+            /*
+             * The samples are not distinct, so split three ways around the
+             * middle one instead, which handles runs of equal elements in
+             * linear time:
+             * 
+             *   left        less          k          great         right
+             * +-----------------------------------------------------------+
+             * |  < pivot  |   == pivot   |     ?     |     > pivot        |
+             * +-----------------------------------------------------------+
+             */
+            float pivot = a[e3];
+
+            for (int k = less; k <= great; k++) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                float ak = a[k];
+                if (ak < pivot) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else {
+                    while (a[great] > pivot) {
+                        great--;
+                    }
+                    if (a[great] < pivot) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            sort(a, left, less - 1, leftmost);
+            sort(a, great + 1, right, false);
+        }
+    }
+
+    /**
+     * Sorts the range of the {@code double} array in the order imposed by
+     * {@code Double.compareTo()}: -0.0 before 0.0 and NaNs last. The NaNs are
+     * moved to the end first, the rest is sorted with the plain numerical
+     * comparisons, which consider -0.0 and 0.0 equal, and the zeros are put
+     * in order afterwards.
+     */
+    static void sort(double[] a, int start, int end) {
+        int left = start;
+        int right = end - 1;
+        while (left <= right && Double.isNaN(a[right])) {
+            right--;
+        }
+        for (int k = right; --k >= left;) {
+            double ak = a[k];
+            if (ak != ak) {
+                a[k] = a[right];
+                a[right] = ak;
+                right--;
+            }
+        }
+
+        sort(a, left, right, true);
+
+        // Find the first zero, if any, and move the negative zeros before it
+        int hi = right;
+        while (left < hi) {
+            int middle = (left + hi) >>> 1;
+            if (a[middle] < 0) {
+                left = middle + 1;
+            } else {
+                hi = middle;
+            }
+        }
+        while (left <= right && Double.doubleToRawLongBits(a[left]) < 0) {
+            left++;
+        }
+        for (int k = left, p = left - 1; ++k <= right;) {
+            double ak = a[k];
+            if (ak != 0) {
+                break;
+            }
+            if (Double.doubleToRawLongBits(ak) < 0) {
+                a[k] = 0;
+                a[++p] = -0.0d;
+            }
+        }
+    }
+    /**
+     * Sorts the range from {@code left} to {@code right} inclusive of the
+     * array. {@code leftmost} is false when the element just before
+     * {@code left} is known to be no greater than any element of the range,
+     * so that it can serve as a sentinel for the insertion sort.
+     */
+    private static void sort(double[] a, int left, int right, boolean leftmost) {
+        int length = right - left + 1;
+
+        if (length < INSERTION_SORT_THRESHOLD) {
+            if (leftmost) {
+                for (int i = left + 1; i <= right; i++) {
+                    double ai = a[i];
+                    int j = i - 1;
+                    while (j >= left && ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            } else {
+                for (int i = left + 1; i <= right; i++) {
+                    double ai = a[i];
+                    int j = i - 1;
+                    while (ai < a[j]) {
+                        a[j + 1] = a[j];
+                        j--;
+                    }
+                    a[j + 1] = ai;
+                }
+            }
+            return;
+        }
+
+        // Five evenly spaced elements around the middle, sorted in place
+        int seventh = (length >> 3) + (length >> 6) + 1;
+        int e3 = (left + right) >>> 1;
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) {
+            double t = a[e2];
+            a[e2] = a[e1];
+            a[e1] = t;
+        }
+        if (a[e3] < a[e2]) {
+            double t = a[e3];
+            a[e3] = a[e2];
+            a[e2] = t;
+            if (t < a[e1]) {
+                a[e2] = a[e1];
+                a[e1] = t;
+            }
+        }
+        if (a[e4] < a[e3]) {
+            double t = a[e4];
+            a[e4] = a[e3];
+            a[e3] = t;
+            if (t < a[e2]) {
+                a[e3] = a[e2];
+                a[e2] = t;
+                if (t < a[e1]) {
+                    a[e2] = a[e1];
+                    a[e1] = t;
+                }
+            }
+        }
+        if (a[e5] < a[e4]) {
+            double t = a[e5];
+            a[e5] = a[e4];
+            a[e4] = t;
+            if (t < a[e3]) {
+                a[e4] = a[e3];
+                a[e3] = t;
+                if (t < a[e2]) {
+                    a[e3] = a[e2];
+                    a[e2] = t;
+                    if (t < a[e1]) {
+                        a[e2] = a[e1];
+                        a[e1] = t;
+                    }
+                }
+            }
+        }
+
+        int less = left;
+        int great = right;
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4]
+                && a[e4] != a[e5]) {
+            /*
+             * Partition into three parts using the second and fourth sample
+             * as pivots:
+             * 
+             *   left        less              k          great         right
+             * +-----------------------------------------------------------+
+             * | < pivot1 | pivot1 <= && <= pivot2 |  ?  |    > pivot2      |
+             * +-----------------------------------------------------------+
+             */
+            double pivot1 = a[e2];
+            double pivot2 = a[e4];
+            a[e2] = a[left];
+            a[e4] = a[right];
+
+            while (a[++less] < pivot1) {
+                // skip the prefix that is already in place
+            }
+            while (a[--great] > pivot2) {
+                // skip the suffix that is already in place
+            }
+
+            outer: for (int k = less - 1; ++k <= great;) {
+                double ak = a[k];
+                if (ak < pivot1) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else if (ak > pivot2) {
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            // Put the pivots in their final positions
+            a[left] = a[less - 1];
+            a[less - 1] = pivot1;
+            a[right] = a[great + 1];
+            a[great + 1] = pivot2;
+
+            sort(a, left, less - 2, leftmost);
+            sort(a, great + 2, right, false);
+
+            if (less < e1 && e5 < great) {
+                /*
+                 * The middle part is suspiciously large, which usually means
+                 * many elements equal to the pivots: move those to its ends
+                 * as they are already in their final position.
+                 */
+                while (a[less] == pivot1) {
+                    less++;
+                }
+                while (a[great] == pivot2) {
+                    great--;
+                }
+                outer: for (int k = less - 1; ++k <= great;) {
+                    double ak = a[k];
+                    if (ak == pivot1) {
+                        a[k] = a[less];
+                        a[less] = ak;
+                        less++;
+                    } else if (ak == pivot2) {
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) {
+                            a[k] = a[less];
+                            a[less] = a[great];
+                            less++;
+                        } else {
+                            a[k] = a[great];
+                        }
+                        a[great] = ak;
+                        great--;
+                    }
+                }
+            }
+
+            sort(a, less, great, false);
+        } else {
+            /*
+             * The samples are not distinct, so split three ways around the
+             * middle one instead, which handles runs of equal elements in
+             * linear time:
+             * 
+             *   left        less          k          great         right
+             * +-----------------------------------------------------------+
+             * |  < pivot  |   == pivot   |     ?     |     > pivot        |
+             * +-----------------------------------------------------------+
+             */
+            double pivot = a[e3];
+
+            for (int k = less; k <= great; k++) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                double ak = a[k];
+                if (ak < pivot) {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    less++;
+                } else {
+                    while (a[great] > pivot) {
+                        great--;
+                    }
+                    if (a[great] < pivot) {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        less++;
+                    } else {
+                        a[k] = a[great];
+                    }
+                    a[great] = ak;
+                    great--;
+                }
+            }
+
+            sort(a, left, less - 1, leftmost);
+            sort(a, great + 1, right, false);
+        }
+    }
+}
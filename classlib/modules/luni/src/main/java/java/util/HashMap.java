@@ -21,10 +21,18 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 
 /**
  * HashMap is an implementation of Map. All optional operations (adding and
  * removing) are supported. Keys and values can be any objects.
+ * <p>
+ * The entries of a bucket are chained in a list. When many keys land in the
+ * same bucket, because their hash codes are poor or chosen on purpose, the
+ * bucket is also indexed by a balanced tree ordered by hash code and, for
+ * keys which are {@code Comparable} to each other, by their natural order, so
+ * that lookups stay logarithmic.
  */
 public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
         Cloneable, Serializable {
@@ -65,6 +73,28 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
      */
     int threshold;
 
+    /*
+     * The trees indexing the buckets whose chains have grown long, at the
+     * index of the bucket, or null if there are none
+     */
+    transient TreeBin<K, V>[] treeBins;
+
+    /*
+     * length of a chain from which the bucket is indexed by a tree
+     */
+    static final int TREEIFY_THRESHOLD = 8;
+
+    /*
+     * number of entries below which a tree is dropped again
+     */
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    /*
+     * smallest storage size with trees; smaller maps had better grow to spread
+     * the entries
+     */
+    static final int MIN_TREEIFY_CAPACITY = 64;
+
     static class Entry<K, V> extends MapEntry<K, V> {
         final int origKeyHash;
 
@@ -91,6 +121,444 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
         }
     }
 
+    /*
+     * A red-black tree over the entries of a bucket, ordered by hash code,
+     * then by natural order when the keys are of the same Comparable class,
+     * then arbitrarily. The chain of the bucket is kept in the order of the
+     * tree, so that the entry before another in the chain is found in the
+     * tree.
+     */
+    static final class TreeBin<K, V> {
+        TreeNode<K, V> root;
+
+        int size;
+
+        /*
+         * Answers the entry with the key, or null.
+         */
+        Entry<K, V> find(int hash, Object key) {
+            TreeNode<K, V> node = locate(hash, key);
+            if (node == null) {
+                return null;
+            }
+            if (matches(node.entry, hash, key)) {
+                return node.entry;
+            }
+            // the chain holds the entries of the subtree one after the other
+            Entry<K, V> last = rightmost(node).entry;
+            for (Entry<K, V> entry = leftmost(node).entry;; entry = entry.next) {
+                if (matches(entry, hash, key)) {
+                    return entry;
+                }
+                if (entry == last) {
+                    return null;
+                }
+            }
+        }
+
+        /*
+         * Adds the entry, answering the entry before it in the tree, or null
+         * if it is the first.
+         */
+        Entry<K, V> insert(Entry<K, V> entry) {
+            TreeNode<K, V> node = new TreeNode<K, V>(entry);
+            size++;
+            if (root == null) {
+                root = node;
+                return null;
+            }
+            int hash = entry.origKeyHash;
+            Object key = entry.key;
+            Class<?> keyClass = comparableClassFor(key);
+            TreeNode<K, V> parent = root;
+            for (;;) {
+                int dir = compare(hash, key, keyClass, parent.entry);
+                TreeNode<K, V> next = dir < 0 ? parent.left : parent.right;
+                if (next == null) {
+                    node.parent = parent;
+                    if (dir < 0) {
+                        parent.left = node;
+                    } else {
+                        parent.right = node;
+                    }
+                    break;
+                }
+                parent = next;
+            }
+            fixAfterInsertion(node);
+            TreeNode<K, V> prev = predecessor(node);
+            return prev == null ? null : prev.entry;
+        }
+
+        /*
+         * Removes the node, answering the entry before it, or null if it was
+         * the first.
+         */
+        Entry<K, V> remove(TreeNode<K, V> node) {
+            TreeNode<K, V> prev = predecessor(node);
+            Entry<K, V> result = prev == null ? null : prev.entry;
+            delete(node);
+            size--;
+            return result;
+        }
+
+        /*
+         * Answers the first entry of the tree with the others chained after
+         * it in order.
+         */
+        Entry<K, V> chain() {
+            TreeNode<K, V> node = leftmost(root);
+            Entry<K, V> first = node.entry;
+            Entry<K, V> last = first;
+            while ((node = successor(node)) != null) {
+                last.next = node.entry;
+                last = node.entry;
+            }
+            last.next = null;
+            return first;
+        }
+
+        /*
+         * Answers the node of the entry with the key, or null.
+         */
+        TreeNode<K, V> findNode(int hash, Object key) {
+            TreeNode<K, V> node = locate(hash, key);
+            if (node == null || matches(node.entry, hash, key)) {
+                return node;
+            }
+            TreeNode<K, V> last = rightmost(node);
+            for (node = leftmost(node);; node = successor(node)) {
+                if (matches(node.entry, hash, key)) {
+                    return node;
+                }
+                if (node == last) {
+                    return null;
+                }
+            }
+        }
+
+        /*
+         * Answers the node of the entry with the key, or the root of the
+         * subtree it is in if the order of the keys in there is unknown, or
+         * null.
+         */
+        private TreeNode<K, V> locate(int hash, Object key) {
+            TreeNode<K, V> node = root;
+            Class<?> keyClass = null;
+            boolean comparable = false;
+            while (node != null) {
+                Entry<K, V> entry = node.entry;
+                int nodeHash = entry.origKeyHash;
+                if (hash < nodeHash) {
+                    node = node.left;
+                } else if (hash > nodeHash) {
+                    node = node.right;
+                } else if (key == entry.key
+                        || (key != null && key.equals(entry.key))) {
+                    return node;
+                } else if (node.left == null) {
+                    node = node.right;
+                } else if (node.right == null) {
+                    node = node.left;
+                } else {
+                    if (!comparable) {
+                        keyClass = comparableClassFor(key);
+                        comparable = true;
+                    }
+                    int dir = compareComparables(keyClass, key, entry.key);
+                    if (dir == 0) {
+                        return node;
+                    }
+                    node = dir < 0 ? node.left : node.right;
+                }
+            }
+            return null;
+        }
+
+        private static boolean matches(Entry<?, ?> entry, int hash, Object key) {
+            return entry.origKeyHash == hash
+                    && (key == entry.key || (key != null && key
+                            .equals(entry.key)));
+        }
+
+        private static int compare(int hash, Object key, Class<?> keyClass,
+                Entry<?, ?> entry) {
+            int nodeHash = entry.origKeyHash;
+            if (hash != nodeHash) {
+                return hash < nodeHash ? -1 : 1;
+            }
+            int dir = compareComparables(keyClass, key, entry.key);
+            if (dir != 0) {
+                return dir;
+            }
+            return tieBreakOrder(key, entry.key);
+        }
+
+        private void delete(TreeNode<K, V> node) {
+            if (node.left != null && node.right != null) {
+                // take the place of the next entry, which has no left child
+                TreeNode<K, V> next = successor(node);
+                node.entry = next.entry;
+                node = next;
+            }
+            TreeNode<K, V> replacement = node.left != null ? node.left
+                    : node.right;
+            if (replacement != null) {
+                replacement.parent = node.parent;
+                replaceChild(node, replacement);
+                node.left = node.right = node.parent = null;
+                if (!node.red) {
+                    fixAfterDeletion(replacement);
+                }
+            } else if (node.parent == null) {
+                root = null;
+            } else {
+                if (!node.red) {
+                    fixAfterDeletion(node);
+                }
+                replaceChild(node, null);
+                node.parent = null;
+            }
+        }
+
+        private void replaceChild(TreeNode<K, V> node,
+                TreeNode<K, V> replacement) {
+            TreeNode<K, V> parent = node.parent;
+            if (parent == null) {
+                root = replacement;
+            } else if (node == parent.left) {
+                parent.left = replacement;
+            } else {
+                parent.right = replacement;
+            }
+        }
+
+        private void fixAfterInsertion(TreeNode<K, V> x) {
+            x.red = true;
+            while (x != root && x.parent.red) {
+                TreeNode<K, V> parent = x.parent;
+                TreeNode<K, V> grand = parent.parent;
+                if (parent == grand.left) {
+                    TreeNode<K, V> uncle = grand.right;
+                    if (isRed(uncle)) {
+                        parent.red = false;
+                        uncle.red = false;
+                        grand.red = true;
+                        x = grand;
+                    } else {
+                        if (x == parent.right) {
+                            x = parent;
+                            rotateLeft(x);
+                            parent = x.parent;
+                        }
+                        parent.red = false;
+                        grand.red = true;
+                        rotateRight(grand);
+                    }
+                } else {
+                    TreeNode<K, V> uncle = grand.left;
+                    if (isRed(uncle)) {
+                        parent.red = false;
+                        uncle.red = false;
+                        grand.red = true;
+                        x = grand;
+                    } else {
+                        if (x == parent.left) {
+                            x = parent;
+                            rotateRight(x);
+                            parent = x.parent;
+                        }
+                        parent.red = false;
+                        grand.red = true;
+                        rotateLeft(grand);
+                    }
+                }
+            }
+            root.red = false;
+        }
+
+        private void fixAfterDeletion(TreeNode<K, V> x) {
+            while (x != root && !x.red) {
+                TreeNode<K, V> parent = x.parent;
+                if (x == parent.left) {
+                    TreeNode<K, V> sibling = parent.right;
+                    if (sibling.red) {
+                        sibling.red = false;
+                        parent.red = true;
+                        rotateLeft(parent);
+                        sibling = parent.right;
+                    }
+                    if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                        sibling.red = true;
+                        x = parent;
+                    } else {
+                        if (!isRed(sibling.right)) {
+                            sibling.left.red = false;
+                            sibling.red = true;
+                            rotateRight(sibling);
+                            sibling = parent.right;
+                        }
+                        sibling.red = parent.red;
+                        parent.red = false;
+                        sibling.right.red = false;
+                        rotateLeft(parent);
+                        x = root;
+                    }
+                } else {
+                    TreeNode<K, V> sibling = parent.left;
+                    if (sibling.red) {
+                        sibling.red = false;
+                        parent.red = true;
+                        rotateRight(parent);
+                        sibling = parent.left;
+                    }
+                    if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                        sibling.red = true;
+                        x = parent;
+                    } else {
+                        if (!isRed(sibling.left)) {
+                            sibling.right.red = false;
+                            sibling.red = true;
+                            rotateLeft(sibling);
+                            sibling = parent.left;
+                        }
+                        sibling.red = parent.red;
+                        parent.red = false;
+                        sibling.left.red = false;
+                        rotateRight(parent);
+                        x = root;
+                    }
+                }
+            }
+            x.red = false;
+        }
+
+        private void rotateLeft(TreeNode<K, V> node) {
+            TreeNode<K, V> right = node.right;
+            node.right = right.left;
+            if (right.left != null) {
+                right.left.parent = node;
+            }
+            right.parent = node.parent;
+            replaceChild(node, right);
+            right.left = node;
+            node.parent = right;
+        }
+
+        private void rotateRight(TreeNode<K, V> node) {
+            TreeNode<K, V> left = node.left;
+            node.left = left.right;
+            if (left.right != null) {
+                left.right.parent = node;
+            }
+            left.parent = node.parent;
+            replaceChild(node, left);
+            left.right = node;
+            node.parent = left;
+        }
+
+        private static boolean isRed(TreeNode<?, ?> node) {
+            return node != null && node.red;
+        }
+
+        private static <K, V> TreeNode<K, V> leftmost(TreeNode<K, V> node) {
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+
+        private static <K, V> TreeNode<K, V> rightmost(TreeNode<K, V> node) {
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node;
+        }
+
+        private static <K, V> TreeNode<K, V> successor(TreeNode<K, V> node) {
+            if (node.right != null) {
+                return leftmost(node.right);
+            }
+            TreeNode<K, V> parent = node.parent;
+            while (parent != null && node == parent.right) {
+                node = parent;
+                parent = parent.parent;
+            }
+            return parent;
+        }
+
+        private static <K, V> TreeNode<K, V> predecessor(TreeNode<K, V> node) {
+            if (node.left != null) {
+                return rightmost(node.left);
+            }
+            TreeNode<K, V> parent = node.parent;
+            while (parent != null && node == parent.left) {
+                node = parent;
+                parent = parent.parent;
+            }
+            return parent;
+        }
+    }
+
+    static final class TreeNode<K, V> {
+        Entry<K, V> entry;
+
+        TreeNode<K, V> parent, left, right;
+
+        boolean red;
+
+        TreeNode(Entry<K, V> entry) {
+            this.entry = entry;
+        }
+    }
+
+    /*
+     * Answers the class of the key if it is Comparable to itself, null
+     * otherwise.
+     */
+    static Class<?> comparableClassFor(Object key) {
+        if (key instanceof Comparable) {
+            Class<?> c = key.getClass();
+            if (c == String.class) {
+                return c;
+            }
+            for (Type type : c.getGenericInterfaces()) {
+                if (type instanceof ParameterizedType) {
+                    ParameterizedType p = (ParameterizedType) type;
+                    Type[] args = p.getActualTypeArguments();
+                    if (p.getRawType() == Comparable.class && args.length == 1
+                            && args[0] == c) {
+                        return c;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compareComparables(Class<?> keyClass, Object key, Object other) {
+        if (keyClass == null || other == null || other.getClass() != keyClass) {
+            return 0;
+        }
+        return ((Comparable<Object>) key).compareTo(other);
+    }
+
+    /*
+     * An arbitrary but consistent order for keys which are not comparable.
+     */
+    static int tieBreakOrder(Object key, Object other) {
+        if (key != null && other != null) {
+            int dir = key.getClass().getName().compareTo(
+                    other.getClass().getName());
+            if (dir != 0) {
+                return dir;
+            }
+        }
+        return System.identityHashCode(key) <= System.identityHashCode(other) ? -1
+                : 1;
+    }
+
     private static class AbstractMapIterator<K, V>  {
         private int position = 0;
         int expectedModCount;
@@ -149,8 +617,9 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
             if (currentEntry==null) {
                 throw new IllegalStateException();
             }
+            int index = currentEntry.origKeyHash & (associatedMap.elementData.length - 1);
+            associatedMap.removeFromTree(index, currentEntry);
             if(prevEntry==null){
-                int index = currentEntry.origKeyHash & (associatedMap.elementData.length - 1);
                 associatedMap.elementData[index] = associatedMap.elementData[index].next;
             } else {
                 prevEntry.next = currentEntry.next;
@@ -358,6 +827,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
         if (elementCount > 0) {
             elementCount = 0;
             Arrays.fill(elementData, null);
+            treeBins = null;
             modCount++;
         }
     }
@@ -374,6 +844,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
             HashMap<K, V> map = (HashMap<K, V>) super.clone();
             map.elementCount = 0;
             map.elementData = newElementArray(elementData.length);
+            map.treeBins = null;
             map.putAll(this);
             
             return map;
@@ -479,6 +950,9 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
     }
 
     final Entry<K,V> findNonNullKeyEntry(Object key, int index, int keyHash) {
+        if (treeBins != null && treeBins[index] != null) {
+            return treeBins[index].find(keyHash, key);
+        }
         Entry<K,V> m = elementData[index];
         while (m != null
                 && (m.origKeyHash != keyHash || !areEqualKeys(key, m.key))) {
@@ -488,6 +962,9 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
     }
 
     final Entry<K,V> findNullKeyEntry() {
+        if (treeBins != null && treeBins[0] != null) {
+            return treeBins[0].find(0, null);
+        }
         Entry<K,V> m = elementData[0];
         while (m != null && m.key != null)
             m = m.next;
@@ -569,6 +1046,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
             if (entry == null) {
                 modCount++;
                 entry = createHashedEntry(null, 0, 0);
+                entryAdded(0, entry);
                 if (++elementCount > threshold) {
                     rehash();
                 }
@@ -580,6 +1058,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
             if (entry == null) {
                 modCount++;
                 entry = createHashedEntry(key, index, hash);
+                entryAdded(index, entry);
                 if (++elementCount > threshold) {
                     rehash();
                 }
@@ -605,6 +1084,68 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
         return entry;
     }
 
+    /*
+     * Called once the entry has been put at the head of the chain at the
+     * index: moves it to its place in the tree of the bucket, or makes one
+     * if the chain has grown long.
+     */
+    final void entryAdded(int index, Entry<K, V> entry) {
+        TreeBin<K, V> bin;
+        if (treeBins != null && (bin = treeBins[index]) != null) {
+            Entry<K, V> prev = bin.insert(entry);
+            if (prev != null) {
+                elementData[index] = entry.next;
+                entry.next = prev.next;
+                prev.next = entry;
+            }
+        } else if (elementData.length >= MIN_TREEIFY_CAPACITY) {
+            int length = 0;
+            while (entry != null && ++length < TREEIFY_THRESHOLD) {
+                entry = entry.next;
+            }
+            if (length == TREEIFY_THRESHOLD) {
+                treeify(index);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void treeify(int index) {
+        if (treeBins == null) {
+            treeBins = new TreeBin[elementData.length];
+        }
+        TreeBin<K, V> bin = new TreeBin<K, V>();
+        for (Entry<K, V> entry = elementData[index]; entry != null;) {
+            Entry<K, V> next = entry.next;
+            bin.insert(entry);
+            entry = next;
+        }
+        elementData[index] = bin.chain();
+        treeBins[index] = bin;
+    }
+
+    /*
+     * Removes the entry from the tree of its bucket, if there is one,
+     * answering the entry before it in the chain.
+     */
+    final Entry<K, V> removeFromTree(int index, Entry<K, V> entry) {
+        TreeBin<K, V> bin;
+        if (treeBins == null || (bin = treeBins[index]) == null) {
+            return null;
+        }
+        return removeFromTree(index, bin, bin.findNode(entry.origKeyHash,
+                entry.key));
+    }
+
+    private Entry<K, V> removeFromTree(int index, TreeBin<K, V> bin,
+            TreeNode<K, V> node) {
+        Entry<K, V> prev = bin.remove(node);
+        if (bin.size <= UNTREEIFY_THRESHOLD) {
+            treeBins[index] = null;
+        }
+        return prev;
+    }
+
     /**
      * Copies all the mappings in the specified map to this map. These mappings
      * will replace all mappings that this map had for any of the keys currently
@@ -649,6 +1190,23 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
         }
         elementData = newData;
         computeThreshold();
+
+        if (treeBins != null) {
+            // the long chains have been split, index what is left of them
+            treeBins = null;
+            if (length >= MIN_TREEIFY_CAPACITY) {
+                for (int i = 0; i < length; i++) {
+                    int chain = 0;
+                    for (Entry<K, V> entry = newData[i]; entry != null
+                            && chain < TREEIFY_THRESHOLD; entry = entry.next) {
+                        chain++;
+                    }
+                    if (chain == TREEIFY_THRESHOLD) {
+                        treeify(i);
+                    }
+                }
+            }
+        }
     }
 
     void rehash() {
@@ -679,7 +1237,14 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
     final void removeEntry(Entry<K, V> entry) {
         int index = entry.origKeyHash & (elementData.length - 1);
         Entry<K, V> m = elementData[index];
-        if (m == entry) {
+        if (treeBins != null && treeBins[index] != null) {
+            Entry<K, V> prev = removeFromTree(index, entry);
+            if (prev == null) {
+                elementData[index] = entry.next;
+            } else {
+                prev.next = entry.next;
+            }
+        } else if (m == entry) {
             elementData[index] = entry.next;
         } else {
             while (m.next != entry) {
@@ -699,10 +1264,27 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
         if (key != null) {
             int hash = computeHashCode(key);
             index = hash & (elementData.length - 1);
-            entry = elementData[index];
-            while (entry != null && !(entry.origKeyHash == hash && areEqualKeys(key, entry.key))) {
-                last = entry;
-                entry = entry.next;
+            TreeBin<K, V> bin;
+            if (treeBins != null && (bin = treeBins[index]) != null) {
+                TreeNode<K, V> node = bin.findNode(hash, key);
+                entry = null;
+                if (node != null) {
+                    entry = node.entry;
+                    last = removeFromTree(index, bin, node);
+                }
+            } else {
+                entry = elementData[index];
+                while (entry != null && !(entry.origKeyHash == hash && areEqualKeys(key, entry.key))) {
+                    last = entry;
+                    entry = entry.next;
+                }
+            }
+        } else if (treeBins != null && treeBins[0] != null) {
+            TreeNode<K, V> node = treeBins[0].findNode(0, null);
+            entry = null;
+            if (node != null) {
+                entry = node.entry;
+                last = removeFromTree(0, treeBins[0], node);
             }
         } else {
             entry = elementData[0];
@@ -804,16 +1386,23 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>,
         for (int i = elementCount; --i >= 0;) {
             K key = (K) stream.readObject();
             int index = (null == key) ? 0 : (computeHashCode(key) & (length - 1));
-            createEntry(key, index, (V) stream.readObject());
+            entryAdded(index, createEntry(key, index, (V) stream.readObject()));
         }
     }
 
     /*
      * Contract-related functionality 
      */
+
+    /*
+     * Answers the hash code of the key with its high bits folded into the low
+     * ones, which select the bucket. Entries keep it so that it is computed
+     * once.
+     */
     static int computeHashCode(Object key) {
-        return key.hashCode();
-}
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
 
     static boolean areEqualKeys(Object key1, Object key2) {
         return (key1 == key2) || key1.equals(key2);
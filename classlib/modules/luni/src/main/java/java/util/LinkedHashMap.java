@@ -323,8 +323,8 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
         if (key == null) {
             m = (LinkedHashMapEntry<K, V>) findNullKeyEntry();
         } else {
-            int hash = key.hashCode();
-            int index = (hash & 0x7FFFFFFF) % elementData.length;
+            int hash = computeHashCode(key);
+            int index = hash & (elementData.length - 1);
             m = (LinkedHashMapEntry<K, V>) findNonNullKeyEntry(key, index, hash);
         }
         if (m == null) {
@@ -404,21 +404,23 @@ public class LinkedHashMap<K, V> extends HashMap<K, V> implements Map<K, V> {
                     rehash();
                 }
                 m = (LinkedHashMapEntry<K, V>) createHashedEntry(null, 0, 0);
+                entryAdded(0, m);
             } else {
                 linkEntry(m);
             }
         } else {
-            int hash = key.hashCode();
-            int index = (hash & 0x7FFFFFFF) % elementData.length;
+            int hash = computeHashCode(key);
+            int index = hash & (elementData.length - 1);
             m = (LinkedHashMapEntry<K, V>) findNonNullKeyEntry(key, index, hash);
             if (m == null) {
                 modCount++;
                 if (++elementCount > threshold) {
                     rehash();
-                    index = (hash & 0x7FFFFFFF) % elementData.length;
+                    index = hash & (elementData.length - 1);
                 }
                 m = (LinkedHashMapEntry<K, V>) createHashedEntry(key, index,
                         hash);
+                entryAdded(index, m);
             } else {
                 linkEntry(m);
             }
@@ -0,0 +1,277 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util;
+
+/**
+ * A {@link SortedMap} extended with navigation methods returning the closest
+ * matches for given search targets. Methods {@code lowerEntry},
+ * {@code floorEntry}, {@code ceilingEntry} and {@code higherEntry} return
+ * {@code Map.Entry} objects associated with keys respectively less than, less
+ * than or equal, greater than or equal, and greater than a given key,
+ * returning {@code null} if there is no such key. The entries returned by
+ * these methods are snapshots of mappings at the time they were produced and
+ * do not support {@code Entry.setValue}.
+ * <p>
+ * A navigable map may be accessed and traversed in either ascending or
+ * descending key order. The {@code subMap}, {@code headMap} and
+ * {@code tailMap} methods taking boolean arguments describe whether the
+ * lower and upper bounds are inclusive.
+ *
+ * @param <K>
+ *            the type of the keys
+ * @param <V>
+ *            the type of the values
+ * @since 1.6
+ */
+public interface NavigableMap<K, V> extends SortedMap<K, V> {
+
+    /**
+     * Returns the entry with the greatest key strictly less than the given
+     * key.
+     *
+     * @param key
+     *            the key
+     * @return the entry, or {@code null} if there is no such key
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     */
+    Map.Entry<K, V> lowerEntry(K key);
+
+    /**
+     * Returns the greatest key strictly less than the given key.
+     *
+     * @param key
+     *            the key
+     * @return the key, or {@code null} if there is no such key
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     */
+    K lowerKey(K key);
+
+    /**
+     * Returns the entry with the greatest key less than or equal to the given
+     * key.
+     *
+     * @param key
+     *            the key
+     * @return the entry, or {@code null} if there is no such key
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     */
+    Map.Entry<K, V> floorEntry(K key);
+
+    /**
+     * Returns the greatest key less than or equal to the given key.
+     *
+     * @param key
+     *            the key
+     * @return the key, or {@code null} if there is no such key
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     */
+    K floorKey(K key);
+
+    /**
+     * Returns the entry with the least key greater than or equal to the given
+     * key.
+     *
+     * @param key
+     *            the key
+     * @return the entry, or {@code null} if there is no such key
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     */
+    Map.Entry<K, V> ceilingEntry(K key);
+
+    /**
+     * Returns the least key greater than or equal to the given key.
+     *
+     * @param key
+     *            the key
+     * @return the key, or {@code null} if there is no such key
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     */
+    K ceilingKey(K key);
+
+    /**
+     * Returns the entry with the least key strictly greater than the given
+     * key.
+     *
+     * @param key
+     *            the key
+     * @return the entry, or {@code null} if there is no such key
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     */
+    Map.Entry<K, V> higherEntry(K key);
+
+    /**
+     * Returns the least key strictly greater than the given key.
+     *
+     * @param key
+     *            the key
+     * @return the key, or {@code null} if there is no such key
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     */
+    K higherKey(K key);
+
+    /**
+     * Returns the entry with the least key.
+     *
+     * @return the entry, or {@code null} if the map is empty
+     */
+    Map.Entry<K, V> firstEntry();
+
+    /**
+     * Returns the entry with the greatest key.
+     *
+     * @return the entry, or {@code null} if the map is empty
+     */
+    Map.Entry<K, V> lastEntry();
+
+    /**
+     * Removes and returns the entry with the least key.
+     *
+     * @return the removed entry, or {@code null} if the map is empty
+     */
+    Map.Entry<K, V> pollFirstEntry();
+
+    /**
+     * Removes and returns the entry with the greatest key.
+     *
+     * @return the removed entry, or {@code null} if the map is empty
+     */
+    Map.Entry<K, V> pollLastEntry();
+
+    /**
+     * Returns a view of the mappings of this map in reverse order. Changes to
+     * either map are reflected in the other.
+     *
+     * @return the descending view of this map
+     */
+    NavigableMap<K, V> descendingMap();
+
+    /**
+     * Returns a view of the keys of this map in ascending order. The set
+     * supports element removal but not addition.
+     *
+     * @return the navigable set of keys
+     */
+    NavigableSet<K> navigableKeySet();
+
+    /**
+     * Returns a view of the keys of this map in descending order. The set
+     * supports element removal but not addition.
+     *
+     * @return the descending set of keys
+     */
+    NavigableSet<K> descendingKeySet();
+
+    /**
+     * Returns a view of the portion of this map whose keys range from
+     * {@code fromKey} to {@code toKey}. Changes to the returned map are
+     * reflected in this map and vice versa. The returned map does not allow
+     * the insertion of keys outside its range.
+     *
+     * @param fromKey
+     *            the low boundary of the range
+     * @param fromInclusive
+     *            {@code true} if the low boundary is part of the range
+     * @param toKey
+     *            the high boundary of the range
+     * @param toInclusive
+     *            {@code true} if the high boundary is part of the range
+     * @return the map view of the range
+     * @throws ClassCastException
+     *             if a key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if a key is {@code null} and the map does not permit
+     *             {@code null} keys
+     * @throws IllegalArgumentException
+     *             if {@code fromKey} is greater than {@code toKey}, or if
+     *             this map has a restricted range and a key lies outside it
+     */
+    NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey,
+            boolean toInclusive);
+
+    /**
+     * Returns a view of the portion of this map whose keys are less than (or
+     * equal to, if {@code inclusive} is {@code true}) {@code toKey}.
+     *
+     * @param toKey
+     *            the high boundary of the range
+     * @param inclusive
+     *            {@code true} if the high boundary is part of the range
+     * @return the map view of the range
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     * @throws IllegalArgumentException
+     *             if this map has a restricted range and the key lies
+     *             outside it
+     */
+    NavigableMap<K, V> headMap(K toKey, boolean inclusive);
+
+    /**
+     * Returns a view of the portion of this map whose keys are greater than
+     * (or equal to, if {@code inclusive} is {@code true}) {@code fromKey}.
+     *
+     * @param fromKey
+     *            the low boundary of the range
+     * @param inclusive
+     *            {@code true} if the low boundary is part of the range
+     * @return the map view of the range
+     * @throws ClassCastException
+     *             if the key cannot be compared with the keys in the map
+     * @throws NullPointerException
+     *             if the key is {@code null} and the map does not permit
+     *             {@code null} keys
+     * @throws IllegalArgumentException
+     *             if this map has a restricted range and the key lies
+     *             outside it
+     */
+    NavigableMap<K, V> tailMap(K fromKey, boolean inclusive);
+}
@@ -0,0 +1,205 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util;
+
+/**
+ * A {@link SortedSet} extended with navigation methods reporting the closest
+ * matches for given search targets. Methods {@code lower}, {@code floor},
+ * {@code ceiling} and {@code higher} return elements respectively less than,
+ * less than or equal, greater than or equal, and greater than a given
+ * element, returning {@code null} if there is no such element.
+ * <p>
+ * A navigable set may be accessed and traversed in either ascending or
+ * descending order. The {@code subSet}, {@code headSet} and {@code tailSet}
+ * methods taking boolean arguments describe whether the lower and upper
+ * bounds are inclusive.
+ *
+ * @param <E>
+ *            the type of the elements
+ * @since 1.6
+ */
+public interface NavigableSet<E> extends SortedSet<E> {
+
+    /**
+     * Returns the greatest element strictly less than the given element.
+     *
+     * @param e
+     *            the element
+     * @return the element, or {@code null} if there is no such element
+     * @throws ClassCastException
+     *             if the element cannot be compared with the elements in the
+     *             set
+     * @throws NullPointerException
+     *             if the element is {@code null} and the set does not permit
+     *             {@code null} elements
+     */
+    E lower(E e);
+
+    /**
+     * Returns the greatest element less than or equal to the given element.
+     *
+     * @param e
+     *            the element
+     * @return the element, or {@code null} if there is no such element
+     * @throws ClassCastException
+     *             if the element cannot be compared with the elements in the
+     *             set
+     * @throws NullPointerException
+     *             if the element is {@code null} and the set does not permit
+     *             {@code null} elements
+     */
+    E floor(E e);
+
+    /**
+     * Returns the least element greater than or equal to the given element.
+     *
+     * @param e
+     *            the element
+     * @return the element, or {@code null} if there is no such element
+     * @throws ClassCastException
+     *             if the element cannot be compared with the elements in the
+     *             set
+     * @throws NullPointerException
+     *             if the element is {@code null} and the set does not permit
+     *             {@code null} elements
+     */
+    E ceiling(E e);
+
+    /**
+     * Returns the least element strictly greater than the given element.
+     *
+     * @param e
+     *            the element
+     * @return the element, or {@code null} if there is no such element
+     * @throws ClassCastException
+     *             if the element cannot be compared with the elements in the
+     *             set
+     * @throws NullPointerException
+     *             if the element is {@code null} and the set does not permit
+     *             {@code null} elements
+     */
+    E higher(E e);
+
+    /**
+     * Removes and returns the least element.
+     *
+     * @return the removed element, or {@code null} if the set is empty
+     */
+    E pollFirst();
+
+    /**
+     * Removes and returns the greatest element.
+     *
+     * @return the removed element, or {@code null} if the set is empty
+     */
+    E pollLast();
+
+    /**
+     * Returns an iterator over the elements in ascending order.
+     *
+     * @return the iterator
+     */
+    Iterator<E> iterator();
+
+    /**
+     * Returns a view of the elements of this set in reverse order. Changes to
+     * either set are reflected in the other.
+     *
+     * @return the descending view of this set
+     */
+    NavigableSet<E> descendingSet();
+
+    /**
+     * Returns an iterator over the elements in descending order.
+     *
+     * @return the iterator
+     */
+    Iterator<E> descendingIterator();
+
+    /**
+     * Returns a view of the portion of this set whose elements range from
+     * {@code fromElement} to {@code toElement}. Changes to the returned set
+     * are reflected in this set and vice versa. The returned set does not
+     * allow the insertion of elements outside its range.
+     *
+     * @param fromElement
+     *            the low boundary of the range
+     * @param fromInclusive
+     *            {@code true} if the low boundary is part of the range
+     * @param toElement
+     *            the high boundary of the range
+     * @param toInclusive
+     *            {@code true} if the high boundary is part of the range
+     * @return the set view of the range
+     * @throws ClassCastException
+     *             if an element cannot be compared with the elements in the
+     *             set
+     * @throws NullPointerException
+     *             if an element is {@code null} and the set does not permit
+     *             {@code null} elements
+     * @throws IllegalArgumentException
+     *             if {@code fromElement} is greater than {@code toElement},
+     *             or if this set has a restricted range and an element lies
+     *             outside it
+     */
+    NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement,
+            boolean toInclusive);
+
+    /**
+     * Returns a view of the portion of this set whose elements are less than
+     * (or equal to, if {@code inclusive} is {@code true}) {@code toElement}.
+     *
+     * @param toElement
+     *            the high boundary of the range
+     * @param inclusive
+     *            {@code true} if the high boundary is part of the range
+     * @return the set view of the range
+     * @throws ClassCastException
+     *             if the element cannot be compared with the elements in the
+     *             set
+     * @throws NullPointerException
+     *             if the element is {@code null} and the set does not permit
+     *             {@code null} elements
+     * @throws IllegalArgumentException
+     *             if this set has a restricted range and the element lies
+     *             outside it
+     */
+    NavigableSet<E> headSet(E toElement, boolean inclusive);
+
+    /**
+     * Returns a view of the portion of this set whose elements are greater
+     * than (or equal to, if {@code inclusive} is {@code true})
+     * {@code fromElement}.
+     *
+     * @param fromElement
+     *            the low boundary of the range
+     * @param inclusive
+     *            {@code true} if the low boundary is part of the range
+     * @return the set view of the range
+     * @throws ClassCastException
+     *             if the element cannot be compared with the elements in the
+     *             set
+     * @throws NullPointerException
+     *             if the element is {@code null} and the set does not permit
+     *             {@code null} elements
+     * @throws IllegalArgumentException
+     *             if this set has a restricted range and the element lies
+     *             outside it
+     */
+    NavigableSet<E> tailSet(E fromElement, boolean inclusive);
+}
@@ -0,0 +1,637 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code parallelSort} methods of {@link Arrays}. The range is halved
+ * recursively until the pieces are small enough, the pieces are sorted
+ * sequentially on the threads of a shared pool and the sorted halves are
+ * merged back up through a work array of the same length as the input.
+ * <p>
+ * The pool is created on first use, with one daemon worker per processor,
+ * and is shared by all parallel sorts. Ranges that are too short to be
+ * worth splitting, and all ranges on a single processor, are sorted by the
+ * calling thread directly.
+ */
+final class ParallelSort {
+
+    /*
+     * Ranges shorter than this are never split, as the cost of handing the
+     * pieces to other threads would outweigh the gain.
+     */
+    static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
+
+    private static class PoolHolder {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    private ParallelSort() {
+        // no instances
+    }
+
+    /**
+     * Returns the length of the pieces to sort sequentially, or 0 if the
+     * range should not be split at all.
+     */
+    private static int granularity(int length) {
+        int p = Runtime.getRuntime().availableProcessors();
+        if (p <= 1 || length <= MIN_ARRAY_SORT_GRAN) {
+            return 0;
+        }
+        // About four pieces per processor, so that the load evens out
+        int g = length / (p << 2);
+        return g <= MIN_ARRAY_SORT_GRAN ? MIN_ARRAY_SORT_GRAN : g;
+    }
+
+    /**
+     * Sorts the range of the {@code byte} array in ascending numerical order.
+     */
+    static void sort(byte[] a, int start, int end) {
+        int g = granularity(end - start);
+        if (g == 0) {
+            DualPivotQuicksort.sort(a, start, end);
+        } else {
+            PoolHolder.POOL.invoke(new ByteSorter(a, new byte[end - start],
+                    start, start, end, g));
+        }
+    }
+
+    private static final class ByteSorter extends RecursiveAction {
+
+        private static final long serialVersionUID = -4668220604481343686L;
+
+        private final byte[] a;
+
+        private final byte[] w;
+
+        /* Index of the range start, which maps to w[0] */
+        private final int base;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int gran;
+
+        ByteSorter(byte[] a, byte[] w, int base, int lo, int hi, int gran) {
+            this.a = a;
+            this.w = w;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                DualPivotQuicksort.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ByteSorter(a, w, base, lo, mid, gran),
+                    new ByteSorter(a, w, base, mid, hi, gran));
+            if (a[mid] < a[mid - 1]) {
+                merge(a, w, base, lo, mid, hi);
+            }
+        }
+    }
+
+    /*
+     * Merges the sorted ranges a[lo .. mid) and a[mid .. hi), taking from
+     * the left one on ties.
+     */
+    private static void merge(byte[] a, byte[] w, int base, int lo,
+            int mid, int hi) {
+        System.arraycopy(a, lo, w, lo - base, mid - lo);
+        int i = lo - base;
+        int wEnd = mid - base;
+        int j = mid;
+        int k = lo;
+        while (i < wEnd && j < hi) {
+            a[k++] = a[j] < w[i] ? a[j++] : w[i++];
+        }
+        System.arraycopy(w, i, a, k, wEnd - i);
+    }
+
+    /**
+     * Sorts the range of the {@code char} array in ascending numerical order.
+     */
+    static void sort(char[] a, int start, int end) {
+        int g = granularity(end - start);
+        if (g == 0) {
+            DualPivotQuicksort.sort(a, start, end);
+        } else {
+            PoolHolder.POOL.invoke(new CharSorter(a, new char[end - start],
+                    start, start, end, g));
+        }
+    }
+
+    private static final class CharSorter extends RecursiveAction {
+
+        private static final long serialVersionUID = -4505146615598573164L;
+
+        private final char[] a;
+
+        private final char[] w;
+
+        /* Index of the range start, which maps to w[0] */
+        private final int base;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int gran;
+
+        CharSorter(char[] a, char[] w, int base, int lo, int hi, int gran) {
+            this.a = a;
+            this.w = w;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                DualPivotQuicksort.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new CharSorter(a, w, base, lo, mid, gran),
+                    new CharSorter(a, w, base, mid, hi, gran));
+            if (a[mid] < a[mid - 1]) {
+                merge(a, w, base, lo, mid, hi);
+            }
+        }
+    }
+
+    /*
+     * Merges the sorted ranges a[lo .. mid) and a[mid .. hi), taking from
+     * the left one on ties.
+     */
+    private static void merge(char[] a, char[] w, int base, int lo,
+            int mid, int hi) {
+        System.arraycopy(a, lo, w, lo - base, mid - lo);
+        int i = lo - base;
+        int wEnd = mid - base;
+        int j = mid;
+        int k = lo;
+        while (i < wEnd && j < hi) {
+            a[k++] = a[j] < w[i] ? a[j++] : w[i++];
+        }
+        System.arraycopy(w, i, a, k, wEnd - i);
+    }
+
+    /**
+     * Sorts the range of the {@code short} array in ascending numerical order.
+     */
+    static void sort(short[] a, int start, int end) {
+        int g = granularity(end - start);
+        if (g == 0) {
+            DualPivotQuicksort.sort(a, start, end);
+        } else {
+            PoolHolder.POOL.invoke(new ShortSorter(a, new short[end - start],
+                    start, start, end, g));
+        }
+    }
+
+    private static final class ShortSorter extends RecursiveAction {
+
+        private static final long serialVersionUID = -3634230410014997763L;
+
+        private final short[] a;
+
+        private final short[] w;
+
+        /* Index of the range start, which maps to w[0] */
+        private final int base;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int gran;
+
+        ShortSorter(short[] a, short[] w, int base, int lo, int hi, int gran) {
+            this.a = a;
+            this.w = w;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                DualPivotQuicksort.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ShortSorter(a, w, base, lo, mid, gran),
+                    new ShortSorter(a, w, base, mid, hi, gran));
+            if (a[mid] < a[mid - 1]) {
+                merge(a, w, base, lo, mid, hi);
+            }
+        }
+    }
+
+    /*
+     * Merges the sorted ranges a[lo .. mid) and a[mid .. hi), taking from
+     * the left one on ties.
+     */
+    private static void merge(short[] a, short[] w, int base, int lo,
+            int mid, int hi) {
+        System.arraycopy(a, lo, w, lo - base, mid - lo);
+        int i = lo - base;
+        int wEnd = mid - base;
+        int j = mid;
+        int k = lo;
+        while (i < wEnd && j < hi) {
+            a[k++] = a[j] < w[i] ? a[j++] : w[i++];
+        }
+        System.arraycopy(w, i, a, k, wEnd - i);
+    }
+
+    /**
+     * Sorts the range of the {@code int} array in ascending numerical order.
+     */
+    static void sort(int[] a, int start, int end) {
+        int g = granularity(end - start);
+        if (g == 0) {
+            DualPivotQuicksort.sort(a, start, end);
+        } else {
+            PoolHolder.POOL.invoke(new IntSorter(a, new int[end - start],
+                    start, start, end, g));
+        }
+    }
+
+    private static final class IntSorter extends RecursiveAction {
+
+        private static final long serialVersionUID = 6877351621570455288L;
+
+        private final int[] a;
+
+        private final int[] w;
+
+        /* Index of the range start, which maps to w[0] */
+        private final int base;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int gran;
+
+        IntSorter(int[] a, int[] w, int base, int lo, int hi, int gran) {
+            this.a = a;
+            this.w = w;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                DualPivotQuicksort.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new IntSorter(a, w, base, lo, mid, gran),
+                    new IntSorter(a, w, base, mid, hi, gran));
+            if (a[mid] < a[mid - 1]) {
+                merge(a, w, base, lo, mid, hi);
+            }
+        }
+    }
+
+    /*
+     * Merges the sorted ranges a[lo .. mid) and a[mid .. hi), taking from
+     * the left one on ties.
+     */
+    private static void merge(int[] a, int[] w, int base, int lo,
+            int mid, int hi) {
+        System.arraycopy(a, lo, w, lo - base, mid - lo);
+        int i = lo - base;
+        int wEnd = mid - base;
+        int j = mid;
+        int k = lo;
+        while (i < wEnd && j < hi) {
+            a[k++] = a[j] < w[i] ? a[j++] : w[i++];
+        }
+        System.arraycopy(w, i, a, k, wEnd - i);
+    }
+
+    /**
+     * Sorts the range of the {@code long} array in ascending numerical order.
+     */
+    static void sort(long[] a, int start, int end) {
+        int g = granularity(end - start);
+        if (g == 0) {
+            DualPivotQuicksort.sort(a, start, end);
+        } else {
+            PoolHolder.POOL.invoke(new LongSorter(a, new long[end - start],
+                    start, start, end, g));
+        }
+    }
+
+    private static final class LongSorter extends RecursiveAction {
+
+        private static final long serialVersionUID = -4362351741773058262L;
+
+        private final long[] a;
+
+        private final long[] w;
+
+        /* Index of the range start, which maps to w[0] */
+        private final int base;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int gran;
+
+        LongSorter(long[] a, long[] w, int base, int lo, int hi, int gran) {
+            this.a = a;
+            this.w = w;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                DualPivotQuicksort.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new LongSorter(a, w, base, lo, mid, gran),
+                    new LongSorter(a, w, base, mid, hi, gran));
+            if (a[mid] < a[mid - 1]) {
+                merge(a, w, base, lo, mid, hi);
+            }
+        }
+    }
+
+    /*
+     * Merges the sorted ranges a[lo .. mid) and a[mid .. hi), taking from
+     * the left one on ties.
+     */
+    private static void merge(long[] a, long[] w, int base, int lo,
+            int mid, int hi) {
+        System.arraycopy(a, lo, w, lo - base, mid - lo);
+        int i = lo - base;
+        int wEnd = mid - base;
+        int j = mid;
+        int k = lo;
+        while (i < wEnd && j < hi) {
+            a[k++] = a[j] < w[i] ? a[j++] : w[i++];
+        }
+        System.arraycopy(w, i, a, k, wEnd - i);
+    }
+
+    /**
+     * Sorts the range of the {@code float} array in ascending numerical order.
+     */
+    static void sort(float[] a, int start, int end) {
+        int g = granularity(end - start);
+        if (g == 0) {
+            DualPivotQuicksort.sort(a, start, end);
+        } else {
+            PoolHolder.POOL.invoke(new FloatSorter(a, new float[end - start],
+                    start, start, end, g));
+        }
+    }
+
+    private static final class FloatSorter extends RecursiveAction {
+
+        private static final long serialVersionUID = 7405686797972121778L;
+
+        private final float[] a;
+
+        private final float[] w;
+
+        /* Index of the range start, which maps to w[0] */
+        private final int base;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int gran;
+
+        FloatSorter(float[] a, float[] w, int base, int lo, int hi, int gran) {
+            this.a = a;
+            this.w = w;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                DualPivotQuicksort.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new FloatSorter(a, w, base, lo, mid, gran),
+                    new FloatSorter(a, w, base, mid, hi, gran));
+            if (Float.compare(a[mid], a[mid - 1]) < 0) {
+                merge(a, w, base, lo, mid, hi);
+            }
+        }
+    }
+
+    /*
+     * Merges the sorted ranges a[lo .. mid) and a[mid .. hi), taking from
+     * the left one on ties.
+     */
+    private static void merge(float[] a, float[] w, int base, int lo,
+            int mid, int hi) {
+        System.arraycopy(a, lo, w, lo - base, mid - lo);
+        int i = lo - base;
+        int wEnd = mid - base;
+        int j = mid;
+        int k = lo;
+        while (i < wEnd && j < hi) {
+            a[k++] = Float.compare(a[j], w[i]) < 0 ? a[j++] : w[i++];
+        }
+        System.arraycopy(w, i, a, k, wEnd - i);
+    }
+
+    /**
+     * Sorts the range of the {@code double} array in ascending numerical order.
+     */
+    static void sort(double[] a, int start, int end) {
+        int g = granularity(end - start);
+        if (g == 0) {
+            DualPivotQuicksort.sort(a, start, end);
+        } else {
+            PoolHolder.POOL.invoke(new DoubleSorter(a, new double[end - start],
+                    start, start, end, g));
+        }
+    }
+
+    private static final class DoubleSorter extends RecursiveAction {
+
+        private static final long serialVersionUID = 5678844853101266816L;
+
+        private final double[] a;
+
+        private final double[] w;
+
+        /* Index of the range start, which maps to w[0] */
+        private final int base;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int gran;
+
+        DoubleSorter(double[] a, double[] w, int base, int lo, int hi, int gran) {
+            this.a = a;
+            this.w = w;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.gran = gran;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                DualPivotQuicksort.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new DoubleSorter(a, w, base, lo, mid, gran),
+                    new DoubleSorter(a, w, base, mid, hi, gran));
+            if (Double.compare(a[mid], a[mid - 1]) < 0) {
+                merge(a, w, base, lo, mid, hi);
+            }
+        }
+    }
+
+    /*
+     * Merges the sorted ranges a[lo .. mid) and a[mid .. hi), taking from
+     * the left one on ties.
+     */
+    private static void merge(double[] a, double[] w, int base, int lo,
+            int mid, int hi) {
+        System.arraycopy(a, lo, w, lo - base, mid - lo);
+        int i = lo - base;
+        int wEnd = mid - base;
+        int j = mid;
+        int k = lo;
+        while (i < wEnd && j < hi) {
+            a[k++] = Double.compare(a[j], w[i]) < 0 ? a[j++] : w[i++];
+        }
+        System.arraycopy(w, i, a, k, wEnd - i);
+    }
+
+    /**
+     * Sorts the range of the array stably in the order imposed by the
+     * comparator.
+     */
+    static <T> void sort(T[] a, int start, int end, Comparator<? super T> c) {
+        int g = granularity(end - start);
+        if (g == 0) {
+            TimSort.sort(a, start, end, c);
+        } else {
+            PoolHolder.POOL.invoke(new ObjectSorter<T>(a,
+                    new Object[end - start], start, start, end, g, c));
+        }
+    }
+
+    private static final class ObjectSorter<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 300104679242906119L;
+
+        private final T[] a;
+
+        private final Object[] w;
+
+        /* Index of the range start, which maps to w[0] */
+        private final int base;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int gran;
+
+        private final Comparator<? super T> c;
+
+        ObjectSorter(T[] a, Object[] w, int base, int lo, int hi, int gran,
+                Comparator<? super T> c) {
+            this.a = a;
+            this.w = w;
+            this.base = base;
+            this.lo = lo;
+            this.hi = hi;
+            this.gran = gran;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= gran) {
+                TimSort.sort(a, lo, hi, c);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ObjectSorter<T>(a, w, base, lo, mid, gran, c),
+                    new ObjectSorter<T>(a, w, base, mid, hi, gran, c));
+            if (c.compare(a[mid], a[mid - 1]) < 0) {
+                merge(a, w, base, lo, mid, hi, c);
+            }
+        }
+    }
+
+    /*
+     * Merges the sorted ranges a[lo .. mid) and a[mid .. hi), taking from
+     * the left one on ties so that the sort stays stable.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void merge(T[] a, Object[] w, int base, int lo,
+            int mid, int hi, Comparator<? super T> c) {
+        System.arraycopy(a, lo, w, lo - base, mid - lo);
+        int i = lo - base;
+        int wEnd = mid - base;
+        int j = mid;
+        int k = lo;
+        while (i < wEnd && j < hi) {
+            a[k++] = c.compare(a[j], (T) w[i]) < 0 ? a[j++] : (T) w[i++];
+        }
+        System.arraycopy(w, i, a, k, wEnd - i);
+    }
+}
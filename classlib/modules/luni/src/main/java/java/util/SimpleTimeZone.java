@@ -88,7 +88,10 @@ public class SimpleTimeZone extends TimeZone {
 
     private int dstSavings = 3600000;
 
-    private final transient com.ibm.icu.util.TimeZone icuTZ;
+    private transient com.ibm.icu.util.TimeZone icuTZ;
+
+    /* Clones share the ICU zone until one of them changes its rules */
+    private transient boolean icuShared;
 
     private final transient boolean isSimple;
 
@@ -330,12 +333,21 @@ public class SimpleTimeZone extends TimeZone {
     @Override
     public Object clone() {
         SimpleTimeZone zone = (SimpleTimeZone) super.clone();
+        zone.icuShared = icuShared = true;
         if (daylightSavings != null) {
             zone.daylightSavings = (GregorianCalendar) daylightSavings.clone();
         }
         return zone;
     }
 
+    private com.ibm.icu.util.TimeZone writableICUTimeZone() {
+        if (icuShared) {
+            icuTZ = (com.ibm.icu.util.TimeZone) icuTZ.clone();
+            icuShared = false;
+        }
+        return icuTZ;
+    }
+
     /**
      * Compares the specified object to this {@code SimpleTimeZone} and returns whether they
      * are equal. The object must be an instance of {@code SimpleTimeZone} and have the
@@ -532,8 +544,8 @@ public class SimpleTimeZone extends TimeZone {
         endTime = time;
         setEndMode();
         if (isSimple) {
-            ((com.ibm.icu.util.SimpleTimeZone) icuTZ).setEndRule(month,
-                    dayOfMonth, time);
+            ((com.ibm.icu.util.SimpleTimeZone) writableICUTimeZone())
+                    .setEndRule(month, dayOfMonth, time);
         }
     }
 
@@ -559,8 +571,8 @@ public class SimpleTimeZone extends TimeZone {
         endTime = time;
         setEndMode();
         if (isSimple) {
-            ((com.ibm.icu.util.SimpleTimeZone) icuTZ).setEndRule(month, day,
-                    dayOfWeek, time);
+            ((com.ibm.icu.util.SimpleTimeZone) writableICUTimeZone())
+                    .setEndRule(month, day, dayOfWeek, time);
         }
     }
 
@@ -588,8 +600,8 @@ public class SimpleTimeZone extends TimeZone {
         endTime = time;
         setEndMode();
         if (isSimple) {
-            ((com.ibm.icu.util.SimpleTimeZone) icuTZ).setEndRule(month, day,
-                    dayOfWeek, time, after);
+            ((com.ibm.icu.util.SimpleTimeZone) writableICUTimeZone())
+                    .setEndRule(month, day, dayOfWeek, time, after);
         }
     }
 
@@ -602,7 +614,7 @@ public class SimpleTimeZone extends TimeZone {
     @Override
     public void setRawOffset(int offset) {
         rawOffset = offset;
-        icuTZ.setRawOffset(offset);
+        writableICUTimeZone().setRawOffset(offset);
     }
 
     private void setStartMode() {
@@ -656,8 +668,8 @@ public class SimpleTimeZone extends TimeZone {
         startTime = time;
         setStartMode();
         if (isSimple) {
-            ((com.ibm.icu.util.SimpleTimeZone) icuTZ).setStartRule(month,
-                    dayOfMonth, time);
+            ((com.ibm.icu.util.SimpleTimeZone) writableICUTimeZone())
+                    .setStartRule(month, dayOfMonth, time);
         }
     }
 
@@ -683,8 +695,8 @@ public class SimpleTimeZone extends TimeZone {
         startTime = time;
         setStartMode();
         if (isSimple) {
-            ((com.ibm.icu.util.SimpleTimeZone) icuTZ).setStartRule(month, day,
-                    dayOfWeek, time);
+            ((com.ibm.icu.util.SimpleTimeZone) writableICUTimeZone())
+                    .setStartRule(month, day, dayOfWeek, time);
         }
     }
 
@@ -712,8 +724,8 @@ public class SimpleTimeZone extends TimeZone {
         startTime = time;
         setStartMode();
         if (isSimple) {
-            ((com.ibm.icu.util.SimpleTimeZone) icuTZ).setStartRule(month, day,
-                    dayOfWeek, time, after);
+            ((com.ibm.icu.util.SimpleTimeZone) writableICUTimeZone())
+                    .setStartRule(month, day, dayOfWeek, time, after);
         }
     }
 
@@ -0,0 +1,629 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util;
+
+import org.apache.harmony.luni.internal.nls.Messages;
+
+/**
+ * A stable, adaptive mergesort for the object arrays of {@link Arrays},
+ * after Tim Peters' list sort for Python. The range is cut into runs that
+ * are already ascending, or strictly descending and then reversed, and
+ * short runs are extended to a minimum length by binary insertion sort.
+ * The runs are kept on a stack and merged so that their lengths stay
+ * balanced, and each merge gallops (searches exponentially) through a run
+ * as long as that run keeps supplying the next elements. Presorted and
+ * partially sorted input therefore takes far fewer than n*log(n)
+ * comparisons, down to n - 1 for a range that is already in order, while
+ * random input costs about as much as a classic mergesort.
+ * <p>
+ * The temporary array is only as long as the shorter run of each merge,
+ * so it never needs more than half the length of the range.
+ */
+final class TimSort<T> {
+
+    /* Ranges shorter than this are sorted by binary insertion sort alone */
+    private static final int MIN_MERGE = 32;
+
+    /* Initial number of consecutive wins before a merge starts galloping */
+    private static final int MIN_GALLOP = 7;
+
+    /* Initial length of the temporary array */
+    private static final int INITIAL_TMP_LENGTH = 256;
+
+    static final Comparator<Object> NATURAL_ORDER = new Comparator<Object>() {
+        @SuppressWarnings("unchecked")
+        public int compare(Object o1, Object o2) {
+            return ((Comparable<Object>) o1).compareTo(o2);
+        }
+    };
+
+    private final T[] a;
+
+    private final Comparator<? super T> c;
+
+    /* Adapts to how well galloping pays off on this input */
+    private int minGallop = MIN_GALLOP;
+
+    private T[] tmp;
+
+    /* Stack of pending runs: run i starts at runBase[i] */
+    private int stackSize;
+
+    private final int[] runBase;
+
+    private final int[] runLen;
+
+    @SuppressWarnings("unchecked")
+    private TimSort(T[] a, Comparator<? super T> c) {
+        this.a = a;
+        this.c = c;
+        int len = a.length;
+        tmp = (T[]) new Object[len < 2 * INITIAL_TMP_LENGTH ? len >>> 1
+                : INITIAL_TMP_LENGTH];
+        /*
+         * The run lengths grow at least as fast as the Fibonacci numbers
+         * from the bottom of the stack, so 49 entries cover any int length.
+         */
+        int stackLen = len < 120 ? 5 : len < 1542 ? 10 : len < 119151 ? 24
+                : 49;
+        runBase = new int[stackLen];
+        runLen = new int[stackLen];
+    }
+
+    /**
+     * Sorts the range of the array in the natural order of its elements.
+     */
+    static void sort(Object[] a, int start, int end) {
+        sort(a, start, end, NATURAL_ORDER);
+    }
+
+    /**
+     * Sorts the range of the array in the order imposed by the comparator.
+     */
+    static <T> void sort(T[] a, int start, int end, Comparator<? super T> c) {
+        int remaining = end - start;
+        if (remaining < 2) {
+            return;
+        }
+
+        if (remaining < MIN_MERGE) {
+            int initRunLen = countRunAndMakeAscending(a, start, end, c);
+            binarySort(a, start, end, start + initRunLen, c);
+            return;
+        }
+
+        TimSort<T> ts = new TimSort<T>(a, c);
+        int minRun = minRunLength(remaining);
+        do {
+            int runLen = countRunAndMakeAscending(a, start, end, c);
+
+            // Extend a short run to min(minRun, remaining)
+            if (runLen < minRun) {
+                int force = remaining <= minRun ? remaining : minRun;
+                binarySort(a, start, start + force, start + runLen, c);
+                runLen = force;
+            }
+
+            ts.pushRun(start, runLen);
+            ts.mergeCollapse();
+
+            start += runLen;
+            remaining -= runLen;
+        } while (remaining != 0);
+
+        ts.mergeForceCollapse();
+    }
+
+    /**
+     * Sorts the range from {@code lo} to {@code hi} by binary insertion sort,
+     * given that the elements before {@code start} are already sorted.
+     */
+    private static <T> void binarySort(T[] a, int lo, int hi, int start,
+            Comparator<? super T> c) {
+        if (start == lo) {
+            start++;
+        }
+        for (; start < hi; start++) {
+            T pivot = a[start];
+
+            // Insert after the last element not greater than the pivot
+            int left = lo;
+            int right = start;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (c.compare(pivot, a[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+
+            System.arraycopy(a, left, a, left + 1, start - left);
+            a[left] = pivot;
+        }
+    }
+
+    /**
+     * Returns the length of the run that starts at {@code lo}. A run is
+     * either non-descending or strictly descending; the latter is reversed
+     * in place, which keeps the sort stable as it has no equal elements.
+     */
+    private static <T> int countRunAndMakeAscending(T[] a, int lo, int hi,
+            Comparator<? super T> c) {
+        int runHi = lo + 1;
+        if (runHi == hi) {
+            return 1;
+        }
+
+        if (c.compare(a[runHi++], a[lo]) < 0) {
+            while (runHi < hi && c.compare(a[runHi], a[runHi - 1]) < 0) {
+                runHi++;
+            }
+            reverseRange(a, lo, runHi);
+        } else {
+            while (runHi < hi && c.compare(a[runHi], a[runHi - 1]) >= 0) {
+                runHi++;
+            }
+        }
+
+        return runHi - lo;
+    }
+
+    private static void reverseRange(Object[] a, int lo, int hi) {
+        hi--;
+        while (lo < hi) {
+            Object t = a[lo];
+            a[lo++] = a[hi];
+            a[hi--] = t;
+        }
+    }
+
+    /**
+     * Returns the minimum run length for a range of length {@code n}: n
+     * itself if it is short, otherwise a number between MIN_MERGE / 2 and
+     * MIN_MERGE such that n / minRun is, or is a bit less than, a power of
+     * two, which keeps the final merges balanced.
+     */
+    private static int minRunLength(int n) {
+        int r = 0;
+        while (n >= MIN_MERGE) {
+            r |= (n & 1);
+            n >>= 1;
+        }
+        return n + r;
+    }
+
+    private void pushRun(int base, int len) {
+        runBase[stackSize] = base;
+        runLen[stackSize] = len;
+        stackSize++;
+    }
+
+    /**
+     * Merges runs until the lengths on the stack satisfy, for the top four
+     * runs W, X, Y and Z (Z on top), X > Y + Z, W > X + Y and Y > Z. This is
+     * called after every push, so the lengths stay roughly balanced and the
+     * stack stays short.
+     */
+    private void mergeCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if ((n > 0 && runLen[n - 1] <= runLen[n] + runLen[n + 1])
+                    || (n > 1 && runLen[n - 2] <= runLen[n - 1] + runLen[n])) {
+                if (runLen[n - 1] < runLen[n + 1]) {
+                    n--;
+                }
+            } else if (runLen[n] > runLen[n + 1]) {
+                break;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Merges all runs on the stack into one.
+     */
+    private void mergeForceCollapse() {
+        while (stackSize > 1) {
+            int n = stackSize - 2;
+            if (n > 0 && runLen[n - 1] < runLen[n + 1]) {
+                n--;
+            }
+            mergeAt(n);
+        }
+    }
+
+    /**
+     * Merges the runs at stack positions {@code i} and {@code i + 1}, where
+     * {@code i} is one of the two positions below the top.
+     */
+    private void mergeAt(int i) {
+        int base1 = runBase[i];
+        int len1 = runLen[i];
+        int base2 = runBase[i + 1];
+        int len2 = runLen[i + 1];
+
+        runLen[i] = len1 + len2;
+        if (i == stackSize - 3) {
+            runBase[i + 1] = runBase[i + 2];
+            runLen[i + 1] = runLen[i + 2];
+        }
+        stackSize--;
+
+        // Elements of run 1 that are not greater than run 2's first stay put
+        int k = gallopRight(a[base2], a, base1, len1, 0, c);
+        base1 += k;
+        len1 -= k;
+        if (len1 == 0) {
+            return;
+        }
+
+        // Elements of run 2 that are not less than run 1's last stay put
+        len2 = gallopLeft(a[base1 + len1 - 1], a, base2, len2, len2 - 1, c);
+        if (len2 == 0) {
+            return;
+        }
+
+        if (len1 <= len2) {
+            mergeLo(base1, len1, base2, len2);
+        } else {
+            mergeHi(base1, len1, base2, len2);
+        }
+    }
+
+    /**
+     * Returns the position in the sorted range {@code a[base .. base + len)}
+     * at which {@code key} would be inserted before any equal elements,
+     * searching exponentially outwards from {@code base + hint} first and
+     * then by binary search.
+     */
+    private static <T> int gallopLeft(T key, T[] a, int base, int len,
+            int hint, Comparator<? super T> c) {
+        int lastOfs = 0;
+        int ofs = 1;
+        if (c.compare(key, a[base + hint]) > 0) {
+            // Gallop right until a[base + hint + lastOfs] < key <= a[base + hint + ofs]
+            int maxOfs = len - hint;
+            while (ofs < maxOfs && c.compare(key, a[base + hint + ofs]) > 0) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            lastOfs += hint;
+            ofs += hint;
+        } else {
+            // Gallop left until a[base + hint - ofs] < key <= a[base + hint - lastOfs]
+            int maxOfs = hint + 1;
+            while (ofs < maxOfs && c.compare(key, a[base + hint - ofs]) <= 0) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            int t = lastOfs;
+            lastOfs = hint - ofs;
+            ofs = hint - t;
+        }
+
+        // Now a[base + lastOfs] < key <= a[base + ofs]
+        lastOfs++;
+        while (lastOfs < ofs) {
+            int m = lastOfs + ((ofs - lastOfs) >>> 1);
+            if (c.compare(key, a[base + m]) > 0) {
+                lastOfs = m + 1;
+            } else {
+                ofs = m;
+            }
+        }
+        return ofs;
+    }
+
+    /**
+     * Like {@link #gallopLeft}, but returns the position after any elements
+     * equal to {@code key}.
+     */
+    private static <T> int gallopRight(T key, T[] a, int base, int len,
+            int hint, Comparator<? super T> c) {
+        int ofs = 1;
+        int lastOfs = 0;
+        if (c.compare(key, a[base + hint]) < 0) {
+            // Gallop left until a[base + hint - ofs] <= key < a[base + hint - lastOfs]
+            int maxOfs = hint + 1;
+            while (ofs < maxOfs && c.compare(key, a[base + hint - ofs]) < 0) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            int t = lastOfs;
+            lastOfs = hint - ofs;
+            ofs = hint - t;
+        } else {
+            // Gallop right until a[base + hint + lastOfs] <= key < a[base + hint + ofs]
+            int maxOfs = len - hint;
+            while (ofs < maxOfs && c.compare(key, a[base + hint + ofs]) >= 0) {
+                lastOfs = ofs;
+                ofs = (ofs << 1) + 1;
+                if (ofs <= 0) {
+                    ofs = maxOfs;
+                }
+            }
+            if (ofs > maxOfs) {
+                ofs = maxOfs;
+            }
+            lastOfs += hint;
+            ofs += hint;
+        }
+
+        // Now a[base + lastOfs] <= key < a[base + ofs]
+        lastOfs++;
+        while (lastOfs < ofs) {
+            int m = lastOfs + ((ofs - lastOfs) >>> 1);
+            if (c.compare(key, a[base + m]) < 0) {
+                ofs = m;
+            } else {
+                lastOfs = m + 1;
+            }
+        }
+        return ofs;
+    }
+
+    /**
+     * Merges two adjacent runs in place, the first of which is no longer
+     * than the second, by copying the first one out and merging from the
+     * left. The first element of run 2 must be less than the first of run 1
+     * and the last element of run 1 greater than all of run 2, which
+     * {@link #mergeAt} guarantees.
+     */
+    private void mergeLo(int base1, int len1, int base2, int len2) {
+        T[] a = this.a;
+        T[] tmp = ensureCapacity(len1);
+        System.arraycopy(a, base1, tmp, 0, len1);
+
+        int cursor1 = 0;
+        int cursor2 = base2;
+        int dest = base1;
+
+        a[dest++] = a[cursor2++];
+        if (--len2 == 0) {
+            System.arraycopy(tmp, cursor1, a, dest, len1);
+            return;
+        }
+        if (len1 == 1) {
+            System.arraycopy(a, cursor2, a, dest, len2);
+            a[dest + len2] = tmp[cursor1];
+            return;
+        }
+
+        Comparator<? super T> c = this.c;
+        int minGallop = this.minGallop;
+        outer: while (true) {
+            int count1 = 0;
+            int count2 = 0;
+
+            // One element at a time until one run keeps winning
+            do {
+                if (c.compare(a[cursor2], tmp[cursor1]) < 0) {
+                    a[dest++] = a[cursor2++];
+                    count2++;
+                    count1 = 0;
+                    if (--len2 == 0) {
+                        break outer;
+                    }
+                } else {
+                    a[dest++] = tmp[cursor1++];
+                    count1++;
+                    count2 = 0;
+                    if (--len1 == 1) {
+                        break outer;
+                    }
+                }
+            } while ((count1 | count2) < minGallop);
+
+            // Gallop while that pays off
+            do {
+                count1 = gallopRight(a[cursor2], tmp, cursor1, len1, 0, c);
+                if (count1 != 0) {
+                    System.arraycopy(tmp, cursor1, a, dest, count1);
+                    dest += count1;
+                    cursor1 += count1;
+                    len1 -= count1;
+                    if (len1 <= 1) {
+                        break outer;
+                    }
+                }
+                a[dest++] = a[cursor2++];
+                if (--len2 == 0) {
+                    break outer;
+                }
+
+                count2 = gallopLeft(tmp[cursor1], a, cursor2, len2, 0, c);
+                if (count2 != 0) {
+                    System.arraycopy(a, cursor2, a, dest, count2);
+                    dest += count2;
+                    cursor2 += count2;
+                    len2 -= count2;
+                    if (len2 == 0) {
+                        break outer;
+                    }
+                }
+                a[dest++] = tmp[cursor1++];
+                if (--len1 == 1) {
+                    break outer;
+                }
+                minGallop--;
+            } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+            if (minGallop < 0) {
+                minGallop = 0;
+            }
+            // Penalize leaving galloping mode
+            minGallop += 2;
+        }
+        this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+        if (len1 == 1) {
+            System.arraycopy(a, cursor2, a, dest, len2);
+            a[dest + len2] = tmp[cursor1];
+        } else if (len1 == 0) {
+            throw contractViolation();
+        } else {
+            System.arraycopy(tmp, cursor1, a, dest, len1);
+        }
+    }
+
+    /**
+     * Like {@link #mergeLo}, but for a first run that is longer than the
+     * second: copies the second run out and merges from the right.
+     */
+    private void mergeHi(int base1, int len1, int base2, int len2) {
+        T[] a = this.a;
+        T[] tmp = ensureCapacity(len2);
+        System.arraycopy(a, base2, tmp, 0, len2);
+
+        int cursor1 = base1 + len1 - 1;
+        int cursor2 = len2 - 1;
+        int dest = base2 + len2 - 1;
+
+        a[dest--] = a[cursor1--];
+        if (--len1 == 0) {
+            System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+            return;
+        }
+        if (len2 == 1) {
+            dest -= len1;
+            cursor1 -= len1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+            a[dest] = tmp[cursor2];
+            return;
+        }
+
+        Comparator<? super T> c = this.c;
+        int minGallop = this.minGallop;
+        outer: while (true) {
+            int count1 = 0;
+            int count2 = 0;
+
+            do {
+                if (c.compare(tmp[cursor2], a[cursor1]) < 0) {
+                    a[dest--] = a[cursor1--];
+                    count1++;
+                    count2 = 0;
+                    if (--len1 == 0) {
+                        break outer;
+                    }
+                } else {
+                    a[dest--] = tmp[cursor2--];
+                    count2++;
+                    count1 = 0;
+                    if (--len2 == 1) {
+                        break outer;
+                    }
+                }
+            } while ((count1 | count2) < minGallop);
+
+            do {
+                count1 = len1
+                        - gallopRight(tmp[cursor2], a, base1, len1, len1 - 1, c);
+                if (count1 != 0) {
+                    dest -= count1;
+                    cursor1 -= count1;
+                    len1 -= count1;
+                    System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                    if (len1 == 0) {
+                        break outer;
+                    }
+                }
+                a[dest--] = tmp[cursor2--];
+                if (--len2 == 1) {
+                    break outer;
+                }
+
+                count2 = len2
+                        - gallopLeft(a[cursor1], tmp, 0, len2, len2 - 1, c);
+                if (count2 != 0) {
+                    dest -= count2;
+                    cursor2 -= count2;
+                    len2 -= count2;
+                    System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                    if (len2 <= 1) {
+                        break outer;
+                    }
+                }
+                a[dest--] = a[cursor1--];
+                if (--len1 == 0) {
+                    break outer;
+                }
+                minGallop--;
+            } while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+            if (minGallop < 0) {
+                minGallop = 0;
+            }
+            minGallop += 2;
+        }
+        this.minGallop = minGallop < 1 ? 1 : minGallop;
+
+        if (len2 == 1) {
+            dest -= len1;
+            cursor1 -= len1;
+            System.arraycopy(a, cursor1 + 1, a, dest + 1, len1);
+            a[dest] = tmp[cursor2];
+        } else if (len2 == 0) {
+            throw contractViolation();
+        } else {
+            System.arraycopy(tmp, 0, a, dest - (len2 - 1), len2);
+        }
+    }
+
+    /**
+     * Returns a temporary array of at least {@code minCapacity} elements,
+     * growing it to the next power of two, capped at half the array length.
+     */
+    @SuppressWarnings("unchecked")
+    private T[] ensureCapacity(int minCapacity) {
+        if (tmp.length < minCapacity) {
+            int newSize = Integer.highestOneBit(minCapacity) << 1;
+            if (newSize < 0 || newSize > a.length >>> 1) {
+                newSize = a.length >>> 1;
+            }
+            tmp = (T[]) new Object[newSize];
+        }
+        return tmp;
+    }
+
+    /*
+     * A merge can only run out of the run it keeps the last element of when
+     * the comparator contradicts itself.
+     */
+    private static IllegalArgumentException contractViolation() {
+        // luni.E1=Comparison method violates its general contract
+        return new IllegalArgumentException(Messages.getString("luni.E1")); //$NON-NLS-1$
+    }
+}
@@ -20,6 +20,7 @@ package java.util;
 import java.io.Serializable;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.harmony.luni.util.PriviAction;
 
@@ -89,9 +90,11 @@ public abstract class TimeZone implements Serializable, Cloneable {
      */
     public static final int LONG = 1;
 
-    private static HashMap<String, TimeZone> AvailableZones;
-
-    private static TimeZone Default;
+    /*
+     * Read without locking on every Calendar and date format construction;
+     * only setDefault writes it.
+     */
+    private static volatile TimeZone Default;
 
     static TimeZone GMT = new SimpleTimeZone(0, "GMT"); // Greenwich Mean Time
 
@@ -99,32 +102,64 @@ public abstract class TimeZone implements Serializable, Cloneable {
     
     private com.ibm.icu.util.TimeZone icuTimeZone = null;
 
-    private static void initializeAvailable() {
-        TimeZone[] zones = TimeZones.getTimeZones();
-        AvailableZones = new HashMap<String, TimeZone>(
-                (zones.length + 1) * 4 / 3);
-        AvailableZones.put(GMT.getID(), GMT);
-        for (int i = 0; i < zones.length; i++) {
-            AvailableZones.put(zones[i].getID(), zones[i]);
+    /*
+     * The zones by ID, loaded on first use. It starts with the built-in
+     * table and interns the other zones ICU knows the first time each is
+     * asked for, so their rules are loaded only once. The registered zones
+     * are never handed out, only clones of them, so they are never modified
+     * and can be read concurrently.
+     */
+    private static final class Registry {
+
+        static final ConcurrentHashMap<String, TimeZone> ZONES;
+
+        static final String[] ICU_IDS = com.ibm.icu.util.TimeZone
+                .getAvailableIDs();
+
+        static final Set<String> ICU_ID_SET = new HashSet<String>(Arrays
+                .asList(ICU_IDS));
+
+        static {
+            TimeZone[] zones = TimeZones.getTimeZones();
+            ZONES = new ConcurrentHashMap<String, TimeZone>(
+                    (zones.length + 1) * 4 / 3);
+            ZONES.put(GMT.getID(), GMT);
+            for (int i = 0; i < zones.length; i++) {
+                ZONES.put(zones[i].getID(), zones[i]);
+            }
         }
-    }
-    
-    private static boolean isAvailableIDInICU(String name) {
-        String[] availableIDs = com.ibm.icu.util.TimeZone.getAvailableIDs();
-        for (int i = 0; i < availableIDs.length; i++) {
-            if (availableIDs[i].equals(name)) {
-                return true;
+
+        static TimeZone get(String name) {
+            TimeZone zone = ZONES.get(name);
+            if (zone == null && ICU_ID_SET.contains(name)) {
+                com.ibm.icu.util.TimeZone icuTZ = com.ibm.icu.util.TimeZone
+                        .getTimeZone(name);
+                zone = new SimpleTimeZone(icuTZ.getRawOffset(), name);
+                TimeZone existing = ZONES.putIfAbsent(name, zone);
+                if (existing != null) {
+                    zone = existing;
+                }
             }
+            return zone;
         }
-        return false;
     }
-    
-    private static void appendAvailableZones(String name) {
-        com.ibm.icu.util.TimeZone icuTZ = com.ibm.icu.util.TimeZone
-                .getTimeZone(name);
-        int raw = icuTZ.getRawOffset();
-        TimeZone zone = new SimpleTimeZone(raw, name);
-        AvailableZones.put(name, zone);
+
+    /*
+     * The raw offsets of the ICU zones, in the order of Registry.ICU_IDS,
+     * computed on the first call to getAvailableIDs(int).
+     */
+    private static final class RawOffsets {
+
+        static final int[] OFFSETS;
+
+        static {
+            String[] ids = Registry.ICU_IDS;
+            OFFSETS = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                OFFSETS[i] = com.ibm.icu.util.TimeZone.getTimeZone(ids[i])
+                        .getRawOffset();
+            }
+        }
     }
 
     /**
@@ -156,8 +191,8 @@ public abstract class TimeZone implements Serializable, Cloneable {
      * 
      * @return an array of time zone ID strings.
      */
-    public static synchronized String[] getAvailableIDs() {
-        return com.ibm.icu.util.TimeZone.getAvailableIDs();
+    public static String[] getAvailableIDs() {
+        return Registry.ICU_IDS.clone();
     }
 
     /**
@@ -169,16 +204,15 @@ public abstract class TimeZone implements Serializable, Cloneable {
      *            the offset from GMT in milliseconds.
      * @return an array of time zone ID strings.
      */
-    public static synchronized String[] getAvailableIDs(int offset) {
-        String[] availableIDs = com.ibm.icu.util.TimeZone.getAvailableIDs();
+    public static String[] getAvailableIDs(int offset) {
+        String[] availableIDs = Registry.ICU_IDS;
+        int[] offsets = RawOffsets.OFFSETS;
         int count = 0;
         int length = availableIDs.length;
         String[] all = new String[length];
         for (int i = 0; i < length; i++) {
-            com.ibm.icu.util.TimeZone tz = com.ibm.icu.util.TimeZone
-                    .getTimeZone(availableIDs[i]);
-            if (tz.getRawOffset() == offset) {
-                all[count++] = tz.getID();
+            if (offsets[i] == offset) {
+                all[count++] = availableIDs[i];
             }
         }
         String[] answer = new String[count];
@@ -191,11 +225,19 @@ public abstract class TimeZone implements Serializable, Cloneable {
      * 
      * @return the default time zone.
      */
-    public static synchronized TimeZone getDefault() {
+    public static TimeZone getDefault() {
+        TimeZone zone = Default;
+        if (zone == null) {
+            zone = initializeDefault();
+        }
+        return (TimeZone) zone.clone();
+    }
+
+    private static synchronized TimeZone initializeDefault() {
         if (Default == null) {
             setDefault(null);
         }
-        return (TimeZone) Default.clone();
+        return Default;
     }
 
     /**
@@ -343,16 +385,8 @@ public abstract class TimeZone implements Serializable, Cloneable {
      * @return the {@code TimeZone} with the specified ID or null if no {@code TimeZone} with
      *         the specified ID exists.
      */
-    public static synchronized TimeZone getTimeZone(String name) {
-        if (AvailableZones == null) {
-            initializeAvailable();
-        }
-
-        TimeZone zone = AvailableZones.get(name);        
-        if(zone == null && isAvailableIDInICU(name)){
-            appendAvailableZones(name);
-            zone = AvailableZones.get(name); 
-        }
+    public static TimeZone getTimeZone(String name) {
+        TimeZone zone = Registry.get(name);
         if (zone == null) {
             if (name.startsWith("GMT") && name.length() > 3) {
                 char sign = name.charAt(3);
@@ -472,21 +506,23 @@ public abstract class TimeZone implements Serializable, Cloneable {
             return;
         }
 
-        String zone = AccessController.doPrivileged(new PriviAction<String>(
+        TimeZone zone;
+
+        String zoneId = AccessController.doPrivileged(new PriviAction<String>(
                 "user.timezone"));
 
         // sometimes DRLVM incorrectly adds "\n" to the end of timezone ID
-        if (zone != null && zone.contains("\n")) {
-            zone = zone.substring(0, zone.indexOf("\n")); 
+        if (zoneId != null && zoneId.contains("\n")) {
+            zoneId = zoneId.substring(0, zoneId.indexOf("\n")); 
         }
 
         // if property user.timezone is not set, we call the native method
         // getCustomTimeZone
-        if (zone == null || zone.length() == 0) {
+        if (zoneId == null || zoneId.length() == 0) {
             int[] tzinfo = new int[10];
             boolean[] isCustomTimeZone = new boolean[1];
 
-            String zoneId = getCustomTimeZone(tzinfo, isCustomTimeZone);
+            zoneId = getCustomTimeZone(tzinfo, isCustomTimeZone);
 
             // if returned TimeZone is a user customized TimeZone
             if (isCustomTimeZone[0]) {
@@ -494,23 +530,24 @@ public abstract class TimeZone implements Serializable, Cloneable {
                 switch (tzinfo[1]) {
                 case 0:
                     // does not observe DST
-                    Default = new SimpleTimeZone(tzinfo[0], zoneId);
+                    zone = new SimpleTimeZone(tzinfo[0], zoneId);
                     break;
                 default:
                     // observes DST
-                    Default = new SimpleTimeZone(tzinfo[0], zoneId, tzinfo[5],
+                    zone = new SimpleTimeZone(tzinfo[0], zoneId, tzinfo[5],
                             tzinfo[4], tzinfo[3], tzinfo[2], tzinfo[9],
                             tzinfo[8], tzinfo[7], tzinfo[6], tzinfo[1]);
                 }
             } else {
                 // get TimeZone
-                Default = getTimeZone(zoneId);
+                zone = getTimeZone(zoneId);
             }
         } else {
             // if property user.timezone is set in command line (with -D option)
-            Default = getTimeZone(zone);
+            zone = getTimeZone(zoneId);
         }
-        setICUDefaultTimeZone(Default);
+        setICUDefaultTimeZone(zone);
+        Default = zone;
     }
 
     private static void setICUDefaultTimeZone(TimeZone timezone) {
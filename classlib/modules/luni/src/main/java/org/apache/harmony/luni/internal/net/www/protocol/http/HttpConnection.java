@@ -49,6 +49,12 @@ public class HttpConnection {
 
     private HttpConfiguration config;
 
+    // How long the server keeps this connection open while idle, in ms
+    private long keepAliveTimeout = HttpConnectionManager.DEFAULT_KEEP_ALIVE_TIMEOUT;
+
+    // When this connection was last returned to the pool
+    private long idleSince;
+
     public HttpConnection(HttpConfiguration config, int connectTimeout) throws IOException {
         this.config = config;
         String hostName = config.getHostName();
@@ -125,6 +131,29 @@ public class HttpConnection {
         }
     }
 
+    /**
+     * Sets how long the server is prepared to keep this connection open
+     * while idle, as advertised by its <code>Keep-Alive</code> header.
+     * 
+     * @param timeout
+     *            the idle timeout in milliseconds
+     */
+    public void setKeepAliveTimeout(long timeout) {
+        keepAliveTimeout = timeout;
+    }
+
+    void setIdleSince(long time) {
+        idleSince = time;
+    }
+
+    /*
+     * Answers true if this connection has been idle for longer than the
+     * server is expected to keep it open.
+     */
+    boolean isExpired(long now) {
+        return now - idleSince >= keepAliveTimeout;
+    }
+
     public void setSoTimeout(int readTimeout) throws SocketException {
         socket.setSoTimeout(readTimeout);
     }
@@ -20,61 +20,92 @@ import java.io.IOException;
 import java.net.Proxy;
 import java.net.URI;
 import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.harmony.luni.util.PriviAction;
 
 /**
  * <code>HttpConnectionManager</code> manages a pool of <code>HttpConnection</code>s
- * that are not currently in use and is used to get hold of persistent <code>HttpConnection</code>s.  
- * Clients should return an <code>HttpConnection</code> to the pool after use by calling 
+ * that are not currently in use and is used to get hold of persistent <code>HttpConnection</code>s.
+ * Clients should return an <code>HttpConnection</code> to the pool after use by calling
  * <code>returnConnectionToPool</code>
- * 
+ *
  * Two system properties affect the behaviour of this class - <code>http.maxConnections</code>
- * and <code>http.keepAlive</code>.  <code>http.keepAlive</code> determines whether 
- * or not connections should be persisted and <code>http.maxConnections</code> 
- * determines the maximum number of connections to each individual host that 
- * should be kept in the pool.
+ * and <code>http.keepAlive</code>.  <code>http.keepAlive</code> determines whether
+ * or not connections should be persisted and <code>http.maxConnections</code>
+ * determines the maximum number of connections to each individual host that
+ * should be kept in the pool. Both are read once, when the manager is created.
+ *
+ * Free connections are kept per route, each route guarded by its own lock, and
+ * the most recently returned connection is reused first. Connections which stay
+ * idle for longer than the keep-alive timeout advertised by the server (or a
+ * default when the server does not send one) are closed by a daemon reaper
+ * thread which only runs while the pool is non-empty. The reaper also drops
+ * the routes which no longer hold any connection.
  */
 public class HttpConnectionManager {
 
+    // Idle time used when the server does not send Keep-Alive: timeout=
+    static final long DEFAULT_KEEP_ALIVE_TIMEOUT = 15000;
+
+    // How often the reaper looks for expired connections
+    private static final long REAPER_INTERVAL = 1000;
+
     // The maximum number of connections to any location
-    private static int maxConnections = 5;
+    private final int maxConnections;
 
     // Keeps connections alive if true
-    private static boolean keepAlive = true;
+    private final boolean keepAlive;
 
-    private static HttpConnectionManager defaultConnectionManager;
-    private ConnectionPool pool = new ConnectionPool();
+    private final ConnectionPool pool = new ConnectionPool();
+
+    /*
+     * The default manager is created on first use, when the holder class is
+     * initialized.
+     */
+    private static class DefaultHolder {
+        static final HttpConnectionManager defaultConnectionManager = new HttpConnectionManager();
+    }
 
     /**
      * Returns the default connection manager
      */
     public static HttpConnectionManager getDefault() {
-        if(defaultConnectionManager == null) {
-            defaultConnectionManager = new HttpConnectionManager();
-        }
-        return defaultConnectionManager;
+        return DefaultHolder.defaultConnectionManager;
+    }
+
+    /**
+     * Creates a connection manager configured from the current values of
+     * the <code>http.maxConnections</code> and <code>http.keepAlive</code>
+     * system properties.
+     */
+    public HttpConnectionManager() {
+        String httpMaxConnections = getSystemProperty("http.maxConnections"); //$NON-NLS-1$
+        String httpKeepAlive = getSystemProperty("http.keepAlive"); //$NON-NLS-1$
+        maxConnections = httpMaxConnections == null ? 5 : Integer
+                .parseInt(httpMaxConnections);
+        keepAlive = httpKeepAlive == null ? true : Boolean
+                .parseBoolean(httpKeepAlive);
     }
 
     public HttpConnection getConnection(URI uri, int connectTimeout) throws IOException {
-        checkSystemProperties();
         HttpConfiguration config = new HttpConfiguration(uri);
         return pool.getHttpConnection(config, connectTimeout);
     }
 
     public HttpConnection getConnection(URI uri, Proxy proxy, int connectTimeout) throws IOException {
-        checkSystemProperties();
         HttpConfiguration config = new HttpConfiguration(uri, proxy);
         return pool.getHttpConnection(config, connectTimeout);
     }
 
     public void returnConnectionToPool(HttpConnection connection) {
-        checkSystemProperties();
         pool.returnConnection(connection);
     }
 
@@ -82,48 +113,171 @@ public class HttpConnectionManager {
         return pool.numFreeConnections();
     }
 
-    private void checkSystemProperties() {
-        String httpMaxConnections =  AccessController.doPrivileged(new PriviAction<String>("http.maxConnections"));
-        String httpKeepAlive = AccessController.doPrivileged(new PriviAction<String>("http.keepAlive"));
-        if(httpMaxConnections != null) {
-            maxConnections = Integer.parseInt(httpMaxConnections);
+    /**
+     * Answers the number of requests served by a pooled connection.
+     */
+    public long getHitCount() {
+        return pool.hits.get();
+    }
+
+    /**
+     * Answers the number of requests which had to open a new connection.
+     */
+    public long getMissCount() {
+        return pool.misses.get();
+    }
+
+    /**
+     * Answers the number of pooled connections closed because they were idle
+     * for longer than their keep-alive timeout or did not fit into the pool.
+     */
+    public long getEvictionCount() {
+        return pool.evictions.get();
+    }
+
+    /**
+     * Answers the number of pooled connections discarded because the server
+     * had closed them by the time they were reused.
+     */
+    public long getStaleCount() {
+        return pool.staleDiscards.get();
+    }
+
+    private static String getSystemProperty(String key) {
+        if (System.getSecurityManager() == null) {
+            return System.getProperty(key);
         }
-        if(httpKeepAlive != null) {
-            keepAlive = Boolean.parseBoolean(httpKeepAlive);
-            if(!keepAlive) {
-                pool.clear();
-            }
+        return AccessController.doPrivileged(new PriviAction<String>(key));
+    }
+
+    /*
+     * Closes connections taken out of the pool. Callers must not hold the
+     * lock of a route, as closing a socket may block.
+     */
+    private static void closeAll(List<HttpConnection> connections) {
+        for (Iterator<HttpConnection> iter = connections.iterator(); iter.hasNext();) {
+            iter.next().closeSocketAndStreams();
         }
     }
 
-    private static class ConnectionPool {
+    /*
+     * The free connections to a single HttpConfiguration, most recently
+     * returned first. A route is retired when it is found empty and removed
+     * from the pool; a connection returned to a retired route is offered to
+     * a fresh route instead.
+     */
+    private static class Route {
+
+        private final LinkedList<HttpConnection> connections = new LinkedList<HttpConnection>();
 
-        private Map<HttpConfiguration, List<HttpConnection>> freeConnectionMap = new HashMap<HttpConfiguration, List<HttpConnection>>(); // Map of free Sockets
+        static final int OFFERED = 0;
 
-        public synchronized void clear() {
-            for (Iterator<List<HttpConnection>> iter = freeConnectionMap.values().iterator(); iter.hasNext();) {
-                List<HttpConnection> connections = iter.next();
-                for (Iterator<HttpConnection> iterator = connections.iterator(); iterator.hasNext();) {
-                    HttpConnection connection = iterator.next();
-                    connection.closeSocketAndStreams();
+        static final int FULL = 1;
+
+        static final int RETIRED = 2;
+
+        private boolean retired;
+
+        synchronized HttpConnection poll() {
+            return connections.isEmpty() ? null : connections.removeFirst();
+        }
+
+        /*
+         * Adds the connection to the route unless the route is full or has
+         * been retired.
+         */
+        synchronized int offer(HttpConnection connection, int max) {
+            if (retired) {
+                return RETIRED;
+            }
+            if (connections.size() >= max) {
+                return FULL;
+            }
+            if (!connections.contains(connection)) {
+                connection.setIdleSince(System.currentTimeMillis());
+                connections.addFirst(connection);
+            }
+            return OFFERED;
+        }
+
+        synchronized int size() {
+            return connections.size();
+        }
+
+        /*
+         * Moves the connections which have been idle for too long to the
+         * given list. Retires the route and answers true if it is left empty.
+         */
+        synchronized boolean evictExpired(long now, List<HttpConnection> expired) {
+            for (Iterator<HttpConnection> iter = connections.iterator(); iter.hasNext();) {
+                HttpConnection connection = iter.next();
+                if (connection.isExpired(now)) {
+                    iter.remove();
+                    expired.add(connection);
                 }
             }
-            freeConnectionMap.clear();
+            retired = connections.isEmpty();
+            return retired;
+        }
+
+        /*
+         * Retires the route and moves all its connections to the given list.
+         */
+        synchronized void drain(List<HttpConnection> drained) {
+            drained.addAll(connections);
+            connections.clear();
+            retired = true;
+        }
+    }
+
+    private class ConnectionPool {
+
+        private final ConcurrentHashMap<HttpConfiguration, Route> routes = new ConcurrentHashMap<HttpConfiguration, Route>(); // Map of free Sockets
+
+        final AtomicLong hits = new AtomicLong();
+
+        final AtomicLong misses = new AtomicLong();
+
+        final AtomicLong evictions = new AtomicLong();
+
+        final AtomicLong staleDiscards = new AtomicLong();
+
+        private Thread reaper;
+
+        public void clear() {
+            List<HttpConnection> drained = new ArrayList<HttpConnection>();
+            for (Iterator<Map.Entry<HttpConfiguration, Route>> iter = routes.entrySet().iterator(); iter.hasNext();) {
+                Map.Entry<HttpConfiguration, Route> entry = iter.next();
+                entry.getValue().drain(drained);
+                routes.remove(entry.getKey(), entry.getValue());
+            }
+            closeAll(drained);
         }
 
-        public synchronized void returnConnection(HttpConnection connection) {
-            if(!connection.getSocket().isClosed() && keepAlive) {
+        public void returnConnection(HttpConnection connection) {
+            if(!connection.getSocket().isClosed() && keepAlive && maxConnections > 0) {
                 HttpConfiguration config = connection.getHttpConfiguration();
-                List<HttpConnection> connections = freeConnectionMap.get(config);
-                if(connections == null) {
-                    connections = new ArrayList<HttpConnection>();
-                    freeConnectionMap.put(config, connections);
-                }
-                if(connections.size() < HttpConnectionManager.maxConnections) {
-                    if(!connections.contains(connection)) {
-                        connections.add(connection);
+                int offered;
+                while (true) {
+                    Route route = routes.get(config);
+                    if (route == null) {
+                        Route newRoute = new Route();
+                        route = routes.putIfAbsent(config, newRoute);
+                        if (route == null) {
+                            route = newRoute;
+                        }
                     }
+                    offered = route.offer(connection, maxConnections);
+                    if (offered != Route.RETIRED) {
+                        break;
+                    }
+                    // retired by the reaper, which may not have removed it yet
+                    routes.remove(config, route);
+                }
+                if (offered == Route.OFFERED) {
+                    startReaper();
                 } else {
+                    evictions.incrementAndGet();
                     connection.closeSocketAndStreams();
                 }
             } else {
@@ -132,42 +286,98 @@ public class HttpConnectionManager {
             }
         }
 
-        public synchronized HttpConnection getHttpConnection(HttpConfiguration config, int connectTimeout) throws IOException {
-            List<HttpConnection> connections = freeConnectionMap.get(config);
-            if(keepAlive && connections == null) {
-                connections = new ArrayList<HttpConnection>();
-                freeConnectionMap.put(config, connections);
-            }
-            if(!keepAlive || connections.isEmpty()) {
-                HttpConnection connection = new HttpConnection(config, connectTimeout);
-                return connection;
-            } else {
-                HttpConnection connection = connections.get(0);
-                connections.remove(0);
-                if(!connection.isStale()) {
-                    SecurityManager security = System.getSecurityManager();
-                    if (security != null) {
-                        security.checkConnect(connection.getSocket().getInetAddress().getHostName(), connection.getSocket().getPort());
-                    }
-                    return connection;                 
-                } else {
-                    return getHttpConnection(config, connectTimeout);
+        public HttpConnection getHttpConnection(HttpConfiguration config, int connectTimeout) throws IOException {
+            Route route = keepAlive ? routes.get(config) : null;
+            while (route != null) {
+                HttpConnection connection = route.poll();
+                if (connection == null) {
+                    break;
+                }
+                if (connection.isExpired(System.currentTimeMillis())) {
+                    evictions.incrementAndGet();
+                    connection.closeSocketAndStreams();
+                    continue;
+                }
+                if (connection.isStale()) {
+                    staleDiscards.incrementAndGet();
+                    connection.closeSocketAndStreams();
+                    continue;
                 }
+                SecurityManager security = System.getSecurityManager();
+                if (security != null) {
+                    security.checkConnect(connection.getSocket().getInetAddress().getHostName(), connection.getSocket().getPort());
+                }
+                hits.incrementAndGet();
+                return connection;
             }
+            misses.incrementAndGet();
+            return new HttpConnection(config, connectTimeout);
         }
 
         public int numFreeConnections() {
             int numFree = 0;
-            for (Iterator<List<HttpConnection>> iter = freeConnectionMap.values().iterator(); iter.hasNext();) {
-                List<HttpConnection> connections = iter.next();
-                numFree += connections.size();
+            for (Iterator<Route> iter = routes.values().iterator(); iter.hasNext();) {
+                numFree += iter.next().size();
             }
             return numFree;
         }
+
+        /*
+         * Starts the reaper thread unless it is already running. The thread
+         * is created in a privileged block so that it does not inherit the
+         * context class loader of whichever caller happened to start it.
+         */
+        private synchronized void startReaper() {
+            if (reaper != null) {
+                return;
+            }
+            reaper = AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+                public Thread run() {
+                    Thread thread = new Thread(new Runnable() {
+                        public void run() {
+                            reap();
+                        }
+                    }, "HttpConnectionManager reaper"); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    thread.setContextClassLoader(null);
+                    return thread;
+                }
+            });
+            reaper.start();
+        }
+
+        private void reap() {
+            List<HttpConnection> expired = new ArrayList<HttpConnection>();
+            while (true) {
+                try {
+                    Thread.sleep(REAPER_INTERVAL);
+                } catch (InterruptedException e) {
+                    // carry on, the pool decides when the reaper stops
+                }
+                long now = System.currentTimeMillis();
+                for (Iterator<Map.Entry<HttpConfiguration, Route>> iter = routes.entrySet().iterator(); iter.hasNext();) {
+                    Map.Entry<HttpConfiguration, Route> entry = iter.next();
+                    if (entry.getValue().evictExpired(now, expired)) {
+                        routes.remove(entry.getKey(), entry.getValue());
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    evictions.addAndGet(expired.size());
+                    closeAll(expired);
+                    expired.clear();
+                }
+                synchronized (this) {
+                    if (numFreeConnections() == 0) {
+                        reaper = null;
+                        return;
+                    }
+                }
+            }
+        }
     }
 
     public void reset() {
         pool.clear();
     }
 
-}
\ No newline at end of file
+}
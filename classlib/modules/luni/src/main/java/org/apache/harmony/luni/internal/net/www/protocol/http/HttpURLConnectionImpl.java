@@ -1081,6 +1081,13 @@ public class HttpURLConnectionImpl extends HttpURLConnection {
             }
         } while (getResponseCode() == 100);
 
+        if (connection != null) {
+            long timeout = getKeepAliveTimeout(resHeader.get("Keep-Alive")); //$NON-NLS-1$
+            if (timeout > 0) {
+                connection.setKeepAliveTimeout(timeout);
+            }
+        }
+
         if (method == HEAD || (responseCode >= 100 && responseCode < 200)
                 || responseCode == HTTP_NO_CONTENT
                 || responseCode == HTTP_NOT_MODIFIED) {
@@ -1090,6 +1097,34 @@ public class HttpURLConnectionImpl extends HttpURLConnection {
         putToCache();
     }
 
+    /*
+     * Answers the idle timeout in milliseconds from a header of the form
+     * "Keep-Alive: timeout=15, max=100", or -1 if there is none.
+     */
+    private static long getKeepAliveTimeout(String keepAlive) {
+        if (keepAlive == null) {
+            return -1;
+        }
+        int start = keepAlive.toLowerCase().indexOf("timeout="); //$NON-NLS-1$
+        if (start < 0) {
+            return -1;
+        }
+        start += "timeout=".length(); //$NON-NLS-1$
+        int end = start;
+        while (end < keepAlive.length()
+                && Character.isDigit(keepAlive.charAt(end))) {
+            end++;
+        }
+        if (end == start) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(keepAlive.substring(start, end)) * 1000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     @Override
     public int getResponseCode() throws IOException {
         // Response Code Sample : "HTTP/1.0 200 OK"
@@ -0,0 +1,442 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.internal.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Generates the class file of a {@link MethodAccessor} or
+ * {@link ConstructorAccessor} subclass which calls one method or constructor
+ * with a plain invoke instruction. The layout of the generated class mirrors
+ * {@link ProxyClassFile} and shares its constant pool implementation.
+ */
+final class AccessorClassFile implements ProxyConstants {
+
+    private static final int INITIAL_CONTENTS_SIZE = 300;
+
+    private static final int INITIAL_HEADER_SIZE = 300;
+
+    private static final int INCREMENT_SIZE = 250;
+
+    private static final char[] INVOKE_NAME = "invoke".toCharArray(); //$NON-NLS-1$
+
+    private static final char[] INVOKE_SIGNATURE = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;".toCharArray(); //$NON-NLS-1$
+
+    private static final char[] NEW_INSTANCE_NAME = "newInstance".toCharArray(); //$NON-NLS-1$
+
+    private static final char[] NEW_INSTANCE_SIGNATURE = "([Ljava/lang/Object;)Ljava/lang/Object;".toCharArray(); //$NON-NLS-1$
+
+    private static final char[] DEFAULT_CONSTRUCTOR_SIGNATURE = "()V".toCharArray(); //$NON-NLS-1$
+
+    static byte[] generateBytes(String typeName, Method method) {
+        AccessorClassFile classFile = new AccessorClassFile(typeName,
+                MethodAccessor.class);
+        classFile.writeUnsignedShort(2); // methods count
+        classFile.addConstructor(MethodAccessor.class);
+        classFile.addInvokeMethod(method);
+        return classFile.getBytes();
+    }
+
+    static byte[] generateBytes(String typeName, Constructor<?> constructor) {
+        AccessorClassFile classFile = new AccessorClassFile(typeName,
+                ConstructorAccessor.class);
+        classFile.writeUnsignedShort(2); // methods count
+        classFile.addConstructor(ConstructorAccessor.class);
+        classFile.addNewInstanceMethod(constructor);
+        return classFile.getBytes();
+    }
+
+    private ProxyConstantPool constantPool;
+
+    // the header contains all the bytes till the end of the constant pool
+    private byte[] header;
+
+    private int headerOffset;
+
+    // that collection contains all the remaining bytes of the .class file
+    private byte[] contents;
+
+    private int contentsOffset;
+
+    private int constantPoolOffset;
+
+    private AccessorClassFile(String typeName, Class<?> superclass) {
+        super();
+        header = new byte[INITIAL_HEADER_SIZE];
+        // generate the magic numbers inside the header
+        header[headerOffset++] = (byte) (0xCAFEBABEL >> 24);
+        header[headerOffset++] = (byte) (0xCAFEBABEL >> 16);
+        header[headerOffset++] = (byte) (0xCAFEBABEL >> 8);
+        header[headerOffset++] = (byte) (0xCAFEBABEL >> 0);
+        // Java 5 class file, no stack map needed
+        header[headerOffset++] = 0;
+        header[headerOffset++] = 0;
+        header[headerOffset++] = 0;
+        header[headerOffset++] = 49;
+        constantPoolOffset = headerOffset;
+        headerOffset += 2;
+        constantPool = new ProxyConstantPool(header, headerOffset);
+        contents = new byte[INITIAL_CONTENTS_SIZE];
+        writeUnsignedShort(AccPublic | AccFinal | AccSuper);
+        writeUnsignedShort(constantPool.typeIndex(typeName));
+        writeUnsignedShort(constantPool.typeIndex(superclass.getName()));
+        writeUnsignedShort(0); // interfaces count
+        writeUnsignedShort(0); // fields count
+    }
+
+    /*
+     * public <init>() { super(); }
+     */
+    private void addConstructor(Class<?> superclass) {
+        Constructor<?> superConstructor;
+        try {
+            superConstructor = superclass.getDeclaredConstructor((Class[]) null);
+        } catch (NoSuchMethodException e) {
+            throw new InternalError();
+        }
+        writeUnsignedShort(AccPublic);
+        writeUnsignedShort(constantPool.literalIndex(Init));
+        writeUnsignedShort(constantPool.literalIndex(DEFAULT_CONSTRUCTOR_SIGNATURE));
+        writeUnsignedShort(1); // store just the code attribute
+        int codeStart = startCode();
+        writeUnsignedByte(OPC_aload_0);
+        writeUnsignedByte(OPC_invokespecial);
+        writeUnsignedShort(constantPool.literalIndex(superConstructor));
+        writeUnsignedByte(OPC_return);
+        completeCode(codeStart, 1, 1);
+        writeUnsignedShort(0); // exception table length
+        endCode(codeStart);
+    }
+
+    /*
+     * public Object invoke(Object obj, Object[] args) {
+     *     try {
+     *         return box(((Declaring) obj).method(unbox(args[0]), ...));
+     *     } catch (Throwable t) {
+     *         throw new InvocationTargetException(t);
+     *     }
+     * }
+     * where only the call itself is covered by the handler.
+     */
+    private void addInvokeMethod(Method method) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        Class<?> declaringClass = method.getDeclaringClass();
+        Class<?>[] parameterTypes = method.getParameterTypes();
+
+        writeUnsignedShort(AccPublic);
+        writeUnsignedShort(constantPool.literalIndex(INVOKE_NAME));
+        writeUnsignedShort(constantPool.literalIndex(INVOKE_SIGNATURE));
+        writeUnsignedShort(1); // store just the code attribute
+        int codeStart = startCode();
+        int stack = 0;
+        if (!isStatic) {
+            writeUnsignedByte(OPC_aload_1);
+            writeUnsignedByte(OPC_checkcast);
+            writeUnsignedShort(constantPool.typeIndex(declaringClass.getName()));
+            stack++;
+        }
+        stack += genUnboxArgs(parameterTypes, OPC_aload_2);
+
+        int callStart = contentsOffset - codeStart;
+        if (isStatic) {
+            writeUnsignedByte(OPC_invokestatic);
+            writeUnsignedShort(constantPool.literalIndex(method));
+        } else if (declaringClass.isInterface()) {
+            writeUnsignedByte(OPC_invokeinterface);
+            writeUnsignedShort(constantPool.literalIndex(method));
+            writeUnsignedByte(stack);
+            writeUnsignedByte(0);
+        } else {
+            writeUnsignedByte(OPC_invokevirtual);
+            writeUnsignedShort(constantPool.literalIndex(method));
+        }
+        int callEnd = contentsOffset - codeStart;
+        genBoxResult(method.getReturnType());
+        writeUnsignedByte(OPC_areturn);
+
+        int handler = contentsOffset - codeStart;
+        genRethrow(OPC_astore_3, OPC_aload_3);
+        completeCode(codeStart, Math.max(stack + 2, 3), 4);
+        writeExceptionTable(callStart, callEnd, handler);
+        endCode(codeStart);
+    }
+
+    /*
+     * public Object newInstance(Object[] args) {
+     *     try {
+     *         return new Declaring(unbox(args[0]), ...);
+     *     } catch (Throwable t) {
+     *         throw new InvocationTargetException(t);
+     *     }
+     * }
+     * where only the constructor call is covered by the handler.
+     */
+    private void addNewInstanceMethod(Constructor<?> constructor) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+
+        writeUnsignedShort(AccPublic);
+        writeUnsignedShort(constantPool.literalIndex(NEW_INSTANCE_NAME));
+        writeUnsignedShort(constantPool.literalIndex(NEW_INSTANCE_SIGNATURE));
+        writeUnsignedShort(1); // store just the code attribute
+        int codeStart = startCode();
+        writeUnsignedByte(OPC_new);
+        writeUnsignedShort(constantPool.typeIndex(constructor
+                .getDeclaringClass().getName()));
+        writeUnsignedByte(OPC_dup);
+        int stack = 2 + genUnboxArgs(parameterTypes, OPC_aload_1);
+
+        int callStart = contentsOffset - codeStart;
+        writeUnsignedByte(OPC_invokespecial);
+        writeUnsignedShort(constantPool.literalIndex(constructor));
+        int callEnd = contentsOffset - codeStart;
+        writeUnsignedByte(OPC_areturn);
+
+        int handler = contentsOffset - codeStart;
+        genRethrow(OPC_astore_2, OPC_aload_2);
+        completeCode(codeStart, Math.max(stack + 2, 3), 3);
+        writeExceptionTable(callStart, callEnd, handler);
+        endCode(codeStart);
+    }
+
+    /*
+     * Pushes each element of the argument array, unwrapped or cast to the
+     * parameter type, and answers the number of stack slots they take.
+     */
+    private int genUnboxArgs(Class<?>[] parameterTypes, int loadArgsOpcode) {
+        int slots = 0;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> type = parameterTypes[i];
+            writeUnsignedByte(loadArgsOpcode);
+            writeIntConstant(i);
+            writeUnsignedByte(OPC_aaload);
+            if (type.isPrimitive()) {
+                writeUnsignedByte(OPC_invokestatic);
+                writeUnsignedShort(constantPool.literalIndex(unboxMethod(type)));
+                slots += (type == long.class || type == double.class) ? 2 : 1;
+            } else {
+                if (type != Object.class) {
+                    writeUnsignedByte(OPC_checkcast);
+                    writeUnsignedShort(constantPool.typeIndex(type.getName()));
+                }
+                slots++;
+            }
+        }
+        return slots;
+    }
+
+    private void genBoxResult(Class<?> type) {
+        if (type == void.class) {
+            writeUnsignedByte(OPC_aconst_null);
+        } else if (type.isPrimitive()) {
+            writeUnsignedByte(OPC_invokestatic);
+            writeUnsignedShort(constantPool.literalIndex(boxMethod(type)));
+        }
+    }
+
+    private void genRethrow(int storeOpcode, int loadOpcode) {
+        Constructor<?> exceptionConstructor;
+        try {
+            exceptionConstructor = InvocationTargetException.class
+                    .getConstructor(new Class[] { Throwable.class });
+        } catch (NoSuchMethodException e) {
+            throw new InternalError();
+        }
+        writeUnsignedByte(storeOpcode);
+        writeUnsignedByte(OPC_new);
+        writeUnsignedShort(constantPool
+                .typeIndex("java/lang/reflect/InvocationTargetException")); //$NON-NLS-1$
+        writeUnsignedByte(OPC_dup);
+        writeUnsignedByte(loadOpcode);
+        writeUnsignedByte(OPC_invokespecial);
+        writeUnsignedShort(constantPool.literalIndex(exceptionConstructor));
+        writeUnsignedByte(OPC_athrow);
+    }
+
+    private static Method unboxMethod(Class<?> type) {
+        String name;
+        if (type == boolean.class) {
+            name = "toBoolean"; //$NON-NLS-1$
+        } else if (type == byte.class) {
+            name = "toByte"; //$NON-NLS-1$
+        } else if (type == char.class) {
+            name = "toChar"; //$NON-NLS-1$
+        } else if (type == short.class) {
+            name = "toShort"; //$NON-NLS-1$
+        } else if (type == int.class) {
+            name = "toInt"; //$NON-NLS-1$
+        } else if (type == long.class) {
+            name = "toLong"; //$NON-NLS-1$
+        } else if (type == float.class) {
+            name = "toFloat"; //$NON-NLS-1$
+        } else {
+            name = "toDouble"; //$NON-NLS-1$
+        }
+        try {
+            return MethodAccessor.class.getMethod(name,
+                    new Class[] { Object.class });
+        } catch (NoSuchMethodException e) {
+            throw new InternalError();
+        }
+    }
+
+    private static Method boxMethod(Class<?> type) {
+        Class<?> wrapper;
+        if (type == boolean.class) {
+            wrapper = Boolean.class;
+        } else if (type == byte.class) {
+            wrapper = Byte.class;
+        } else if (type == char.class) {
+            wrapper = Character.class;
+        } else if (type == short.class) {
+            wrapper = Short.class;
+        } else if (type == int.class) {
+            wrapper = Integer.class;
+        } else if (type == long.class) {
+            wrapper = Long.class;
+        } else if (type == float.class) {
+            wrapper = Float.class;
+        } else {
+            wrapper = Double.class;
+        }
+        try {
+            return wrapper.getMethod("valueOf", new Class[] { type }); //$NON-NLS-1$
+        } catch (NoSuchMethodException e) {
+            throw new InternalError();
+        }
+    }
+
+    /*
+     * Writes the Code attribute header with placeholder lengths and answers
+     * the offset of the code array.
+     */
+    private int startCode() {
+        writeUnsignedShort(constantPool.literalIndex(CodeName));
+        writeUnsignedWord(0); // attribute_length, patched by completeCode
+        writeUnsignedShort(0); // max_stack
+        writeUnsignedShort(0); // max_locals
+        writeUnsignedWord(0); // code_length
+        return contentsOffset;
+    }
+
+    private void completeCode(int codeStart, int maxStack, int maxLocals) {
+        writeUnsignedShort(maxStack, codeStart - 8);
+        writeUnsignedShort(maxLocals, codeStart - 6);
+        writeUnsignedWord(contentsOffset - codeStart, codeStart - 4);
+    }
+
+    private void writeExceptionTable(int start, int end, int handler) {
+        writeUnsignedShort(1);
+        writeUnsignedShort(start);
+        writeUnsignedShort(end);
+        writeUnsignedShort(handler);
+        writeUnsignedShort(constantPool.typeIndex("java/lang/Throwable")); //$NON-NLS-1$
+    }
+
+    /*
+     * Writes the empty attribute list of the Code attribute and patches its
+     * length, which counts everything after the length itself.
+     */
+    private void endCode(int codeStart) {
+        writeUnsignedShort(0); // there are no attributes for the code
+        writeUnsignedWord(contentsOffset - (codeStart - 8), codeStart - 12);
+    }
+
+    private byte[] getBytes() {
+        writeUnsignedShort(0); // classFile does not have attributes of its own
+
+        // resynchronize all offsets of the classfile
+        header = constantPool.poolContent;
+        headerOffset = constantPool.currentOffset;
+        int constantPoolCount = constantPool.currentIndex;
+        header[constantPoolOffset++] = (byte) (constantPoolCount >> 8);
+        header[constantPoolOffset] = (byte) constantPoolCount;
+
+        byte[] fullContents = new byte[headerOffset + contentsOffset];
+        System.arraycopy(header, 0, fullContents, 0, headerOffset);
+        System.arraycopy(contents, 0, fullContents, headerOffset,
+                contentsOffset);
+        return fullContents;
+    }
+
+    private void writeIntConstant(int b) {
+        switch (b) {
+            case 0:
+                writeUnsignedByte(OPC_iconst_0);
+                break;
+            case 1:
+                writeUnsignedByte(OPC_iconst_1);
+                break;
+            case 2:
+                writeUnsignedByte(OPC_iconst_2);
+                break;
+            case 3:
+                writeUnsignedByte(OPC_iconst_3);
+                break;
+            case 4:
+                writeUnsignedByte(OPC_iconst_4);
+                break;
+            case 5:
+                writeUnsignedByte(OPC_iconst_5);
+                break;
+            default:
+                if (b <= Byte.MAX_VALUE) {
+                    writeUnsignedByte(OPC_bipush);
+                    writeUnsignedByte(b);
+                } else {
+                    writeUnsignedByte(OPC_sipush);
+                    writeUnsignedShort(b);
+                }
+        }
+    }
+
+    private void writeUnsignedByte(int b) {
+        if (contentsOffset == contents.length) {
+            byte[] newContents = new byte[contents.length + INCREMENT_SIZE];
+            System.arraycopy(contents, 0, newContents, 0, contents.length);
+            contents = newContents;
+        }
+        contents[contentsOffset++] = (byte) b;
+    }
+
+    private void writeUnsignedShort(int b) {
+        writeUnsignedByte(b >>> 8);
+        writeUnsignedByte(b);
+    }
+
+    private void writeUnsignedWord(int b) {
+        writeUnsignedByte(b >>> 24);
+        writeUnsignedByte(b >>> 16);
+        writeUnsignedByte(b >>> 8);
+        writeUnsignedByte(b);
+    }
+
+    private void writeUnsignedShort(int b, int offset) {
+        contents[offset] = (byte) (b >>> 8);
+        contents[offset + 1] = (byte) b;
+    }
+
+    private void writeUnsignedWord(int b, int offset) {
+        contents[offset] = (byte) (b >>> 24);
+        contents[offset + 1] = (byte) (b >>> 16);
+        contents[offset + 2] = (byte) (b >>> 8);
+        contents[offset + 3] = (byte) b;
+    }
+}
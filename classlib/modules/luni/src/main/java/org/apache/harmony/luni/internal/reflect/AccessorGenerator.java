@@ -0,0 +1,213 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.internal.reflect;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+
+/**
+ * Creates bytecode accessors which let a VM replace its native reflective
+ * calls of a method or constructor by a plain invoke instruction once the
+ * member has been called often enough. Each accessor class is defined by a
+ * class loader of its own, whose parent is the loader of the declaring class,
+ * so that the accessor can be unloaded together with that class.
+ * <p>
+ * Because the accessor lives in a different runtime package, only public
+ * members of public classes with public signatures are accepted. Members of
+ * classes defined by the bootstrap loader are rejected as well, since some
+ * of them determine their caller from the stack. The accessor classes
+ * themselves are never inflated: they are instantiated reflectively, so
+ * generating an accessor for their constructor would recurse without end
+ * when the threshold is zero.
+ * <p>
+ * The number of reflective calls after which a member is inflated is read once
+ * from the <code>org.apache.harmony.reflect.inflationThreshold</code>
+ * system property; a negative value disables inflation.
+ */
+public final class AccessorGenerator {
+
+    private static final String PACKAGE_NAME = "org/apache/harmony/luni/internal/reflect/generated/"; //$NON-NLS-1$
+
+    private static final int DEFAULT_INFLATION_THRESHOLD = 15;
+
+    // keeps the argument count of invokeinterface within one byte
+    private static final int MAX_PARAMETERS = 127;
+
+    private static final int INFLATION_THRESHOLD = readInflationThreshold();
+
+    private static int counter;
+
+    private AccessorGenerator() {
+        // no instances
+    }
+
+    /**
+     * Answers the number of reflective calls after which a member should be
+     * inflated, or a negative value if members are never inflated.
+     */
+    public static int getInflationThreshold() {
+        return INFLATION_THRESHOLD;
+    }
+
+    private static int readInflationThreshold() {
+        String value = AccessController
+                .doPrivileged(new PrivilegedAction<String>() {
+                    public String run() {
+                        return System
+                                .getProperty("org.apache.harmony.reflect.inflationThreshold"); //$NON-NLS-1$
+                    }
+                });
+        if (value != null) {
+            try {
+                return Math.max(-1, Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                // use the default
+            }
+        }
+        return DEFAULT_INFLATION_THRESHOLD;
+    }
+
+    /**
+     * Generates an accessor for the method.
+     *
+     * @param method
+     *            the method to call
+     * @return the accessor, or {@code null} if the method cannot be called
+     *         from generated code
+     */
+    public static MethodAccessor newMethodAccessor(final Method method) {
+        if (!isAccessible(method)
+                || !isAccessible(method.getReturnType())
+                || !areAccessible(method.getParameterTypes())) {
+            return null;
+        }
+        return (MethodAccessor) define(method.getDeclaringClass(),
+                new ClassFileFactory() {
+                    public byte[] generate(String typeName) {
+                        return AccessorClassFile.generateBytes(typeName, method);
+                    }
+                });
+    }
+
+    /**
+     * Generates an accessor for the constructor.
+     *
+     * @param constructor
+     *            the constructor to call
+     * @return the accessor, or {@code null} if the constructor cannot be
+     *         called from generated code
+     */
+    public static ConstructorAccessor newConstructorAccessor(
+            final Constructor<?> constructor) {
+        Class<?> declaringClass = constructor.getDeclaringClass();
+        if (Modifier.isAbstract(declaringClass.getModifiers())
+                || declaringClass.isEnum() || !isAccessible(constructor)
+                || !areAccessible(constructor.getParameterTypes())) {
+            return null;
+        }
+        return (ConstructorAccessor) define(declaringClass,
+                new ClassFileFactory() {
+                    public byte[] generate(String typeName) {
+                        return AccessorClassFile.generateBytes(typeName,
+                                constructor);
+                    }
+                });
+    }
+
+    private static boolean isAccessible(Member member) {
+        Class<?> declaringClass = member.getDeclaringClass();
+        ClassLoader loader = declaringClass.getClassLoader();
+        return Modifier.isPublic(member.getModifiers()) && loader != null
+                && !(loader instanceof AccessorClassLoader)
+                && isAccessible(declaringClass);
+    }
+
+    private static boolean areAccessible(Class<?>[] types) {
+        if (types.length > MAX_PARAMETERS) {
+            return false;
+        }
+        for (Class<?> type : types) {
+            if (!isAccessible(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> c = type; c != null; c = c.getDeclaringClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private interface ClassFileFactory {
+        byte[] generate(String typeName);
+    }
+
+    private static Object define(final Class<?> declaringClass,
+            final ClassFileFactory factory) {
+        final String typeName = nextTypeName();
+        return AccessController.doPrivileged(new PrivilegedAction<Object>() {
+            public Object run() {
+                byte[] bytes = factory.generate(typeName);
+                AccessorClassLoader loader = new AccessorClassLoader(
+                        declaringClass.getClassLoader());
+                try {
+                    return loader.define(typeName.replace('/', '.'), bytes)
+                            .newInstance();
+                } catch (InstantiationException e) {
+                    throw new InternalError(e.toString());
+                } catch (IllegalAccessException e) {
+                    throw new InternalError(e.toString());
+                }
+            }
+        });
+    }
+
+    private static synchronized String nextTypeName() {
+        return PACKAGE_NAME + "Accessor" + counter++; //$NON-NLS-1$
+    }
+
+    /*
+     * Defines exactly one accessor class. Everything else is resolved by the
+     * loader of the declaring class.
+     */
+    private static final class AccessorClassLoader extends ClassLoader {
+
+        AccessorClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
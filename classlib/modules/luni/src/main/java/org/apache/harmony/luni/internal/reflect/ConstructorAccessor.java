@@ -0,0 +1,45 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.internal.reflect;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Base class of the generated classes which call one particular constructor
+ * directly from bytecode, see {@link AccessorGenerator}. Primitive arguments
+ * are unwrapped with the helpers of {@link MethodAccessor}.
+ */
+public abstract class ConstructorAccessor {
+
+    protected ConstructorAccessor() {
+        super();
+    }
+
+    /**
+     * Creates a new instance. The caller has already checked access and the
+     * number and reference types of the arguments.
+     *
+     * @param args
+     *            the arguments
+     * @return the new instance
+     * @throws InvocationTargetException
+     *             if the constructor throws an exception
+     */
+    public abstract Object newInstance(Object[] args)
+            throws InvocationTargetException;
+}
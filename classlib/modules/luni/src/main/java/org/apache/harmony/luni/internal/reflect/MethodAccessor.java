@@ -0,0 +1,119 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.internal.reflect;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Base class of the generated classes which invoke one particular method
+ * directly from bytecode, see {@link AccessorGenerator}.
+ * <p>
+ * The static {@code toXXX} methods are called by the generated code to
+ * unwrap primitive arguments. They apply the identity and widening
+ * conversions allowed by {@link java.lang.reflect.Method#invoke} and throw
+ * {@code IllegalArgumentException} for anything else.
+ */
+public abstract class MethodAccessor {
+
+    protected MethodAccessor() {
+        super();
+    }
+
+    /**
+     * Invokes the method. The caller has already checked access, the receiver
+     * and the number and reference types of the arguments.
+     *
+     * @param obj
+     *            the receiver, ignored for a static method
+     * @param args
+     *            the arguments
+     * @return the result, wrapped if it is primitive, or {@code null} for a
+     *         void method
+     * @throws InvocationTargetException
+     *             if the method throws an exception
+     */
+    public abstract Object invoke(Object obj, Object[] args)
+            throws InvocationTargetException;
+
+    public static boolean toBoolean(Object arg) {
+        if (arg instanceof Boolean) {
+            return ((Boolean) arg).booleanValue();
+        }
+        throw incompatible(arg, "boolean"); //$NON-NLS-1$
+    }
+
+    public static byte toByte(Object arg) {
+        if (arg instanceof Byte) {
+            return ((Byte) arg).byteValue();
+        }
+        throw incompatible(arg, "byte"); //$NON-NLS-1$
+    }
+
+    public static char toChar(Object arg) {
+        if (arg instanceof Character) {
+            return ((Character) arg).charValue();
+        }
+        throw incompatible(arg, "char"); //$NON-NLS-1$
+    }
+
+    public static short toShort(Object arg) {
+        if (arg instanceof Short || arg instanceof Byte) {
+            return ((Number) arg).shortValue();
+        }
+        throw incompatible(arg, "short"); //$NON-NLS-1$
+    }
+
+    public static int toInt(Object arg) {
+        if (arg instanceof Integer || arg instanceof Short
+                || arg instanceof Byte) {
+            return ((Number) arg).intValue();
+        }
+        if (arg instanceof Character) {
+            return ((Character) arg).charValue();
+        }
+        throw incompatible(arg, "int"); //$NON-NLS-1$
+    }
+
+    public static long toLong(Object arg) {
+        if (arg instanceof Long) {
+            return ((Long) arg).longValue();
+        }
+        return toInt(arg);
+    }
+
+    public static float toFloat(Object arg) {
+        if (arg instanceof Float) {
+            return ((Float) arg).floatValue();
+        }
+        return toLong(arg);
+    }
+
+    public static double toDouble(Object arg) {
+        if (arg instanceof Double) {
+            return ((Double) arg).doubleValue();
+        }
+        return toFloat(arg);
+    }
+
+    private static IllegalArgumentException incompatible(Object arg,
+            String type) {
+        return new IllegalArgumentException("Actual parameter: " //$NON-NLS-1$
+                + (arg == null ? "<null>" : arg.getClass().getName()) //$NON-NLS-1$
+                + " is incompatible with " + type); //$NON-NLS-1$
+    }
+}
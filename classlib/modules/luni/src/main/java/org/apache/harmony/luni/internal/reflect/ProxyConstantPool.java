@@ -62,6 +62,10 @@ class ProxyConstantPool implements ProxyConstants {
     int currentOffset;
 
     ProxyConstantPool(ProxyClassFile classFile) {
+        this(classFile.header, classFile.headerOffset);
+    }
+
+    ProxyConstantPool(byte[] header, int headerOffset) {
         UTF8Cache = new ProxyCharArrayCache(UTF8_INITIAL_SIZE);
         stringCache = new ProxyCharArrayCache(STRING_INITIAL_SIZE);
         classNameCache = new ProxyCharArrayCache(CLASS_INITIAL_SIZE);
@@ -69,8 +73,8 @@ class ProxyConstantPool implements ProxyConstants {
         methodCache = new ProxyObjectCache(METHOD_INITIAL_SIZE);
         interfaceMethodCache = new ProxyObjectCache(INTERFACE_INITIAL_SIZE);
         nameAndTypeCache = new ProxyNameAndTypeCache(NAMEANDTYPE_INITIAL_SIZE);
-        poolContent = classFile.header;
-        currentOffset = classFile.headerOffset;
+        poolContent = header;
+        currentOffset = headerOffset;
         currentIndex = 1;
     }
 
@@ -76,6 +76,23 @@ public interface IFileSystem {
     public long writeDirect(long fileDescriptor, long address, int offset,
             int length) throws IOException;
 
+    /**
+     * Reads into memory from the given position in the file. The file
+     * pointer is left undefined on some platforms, so the descriptor should
+     * only be used for positional reads and writes.
+     * 
+     * @return the number of bytes read, or -1 at the end of the file
+     */
+    public long readDirectAt(long fileDescriptor, long address, int offset,
+            int length, long position) throws IOException;
+
+    /**
+     * Writes from memory at the given position in the file, with the same
+     * caveat about the file pointer as readDirectAt.
+     */
+    public long writeDirectAt(long fileDescriptor, long address, int offset,
+            int length, long position) throws IOException;
+
     public boolean lock(long fileDescriptor, long start, long length, int type,
             boolean waitFlag) throws IOException;
 
@@ -102,6 +119,18 @@ public interface IFileSystem {
     public long transfer(long fileHandler, FileDescriptor socketDescriptor,
             long offset, long count) throws IOException;
 
+    /**
+     * Copies bytes from one file to another within the kernel, without
+     * moving the file pointer of either file.
+     * 
+     * @return the number of bytes copied, which is less than count at the
+     *         end of the source file or if the copy stopped part way, or -1
+     *         if the platform cannot copy between these files in the kernel
+     */
+    public long transferFile(long srcFileDescriptor, long srcOffset,
+            long dstFileDescriptor, long dstOffset, long count)
+            throws IOException;
+
     public long ttyAvailable() throws IOException;
 
     public long available(long fileDescriptor) throws IOException;
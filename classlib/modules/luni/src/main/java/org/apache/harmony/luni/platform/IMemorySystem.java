@@ -185,6 +185,366 @@ public interface IMemorySystem {
     public void setByteArray(long address, byte[] bytes, int offset, int length)
             throws NullPointerException, IndexOutOfBoundsException;
 
+    /**
+     * Copies <code>length</code> shorts from the memory block at
+     * <code>address</code> into the array <code>shorts</code> starting at
+     * element <code>offset</code>, reading them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 2)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block from which to copy.
+     * @param shorts
+     *            the array into which to copy the shorts.
+     * @param offset
+     *            the index of the first element in <code>shorts</code> that
+     *            will be overwritten.
+     * @param length
+     *            the number of shorts to copy.
+     * @param endianness
+     *            the byte order of the shorts in the memory block.
+     * @throws NullPointerException
+     *             if <code>shorts</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > shorts.length</code>.
+     */
+    public void getShortArray(long address, short[] shorts, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> shorts from the array <code>shorts</code>,
+     * starting at element <code>offset</code>, into the memory block at
+     * <code>address</code>, writing them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 2)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block into which to copy.
+     * @param shorts
+     *            the array from which to copy the shorts.
+     * @param offset
+     *            the index of the first element in <code>shorts</code> that
+     *            will be read.
+     * @param length
+     *            the number of shorts to copy.
+     * @param endianness
+     *            the byte order of the shorts in the memory block.
+     * @throws NullPointerException
+     *             if <code>shorts</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > shorts.length</code>.
+     */
+    public void setShortArray(long address, short[] shorts, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> chars from the memory block at
+     * <code>address</code> into the array <code>chars</code> starting at
+     * element <code>offset</code>, reading them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 2)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block from which to copy.
+     * @param chars
+     *            the array into which to copy the chars.
+     * @param offset
+     *            the index of the first element in <code>chars</code> that
+     *            will be overwritten.
+     * @param length
+     *            the number of chars to copy.
+     * @param endianness
+     *            the byte order of the chars in the memory block.
+     * @throws NullPointerException
+     *             if <code>chars</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > chars.length</code>.
+     */
+    public void getCharArray(long address, char[] chars, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> chars from the array <code>chars</code>,
+     * starting at element <code>offset</code>, into the memory block at
+     * <code>address</code>, writing them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 2)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block into which to copy.
+     * @param chars
+     *            the array from which to copy the chars.
+     * @param offset
+     *            the index of the first element in <code>chars</code> that
+     *            will be read.
+     * @param length
+     *            the number of chars to copy.
+     * @param endianness
+     *            the byte order of the chars in the memory block.
+     * @throws NullPointerException
+     *             if <code>chars</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > chars.length</code>.
+     */
+    public void setCharArray(long address, char[] chars, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> ints from the memory block at
+     * <code>address</code> into the array <code>ints</code> starting at
+     * element <code>offset</code>, reading them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 4)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block from which to copy.
+     * @param ints
+     *            the array into which to copy the ints.
+     * @param offset
+     *            the index of the first element in <code>ints</code> that
+     *            will be overwritten.
+     * @param length
+     *            the number of ints to copy.
+     * @param endianness
+     *            the byte order of the ints in the memory block.
+     * @throws NullPointerException
+     *             if <code>ints</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > ints.length</code>.
+     */
+    public void getIntArray(long address, int[] ints, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> ints from the array <code>ints</code>,
+     * starting at element <code>offset</code>, into the memory block at
+     * <code>address</code>, writing them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 4)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block into which to copy.
+     * @param ints
+     *            the array from which to copy the ints.
+     * @param offset
+     *            the index of the first element in <code>ints</code> that
+     *            will be read.
+     * @param length
+     *            the number of ints to copy.
+     * @param endianness
+     *            the byte order of the ints in the memory block.
+     * @throws NullPointerException
+     *             if <code>ints</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > ints.length</code>.
+     */
+    public void setIntArray(long address, int[] ints, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> longs from the memory block at
+     * <code>address</code> into the array <code>longs</code> starting at
+     * element <code>offset</code>, reading them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 8)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block from which to copy.
+     * @param longs
+     *            the array into which to copy the longs.
+     * @param offset
+     *            the index of the first element in <code>longs</code> that
+     *            will be overwritten.
+     * @param length
+     *            the number of longs to copy.
+     * @param endianness
+     *            the byte order of the longs in the memory block.
+     * @throws NullPointerException
+     *             if <code>longs</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > longs.length</code>.
+     */
+    public void getLongArray(long address, long[] longs, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> longs from the array <code>longs</code>,
+     * starting at element <code>offset</code>, into the memory block at
+     * <code>address</code>, writing them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 8)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block into which to copy.
+     * @param longs
+     *            the array from which to copy the longs.
+     * @param offset
+     *            the index of the first element in <code>longs</code> that
+     *            will be read.
+     * @param length
+     *            the number of longs to copy.
+     * @param endianness
+     *            the byte order of the longs in the memory block.
+     * @throws NullPointerException
+     *             if <code>longs</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > longs.length</code>.
+     */
+    public void setLongArray(long address, long[] longs, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> floats from the memory block at
+     * <code>address</code> into the array <code>floats</code> starting at
+     * element <code>offset</code>, reading them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 4)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block from which to copy.
+     * @param floats
+     *            the array into which to copy the floats.
+     * @param offset
+     *            the index of the first element in <code>floats</code> that
+     *            will be overwritten.
+     * @param length
+     *            the number of floats to copy.
+     * @param endianness
+     *            the byte order of the floats in the memory block.
+     * @throws NullPointerException
+     *             if <code>floats</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > floats.length</code>.
+     */
+    public void getFloatArray(long address, float[] floats, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> floats from the array <code>floats</code>,
+     * starting at element <code>offset</code>, into the memory block at
+     * <code>address</code>, writing them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 4)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block into which to copy.
+     * @param floats
+     *            the array from which to copy the floats.
+     * @param offset
+     *            the index of the first element in <code>floats</code> that
+     *            will be read.
+     * @param length
+     *            the number of floats to copy.
+     * @param endianness
+     *            the byte order of the floats in the memory block.
+     * @throws NullPointerException
+     *             if <code>floats</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > floats.length</code>.
+     */
+    public void setFloatArray(long address, float[] floats, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> doubles from the memory block at
+     * <code>address</code> into the array <code>doubles</code> starting at
+     * element <code>offset</code>, reading them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 8)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block from which to copy.
+     * @param doubles
+     *            the array into which to copy the doubles.
+     * @param offset
+     *            the index of the first element in <code>doubles</code> that
+     *            will be overwritten.
+     * @param length
+     *            the number of doubles to copy.
+     * @param endianness
+     *            the byte order of the doubles in the memory block.
+     * @throws NullPointerException
+     *             if <code>doubles</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > doubles.length</code>.
+     */
+    public void getDoubleArray(long address, double[] doubles, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
+    /**
+     * Copies <code>length</code> doubles from the array <code>doubles</code>,
+     * starting at element <code>offset</code>, into the memory block at
+     * <code>address</code>, writing them in the given byte order.
+     * <p>
+     * The behavior of this method is undefined if the range
+     * <code>(address ... address + length * 8)</code> is not within a
+     * memory block that was allocated using {@link #malloc(long) malloc(long)}.
+     * </p>
+     * 
+     * @param address
+     *            the address of the OS memory block into which to copy.
+     * @param doubles
+     *            the array from which to copy the doubles.
+     * @param offset
+     *            the index of the first element in <code>doubles</code> that
+     *            will be read.
+     * @param length
+     *            the number of doubles to copy.
+     * @param endianness
+     *            the byte order of the doubles in the memory block.
+     * @throws NullPointerException
+     *             if <code>doubles</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException
+     *             if <code>offset + length > doubles.length</code>.
+     */
+    public void setDoubleArray(long address, double[] doubles, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException;
+
     /**
      * Returns the value of a single byte at the given address.
      * <p>
@@ -146,6 +146,32 @@ class OSFileSystem implements IFileSystem {
         return bytesWritten;
     }
 
+    private native long readDirectAtImpl(long fileDescriptor, long address,
+            int offset, int length, long position);
+
+    public long readDirectAt(long fileDescriptor, long address, int offset,
+            int length, long position) throws IOException {
+        long bytesRead = readDirectAtImpl(fileDescriptor, address, offset,
+                length, position);
+        if (bytesRead < -1) {
+            throw new IOException();
+        }
+        return bytesRead;
+    }
+
+    private native long writeDirectAtImpl(long fileDescriptor, long address,
+            int offset, int length, long position);
+
+    public long writeDirectAt(long fileDescriptor, long address, int offset,
+            int length, long position) throws IOException {
+        long bytesWritten = writeDirectAtImpl(fileDescriptor, address, offset,
+                length, position);
+        if (bytesWritten < 0) {
+            throw new IOException();
+        }
+        return bytesWritten;
+    }
+
     /*
      * Indirect read/writes work on byte[]'s
      */
@@ -257,6 +283,20 @@ class OSFileSystem implements IFileSystem {
     private native long transferImpl(long fileHandler,
             FileDescriptor socketDescriptor, long offset, long count);
 
+    public long transferFile(long srcFileDescriptor, long srcOffset,
+            long dstFileDescriptor, long dstOffset, long count)
+            throws IOException {
+        return transferFileImpl(srcFileDescriptor, srcOffset,
+                dstFileDescriptor, dstOffset, count);
+    }
+
+    /*
+     * Answers the number of bytes copied, or -1 if nothing could be copied
+     * within the kernel.
+     */
+    private native long transferFileImpl(long srcFileDescriptor,
+            long srcOffset, long dstFileDescriptor, long dstOffset, long count);
+
     public long ttyAvailable() throws IOException {
         long nChar = ttyAvailableImpl();
         if (nChar < 0) {
@@ -243,6 +243,119 @@ final class OSMemory implements IMemorySystem {
     public native void setByteArray(long address, byte[] bytes, int offset,
             int length) throws NullPointerException, IndexOutOfBoundsException;
 
+    /*
+     * Copies length elements of the given size between the memory block and
+     * the primitive array, reversing the bytes of each element if swap is
+     * true.
+     */
+    private native void getPrimitiveArrayImpl(long address, Object array,
+            int offset, int length, int elementSize, boolean swap);
+
+    private native void setPrimitiveArrayImpl(long address, Object array,
+            int offset, int length, int elementSize, boolean swap);
+
+    private static void checkBounds(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || (long) offset + length > arrayLength) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    public void getShortArray(long address, short[] shorts, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(shorts.length, offset, length);
+        getPrimitiveArrayImpl(address, shorts, offset, length, 2,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void setShortArray(long address, short[] shorts, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(shorts.length, offset, length);
+        setPrimitiveArrayImpl(address, shorts, offset, length, 2,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void getCharArray(long address, char[] chars, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(chars.length, offset, length);
+        getPrimitiveArrayImpl(address, chars, offset, length, 2,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void setCharArray(long address, char[] chars, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(chars.length, offset, length);
+        setPrimitiveArrayImpl(address, chars, offset, length, 2,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void getIntArray(long address, int[] ints, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(ints.length, offset, length);
+        getPrimitiveArrayImpl(address, ints, offset, length, 4,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void setIntArray(long address, int[] ints, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(ints.length, offset, length);
+        setPrimitiveArrayImpl(address, ints, offset, length, 4,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void getLongArray(long address, long[] longs, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(longs.length, offset, length);
+        getPrimitiveArrayImpl(address, longs, offset, length, 8,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void setLongArray(long address, long[] longs, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(longs.length, offset, length);
+        setPrimitiveArrayImpl(address, longs, offset, length, 8,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void getFloatArray(long address, float[] floats, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(floats.length, offset, length);
+        getPrimitiveArrayImpl(address, floats, offset, length, 4,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void setFloatArray(long address, float[] floats, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(floats.length, offset, length);
+        setPrimitiveArrayImpl(address, floats, offset, length, 4,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void getDoubleArray(long address, double[] doubles, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(doubles.length, offset, length);
+        getPrimitiveArrayImpl(address, doubles, offset, length, 8,
+                endianness != NATIVE_ORDER);
+    }
+
+    public void setDoubleArray(long address, double[] doubles, int offset, int length,
+            Endianness endianness) throws NullPointerException,
+            IndexOutOfBoundsException {
+        checkBounds(doubles.length, offset, length);
+        setPrimitiveArrayImpl(address, doubles, offset, length, 8,
+                endianness != NATIVE_ORDER);
+    }
+
     // Primitive get & set methods
 
     /**
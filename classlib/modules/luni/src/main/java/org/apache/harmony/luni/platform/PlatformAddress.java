@@ -137,6 +137,78 @@ public class PlatformAddress implements ICommonDataTypes, Comparable {
         osMemory.getByteArray(osaddr + offset, bytes, bytesOffset, length);
     }
 
+    public final void setShortArray(int offset, short[] shorts, int shortsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JSHORT);
+        osMemory.setShortArray(osaddr + offset, shorts, shortsOffset, length, order);
+    }
+
+    public final void getShortArray(int offset, short[] shorts, int shortsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JSHORT);
+        osMemory.getShortArray(osaddr + offset, shorts, shortsOffset, length, order);
+    }
+
+    public final void setCharArray(int offset, char[] chars, int charsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JCHAR);
+        osMemory.setCharArray(osaddr + offset, chars, charsOffset, length, order);
+    }
+
+    public final void getCharArray(int offset, char[] chars, int charsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JCHAR);
+        osMemory.getCharArray(osaddr + offset, chars, charsOffset, length, order);
+    }
+
+    public final void setIntArray(int offset, int[] ints, int intsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JINT);
+        osMemory.setIntArray(osaddr + offset, ints, intsOffset, length, order);
+    }
+
+    public final void getIntArray(int offset, int[] ints, int intsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JINT);
+        osMemory.getIntArray(osaddr + offset, ints, intsOffset, length, order);
+    }
+
+    public final void setLongArray(int offset, long[] longs, int longsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JLONG);
+        osMemory.setLongArray(osaddr + offset, longs, longsOffset, length, order);
+    }
+
+    public final void getLongArray(int offset, long[] longs, int longsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JLONG);
+        osMemory.getLongArray(osaddr + offset, longs, longsOffset, length, order);
+    }
+
+    public final void setFloatArray(int offset, float[] floats, int floatsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JFLOAT);
+        osMemory.setFloatArray(osaddr + offset, floats, floatsOffset, length, order);
+    }
+
+    public final void getFloatArray(int offset, float[] floats, int floatsOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JFLOAT);
+        osMemory.getFloatArray(osaddr + offset, floats, floatsOffset, length, order);
+    }
+
+    public final void setDoubleArray(int offset, double[] doubles, int doublesOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JDOUBLE);
+        osMemory.setDoubleArray(osaddr + offset, doubles, doublesOffset, length, order);
+    }
+
+    public final void getDoubleArray(int offset, double[] doubles, int doublesOffset,
+            int length, Endianness order) {
+        memorySpy.rangeCheck(this, offset, length * SIZEOF_JDOUBLE);
+        osMemory.getDoubleArray(osaddr + offset, doubles, doublesOffset, length, order);
+    }
+
     public final void setShort(int offset, short value, Endianness order) {
         memorySpy.rangeCheck(this, offset, SIZEOF_JSHORT);
         osMemory.setShort(osaddr + offset, value, order);
@@ -0,0 +1,184 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Implements the regular expression convenience methods of {@code String}.
+ * <p>
+ * Expressions without regex meta characters, and single escaped punctuation
+ * characters such as {@code "\\|"}, are matched with plain string searches
+ * and never compiled. Other expressions are compiled once and kept in a
+ * small bounded cache shared by all threads.
+ */
+public final class RegexUtil {
+
+    private static final int MAX_CACHED_PATTERNS = 128;
+
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}"; //$NON-NLS-1$
+
+    private static final ConcurrentHashMap<String, Pattern> patterns = new ConcurrentHashMap<String, Pattern>();
+
+    private RegexUtil() {
+        // no instances
+    }
+
+    /**
+     * Answers the compiled form of the expression, from the cache if it has
+     * been compiled before.
+     * 
+     * @param expr the regular expression
+     * @return the compiled pattern
+     */
+    public static Pattern compile(String expr) {
+        Pattern pattern = patterns.get(expr);
+        if (pattern == null) {
+            pattern = Pattern.compile(expr);
+            if (patterns.size() >= MAX_CACHED_PATTERNS) {
+                // Evict an arbitrary entry; frequently used expressions
+                // come back on their next use
+                Iterator<String> it = patterns.keySet().iterator();
+                if (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+            patterns.put(expr, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Answers the text matched by the expression if it matches only that
+     * text, or {@code null} if it has to be compiled.
+     */
+    private static String literal(String expr) {
+        int length = expr.length();
+        if (length == 2 && expr.charAt(0) == '\\') {
+            char c = expr.charAt(1);
+            if (c < 128 && (c < '0' || c > '9') && (c < 'a' || c > 'z')
+                    && (c < 'A' || c > 'Z')) {
+                return String.valueOf(c);
+            }
+            return null;
+        }
+        if (length == 0) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = expr.charAt(i);
+            if (METACHARACTERS.indexOf(c) >= 0
+                    || (c >= '\ud800' && c <= '\udfff')) {
+                return null;
+            }
+        }
+        return expr;
+    }
+
+    /**
+     * Implements {@link String#matches(String)}.
+     */
+    public static boolean matches(String input, String expr) {
+        String literal = literal(expr);
+        if (literal != null) {
+            return literal.equals(input);
+        }
+        return compile(expr).matcher(input).matches();
+    }
+
+    /**
+     * Implements {@link String#replaceAll(String, String)}.
+     */
+    public static String replaceAll(String input, String expr,
+            String substitute) {
+        String literal = literal(expr);
+        if (literal != null && isLiteralReplacement(substitute)) {
+            return input.replace(literal, substitute);
+        }
+        return compile(expr).matcher(input).replaceAll(substitute);
+    }
+
+    /**
+     * Implements {@link String#replaceFirst(String, String)}.
+     */
+    public static String replaceFirst(String input, String expr,
+            String substitute) {
+        String literal = literal(expr);
+        if (literal != null && isLiteralReplacement(substitute)) {
+            int index = input.indexOf(literal);
+            if (index == -1) {
+                return input;
+            }
+            return new StringBuilder(input.length() + substitute.length())
+                    .append(input, 0, index).append(substitute).append(input,
+                            index + literal.length(), input.length())
+                    .toString();
+        }
+        return compile(expr).matcher(input).replaceFirst(substitute);
+    }
+
+    /*
+     * The replacement only needs the Matcher if it refers to groups or
+     * escapes characters.  A null one is left to the Matcher, which only
+     * rejects it once something matches.
+     */
+    private static boolean isLiteralReplacement(String substitute) {
+        return substitute != null && substitute.indexOf('$') < 0
+                && substitute.indexOf('\\') < 0;
+    }
+
+    /**
+     * Implements {@link String#split(String, int)}, with the same results as
+     * {@link Pattern#split(CharSequence, int)}.
+     */
+    public static String[] split(String input, String expr, int max) {
+        String literal = literal(expr);
+        if (literal == null) {
+            return compile(expr).split(input, max);
+        }
+        if (input.length() == 0) {
+            return new String[] { "" }; //$NON-NLS-1$
+        }
+
+        ArrayList<String> res = new ArrayList<String>();
+        int length = literal.length();
+        char c = literal.charAt(0);
+        int start = 0;
+        int index;
+        while ((max <= 0 || res.size() + 1 < max)
+                && (index = length == 1 ? input.indexOf(c, start) : input
+                        .indexOf(literal, start)) != -1) {
+            res.add(input.substring(start, index));
+            start = index + length;
+        }
+        res.add(input.substring(start));
+
+        int size = res.size();
+        if (max == 0) {
+            // discard trailing empty strings
+            while (size > 0 && res.get(size - 1).length() == 0) {
+                size--;
+            }
+        }
+        return res.subList(0, size).toArray(new String[size]);
+    }
+}
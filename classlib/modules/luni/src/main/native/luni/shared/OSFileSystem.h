@@ -75,6 +75,20 @@ JNIEXPORT jint JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_getPag
  */
   JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_writeDirectImpl
     (JNIEnv *, jobject, jlong, jlong, jint, jint);
+/*
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    readDirectAtImpl
+ * Signature: (JJIIJ)J
+ */
+  JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_readDirectAtImpl
+    (JNIEnv *, jobject, jlong, jlong, jint, jint, jlong);
+/*
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    writeDirectAtImpl
+ * Signature: (JJIIJ)J
+ */
+  JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_writeDirectAtImpl
+    (JNIEnv *, jobject, jlong, jlong, jint, jint, jlong);
 /*
  * Class:     org_apache_harmony_luni_platform_OSFileSystem
  * Method:    readImpl
@@ -138,6 +152,14 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_openI
 JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_transferImpl
   (JNIEnv *, jobject, jlong, jobject, jlong, jlong);
 
+/*
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    transferFileImpl
+ * Signature: (JJJJJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_transferFileImpl
+  (JNIEnv *, jobject, jlong, jlong, jlong, jlong, jlong);
+
 /*
  * Class:     org_apache_harmony_luni_platform_OSFileSystem
  * Method:    ttyAvailableImpl
@@ -80,6 +80,68 @@ JNIEXPORT void JNICALL Java_org_apache_harmony_luni_platform_OSMemory_setByteArr
   (*env)->ReleasePrimitiveArrayCritical(env, byteArray, bytes, JNI_ABORT);
 }
 
+/*
+ * Copies count elements of the given size, reversing the bytes of each
+ * element. Neither address needs to be aligned.
+ */
+static void
+swapElements (jbyte * dest, const jbyte * src, jint count, jint size)
+{
+  jint i, j;
+
+  for (i = 0; i < count; i++, dest += size, src += size)
+    {
+      for (j = 0; j < size; j++)
+        {
+          dest[j] = src[size - 1 - j];
+        }
+    }
+}
+
+JNIEXPORT void JNICALL Java_org_apache_harmony_luni_platform_OSMemory_getPrimitiveArrayImpl
+  (JNIEnv * env, jobject thiz, jlong address, jobject array, jint offset,
+   jint length, jint size, jboolean swap)
+{
+  jbyte *elements = (*env)->GetPrimitiveArrayCritical(env, array, NULL);
+  if (elements == NULL)
+    {
+      return;
+    }
+  if (swap)
+    {
+      swapElements (elements + offset * size,
+                    (const jbyte *) ((IDATA) address), length, size);
+    }
+  else
+    {
+      memcpy (elements + offset * size, (const void *) ((IDATA) address),
+              (size_t) length * size);
+    }
+  (*env)->ReleasePrimitiveArrayCritical(env, array, elements, 0);
+}
+
+JNIEXPORT void JNICALL Java_org_apache_harmony_luni_platform_OSMemory_setPrimitiveArrayImpl
+  (JNIEnv * env, jobject thiz, jlong address, jobject array, jint offset,
+   jint length, jint size, jboolean swap)
+{
+  jbyte *elements = (*env)->GetPrimitiveArrayCritical(env, array, NULL);
+  if (elements == NULL)
+    {
+      return;
+    }
+  if (swap)
+    {
+      swapElements ((jbyte *) ((IDATA) address), elements + offset * size,
+                    length, size);
+    }
+  else
+    {
+      memcpy ((void *) ((IDATA) address), elements + offset * size,
+              (size_t) length * size);
+    }
+  (*env)->ReleasePrimitiveArrayCritical(env, array, elements, JNI_ABORT);
+}
+
 JNIEXPORT jbyte JNICALL Java_org_apache_harmony_luni_platform_OSMemory_getByte
   (JNIEnv * env, jobject thiz, jlong address)
 {
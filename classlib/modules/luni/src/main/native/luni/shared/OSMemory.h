@@ -92,6 +92,20 @@ extern "C"
 JNIEXPORT void JNICALL Java_org_apache_harmony_luni_platform_OSMemory_setCharArray
   (JNIEnv *, jobject, jlong, jcharArray, jint, jint);
 
+/*
+ * Class:     org_apache_harmony_luni_platform_OSMemory
+ * Method:    getPrimitiveArrayImpl
+ * Signature: (JLjava/lang/Object;IIIZ)V
+ */
+  JNIEXPORT void JNICALL Java_org_apache_harmony_luni_platform_OSMemory_getPrimitiveArrayImpl
+    (JNIEnv *, jobject, jlong, jobject, jint, jint, jint, jboolean);
+/*
+ * Class:     org_apache_harmony_luni_platform_OSMemory
+ * Method:    setPrimitiveArrayImpl
+ * Signature: (JLjava/lang/Object;IIIZ)V
+ */
+  JNIEXPORT void JNICALL Java_org_apache_harmony_luni_platform_OSMemory_setPrimitiveArrayImpl
+    (JNIEnv *, jobject, jlong, jobject, jint, jint, jint, jboolean);
 /*
  * Class:     org_apache_harmony_luni_platform_OSMemory
  * Method:    getByte
@@ -29,6 +29,7 @@
 #include <sys/socket.h>
 #else
 #include <sys/sendfile.h>
+#include <sys/syscall.h>
 #endif
 #include "vmi.h"
 #include "iohelp.h"
@@ -336,12 +337,172 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_trans
 #elif defined(MACOSX)
   return sendfile((int)fd-FD_BIAS, (int)socket, off, (off_t *)&count, NULL, 0);
 #else
-  return sendfile(socket,(int)fd-FD_BIAS,(off_t *)&off,(size_t)count);
+  {
+    ssize_t result = sendfile(socket,(int)fd-FD_BIAS,(off_t *)&off,(size_t)count);
+    /* a non-blocking socket that cannot take more data transfers nothing */
+    if (result == -1 && (errno == EAGAIN || errno == EINTR)) {
+      return 0;
+    }
+    return result;
+  }
+#endif
+#endif
+}
+
+/* the most bytes moved by one system call */
+#define TRANSFER_CHUNK 0x7ffff000
+#define SPLICE_CHUNK 0x10000
+
+/*
+ * Copies count bytes between the files at the given offsets within the
+ * kernel, using copy_file_range where the kernel offers it and splicing
+ * through a pipe otherwise. Answers the number of bytes copied, which is
+ * less than count if the copy stopped part way, or -1 if nothing could be
+ * copied within the kernel.
+ *
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    transferFileImpl
+ * Signature: (JJJJJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_transferFileImpl
+  (JNIEnv *env, jobject thiz, jlong src, jlong srcOffset, jlong dst,
+   jlong dstOffset, jlong count)
+{
+#if defined(__NR_copy_file_range) || defined(__NR_splice)
+  int in = (int)src - FD_BIAS;
+  int out = (int)dst - FD_BIAS;
+  loff_t inOffset = (loff_t)srcOffset;
+  loff_t outOffset = (loff_t)dstOffset;
+  jlong total = 0;
+  long result;
+
+#if defined(__NR_copy_file_range)
+  while (total < count) {
+    jlong chunk = count - total;
+    result = syscall(__NR_copy_file_range, in, &inOffset, out, &outOffset,
+                     (size_t)(chunk > TRANSFER_CHUNK ? TRANSFER_CHUNK : chunk), 0);
+    if (result > 0) {
+      total += result;
+    } else if (result == 0) {
+      /* end of the source file */
+      return total;
+    } else if (errno != EINTR) {
+      if (total > 0) {
+        return total;
+      }
+      /* older kernels, or files on different file systems: try splice */
+      break;
+    }
+  }
+  if (total == count) {
+    return total;
+  }
+#endif
+
+#if defined(__NR_splice)
+  {
+    int pipefds[2];
+    if (pipe(pipefds) == -1) {
+      return -1;
+    }
+    while (total < count) {
+      jlong chunk = count - total;
+      long moved;
+      result = syscall(__NR_splice, in, &inOffset, pipefds[1], NULL,
+                       (size_t)(chunk > SPLICE_CHUNK ? SPLICE_CHUNK : chunk), 0);
+      if (result == 0) {
+        break;
+      }
+      if (result < 0) {
+        if (errno == EINTR) {
+          continue;
+        }
+        if (total == 0) {
+          total = -1;
+        }
+        break;
+      }
+      /* empty the pipe into the destination */
+      while (result > 0) {
+        moved = syscall(__NR_splice, pipefds[0], NULL, out, &outOffset,
+                        (size_t)result, 0);
+        if (moved > 0) {
+          result -= moved;
+          total += moved;
+        } else if (moved == 0 || errno != EINTR) {
+          close(pipefds[0]);
+          close(pipefds[1]);
+          /*
+           * The source offset is explicit, so the bytes left in the pipe
+           * were never consumed from the file and the caller can copy them
+           * again from the end of what was written.
+           */
+          return total == 0 ? -1 : total;
+        }
+      }
+    }
+    close(pipefds[0]);
+    close(pipefds[1]);
+    return total;
+  }
+#else
+  return total == 0 ? -1 : total;
 #endif
+#else
+  /* no kernel copy on this platform */
+  return -1;
 #endif
 }
 
 
+/*
+ * Reads from the given position in the file without moving the file
+ * pointer. Answers the number of bytes read, -1 at the end of the file, or
+ * -2 on error.
+ *
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    readDirectAtImpl
+ * Signature: (JJIIJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_readDirectAtImpl
+  (JNIEnv *env, jobject thiz, jlong fd, jlong buf, jint offset, jint nbytes,
+   jlong position)
+{
+  ssize_t result;
+  if (nbytes == 0) {
+    return 0;
+  }
+  do {
+    result = pread((int)fd - FD_BIAS, (void *)((IDATA)(buf + offset)),
+                   (size_t)nbytes, (off_t)position);
+  } while (result == -1 && errno == EINTR);
+  if (result == 0) {
+    return -1;
+  }
+  return result < 0 ? -2 : (jlong)result;
+}
+
+/*
+ * Writes at the given position in the file without moving the file
+ * pointer. Answers the number of bytes written, or -1 on error.
+ *
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    writeDirectAtImpl
+ * Signature: (JJIIJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_writeDirectAtImpl
+  (JNIEnv *env, jobject thiz, jlong fd, jlong buf, jint offset, jint nbytes,
+   jlong position)
+{
+  ssize_t result;
+  do {
+    result = pwrite((int)fd - FD_BIAS, (const void *)((IDATA)(buf + offset)),
+                    (size_t)nbytes, (off_t)position);
+  } while (result == -1 && errno == EINTR);
+  return (jlong)result;
+}
+
+
 /*
  * Answers the size of the file pointed to by the file descriptor.
  *
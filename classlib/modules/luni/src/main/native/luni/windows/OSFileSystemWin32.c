@@ -294,6 +294,75 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_trans
     return count;	
 }
 
+/*
+ * Windows offers no kernel copy between arbitrary file offsets, so the
+ * caller copies through a buffer instead.
+ *
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    transferFileImpl
+ * Signature: (JJJJJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_transferFileImpl
+  (JNIEnv *env, jobject thiz, jlong src, jlong srcOffset, jlong dst,
+   jlong dstOffset, jlong count)
+{
+  return -1;
+}
+
+/*
+ * Reads from the given position in the file. Synchronous handles move the
+ * file pointer past the bytes read, so the caller must not mix positional
+ * and relative reads on the same handle. Answers the number of bytes read,
+ * -1 at the end of the file, or -2 on error.
+ *
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    readDirectAtImpl
+ * Signature: (JJIIJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_readDirectAtImpl
+  (JNIEnv *env, jobject thiz, jlong fd, jlong buf, jint offset, jint nbytes,
+   jlong position)
+{
+  OVERLAPPED overlapped = { 0 };
+  DWORD bytesRead = 0;
+
+  if (nbytes == 0) {
+    return 0;
+  }
+  overlapped.Offset = (DWORD)position;
+  overlapped.OffsetHigh = (DWORD)(position >> 32);
+  if (!ReadFile((HANDLE)fd, (LPVOID)((IDATA)(buf + offset)), (DWORD)nbytes,
+                &bytesRead, &overlapped)) {
+    return GetLastError() == ERROR_HANDLE_EOF ? -1 : -2;
+  }
+  return bytesRead == 0 ? -1 : (jlong)bytesRead;
+}
+
+/*
+ * Writes at the given position in the file, with the same caveat about the
+ * file pointer as readDirectAtImpl. Answers the number of bytes written, or
+ * -1 on error.
+ *
+ * Class:     org_apache_harmony_luni_platform_OSFileSystem
+ * Method:    writeDirectAtImpl
+ * Signature: (JJIIJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_luni_platform_OSFileSystem_writeDirectAtImpl
+  (JNIEnv *env, jobject thiz, jlong fd, jlong buf, jint offset, jint nbytes,
+   jlong position)
+{
+  OVERLAPPED overlapped = { 0 };
+  DWORD bytesWritten = 0;
+
+  overlapped.Offset = (DWORD)position;
+  overlapped.OffsetHigh = (DWORD)(position >> 32);
+  if (!WriteFile((HANDLE)fd, (LPCVOID)((IDATA)(buf + offset)), (DWORD)nbytes,
+                 &bytesWritten, &overlapped)) {
+    return -1;
+  }
+  return (jlong)bytesWritten;
+}
+
 /*
  * Answers the size of the file pointed to by the file descriptor.
  *
@@ -593,4 +593,59 @@ public class StringTest extends TestCase {
         } catch (IndexOutOfBoundsException e) {
         }
     }
+
+    /**
+     * @tests java.lang.String#split(String, int)
+     */
+    public void test_splitLjava_lang_StringI() {
+        assertEquals(new String[] { "a", "b", "c" }, "a,b,c".split(",", 0));
+        assertEquals(new String[] { "", "a", "b" }, ",a,,b,,".split(",+", 0));
+        assertEquals(new String[] { "", "a", "", "b" }, ",a,,b,,".split(",", 0));
+        assertEquals(new String[] { "", "a", "", "b", "", "" }, ",a,,b,,"
+                .split(",", -1));
+        assertEquals(new String[] { "", "a,,b,," }, ",a,,b,,".split(",", 2));
+        assertEquals(new String[] { "a", "b|c" }, "a|b|c".split("\\|", 2));
+        assertEquals(new String[] { "a", "b" }, "a::b".split("::", 0));
+        assertEquals(new String[] { "" }, "".split(",", 0));
+        assertEquals(new String[0], ",,,".split(",", 0));
+        assertEquals(new String[] { "a.b" }, "a.b".split("\\,", 0));
+        assertEquals(new String[] { "a", "b" }, "a1b".split("\\d", 0));
+    }
+
+    /**
+     * @tests java.lang.String#replaceAll(String, String)
+     * @tests java.lang.String#replaceFirst(String, String)
+     */
+    public void test_replaceAllLjava_lang_StringLjava_lang_String() {
+        assertEquals("a;b;c", "a,b,c".replaceAll(",", ";"));
+        assertEquals("a;b,c", "a,b,c".replaceFirst(",", ";"));
+        assertEquals("a,b,c", "a,b,c".replaceFirst(";", ","));
+        assertEquals("a$b$c", "a.b.c".replaceAll("\\.", "\\$"));
+        assertEquals("a[.]b", "a.b".replaceAll("\\.", "[$0]"));
+        assertEquals("xbc", "abc".replaceFirst("a|b", "x"));
+        assertEquals("abc", "abc".replaceAll(",", null));
+        try {
+            "a,c".replaceAll(",", null);
+            fail("NullPointerException expected");
+        } catch (NullPointerException e) {
+        }
+    }
+
+    /**
+     * @tests java.lang.String#matches(String)
+     */
+    public void test_matchesLjava_lang_String() {
+        assertTrue("a,b".matches("a,b"));
+        assertFalse("a,bc".matches("a,b"));
+        assertTrue("|".matches("\\|"));
+        assertTrue("abc".matches("a.c"));
+        assertFalse("a".matches("a.c"));
+    }
+
+    private static void assertEquals(String[] expected, String[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i]);
+        }
+    }
 }
@@ -171,6 +171,109 @@ public class InetAddressTest extends junit.framework.TestCase {
         assertEquals("222.222.222.222",i.getHostAddress());
     }
 
+    /**
+     * @tests java.net.InetAddress#getByName(java.lang.String)
+     */
+    public void test_getByNameLjava_lang_String_cacheTTL() throws Exception {
+        String ttl = System.getProperty("networkaddress.cache.ttl");
+        try {
+            System.setProperty("networkaddress.cache.ttl", "0");
+            InetAddress ia = InetAddress.getByName("localhost");
+            InetAddress ia2 = InetAddress.getByName("localhost");
+            assertNotSame("Assert 0: cached with ttl 0", ia, ia2);
+            assertEquals(ia, ia2);
+
+            System.setProperty("networkaddress.cache.ttl", "1");
+            ia = InetAddress.getByName("localhost");
+            assertSame("Assert 1: not cached", ia, InetAddress
+                    .getByName("localhost"));
+            Thread.sleep(1200);
+            ia2 = InetAddress.getByName("localhost");
+            assertNotSame("Assert 2: cached after ttl", ia, ia2);
+            assertEquals(ia, ia2);
+        } finally {
+            setProperty("networkaddress.cache.ttl", ttl);
+        }
+    }
+
+    /**
+     * @tests java.net.InetAddress#getByName(java.lang.String)
+     */
+    public void test_getByNameLjava_lang_String_cacheRefresh() throws Exception {
+        String ttl = System.getProperty("networkaddress.cache.ttl");
+        try {
+            // drop any cached address
+            System.setProperty("networkaddress.cache.ttl", "0");
+            InetAddress.getByName("localhost");
+
+            System.setProperty("networkaddress.cache.ttl", "5");
+            long start = System.currentTimeMillis();
+            InetAddress ia = InetAddress.getByName("localhost");
+            Thread.sleep(4600);
+            // close to expiry the cached address is still answered, and
+            // refreshed in the background
+            assertSame("Assert 0: not answered while refreshing", ia,
+                    InetAddress.getByName("localhost"));
+            InetAddress ia2 = ia;
+            while (ia2 == ia && System.currentTimeMillis() - start < 4900) {
+                Thread.sleep(20);
+                ia2 = InetAddress.getByName("localhost");
+            }
+            assertNotSame("Assert 1: not refreshed", ia, ia2);
+            assertEquals(ia, ia2);
+        } finally {
+            setProperty("networkaddress.cache.ttl", ttl);
+        }
+    }
+
+    /**
+     * @tests java.net.InetAddress#getByName(java.lang.String)
+     */
+    public void test_getByNameLjava_lang_String_negativeCache() {
+        String negativeTtl = System
+                .getProperty("networkaddress.cache.negative.ttl");
+        // a failure answered from the cache has no cause
+        String host = "unknown" + System.currentTimeMillis() + ".bad";
+        try {
+            System.setProperty("networkaddress.cache.negative.ttl", "0");
+            for (int i = 0; i < 2; i++) {
+                try {
+                    InetAddress.getByName(host);
+                    fail("Assert 0: UnknownHostException must be thrown");
+                } catch (UnknownHostException e) {
+                    assertEquals(host, e.getMessage());
+                    assertNotNull("Assert 1: cached with negative ttl 0", e
+                            .getCause());
+                }
+            }
+
+            System.setProperty("networkaddress.cache.negative.ttl", "10");
+            try {
+                InetAddress.getByName(host);
+                fail("Assert 2: UnknownHostException must be thrown");
+            } catch (UnknownHostException e) {
+                assertNotNull(e.getCause());
+            }
+            try {
+                InetAddress.getByName(host);
+                fail("Assert 3: UnknownHostException must be thrown");
+            } catch (UnknownHostException e) {
+                assertEquals(host, e.getMessage());
+                assertNull("Assert 4: not cached", e.getCause());
+            }
+        } finally {
+            setProperty("networkaddress.cache.negative.ttl", negativeTtl);
+        }
+    }
+
+    private static void setProperty(String key, String value) {
+        if (value == null) {
+            System.clearProperty(key);
+        } else {
+            System.setProperty(key, value);
+        }
+    }
+
     /**
      * @tests java.net.InetAddress#getHostAddress()
      */
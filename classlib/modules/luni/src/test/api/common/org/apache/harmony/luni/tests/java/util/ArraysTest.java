@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 import tests.support.Support_UnmodifiableCollectionTest;
 
@@ -1428,6 +1429,292 @@ public class ArraysTest extends junit.framework.TestCase {
 		}
 	}
 
+    /**
+     * @tests java.util.Arrays#sort(int[])
+     */
+    public void test_sort$I_large() {
+        Random random = new Random(14);
+        int length = 10000;
+        for (int kind = 0; kind < 6; kind++) {
+            int[] array = new int[length];
+            long sum = 0;
+            for (int i = 0; i < length; i++) {
+                switch (kind) {
+                    case 0:
+                        array[i] = random.nextInt();
+                        break;
+                    case 1:
+                        array[i] = i;
+                        break;
+                    case 2:
+                        array[i] = length - i;
+                        break;
+                    case 3:
+                        array[i] = random.nextInt(4);
+                        break;
+                    case 4:
+                        array[i] = random.nextInt(50) == 0 ? random.nextInt() : i;
+                        break;
+                    default:
+                        array[i] = i % 2 == 0 ? i : -i;
+                }
+                sum += array[i];
+            }
+            Arrays.sort(array);
+            for (int i = 1; i < length; i++) {
+                assertTrue("Array not sorted, kind " + kind,
+                        array[i - 1] <= array[i]);
+                sum -= array[i];
+            }
+            assertEquals("Elements lost, kind " + kind, sum, array[0]);
+        }
+    }
+
+    /**
+     * @tests java.util.Arrays#sort(char[])
+     */
+    public void test_sort$C_counting() {
+        // long enough to be sorted by counting
+        char[] array = new char[5000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (char) (0xffff - i % 2500);
+        }
+        Arrays.sort(array);
+        for (int i = 1; i < array.length; i++) {
+            assertTrue("Array not sorted", array[i - 1] <= array[i]);
+        }
+        assertEquals(0xffff - 2499, array[0]);
+        assertEquals(0xffff - 2499, array[1]);
+        assertEquals(0xffff - 2498, array[2]);
+        assertEquals(0xffff, array[array.length - 1]);
+    }
+
+    /**
+     * @tests java.util.Arrays#sort(double[])
+     */
+    public void test_sort$D_large() {
+        Random random = new Random(14);
+        double[] array = new double[10000];
+        int nans = 0;
+        int negativeZeros = 0;
+        int zeros = 0;
+        for (int i = 0; i < array.length; i++) {
+            switch (random.nextInt(8)) {
+                case 0:
+                    array[i] = Double.NaN;
+                    nans++;
+                    break;
+                case 1:
+                    array[i] = -0.0d;
+                    negativeZeros++;
+                    break;
+                case 2:
+                    array[i] = 0.0d;
+                    zeros++;
+                    break;
+                default:
+                    array[i] = random.nextGaussian();
+            }
+        }
+        Arrays.sort(array);
+        for (int i = 1; i < array.length; i++) {
+            assertTrue("Array not sorted",
+                    Double.compare(array[i - 1], array[i]) <= 0);
+        }
+        int first = 0;
+        while (array[first] < 0) {
+            first++;
+        }
+        for (int i = 0; i < negativeZeros; i++) {
+            assertEquals(Double.doubleToLongBits(-0.0d), Double
+                    .doubleToLongBits(array[first + i]));
+        }
+        for (int i = 0; i < zeros; i++) {
+            assertEquals(Double.doubleToLongBits(0.0d), Double
+                    .doubleToLongBits(array[first + negativeZeros + i]));
+        }
+        for (int i = 1; i <= nans; i++) {
+            assertTrue(Double.isNaN(array[array.length - i]));
+        }
+        assertFalse(Double.isNaN(array[array.length - nans - 1]));
+    }
+
+    /**
+     * @tests java.util.Arrays#sort(Object[], Comparator)
+     */
+    public void test_sort$Ljava_lang_ObjectLjava_util_Comparator_runs() {
+        // ascending and descending runs of repeated keys
+        Element[] array = new Element[5000];
+        for (int i = 0; i < array.length; i++) {
+            int run = i / 100;
+            array[i] = new Element(run % 2 == 0 ? i % 100 / 3 : 33 - i % 100 / 3);
+        }
+        Comparator<Element> comparator = new Comparator<Element>() {
+            public int compare(Element object1, Element object2) {
+                return object1.value - object2.value;
+            }
+        };
+
+        Arrays.sort(array, comparator);
+
+        for (int i = 1; i < array.length; i++) {
+            assertTrue(comparator.compare(array[i - 1], array[i]) <= 0);
+            if (comparator.compare(array[i - 1], array[i]) == 0) {
+                assertTrue(array[i - 1].index < array[i].index);
+            }
+        }
+    }
+
+    /**
+     * @tests java.util.Arrays#sort(Object[], Comparator)
+     */
+    public void test_sort$Ljava_lang_ObjectLjava_util_Comparator_inconsistent() {
+        final Random random = new Random(14);
+        Integer[] array = new Integer[2000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = new Integer(i);
+        }
+        try {
+            Arrays.sort(array, new Comparator<Integer>() {
+                public int compare(Integer object1, Integer object2) {
+                    return random.nextInt(3) - 1;
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            // Expected unless the merges happened not to notice
+        }
+        // No element may be lost or duplicated
+        Arrays.sort(array);
+        for (int i = 0; i < array.length; i++) {
+            assertEquals(i, array[i].intValue());
+        }
+    }
+
+    /**
+     * @tests java.util.Arrays#sort(Object[])
+     */
+    public void test_sort$Ljava_lang_Object_presortedStrings() {
+        String[] array = new String[5000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = Integer.toString(100000 + (i % 1000 == 999 ? 0 : i));
+        }
+        String[] expected = array.clone();
+        Arrays.sort(expected, new Comparator<String>() {
+            public int compare(String object1, String object2) {
+                return object1.compareTo(object2);
+            }
+        });
+        Arrays.sort(array);
+        assertTrue(Arrays.equals(expected, array));
+        assertEquals("100000", array[5]);
+        assertEquals("100001", array[6]);
+    }
+
+    /**
+     * @tests java.util.Arrays#parallelSort(int[])
+     */
+    public void test_parallelSort$I() {
+        Random random = new Random(14);
+        int[] array = new int[100000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = random.nextInt();
+        }
+        int[] expected = array.clone();
+        Arrays.sort(expected);
+        Arrays.parallelSort(array);
+        assertTrue(Arrays.equals(expected, array));
+
+        try {
+            Arrays.parallelSort((int[]) null);
+            fail("NullPointerException expected");
+        } catch (NullPointerException ignore) {
+        }
+    }
+
+    /**
+     * @tests java.util.Arrays#parallelSort(double[], int, int)
+     */
+    public void test_parallelSort$DII() {
+        Random random = new Random(14);
+        double[] array = new double[100000];
+        for (int i = 0; i < array.length; i++) {
+            int kind = random.nextInt(10);
+            array[i] = kind == 0 ? Double.NaN : kind == 1 ? -0.0d
+                    : kind == 2 ? 0.0d : random.nextGaussian();
+        }
+        double[] expected = array.clone();
+        Arrays.sort(expected, 100, 99900);
+        Arrays.parallelSort(array, 100, 99900);
+        assertTrue(Arrays.equals(expected, array));
+
+        try {
+            Arrays.parallelSort(array, 2, 1);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException ignore) {
+        }
+        try {
+            Arrays.parallelSort(array, -1, 1);
+            fail("ArrayIndexOutOfBoundsException expected (1)");
+        } catch (ArrayIndexOutOfBoundsException ignore) {
+        }
+        try {
+            Arrays.parallelSort(array, 0, array.length + 1);
+            fail("ArrayIndexOutOfBoundsException expected (2)");
+        } catch (ArrayIndexOutOfBoundsException ignore) {
+        }
+    }
+
+    /**
+     * @tests java.util.Arrays#parallelSort(Comparable[])
+     */
+    public void test_parallelSort$Ljava_lang_Comparable() {
+        Random random = new Random(14);
+        Integer[] array = new Integer[100000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = new Integer(random.nextInt());
+        }
+        Integer[] expected = array.clone();
+        Arrays.sort(expected);
+        Arrays.parallelSort(array);
+        assertTrue(Arrays.equals(expected, array));
+
+        array[50000] = null;
+        try {
+            Arrays.parallelSort(array);
+            fail("NullPointerException expected");
+        } catch (NullPointerException ignore) {
+        }
+    }
+
+    /**
+     * @tests java.util.Arrays#parallelSort(Object[], int, int, Comparator)
+     */
+    public void test_parallelSort$Ljava_lang_ObjectIILjava_util_Comparator() {
+        Random random = new Random(14);
+        Element[] array = new Element[100000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = new Element(random.nextInt(1000));
+        }
+        Comparator<Element> comparator = new Comparator<Element>() {
+            public int compare(Element object1, Element object2) {
+                return object1.value - object2.value;
+            }
+        };
+        Element first = array[0];
+        Element last = array[array.length - 1];
+
+        Arrays.parallelSort(array, 1, array.length - 1, comparator);
+
+        assertSame(first, array[0]);
+        assertSame(last, array[array.length - 1]);
+        for (int i = 2; i < array.length - 1; i++) {
+            assertTrue(comparator.compare(array[i - 1], array[i]) <= 0);
+            if (comparator.compare(array[i - 1], array[i]) == 0) {
+                assertTrue(array[i - 1].index < array[i].index);
+            }
+        }
+    }
+
     /**
      * @tests java.util.Arrays#sort(byte[], int, int)
      */
@@ -625,6 +625,106 @@ public class HashMapTest extends junit.framework.TestCase {
         }
     }
 
+    static class CollidingKey implements Comparable<CollidingKey> {
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        public int hashCode() {
+            return id % 3;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+
+        public int compareTo(CollidingKey o) {
+            return id < o.id ? -1 : (id == o.id ? 0 : 1);
+        }
+    }
+
+    /**
+     * @tests java.util.HashMap#put(java.lang.Object, java.lang.Object)
+     * @tests java.util.HashMap#get(java.lang.Object)
+     * @tests java.util.HashMap#remove(java.lang.Object)
+     */
+    public void test_collidingComparableKeys() {
+        HashMap<CollidingKey, Integer> map = new HashMap<CollidingKey, Integer>();
+        for (int i = 0; i < 1000; i++) {
+            assertNull(map.put(new CollidingKey(i), i));
+        }
+        map.put(null, -1);
+        assertEquals(1001, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(new CollidingKey(i)).intValue());
+        }
+        assertEquals(-1, map.get(null).intValue());
+        assertNull(map.get(new CollidingKey(1000)));
+
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(i, map.remove(new CollidingKey(i)).intValue());
+        }
+        assertEquals(-1, map.remove(null).intValue());
+        assertEquals(500, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(new CollidingKey(i)));
+        }
+
+        int count = 0;
+        for (Iterator<CollidingKey> it = map.keySet().iterator(); it.hasNext();) {
+            if (it.next().id % 3 == 0) {
+                it.remove();
+            } else {
+                count++;
+            }
+        }
+        assertEquals(count, map.size());
+        for (int i = 1; i < 1000; i += 2) {
+            assertEquals(i % 3 != 0, map.containsKey(new CollidingKey(i)));
+        }
+
+        HashMap<CollidingKey, Integer> clone = (HashMap<CollidingKey, Integer>) map
+                .clone();
+        assertEquals(map, clone);
+        clone.clear();
+        assertEquals(count, map.size());
+    }
+
+    /**
+     * @tests java.util.HashMap#put(java.lang.Object, java.lang.Object)
+     * @tests java.util.HashMap#get(java.lang.Object)
+     * @tests java.util.HashMap#remove(java.lang.Object)
+     */
+    public void test_collidingKeys() {
+        HashMap<MyKey, Integer> map = new HashMap<MyKey, Integer>();
+        MyKey[] keys = new MyKey[500];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new MyKey();
+            map.put(keys[i], i);
+        }
+        assertEquals(keys.length, map.size());
+        assertNull(map.get(new MyKey()));
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i, map.get(keys[i]).intValue());
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            assertEquals(i, map.remove(keys[i]).intValue());
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(keys[i]));
+        }
+
+        Iterator<Map.Entry<MyKey, Integer>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        assertTrue(map.isEmpty());
+        assertNull(map.get(keys[1]));
+    }
+
 	/**
 	 * @tests java.util.HashMap#size()
 	 */
@@ -791,6 +891,13 @@ public class HashMapTest extends junit.framework.TestCase {
         //  regression for HARMONY-1583
         hm.put(null, "null");
         SerializationTest.verifySelf(hm);
+
+        HashMap<Integer, String> colliding = new HashMap<Integer, String>();
+        for (int i = 0; i < 100; i++) {
+            // the same bucket once the high bits are folded in
+            colliding.put((i << 16) | i, "value" + i);
+        }
+        SerializationTest.verifySelf(colliding);
     }
 
     /**
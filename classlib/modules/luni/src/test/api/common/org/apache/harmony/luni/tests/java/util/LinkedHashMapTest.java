@@ -645,6 +645,50 @@ public class LinkedHashMapTest extends junit.framework.TestCase {
 		assertTrue("Entries left in map", !it1.hasNext());
 	}
 
+    static class CollidingKey {
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        public int hashCode() {
+            return 0;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+    }
+
+    /**
+     * @tests java.util.LinkedHashMap#LinkedHashMap(int, float, boolean)
+     */
+    public void test_ordered_collidingKeys() {
+        LinkedHashMap<CollidingKey, Integer> map = new LinkedHashMap<CollidingKey, Integer>(
+                16, 0.75f, true);
+        for (int i = 0; i < 200; i++) {
+            map.put(new CollidingKey(i), i);
+        }
+        for (int i = 0; i < 200; i += 2) {
+            assertEquals(i, map.get(new CollidingKey(i)).intValue());
+        }
+        for (int i = 0; i < 200; i += 4) {
+            assertEquals(i, map.remove(new CollidingKey(i)).intValue());
+        }
+        assertEquals(150, map.size());
+
+        // least recently accessed first: the odd keys, then the even ones
+        Iterator<CollidingKey> it = map.keySet().iterator();
+        for (int i = 1; i < 200; i += 2) {
+            assertEquals(i, it.next().id);
+        }
+        for (int i = 2; i < 200; i += 4) {
+            assertEquals(i, it.next().id);
+        }
+        assertFalse(it.hasNext());
+    }
+
 	public void test_getInterfaces() {
         Class<?>[] interfaces = HashMap.class.getInterfaces();
         assertEquals(3, interfaces.length);
@@ -155,6 +155,38 @@ public class TimeZoneTest extends junit.framework.TestCase {
                              "GMT-00:00", TimeZone.getTimeZone("GMT-00").getID());
 	}
 
+    /**
+     * @tests java.util.TimeZone#getTimeZone(java.lang.String)
+     */
+    public void test_getTimeZoneLjava_lang_String_independent() {
+        TimeZone first = TimeZone.getTimeZone("America/New_York");
+        TimeZone second = TimeZone.getTimeZone("America/New_York");
+        assertNotSame(first, second);
+        assertEquals(first, second);
+
+        // Changing a returned zone must not change the registered one
+        int rawOffset = first.getRawOffset();
+        first.setRawOffset(rawOffset + ONE_HOUR);
+        ((SimpleTimeZone) first).setStartRule(Calendar.JANUARY, 1, 0);
+        assertEquals(rawOffset, second.getRawOffset());
+        TimeZone third = TimeZone.getTimeZone("America/New_York");
+        assertEquals(rawOffset, third.getRawOffset());
+        assertEquals(second, third);
+        assertEquals(rawOffset, third.getOffset(new GregorianCalendar(2008,
+                Calendar.JANUARY, 15).getTimeInMillis()));
+    }
+
+    /**
+     * @tests java.util.TimeZone#getDefault()
+     */
+    public void test_getDefault_independent() {
+        TimeZone zone = TimeZone.getDefault();
+        int rawOffset = zone.getRawOffset();
+        zone.setRawOffset(rawOffset + ONE_HOUR);
+        assertNotSame(zone, TimeZone.getDefault());
+        assertEquals(rawOffset, TimeZone.getDefault().getRawOffset());
+    }
+
 	/**
 	 * @tests java.util.TimeZone#setDefault(java.util.TimeZone)
 	 */
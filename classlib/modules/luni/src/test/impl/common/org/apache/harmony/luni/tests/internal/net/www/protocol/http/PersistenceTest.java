@@ -337,6 +337,50 @@ public class PersistenceTest extends TestCase {
         assertEquals(initialFreeConnections, HttpConnectionManager.getDefault().numFreeConnections());
     }
 
+    /**
+     * Test that a pooled connection is reused and counted as a hit
+     */
+    public void testPooledConnectionHit() throws Exception {
+        HttpConnectionManager manager = HttpConnectionManager.getDefault();
+        URI uri = new URI("http://localhost:" + port);
+        manager.reset();
+        long misses = manager.getMissCount();
+        HttpConnection connection = manager.getConnection(uri, 1000);
+        assertEquals(misses + 1, manager.getMissCount());
+        manager.returnConnectionToPool(connection);
+        long hits = manager.getHitCount();
+        assertSame(connection, manager.getConnection(uri, 1000));
+        assertEquals(hits + 1, manager.getHitCount());
+        connection.closeSocketAndStreams();
+    }
+
+    /**
+     * Test that a connection idle for longer than its keep-alive timeout is
+     * evicted from the pool
+     */
+    public void testIdleConnectionEvicted() throws Exception {
+        HttpConnectionManager manager = HttpConnectionManager.getDefault();
+        int initialFreeConnections = manager.numFreeConnections();
+        MockServer httpServer =
+                new MockServer("ServerSocket for HttpURLConnectionTest");
+        httpServer.start();
+        synchronized(bound) {
+            if (!httpServer.started) {
+                bound.wait(5000);
+            }
+        }
+        long evictions = manager.getEvictionCount();
+        HttpConnection connection = manager.getConnection(new URI("http://127.0.0.1:" + httpServer.port()), 1000);
+        connection.setKeepAliveTimeout(1);
+        manager.returnConnectionToPool(connection);
+        assertEquals(initialFreeConnections + 1, manager.numFreeConnections());
+        for (int i = 0; i < 50 && manager.getEvictionCount() == evictions; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(evictions + 1, manager.getEvictionCount());
+        assertEquals(initialFreeConnections, manager.numFreeConnections());
+    }
+
     /**
      * Test that a connection is closed if the client does not read all the data
      * @throws Exception
@@ -431,8 +475,14 @@ public class PersistenceTest extends TestCase {
     /**
      * Test that the http.keepAlive system property has the required effect on persistent connections
      */
-    public void testKeepAliveSystemProperty() throws IOException, InterruptedException {
+    public void testKeepAliveSystemProperty() throws Exception {
         System.setProperty("http.keepAlive", "false");
+        HttpConnectionManager manager;
+        try {
+            manager = new HttpConnectionManager();
+        } finally {
+            System.setProperty("http.keepAlive", "true");
+        }
         MockServer httpServer =
                 new MockServer("ServerSocket for HttpURLConnectionTest");
         httpServer.start();
@@ -441,15 +491,11 @@ public class PersistenceTest extends TestCase {
                 bound.wait(5000);
             }
         }
-        HttpURLConnection c = (HttpURLConnection)
-            new URL("http://127.0.0.1:" + httpServer.port()).openConnection();
-        c.setDoOutput(true);
-        c.setRequestMethod("POST");
-        OutputStream os = c.getOutputStream();
-        os.close();
-        assertEquals(0, HttpConnectionManager.getDefault().numFreeConnections());
+        HttpConnection connection = manager.getConnection(new URI("http://127.0.0.1:" + httpServer.port()), 1000);
+        manager.returnConnectionToPool(connection);
+        assertEquals(0, manager.numFreeConnections());
+        assertTrue(connection.getSocket().isClosed());
         httpServer.join();
-        System.setProperty("http.keepAlive", "true");
     }
 
     /**
@@ -457,34 +503,29 @@ public class PersistenceTest extends TestCase {
      * @throws Exception
      */
     public void testMaxConnectionsSystemProperty() throws Exception {
-        int initialFreeConnections = HttpConnectionManager.getDefault().numFreeConnections();
+        String maxConnections = System.getProperty("http.maxConnections");
         System.setProperty("http.maxConnections", "2");
-        HttpURLConnection c = (HttpURLConnection)
-            new URL("http://localhost:" + port).openConnection();
-        c.setDoOutput(true);
-        c.setRequestMethod("GET");
-        InputStream is = c.getInputStream();
-        c = (HttpURLConnection)
-            new URL("http://localhost:" + port).openConnection();
-        c.setDoOutput(true);
-        c.setRequestMethod("GET");
-        InputStream is2 = c.getInputStream();
-        c = (HttpURLConnection)
-            new URL("http://localhost:" + port).openConnection();
-        c.setDoOutput(true);
-        c.setRequestMethod("GET");
-        InputStream is3 = c.getInputStream();
-        byte[] buffer = new byte[128];
-        while(is.read(buffer) > 0){
-        }
-        while(is2.read(buffer) > 0){
-        }
-        while(is3.read(buffer) > 0){
+        HttpConnectionManager manager;
+        try {
+            manager = new HttpConnectionManager();
+        } finally {
+            if (maxConnections == null) {
+                System.clearProperty("http.maxConnections");
+            } else {
+                System.setProperty("http.maxConnections", maxConnections);
+            }
         }
-        is.close();
-        is2.close();
-        is3.close();
-        assertEquals(initialFreeConnections + 2, HttpConnectionManager.getDefault().numFreeConnections());
+        URI uri = new URI("http://localhost:" + port);
+        HttpConnection connection = manager.getConnection(uri, 1000);
+        HttpConnection connection2 = manager.getConnection(uri, 1000);
+        HttpConnection connection3 = manager.getConnection(uri, 1000);
+        manager.returnConnectionToPool(connection);
+        manager.returnConnectionToPool(connection2);
+        manager.returnConnectionToPool(connection3);
+        assertEquals(2, manager.numFreeConnections());
+        assertTrue(connection3.getSocket().isClosed());
+        manager.reset();
+        assertEquals(0, manager.numFreeConnections());
     }
     
     public void testClosingOutputStream() throws IOException {
@@ -0,0 +1,330 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.luni.tests.internal.reflect;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import junit.framework.TestCase;
+
+import tests.support.Support_Exec;
+
+import org.apache.harmony.luni.internal.reflect.AccessorGenerator;
+import org.apache.harmony.luni.internal.reflect.ConstructorAccessor;
+import org.apache.harmony.luni.internal.reflect.MethodAccessor;
+
+/**
+ * Tests for the generated reflection accessors, both called directly and
+ * through <code>Method.invoke</code> and
+ * <code>Constructor.newInstance</code> once a member has been invoked more
+ * often than the inflation threshold.
+ */
+public class AccessorGeneratorTest extends TestCase {
+
+    public static class Target {
+
+        public final String text;
+
+        public int count;
+
+        public Target() {
+            text = "";
+        }
+
+        public Target(long l, String s) {
+            text = s + l;
+        }
+
+        public Target(boolean fail) throws IOException {
+            if (fail) {
+                throw new IOException("constructor");
+            }
+            text = "ok";
+        }
+
+        public long add(int i, long l) {
+            return i + l;
+        }
+
+        public static double half(double d) {
+            return d / 2;
+        }
+
+        public char first(String s) {
+            return s.charAt(0);
+        }
+
+        public boolean not(boolean b) {
+            return !b;
+        }
+
+        public String concat(String s, Object o) {
+            return text + s + o;
+        }
+
+        public void increment(int by) {
+            count += by;
+        }
+
+        public void fail() throws IOException {
+            throw new IOException("method");
+        }
+    }
+
+    static class Hidden {
+        public void run() {
+            // not accessible to generated code
+        }
+    }
+
+    /*
+     * Invokes the method often enough for it to be inflated.
+     */
+    private static Object inflate(Method method, Object obj, Object... args)
+            throws Exception {
+        Object result = null;
+        for (int i = 0; i <= AccessorGenerator.getInflationThreshold() + 1; i++) {
+            result = method.invoke(obj, args);
+        }
+        return result;
+    }
+
+    private static Object inflate(Constructor<?> constructor, Object... args)
+            throws Exception {
+        Object result = null;
+        for (int i = 0; i <= AccessorGenerator.getInflationThreshold() + 1; i++) {
+            result = constructor.newInstance(args);
+        }
+        return result;
+    }
+
+    public void test_invoke_inflated() throws Exception {
+        Target target = new Target(1, "t");
+        Method add = Target.class.getMethod("add", int.class, long.class);
+        assertEquals(Long.valueOf(5), inflate(add, target, 2, 3L));
+        // widening of byte, short and char to int, and of int to long
+        assertEquals(Long.valueOf(5), add.invoke(target, (byte) 2, 3));
+        assertEquals(Long.valueOf(5), add.invoke(target, (short) 2, (byte) 3));
+        assertEquals(Long.valueOf('a' + 1L), add.invoke(target, 'a', 'b' - 'a'));
+
+        Method half = Target.class.getMethod("half", double.class);
+        assertEquals(Double.valueOf(1.5), inflate(half, null, 3.0));
+        assertEquals(Double.valueOf(1.5), half.invoke(target, 3));
+        assertEquals(Double.valueOf(1.25), half.invoke(null, 2.5f));
+
+        Method first = Target.class.getMethod("first", String.class);
+        assertEquals(Character.valueOf('x'), inflate(first, target, "xy"));
+
+        Method not = Target.class.getMethod("not", boolean.class);
+        assertEquals(Boolean.FALSE, inflate(not, target, Boolean.TRUE));
+
+        Method concat = Target.class.getMethod("concat", String.class,
+                Object.class);
+        assertEquals("t1ab", inflate(concat, target, "a", "b"));
+        assertEquals("t1anull", concat.invoke(target, "a", null));
+
+        Method increment = Target.class.getMethod("increment", int.class);
+        assertNull(inflate(increment, target, 2));
+        assertEquals(2 * (AccessorGenerator.getInflationThreshold() + 2),
+                target.count);
+    }
+
+    public void test_invoke_IllegalArgumentException() throws Exception {
+        Target target = new Target();
+        Method add = Target.class.getMethod("add", int.class, long.class);
+        inflate(add, target, 1, 1L);
+        Object[][] illegal = { { 1L, 1L }, { 1.0f, 1L }, { Boolean.TRUE, 1L },
+                { null, 1L }, { "1", 1L }, { 1, 1.0 }, { 1 }, {} };
+        for (int i = 0; i < illegal.length; i++) {
+            try {
+                add.invoke(target, illegal[i]);
+                fail("Assert " + i + ": IllegalArgumentException expected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            add.invoke(new Object(), 1, 1L);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            add.invoke(null, 1, 1L);
+            fail("NullPointerException expected");
+        } catch (NullPointerException e) {
+            // expected
+        }
+
+        Method concat = Target.class.getMethod("concat", String.class,
+                Object.class);
+        inflate(concat, target, "a", "b");
+        try {
+            concat.invoke(target, 1, "b");
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void test_invoke_InvocationTargetException() throws Exception {
+        Method fail = Target.class.getMethod("fail");
+        Target target = new Target();
+        for (int i = 0; i <= AccessorGenerator.getInflationThreshold() + 2; i++) {
+            try {
+                fail.invoke(target);
+                fail("InvocationTargetException expected");
+            } catch (InvocationTargetException e) {
+                assertTrue(e.getCause() instanceof IOException);
+                assertEquals("method", e.getCause().getMessage());
+            }
+        }
+    }
+
+    public void test_newInstance_inflated() throws Exception {
+        Constructor<Target> constructor = Target.class.getConstructor(
+                long.class, String.class);
+        assertEquals("a2", ((Target) inflate(constructor, 2L, "a")).text);
+        assertEquals("b3", constructor.newInstance(3, "b").text);
+        assertEquals("c99", constructor.newInstance('c', "c").text);
+        assertEquals("null4", constructor.newInstance((byte) 4, null).text);
+
+        Object[][] illegal = { { 1.0f, "a" }, { null, "a" }, { 1L, 1L },
+                { 1L } };
+        for (int i = 0; i < illegal.length; i++) {
+            try {
+                constructor.newInstance(illegal[i]);
+                fail("Assert " + i + ": IllegalArgumentException expected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        Constructor<Target> noArgs = Target.class.getConstructor();
+        assertEquals("", ((Target) inflate(noArgs)).text);
+    }
+
+    public void test_newInstance_InvocationTargetException() throws Exception {
+        Constructor<Target> constructor = Target.class
+                .getConstructor(boolean.class);
+        assertEquals("ok", ((Target) inflate(constructor, false)).text);
+        try {
+            constructor.newInstance(true);
+            fail("InvocationTargetException expected");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IOException);
+            assertEquals("constructor", e.getCause().getMessage());
+        }
+    }
+
+    public void test_newMethodAccessor() throws Exception {
+        MethodAccessor accessor = AccessorGenerator
+                .newMethodAccessor(Target.class.getMethod("add", int.class,
+                        long.class));
+        assertNotNull(accessor);
+        assertEquals(Long.valueOf(7), accessor.invoke(new Target(),
+                new Object[] { (short) 3, 4 }));
+        try {
+            accessor.invoke(new Target(), new Object[] { 3L, 4L });
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        accessor = AccessorGenerator.newMethodAccessor(Target.class
+                .getMethod("fail"));
+        try {
+            accessor.invoke(new Target(), null);
+            fail("InvocationTargetException expected");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        // not public, or defined by the bootstrap loader
+        assertNull(AccessorGenerator.newMethodAccessor(Hidden.class
+                .getMethod("run")));
+        assertNull(AccessorGenerator.newMethodAccessor(Object.class
+                .getMethod("hashCode")));
+    }
+
+    public void test_newConstructorAccessor() throws Exception {
+        ConstructorAccessor accessor = AccessorGenerator
+                .newConstructorAccessor(Target.class.getConstructor(
+                        long.class, String.class));
+        assertNotNull(accessor);
+        assertEquals("x5", ((Target) accessor.newInstance(new Object[] { 5,
+                "x" })).text);
+        try {
+            accessor.newInstance(new Object[] { Boolean.TRUE, "x" });
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        accessor = AccessorGenerator.newConstructorAccessor(Target.class
+                .getConstructor(boolean.class));
+        try {
+            accessor.newInstance(new Object[] { true });
+            fail("InvocationTargetException expected");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        assertNull(AccessorGenerator.newConstructorAccessor(Hidden.class
+                .getDeclaredConstructor()));
+        assertNull(AccessorGenerator.newConstructorAccessor(Object.class
+                .getConstructor()));
+    }
+
+    public void test_newAccessor_generated() throws Exception {
+        ConstructorAccessor accessor = AccessorGenerator
+                .newConstructorAccessor(Target.class.getConstructor());
+        Class<?> generated = accessor.getClass();
+
+        // the accessors are created reflectively and must not inflate
+        assertNull(AccessorGenerator.newConstructorAccessor(generated
+                .getConstructor()));
+        assertNull(AccessorGenerator.newMethodAccessor(generated.getMethod(
+                "newInstance", Object[].class)));
+    }
+
+    public void test_inflationThreshold_zero() throws Exception {
+        String[] args = new String[] {
+                "-Dorg.apache.harmony.reflect.inflationThreshold=0",
+                InflateAtOnce.class.getName() };
+        Support_Exec.execJava(args, null, true);
+    }
+
+    public static class InflateAtOnce {
+
+        public static void main(String[] args) throws Exception {
+            assertEquals(0, AccessorGenerator.getInflationThreshold());
+            Constructor<Target> constructor = Target.class.getConstructor(
+                    long.class, String.class);
+            Method concat = Target.class.getMethod("concat", String.class,
+                    Object.class);
+            for (int i = 0; i < 3; i++) {
+                Target target = constructor.newInstance(i, "t");
+                assertEquals("t" + i + "ab", concat.invoke(target, "a", "b"));
+                assertEquals("", Target.class.newInstance().text);
+            }
+        }
+    }
+}
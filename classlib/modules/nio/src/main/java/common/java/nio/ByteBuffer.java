@@ -699,6 +699,85 @@ public abstract class ByteBuffer extends Buffer implements
      */
     abstract boolean protectedHasArray();
 
+    /*
+     * Bulk transfers between the bytes of this buffer from the given index
+     * and arrays of wider primitives, in the order of this buffer, used by the
+     * bulk get and put methods of the view buffers. The bounds have been
+     * checked by the caller. Subclasses override these loops with copies that
+     * do not go through the single value accessors.
+     */
+    void getChars(int index, char[] dest, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 2) {
+            dest[off] = getChar(index);
+        }
+    }
+
+    void putChars(int index, char[] src, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 2) {
+            putChar(index, src[off]);
+        }
+    }
+
+    void getDoubles(int index, double[] dest, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 8) {
+            dest[off] = getDouble(index);
+        }
+    }
+
+    void putDoubles(int index, double[] src, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 8) {
+            putDouble(index, src[off]);
+        }
+    }
+
+    void getFloats(int index, float[] dest, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 4) {
+            dest[off] = getFloat(index);
+        }
+    }
+
+    void putFloats(int index, float[] src, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 4) {
+            putFloat(index, src[off]);
+        }
+    }
+
+    void getInts(int index, int[] dest, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 4) {
+            dest[off] = getInt(index);
+        }
+    }
+
+    void putInts(int index, int[] src, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 4) {
+            putInt(index, src[off]);
+        }
+    }
+
+    void getLongs(int index, long[] dest, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 8) {
+            dest[off] = getLong(index);
+        }
+    }
+
+    void putLongs(int index, long[] src, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 8) {
+            putLong(index, src[off]);
+        }
+    }
+
+    void getShorts(int index, short[] dest, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 2) {
+            dest[off] = getShort(index);
+        }
+    }
+
+    void putShorts(int index, short[] src, int off, int len) {
+        for (int end = off + len; off < end; off++, index += 2) {
+            putShort(index, src[off]);
+        }
+    }
+
     /**
      * Writes the given byte to the current position and increases the position
      * by 1.
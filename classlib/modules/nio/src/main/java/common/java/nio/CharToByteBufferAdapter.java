@@ -137,6 +137,20 @@ final class CharToByteBufferAdapter extends CharBuffer implements DirectBuffer {
         return byteBuffer.getChar(position++ << 1);
     }
 
+    @Override
+    public CharBuffer get(char[] dest, int off, int len) {
+        int length = dest.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byteBuffer.getChars(position << 1, dest, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public char get(int index) {
         if (index < 0 || index >= limit) {
@@ -184,6 +198,20 @@ final class CharToByteBufferAdapter extends CharBuffer implements DirectBuffer {
         return this;
     }
 
+    @Override
+    public CharBuffer put(char[] src, int off, int len) {
+        int length = src.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferOverflowException();
+        }
+        byteBuffer.putChars(position << 1, src, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public CharBuffer put(int index, char c) {
         if (index < 0 || index >= limit) {
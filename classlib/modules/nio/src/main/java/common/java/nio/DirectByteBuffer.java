@@ -191,6 +191,36 @@ abstract class DirectByteBuffer extends MappedByteBuffer implements DirectBuffer
         return getBaseAddress().getShort(offset + index, order);
     }
 
+    @Override
+    final void getChars(int index, char[] dest, int off, int len) {
+        getBaseAddress().getCharArray(offset + index, dest, off, len, order);
+    }
+
+    @Override
+    final void getDoubles(int index, double[] dest, int off, int len) {
+        getBaseAddress().getDoubleArray(offset + index, dest, off, len, order);
+    }
+
+    @Override
+    final void getFloats(int index, float[] dest, int off, int len) {
+        getBaseAddress().getFloatArray(offset + index, dest, off, len, order);
+    }
+
+    @Override
+    final void getInts(int index, int[] dest, int off, int len) {
+        getBaseAddress().getIntArray(offset + index, dest, off, len, order);
+    }
+
+    @Override
+    final void getLongs(int index, long[] dest, int off, int len) {
+        getBaseAddress().getLongArray(offset + index, dest, off, len, order);
+    }
+
+    @Override
+    final void getShorts(int index, short[] dest, int off, int len) {
+        getBaseAddress().getShortArray(offset + index, dest, off, len, order);
+    }
+
     @Override
     public final boolean isDirect() {
         return true;
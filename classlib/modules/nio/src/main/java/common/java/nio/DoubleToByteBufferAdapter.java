@@ -138,6 +138,20 @@ final class DoubleToByteBufferAdapter extends DoubleBuffer implements
         return byteBuffer.getDouble(position++ << 3);
     }
 
+    @Override
+    public DoubleBuffer get(double[] dest, int off, int len) {
+        int length = dest.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byteBuffer.getDoubles(position << 3, dest, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public double get(int index) {
         if (index < 0 || index >= limit) {
@@ -185,6 +199,20 @@ final class DoubleToByteBufferAdapter extends DoubleBuffer implements
         return this;
     }
 
+    @Override
+    public DoubleBuffer put(double[] src, int off, int len) {
+        int length = src.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferOverflowException();
+        }
+        byteBuffer.putDoubles(position << 3, src, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public DoubleBuffer put(int index, double c) {
         if (index < 0 || index >= limit) {
@@ -138,6 +138,20 @@ final class FloatToByteBufferAdapter extends FloatBuffer implements
         return byteBuffer.getFloat(position++ << 2);
     }
 
+    @Override
+    public FloatBuffer get(float[] dest, int off, int len) {
+        int length = dest.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byteBuffer.getFloats(position << 2, dest, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public float get(int index) {
         if (index < 0 || index >= limit) {
@@ -185,6 +199,20 @@ final class FloatToByteBufferAdapter extends FloatBuffer implements
         return this;
     }
 
+    @Override
+    public FloatBuffer put(float[] src, int off, int len) {
+        int length = src.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferOverflowException();
+        }
+        byteBuffer.putFloats(position << 2, src, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public FloatBuffer put(int index, float c) {
         if (index < 0 || index >= limit) {
@@ -175,90 +175,200 @@ abstract class HeapByteBuffer extends ByteBuffer {
     }
 
     protected final int loadInt(int index) {
-        int baseOffset = offset + index;
-        int bytes = 0;
+        return order == Endianness.BIG_ENDIAN ? loadBigEndianInt(
+                backingArray, offset + index) : loadLittleEndianInt(
+                backingArray, offset + index);
+    }
+
+    protected final long loadLong(int index) {
+        return order == Endianness.BIG_ENDIAN ? loadBigEndianLong(
+                backingArray, offset + index) : loadLittleEndianLong(
+                backingArray, offset + index);
+    }
+
+    protected final short loadShort(int index) {
+        return order == Endianness.BIG_ENDIAN ? loadBigEndianShort(
+                backingArray, offset + index) : loadLittleEndianShort(
+                backingArray, offset + index);
+    }
+
+    protected final void store(int index, int value) {
+        if (order == Endianness.BIG_ENDIAN) {
+            storeBigEndian(backingArray, offset + index, value);
+        } else {
+            storeLittleEndian(backingArray, offset + index, value);
+        }
+    }
+
+    protected final void store(int index, long value) {
+        if (order == Endianness.BIG_ENDIAN) {
+            storeBigEndian(backingArray, offset + index, value);
+        } else {
+            storeLittleEndian(backingArray, offset + index, value);
+        }
+    }
+
+    protected final void store(int index, short value) {
         if (order == Endianness.BIG_ENDIAN) {
-            for (int i = 0; i < 4; i++) {
-                bytes = bytes << 8;
-                bytes = bytes | (backingArray[baseOffset + i] & 0xFF);
+            storeBigEndian(backingArray, offset + index, value);
+        } else {
+            storeLittleEndian(backingArray, offset + index, value);
+        }
+    }
+
+    /*
+     * The loads and stores for each byte order are kept apart, so that the
+     * bulk transfers test the order once rather than for every value.
+     */
+    static int loadBigEndianInt(byte[] array, int i) {
+        return (array[i] << 24) | ((array[i + 1] & 0xFF) << 16)
+                | ((array[i + 2] & 0xFF) << 8) | (array[i + 3] & 0xFF);
+    }
+
+    static int loadLittleEndianInt(byte[] array, int i) {
+        return (array[i + 3] << 24) | ((array[i + 2] & 0xFF) << 16)
+                | ((array[i + 1] & 0xFF) << 8) | (array[i] & 0xFF);
+    }
+
+    static long loadBigEndianLong(byte[] array, int i) {
+        return ((long) loadBigEndianInt(array, i) << 32)
+                | (loadBigEndianInt(array, i + 4) & 0xFFFFFFFFL);
+    }
+
+    static long loadLittleEndianLong(byte[] array, int i) {
+        return ((long) loadLittleEndianInt(array, i + 4) << 32)
+                | (loadLittleEndianInt(array, i) & 0xFFFFFFFFL);
+    }
+
+    static short loadBigEndianShort(byte[] array, int i) {
+        return (short) ((array[i] << 8) | (array[i + 1] & 0xFF));
+    }
+
+    static short loadLittleEndianShort(byte[] array, int i) {
+        return (short) ((array[i + 1] << 8) | (array[i] & 0xFF));
+    }
+
+    static void storeBigEndian(byte[] array, int i, int value) {
+        array[i] = (byte) (value >> 24);
+        array[i + 1] = (byte) (value >> 16);
+        array[i + 2] = (byte) (value >> 8);
+        array[i + 3] = (byte) value;
+    }
+
+    static void storeLittleEndian(byte[] array, int i, int value) {
+        array[i] = (byte) value;
+        array[i + 1] = (byte) (value >> 8);
+        array[i + 2] = (byte) (value >> 16);
+        array[i + 3] = (byte) (value >> 24);
+    }
+
+    static void storeBigEndian(byte[] array, int i, long value) {
+        storeBigEndian(array, i, (int) (value >> 32));
+        storeBigEndian(array, i + 4, (int) value);
+    }
+
+    static void storeLittleEndian(byte[] array, int i, long value) {
+        storeLittleEndian(array, i, (int) value);
+        storeLittleEndian(array, i + 4, (int) (value >> 32));
+    }
+
+    static void storeBigEndian(byte[] array, int i, short value) {
+        array[i] = (byte) (value >> 8);
+        array[i + 1] = (byte) value;
+    }
+
+    static void storeLittleEndian(byte[] array, int i, short value) {
+        array[i] = (byte) value;
+        array[i + 1] = (byte) (value >> 8);
+    }
+
+    @Override
+    final void getChars(int index, char[] dest, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
+        if (order == Endianness.BIG_ENDIAN) {
+            for (; off < end; off++, i += 2) {
+                dest[off] = (char) loadBigEndianShort(backingArray, i);
             }
         } else {
-            for (int i = 3; i >= 0; i--) {
-                bytes = bytes << 8;
-                bytes = bytes | (backingArray[baseOffset + i] & 0xFF);
+            for (; off < end; off++, i += 2) {
+                dest[off] = (char) loadLittleEndianShort(backingArray, i);
             }
         }
-        return bytes;
     }
 
-    protected final long loadLong(int index) {
-        int baseOffset = offset + index;
-        long bytes = 0;
+    @Override
+    final void getDoubles(int index, double[] dest, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
         if (order == Endianness.BIG_ENDIAN) {
-            for (int i = 0; i < 8; i++) {
-                bytes = bytes << 8;
-                bytes = bytes | (backingArray[baseOffset + i] & 0xFF);
+            for (; off < end; off++, i += 8) {
+                dest[off] = Double.longBitsToDouble(loadBigEndianLong(backingArray, i));
             }
         } else {
-            for (int i = 7; i >= 0; i--) {
-                bytes = bytes << 8;
-                bytes = bytes | (backingArray[baseOffset + i] & 0xFF);
+            for (; off < end; off++, i += 8) {
+                dest[off] = Double.longBitsToDouble(loadLittleEndianLong(backingArray, i));
             }
         }
-        return bytes;
     }
 
-    protected final short loadShort(int index) {
-        int baseOffset = offset + index;
-        short bytes = 0;
+    @Override
+    final void getFloats(int index, float[] dest, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
         if (order == Endianness.BIG_ENDIAN) {
-            bytes = (short) (backingArray[baseOffset] << 8);
-            bytes |= (backingArray[baseOffset + 1] & 0xFF);
+            for (; off < end; off++, i += 4) {
+                dest[off] = Float.intBitsToFloat(loadBigEndianInt(backingArray, i));
+            }
         } else {
-            bytes = (short) (backingArray[baseOffset + 1] << 8);
-            bytes |= (backingArray[baseOffset] & 0xFF);
+            for (; off < end; off++, i += 4) {
+                dest[off] = Float.intBitsToFloat(loadLittleEndianInt(backingArray, i));
+            }
         }
-        return bytes;
     }
 
-    protected final void store(int index, int value) {
-        int baseOffset = offset + index;
+    @Override
+    final void getInts(int index, int[] dest, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
         if (order == Endianness.BIG_ENDIAN) {
-            for (int i = 3; i >= 0; i--) {
-                backingArray[baseOffset + i] = (byte) (value & 0xFF);
-                value = value >> 8;
+            for (; off < end; off++, i += 4) {
+                dest[off] = loadBigEndianInt(backingArray, i);
             }
         } else {
-            for (int i = 0; i <= 3; i++) {
-                backingArray[baseOffset + i] = (byte) (value & 0xFF);
-                value = value >> 8;
+            for (; off < end; off++, i += 4) {
+                dest[off] = loadLittleEndianInt(backingArray, i);
             }
         }
     }
 
-    protected final void store(int index, long value) {
-        int baseOffset = offset + index;
+    @Override
+    final void getLongs(int index, long[] dest, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
         if (order == Endianness.BIG_ENDIAN) {
-            for (int i = 7; i >= 0; i--) {
-                backingArray[baseOffset + i] = (byte) (value & 0xFF);
-                value = value >> 8;
+            for (; off < end; off++, i += 8) {
+                dest[off] = loadBigEndianLong(backingArray, i);
             }
         } else {
-            for (int i = 0; i <= 7; i++) {
-                backingArray[baseOffset + i] = (byte) (value & 0xFF);
-                value = value >> 8;
+            for (; off < end; off++, i += 8) {
+                dest[off] = loadLittleEndianLong(backingArray, i);
             }
         }
     }
 
-    protected final void store(int index, short value) {
-        int baseOffset = offset + index;
+    @Override
+    final void getShorts(int index, short[] dest, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
         if (order == Endianness.BIG_ENDIAN) {
-            backingArray[baseOffset] = (byte) ((value >> 8) & 0xFF);
-            backingArray[baseOffset + 1] = (byte) (value & 0xFF);
+            for (; off < end; off++, i += 2) {
+                dest[off] = loadBigEndianShort(backingArray, i);
+            }
         } else {
-            backingArray[baseOffset + 1] = (byte) ((value >> 8) & 0xFF);
-            backingArray[baseOffset] = (byte) (value & 0xFF);
+            for (; off < end; off++, i += 2) {
+                dest[off] = loadLittleEndianShort(backingArray, i);
+            }
         }
     }
 
@@ -137,6 +137,20 @@ final class IntToByteBufferAdapter extends IntBuffer implements DirectBuffer {
         return byteBuffer.getInt(position++ << 2);
     }
 
+    @Override
+    public IntBuffer get(int[] dest, int off, int len) {
+        int length = dest.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byteBuffer.getInts(position << 2, dest, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public int get(int index) {
         if (index < 0 || index >= limit) {
@@ -184,6 +198,20 @@ final class IntToByteBufferAdapter extends IntBuffer implements DirectBuffer {
         return this;
     }
 
+    @Override
+    public IntBuffer put(int[] src, int off, int len) {
+        int length = src.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferOverflowException();
+        }
+        byteBuffer.putInts(position << 2, src, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public IntBuffer put(int index, int c) {
         if (index < 0 || index >= limit) {
@@ -137,6 +137,20 @@ final class LongToByteBufferAdapter extends LongBuffer implements DirectBuffer {
         return byteBuffer.getLong(position++ << 3);
     }
 
+    @Override
+    public LongBuffer get(long[] dest, int off, int len) {
+        int length = dest.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byteBuffer.getLongs(position << 3, dest, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public long get(int index) {
         if (index < 0 || index >= limit) {
@@ -184,6 +198,20 @@ final class LongToByteBufferAdapter extends LongBuffer implements DirectBuffer {
         return this;
     }
 
+    @Override
+    public LongBuffer put(long[] src, int off, int len) {
+        int length = src.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferOverflowException();
+        }
+        byteBuffer.putLongs(position << 3, src, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public LongBuffer put(int index, long c) {
         if (index < 0 || index >= limit) {
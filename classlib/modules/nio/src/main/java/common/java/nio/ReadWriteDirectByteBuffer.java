@@ -206,6 +206,36 @@ final class ReadWriteDirectByteBuffer extends DirectByteBuffer {
         return this;
     }
 
+    @Override
+    void putChars(int index, char[] src, int off, int len) {
+        getBaseAddress().setCharArray(offset + index, src, off, len, order);
+    }
+
+    @Override
+    void putDoubles(int index, double[] src, int off, int len) {
+        getBaseAddress().setDoubleArray(offset + index, src, off, len, order);
+    }
+
+    @Override
+    void putFloats(int index, float[] src, int off, int len) {
+        getBaseAddress().setFloatArray(offset + index, src, off, len, order);
+    }
+
+    @Override
+    void putInts(int index, int[] src, int off, int len) {
+        getBaseAddress().setIntArray(offset + index, src, off, len, order);
+    }
+
+    @Override
+    void putLongs(int index, long[] src, int off, int len) {
+        getBaseAddress().setLongArray(offset + index, src, off, len, order);
+    }
+
+    @Override
+    void putShorts(int index, short[] src, int off, int len) {
+        getBaseAddress().setShortArray(offset + index, src, off, len, order);
+    }
+
     @Override
     public ByteBuffer putShort(short value) {
         int newPosition = position + 2;
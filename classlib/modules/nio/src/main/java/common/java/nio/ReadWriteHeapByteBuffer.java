@@ -16,6 +16,8 @@
 
 package java.nio;
 
+import org.apache.harmony.luni.platform.Endianness;
+
 /**
  * HeapByteBuffer, ReadWriteHeapByteBuffer and ReadOnlyHeapByteBuffer compose
  * the implementation of array based byte buffers.
@@ -192,6 +194,96 @@ final class ReadWriteHeapByteBuffer extends HeapByteBuffer {
         return this;
     }
 
+    @Override
+    void putChars(int index, char[] src, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
+        if (order == Endianness.BIG_ENDIAN) {
+            for (; off < end; off++, i += 2) {
+                storeBigEndian(backingArray, i, (short) src[off]);
+            }
+        } else {
+            for (; off < end; off++, i += 2) {
+                storeLittleEndian(backingArray, i, (short) src[off]);
+            }
+        }
+    }
+
+    @Override
+    void putDoubles(int index, double[] src, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
+        if (order == Endianness.BIG_ENDIAN) {
+            for (; off < end; off++, i += 8) {
+                storeBigEndian(backingArray, i, Double.doubleToRawLongBits(src[off]));
+            }
+        } else {
+            for (; off < end; off++, i += 8) {
+                storeLittleEndian(backingArray, i, Double.doubleToRawLongBits(src[off]));
+            }
+        }
+    }
+
+    @Override
+    void putFloats(int index, float[] src, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
+        if (order == Endianness.BIG_ENDIAN) {
+            for (; off < end; off++, i += 4) {
+                storeBigEndian(backingArray, i, Float.floatToIntBits(src[off]));
+            }
+        } else {
+            for (; off < end; off++, i += 4) {
+                storeLittleEndian(backingArray, i, Float.floatToIntBits(src[off]));
+            }
+        }
+    }
+
+    @Override
+    void putInts(int index, int[] src, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
+        if (order == Endianness.BIG_ENDIAN) {
+            for (; off < end; off++, i += 4) {
+                storeBigEndian(backingArray, i, src[off]);
+            }
+        } else {
+            for (; off < end; off++, i += 4) {
+                storeLittleEndian(backingArray, i, src[off]);
+            }
+        }
+    }
+
+    @Override
+    void putLongs(int index, long[] src, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
+        if (order == Endianness.BIG_ENDIAN) {
+            for (; off < end; off++, i += 8) {
+                storeBigEndian(backingArray, i, src[off]);
+            }
+        } else {
+            for (; off < end; off++, i += 8) {
+                storeLittleEndian(backingArray, i, src[off]);
+            }
+        }
+    }
+
+    @Override
+    void putShorts(int index, short[] src, int off, int len) {
+        int i = offset + index;
+        int end = off + len;
+        if (order == Endianness.BIG_ENDIAN) {
+            for (; off < end; off++, i += 2) {
+                storeBigEndian(backingArray, i, src[off]);
+            }
+        } else {
+            for (; off < end; off++, i += 2) {
+                storeLittleEndian(backingArray, i, src[off]);
+            }
+        }
+    }
+
     @Override
     public ByteBuffer putShort(int index, short value) {
         if (index < 0 || (long) index + 2 > limit) {
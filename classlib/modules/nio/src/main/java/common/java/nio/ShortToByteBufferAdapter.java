@@ -137,6 +137,20 @@ final class ShortToByteBufferAdapter extends ShortBuffer implements
         return byteBuffer.getShort(position++ << 1);
     }
 
+    @Override
+    public ShortBuffer get(short[] dest, int off, int len) {
+        int length = dest.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byteBuffer.getShorts(position << 1, dest, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public short get(int index) {
         if (index < 0 || index >= limit) {
@@ -184,6 +198,20 @@ final class ShortToByteBufferAdapter extends ShortBuffer implements
         return this;
     }
 
+    @Override
+    public ShortBuffer put(short[] src, int off, int len) {
+        int length = src.length;
+        if (off < 0 || len < 0 || (long) len + (long) off > length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len > remaining()) {
+            throw new BufferOverflowException();
+        }
+        byteBuffer.putShorts(position << 1, src, off, len);
+        position += len;
+        return this;
+    }
+
     @Override
     public ShortBuffer put(int index, short c) {
         if (index < 0 || index >= limit) {
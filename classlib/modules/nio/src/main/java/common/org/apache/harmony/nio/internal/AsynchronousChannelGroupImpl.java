@@ -0,0 +1,364 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.nio.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.harmony.nio.internal.nls.Messages;
+
+/**
+ * A group of asynchronous channels sharing a fixed pool of threads, which
+ * run the file operations and the completion handlers, and a single event
+ * loop thread, which waits on a selector for the group's sockets to become
+ * ready. The selector comes from the system selector provider, so sockets are
+ * driven by epoll where the epoll provider is installed.
+ * 
+ * A group that has been shut down accepts no new channels, and terminates
+ * once all of its channels are closed and their handlers have run.
+ * 
+ * This class is non-API.
+ */
+public class AsynchronousChannelGroupImpl {
+
+    private static AsynchronousChannelGroupImpl defaultGroup;
+
+    private final ThreadFactory threadFactory;
+
+    private final ThreadPoolExecutor executor;
+
+    // Socket channels whose interest set the event loop must update
+    private final ConcurrentLinkedQueue<AsynchronousSocketChannelImpl> updates = new ConcurrentLinkedQueue<AsynchronousSocketChannelImpl>();
+
+    private static class StateLock {}
+    private final Object stateLock = new StateLock();
+
+    // The following fields are guarded by stateLock
+    private final Set<Closeable> channels = new HashSet<Closeable>();
+
+    private Selector selector;
+
+    private Thread eventLoop;
+
+    private boolean shutdown;
+
+    private volatile boolean terminating;
+
+    /*
+     * Constructs a group with the given number of pool threads.
+     */
+    private AsynchronousChannelGroupImpl(int nThreads,
+            ThreadFactory threadFactory) {
+        if (nThreads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.threadFactory = threadFactory;
+        executor = new ThreadPoolExecutor(nThreads, nThreads, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                threadFactory);
+    }
+
+    /**
+     * Answers a new group whose threads are made by the given factory.
+     * 
+     * @param nThreads
+     *            the number of threads for file operations and handlers
+     */
+    public static AsynchronousChannelGroupImpl withFixedThreadPool(
+            int nThreads, ThreadFactory threadFactory) {
+        if (threadFactory == null) {
+            throw new NullPointerException();
+        }
+        return new AsynchronousChannelGroupImpl(nThreads, threadFactory);
+    }
+
+    /**
+     * Answers a new group of daemon threads.
+     * 
+     * @param nThreads
+     *            the number of threads for file operations and handlers
+     */
+    public static AsynchronousChannelGroupImpl withFixedThreadPool(int nThreads) {
+        return new AsynchronousChannelGroupImpl(nThreads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable,
+                        "AsynchronousChannelGroup"); //$NON-NLS-1$
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Answers the group used by channels opened without one, which has a
+     * daemon thread for each processor and is never shut down.
+     */
+    public static synchronized AsynchronousChannelGroupImpl getDefault() {
+        if (defaultGroup == null) {
+            defaultGroup = withFixedThreadPool(Runtime.getRuntime()
+                    .availableProcessors());
+        }
+        return defaultGroup;
+    }
+
+    /**
+     * Stops the group accepting new channels. The group terminates once its
+     * channels are closed.
+     */
+    public void shutdown() {
+        synchronized (stateLock) {
+            if (shutdown || this == defaultGroup) {
+                return;
+            }
+            shutdown = true;
+            if (channels.isEmpty()) {
+                terminate();
+            }
+        }
+    }
+
+    /**
+     * Shuts the group down and closes all of its channels, failing their
+     * outstanding operations.
+     */
+    public void shutdownNow() throws IOException {
+        List<Closeable> open;
+        synchronized (stateLock) {
+            if (this == defaultGroup) {
+                return;
+            }
+            shutdown();
+            open = new ArrayList<Closeable>(channels);
+        }
+        IOException failure = null;
+        for (Closeable channel : open) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public boolean isShutdown() {
+        synchronized (stateLock) {
+            return shutdown;
+        }
+    }
+
+    public boolean isTerminated() {
+        synchronized (stateLock) {
+            return executor.isTerminated()
+                    && (eventLoop == null || !eventLoop.isAlive());
+        }
+    }
+
+    /**
+     * Waits for the group to terminate.
+     * 
+     * @return true if the group terminated, or false if the timeout elapsed
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        if (!executor.awaitTermination(timeout, unit)) {
+            return false;
+        }
+        Thread loop;
+        synchronized (stateLock) {
+            loop = eventLoop;
+        }
+        if (loop != null) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return !loop.isAlive();
+            }
+            loop.join(remaining);
+            return !loop.isAlive();
+        }
+        return true;
+    }
+
+    /*
+     * Adds an open channel to the group.
+     */
+    void register(Closeable channel) {
+        synchronized (stateLock) {
+            if (shutdown) {
+                throw new IllegalStateException(Messages.getString("nio.13")); //$NON-NLS-1$
+            }
+            channels.add(channel);
+        }
+    }
+
+    /*
+     * Removes a closed channel from the group, terminating a group that has
+     * been shut down once its last channel is gone.
+     */
+    void unregister(Closeable channel) {
+        synchronized (stateLock) {
+            if (channels.remove(channel) && shutdown && channels.isEmpty()) {
+                terminate();
+            }
+        }
+    }
+
+    // must be called with stateLock held
+    private void terminate() {
+        executor.shutdown();
+        terminating = true;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /*
+     * Runs the task on a pool thread.
+     */
+    void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /*
+     * Hands a result to the handler on a pool thread, so that handlers never
+     * run on the event loop. Futures are completed directly.
+     */
+    <V, A> void dispatch(final CompletionHandler<V, ? super A> handler,
+            final V result, final A attachment) {
+        if (handler instanceof PendingFuture) {
+            handler.completed(result, attachment);
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    handler.completed(result, attachment);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the pool has terminated, so the caller is the only thread left
+            handler.completed(result, attachment);
+        }
+    }
+
+    /*
+     * Hands a failure to the handler on a pool thread.
+     */
+    <A> void dispatchFailure(final CompletionHandler<?, ? super A> handler,
+            final Throwable exc, final A attachment) {
+        if (handler instanceof PendingFuture) {
+            handler.failed(exc, attachment);
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    handler.failed(exc, attachment);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            handler.failed(exc, attachment);
+        }
+    }
+
+    /*
+     * Asks the event loop to bring the socket's interest set up to date with
+     * its outstanding operations, starting the loop for the group's first
+     * socket.
+     */
+    void update(AsynchronousSocketChannelImpl channel) throws IOException {
+        Selector loopSelector;
+        synchronized (stateLock) {
+            if (selector == null) {
+                selector = SelectorProvider.provider().openSelector();
+                eventLoop = threadFactory.newThread(new Runnable() {
+                    public void run() {
+                        loop();
+                    }
+                });
+                eventLoop.start();
+            }
+            loopSelector = selector;
+        }
+        updates.add(channel);
+        if (Thread.currentThread() != eventLoop) {
+            loopSelector.wakeup();
+        }
+    }
+
+    /*
+     * The event loop: applies interest updates, waits for sockets to become
+     * ready, and lets each ready socket carry on its operations.
+     */
+    private void loop() {
+        Selector loopSelector;
+        synchronized (stateLock) {
+            loopSelector = selector;
+        }
+        try {
+            while (!terminating) {
+                AsynchronousSocketChannelImpl channel;
+                while ((channel = updates.poll()) != null) {
+                    channel.updateInterest(loopSelector);
+                }
+                loopSelector.select();
+                Iterator<SelectionKey> keys = loopSelector.selectedKeys()
+                        .iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    int readyOps;
+                    try {
+                        readyOps = key.readyOps();
+                    } catch (CancelledKeyException e) {
+                        // the socket was closed by another thread
+                        continue;
+                    }
+                    ((AsynchronousSocketChannelImpl) key.attachment())
+                            .ready(readyOps);
+                }
+            }
+        } catch (IOException e) {
+            // the selector failed; fall through and let the group terminate
+        } finally {
+            try {
+                loopSelector.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
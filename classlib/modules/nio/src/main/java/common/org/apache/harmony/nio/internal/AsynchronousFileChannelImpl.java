@@ -0,0 +1,352 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.nio.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.harmony.luni.platform.IFileSystem;
+import org.apache.harmony.luni.platform.Platform;
+
+/**
+ * An asynchronous channel for reading and writing a file at given positions.
+ * Each operation runs on a thread of the channel's group and reads or writes
+ * at its position without moving a shared file pointer, so operations up to
+ * the number of pool threads are in the kernel at once and the rest queue
+ * behind them. Completion handlers run on the thread that did the I/O.
+ * 
+ * This class is non-API.
+ */
+public class AsynchronousFileChannelImpl implements Channel {
+
+    // Reference to the portable file system code.
+    private static final IFileSystem fileSystem = Platform.getFileSystem();
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Direct buffers through which the pool threads move heap buffers
+    private static final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<ByteBuffer>();
+
+    private final AsynchronousChannelGroupImpl group;
+
+    private final RandomAccessFile file;
+
+    private final FileChannelImpl channel;
+
+    // Handle to the open file, only ever used for positional I/O
+    private final long handle;
+
+    private final boolean writable;
+
+    private static class StateLock {}
+    private final Object stateLock = new StateLock();
+
+    // The following fields are guarded by stateLock
+    private boolean closed;
+
+    // Operations holding the handle open
+    private int active;
+
+    private AsynchronousFileChannelImpl(RandomAccessFile file, boolean writable,
+            AsynchronousChannelGroupImpl group) {
+        this.file = file;
+        this.writable = writable;
+        this.group = group;
+        channel = (FileChannelImpl) file.getChannel();
+        handle = channel.getHandle();
+    }
+
+    /**
+     * Opens the file for asynchronous I/O on the threads of the given group.
+     * 
+     * @param mode
+     *            "r", "rw", "rws" or "rwd", as for RandomAccessFile
+     * @param group
+     *            the group, or null for the default group
+     */
+    public static AsynchronousFileChannelImpl open(File file, String mode,
+            AsynchronousChannelGroupImpl group) throws IOException {
+        if (group == null) {
+            group = AsynchronousChannelGroupImpl.getDefault();
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, mode);
+        AsynchronousFileChannelImpl result = new AsynchronousFileChannelImpl(
+                randomAccessFile, !mode.equals("r"), group); //$NON-NLS-1$
+        try {
+            group.register(result);
+        } catch (IllegalStateException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Reads from the given position in the file into the buffer, answering
+     * the number of bytes read, or -1 at the end of the file.
+     */
+    public Future<Integer> read(ByteBuffer dst, long position) {
+        PendingFuture<Integer> future = new PendingFuture<Integer>();
+        read(dst, position, null, future);
+        return future;
+    }
+
+    /**
+     * Reads from the given position in the file into the buffer, and passes
+     * the number of bytes read, or -1 at the end of the file, to the handler.
+     */
+    public <A> void read(final ByteBuffer dst, final long position,
+            final A attachment,
+            final CompletionHandler<Integer, ? super A> handler) {
+        if (dst.isReadOnly() || position < 0) {
+            throw new IllegalArgumentException();
+        }
+        submit(new Runnable() {
+            public void run() {
+                int bytesRead;
+                try {
+                    bytesRead = readAt(dst, position);
+                } catch (Throwable e) {
+                    end();
+                    handler.failed(e, attachment);
+                    return;
+                }
+                end();
+                handler.completed(Integer.valueOf(bytesRead), attachment);
+            }
+        }, attachment, handler);
+    }
+
+    /**
+     * Writes the buffer at the given position in the file, answering the
+     * number of bytes written.
+     */
+    public Future<Integer> write(ByteBuffer src, long position) {
+        PendingFuture<Integer> future = new PendingFuture<Integer>();
+        write(src, position, null, future);
+        return future;
+    }
+
+    /**
+     * Writes the buffer at the given position in the file, and passes the
+     * number of bytes written to the handler.
+     */
+    public <A> void write(final ByteBuffer src, final long position,
+            final A attachment,
+            final CompletionHandler<Integer, ? super A> handler) {
+        if (position < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (!writable) {
+            throw new NonWritableChannelException();
+        }
+        submit(new Runnable() {
+            public void run() {
+                int bytesWritten;
+                try {
+                    bytesWritten = writeAt(src, position);
+                } catch (Throwable e) {
+                    end();
+                    handler.failed(e, attachment);
+                    return;
+                }
+                end();
+                handler.completed(Integer.valueOf(bytesWritten), attachment);
+            }
+        }, attachment, handler);
+    }
+
+    public long size() throws IOException {
+        begin();
+        try {
+            return fileSystem.size(handle);
+        } finally {
+            end();
+        }
+    }
+
+    public AsynchronousFileChannelImpl truncate(long size) throws IOException {
+        begin();
+        try {
+            channel.truncate(size);
+        } finally {
+            end();
+        }
+        return this;
+    }
+
+    public void force(boolean metadata) throws IOException {
+        begin();
+        try {
+            channel.force(metadata);
+        } finally {
+            end();
+        }
+    }
+
+    public boolean isOpen() {
+        synchronized (stateLock) {
+            return !closed;
+        }
+    }
+
+    /**
+     * Closes the channel. Operations still queued fail with an
+     * AsynchronousCloseException, and the file is closed once those running
+     * have finished.
+     */
+    public void close() throws IOException {
+        synchronized (stateLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (active > 0) {
+                return;
+            }
+        }
+        closeFile();
+    }
+
+    private void closeFile() throws IOException {
+        try {
+            file.close();
+        } finally {
+            group.unregister(this);
+        }
+    }
+
+    /*
+     * Queues the operation on the group, failing it straight away if the
+     * channel is closed or the group cannot run it. The operation ends
+     * itself once it has done its I/O; one still queued when the channel
+     * closes is failed instead.
+     */
+    private <A> void submit(final Runnable operation, final A attachment,
+            final CompletionHandler<Integer, ? super A> handler) {
+        try {
+            begin();
+        } catch (ClosedChannelException e) {
+            group.dispatchFailure(handler, e, attachment);
+            return;
+        }
+        try {
+            group.execute(new Runnable() {
+                public void run() {
+                    if (!isOpen()) {
+                        end();
+                        handler.failed(new AsynchronousCloseException(),
+                                attachment);
+                        return;
+                    }
+                    operation.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the group's threads are gone, so the operation will never run
+            end();
+            group.dispatchFailure(handler, new ShutdownChannelGroupException(),
+                    attachment);
+        }
+    }
+
+    private void begin() throws ClosedChannelException {
+        synchronized (stateLock) {
+            if (closed) {
+                throw new ClosedChannelException();
+            }
+            active++;
+        }
+    }
+
+    private void end() {
+        synchronized (stateLock) {
+            if (--active > 0 || !closed) {
+                return;
+            }
+        }
+        try {
+            closeFile();
+        } catch (IOException e) {
+            // the channel is already closed as far as its users are concerned
+        }
+    }
+
+    private int readAt(ByteBuffer dst, long position) throws IOException {
+        if (dst.isDirect()) {
+            long address = ((DirectBuffer) dst).getEffectiveAddress().toLong();
+            int bytesRead = (int) fileSystem.readDirectAt(handle, address, dst
+                    .position(), dst.remaining(), position);
+            if (bytesRead > 0) {
+                dst.position(dst.position() + bytesRead);
+            }
+            return bytesRead;
+        }
+        ByteBuffer buffer = buffer();
+        long address = ((DirectBuffer) buffer).getEffectiveAddress().toLong();
+        int bytesRead = (int) fileSystem.readDirectAt(handle, address, 0, Math
+                .min(dst.remaining(), BUFFER_SIZE), position);
+        if (bytesRead > 0) {
+            buffer.clear().limit(bytesRead);
+            dst.put(buffer);
+        }
+        return bytesRead;
+    }
+
+    private int writeAt(ByteBuffer src, long position) throws IOException {
+        if (src.isDirect()) {
+            long address = ((DirectBuffer) src).getEffectiveAddress().toLong();
+            int bytesWritten = (int) fileSystem.writeDirectAt(handle, address,
+                    src.position(), src.remaining(), position);
+            src.position(src.position() + bytesWritten);
+            return bytesWritten;
+        }
+        ByteBuffer buffer = buffer();
+        int length = Math.min(src.remaining(), BUFFER_SIZE);
+        ByteBuffer source = src.duplicate();
+        source.limit(source.position() + length);
+        buffer.clear();
+        buffer.put(source);
+        long address = ((DirectBuffer) buffer).getEffectiveAddress().toLong();
+        int bytesWritten = (int) fileSystem.writeDirectAt(handle, address, 0,
+                length, position);
+        src.position(src.position() + bytesWritten);
+        return bytesWritten;
+    }
+
+    /*
+     * Answers the calling thread's buffer for moving heap buffers, so that
+     * heap buffers are moved in pieces of at most BUFFER_SIZE.
+     */
+    private static ByteBuffer buffer() {
+        ByteBuffer buffer = buffers.get();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+}
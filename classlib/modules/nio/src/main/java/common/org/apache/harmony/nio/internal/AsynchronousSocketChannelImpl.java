@@ -0,0 +1,536 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.nio.internal;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Future;
+
+import org.apache.harmony.nio.internal.nls.Messages;
+
+/**
+ * An asynchronous channel for a stream socket. Each operation is first tried
+ * on the calling thread; one that cannot complete at once is left to the
+ * event loop of the channel's group, which finishes it when the socket is
+ * ready and hands the result to a pool thread. A channel has at most one
+ * read and one write outstanding.
+ * 
+ * This class is non-API.
+ */
+public class AsynchronousSocketChannelImpl implements Channel {
+
+    /*
+     * An outstanding operation, with the handler to tell of its result.
+     */
+    private static final class Operation<V, A> {
+
+        final ByteBuffer buffer;
+
+        final A attachment;
+
+        final CompletionHandler<V, ? super A> handler;
+
+        Operation(ByteBuffer buffer, A attachment,
+                CompletionHandler<V, ? super A> handler) {
+            this.buffer = buffer;
+            this.attachment = attachment;
+            this.handler = handler;
+        }
+    }
+
+    private final AsynchronousChannelGroupImpl group;
+
+    private final SocketChannel channel;
+
+    private static class StateLock {}
+    private final Object stateLock = new StateLock();
+
+    // The following fields are guarded by stateLock
+    private boolean closed;
+
+    private boolean reading;
+
+    private boolean writing;
+
+    private Operation<Integer, ?> readOperation;
+
+    private Operation<Integer, ?> writeOperation;
+
+    private Operation<Void, ?> connectOperation;
+
+    // The key on the group's selector, used only by the event loop
+    private SelectionKey key;
+
+    private AsynchronousSocketChannelImpl(SocketChannel channel,
+            AsynchronousChannelGroupImpl group) throws IOException {
+        this.channel = channel;
+        this.group = group;
+        channel.configureBlocking(false);
+        group.register(this);
+    }
+
+    /**
+     * Opens an unconnected socket in the given group.
+     * 
+     * @param group
+     *            the group, or null for the default group
+     */
+    public static AsynchronousSocketChannelImpl open(
+            AsynchronousChannelGroupImpl group) throws IOException {
+        return open(SocketChannel.open(), group);
+    }
+
+    /**
+     * Answers an asynchronous channel for the given socket, such as one
+     * accepted by a server socket channel. The socket is made non-blocking
+     * and must be used only through the answered channel from then on.
+     * 
+     * @param group
+     *            the group, or null for the default group
+     */
+    public static AsynchronousSocketChannelImpl open(SocketChannel channel,
+            AsynchronousChannelGroupImpl group) throws IOException {
+        if (group == null) {
+            group = AsynchronousChannelGroupImpl.getDefault();
+        }
+        try {
+            return new AsynchronousSocketChannelImpl(channel, group);
+        } catch (IllegalStateException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Answers the socket, for binding and for setting options.
+     */
+    public Socket socket() {
+        return channel.socket();
+    }
+
+    public boolean isConnected() {
+        return channel.isConnected();
+    }
+
+    /**
+     * Connects the socket to the given address.
+     */
+    public Future<Void> connect(SocketAddress remote) {
+        PendingFuture<Void> future = new PendingFuture<Void>();
+        connect(remote, null, future);
+        return future;
+    }
+
+    /**
+     * Connects the socket to the given address, and tells the handler once
+     * the connection is made.
+     */
+    public <A> void connect(SocketAddress remote, A attachment,
+            CompletionHandler<Void, ? super A> handler) {
+        boolean connected;
+        try {
+            connected = channel.connect(remote);
+        } catch (IOException e) {
+            group.dispatchFailure(handler, e, attachment);
+            return;
+        }
+        if (connected) {
+            group.dispatch(handler, null, attachment);
+            return;
+        }
+        boolean queued = false;
+        synchronized (stateLock) {
+            if (!closed) {
+                connectOperation = new Operation<Void, A>(null, attachment,
+                        handler);
+                queued = true;
+            }
+        }
+        update(queued, attachment, handler);
+    }
+
+    /**
+     * Reads from the socket into the buffer, answering the number of bytes
+     * read, or -1 at the end of the stream.
+     */
+    public Future<Integer> read(ByteBuffer dst) {
+        PendingFuture<Integer> future = new PendingFuture<Integer>();
+        read(dst, null, future);
+        return future;
+    }
+
+    /**
+     * Reads from the socket into the buffer, and passes the number of bytes
+     * read, or -1 at the end of the stream, to the handler.
+     * 
+     * @throws IllegalStateException
+     *             if a read is already outstanding
+     */
+    public <A> void read(ByteBuffer dst, A attachment,
+            CompletionHandler<Integer, ? super A> handler) {
+        if (dst.isReadOnly()) {
+            throw new IllegalArgumentException();
+        }
+        synchronized (stateLock) {
+            if (reading) {
+                throw new IllegalStateException(Messages.getString("nio.11")); //$NON-NLS-1$
+            }
+            reading = true;
+        }
+        int bytesRead;
+        try {
+            bytesRead = dst.hasRemaining() ? channel.read(dst) : 0;
+        } catch (IOException e) {
+            endRead();
+            group.dispatchFailure(handler, e, attachment);
+            return;
+        } catch (RuntimeException e) {
+            // such as NotYetConnectedException, thrown to the caller
+            endRead();
+            throw e;
+        }
+        if (bytesRead != 0 || !dst.hasRemaining()) {
+            endRead();
+            group.dispatch(handler, Integer.valueOf(bytesRead), attachment);
+            return;
+        }
+        boolean queued = false;
+        synchronized (stateLock) {
+            if (!closed) {
+                readOperation = new Operation<Integer, A>(dst, attachment,
+                        handler);
+                queued = true;
+            }
+        }
+        if (!queued) {
+            endRead();
+        }
+        update(queued, attachment, handler);
+    }
+
+    /**
+     * Writes the buffer to the socket, answering the number of bytes
+     * written.
+     */
+    public Future<Integer> write(ByteBuffer src) {
+        PendingFuture<Integer> future = new PendingFuture<Integer>();
+        write(src, null, future);
+        return future;
+    }
+
+    /**
+     * Writes the buffer to the socket, and passes the number of bytes
+     * written to the handler once at least one byte is written.
+     * 
+     * @throws IllegalStateException
+     *             if a write is already outstanding
+     */
+    public <A> void write(ByteBuffer src, A attachment,
+            CompletionHandler<Integer, ? super A> handler) {
+        synchronized (stateLock) {
+            if (writing) {
+                throw new IllegalStateException(Messages.getString("nio.12")); //$NON-NLS-1$
+            }
+            writing = true;
+        }
+        int bytesWritten;
+        try {
+            bytesWritten = src.hasRemaining() ? channel.write(src) : 0;
+        } catch (IOException e) {
+            endWrite();
+            group.dispatchFailure(handler, e, attachment);
+            return;
+        } catch (RuntimeException e) {
+            // such as NotYetConnectedException, thrown to the caller
+            endWrite();
+            throw e;
+        }
+        if (bytesWritten != 0 || !src.hasRemaining()) {
+            endWrite();
+            group.dispatch(handler, Integer.valueOf(bytesWritten), attachment);
+            return;
+        }
+        boolean queued = false;
+        synchronized (stateLock) {
+            if (!closed) {
+                writeOperation = new Operation<Integer, A>(src, attachment,
+                        handler);
+                queued = true;
+            }
+        }
+        if (!queued) {
+            endWrite();
+        }
+        update(queued, attachment, handler);
+    }
+
+    public boolean isOpen() {
+        synchronized (stateLock) {
+            return !closed;
+        }
+    }
+
+    /**
+     * Closes the socket, failing its outstanding operations with an
+     * AsynchronousCloseException.
+     */
+    public void close() throws IOException {
+        Operation<Integer, ?> read;
+        Operation<Integer, ?> write;
+        Operation<Void, ?> connect;
+        synchronized (stateLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            read = readOperation;
+            write = writeOperation;
+            connect = connectOperation;
+            readOperation = null;
+            writeOperation = null;
+            connectOperation = null;
+            reading = false;
+            writing = false;
+        }
+        try {
+            channel.close();
+        } finally {
+            group.unregister(this);
+            fail(read, new AsynchronousCloseException());
+            fail(write, new AsynchronousCloseException());
+            fail(connect, new AsynchronousCloseException());
+        }
+    }
+
+    private void endRead() {
+        synchronized (stateLock) {
+            reading = false;
+        }
+    }
+
+    private void endWrite() {
+        synchronized (stateLock) {
+            writing = false;
+        }
+    }
+
+    /*
+     * Hands a queued operation to the event loop, or fails it if the channel
+     * closed before it could be queued.
+     */
+    private <A> void update(boolean queued, A attachment,
+            CompletionHandler<?, ? super A> handler) {
+        if (!queued) {
+            group.dispatchFailure(handler, new AsynchronousCloseException(),
+                    attachment);
+            return;
+        }
+        try {
+            group.update(this);
+        } catch (IOException e) {
+            // the event loop cannot start, so nothing will finish the operation
+            try {
+                close();
+            } catch (IOException ignored) {
+                // ignore
+            }
+        }
+    }
+
+    /*
+     * Registers the socket with the event loop's selector, or updates its
+     * interest set. Called only on the event loop.
+     */
+    void updateInterest(Selector selector) {
+        int ops;
+        synchronized (stateLock) {
+            if (closed) {
+                return;
+            }
+            ops = interestOps();
+        }
+        try {
+            if (key == null) {
+                key = channel.register(selector, ops, this);
+            } else {
+                key.interestOps(ops);
+            }
+        } catch (ClosedChannelException e) {
+            // closed by another thread, which fails the operations
+        } catch (RuntimeException e) {
+            // the key was cancelled when the socket was closed
+        }
+    }
+
+    // must be called with stateLock held
+    private int interestOps() {
+        int ops = 0;
+        if (readOperation != null) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (writeOperation != null) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        if (connectOperation != null) {
+            ops |= SelectionKey.OP_CONNECT;
+        }
+        return ops;
+    }
+
+    /*
+     * Carries on the outstanding operations that the socket is ready for.
+     * Called only on the event loop.
+     */
+    void ready(int readyOps) {
+        if ((readyOps & SelectionKey.OP_CONNECT) != 0) {
+            finishConnect();
+        }
+        if ((readyOps & SelectionKey.OP_READ) != 0) {
+            finishRead();
+        }
+        if ((readyOps & SelectionKey.OP_WRITE) != 0) {
+            finishWrite();
+        }
+        updateInterest(key.selector());
+    }
+
+    private void finishConnect() {
+        Operation<Void, ?> connect;
+        synchronized (stateLock) {
+            connect = connectOperation;
+        }
+        if (connect == null) {
+            return;
+        }
+        try {
+            if (!channel.finishConnect()) {
+                return;
+            }
+        } catch (IOException e) {
+            if (takeConnect(connect)) {
+                fail(connect, e);
+            }
+            return;
+        }
+        if (takeConnect(connect)) {
+            complete(connect, null);
+        }
+    }
+
+    private void finishRead() {
+        Operation<Integer, ?> read;
+        synchronized (stateLock) {
+            read = readOperation;
+        }
+        if (read == null) {
+            return;
+        }
+        int bytesRead;
+        try {
+            bytesRead = channel.read(read.buffer);
+        } catch (Exception e) {
+            // unchecked exceptions fail the operation too, rather than
+            // leaving it outstanding and ending the event loop
+            if (takeRead(read)) {
+                fail(read, e);
+            }
+            return;
+        }
+        if (bytesRead != 0 && takeRead(read)) {
+            complete(read, Integer.valueOf(bytesRead));
+        }
+    }
+
+    private void finishWrite() {
+        Operation<Integer, ?> write;
+        synchronized (stateLock) {
+            write = writeOperation;
+        }
+        if (write == null) {
+            return;
+        }
+        int bytesWritten;
+        try {
+            bytesWritten = channel.write(write.buffer);
+        } catch (Exception e) {
+            // unchecked exceptions fail the operation too, rather than
+            // leaving it outstanding and ending the event loop
+            if (takeWrite(write)) {
+                fail(write, e);
+            }
+            return;
+        }
+        if (bytesWritten != 0 && takeWrite(write)) {
+            complete(write, Integer.valueOf(bytesWritten));
+        }
+    }
+
+    /*
+     * The take methods clear an operation that is still outstanding,
+     * answering false if closing the channel has already failed it.
+     */
+    private boolean takeConnect(Operation<Void, ?> connect) {
+        synchronized (stateLock) {
+            if (connectOperation != connect) {
+                return false;
+            }
+            connectOperation = null;
+            return true;
+        }
+    }
+
+    private boolean takeRead(Operation<Integer, ?> read) {
+        synchronized (stateLock) {
+            if (readOperation != read) {
+                return false;
+            }
+            readOperation = null;
+            reading = false;
+            return true;
+        }
+    }
+
+    private boolean takeWrite(Operation<Integer, ?> write) {
+        synchronized (stateLock) {
+            if (writeOperation != write) {
+                return false;
+            }
+            writeOperation = null;
+            writing = false;
+            return true;
+        }
+    }
+
+    private <V, A> void complete(Operation<V, A> operation, V result) {
+        group.dispatch(operation.handler, result, operation.attachment);
+    }
+
+    private <A> void fail(Operation<?, A> operation, Throwable exc) {
+        if (operation != null) {
+            group.dispatchFailure(operation.handler, exc, operation.attachment);
+        }
+    }
+}
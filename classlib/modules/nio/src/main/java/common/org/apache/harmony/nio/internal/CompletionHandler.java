@@ -0,0 +1,43 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.nio.internal;
+
+/**
+ * A handler for the result of an asynchronous I/O operation. The handler is
+ * invoked on one of the threads of the channel group that owns the channel.
+ * 
+ * This interface is non-API, but has the shape of the CompletionHandler of
+ * later Java releases so that callers can move to it unchanged.
+ * 
+ * @param <V>
+ *            the type of the operation's result
+ * @param <A>
+ *            the type of the object attached to the operation
+ */
+public interface CompletionHandler<V, A> {
+
+    /**
+     * Invoked when the operation completes.
+     */
+    void completed(V result, A attachment);
+
+    /**
+     * Invoked when the operation fails.
+     */
+    void failed(Throwable exc, A attachment);
+}
@@ -25,6 +25,7 @@ import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.nio.channels.NonReadableChannelException;
 import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
@@ -58,6 +59,10 @@ public abstract class FileChannelImpl extends FileChannel {
 
     }
 
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> transferBuffers = new ThreadLocal<ByteBuffer>();
+
     // Handle to the open file
     private final long handle;
 
@@ -386,30 +391,41 @@ public abstract class FileChannelImpl extends FileChannel {
             return 0;
         }
 
-        ByteBuffer buffer = null;
-
-        try {
-            if (src instanceof FileChannel) {
-                FileChannel fileSrc = (FileChannel) src;
-                long size = fileSrc.size();
+        if (src instanceof FileChannelImpl) {
+            FileChannelImpl fileSrc = (FileChannelImpl) src;
+            if (fileSrc instanceof WriteOnlyFileChannel) {
+                throw new NonReadableChannelException();
+            }
+            synchronized (fileSrc.repositioningLock) {
                 long filePosition = fileSrc.position();
-                count = Math.min(count, size - filePosition);
-                buffer = fileSrc.map(MapMode.READ_ONLY, filePosition, count);
-                fileSrc.position(filePosition + count);
-            } else {
-                buffer = ByteBuffer.allocateDirect((int) count);
-                src.read(buffer);
-                buffer.flip();
+                count = Math.min(count, fileSrc.size() - filePosition);
+                if (count <= 0) {
+                    return 0;
+                }
+                long transferred = kernelTransfer(fileSrc, filePosition, this,
+                        position, count);
+                if (transferred >= 0) {
+                    fileSrc.position(filePosition + transferred);
+                    return transferred;
+                }
             }
-            return write(buffer, position);
-        } finally {
-            // unmap the buffer
-            if (buffer != null) {
-                // all children of FileChannelImpl currently returns
-                // an instance of DirectBuffer from map() method
-                ((DirectBuffer) buffer).free();
+        }
+
+        // copy through a buffer
+        ByteBuffer buffer = transferBuffer();
+        long transferred = 0;
+        while (transferred < count) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), count - transferred));
+            if (src.read(buffer) <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                transferred += write(buffer, position + transferred);
             }
         }
+        return transferred;
     }
 
     public long transferTo(long position, long count, WritableByteChannel target)
@@ -428,7 +444,6 @@ public abstract class FileChannelImpl extends FileChannel {
         if (count == 0 || position >= size()) {
             return 0;
         }
-        ByteBuffer buffer = null;
         count = Math.min(count, size() - position);
         if (target instanceof SocketChannelImpl) {
             // only socket can be transfered by system call
@@ -436,17 +451,35 @@ public abstract class FileChannelImpl extends FileChannel {
                     position, count);
         }
 
-        try {
-            buffer = map(MapMode.READ_ONLY, position, count);
-            return target.write(buffer);
-        } finally {
-            // unmap the buffer
-            if (buffer != null) {
-                // all children of FileChannelImpl currently returns
-                // an instance of DirectBuffer from map() method
-                ((DirectBuffer) buffer).free();
+        if (target instanceof FileChannelImpl) {
+            FileChannelImpl fileTarget = (FileChannelImpl) target;
+            synchronized (fileTarget.repositioningLock) {
+                long targetPosition = fileTarget.position();
+                long transferred = kernelTransfer(this, position, fileTarget,
+                        targetPosition, count);
+                if (transferred >= 0) {
+                    fileTarget.position(targetPosition + transferred);
+                    return transferred;
+                }
             }
         }
+
+        // copy through a buffer, stopping once the target takes no more
+        ByteBuffer buffer = transferBuffer();
+        long transferred = 0;
+        while (transferred < count) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), count - transferred));
+            if (read(buffer, position + transferred) <= 0) {
+                break;
+            }
+            buffer.flip();
+            transferred += target.write(buffer);
+            if (buffer.hasRemaining()) {
+                break;
+            }
+        }
+        return transferred;
     }
 
     private long kernelTransfer(long l, FileDescriptor fd, long position,
@@ -462,6 +495,39 @@ public abstract class FileChannelImpl extends FileChannel {
         }
     }
 
+    /*
+     * Copies between two files within the kernel, answering -1 if the
+     * platform cannot.
+     */
+    private long kernelTransfer(FileChannelImpl src, long srcPosition,
+            FileChannelImpl dst, long dstPosition, long count)
+            throws IOException {
+        boolean completed = false;
+        try {
+            begin();
+            long ret = fileSystem.transferFile(src.handle, srcPosition,
+                    dst.handle, dstPosition, count);
+            completed = true;
+            return ret;
+        } finally {
+            end(completed);
+        }
+    }
+
+    /*
+     * Answers the calling thread's buffer for transfers the kernel cannot
+     * make, so that transfers neither map the file nor allocate a buffer of
+     * the transfer's size.
+     */
+    private static ByteBuffer transferBuffer() {
+        ByteBuffer buffer = transferBuffers.get();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(TRANSFER_BUFFER_SIZE);
+            transferBuffers.set(buffer);
+        }
+        return buffer;
+    }
+
     public FileChannel truncate(long size) throws IOException {
         openCheck();
         if (size < 0) {
@@ -0,0 +1,111 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.nio.internal;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * The future answered by the asynchronous channel operations that take no
+ * completion handler; the operation completes it as it would a handler.
+ * Cancelling the future does not stop the operation, whose result is then
+ * discarded.
+ */
+final class PendingFuture<V> implements Future<V>, CompletionHandler<V, Object> {
+
+    private static final int PENDING = 0;
+
+    private static final int COMPLETED = 1;
+
+    private static final int FAILED = 2;
+
+    private static final int CANCELLED = 3;
+
+    private int state = PENDING;
+
+    private V result;
+
+    private Throwable exception;
+
+    public synchronized void completed(V value, Object attachment) {
+        if (state == PENDING) {
+            result = value;
+            state = COMPLETED;
+            notifyAll();
+        }
+    }
+
+    public synchronized void failed(Throwable exc, Object attachment) {
+        if (state == PENDING) {
+            exception = exc;
+            state = FAILED;
+            notifyAll();
+        }
+    }
+
+    public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+        if (state != PENDING) {
+            return false;
+        }
+        state = CANCELLED;
+        notifyAll();
+        return true;
+    }
+
+    public synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    public synchronized boolean isDone() {
+        return state != PENDING;
+    }
+
+    public synchronized V get() throws InterruptedException,
+            ExecutionException {
+        while (state == PENDING) {
+            wait();
+        }
+        return result();
+    }
+
+    public synchronized V get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (state == PENDING) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return result();
+    }
+
+    private V result() throws ExecutionException {
+        if (state == CANCELLED) {
+            throw new CancellationException();
+        }
+        if (state == FAILED) {
+            throw new ExecutionException(exception);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.nio.internal;
+
+/**
+ * Thrown, or passed to a completion handler, when an operation is started on
+ * a channel whose group can no longer run it.
+ * 
+ * This class is non-API, but has the shape of the
+ * ShutdownChannelGroupException of later Java releases so that callers can
+ * move to it unchanged.
+ */
+public class ShutdownChannelGroupException extends IllegalStateException {
+
+    private static final long serialVersionUID = -3903801676350154157L;
+
+    /**
+     * Constructs a {@code ShutdownChannelGroupException}.
+     */
+    public ShutdownChannelGroupException() {
+        super();
+    }
+}
@@ -24,19 +24,23 @@ import java.nio.channels.spi.AbstractSelectableChannel;
 import java.nio.channels.spi.AbstractSelectionKey;
 
 /*
- * Default implementation of SelectionKey
+ * Implementation of SelectionKey for EpollSelectorImpl
  */
 final class EpollSelectionKeyImpl extends AbstractSelectionKey {
 
     private AbstractSelectableChannel channel;
 
-    private int interestOps;
+    private volatile int interestOps;
 
     private int readyOps;
 
     private EpollSelectorImpl selector;
 
-    private int index;
+    // the channel's file descriptor, and the epoll events it is currently
+    // registered for with the kernel, guarded by the selector's keysLock
+    private int fd = -1;
+
+    private int events;
 
     static int stHash;
 
@@ -75,9 +79,7 @@ final class EpollSelectionKeyImpl extends AbstractSelectionKey {
 
     public int interestOps() {
         checkValid();
-        synchronized (selector.keysLock) {
-            return interestOps;
-        }
+        return interestOps;
     }
 
     public SelectionKey interestOps(int operations) {
@@ -87,7 +89,7 @@ final class EpollSelectionKeyImpl extends AbstractSelectionKey {
         }
         synchronized (selector.keysLock) {
             interestOps = operations;
-            selector.modKey(this);
+            selector.updateKey(this);
         }
         return this;
     }
@@ -108,12 +110,28 @@ final class EpollSelectionKeyImpl extends AbstractSelectionKey {
         this.readyOps = readyOps;
     }
 
-    int getIndex() {
-        return index;
+    /*
+     * package private method for reading the interest ops without checking
+     * that the key is valid
+     */
+    int getInterestOps() {
+        return interestOps;
+    }
+
+    int getFD() {
+        return fd;
+    }
+
+    void setFD(int fd) {
+        this.fd = fd;
+    }
+
+    int getEvents() {
+        return events;
     }
 
-    void setIndex(int index) {
-        this.index = index;
+    void setEvents(int events) {
+        this.events = events;
     }
 
     private void checkValid() {
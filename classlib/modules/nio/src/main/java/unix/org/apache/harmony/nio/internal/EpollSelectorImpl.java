@@ -4,9 +4,9 @@
  * The ASF licenses this file to You under the Apache License, Version 2.0
  * (the "License"); you may not use this file except in compliance with
  * the License.  You may obtain a copy of the License at
- * 
+ *
  *     http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing, software
  * distributed under the License is distributed on an "AS IS" BASIS,
  * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
@@ -17,37 +17,39 @@ package org.apache.harmony.nio.internal;
 
 import java.io.FileDescriptor;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.IllegalSelectorException;
-import java.nio.channels.Pipe;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
-import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.AbstractSelectableChannel;
 import java.nio.channels.spi.AbstractSelectionKey;
 import java.nio.channels.spi.AbstractSelector;
 import java.nio.channels.spi.SelectorProvider;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.harmony.luni.platform.FileDescriptorHandler;
 
 /*
- * Default implementation of java.nio.channels.Selector
- * 
+ * Implementation of java.nio.channels.Selector on top of the Linux epoll
+ * facility.
+ *
+ * The kernel interest set is kept up to date incrementally: a channel's file
+ * descriptor is added when it is registered, modified only when the epoll
+ * events derived from the key's interest ops change, and removed when the
+ * key is cancelled. A selection therefore costs time proportional to the
+ * number of ready channels rather than to the number of registered ones.
+ * Ready descriptors are mapped back to their keys through a table indexed by
+ * descriptor. wakeup() signals an eventfd (or a pipe on kernels without one)
+ * that is itself part of the interest set.
  */
 final class EpollSelectorImpl extends AbstractSelector {
 
-    private static final int MOCK_WRITEBUF_SIZE = 1;
-
-    private static final int MOCK_READBUF_SIZE = 8;
-
     private static final int NA = 0;
 
     private static final int READABLE = 1;
@@ -58,44 +60,49 @@ final class EpollSelectorImpl extends AbstractSelector {
 
     private static final int SELECT_NOW = 0;
 
-    // keysLock is used to brief synchronization when get selectionKeys snapshot
-    // before selection
-    final Object keysLock = new Object();
+    private static final int MIN_READY_EVENTS = 64;
 
-    boolean keySetChanged = true;
+    private static final int MAX_READY_EVENTS = 8192;
 
-    private SelectionKey[] keys = new SelectionKey[1];
+    // keysLock guards the kernel interest set and the descriptor table, which
+    // are updated by interestOps() without holding the selection locks
+    final Object keysLock = new Object();
 
     private final Set<SelectionKey> keysSet = new HashSet<SelectionKey>();
 
-    private Set<SelectionKey> unmodifiableKeys = Collections
+    private final Set<SelectionKey> unmodifiableKeys = Collections
             .unmodifiableSet(keysSet);
 
     private final Set<SelectionKey> selectedKeys = new HashSet<SelectionKey>();
 
-    private Set<SelectionKey> unaddableSelectedKeys = new UnaddableSet<SelectionKey>(
+    private final Set<SelectionKey> unaddableSelectedKeys = new UnaddableSet<SelectionKey>(
             selectedKeys);
 
-    // sink and source are used by wakeup()
-    private Pipe.SinkChannel sink;
+    // the registered keys indexed by file descriptor
+    private EpollSelectionKeyImpl[] fdKeys = new EpollSelectionKeyImpl[MIN_READY_EVENTS];
 
-    private Pipe.SourceChannel source;
+    private int[] readyFDs = new int[MIN_READY_EVENTS];
 
-    private FileDescriptor sourcefd;
+    private int[] readyOps = new int[MIN_READY_EVENTS];
 
-    private int[] keyFDs;
+    private final long epollFD;
 
-    private int[] readyFDs;
+    // the descriptors read and written by wakeup(), the same one for an
+    // eventfd
+    private final int wakeupReadFD;
 
-    private int[] readyOps;
+    private final int wakeupWriteFD;
 
-    private int keysCount = 0;
+    // set by wakeup() until the selecting thread has drained the descriptor,
+    // so that repeated wakeups signal it only once
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
 
-    private long epollFD;
+    // guards the wakeup descriptors against being written once closed
+    private final Object wakeupLock = new Object();
 
-    private int countReady;
+    private boolean wakeupClosed;
 
-    public Class fileDescriptorClass;
+    private Class fileDescriptorClass;
 
     static native int resolveFD(Class cfd, FileDescriptor ofd);
 
@@ -103,175 +110,167 @@ final class EpollSelectorImpl extends AbstractSelector {
 
     static native long addFileDescriptor(long epollFD, int mode, int fd);
 
+    static native long modifyFileDescriptor(long epollFD, int mode, int fd);
+
     static native long delFileDescriptor(long epollFD, long fd);
 
     static native int epoll(long epollFD, int count, int[] FDs, int[] ops,
             long timeout);
 
-    private InternalKeyMap<EpollSelectionKeyImpl> quickMap = new InternalKeyMap<EpollSelectionKeyImpl>();
-
-    public EpollSelectorImpl(SelectorProvider selectorProvider) {
-        super(selectorProvider);
-        try {
-            Pipe mockSelector = selectorProvider.openPipe();
-            sink = mockSelector.sink();
-            source = mockSelector.source();
-            sourcefd = ((FileDescriptorHandler) source).getFD();
-            source.configureBlocking(false);
-
-            fileDescriptorClass = sourcefd.getClass();
-
-            keyFDs = new int[1];
-            readyFDs = new int[1];
-            readyOps = new int[1];
+    static native long openWakeup();
 
-            // register sink channel
-            keyFDs[0] = resolveFD(fileDescriptorClass, sourcefd);
-            keys[0] = source.keyFor(this);
-            epollFD = prepare();
+    static native void signalWakeup(int fd);
 
-            keysCount = 1;
+    static native void drainWakeup(int fd);
 
-            quickMap.put(keyFDs[0], (EpollSelectionKeyImpl) keys[0]);
-            addFileDescriptor(epollFD, 1, keyFDs[0]);
+    static native void closeFileDescriptor(long fd);
 
-        } catch (IOException e) {
-            // do nothing
-        }
+    public EpollSelectorImpl(SelectorProvider selectorProvider)
+            throws IOException {
+        super(selectorProvider);
+        epollFD = prepare();
+        if (epollFD < 0) {
+            throw new IOException();
+        }
+        long wakeupFDs = openWakeup();
+        if (wakeupFDs < 0) {
+            closeFileDescriptor(epollFD);
+            throw new IOException();
+        }
+        wakeupReadFD = (int) wakeupFDs;
+        wakeupWriteFD = (int) (wakeupFDs >>> 32);
+        addFileDescriptor(epollFD, READABLE, wakeupReadFD);
     }
 
     /*
      * @see java.nio.channels.spi.AbstractSelector#implCloseSelector()
      */
     protected void implCloseSelector() throws IOException {
+        wakeup();
         synchronized (this) {
             synchronized (keysSet) {
                 synchronized (selectedKeys) {
                     doCancel();
-                    for (int c = 0; c < keysCount; c++) {
-                        if (keys[c] != null) {
-                            deregister((AbstractSelectionKey) keys[c]);
+                    for (SelectionKey key : keysSet) {
+                        deregister((AbstractSelectionKey) key);
+                    }
+                    keysSet.clear();
+                    selectedKeys.clear();
+                    synchronized (keysLock) {
+                        fdKeys = new EpollSelectionKeyImpl[0];
+                    }
+                    synchronized (wakeupLock) {
+                        wakeupClosed = true;
+                        closeFileDescriptor(wakeupReadFD);
+                        if (wakeupWriteFD != wakeupReadFD) {
+                            closeFileDescriptor(wakeupWriteFD);
                         }
                     }
-                    wakeup();
+                    closeFileDescriptor(epollFD);
                 }
             }
         }
     }
 
-    private void ensureCapacity(int c) {
-        // TODO: rewrite array handling as some internal class
-        if (c >= keys.length) {
-            SelectionKey[] t = new SelectionKey[(keys.length + 1) << 1];
-            System.arraycopy(keys, 0, t, 0, keys.length);
-            keys = t;
-        }
-
-        if (c >= readyFDs.length) {
-            int[] t = new int[(readyFDs.length + 1) << 1];
-            System.arraycopy(readyFDs, 0, t, 0, readyFDs.length);
-            readyFDs = t;
-        }
-
-        if (c >= keyFDs.length) {
-            int[] t = new int[(keyFDs.length + 1) << 1];
-            System.arraycopy(keyFDs, 0, t, 0, keyFDs.length);
-            keyFDs = t;
+    /*
+     * Answers the epoll events corresponding to the given interest ops.
+     */
+    private static int epollEvents(int ops) {
+        int events = NA;
+        if (((SelectionKey.OP_READ | SelectionKey.OP_ACCEPT) & ops) != 0) {
+            events |= READABLE;
         }
-
-        if (c >= readyOps.length) {
-            int[] t = new int[(readyOps.length + 1) << 1];
-            System.arraycopy(readyOps, 0, t, 0, readyOps.length);
-            readyOps = t;
+        if (((SelectionKey.OP_WRITE | SelectionKey.OP_CONNECT) & ops) != 0) {
+            events |= WRITABLE;
         }
-    }
-
-    private void limitCapacity() {
-        // TODO: implement array squeezing
+        return events;
     }
 
     /**
-     * Adds the specified key to storage and updates the indexes accordingly
-     * 
-     * @param sk
+     * Adds the key to the descriptor table and to the kernel interest set.
+     *
+     * @param key
      *            key to add
-     * @return index in the storage
      */
-    private int addKey(SelectionKey sk) {
-
-        // make sure that enough space is available
-        ensureCapacity(keysCount);
-
-        // get channel params
-        int ops = sk.interestOps();
-        int fd = resolveFD(fileDescriptorClass, ((FileDescriptorHandler) sk
-                .channel()).getFD());
-
-        int eops = 0;
-        if (((SelectionKey.OP_READ | SelectionKey.OP_ACCEPT) & ops) != 0) {
-            eops = eops + READABLE;
-        }
-        ;
-        if (((SelectionKey.OP_WRITE | SelectionKey.OP_CONNECT) & ops) != 0) {
-            eops = eops + WRITABLE;
+    private void addKey(EpollSelectionKeyImpl key) {
+        int fd = resolveFD(fileDescriptorClass(key.channel()),
+                ((FileDescriptorHandler) key.channel()).getFD());
+        key.setFD(fd);
+        synchronized (keysLock) {
+            if (fd >= fdKeys.length) {
+                int length = fdKeys.length << 1;
+                while (fd >= length) {
+                    length <<= 1;
+                }
+                EpollSelectionKeyImpl[] t = new EpollSelectionKeyImpl[length];
+                System.arraycopy(fdKeys, 0, t, 0, fdKeys.length);
+                fdKeys = t;
+            }
+            // a key whose channel was closed but whose cancellation is not
+            // processed yet may still own this descriptor; the new key
+            // supersedes it
+            fdKeys[fd] = key;
+            updateKey(key);
         }
-        ;
-
-        keys[keysCount] = sk;
-        keyFDs[keysCount] = fd;
-
-        quickMap.put(fd, (EpollSelectionKeyImpl) sk);
-        addFileDescriptor(epollFD, eops, fd);
-
-        return keysCount++;
     }
 
     /**
-     * Deletes the key from the internal storage and updates the indexes
-     * accordingly
-     * 
-     * @param sk
+     * Removes the key from the descriptor table and from the kernel interest
+     * set, unless its descriptor has already been reused by another key.
+     *
+     * @param key
      *            key to delete
      */
-    private void delKey(SelectionKey sk) {
-
-        // get the key index in the internal storage
-        int index = ((EpollSelectionKeyImpl) sk).getIndex();
-
-        // deregister FD in native
-        delFileDescriptor(epollFD, keyFDs[index]);
-
-        if (quickMap.remove(keyFDs[index]) == null) {
-            throw new RuntimeException();
-        }
-        // key is null now
-        keys[index] = null;
-
-        // key compaction to ensure lack of holes
-        // we can simply exchange latest and current keys
-        if (keys[keysCount - 1] != null) {
-            keys[index] = keys[keysCount - 1];
-            keys[keysCount - 1] = null;
-
-            keyFDs[index] = keyFDs[keysCount - 1];
-            keyFDs[keysCount - 1] = -1;
-
-            // update key index
-            ((EpollSelectionKeyImpl) keys[index]).setIndex(index);
+    private void delKey(EpollSelectionKeyImpl key) {
+        synchronized (keysLock) {
+            int fd = key.getFD();
+            if (fd >= 0 && fd < fdKeys.length && fdKeys[fd] == key) {
+                fdKeys[fd] = null;
+                if (key.getEvents() != NA) {
+                    delFileDescriptor(epollFD, fd);
+                }
+            }
+            key.setEvents(NA);
         }
-        keysCount--;
     }
 
     /**
-     * 
-     * @param sk
+     * Brings the kernel interest set in line with the key's interest ops,
+     * calling into the kernel only if the epoll events actually change. The
+     * caller must hold keysLock.
+     *
+     * @param key
+     *            key whose interest ops are set
      */
-    void modKey(SelectionKey sk) {
-        // TODO: update indexes rather than recreate the key
-        synchronized (keysSet) {
-            delKey(sk);
-            addKey(sk);
+    void updateKey(EpollSelectionKeyImpl key) {
+        int fd = key.getFD();
+        if (fd < 0 || fd >= fdKeys.length || fdKeys[fd] != key) {
+            // not registered yet, or already deregistered
+            return;
+        }
+        int events = epollEvents(key.getInterestOps());
+        int registered = key.getEvents();
+        if (events == registered) {
+            return;
+        }
+        if (events == NA) {
+            // the kernel reports hang-ups whatever the events, so a key
+            // without interest ops is left out of the interest set
+            delFileDescriptor(epollFD, fd);
+        } else if (registered == NA) {
+            addFileDescriptor(epollFD, events, fd);
+        } else {
+            modifyFileDescriptor(epollFD, events, fd);
         }
+        key.setEvents(events);
+    }
+
+    private Class fileDescriptorClass(SelectableChannel channel) {
+        if (fileDescriptorClass == null) {
+            fileDescriptorClass = ((FileDescriptorHandler) channel).getFD()
+                    .getClass();
+        }
+        return fileDescriptorClass;
     }
 
     /*
@@ -285,17 +284,10 @@ final class EpollSelectorImpl extends AbstractSelector {
         }
         synchronized (this) {
             synchronized (keysSet) {
-
-                // System.out.println("Registering channel");
-                // create the key
-                SelectionKey sk = new EpollSelectionKeyImpl(channel,
+                EpollSelectionKeyImpl sk = new EpollSelectionKeyImpl(channel,
                         operations, attachment, this);
-
-                int index = addKey(sk);
-                ((EpollSelectionKeyImpl) sk).setIndex(index);
-
-                // System.out.println(" channel registered with index = " +
-                // index);
+                addKey(sk);
+                keysSet.add(sk);
                 return sk;
             }
         }
@@ -304,20 +296,8 @@ final class EpollSelectorImpl extends AbstractSelector {
     /*
      * @see java.nio.channels.Selector#keys()
      */
-    public synchronized Set<SelectionKey> keys() {
+    public Set<SelectionKey> keys() {
         closeCheck();
-
-        keysSet.clear();
-
-        if (keys.length != keysCount) {
-            SelectionKey[] chompedKeys = new SelectionKey[keysCount];
-            System.arraycopy(keys, 0, chompedKeys, 0, keysCount);
-            keysSet.addAll(Arrays.asList(chompedKeys));
-        } else {
-            keysSet.addAll(Arrays.asList(keys));
-        }
-
-        keysSet.remove(source.keyFor(this));
         return unmodifiableKeys;
     }
 
@@ -357,74 +337,51 @@ final class EpollSelectorImpl extends AbstractSelector {
             synchronized (keysSet) {
                 synchronized (selectedKeys) {
                     doCancel();
+                    int countReady;
                     boolean isBlock = (SELECT_NOW != timeout);
                     try {
                         if (isBlock) {
                             begin();
                         }
-                        // System.out.println("calling native epoll(): keysCount
-                        // = " + keysCount + ", readyFDs.length = " +
-                        // readyFDs.length + ", readyOps.length = " +
-                        // readyOps.length);
-                        countReady = epoll(epollFD, keysCount, readyFDs,
-                                readyOps, timeout);
-                        // System.out.println(" returns " + countReady);
+                        countReady = epoll(epollFD, readyFDs.length,
+                                readyFDs, readyOps, timeout);
                     } finally {
                         if (isBlock) {
                             end();
                         }
                     }
-                    return processSelectResult();
+                    int selected = processSelectResult(countReady);
+                    doCancel();
+                    return selected;
                 }
             }
         }
     }
 
-    private boolean isConnected(EpollSelectionKeyImpl key) {
-        SelectableChannel channel = key.channel();
-        if (channel instanceof SocketChannel) {
-            return ((SocketChannel) channel).isConnected();
-        }
-        return true;
-    }
-
     /*
-     * Analyses selected channels and adds keys of ready channels to
-     * selectedKeys list.
-     * 
-     * readyChannels are encoded as concatenated array of flags for readable
-     * channels followed by writable channels.
+     * Adds the keys of the ready descriptors to the selected keys, answering
+     * the number of keys whose ready ops were updated.
      */
-    private int processSelectResult() throws IOException {
-        if (0 == countReady) {
-            return 0;
-        }
-        if (-1 == countReady) {
+    private int processSelectResult(int countReady) {
+        if (countReady <= 0) {
             return 0;
         }
-        // if the mock channel is selected, read the content.
-        if (READABLE == readyOps[0]) {
-            ByteBuffer readbuf = ByteBuffer.allocate(MOCK_READBUF_SIZE);
-            while (source.read(readbuf) > 0) {
-                readbuf.flip();
-            }
-        }
         int selected = 0;
-
-        EpollSelectionKeyImpl key = null;
         for (int i = 0; i < countReady; i++) {
+            int fd = readyFDs[i];
+            if (fd == wakeupReadFD) {
+                drainWakeup(wakeupReadFD);
+                wakeupPending.set(false);
+                continue;
+            }
 
-            // System.out.println("processSelectResults(): mapping readyFDs[" +
-            // i + "]");
-            // Lookup the key, map the index in readyFDs to real key
-            key = (EpollSelectionKeyImpl) quickMap.get(readyFDs[i]);
-
-            if (null == key) {
+            // the table only changes under the selector lock, held here
+            EpollSelectionKeyImpl key = fd < fdKeys.length ? fdKeys[fd] : null;
+            if (null == key || !key.isValid()) {
                 continue;
             }
-            // System.out.println(" ready key = " + key.getIndex());
 
-            int ops = key.interestOps();
+            int ops = key.getInterestOps();
             int selectedOp = 0;
 
             if ((readyOps[i] & READABLE) != 0) {
@@ -433,16 +390,13 @@ final class EpollSelectorImpl extends AbstractSelector {
             }
 
             if ((readyOps[i] & WRITABLE) != 0) {
-                if (isConnected(key)) {
-                    selectedOp = selectedOp | (SelectionKey.OP_WRITE & ops);
-                } else {
-                    selectedOp = selectedOp | (SelectionKey.OP_CONNECT & ops);
-                }
+                selectedOp |= (SelectionKey.OP_CONNECT | SelectionKey.OP_WRITE)
+                        & ops;
             }
 
             if (0 != selectedOp) {
                 if (selectedKeys.contains(key)) {
-                    if (key.readyOps() != selectedOp) {
+                    if ((key.readyOps() | selectedOp) != key.readyOps()) {
                         key.setReadyOps(key.readyOps() | selectedOp);
                         selected++;
                     }
@@ -452,17 +406,21 @@ final class EpollSelectorImpl extends AbstractSelector {
                     selected++;
                 }
             }
-
         }
 
-        // System.out.println("processSelectResult(): selected = " + selected);
+        // a full result may mean more descriptors are ready than fit
+        if (countReady == readyFDs.length
+                && readyFDs.length < MAX_READY_EVENTS) {
+            readyFDs = new int[readyFDs.length << 1];
+            readyOps = new int[readyFDs.length];
+        }
         return selected;
     }
 
     /*
      * @see java.nio.channels.Selector#selectedKeys()
      */
-    public synchronized Set<SelectionKey> selectedKeys() {
+    public Set<SelectionKey> selectedKeys() {
         closeCheck();
         return unaddableSelectedKeys;
     }
@@ -472,13 +430,13 @@ final class EpollSelectorImpl extends AbstractSelector {
         synchronized (cancelledKeys) {
             if (cancelledKeys.size() > 0) {
                 for (SelectionKey currentkey : cancelledKeys) {
-                    delKey(currentkey);
-                    deregister((AbstractSelectionKey) currentkey);
+                    delKey((EpollSelectionKeyImpl) currentkey);
+                    keysSet.remove(currentkey);
                     selectedKeys.remove(currentkey);
+                    deregister((AbstractSelectionKey) currentkey);
                 }
+                cancelledKeys.clear();
             }
-            cancelledKeys.clear();
-            limitCapacity();
         }
     }
 
@@ -486,152 +444,14 @@ final class EpollSelectorImpl extends AbstractSelector {
      * @see java.nio.channels.Selector#wakeup()
      */
     public Selector wakeup() {
-        try {
-            sink.write(ByteBuffer.allocate(MOCK_WRITEBUF_SIZE));
-        } catch (IOException e) {
-            // do nothing
-        }
-        return this;
-    }
-
-    private static class InternalKeyMap<E> {
-
-        Entry<E>[] storage;
-
-        int size;
-
-        Entry deleted = new Entry(-1, null);
-
-        static final int threshRatio = 4;
-
-        public InternalKeyMap() {
-            this(1);
-        }
-
-        public InternalKeyMap(int initialSize) {
-            storage = new Entry[initialSize];
-            size = 0;
-        }
-
-        private E putEntryNoCheck(Entry<E>[] storage, int key, Entry<E> entry) {
-
-            for (int tryCount = 0; tryCount < storage.length; tryCount++) {
-
-                int hash = hash(key, tryCount);
-                int index = hash % storage.length;
-
-                // System.out.println("put: hash: " + hash + ", index: " + index
-                // + ", key: " + key + ", size: " + size + ", tryCount: " +
-                // tryCount + ", storage.length=" + storage.length);
-
-                if (storage[index] == null) {
-                    if (entry != deleted) {
-                        storage[index] = entry;
-                    }
-                    return null;
-                } else if (storage[index].key == key
-                        || (storage[index] == deleted && entry != deleted)) {
-                    E t = storage[index].value;
-                    storage[index] = entry;
-                    return t;
+        if (wakeupPending.compareAndSet(false, true)) {
+            synchronized (wakeupLock) {
+                if (!wakeupClosed) {
+                    signalWakeup(wakeupWriteFD);
                 }
             }
-
-            throw new ArrayIndexOutOfBoundsException(key);
         }
-
-        private E putEntry(int key, Entry<E> entry) {
-            if (size >= storage.length
-                    || (storage.length / (storage.length - size)) >= threshRatio) {
-                rehash();
-            }
-
-            E result = putEntryNoCheck(storage, key, entry);
-            if (result == null) {
-                size++;
-            }
-
-            return result;
-        }
-
-        public void put(int key, E value) {
-            Entry<E> t = new Entry<E>(key, value);
-            putEntry(key, t);
-        }
-
-        public E remove(int key) {
-            E result = putEntryNoCheck(storage, key, deleted);
-
-            if (result != null) {
-                size--;
-            }
-
-            return result;
-        }
-
-        public E get(int key) {
-            if (storage == null) {
-                // System.out.println(" FAIL, storage=null");
-                return null;
-            }
-
-            for (int tryCount = 0; tryCount < storage.length; tryCount++) {
-                int hash = hash(key, tryCount);
-                int index = hash % storage.length;
-
-                // System.out.println("get: hash: " + hash + ", index: " + index
-                // + ", key: " + key + ", size: " + size + ", tryCount: " +
-                // tryCount + ", storage.length=" + storage.length);
-
-                if (storage[index] == null) {
-                    // System.out.println("Lookup FAIL, reached end");
-                    return null;
-                }
-
-                if (storage[index].key == key) {
-                    // System.out.println("Lookup OK!");
-                    return storage[index].value;
-                }
-
-            }
-            // System.out.println(" FAIL, tryCount > storage.length");
-            return null;
-        }
-
-        private void rehash() {
-            Entry<E>[] newStorage = new Entry[storage.length << 1];
-            int newSize = 0;
-            for (int c = 0; c < storage.length; c++) {
-                if (storage[c] == null)
-                    continue;
-                if (storage[c] == deleted)
-                    continue;
-                putEntryNoCheck(newStorage, storage[c].key, storage[c]);
-                newSize++;
-            }
-            storage = newStorage;
-            size = newSize;
-        }
-
-        private int hash(int key, int tryCount) {
-            int t1 = key * 31 + 1;
-            int t2 = 2 * key + 1;
-            return (t1 + (t2 * tryCount)) & 0x7FFFFFFF;
-        }
-
-        private static class Entry<E> {
-
-            final int key;
-
-            final E value;
-
-            public Entry(int iKey, E iValue) {
-                key = iKey;
-                value = iValue;
-            }
-
-        }
-
+        return this;
     }
 
     private static class UnaddableSet<E> implements Set<E> {
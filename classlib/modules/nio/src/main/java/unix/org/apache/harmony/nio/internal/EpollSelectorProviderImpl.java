@@ -35,7 +35,6 @@ public class EpollSelectorProviderImpl extends SelectorProvider {
      */
     public EpollSelectorProviderImpl() {
         super();
-        System.out.println("Now using EpollSelectorProvider");
     }
 
     /*
@@ -16,6 +16,10 @@
  */
 
 #include <jni.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <limits.h>
+#include <unistd.h>
 #include <linux/version.h>
 #include "hysock.h"
 #include "hyport.h"
@@ -33,9 +37,12 @@
 #define EPOLLIN 0
 #define EPOLLOUT 0
 #define EPOLLPRI 0
+#define EPOLLERR 0
+#define EPOLLHUP 0
 
 #define EPOLL_CTL_ADD 0
 #define EPOLL_CTL_DEL 0
+#define EPOLL_CTL_MOD 0
 
 typedef union epoll_data {
   int fd;
@@ -68,6 +75,15 @@ int epoll_wait(int epfd, struct epoll_event * events, int maxevents, int timeout
 }
 
 #endif
+
+#if (LINUX_VERSION_CODE >= KERNEL_VERSION(2, 6, 22))
+
+// use eventfd for wakeups where available, falling back to a pipe
+#include <sys/eventfd.h>
+#define HAS_EVENTFD
+
+#endif
+
 /* Header for class org_apache_harmony_nio_internal_EPollSelectorImpl */
 
 //#define EPOLL_DEBUG 
@@ -111,12 +127,10 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_p
 
 
 /*
- * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
- * Method:    addFileDescriptor
- * Signature: (L)I
+ * Registers the descriptor with the epoll descriptor for the events
+ * corresponding to the SOCKET_*_OP mode, using the given epoll_ctl operation.
  */
-JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_addFileDescriptor
-  (JNIEnv * env, jclass clazz, jlong epollfd, jint mode, jint fd) 
+static int controlFileDescriptor(int epollfd, int op, jint mode, jint fd)
 {
     struct epoll_event ev;
     int result;
@@ -130,13 +144,22 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_a
         ev.events = ev.events | EPOLLOUT;
     }   
 
+    ev.data.u64 = 0;
     ev.data.fd = fd;
 
 #ifdef EPOLL_DEBUG   
-    printf("epoll(): fd=%d, adding %d to filedescriptor list with mode %d and event mask %d\n", epollfd, fd, mode, ev.events);
+    printf("epoll(): fd=%d, op %d on %d with mode %d and event mask %d\n", epollfd, op, fd, mode, ev.events);
 #endif
     
-    result = epoll_ctl(epollfd, EPOLL_CTL_ADD, fd, &ev);
+    result = epoll_ctl(epollfd, op, fd, &ev);
+
+    // a descriptor reused before the key that owned it was cancelled is
+    // still registered, and a closed one has been dropped by the kernel
+    if (result == -1 && op == EPOLL_CTL_ADD && errno == EEXIST) {
+        result = epoll_ctl(epollfd, EPOLL_CTL_MOD, fd, &ev);
+    } else if (result == -1 && op == EPOLL_CTL_MOD && errno == ENOENT) {
+        result = epoll_ctl(epollfd, EPOLL_CTL_ADD, fd, &ev);
+    }
 
 #ifdef EPOLL_DEBUG
     if(result == -1) {
@@ -144,8 +167,32 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_a
     }
 #endif
     
-    // let the java layer handle exceptions
     return result;
+}
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    addFileDescriptor
+ * Signature: (JII)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_addFileDescriptor
+  (JNIEnv * env, jclass clazz, jlong epollfd, jint mode, jint fd) 
+{
+    // let the java layer handle exceptions
+    return controlFileDescriptor(epollfd, EPOLL_CTL_ADD, mode, fd);
+}    
+
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    modifyFileDescriptor
+ * Signature: (JII)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_modifyFileDescriptor
+  (JNIEnv * env, jclass clazz, jlong epollfd, jint mode, jint fd) 
+{
+    // let the java layer handle exceptions
+    return controlFileDescriptor(epollfd, EPOLL_CTL_MOD, mode, fd);
 }    
 
 
@@ -182,7 +229,7 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_d
 /*
  * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
  * Method:    epoll
- * Signature: (L)I
+ * Signature: (JI[I[IJ)I
  */
 JNIEXPORT jint JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_epoll
   (JNIEnv * env, jclass clazz, jlong epollfd, jint count, jintArray fds, jintArray ops, jlong timeout) 
@@ -191,69 +238,140 @@ JNIEXPORT jint JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_ep
     jint * fdsArray;
     jint * opsArray;
     int result;
-    jboolean isCopy;
     int c;
     int temp;
     
-    evs = malloc(sizeof(struct epoll_event)*count);
+    // room for the events followed by the descriptors and ops copied out
+    evs = malloc((sizeof(struct epoll_event) + 2 * sizeof(jint)) * count);
     if (!evs) {
         printf("epoll(): error on memory allocation\n");
         return -1;
         
     }
+    fdsArray = (jint *) (evs + count);
+    opsArray = fdsArray + count;
     
 #ifdef EPOLL_DEBUG
 #ifdef EPOLL_DEBUG_EXTENSIVE    
-   printf("epoll(): waiting on %d channels for %d msecs\n", count, timeout);
+   printf("epoll(): waiting for %d channels for %d msecs\n", count, timeout);
 #endif    
 #endif   
   
     // wait! 
-    result = epoll_wait(epollfd, evs, count, timeout); 
+    result = epoll_wait(epollfd, evs, count,
+        timeout > INT_MAX ? INT_MAX : (int) timeout);
+
+    // an interrupted wait simply selects nothing
+    if (result == -1 && errno == EINTR) {
+        result = 0;
+    }
 
 #ifdef EPOLL_DEBUG
 #ifdef EPOLL_DEBUG_EXTENSIVE
-    printf("epoll(): %d channels up, %d total\n", result, count);
-#endif
-#endif
-    
-#ifdef EPOLL_DEBUG
-#ifdef EPOLL_DEBUG_EXTENSIVE
-    printf("epoll(): Start parsing epoll() results\n");
+    printf("epoll(): %d channels up\n", result);
 #endif
 #endif
 
-    // copying out the results, pinning might help here...
-    isCopy = JNI_FALSE;
-    fdsArray = (*env)->GetIntArrayElements(env, fds, &isCopy);
-
-    isCopy = JNI_FALSE;
-    opsArray = (*env)->GetIntArrayElements(env, ops, &isCopy);
-
+    // copy out only the ready descriptors rather than pinning the arrays
     for(c = 0; c < result; c++) {
         fdsArray[c] = evs[c].data.fd;
 
         temp = SOCKET_NONE_OP;
-        if (evs[c].events & (EPOLLIN | EPOLLPRI)) {
+        // a hang-up or error makes the channel both readable and writable,
+        // so the pending operation reports it
+        if (evs[c].events & (EPOLLIN | EPOLLPRI | EPOLLHUP | EPOLLERR)) {
             temp = temp + SOCKET_READ_OP;
         }
             
-        if (evs[c].events & (EPOLLOUT)) {
+        if (evs[c].events & (EPOLLOUT | EPOLLHUP | EPOLLERR)) {
             temp = temp + SOCKET_WRITE_OP;
         }
         opsArray[c] = temp;
     }
-    (*env)->ReleaseIntArrayElements(env, ops, opsArray, 0);
-    (*env)->ReleaseIntArrayElements(env, fds, fdsArray, 0);
+    if (result > 0) {
+        (*env)->SetIntArrayRegion(env, fds, 0, result, fdsArray);
+        (*env)->SetIntArrayRegion(env, ops, 0, result, opsArray);
+    }
 
-#ifdef EPOLL_DEBUG
-#ifdef EPOLL_DEBUG_EXTENSIVE
-    printf("epoll(): End parsing epoll() results\n");
-#endif
-#endif
-    
     free(evs);    
    
     // let the Java code handle the exceptions 
     return result;
 } 
+
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    openWakeup
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_openWakeup
+  (JNIEnv * env, jclass clazz) 
+{
+    int fds[2];
+
+#ifdef HAS_EVENTFD
+    fds[0] = eventfd(0, 0);
+    if (fds[0] != -1) {
+        fds[1] = fds[0];
+    } else
+#endif
+    if (pipe(fds) == -1) {
+        return -1;
+    }
+    fcntl(fds[0], F_SETFL, fcntl(fds[0], F_GETFL) | O_NONBLOCK);
+    if (fds[1] != fds[0]) {
+        fcntl(fds[1], F_SETFL, fcntl(fds[1], F_GETFL) | O_NONBLOCK);
+    }
+
+    // the descriptor read in the low word, the one written in the high word
+    return (((jlong) fds[1]) << 32) | (jlong) (unsigned int) fds[0];
+}
+
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    signalWakeup
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_signalWakeup
+  (JNIEnv * env, jclass clazz, jint fd) 
+{
+    // an eventfd takes a 64 bit count, and a pipe any bytes at all
+    unsigned long long one = 1;
+    int result;
+
+    do {
+        result = write(fd, &one, sizeof(one));
+    } while (result == -1 && errno == EINTR);
+}
+
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    drainWakeup
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_drainWakeup
+  (JNIEnv * env, jclass clazz, jint fd) 
+{
+    char buffer[64];
+    int result;
+
+    // the descriptor is non-blocking, so read until it is empty
+    do {
+        result = read(fd, buffer, sizeof(buffer));
+    } while (result > 0 || (result == -1 && errno == EINTR));
+}
+
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    closeFileDescriptor
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_closeFileDescriptor
+  (JNIEnv * env, jclass clazz, jlong fd) 
+{
+    close((int) fd);
+}
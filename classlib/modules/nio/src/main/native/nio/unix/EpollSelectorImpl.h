@@ -42,11 +42,19 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_p
 /*
  * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
  * Method:    addFileDescriptor
- * Signature: (L)I
+ * Signature: (JII)J
  */
 JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_addFileDescriptor
   (JNIEnv *, jclass, jlong, jint, jint);
 
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    modifyFileDescriptor
+ * Signature: (JII)J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_modifyFileDescriptor
+  (JNIEnv *, jclass, jlong, jint, jint);
+
 /*
  * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
  * Method:    delFileDescriptor
@@ -58,7 +66,39 @@ JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_d
 /*
  * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
  * Method:    epoll
- * Signature: (L)I
+ * Signature: (JI[I[IJ)I
  */
 JNIEXPORT jint JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_epoll
-  (JNIEnv *, jclass, jlong, jint, jlongArray, jintArray, jlong);
+  (JNIEnv *, jclass, jlong, jint, jintArray, jintArray, jlong);
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    openWakeup
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_openWakeup
+  (JNIEnv *, jclass);
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    signalWakeup
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_signalWakeup
+  (JNIEnv *, jclass, jint);
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    drainWakeup
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_drainWakeup
+  (JNIEnv *, jclass, jint);
+
+/*
+ * Class:     org_apache_harmony_nio_internal_EpollSelectorImpl
+ * Method:    closeFileDescriptor
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_harmony_nio_internal_EpollSelectorImpl_closeFileDescriptor
+  (JNIEnv *, jclass, jlong);
@@ -0,0 +1,346 @@
+/* Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.nio.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.NotYetConnectedException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.harmony.nio.internal.AsynchronousChannelGroupImpl;
+import org.apache.harmony.nio.internal.AsynchronousFileChannelImpl;
+import org.apache.harmony.nio.internal.AsynchronousSocketChannelImpl;
+import org.apache.harmony.nio.internal.CompletionHandler;
+import org.apache.harmony.nio.internal.ShutdownChannelGroupException;
+
+public class AsynchronousChannelTest extends TestCase {
+
+    private static final int TIMEOUT = 10;
+
+    private AsynchronousChannelGroupImpl group;
+
+    private File file;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        group = AsynchronousChannelGroupImpl.withFixedThreadPool(4);
+        file = File.createTempFile("AsynchronousChannelTest", ".tmp");
+        file.deleteOnExit();
+    }
+
+    protected void tearDown() throws Exception {
+        group.shutdownNow();
+        file.delete();
+        super.tearDown();
+    }
+
+    /*
+     * A handler that remembers its result.
+     */
+    static class Handler<V> implements CompletionHandler<V, String> {
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        V result;
+
+        Throwable exception;
+
+        String attachment;
+
+        public void completed(V value, String attached) {
+            result = value;
+            attachment = attached;
+            done.countDown();
+        }
+
+        public void failed(Throwable exc, String attached) {
+            exception = exc;
+            attachment = attached;
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * @tests AsynchronousFileChannelImpl#write(ByteBuffer, long)
+     * @tests AsynchronousFileChannelImpl#read(ByteBuffer, long, Object,
+     *        CompletionHandler)
+     */
+    public void test_file_readWrite() throws Exception {
+        AsynchronousFileChannelImpl channel = AsynchronousFileChannelImpl
+                .open(file, "rw", group);
+        ByteBuffer src = ByteBuffer.wrap("asynchronous".getBytes("ISO8859_1"));
+        Future<Integer> written = channel.write(src, 100);
+        assertEquals(12, written.get(TIMEOUT, TimeUnit.SECONDS).intValue());
+        assertFalse(src.hasRemaining());
+        assertEquals(112, channel.size());
+
+        ByteBuffer[] buffers = { ByteBuffer.allocate(5),
+                ByteBuffer.allocateDirect(5) };
+        for (ByteBuffer dst : buffers) {
+            Handler<Integer> handler = new Handler<Integer>();
+            channel.read(dst, 105, "read", handler);
+            handler.await();
+            assertNull(handler.exception);
+            assertEquals(5, handler.result.intValue());
+            assertEquals("read", handler.attachment);
+            dst.flip();
+            byte[] bytes = new byte[5];
+            dst.get(bytes);
+            assertEquals("hrono", new String(bytes, "ISO8859_1"));
+        }
+
+        // the end of the file
+        assertEquals(-1, channel.read(ByteBuffer.allocate(5), 112).get()
+                .intValue());
+        channel.close();
+        assertFalse(channel.isOpen());
+    }
+
+    /**
+     * @tests AsynchronousFileChannelImpl#read(ByteBuffer, long)
+     */
+    public void test_file_concurrentReads() throws Exception {
+        byte[] contents = new byte[256 * 1024];
+        new Random(1).nextBytes(contents);
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(contents);
+        out.close();
+
+        AsynchronousFileChannelImpl channel = AsynchronousFileChannelImpl
+                .open(file, "r", group);
+        Random random = new Random(2);
+        int[] positions = new int[200];
+        ByteBuffer[] buffers = new ByteBuffer[positions.length];
+        Future<?>[] reads = new Future<?>[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextInt(contents.length - 4096);
+            buffers[i] = (i % 2 == 0) ? ByteBuffer.allocateDirect(4096)
+                    : ByteBuffer.allocate(4096);
+            reads[i] = channel.read(buffers[i], positions[i]);
+        }
+        for (int i = 0; i < positions.length; i++) {
+            assertEquals(4096, reads[i].get());
+            buffers[i].flip();
+            for (int j = 0; j < 4096; j++) {
+                assertEquals(contents[positions[i] + j], buffers[i].get());
+            }
+        }
+
+        try {
+            channel.write(ByteBuffer.allocate(1), 0);
+            fail("should throw NonWritableChannelException");
+        } catch (NonWritableChannelException e) {
+            // expected
+        }
+        channel.close();
+
+        try {
+            channel.read(ByteBuffer.allocate(1), 0).get();
+            fail("should throw ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ClosedChannelException);
+        }
+    }
+
+    /**
+     * @tests AsynchronousFileChannelImpl#read(ByteBuffer, long, Object,
+     *        CompletionHandler)
+     */
+    public void test_file_rejected() throws Exception {
+        AsynchronousFileChannelImpl channel = AsynchronousFileChannelImpl
+                .open(file, "rw", group);
+        // stop the group's pool behind its back, so that it rejects the read
+        ((ExecutorService) field(group, "executor")).shutdown();
+
+        Handler<Integer> handler = new Handler<Integer>();
+        channel.read(ByteBuffer.allocate(1), 0, "read", handler);
+        handler.await();
+        assertTrue(handler.exception instanceof ShutdownChannelGroupException);
+        assertEquals("read", handler.attachment);
+
+        // the rejected read does not keep the file open
+        channel.close();
+        RandomAccessFile raf = (RandomAccessFile) field(channel, "file");
+        assertFalse(raf.getFD().valid());
+    }
+
+    private static Object field(Object object, String name) throws Exception {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    /**
+     * @tests AsynchronousSocketChannelImpl#connect(java.net.SocketAddress)
+     * @tests AsynchronousSocketChannelImpl#read(ByteBuffer, Object,
+     *        CompletionHandler)
+     * @tests AsynchronousSocketChannelImpl#write(ByteBuffer)
+     */
+    public void test_socket_readWrite() throws Exception {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(
+                new InetSocketAddress(InetAddress.getLocalHost(), 0));
+        AsynchronousSocketChannelImpl client = AsynchronousSocketChannelImpl
+                .open(group);
+        Future<Void> connected = client.connect(server.socket()
+                .getLocalSocketAddress());
+        SocketChannel peer = server.accept();
+        assertNull(connected.get(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(client.isConnected());
+
+        // a read that waits for the peer
+        ByteBuffer dst = ByteBuffer.allocate(10);
+        Handler<Integer> handler = new Handler<Integer>();
+        client.read(dst, "read", handler);
+        try {
+            client.read(ByteBuffer.allocate(1), null, handler);
+            fail("should throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        peer.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+        handler.await();
+        assertNull(handler.exception);
+        assertEquals(3, handler.result.intValue());
+        assertEquals("read", handler.attachment);
+        assertEquals(3, dst.position());
+
+        ByteBuffer src = ByteBuffer.wrap(new byte[] { 4, 5 });
+        assertEquals(2, client.write(src).get(TIMEOUT, TimeUnit.SECONDS)
+                .intValue());
+        ByteBuffer received = ByteBuffer.allocate(2);
+        while (received.hasRemaining()) {
+            peer.read(received);
+        }
+        assertEquals(5, received.get(1));
+
+        // closing fails the outstanding read
+        handler = new Handler<Integer>();
+        client.read(ByteBuffer.allocate(10), null, handler);
+        client.close();
+        handler.await();
+        assertTrue(handler.exception instanceof AsynchronousCloseException);
+
+        peer.close();
+        server.close();
+    }
+
+    /**
+     * @tests AsynchronousSocketChannelImpl#read(ByteBuffer, Object,
+     *        CompletionHandler)
+     * @tests AsynchronousSocketChannelImpl#write(ByteBuffer, Object,
+     *        CompletionHandler)
+     */
+    public void test_socket_notYetConnected() throws Exception {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(
+                new InetSocketAddress(InetAddress.getLocalHost(), 0));
+        AsynchronousSocketChannelImpl client = AsynchronousSocketChannelImpl
+                .open(group);
+        for (int i = 0; i < 2; i++) {
+            try {
+                client.read(ByteBuffer.allocate(1), null,
+                        new Handler<Integer>());
+                fail("should throw NotYetConnectedException");
+            } catch (NotYetConnectedException e) {
+                // expected, and the read is no longer outstanding
+            }
+            try {
+                client.write(ByteBuffer.allocate(1), null,
+                        new Handler<Integer>());
+                fail("should throw NotYetConnectedException");
+            } catch (NotYetConnectedException e) {
+                // expected, and the write is no longer outstanding
+            }
+        }
+
+        client.connect(server.socket().getLocalSocketAddress()).get(TIMEOUT,
+                TimeUnit.SECONDS);
+        SocketChannel peer = server.accept();
+        assertEquals(1, client.write(ByteBuffer.allocate(1)).get(TIMEOUT,
+                TimeUnit.SECONDS).intValue());
+        peer.write(ByteBuffer.allocate(1));
+        assertEquals(1, client.read(ByteBuffer.allocate(1)).get(TIMEOUT,
+                TimeUnit.SECONDS).intValue());
+        client.close();
+        peer.close();
+        server.close();
+    }
+
+    /**
+     * @tests AsynchronousSocketChannelImpl#read(ByteBuffer)
+     */
+    public void test_socket_endOfStream() throws Exception {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(
+                new InetSocketAddress(InetAddress.getLocalHost(), 0));
+        SocketChannel client = SocketChannel.open(server.socket()
+                .getLocalSocketAddress());
+        AsynchronousSocketChannelImpl peer = AsynchronousSocketChannelImpl
+                .open(server.accept(), group);
+        Future<Integer> read = peer.read(ByteBuffer.allocate(10));
+        client.close();
+        assertEquals(-1, read.get(TIMEOUT, TimeUnit.SECONDS).intValue());
+        peer.close();
+        server.close();
+    }
+
+    /**
+     * @tests AsynchronousChannelGroupImpl#shutdown()
+     */
+    public void test_group_shutdown() throws Exception {
+        AsynchronousFileChannelImpl channel = AsynchronousFileChannelImpl
+                .open(file, "rw", group);
+        group.shutdown();
+        assertTrue(group.isShutdown());
+        try {
+            AsynchronousFileChannelImpl.open(file, "r", group);
+            fail("should throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // the group still serves its open channels
+        assertEquals(1, channel.write(ByteBuffer.allocate(1), 0).get()
+                .intValue());
+        assertFalse(group.isTerminated());
+        channel.close();
+        assertTrue(group.awaitTermination(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(group.isTerminated());
+    }
+}
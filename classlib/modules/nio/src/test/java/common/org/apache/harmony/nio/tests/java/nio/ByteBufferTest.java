@@ -1005,6 +1005,102 @@ public class ByteBufferTest extends AbstractBufferTest {
         buf.order(ByteOrder.BIG_ENDIAN);
     }
 
+    /**
+     * @tests java.nio.IntBuffer#get(int[], int, int)
+     * @tests java.nio.IntBuffer#put(int[], int, int)
+     */
+    public void testAsIntBuffer_bulk() {
+        ByteOrder[] orders = { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN };
+        byte bytes[] = new byte[4];
+        for (int i = 0; i < orders.length; i++) {
+            buf.clear();
+            buf.position(1);
+            buf.order(orders[i]);
+            IntBuffer intBuffer = buf.slice().order(orders[i]).asIntBuffer();
+            int ints[] = new int[intBuffer.capacity() + 1];
+            intBuffer.get(ints, 1, intBuffer.capacity());
+            assertEquals(intBuffer.limit(), intBuffer.position());
+            for (int j = 0; j < intBuffer.capacity(); j++) {
+                buf.get(bytes);
+                assertEquals(bytes2int(bytes, orders[i]), ints[j + 1]);
+            }
+
+            intBuffer.clear();
+            for (int j = 0; j < ints.length; j++) {
+                ints[j] = 0x01020304 * (j + 1);
+            }
+            if (buf.isReadOnly()) {
+                try {
+                    intBuffer.put(ints, 1, intBuffer.capacity());
+                    fail("Should throw ReadOnlyBufferException"); //$NON-NLS-1$
+                } catch (ReadOnlyBufferException e) {
+                    // expected
+                }
+                continue;
+            }
+            intBuffer.put(ints, 1, intBuffer.capacity());
+            assertEquals(intBuffer.limit(), intBuffer.position());
+            buf.position(1);
+            for (int j = 0; j < intBuffer.capacity(); j++) {
+                buf.get(bytes);
+                assertTrue(Arrays.equals(bytes, int2bytes(ints[j + 1],
+                        orders[i])));
+            }
+        }
+
+        buf.clear();
+        buf.order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /**
+     * @tests java.nio.LongBuffer#get(long[], int, int)
+     * @tests java.nio.DoubleBuffer#put(double[], int, int)
+     */
+    public void testAsLongBuffer_bulk() {
+        ByteOrder[] orders = { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN };
+        byte bytes[] = new byte[8];
+        for (int i = 0; i < orders.length; i++) {
+            buf.clear();
+            buf.order(orders[i]);
+            LongBuffer longBuffer = buf.asLongBuffer();
+            long longs[] = new long[longBuffer.capacity()];
+            longBuffer.get(longs);
+            for (int j = 0; j < longs.length; j++) {
+                buf.get(bytes);
+                assertEquals(bytes2long(bytes, orders[i]), longs[j]);
+            }
+            try {
+                longBuffer.get(new long[1]);
+                fail("Should throw BufferUnderflowException"); //$NON-NLS-1$
+            } catch (BufferUnderflowException e) {
+                // expected
+            }
+
+            if (buf.isReadOnly()) {
+                continue;
+            }
+            buf.clear();
+            DoubleBuffer doubleBuffer = buf.asDoubleBuffer();
+            double doubles[] = new double[doubleBuffer.capacity()];
+            for (int j = 0; j < doubles.length; j++) {
+                doubles[j] = Math.PI * (j + 1);
+            }
+            doubleBuffer.put(doubles);
+            for (int j = 0; j < doubles.length; j++) {
+                assertEquals(doubles[j], buf.getDouble(j * 8), 0.0);
+            }
+            try {
+                doubleBuffer.put(new double[1]);
+                fail("Should throw BufferOverflowException"); //$NON-NLS-1$
+            } catch (BufferOverflowException e) {
+                // expected
+            }
+        }
+
+        buf.clear();
+        buf.order(ByteOrder.BIG_ENDIAN);
+    }
+
     public void testAsLongBuffer() {
         LongBuffer longBuffer;
         byte bytes[] = new byte[8];
@@ -16,6 +16,8 @@
 
 package org.apache.harmony.nio.tests.java.nio.channels;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -29,6 +31,7 @@ import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.ReadOnlyBufferException;
+import java.nio.channels.Channels;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.FileChannel;
@@ -3226,6 +3229,51 @@ public class FileChannelTest extends TestCase {
         assertTrue("File " + writeOnlyFileChannel + " exists", wDel);
     }
     
+    /**
+     * @tests java.nio.channels.FileChannel#transferTo(long,long,WritableByteChannel)
+     * @tests java.nio.channels.FileChannel#transferFrom(ReadableByteChannel,long,long)
+     */
+    public void test_transfer_large() throws Exception {
+        final int LENGTH = 300000;
+        byte[] content = new byte[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            content[i] = (byte) (i * 31 + i / 1000);
+        }
+        FileOutputStream fos = new FileOutputStream(fileOfReadOnlyFileChannel);
+        fos.write(content);
+        fos.close();
+
+        // file to file, more than any copy buffer at once
+        readOnlyFileChannel.position(7);
+        assertEquals(LENGTH - 100, readOnlyFileChannel.transferTo(100, LENGTH,
+                writeOnlyFileChannel));
+        assertEquals(7, readOnlyFileChannel.position());
+        assertEquals(LENGTH - 100, writeOnlyFileChannel.position());
+        assertEquals(LENGTH - 100, readWriteFileChannel.transferFrom(
+                readOnlyFileChannel.position(100), 0, LENGTH));
+        assertEquals(LENGTH, readOnlyFileChannel.position());
+        assertEquals(0, readWriteFileChannel.position());
+        ByteBuffer result = ByteBuffer.allocate(LENGTH - 100);
+        readWriteFileChannel.read(result, 0);
+        byte[] expected = new byte[LENGTH - 100];
+        System.arraycopy(content, 100, expected, 0, expected.length);
+        assertTrue(Arrays.equals(expected, result.array()));
+
+        // channels that are not files
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(LENGTH, readOnlyFileChannel.transferTo(0, LENGTH,
+                Channels.newChannel(out)));
+        assertTrue(Arrays.equals(content, out.toByteArray()));
+        assertEquals(LENGTH - 1, readWriteFileChannel.transferFrom(Channels
+                .newChannel(new ByteArrayInputStream(content, 1, LENGTH)), 0,
+                LENGTH));
+        result = ByteBuffer.allocate(LENGTH - 1);
+        readWriteFileChannel.read(result, 0);
+        expected = new byte[LENGTH - 1];
+        System.arraycopy(content, 1, expected, 0, expected.length);
+        assertTrue(Arrays.equals(expected, result.array()));
+    }
+
     private class MockFileChannel extends FileChannel {
         
         private boolean isLockCalled = false;
@@ -21,14 +21,18 @@ import static org.junit.Assert.assertThat;
 
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
 
 import junit.framework.TestCase;
 
+import org.apache.harmony.nio.internal.EpollSelectorProviderImpl;
+
 public class UnixSelectorTest extends TestCase {
     static class Server {
         private ServerSocketChannel serverChannel = ServerSocketChannel.open();
@@ -130,4 +134,54 @@ public class UnixSelectorTest extends TestCase {
         assertThat(mkey5.isWritable(), is(true));
         assertThat(mkey5.isConnectable(), is(true));
     }
+
+    public void testEpollSelector() throws Exception {
+        SelectorProvider provider = new EpollSelectorProviderImpl();
+        Selector selector = provider.openSelector();
+        ServerSocketChannel serverChannel = provider.openServerSocketChannel();
+        serverChannel.socket().bind(new InetSocketAddress("localhost", 0));
+        serverChannel.configureBlocking(false);
+        try {
+            // repeated wakeups only make the next selection return early
+            selector.wakeup();
+            selector.wakeup();
+            assertThat(selector.select(), is(0));
+            long start = System.currentTimeMillis();
+            assertThat(selector.select(200), is(0));
+            assertTrue(System.currentTimeMillis() - start >= 100);
+
+            SelectionKey acceptKey = serverChannel.register(selector,
+                    SelectionKey.OP_ACCEPT);
+            assertThat(selector.keys().size(), is(1));
+            SocketChannel client = provider.openSocketChannel();
+            client.connect(new InetSocketAddress("localhost", serverChannel
+                    .socket().getLocalPort()));
+            assertThat(selector.select(1000), is(1));
+            assertThat(acceptKey.isAcceptable(), is(true));
+            SocketChannel accepted = serverChannel.accept();
+            accepted.configureBlocking(false);
+            selector.selectedKeys().clear();
+
+            // a key without interest ops is never selected
+            SelectionKey readKey = accepted.register(selector, 0);
+            client.write(ByteBuffer.wrap(new byte[] { 1 }));
+            assertThat(selector.select(100), is(0));
+            readKey.interestOps(SelectionKey.OP_READ);
+            assertThat(selector.select(1000), is(1));
+            assertThat(selector.selectedKeys().contains(readKey), is(true));
+            assertThat(readKey.isReadable(), is(true));
+
+            // cancelled keys leave the key set at the next selection
+            readKey.cancel();
+            selector.selectNow();
+            assertThat(selector.keys().contains(readKey), is(false));
+            assertThat(selector.selectedKeys().contains(readKey), is(false));
+
+            client.close();
+            accepted.close();
+        } finally {
+            serverChannel.close();
+            selector.close();
+        }
+    }
 }
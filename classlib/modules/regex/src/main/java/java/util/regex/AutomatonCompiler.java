@@ -0,0 +1,746 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util.regex;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+
+/**
+ * Compiles regular expressions that need no backtracking into a Thompson NFA
+ * program run by {@link AutomatonSet}.
+ * <p>
+ * Only a conservative subset is accepted: literal characters and the usual
+ * escapes, {@code .}, simple character classes with the {@code \d \s \w}
+ * families, capturing and non-capturing groups, alternation, greedy and
+ * reluctant quantifiers and non-multiline {@code ^} and {@code $}, with no
+ * flags other than {@link Pattern#DOTALL}. Anything else, including
+ * back references, lookaround, possessive quantifiers and quantified
+ * subexpressions that can match the empty string, is left to the
+ * backtracking engine. The pattern has already been compiled by
+ * {@link Pattern}, so syntax errors never reach this class.
+ * <p>
+ * Surrogate pairs are matched as code points, the way the backtracking
+ * engine reads them, except when a greedy {@code .*} or {@code .+} appears
+ * with another {@code .}: that engine steps back over such a loop one
+ * character at a time, so the {@code .} after it may match half a pair.
+ * <p>
+ * Setting the system property
+ * {@code org.apache.harmony.regex.automaton} to {@code false} leaves every
+ * pattern to the backtracking engine.
+ */
+final class AutomatonCompiler {
+
+    private static final boolean ENABLED = !"false" //$NON-NLS-1$
+            .equalsIgnoreCase(AccessController
+                    .doPrivileged(new PrivilegedAction<String>() {
+                        public String run() {
+                            return System
+                                    .getProperty("org.apache.harmony.regex.automaton"); //$NON-NLS-1$
+                        }
+                    }));
+
+    /*
+     * Upper bound on the program length, which counted quantifiers can
+     * blow up.
+     */
+    static final int MAX_PROGRAM_SIZE = 10000;
+
+    private static final int NODE_CHAR = 0;
+
+    private static final int NODE_CLASS = 1;
+
+    private static final int NODE_ANY = 2;
+
+    private static final int NODE_BOL = 3;
+
+    private static final int NODE_EOL = 4;
+
+    private static final int NODE_EMPTY = 5;
+
+    private static final int NODE_CONCAT = 6;
+
+    private static final int NODE_ALT = 7;
+
+    private static final int NODE_GROUP = 8;
+
+    private static final int NODE_REPEAT = 9;
+
+    private static final int INFINITY = -1;
+
+    private static final int[] DIGIT = { '0', '9' };
+
+    private static final int[] SPACE = { 9, 13, ' ', ' ' };
+
+    private static final int[] WORD = { '0', '9', 'A', 'Z', '_', '_', 'a',
+            'z' };
+
+    /*
+     * Thrown when the pattern uses something this compiler does not handle.
+     */
+    private static final class UnsupportedException extends Exception {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final UnsupportedException UNSUPPORTED = new UnsupportedException();
+
+    private static final class Node {
+        final int type;
+
+        int value;
+
+        int min;
+
+        int max;
+
+        boolean greedy;
+
+        Node child;
+
+        ArrayList<Node> children;
+
+        Node(int type) {
+            this.type = type;
+        }
+    }
+
+    private final String pattern;
+
+    private final boolean dotAll;
+
+    private int index;
+
+    private int groupCount;
+
+    private boolean anchored;
+
+    /*
+     * The number of dots in the pattern, and whether one of them is repeated
+     * by a greedy star or plus.
+     */
+    private int dots;
+
+    private boolean dotLoop;
+
+    /*
+     * Whether emitting the program for the reversed pattern, which has no
+     * group marks.
+     */
+    private boolean reversed;
+
+    private final ArrayList<int[]> classes = new ArrayList<int[]>();
+
+    private int[] ops = new int[64];
+
+    private int[] args = new int[64];
+
+    private int[] args2 = new int[64];
+
+    private int size;
+
+    private AutomatonCompiler(String pattern, boolean dotAll) {
+        this.pattern = pattern;
+        this.dotAll = dotAll;
+    }
+
+    /**
+     * Compiles the pattern into an automaton that falls back on the given
+     * backtracking set, or answers {@code null} if the pattern needs the
+     * backtracking engine.
+     */
+    static AutomatonSet compile(String pattern, int flags,
+            AbstractSet backtracking) {
+        if (!ENABLED || (flags & ~Pattern.DOTALL) != 0) {
+            return null;
+        }
+        AutomatonCompiler compiler = new AutomatonCompiler(pattern,
+                (flags & Pattern.DOTALL) != 0);
+        try {
+            Node root = compiler.parseAlternation();
+            if (compiler.index < pattern.length()) {
+                return null;
+            }
+            compiler.emit(AutomatonSet.OP_SAVE, 0, 0);
+            compiler.emit(root);
+            compiler.emit(AutomatonSet.OP_SAVE, 1, 0);
+            compiler.emit(AutomatonSet.OP_MATCH, 0, 0);
+            AutomatonSet.Program program = compiler.newProgram();
+
+            // the reversed program finds where a match starts, which the
+            // anchors would complicate
+            AutomatonSet.Program reverse = null;
+            if (!compiler.anchored) {
+                compiler.size = 0;
+                compiler.reversed = true;
+                compiler.emit(root);
+                compiler.emit(AutomatonSet.OP_MATCH, 0, 0);
+                reverse = compiler.newProgram();
+            }
+            boolean readsPairs = !compiler.dotLoop || compiler.dots == 1;
+            return new AutomatonSet(program, reverse, compiler.classes
+                    .toArray(new int[compiler.classes.size()][]),
+                    compiler.groupCount, backtracking, readsPairs);
+        } catch (UnsupportedException e) {
+            return null;
+        }
+    }
+
+    private AutomatonSet.Program newProgram() {
+        int[] o = new int[size];
+        int[] a = new int[size];
+        int[] a2 = new int[size];
+        System.arraycopy(ops, 0, o, 0, size);
+        System.arraycopy(args, 0, a, 0, size);
+        System.arraycopy(args2, 0, a2, 0, size);
+        return new AutomatonSet.Program(o, a, a2);
+    }
+
+    /*
+     * E -> C ('|' C)*
+     */
+    private Node parseAlternation() throws UnsupportedException {
+        Node first = parseConcatenation();
+        if (!lookingAt('|')) {
+            return first;
+        }
+        Node alt = new Node(NODE_ALT);
+        alt.children = new ArrayList<Node>();
+        alt.children.add(first);
+        while (lookingAt('|')) {
+            index++;
+            alt.children.add(parseConcatenation());
+        }
+        return alt;
+    }
+
+    /*
+     * C -> (T Q?)*
+     */
+    private Node parseConcatenation() throws UnsupportedException {
+        ArrayList<Node> children = new ArrayList<Node>();
+        while (index < pattern.length() && !lookingAt('|')
+                && !lookingAt(')')) {
+            children.add(parseQuantifier(parseTerm()));
+        }
+        switch (children.size()) {
+        case 0:
+            return new Node(NODE_EMPTY);
+        case 1:
+            return children.get(0);
+        default:
+            Node concat = new Node(NODE_CONCAT);
+            concat.children = children;
+            return concat;
+        }
+    }
+
+    /*
+     * T -> letter | '.' | '^' | '$' | [range] | (E) | (?:E)
+     */
+    private Node parseTerm() throws UnsupportedException {
+        char ch = pattern.charAt(index++);
+        switch (ch) {
+        case '(': {
+            Node node;
+            if (lookingAt('?')) {
+                if (index + 1 >= pattern.length()
+                        || pattern.charAt(index + 1) != ':') {
+                    throw UNSUPPORTED;
+                }
+                index += 2;
+                node = parseAlternation();
+            } else {
+                node = new Node(NODE_GROUP);
+                node.value = ++groupCount;
+                node.child = parseAlternation();
+            }
+            if (!lookingAt(')')) {
+                throw UNSUPPORTED;
+            }
+            index++;
+            return node;
+        }
+        case '[':
+            return newClass(parseClass());
+        case '.':
+            dots++;
+            return new Node(NODE_ANY);
+        case '^':
+            anchored = true;
+            return new Node(NODE_BOL);
+        case '$':
+            anchored = true;
+            return new Node(NODE_EOL);
+        case '\\': {
+            int[] ranges = parseEscape();
+            if (ranges.length == 2 && ranges[0] == ranges[1]) {
+                return newChar(ranges[0]);
+            }
+            return newClass(ranges);
+        }
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+        case '}':
+        case ']':
+            throw UNSUPPORTED;
+        default:
+            if (Character.isHighSurrogate(ch) && index < pattern.length()
+                    && Character.isLowSurrogate(pattern.charAt(index))) {
+                return newChar(Character.toCodePoint(ch, pattern
+                        .charAt(index++)));
+            }
+            return newChar(ch);
+        }
+    }
+
+    /*
+     * Q -> ('*' | '+' | '?' | {n} | {n,} | {n,m}) '?'?
+     */
+    private Node parseQuantifier(Node term) throws UnsupportedException {
+        if (index >= pattern.length()) {
+            return term;
+        }
+        int min;
+        int max;
+        char quantifier = pattern.charAt(index);
+        switch (quantifier) {
+        case '*':
+            min = 0;
+            max = INFINITY;
+            index++;
+            break;
+        case '+':
+            min = 1;
+            max = INFINITY;
+            index++;
+            break;
+        case '?':
+            min = 0;
+            max = 1;
+            index++;
+            break;
+        case '{':
+            index++;
+            min = parseNumber();
+            if (lookingAt(',')) {
+                index++;
+                max = lookingAt('}') ? INFINITY : parseNumber();
+            } else {
+                max = min;
+            }
+            if (!lookingAt('}')) {
+                throw UNSUPPORTED;
+            }
+            index++;
+            break;
+        default:
+            return term;
+        }
+
+        boolean greedy = true;
+        if (lookingAt('?')) {
+            if (pattern.charAt(index - 1) == '}') {
+                // the backtracking engine lets {n,m}? match the empty string
+                throw UNSUPPORTED;
+            }
+            greedy = false;
+            index++;
+        } else if (lookingAt('+')) {
+            throw UNSUPPORTED;
+        }
+        if (term.type == NODE_BOL || term.type == NODE_EOL
+                || (max != 1 && nullable(term))) {
+            // the engines may disagree on how empty iterations end a loop
+            throw UNSUPPORTED;
+        }
+        if (term.type == NODE_ANY && greedy
+                && (quantifier == '*' || quantifier == '+')) {
+            // the backtracking engine's DotQuantifierSet
+            dotLoop = true;
+        }
+        Node repeat = new Node(NODE_REPEAT);
+        repeat.child = term;
+        repeat.min = min;
+        repeat.max = max;
+        repeat.greedy = greedy;
+        return repeat;
+    }
+
+    private int parseNumber() throws UnsupportedException {
+        int start = index;
+        int value = 0;
+        while (index < pattern.length() && pattern.charAt(index) >= '0'
+                && pattern.charAt(index) <= '9') {
+            value = value * 10 + pattern.charAt(index++) - '0';
+            if (value > MAX_PROGRAM_SIZE) {
+                throw UNSUPPORTED;
+            }
+        }
+        if (index == start) {
+            throw UNSUPPORTED;
+        }
+        return value;
+    }
+
+    /*
+     * Parses the body of a [...] range, the opening bracket already read,
+     * into sorted, disjoint ranges.
+     */
+    private int[] parseClass() throws UnsupportedException {
+        boolean negative = false;
+        if (lookingAt('^')) {
+            negative = true;
+            index++;
+        }
+        int[] ranges = new int[0];
+        if (lookingAt(']')) {
+            throw UNSUPPORTED;
+        }
+        while (!lookingAt(']')) {
+            if (index >= pattern.length()) {
+                throw UNSUPPORTED;
+            }
+            int[] item = parseClassChar();
+            if (lookingAt('-')) {
+                index++;
+                if (lookingAt(']') || item[0] != item[1]) {
+                    throw UNSUPPORTED;
+                }
+                int[] hi = parseClassChar();
+                if (hi[0] != hi[1] || hi[0] < item[0]) {
+                    throw UNSUPPORTED;
+                }
+                item = new int[] { item[0], hi[0] };
+            }
+            ranges = union(ranges, item);
+        }
+        index++;
+        return negative ? complement(ranges) : ranges;
+    }
+
+    private int[] parseClassChar() throws UnsupportedException {
+        char ch = pattern.charAt(index++);
+        switch (ch) {
+        case '\\':
+            return parseEscape();
+        case '[':
+        case '&':
+        case '^':
+        case '-':
+            throw UNSUPPORTED;
+        default:
+            checkCharacter(ch);
+            return new int[] { ch, ch };
+        }
+    }
+
+    /*
+     * Parses an escape, the backslash already read, into the ranges it
+     * matches; a single character is a range of one.
+     */
+    private int[] parseEscape() throws UnsupportedException {
+        if (index >= pattern.length()) {
+            throw UNSUPPORTED;
+        }
+        char ch = pattern.charAt(index++);
+        int value;
+        switch (ch) {
+        case 'd':
+            return DIGIT;
+        case 'D':
+            return complement(DIGIT);
+        case 's':
+            return SPACE;
+        case 'S':
+            return complement(SPACE);
+        case 'w':
+            return WORD;
+        case 'W':
+            return complement(WORD);
+        case 't':
+            value = '\t';
+            break;
+        case 'n':
+            value = '\n';
+            break;
+        case 'r':
+            value = '\r';
+            break;
+        case 'f':
+            value = '\f';
+            break;
+        case 'a':
+            value = '\u0007';
+            break;
+        case 'e':
+            value = '\u001B';
+            break;
+        case 'x':
+            value = parseHex(2);
+            break;
+        case 'u':
+            value = parseHex(4);
+            break;
+        default:
+            if (ch >= 128 || Character.isLetterOrDigit(ch)) {
+                throw UNSUPPORTED;
+            }
+            value = ch;
+        }
+        checkCharacter(value);
+        return new int[] { value, value };
+    }
+
+    private int parseHex(int digits) throws UnsupportedException {
+        if (index + digits > pattern.length()) {
+            throw UNSUPPORTED;
+        }
+        int value = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = Character.digit(pattern.charAt(index++), 16);
+            if (digit < 0) {
+                throw UNSUPPORTED;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /*
+     * The backtracking engine matches surrogates that are not part of a pair
+     * as single characters, so the pattern must not mention them.
+     */
+    private static void checkCharacter(int ch) throws UnsupportedException {
+        if (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    private boolean lookingAt(char ch) {
+        return index < pattern.length() && pattern.charAt(index) == ch;
+    }
+
+    private Node newChar(int ch) throws UnsupportedException {
+        checkCharacter(ch);
+        Node node = new Node(NODE_CHAR);
+        node.value = ch;
+        return node;
+    }
+
+    private Node newClass(int[] ranges) {
+        Node node = new Node(NODE_CLASS);
+        node.value = classes.size();
+        classes.add(ranges);
+        return node;
+    }
+
+    /*
+     * Answers the union of two sorted lists of disjoint ranges.
+     */
+    private static int[] union(int[] a, int[] b) {
+        int[] res = new int[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            int lo;
+            int hi;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                lo = a[i++];
+                hi = a[i++];
+            } else {
+                lo = b[j++];
+                hi = b[j++];
+            }
+            if (n > 0 && lo <= res[n - 1] + 1) {
+                res[n - 1] = Math.max(res[n - 1], hi);
+            } else {
+                res[n++] = lo;
+                res[n++] = hi;
+            }
+        }
+        int[] trimmed = new int[n];
+        System.arraycopy(res, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    /*
+     * Answers the complement of sorted ranges among all code points.
+     */
+    private static int[] complement(int[] ranges) {
+        int[] res = new int[ranges.length + 2];
+        int n = 0;
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                res[n++] = next;
+                res[n++] = ranges[i] - 1;
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_CODE_POINT) {
+            res[n++] = next;
+            res[n++] = Character.MAX_CODE_POINT;
+        }
+        int[] trimmed = new int[n];
+        System.arraycopy(res, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    private static boolean nullable(Node node) {
+        switch (node.type) {
+        case NODE_CHAR:
+        case NODE_CLASS:
+        case NODE_ANY:
+            return false;
+        case NODE_CONCAT:
+            for (Node child : node.children) {
+                if (!nullable(child)) {
+                    return false;
+                }
+            }
+            return true;
+        case NODE_ALT:
+            for (Node child : node.children) {
+                if (nullable(child)) {
+                    return true;
+                }
+            }
+            return false;
+        case NODE_GROUP:
+            return nullable(node.child);
+        case NODE_REPEAT:
+            return node.min == 0 || nullable(node.child);
+        default:
+            return true;
+        }
+    }
+
+    private int emit(int op, int arg, int arg2) throws UnsupportedException {
+        if (size == MAX_PROGRAM_SIZE) {
+            throw UNSUPPORTED;
+        }
+        if (size == ops.length) {
+            int[] o = new int[size * 2];
+            int[] a = new int[size * 2];
+            int[] a2 = new int[size * 2];
+            System.arraycopy(ops, 0, o, 0, size);
+            System.arraycopy(args, 0, a, 0, size);
+            System.arraycopy(args2, 0, a2, 0, size);
+            ops = o;
+            args = a;
+            args2 = a2;
+        }
+        ops[size] = op;
+        args[size] = arg;
+        args2[size] = arg2;
+        return size++;
+    }
+
+    /*
+     * Emits the instructions for a node.  A split prefers its first target,
+     * which gives the threads the priorities of the backtracking order.
+     */
+    private void emit(Node node) throws UnsupportedException {
+        switch (node.type) {
+        case NODE_CHAR:
+            emit(AutomatonSet.OP_CHAR, node.value, 0);
+            break;
+        case NODE_CLASS:
+            emit(AutomatonSet.OP_CLASS, node.value, 0);
+            break;
+        case NODE_ANY:
+            emit(dotAll ? AutomatonSet.OP_ANY : AutomatonSet.OP_DOT, 0, 0);
+            break;
+        case NODE_BOL:
+            emit(AutomatonSet.OP_BOL, 0, 0);
+            break;
+        case NODE_EOL:
+            emit(AutomatonSet.OP_EOL, 0, 0);
+            break;
+        case NODE_EMPTY:
+            break;
+        case NODE_CONCAT:
+            for (int i = 0; i < node.children.size(); i++) {
+                emit(node.children.get(reversed ? node.children.size() - i
+                        - 1 : i));
+            }
+            break;
+        case NODE_ALT: {
+            int count = node.children.size();
+            int[] jumps = new int[count - 1];
+            for (int i = 0; i < count - 1; i++) {
+                int split = emit(AutomatonSet.OP_SPLIT, 0, 0);
+                args[split] = size;
+                emit(node.children.get(i));
+                jumps[i] = emit(AutomatonSet.OP_JMP, 0, 0);
+                args2[split] = size;
+            }
+            emit(node.children.get(count - 1));
+            for (int jump : jumps) {
+                args[jump] = size;
+            }
+            break;
+        }
+        case NODE_GROUP:
+            if (reversed) {
+                emit(node.child);
+            } else {
+                emit(AutomatonSet.OP_SAVE, node.value * 2, 0);
+                emit(node.child);
+                emit(AutomatonSet.OP_SAVE, node.value * 2 + 1, 0);
+            }
+            break;
+        case NODE_REPEAT:
+            emitRepeat(node);
+            break;
+        }
+    }
+
+    private void emitRepeat(Node node) throws UnsupportedException {
+        for (int i = 0; i < node.min; i++) {
+            emit(node.child);
+        }
+        if (node.max == INFINITY) {
+            int split = emit(AutomatonSet.OP_SPLIT, 0, 0);
+            int body = size;
+            emit(node.child);
+            emit(AutomatonSet.OP_JMP, split, 0);
+            setSplit(split, body, size, node.greedy);
+        } else {
+            int optional = node.max - node.min;
+            int[] splits = new int[optional];
+            int[] bodies = new int[optional];
+            for (int i = 0; i < optional; i++) {
+                splits[i] = emit(AutomatonSet.OP_SPLIT, 0, 0);
+                bodies[i] = size;
+                emit(node.child);
+            }
+            for (int i = 0; i < optional; i++) {
+                setSplit(splits[i], bodies[i], size, node.greedy);
+            }
+        }
+    }
+
+    private void setSplit(int split, int body, int out, boolean greedy) {
+        args[split] = greedy ? body : out;
+        args2[split] = greedy ? out : body;
+    }
+}
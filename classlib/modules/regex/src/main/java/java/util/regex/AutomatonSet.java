@@ -0,0 +1,963 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package java.util.regex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Matches with the program built by {@link AutomatonCompiler} without
+ * backtracking, in time linear in the length of the input whatever the
+ * pattern.
+ * <p>
+ * The program is a Thompson NFA. A lazy DFA, whose states are the sets of
+ * NFA threads alive and are built as the input needs them, tells whether
+ * and where a match ends; a second one, run backwards over the reversed
+ * pattern, tells where it starts. The groups are then found by simulating
+ * the NFA threads in lock step (the Pike VM) over the match alone. That
+ * simulation is also used when the DFA would grow too big or the pattern
+ * has anchors.
+ * <p>
+ * The threads are kept in priority order and the first one to reach the end
+ * of the program cuts off the ones below it, which yields the same match and
+ * groups as the backtracking engine would.
+ * <p>
+ * A surrogate pair is read as one code point, the way the backtracking engine
+ * matches it. That engine is kept as a fallback for surrogates that are not
+ * part of a pair, which it matches as single characters, and for patterns
+ * where it may split a pair (see {@link AutomatonCompiler}).
+ */
+final class AutomatonSet extends AbstractSet {
+
+    static final int OP_CHAR = 0;
+
+    static final int OP_CLASS = 1;
+
+    static final int OP_DOT = 2;
+
+    static final int OP_ANY = 3;
+
+    static final int OP_MATCH = 4;
+
+    static final int OP_JMP = 5;
+
+    static final int OP_SPLIT = 6;
+
+    static final int OP_SAVE = 7;
+
+    static final int OP_BOL = 8;
+
+    static final int OP_EOL = 9;
+
+    /*
+     * Upper bound on the number of states each DFA builds.
+     */
+    static final int MAX_DFA_STATES = 256;
+
+    /*
+     * Answered when the input needs the backtracking engine.
+     */
+    private static final int FALLBACK = -2;
+
+    /*
+     * Answered when the DFA has grown too big.
+     */
+    private static final int NO_DFA = -3;
+
+    /**
+     * A compiled program: an instruction is an opcode with up to two
+     * arguments.
+     */
+    static final class Program {
+        final int[] ops;
+
+        final int[] args;
+
+        final int[] args2;
+
+        Program(int[] ops, int[] args, int[] args2) {
+            this.ops = ops;
+            this.args = args;
+            this.args2 = args2;
+        }
+    }
+
+    private final Program program;
+
+    private final int[][] ranges;
+
+    private final boolean[][] asciiBits;
+
+    private final int groupCount;
+
+    private final AbstractSet backtracking;
+
+    /*
+     * Whether surrogate pairs are read as code points, or every surrogate
+     * is left to the backtracking engine.
+     */
+    private final boolean readsPairs;
+
+    /*
+     * The instructions which may consume the first character of a match, or
+     * null if a match may be empty or start with any character.
+     */
+    private final int[] firstOps;
+
+    private final boolean[] firstAscii;
+
+    /*
+     * The literal every match starts with, if longer than a character.
+     */
+    private final String prefix;
+
+    /*
+     * The DFA for find, for lookingAt, for matches and the one finding the
+     * start of a match, or all null if the pattern has anchors.
+     */
+    private final Dfa searchDfa;
+
+    private final Dfa prefixDfa;
+
+    private final Dfa wholeDfa;
+
+    private final Dfa reverseDfa;
+
+    AutomatonSet(Program program, Program reverse, int[][] ranges,
+            int groupCount, AbstractSet backtracking, boolean readsPairs) {
+        this.program = program;
+        this.ranges = ranges;
+        this.groupCount = groupCount;
+        this.backtracking = backtracking;
+        this.readsPairs = readsPairs;
+        asciiBits = new boolean[ranges.length][128];
+        for (int i = 0; i < ranges.length; i++) {
+            for (int ch = 0; ch < 128; ch++) {
+                asciiBits[i][ch] = inRanges(ranges[i], ch);
+            }
+        }
+
+        firstOps = computeFirstOps();
+        firstAscii = new boolean[128];
+        if (firstOps != null) {
+            for (int ch = 0; ch < 128; ch++) {
+                firstAscii[ch] = mayStartWith(ch);
+            }
+        }
+        int length = 0;
+        while (program.ops[length + 1] == OP_CHAR) {
+            length++;
+        }
+        if (length > 1) {
+            StringBuilder chars = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                chars.appendCodePoint(program.args[i + 1]);
+            }
+            prefix = chars.toString();
+        } else {
+            prefix = null;
+        }
+
+        if (reverse != null) {
+            searchDfa = new Dfa(program, true, true);
+            prefixDfa = new Dfa(program, false, true);
+            wholeDfa = new Dfa(program, false, false);
+            reverseDfa = new Dfa(reverse, false, false);
+        } else {
+            searchDfa = null;
+            prefixDfa = null;
+            wholeDfa = null;
+            reverseDfa = null;
+        }
+    }
+
+    /*
+     * Collects the instructions reachable from the start without consuming
+     * anything, taking every anchor as satisfied.
+     */
+    private int[] computeFirstOps() {
+        int[] ops = program.ops;
+        boolean[] visited = new boolean[ops.length];
+        int[] stack = new int[ops.length];
+        int[] res = new int[ops.length];
+        int n = 0;
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int pc = stack[--sp];
+            while (!visited[pc]) {
+                visited[pc] = true;
+                int op = ops[pc];
+                if (op == OP_JMP) {
+                    pc = program.args[pc];
+                } else if (op == OP_SPLIT) {
+                    stack[sp++] = program.args2[pc];
+                    pc = program.args[pc];
+                } else if (op == OP_SAVE || op == OP_BOL || op == OP_EOL) {
+                    pc++;
+                } else if (op == OP_CHAR || op == OP_CLASS) {
+                    res[n++] = pc;
+                    break;
+                } else {
+                    return null;
+                }
+            }
+        }
+        int[] trimmed = new int[n];
+        System.arraycopy(res, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    /*
+     * Answers whether a match may start with the given character.
+     */
+    private boolean mayStartWith(int ch) {
+        for (int pc : firstOps) {
+            if (consumes(program, pc, ch)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean mayStartAt(int ch) {
+        return ch < 128 ? firstAscii[ch] : mayStartWith(ch);
+    }
+
+    /*
+     * Answers the first index from the given one where a match may start,
+     * or the right bound.
+     */
+    private int skip(CharSequence testString, int from, int rightBound) {
+        int pos = from;
+        if (prefix != null) {
+            int last = rightBound - prefix.length();
+            if (testString instanceof String) {
+                pos = ((String) testString).indexOf(prefix, pos);
+                return pos >= 0 && pos <= last ? pos : rightBound;
+            }
+            while (pos <= last && !regionMatchesPrefix(testString, pos)) {
+                pos++;
+            }
+            return pos <= last ? pos : rightBound;
+        }
+        while (pos < rightBound) {
+            int ch = codePointAt(testString, pos, rightBound);
+            if (mayStartAt(ch)) {
+                break;
+            }
+            pos += Character.charCount(ch);
+        }
+        return pos;
+    }
+
+    private boolean regionMatchesPrefix(CharSequence testString, int pos) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (testString.charAt(pos + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int groupCount() {
+        return groupCount;
+    }
+
+    public int matches(int stringIndex, CharSequence testString,
+            MatchResultImpl matchResult) {
+        boolean wholeRegion = matchResult.mode() == Matcher.MODE_MATCH;
+        int res = NO_DFA;
+        if (searchDfa != null) {
+            res = matchDfa(stringIndex, testString, matchResult, wholeRegion);
+        }
+        if (res == NO_DFA) {
+            res = run(stringIndex, testString, matchResult, false,
+                    wholeRegion);
+        }
+        if (res == FALLBACK) {
+            return backtracking.matches(stringIndex, testString, matchResult);
+        }
+        return res;
+    }
+
+    public int find(int stringIndex, CharSequence testString,
+            MatchResultImpl matchResult) {
+        int res = NO_DFA;
+        if (searchDfa != null) {
+            res = findDfa(stringIndex, testString, matchResult);
+        }
+        if (res == NO_DFA) {
+            res = run(stringIndex, testString, matchResult, true, false);
+        }
+        if (res == FALLBACK) {
+            return backtracking.find(stringIndex, testString, matchResult);
+        }
+        return res;
+    }
+
+    public boolean hasConsumed(MatchResultImpl matchResult) {
+        return true;
+    }
+
+    protected String getName() {
+        return "<Automaton>"; //$NON-NLS-1$
+    }
+
+    /*
+     * Finds the match with the DFAs, answering its start, -1 if there is
+     * none, FALLBACK or NO_DFA.
+     */
+    private int findDfa(int startIndex, CharSequence testString,
+            MatchResultImpl matchResult) {
+        int rightBound = matchResult.getRightBound();
+        DfaState start = searchDfa.start;
+        DfaState state = start;
+        int end = -1;
+        int pos = startIndex;
+        for (;;) {
+            if (state.match) {
+                end = pos;
+            }
+            if (state.pcs.length == 0) {
+                if (pos < rightBound
+                        && isSurrogate(codePointAt(testString, pos,
+                                rightBound))) {
+                    return FALLBACK;
+                }
+                break;
+            }
+            if (state == start && firstOps != null) {
+                pos = skip(testString, pos, rightBound);
+            }
+            if (pos >= rightBound) {
+                // threads are started at the end only if a match may be
+                // empty or start with any character
+                if (state != start || firstOps == null || pos == startIndex) {
+                    matchResult.hitEnd = true;
+                }
+                break;
+            }
+            int ch = codePointAt(testString, pos, rightBound);
+            if (isSurrogate(ch)) {
+                return FALLBACK;
+            }
+            pos += Character.charCount(ch);
+            state = searchDfa.next(state, ch);
+            if (state == null) {
+                return NO_DFA;
+            }
+        }
+        if (end < 0) {
+            return -1;
+        }
+
+        // the match starts as far back as the reversed pattern reaches
+        state = reverseDfa.start;
+        int begin = -1;
+        pos = end;
+        for (;;) {
+            if (state.match) {
+                begin = pos;
+            }
+            if (state.pcs.length == 0 || pos == startIndex) {
+                break;
+            }
+            int ch = codePointBefore(testString, pos, startIndex);
+            if (isSurrogate(ch)) {
+                return FALLBACK;
+            }
+            pos -= Character.charCount(ch);
+            state = reverseDfa.next(state, ch);
+            if (state == null) {
+                return NO_DFA;
+            }
+        }
+        return setMatch(begin, end, testString, matchResult) ? begin
+                : NO_DFA;
+    }
+
+    /*
+     * Matches at the given index with the DFA, answering the end of the
+     * match, -1 if there is none, FALLBACK or NO_DFA.
+     */
+    private int matchDfa(int startIndex, CharSequence testString,
+            MatchResultImpl matchResult, boolean wholeRegion) {
+        int rightBound = matchResult.getRightBound();
+        Dfa dfa = wholeRegion ? wholeDfa : prefixDfa;
+        DfaState state = dfa.start;
+        int end = -1;
+        int pos = startIndex;
+        for (;;) {
+            if (state.match && (!wholeRegion || pos == rightBound)) {
+                end = pos;
+            }
+            if (state.pcs.length == 0) {
+                if (pos < rightBound
+                        && isSurrogate(codePointAt(testString, pos,
+                                rightBound))) {
+                    return FALLBACK;
+                }
+                break;
+            }
+            if (pos >= rightBound) {
+                matchResult.hitEnd = true;
+                break;
+            }
+            int ch = codePointAt(testString, pos, rightBound);
+            if (isSurrogate(ch)) {
+                return FALLBACK;
+            }
+            pos += Character.charCount(ch);
+            state = dfa.next(state, ch);
+            if (state == null) {
+                return NO_DFA;
+            }
+        }
+        if (end < 0) {
+            return -1;
+        }
+        return setMatch(startIndex, end, testString, matchResult) ? end
+                : NO_DFA;
+    }
+
+    /*
+     * Sets the bounds of the match and, running the NFA over it, of the
+     * groups.
+     */
+    private boolean setMatch(int begin, int end, CharSequence testString,
+            MatchResultImpl matchResult) {
+        if (groupCount == 0) {
+            matchResult.setStart(0, begin);
+            matchResult.setEnd(0, end);
+            matchResult.setValid();
+            return true;
+        }
+        boolean hitEnd = matchResult.hitEnd;
+        int res = run(begin, testString, matchResult, false, false);
+        matchResult.hitEnd = hitEnd;
+        return res == end;
+    }
+
+    /*
+     * Runs the NFA from the given index, answering the start of the match
+     * for find and its end otherwise, -1 if there is no match, or FALLBACK.
+     */
+    private int run(int startIndex, CharSequence testString,
+            MatchResultImpl matchResult, boolean find, boolean wholeRegion) {
+        int[] ops = program.ops;
+        int rightBound = matchResult.getRightBound();
+        Machine m = matchResult.machine;
+        if (m == null || m.owner != this) {
+            m = new Machine(this);
+            matchResult.machine = m;
+        }
+        ThreadList clist = m.clist;
+        ThreadList nlist = m.nlist;
+        int[] work = m.work;
+        int[] marks = m.marks;
+        int ncap = work.length;
+        clist.count = 0;
+        m.nextGeneration();
+
+        boolean matched = false;
+        boolean hitEnd = false;
+        int ch = -1;
+        for (int pos = startIndex;; pos += Character.charCount(ch)) {
+            if (find && !matched && clist.count == 0 && firstOps != null) {
+                // no thread alive, skip to where a match may start
+                pos = skip(testString, pos, rightBound);
+            }
+            ch = pos < rightBound ? codePointAt(testString, pos, rightBound)
+                    : -1;
+            if (!matched
+                    && (pos == startIndex || find
+                            && (firstOps == null || ch >= 0
+                                    && mayStartAt(ch)))) {
+                for (int i = 0; i < ncap; i++) {
+                    work[i] = -1;
+                }
+                addThread(m, clist, 0, pos, testString, matchResult);
+            }
+            if (clist.count == 0) {
+                if (matched || !find || pos >= rightBound) {
+                    break;
+                }
+                m.nextGeneration();
+                continue;
+            }
+            if (isSurrogate(ch)) {
+                return FALLBACK;
+            }
+
+            m.nextGeneration();
+            nlist.count = 0;
+            int[] pcs = clist.pcs;
+            int[] caps = clist.caps;
+            for (int i = 0; i < clist.count; i++) {
+                int pc = pcs[i];
+                if (ops[pc] == OP_MATCH) {
+                    if (!wholeRegion || pos == rightBound) {
+                        System.arraycopy(caps, i * ncap, m.best, 0, ncap);
+                        matched = true;
+                        break;
+                    }
+                } else if (ch < 0) {
+                    hitEnd = true;
+                } else if (consumes(program, pc, ch)) {
+                    int next = pc + 1;
+                    if (ops[next] <= OP_MATCH) {
+                        // nothing to follow, add the thread directly
+                        if (marks[next] != m.gen) {
+                            marks[next] = m.gen;
+                            int n = nlist.count++;
+                            nlist.pcs[n] = next;
+                            System.arraycopy(caps, i * ncap, nlist.caps, n
+                                    * ncap, ncap);
+                        }
+                    } else {
+                        System.arraycopy(caps, i * ncap, work, 0, ncap);
+                        addThread(m, nlist, next, pos + Character.charCount(ch),
+                                testString, matchResult);
+                    }
+                }
+            }
+
+            ThreadList tmp = clist;
+            clist = nlist;
+            nlist = tmp;
+            if (ch < 0) {
+                break;
+            }
+        }
+        m.clist = clist;
+        m.nlist = nlist;
+
+        if (hitEnd) {
+            matchResult.hitEnd = true;
+        }
+        if (!matched) {
+            return -1;
+        }
+        int[] best = m.best;
+        for (int i = 0; i <= groupCount; i++) {
+            matchResult.setStart(i, best[i * 2]);
+            matchResult.setEnd(i, best[i * 2 + 1]);
+        }
+        matchResult.setValid();
+        return find ? best[0] : best[1];
+    }
+
+    /*
+     * Adds to the list the thread at the given instruction with the groups
+     * in the machine's work array, following jumps, splits, group marks and
+     * anchors, in priority order, up to the instructions that consume a
+     * character or end the match.
+     */
+    private void addThread(Machine m, ThreadList list, int pc0, int pos,
+            CharSequence testString, MatchResultImpl matchResult) {
+        int[] ops = program.ops;
+        int[] args = program.args;
+        int[] marks = m.marks;
+        int[] stack = m.stack;
+        int[] work = m.work;
+        int gen = m.gen;
+        int sp = 0;
+
+        stack[sp++] = pc0;
+        while (sp > 0) {
+            int pc = stack[--sp];
+            if (pc < 0) {
+                // restores a group mark on the way back
+                work[-pc - 1] = stack[--sp];
+                continue;
+            }
+            while (marks[pc] != gen) {
+                marks[pc] = gen;
+                int op = ops[pc];
+                if (op == OP_JMP) {
+                    pc = args[pc];
+                } else if (op == OP_SPLIT) {
+                    stack[sp++] = program.args2[pc];
+                    pc = args[pc];
+                } else if (op == OP_SAVE) {
+                    int slot = args[pc];
+                    stack[sp++] = work[slot];
+                    stack[sp++] = -slot - 1;
+                    work[slot] = pos;
+                    pc++;
+                } else if (op == OP_BOL) {
+                    if (!isLineStart(pos, matchResult)) {
+                        break;
+                    }
+                    pc++;
+                } else if (op == OP_EOL) {
+                    if (!isLineEnd(pos, testString, matchResult)) {
+                        break;
+                    }
+                    pc++;
+                } else {
+                    int n = list.count++;
+                    list.pcs[n] = pc;
+                    System.arraycopy(work, 0, list.caps, n * work.length,
+                            work.length);
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean consumes(Program p, int pc, int ch) {
+        switch (p.ops[pc]) {
+        case OP_CHAR:
+            return p.args[pc] == ch;
+        case OP_CLASS:
+            return ch < 128 ? asciiBits[p.args[pc]][ch] : inRanges(
+                    ranges[p.args[pc]], ch);
+        case OP_DOT:
+            return ch != '\n' && ch != '\r' && ch != '\u0085'
+                    && (ch | 1) != '\u2029';
+        default:
+            return true;
+        }
+    }
+
+    /*
+     * Answers the code point at the index, reading a surrogate pair within
+     * the bound as one if the pattern allows.
+     */
+    private int codePointAt(CharSequence testString, int pos, int rightBound) {
+        char ch = testString.charAt(pos);
+        if (readsPairs && Character.isHighSurrogate(ch)
+                && pos + 1 < rightBound) {
+            char low = testString.charAt(pos + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(ch, low);
+            }
+        }
+        return ch;
+    }
+
+    /*
+     * Answers the code point before the index, reading a surrogate pair
+     * within the bound as one if the pattern allows.
+     */
+    private int codePointBefore(CharSequence testString, int pos,
+            int leftBound) {
+        char ch = testString.charAt(pos - 1);
+        if (readsPairs && Character.isLowSurrogate(ch)
+                && pos - 2 >= leftBound) {
+            char high = testString.charAt(pos - 2);
+            if (Character.isHighSurrogate(high)) {
+                return Character.toCodePoint(high, ch);
+            }
+        }
+        return ch;
+    }
+
+    /*
+     * Answers whether the character is a surrogate left alone, which the
+     * backtracking engine matches as a single character.
+     */
+    private static boolean isSurrogate(int ch) {
+        return ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE;
+    }
+
+    private static boolean inRanges(int[] ranges, int ch) {
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ch < ranges[mid * 2]) {
+                high = mid - 1;
+            } else if (ch > ranges[mid * 2 + 1]) {
+                low = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Same as SOLSet.
+     */
+    private static boolean isLineStart(int pos, MatchResultImpl matchResult) {
+        return pos == 0
+                || (matchResult.hasAnchoringBounds() && pos == matchResult
+                        .getLeftBound());
+    }
+
+    /*
+     * Same as EOLSet.
+     */
+    private static boolean isLineEnd(int pos, CharSequence testString,
+            MatchResultImpl matchResult) {
+        int rightBound = matchResult.hasAnchoringBounds() ? matchResult
+                .getRightBound() : testString.length();
+        if (pos >= rightBound) {
+            return true;
+        }
+        if (rightBound - pos == 2) {
+            return testString.charAt(pos) == '\r'
+                    && testString.charAt(pos + 1) == '\n';
+        }
+        if (rightBound - pos == 1) {
+            char ch = testString.charAt(pos);
+            return ch == '\n' || ch == '\r' || ch == '\u0085'
+                    || (ch | 1) == '\u2029';
+        }
+        return false;
+    }
+
+    /*
+     * A DFA state: the instructions of the threads alive, in priority
+     * order, whether one of them has reached the end of the program, and
+     * the transitions on ASCII characters computed so far.
+     */
+    static final class DfaState {
+        final int[] pcs;
+
+        final boolean match;
+
+        /*
+         * Whether a match has been found before, which stops the search
+         * from starting threads.
+         */
+        final boolean matched;
+
+        final DfaState[] next = new DfaState[128];
+
+        DfaState(int[] pcs, boolean match, boolean matched) {
+            this.pcs = pcs;
+            this.match = match;
+            this.matched = matched;
+        }
+    }
+
+    /*
+     * A lazily built DFA. States are shared by all the matchers of the
+     * pattern, so they are built under the DFA's lock and published with
+     * their final fields; reading a transition needs no lock.
+     */
+    final class Dfa {
+        private final Program p;
+
+        /*
+         * Whether threads are started at every index, for find.
+         */
+        private final boolean search;
+
+        /*
+         * Whether a thread reaching the end of the program cuts off the
+         * threads below it, which finds the match the backtracking engine
+         * would, rather than telling whether some thread matches.
+         */
+        private final boolean firstMatch;
+
+        private final HashMap<String, DfaState> states = new HashMap<String, DfaState>();
+
+        private final int[] marks;
+
+        private final int[] stack;
+
+        private int[] list;
+
+        private int count;
+
+        private int gen;
+
+        private boolean full;
+
+        final DfaState start;
+
+        Dfa(Program p, boolean search, boolean firstMatch) {
+            this.p = p;
+            this.search = search;
+            this.firstMatch = firstMatch;
+            marks = new int[p.ops.length];
+            stack = new int[p.ops.length];
+            list = new int[p.ops.length];
+            gen++;
+            closure(0);
+            start = intern(false);
+        }
+
+        /*
+         * Answers the state after reading the character, or null if the
+         * DFA has too many states.
+         */
+        DfaState next(DfaState state, int ch) {
+            if (ch < 128) {
+                DfaState res = state.next[ch];
+                if (res != null) {
+                    return res;
+                }
+            }
+            synchronized (this) {
+                if (full) {
+                    return null;
+                }
+                if (++gen == Integer.MAX_VALUE) {
+                    Arrays.fill(marks, 0);
+                    gen = 1;
+                }
+                count = 0;
+                for (int pc : state.pcs) {
+                    if (consumes(p, pc, ch)) {
+                        closure(pc + 1);
+                    }
+                }
+                boolean matched = search && (state.matched || state.match);
+                if (search && !matched) {
+                    closure(0);
+                }
+                DfaState res = intern(matched);
+                if (res != null && ch < 128) {
+                    state.next[ch] = res;
+                }
+                return res;
+            }
+        }
+
+        /*
+         * Adds the threads reached from the instruction without consuming
+         * anything, in priority order.
+         */
+        private void closure(int pc0) {
+            int sp = 0;
+            stack[sp++] = pc0;
+            while (sp > 0) {
+                int pc = stack[--sp];
+                while (marks[pc] != gen) {
+                    marks[pc] = gen;
+                    int op = p.ops[pc];
+                    if (op == OP_JMP) {
+                        pc = p.args[pc];
+                    } else if (op == OP_SPLIT) {
+                        stack[sp++] = p.args2[pc];
+                        pc = p.args[pc];
+                    } else if (op == OP_SAVE) {
+                        pc++;
+                    } else {
+                        list[count++] = pc;
+                        break;
+                    }
+                }
+            }
+        }
+
+        /*
+         * Answers the state for the threads in the list, building it if
+         * needed.
+         */
+        private DfaState intern(boolean matched) {
+            boolean match = false;
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (p.ops[list[i]] == OP_MATCH) {
+                    match = true;
+                    if (firstMatch) {
+                        break;
+                    }
+                } else {
+                    list[n++] = list[i];
+                }
+            }
+
+            char[] key = new char[n + 1];
+            for (int i = 0; i < n; i++) {
+                key[i] = (char) list[i];
+            }
+            key[n] = (char) ((match ? 1 : 0) | (matched ? 2 : 0));
+            String k = new String(key);
+            DfaState res = states.get(k);
+            if (res == null) {
+                if (states.size() == MAX_DFA_STATES) {
+                    full = true;
+                    return null;
+                }
+                int[] pcs = new int[n];
+                System.arraycopy(list, 0, pcs, 0, n);
+                res = new DfaState(pcs, match, matched);
+                states.put(k, res);
+            }
+            return res;
+        }
+    }
+
+    /*
+     * Threads in priority order, each an instruction and its group bounds.
+     */
+    static final class ThreadList {
+        final int[] pcs;
+
+        final int[] caps;
+
+        int count;
+
+        ThreadList(int size, int ncap) {
+            pcs = new int[size];
+            caps = new int[size * ncap];
+        }
+    }
+
+    /*
+     * Working storage for running the NFA, kept by the match result so that
+     * repeated matching does not allocate.
+     */
+    static final class Machine {
+        final AutomatonSet owner;
+
+        ThreadList clist;
+
+        ThreadList nlist;
+
+        final int[] work;
+
+        final int[] best;
+
+        final int[] marks;
+
+        final int[] stack;
+
+        int gen;
+
+        Machine(AutomatonSet owner) {
+            int size = owner.program.ops.length;
+            int ncap = (owner.groupCount + 1) * 2;
+            this.owner = owner;
+            clist = new ThreadList(size, ncap);
+            nlist = new ThreadList(size, ncap);
+            work = new int[ncap];
+            best = new int[ncap];
+            marks = new int[size];
+            stack = new int[size * 2];
+        }
+
+        /*
+         * Starts a new thread list, clearing the marks of the old ones.
+         */
+        void nextGeneration() {
+            if (++gen == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                gen = 1;
+            }
+        }
+    }
+}
@@ -62,6 +62,8 @@ class MatchResultImpl implements MatchResult {
 
     private int mode;
 
+    AutomatonSet.Machine machine;
+
     MatchResultImpl(CharSequence string, int leftBound, int rightBound,
             int groupCount, int compQuantCount, int consumersCount) {
         this.groupCount = ++groupCount;
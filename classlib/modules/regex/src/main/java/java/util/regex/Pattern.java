@@ -342,6 +342,12 @@ public final class Pattern implements Serializable {
                     lexemes.getIndex());
         }
         finalizeCompile();
+
+        AutomatonSet automaton = AutomatonCompiler.compile(pattern, flags,
+                start);
+        if (automaton != null && automaton.groupCount() == groupCount()) {
+            start = automaton;
+        }
         return this;
     }
 
@@ -735,6 +735,129 @@ public class MatcherTest extends TestCase {
                 "----1 fish 2 fish red fish 5----", false);
     }
 
+    /*
+     * Patterns which take exponential time to fail with backtracking
+     */
+    public void testNestedQuantifiers() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sb.append('a');
+        }
+        String input = sb.append('c').toString();
+
+        assertFalse(Pattern.compile("(a+)+b").matcher(input).find());
+        assertFalse(Pattern.compile("(a|aa)*b").matcher(input).matches());
+        assertFalse(Pattern.compile("(?:a|a)*b").matcher(input).lookingAt());
+
+        Matcher matcher = Pattern.compile("(a|aa)+c").matcher(input);
+        assertTrue(matcher.find());
+        assertEquals(0, matcher.start());
+        assertEquals(51, matcher.end());
+        assertEquals("a", matcher.group(1));
+    }
+
+    public void testGroupsFollowBacktrackingOrder() {
+        Matcher matcher = Pattern.compile("(a|ab)(c|bcd)(d*)").matcher("abcd");
+        assertTrue(matcher.matches());
+        assertEquals("a", matcher.group(1));
+        assertEquals("bcd", matcher.group(2));
+        assertEquals("", matcher.group(3));
+
+        matcher = Pattern.compile("(a+?)(a*)(b)?").matcher("aaa");
+        assertTrue(matcher.lookingAt());
+        assertEquals("a", matcher.group(1));
+        assertEquals("aa", matcher.group(2));
+        assertNull(matcher.group(3));
+
+        matcher = Pattern.compile("(?:x(\\d)|y)+").matcher("-x1y-");
+        assertTrue(matcher.find());
+        assertEquals(1, matcher.start());
+        assertEquals(4, matcher.end());
+        assertEquals("1", matcher.group(1));
+    }
+
+    public void testSupplementaryInputWithSimplePattern() {
+        Matcher matcher = Pattern.compile("a.(b)").matcher("xa\uD801\uDC00b");
+        assertTrue(matcher.find());
+        assertEquals(1, matcher.start());
+        assertEquals(5, matcher.end());
+        assertEquals(4, matcher.start(1));
+    }
+
+    public void testNestedQuantifiersWithSupplementaryInput() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sb.append('a');
+        }
+        String input = sb.append("\uD83D\uDE00c").toString();
+
+        assertFalse(Pattern.compile("(a+)+b").matcher(input).find());
+        assertFalse(Pattern.compile("(a|aa)*b").matcher(input).matches());
+        assertFalse(Pattern.compile("(?:[^b]|a)+b").matcher(input).find());
+
+        Matcher matcher = Pattern.compile("(a|aa)+([^a])c").matcher(input);
+        assertTrue(matcher.find());
+        assertEquals(0, matcher.start());
+        assertEquals(53, matcher.end());
+        assertEquals("\uD83D\uDE00", matcher.group(2));
+    }
+
+    public void testSupplementaryCodePoints() {
+        String input = "1\uD83D\uDE00\uD83D\uDE01x2";
+
+        // a surrogate pair is matched as one character
+        Matcher matcher = Pattern.compile("(\\D)(\\D)x").matcher(input);
+        assertTrue(matcher.find());
+        assertEquals(1, matcher.start());
+        assertEquals("\uD83D\uDE00", matcher.group(1));
+        assertEquals("\uD83D\uDE01", matcher.group(2));
+
+        matcher = Pattern.compile("[^\\d]{3}").matcher(input);
+        assertTrue(matcher.find());
+        assertEquals(1, matcher.start());
+        assertEquals(6, matcher.end());
+
+        matcher = Pattern.compile("1(.)").matcher(input);
+        assertTrue(matcher.lookingAt());
+        assertEquals("\uD83D\uDE00", matcher.group(1));
+        assertFalse(Pattern.compile("1.{4}2").matcher(input).matches());
+        assertTrue(Pattern.compile("1.{3}2").matcher(input).matches());
+
+        matcher = Pattern.compile("(\uD83D\uDE00+)(\\W*)").matcher(input);
+        assertTrue(matcher.find());
+        assertEquals(1, matcher.start());
+        assertEquals("\uD83D\uDE00", matcher.group(1));
+        assertEquals("\uD83D\uDE01", matcher.group(2));
+
+        // a find never starts inside a pair
+        matcher = Pattern.compile("\\W").matcher(input);
+        assertTrue(matcher.find());
+        assertEquals(1, matcher.start());
+        assertTrue(matcher.find());
+        assertEquals(3, matcher.start());
+        assertFalse(matcher.find());
+
+        // nor matches half of one
+        matcher = Pattern.compile("[^x]").matcher(input);
+        matcher.region(2, 7);
+        assertTrue(matcher.find());
+        assertEquals("\uDE00", matcher.group());
+        assertTrue(matcher.find());
+        assertEquals(3, matcher.start());
+        assertEquals(5, matcher.end());
+        matcher.region(0, 4);
+        assertTrue(matcher.find());
+        assertTrue(matcher.find());
+        assertEquals(1, matcher.start());
+        assertTrue(matcher.find());
+        assertEquals("\uD83D", matcher.group());
+
+        // unpaired surrogates
+        assertTrue(Pattern.compile("a.b").matcher("a\uDE00b").matches());
+        assertTrue(Pattern.compile("a\\Wb").matcher("a\uD83Db").matches());
+        assertFalse(Pattern.compile("a.b").matcher("a\uD83D\uD83Db").matches());
+    }
+
     /*
      * Test if Matcher's toString conatain pattern information
      */
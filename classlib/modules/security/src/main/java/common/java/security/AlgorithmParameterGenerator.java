@@ -92,12 +92,10 @@ public class AlgorithmParameterGenerator {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new AlgorithmParameterGenerator(
-                    (AlgorithmParameterGeneratorSpi) engine.spi, engine.provider,
-                    algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new AlgorithmParameterGenerator(
+                (AlgorithmParameterGeneratorSpi) sap.spi, sap.provider,
+                algorithm);
     }
 
     /**
@@ -155,12 +153,10 @@ public class AlgorithmParameterGenerator {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new AlgorithmParameterGenerator(
-                    (AlgorithmParameterGeneratorSpi) engine.spi, provider,
-                    algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new AlgorithmParameterGenerator(
+                (AlgorithmParameterGeneratorSpi) sap.spi, provider,
+                algorithm);
     }
 
     /**
@@ -96,11 +96,9 @@ public class AlgorithmParameters {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {       
-            engine.getInstance(algorithm, null);
-            return new AlgorithmParameters((AlgorithmParametersSpi) engine.spi,
-                    engine.provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new AlgorithmParameters((AlgorithmParametersSpi) sap.spi,
+                sap.provider, algorithm);
     }
 
     /**
@@ -161,11 +159,9 @@ public class AlgorithmParameters {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new AlgorithmParameters((AlgorithmParametersSpi) engine.spi,
-                    provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new AlgorithmParameters((AlgorithmParametersSpi) sap.spi,
+                provider, algorithm);
     }
 
     /**
@@ -85,18 +85,16 @@ public abstract class KeyPairGenerator extends KeyPairGeneratorSpi {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
         KeyPairGenerator result;
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            if (engine.spi instanceof KeyPairGenerator) {
-                result = (KeyPairGenerator) engine.spi;
-                result.algorithm = algorithm;
-                result.provider = engine.provider;
-                return result;
-            }
-            result = new KeyPairGeneratorImpl((KeyPairGeneratorSpi) engine.spi,
-                    engine.provider, algorithm);
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        if (sap.spi instanceof KeyPairGenerator) {
+            result = (KeyPairGenerator) sap.spi;
+            result.algorithm = algorithm;
+            result.provider = sap.provider;
             return result;
         }
+        result = new KeyPairGeneratorImpl((KeyPairGeneratorSpi) sap.spi,
+                sap.provider, algorithm);
+        return result;
     }
 
     /**
@@ -150,18 +148,16 @@ public abstract class KeyPairGenerator extends KeyPairGeneratorSpi {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
         KeyPairGenerator result;
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            if (engine.spi instanceof KeyPairGenerator) {
-                result = (KeyPairGenerator) engine.spi;
-                result.algorithm = algorithm;
-                result.provider = provider;
-                return result;
-            }
-            result = new KeyPairGeneratorImpl((KeyPairGeneratorSpi) engine.spi,
-                    provider, algorithm);
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        if (sap.spi instanceof KeyPairGenerator) {
+            result = (KeyPairGenerator) sap.spi;
+            result.algorithm = algorithm;
+            result.provider = provider;
             return result;
         }
+        result = new KeyPairGeneratorImpl((KeyPairGeneratorSpi) sap.spi,
+                provider, algorithm);
+        return result;
     }
 
     /**
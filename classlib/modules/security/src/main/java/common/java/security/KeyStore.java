@@ -112,13 +112,11 @@ public class KeyStore {
         if (type == null) {
             throw new NullPointerException(Messages.getString("security.07")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            try {
-                engine.getInstance(type, null);
-                return new KeyStore((KeyStoreSpi) engine.spi, engine.provider, type);
-            } catch (NoSuchAlgorithmException e) {
-                throw new KeyStoreException(e.getMessage());
-            }
+        try {
+            Engine.SpiAndProvider sap = engine.newInstance(type, null);
+            return new KeyStore((KeyStoreSpi) sap.spi, sap.provider, type);
+        } catch (NoSuchAlgorithmException e) {
+            throw new KeyStoreException(e.getMessage());
         }
     }
 
@@ -190,14 +188,12 @@ public class KeyStore {
             throw new NullPointerException(Messages.getString("security.07")); //$NON-NLS-1$
         }
         // return KeyStore instance
-        synchronized (engine) {
-            try {
-                engine.getInstance(type, provider, null);
-                return new KeyStore((KeyStoreSpi) engine.spi, provider, type);
-            } catch (Exception e) {
-            // override exception
-                throw new KeyStoreException(e.getMessage());
-            }
+        try {
+            Engine.SpiAndProvider sap = engine.newInstance(type, provider, null);
+            return new KeyStore((KeyStoreSpi) sap.spi, provider, type);
+        } catch (Exception e) {
+        // override exception
+            throw new KeyStoreException(e.getMessage());
         }
     }
 
@@ -73,17 +73,15 @@ public abstract class MessageDigest extends MessageDigestSpi {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
         MessageDigest result;
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            if (engine.spi instanceof MessageDigest) {
-                result = (MessageDigest) engine.spi;
-                result.algorithm = algorithm;
-                result.provider = engine.provider;
-                return result;
-            }
-            return new MessageDigestImpl((MessageDigestSpi) engine.spi,
-                    engine.provider, algorithm);
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        if (sap.spi instanceof MessageDigest) {
+            result = (MessageDigest) sap.spi;
+            result.algorithm = algorithm;
+            result.provider = sap.provider;
+            return result;
         }
+        return new MessageDigestImpl((MessageDigestSpi) sap.spi,
+                sap.provider, algorithm);
     }
 
     /**
@@ -142,18 +140,16 @@ public abstract class MessageDigest extends MessageDigestSpi {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
         MessageDigest result;
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            if (engine.spi instanceof MessageDigest) {
-                result = (MessageDigest) engine.spi;
-                result.algorithm = algorithm;
-                result.provider = provider;
-                return result;
-            }
-            result = new MessageDigestImpl((MessageDigestSpi) engine.spi,
-                    provider, algorithm);
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        if (sap.spi instanceof MessageDigest) {
+            result = (MessageDigest) sap.spi;
+            result.algorithm = algorithm;
+            result.provider = provider;
             return result;
         }
+        result = new MessageDigestImpl((MessageDigestSpi) sap.spi,
+                provider, algorithm);
+        return result;
     }
 
     /**
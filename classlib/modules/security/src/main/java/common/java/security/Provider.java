@@ -20,6 +20,9 @@ package java.security;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.NotActiveException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -898,11 +901,30 @@ public abstract class Provider extends Properties {
         // The attributes
         private Map<String,String> attributes;
 
-        // Service implementation
-        private Class<?> implementation;
+        // Service implementation, loaded by newInstance()
+        private volatile Implementation implementation;
 
-        // For newInstance() optimization
-        private String lastClassName;
+        /*
+         * The class loaded for a class name, with its public no-argument
+         * constructor, published together so that newInstance() needs no
+         * lock and no reflective lookup once the class is loaded.
+         */
+        private static final class Implementation {
+
+            final String className;
+
+            final Class<?> type;
+
+            // null if the class declares no public no-argument constructor
+            final Constructor<?> constructor;
+
+            Implementation(String className, Class<?> type,
+                    Constructor<?> constructor) {
+                this.className = className;
+                this.type = type;
+                this.constructor = constructor;
+            }
+        }
 
         /**
          * Constructs a new instance of {@code Service} with the given
@@ -1025,34 +1047,25 @@ public abstract class Provider extends Properties {
          */
         public Object newInstance(Object constructorParameter)
                 throws NoSuchAlgorithmException {
-            if (implementation == null || !className.equals(lastClassName)) {
-                NoSuchAlgorithmException result = AccessController
-                        .doPrivileged(new PrivilegedAction<NoSuchAlgorithmException>() {
-                            public NoSuchAlgorithmException run() {
-                                ClassLoader cl = provider.getClass()
-                                        .getClassLoader();
-                                if (cl == null) {
-                                    cl = ClassLoader.getSystemClassLoader();
-                                }
-                                try {
-                                    implementation = Class.forName(className,
-                                            true, cl);
-                                } catch (Exception e) {
-                                    return new NoSuchAlgorithmException(
-                                            Messages.getString("security.11",  //$NON-NLS-1$
-                                                    new Object[]{type, algorithm, e}));
-                                }
-                                lastClassName = className;
-                                return null;
-                            }
-                        });
-                if (result != null) {
-                    throw result;
-                }
+            Implementation impl = implementation;
+            if (impl == null || !className.equals(impl.className)) {
+                impl = loadImplementation(className);
+                implementation = impl;
             }
             if (constructorParameter == null) {
                 try {
-                    return implementation.newInstance();
+                    if (impl.constructor != null) {
+                        return impl.constructor.newInstance();
+                    }
+                    return impl.type.newInstance();
+                } catch (InvocationTargetException e) {
+                    // fail as Class.newInstance() would
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new NoSuchAlgorithmException(Messages.getString("security.199", //$NON-NLS-1$
+                            type, algorithm), cause);
                 } catch (Exception e) {
                     throw new NoSuchAlgorithmException(Messages.getString("security.199", //$NON-NLS-1$
                             type, algorithm), e);
@@ -1072,7 +1085,7 @@ public abstract class Provider extends Properties {
                 } else {
                     parameterTypes[0] = constructorParameter.getClass();
                 }
-                return implementation.getConstructor(parameterTypes)
+                return impl.type.getConstructor(parameterTypes)
                         .newInstance(initargs);
             } catch (Exception e) {
                 throw new NoSuchAlgorithmException(Messages.getString("security.199", //$NON-NLS-1$
@@ -1080,6 +1093,51 @@ public abstract class Provider extends Properties {
             }
         }
 
+        /*
+         * Loads the named class with the provider's class loader and looks up
+         * its public no-argument constructor.
+         */
+        private Implementation loadImplementation(final String name)
+                throws NoSuchAlgorithmException {
+            final Object[] result = new Object[1];
+            NoSuchAlgorithmException failure = AccessController
+                    .doPrivileged(new PrivilegedAction<NoSuchAlgorithmException>() {
+                        public NoSuchAlgorithmException run() {
+                            ClassLoader cl = provider.getClass()
+                                    .getClassLoader();
+                            if (cl == null) {
+                                cl = ClassLoader.getSystemClassLoader();
+                            }
+                            Class<?> loaded;
+                            try {
+                                loaded = Class.forName(name, true, cl);
+                            } catch (Exception e) {
+                                return new NoSuchAlgorithmException(
+                                        Messages.getString("security.11",  //$NON-NLS-1$
+                                                new Object[]{type, algorithm, e}));
+                            }
+                            Constructor<?> constructor = null;
+                            if (Modifier.isPublic(loaded.getModifiers())) {
+                                try {
+                                    constructor = loaded.getConstructor();
+                                    // skip the access check on each call
+                                    constructor.setAccessible(true);
+                                } catch (Exception e) {
+                                    // leave it to Class.newInstance()
+                                    constructor = null;
+                                }
+                            }
+                            result[0] = new Implementation(name, loaded,
+                                    constructor);
+                            return null;
+                        }
+                    });
+            if (failure != null) {
+                throw failure;
+            }
+            return (Implementation) result[0];
+        }
+
         /**
          * Indicates whether this {@code Service} supports the specified
          * constructor parameter.
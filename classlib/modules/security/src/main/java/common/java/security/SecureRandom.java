@@ -149,10 +149,8 @@ public class SecureRandom extends Random {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new SecureRandom((SecureRandomSpi)engine.spi, engine.provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new SecureRandom((SecureRandomSpi)sap.spi, sap.provider, algorithm);
     }
 
     /**
@@ -208,10 +206,8 @@ public class SecureRandom extends Random {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new SecureRandom((SecureRandomSpi)engine.spi, provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new SecureRandom((SecureRandomSpi)sap.spi, provider, algorithm);
     }
 
     /**
@@ -269,7 +269,7 @@ public final class Security {
      *
      * @return an array containing all installed providers.
      */
-    public static synchronized Provider[] getProviders() {
+    public static Provider[] getProviders() {
         return Services.getProviders();
     }
 
@@ -282,7 +282,7 @@ public final class Security {
      *            the name of the requested provider.
      * @return the provider with the specified name, maybe {@code null}.
      */
-    public static synchronized Provider getProvider(String name) {
+    public static Provider getProvider(String name) {
         return Services.getProvider(name);
     }
 
@@ -104,16 +104,14 @@ public abstract class Signature extends SignatureSpi {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
         Signature result;
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            if (engine.spi instanceof Signature) {
-                result = (Signature) engine.spi;
-                result.algorithm = algorithm;
-                result.provider = engine.provider;
-            } else {
-                result = new SignatureImpl((SignatureSpi) engine.spi,
-                        engine.provider, algorithm);
-            }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        if (sap.spi instanceof Signature) {
+            result = (Signature) sap.spi;
+            result.algorithm = algorithm;
+            result.provider = sap.provider;
+        } else {
+            result = new SignatureImpl((SignatureSpi) sap.spi,
+                    sap.provider, algorithm);
         }
         return result;
     }
@@ -180,16 +178,14 @@ public abstract class Signature extends SignatureSpi {
     private static Signature getSignatureInstance(String algorithm,
             Provider provider) throws NoSuchAlgorithmException {
         Signature result;
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            if (engine.spi instanceof Signature) {
-                result = (Signature) engine.spi;
-                result.algorithm = algorithm;
-                result.provider = provider;
-            } else {
-                result = new SignatureImpl((SignatureSpi) engine.spi, provider,
-                        algorithm);
-            }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        if (sap.spi instanceof Signature) {
+            result = (Signature) sap.spi;
+            result.algorithm = algorithm;
+            result.provider = provider;
+        } else {
+            result = new SignatureImpl((SignatureSpi) sap.spi, provider,
+                    algorithm);
         }
         return result;
     }
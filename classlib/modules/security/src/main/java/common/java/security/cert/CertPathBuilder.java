@@ -108,11 +108,9 @@ public class CertPathBuilder {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new CertPathBuilder((CertPathBuilderSpi) engine.spi,
-                    engine.provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new CertPathBuilder((CertPathBuilderSpi) sap.spi,
+                sap.provider, algorithm);
     }
 
     /**
@@ -170,11 +168,9 @@ public class CertPathBuilder {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new CertPathBuilder((CertPathBuilderSpi) engine.spi, provider,
-                    algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new CertPathBuilder((CertPathBuilderSpi) sap.spi, provider,
+                algorithm);
     }
 
     /**
@@ -107,11 +107,9 @@ public class CertPathValidator {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, null);
-            return new CertPathValidator((CertPathValidatorSpi) engine.spi,
-                    engine.provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, null);
+        return new CertPathValidator((CertPathValidatorSpi) sap.spi,
+                sap.provider, algorithm);
     }
 
     /**
@@ -171,11 +169,9 @@ public class CertPathValidator {
         if (algorithm == null) {
             throw new NullPointerException(Messages.getString("security.01")); //$NON-NLS-1$
         }
-        synchronized (engine) {
-            engine.getInstance(algorithm, provider, null);
-            return new CertPathValidator((CertPathValidatorSpi) engine.spi,
-                    provider, algorithm);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(algorithm, provider, null);
+        return new CertPathValidator((CertPathValidatorSpi) sap.spi,
+                provider, algorithm);
     }
 
     /**
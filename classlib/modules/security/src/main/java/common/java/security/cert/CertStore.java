@@ -105,11 +105,9 @@ public class CertStore {
             throw new NullPointerException(Messages.getString("security.07")); //$NON-NLS-1$
         }
         try {
-            synchronized (engine) {
-                engine.getInstance(type, params);
-                return new CertStore((CertStoreSpi) engine.spi, engine.provider,
-                        type, params);
-            }
+            Engine.SpiAndProvider sap = engine.newInstance(type, params);
+            return new CertStore((CertStoreSpi) sap.spi, sap.provider,
+                    type, params);
         } catch (NoSuchAlgorithmException e) {
             Throwable th = e.getCause();
             if (th == null) {
@@ -189,11 +187,9 @@ public class CertStore {
             throw new NullPointerException(Messages.getString("security.07")); //$NON-NLS-1$
         }
         try {
-            synchronized (engine) {
-                engine.getInstance(type, provider, params);
-                return new CertStore((CertStoreSpi) engine.spi, provider, type,
-                        params);
-            }
+            Engine.SpiAndProvider sap = engine.newInstance(type, provider, params);
+            return new CertStore((CertStoreSpi) sap.spi, provider, type,
+                    params);
         } catch (NoSuchAlgorithmException e) {
             Throwable th = e.getCause();
             if (th == null) {
@@ -90,11 +90,9 @@ public class CertificateFactory {
             throw new NullPointerException(Messages.getString("security.07")); //$NON-NLS-1$
         }
         try {
-            synchronized (engine) {
-                engine.getInstance(type, null);
-                return new CertificateFactory((CertificateFactorySpi) engine.spi,
-                        engine.provider, type);
-            }
+            Engine.SpiAndProvider sap = engine.newInstance(type, null);
+            return new CertificateFactory((CertificateFactorySpi) sap.spi,
+                    sap.provider, type);
         } catch (NoSuchAlgorithmException e) {
             throw new CertificateException(e);
         }
@@ -160,11 +158,9 @@ public class CertificateFactory {
             throw new NullPointerException(Messages.getString("security.07")); //$NON-NLS-1$
         }
         try {
-            synchronized (engine) {
-                engine.getInstance(type, provider, null);
-                return new CertificateFactory((CertificateFactorySpi) engine.spi,
-                        provider, type);
-            }
+            Engine.SpiAndProvider sap = engine.newInstance(type, provider, null);
+            return new CertificateFactory((CertificateFactorySpi) sap.spi,
+                    provider, type);
         } catch (NoSuchAlgorithmException e) {
             throw new CertificateException(e.getMessage());
         }
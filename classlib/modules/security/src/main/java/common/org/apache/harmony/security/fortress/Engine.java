@@ -23,6 +23,7 @@ package org.apache.harmony.security.fortress;
 
 import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.harmony.security.Util;
 import org.apache.harmony.security.internal.nls.Messages;
@@ -35,25 +36,55 @@ import org.apache.harmony.security.internal.nls.Messages;
  */
 public class Engine {
 
+    /**
+     * A new SPI instance together with the provider that supplied it
+     */
+    public static final class SpiAndProvider {
+
+        /**
+         * SPI instance
+         */
+        public final Object spi;
+
+        /**
+         * Provider
+         */
+        public final Provider provider;
+
+        SpiAndProvider(Object spi, Provider provider) {
+            this.spi = spi;
+            this.provider = provider;
+        }
+    }
+
+    // The service found for an algorithm, valid while Services.refreshNumber
+    // is unchanged
+    private static final class ServiceCacheEntry {
+
+        final int refreshNumber;
+
+        final Provider.Service service;
+
+        ServiceCacheEntry(int refreshNumber, Provider.Service service) {
+            this.refreshNumber = refreshNumber;
+            this.service = service;
+        }
+    }
+
     // Service name
     private String serviceName;
 
     // for getInstance(String algorithm, Object param) optimization:
-    // previous result
-    private Provider.Service returnedService;
-
-    // previous parameter
-    private String lastAlgorithm;
-
-    private int refreshNumber;
+    // the services found for the algorithm names as given
+    private final ConcurrentHashMap<String, ServiceCacheEntry> serviceCache = new ConcurrentHashMap<String, ServiceCacheEntry>();
 
     /**
-     * Provider
+     * Provider found by the last call to getInstance
      */
     public Provider provider;
 
     /**
-     * SPI instance
+     * SPI instance created by the last call to getInstance
      */
     public Object spi;
 
@@ -74,24 +105,27 @@ public class Engine {
     /**
      * 
      * Finds the appropriate service implementation and creates instance of the
-     * class that implements corresponding Service Provider Interface.
+     * class that implements corresponding Service Provider Interface. Takes no
+     * lock, so any number of threads may call it at once.
      * 
      * @param algorithm
-     * @param service
+     * @param param
+     * @return the SPI instance and its provider
      * @throws NoSuchAlgorithmException
      */
-    public synchronized void getInstance(String algorithm, Object param)
+    public SpiAndProvider newInstance(String algorithm, Object param)
             throws NoSuchAlgorithmException {
-        Provider.Service serv;
-
         if (algorithm == null) {
             throw new NoSuchAlgorithmException(Messages.getString("security.149")); //$NON-NLS-1$
         }
         Services.refresh();
-        if (returnedService != null
-                && Util.equalsIgnoreCase(algorithm, lastAlgorithm)
-                && refreshNumber == Services.refreshNumber) {
-            serv = returnedService;
+        // read before the lookup, so that a newer map only ever makes the
+        // cached entry look stale
+        int refreshNumber = Services.refreshNumber;
+        Provider.Service serv;
+        ServiceCacheEntry entry = serviceCache.get(algorithm);
+        if (entry != null && entry.refreshNumber == refreshNumber) {
+            serv = entry.service;
         } else {
             if (Services.isEmpty()) {
                 throw new NoSuchAlgorithmException(Messages.getString("security.14A", //$NON-NLS-1$
@@ -104,12 +138,10 @@ public class Engine {
                 throw new NoSuchAlgorithmException(Messages.getString("security.14A", //$NON-NLS-1$
                         serviceName, algorithm));
             }
-            returnedService = serv;
-            lastAlgorithm = algorithm;
-            refreshNumber = Services.refreshNumber;
+            serviceCache.put(algorithm, new ServiceCacheEntry(refreshNumber,
+                    serv));
         }
-        spi = serv.newInstance(param);
-        this.provider = serv.getProvider();
+        return new SpiAndProvider(serv.newInstance(param), serv.getProvider());
     }
 
     /**
@@ -118,25 +150,56 @@ public class Engine {
      * class that implements corresponding Service Provider Interface.
      * 
      * @param algorithm
-     * @param service
      * @param provider
+     * @param param
+     * @return the SPI instance and its provider
      * @throws NoSuchAlgorithmException
      */
-    public synchronized void getInstance(String algorithm, Provider provider,
+    public SpiAndProvider newInstance(String algorithm, Provider provider,
             Object param) throws NoSuchAlgorithmException {
-
-        Provider.Service serv = null;
         if (algorithm == null) {
             throw new NoSuchAlgorithmException(
                     Messages.getString("security.14B", serviceName)); //$NON-NLS-1$
         }
-        serv = provider.getService(serviceName, algorithm);
+        Provider.Service serv = provider.getService(serviceName, algorithm);
         if (serv == null) {
             throw new NoSuchAlgorithmException(Messages.getString("security.14A", //$NON-NLS-1$
                     serviceName, algorithm));
         }
-        spi = serv.newInstance(param);
-        this.provider = provider;
+        return new SpiAndProvider(serv.newInstance(param), provider);
+    }
+
+    /**
+     * 
+     * As newInstance(String, Object), leaving the result in the spi and
+     * provider fields for callers that synchronize on the engine.
+     * 
+     * @param algorithm
+     * @param param
+     * @throws NoSuchAlgorithmException
+     */
+    public synchronized void getInstance(String algorithm, Object param)
+            throws NoSuchAlgorithmException {
+        SpiAndProvider result = newInstance(algorithm, param);
+        this.spi = result.spi;
+        this.provider = result.provider;
+    }
+
+    /**
+     * 
+     * As newInstance(String, Provider, Object), leaving the result in the spi
+     * and provider fields for callers that synchronize on the engine.
+     * 
+     * @param algorithm
+     * @param provider
+     * @param param
+     * @throws NoSuchAlgorithmException
+     */
+    public synchronized void getInstance(String algorithm, Provider provider,
+            Object param) throws NoSuchAlgorithmException {
+        SpiAndProvider result = newInstance(algorithm, provider, param);
+        this.spi = result.spi;
+        this.provider = result.provider;
     }
 
-}
\ No newline at end of file
+}
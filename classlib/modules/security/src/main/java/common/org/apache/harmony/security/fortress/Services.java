@@ -39,27 +39,32 @@ import org.apache.harmony.security.Util;
  * This class contains information about all registered providers and preferred
  * implementations for all "serviceName.algName".
  * 
+ * Lookups read immutable snapshots published through volatile fields and take
+ * no lock. Changes to the providers copy the snapshot under the class lock; a
+ * change to a registered provider's services flags the snapshot, which the
+ * next refresh() rebuilds and publishes with a new refreshNumber.
  */
 
 public class Services {
 
-    // The HashMap that contains information about preferred implementations for
-    // all serviceName.algName in the registered providers
-    private static final Map<String, Provider.Service> services = new HashMap<String, Provider.Service>(512);
+    // The map that contains information about preferred implementations for
+    // all serviceName.algName in the registered providers. Never modified
+    // once published.
+    private static volatile Map<String, Provider.Service> services = new HashMap<String, Provider.Service>(512);
 
     // Need refresh flag
-    private static boolean needRefresh; // = false;
+    private static volatile boolean needRefresh; // = false;
 
     /**
-     * Refresh number
+     * Refresh number, incremented each time a new services map is published
      */
-    static int refreshNumber = 1;
+    static volatile int refreshNumber = 1;
 
-    // Registered providers
-    private static final List<Provider> providers = new ArrayList<Provider>(20);
+    // Registered providers, never modified once published
+    private static volatile List<Provider> providers = new ArrayList<Provider>(20);
 
-    // Hash for quick provider access by name
-    private static final Map<String, Provider> providersNames = new HashMap<String, Provider>(20);
+    // Hash for quick provider access by name, never modified once published
+    private static volatile Map<String, Provider> providersNames = new HashMap<String, Provider>(20);
 
     static {
         AccessController.doPrivileged(new PrivilegedAction<Object>() {
@@ -76,6 +81,9 @@ public class Services {
         int i = 1;
         ClassLoader cl = ClassLoader.getSystemClassLoader();
         Provider p;
+        List<Provider> loaded = new ArrayList<Provider>(20);
+        Map<String, Provider> names = new HashMap<String, Provider>(20);
+        Map<String, Provider.Service> loadedServices = new HashMap<String, Provider.Service>(512);
 
         while ((providerClassName = Security.getProperty("security.provider." //$NON-NLS-1$
                 + i++)) != null) {
@@ -83,14 +91,17 @@ public class Services {
                 p = (Provider) Class
                         .forName(providerClassName.trim(), true, cl)
                         .newInstance();
-                providers.add(p);
-                providersNames.put(p.getName(), p);
-                initServiceInfo(p);
+                loaded.add(p);
+                names.put(p.getName(), p);
+                addServiceInfo(loadedServices, p);
             } catch (ClassNotFoundException e) { // ignore Exceptions
             } catch (IllegalAccessException e) {
 			} catch (InstantiationException e) {
 			}
         }
+        providers = loaded;
+        providersNames = names;
+        publish(loadedServices);
         Engine.door.renumProviders();
     }
 
@@ -100,7 +111,8 @@ public class Services {
      * @return
      */
     public static Provider[] getProviders() {
-        return providers.toArray(new Provider[providers.size()]);
+        List<Provider> current = providers;
+        return current.toArray(new Provider[current.size()]);
     }
 
     /**
@@ -132,13 +144,17 @@ public class Services {
      * @param position
      * @return
      */
-    public static int insertProviderAt(Provider provider, int position) {
-        int size = providers.size();
+    public static synchronized int insertProviderAt(Provider provider, int position) {
+        List<Provider> changed = new ArrayList<Provider>(providers);
+        Map<String, Provider> names = new HashMap<String, Provider>(providersNames);
+        int size = changed.size();
         if ((position < 1) || (position > size)) {
             position = size + 1;
         }
-        providers.add(position - 1, provider);
-        providersNames.put(provider.getName(), provider);
+        changed.add(position - 1, provider);
+        names.put(provider.getName(), provider);
+        providers = changed;
+        providersNames = names;
         setNeedRefresh();
         return position;
     }
@@ -148,9 +164,13 @@ public class Services {
      * 
      * @param providerNumber
      */
-    public static void removeProvider(int providerNumber) {
-        Provider p = providers.remove(providerNumber - 1);
-        providersNames.remove(p.getName());
+    public static synchronized void removeProvider(int providerNumber) {
+        List<Provider> changed = new ArrayList<Provider>(providers);
+        Map<String, Provider> names = new HashMap<String, Provider>(providersNames);
+        Provider p = changed.remove(providerNumber - 1);
+        names.remove(p.getName());
+        providers = changed;
+        providersNames = names;
         setNeedRefresh();
     }
 
@@ -160,7 +180,15 @@ public class Services {
      * 
      * @param p
      */
-    public static void initServiceInfo(Provider p) {
+    public static synchronized void initServiceInfo(Provider p) {
+        Map<String, Provider.Service> changed = new HashMap<String, Provider.Service>(services);
+        addServiceInfo(changed, p);
+        publish(changed);
+    }
+
+    // Adds the services of the provider not already in the map
+    private static void addServiceInfo(Map<String, Provider.Service> map,
+            Provider p) {
         Provider.Service serv;
         String key;
         String type;
@@ -173,16 +201,16 @@ public class Services {
             sb.delete(0, sb.length());
             key = sb.append(type).append(".").append( //$NON-NLS-1$
                     Util.toUpperCase(serv.getAlgorithm())).toString();
-            if (!services.containsKey(key)) {
-                services.put(key, serv);
+            if (!map.containsKey(key)) {
+                map.put(key, serv);
             }
             for (Iterator<String> it2 = Engine.door.getAliases(serv); it2.hasNext();) {
                 alias = it2.next();
                 sb.delete(0, sb.length());
                 key = sb.append(type).append(".").append(Util.toUpperCase(alias)) //$NON-NLS-1$
                         .toString();
-                if (!services.containsKey(key)) {
-                    services.put(key, serv);
+                if (!map.containsKey(key)) {
+                    map.put(key, serv);
                 }
             }
         }
@@ -193,12 +221,20 @@ public class Services {
      * Updates services hashtable for all registered providers
      *  
      */
-    public static void updateServiceInfo() {
-        services.clear();
+    public static synchronized void updateServiceInfo() {
+        // changes made from now on flag the new map for another refresh
+        needRefresh = false;
+        Map<String, Provider.Service> rebuilt = new HashMap<String, Provider.Service>(512);
         for (Iterator<Provider> it = providers.iterator(); it.hasNext();) {
-            initServiceInfo(it.next());
+            addServiceInfo(rebuilt, it.next());
         }
-        needRefresh = false;
+        publish(rebuilt);
+    }
+
+    // Publishes the map before the number that tells engines it changed
+    private static void publish(Map<String, Provider.Service> map) {
+        services = map;
+        refreshNumber++;
     }
 
     /**
@@ -227,10 +263,11 @@ public class Services {
     // FIXME remove debug function
     public static void printServices() {
         refresh();
-        Set<String> s = services.keySet();
+        Map<String, Provider.Service> current = services;
+        Set<String> s = current.keySet();
         for (Iterator<String> i = s.iterator(); i.hasNext();) {
             String key = i.next();
-            System.out.println(key + "=" + services.get(key)); //$NON-NLS-1$
+            System.out.println(key + "=" + current.get(key)); //$NON-NLS-1$
         }
     }
 
@@ -248,8 +285,11 @@ public class Services {
      */
     public static void refresh() {
         if (needRefresh) {
-            refreshNumber++;
-            updateServiceInfo();
+            synchronized (Services.class) {
+                if (needRefresh) {
+                    updateServiceInfo();
+                }
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -73,6 +73,47 @@ public class EngineTest extends TestCase {
         } catch (NoSuchAlgorithmException e) {}
     }
 
+    /*
+     * Class under test for SpiAndProvider newInstance(String, Object)
+     */
+    public void testNewInstanceStringObject() throws Exception {
+        Provider p = new MyProvider();
+        Services.initServiceInfo(p);
+        Engine engine = new Engine("Service");
+
+        Engine.SpiAndProvider sap = engine.newInstance("AlGOrItHM", null);
+        assertSame(p, sap.provider);
+        assertTrue(sap.spi instanceof SomeClass);
+
+        // a cached lookup answers a new instance each time
+        Engine.SpiAndProvider again = engine.newInstance("AlGOrItHM", null);
+        assertSame(p, again.provider);
+        assertNotSame(sap.spi, again.spi);
+
+        // the cached service goes once the services change
+        Services.updateServiceInfo();
+        try {
+            engine.newInstance("AlGOrItHM", null);
+            fail("No expected NoSuchAlgorithmException");
+        } catch (NoSuchAlgorithmException e) {}
+    }
+
+    /*
+     * Class under test for SpiAndProvider newInstance(String, Provider, Object)
+     */
+    public void testNewInstanceStringProviderObject() throws Exception {
+        Provider p = new MyProvider();
+        Engine engine = new Engine("Service");
+
+        Engine.SpiAndProvider sap = engine.newInstance("AlGOrItHM", p, null);
+        assertSame(p, sap.provider);
+        assertTrue(sap.spi instanceof SomeClass);
+        try {
+            engine.newInstance(null, p, null);
+            fail("No expected NoSuchAlgorithmException");
+        } catch (NoSuchAlgorithmException e) {}
+    }
+
     /*
      * Class under test for SpiImpl getInstance(String, Provider, Object)
      */
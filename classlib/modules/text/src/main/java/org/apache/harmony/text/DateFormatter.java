@@ -0,0 +1,999 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.text;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.DateFormatSymbols;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.apache.harmony.text.internal.nls.Messages;
+
+/**
+ * An immutable formatter and parser of dates. The pattern is compiled once,
+ * when the formatter is created, into a sequence of elements, each of which
+ * prints or parses a literal or a single date field. A {@code DateFormatter}
+ * may therefore be kept in a static field and shared by any number of
+ * threads, where a {@link java.text.SimpleDateFormat} has to be created for
+ * each thread or each call.
+ * <p>
+ * The pattern syntax is the one of {@link java.text.SimpleDateFormat}, with
+ * the pattern letters {@code G y M d k H m s S E D F w W a h K z Z}. The
+ * fields of the date are computed directly from the milliseconds since the
+ * epoch, without a {@link Calendar}, using the proleptic Gregorian calendar
+ * for dates after the Gregorian change of 1582 and a
+ * {@link GregorianCalendar} for the earlier ones. Numbers are always written
+ * and read with ASCII digits, as protocols such as HTTP and ISO 8601 expect.
+ * <p>
+ * For example, the date of an HTTP header may be formatted by:
+ *
+ * <pre>
+ * static final DateFormatter HTTP_DATE = DateFormatter.getInstance(
+ *         &quot;EEE, dd MMM yyyy HH:mm:ss 'GMT'&quot;, TimeZone.getTimeZone(&quot;GMT&quot;),
+ *         Locale.US);
+ * ...
+ * header.append(&quot;Date: &quot;);
+ * HTTP_DATE.format(System.currentTimeMillis(), header);
+ * </pre>
+ *
+ * Parsing is strict: every literal of the pattern must be matched and the
+ * value of every field must lie within its range. The date is resolved from
+ * the era, the year, the month and the day of month, or the day of year; the
+ * day of week and the week fields are parsed but otherwise ignored.
+ */
+public final class DateFormatter {
+
+    /*
+     * The index of a letter in this string is the DateFormat field constant
+     * of the field it stands for, with the RFC 822 time zone last.
+     */
+    private static final String PATTERN_CHARS = "GyMdkHmsSEDFwWahKzZ"; //$NON-NLS-1$
+
+    private static final int RFC822_TIMEZONE_FIELD = 18;
+
+    private static final int LITERAL = -1;
+
+    /* The smallest and largest values accepted when parsing each field */
+    private static final int[] MINIMUM = { 0, 0, 1, 1, 1, 0, 0, 0, 0, 0, 1,
+            1, 0, 0, 0, 1, 0, 0, 0 };
+
+    private static final int[] MAXIMUM = { 0, Integer.MAX_VALUE, 12, 31, 24,
+            23, 59, 59, 999, 0, 366, 5, 53, 6, 0, 12, 11, 0, 0 };
+
+    private static final long ONE_SECOND = 1000;
+
+    private static final long ONE_MINUTE = 60 * ONE_SECOND;
+
+    private static final long ONE_HOUR = 60 * ONE_MINUTE;
+
+    private static final long ONE_DAY = 24 * ONE_HOUR;
+
+    /* Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar */
+    private static final long DAYS_0000_TO_1970 = 719468;
+
+    private static final int DAYS_PER_400_YEARS = 146097;
+
+    /* October 15, 1582, the default Gregorian change of GregorianCalendar */
+    private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
+    private static final int[] DAYS_BEFORE_MONTH = { 0, 31, 59, 90, 120, 151,
+            181, 212, 243, 273, 304, 334 };
+
+    /* A literal, or a pattern letter repeated count times */
+    private static final class Element {
+        final int field;
+
+        final int count;
+
+        final String literal;
+
+        /* Whether a number field is directly followed by another one */
+        boolean abutting;
+
+        Element(int field, int count, String literal) {
+            this.field = field;
+            this.count = count;
+            this.literal = literal;
+        }
+
+        boolean isNumber() {
+            switch (field) {
+                case LITERAL:
+                case DateFormat.ERA_FIELD:
+                case DateFormat.DAY_OF_WEEK_FIELD:
+                case DateFormat.AM_PM_FIELD:
+                case DateFormat.TIMEZONE_FIELD:
+                case RFC822_TIMEZONE_FIELD:
+                    return false;
+                case DateFormat.MONTH_FIELD:
+                    return count <= 2;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private final String pattern;
+
+    private final Element[] elements;
+
+    private final TimeZone zone;
+
+    private final Locale locale;
+
+    private final int rawOffset;
+
+    /* Whether the pattern has week fields, which take longest to compute */
+    private final boolean hasWeekFields;
+
+    private final int firstDayOfWeek;
+
+    private final int minimalDaysInFirstWeek;
+
+    /* The first year of the century two digit years are parsed into */
+    private final int defaultCenturyStartYear;
+
+    private final String[] eras, months, shortMonths, weekdays,
+            shortWeekdays, ampms;
+
+    /*
+     * The long and short standard names and the long and short daylight names
+     * of the zone, or null if it is written as an offset from GMT
+     */
+    private final String[] zoneNames;
+
+    private DateFormatter(String pattern, TimeZone zone, Locale locale) {
+        this.pattern = pattern;
+        this.elements = compile(pattern);
+        this.zone = (TimeZone) zone.clone();
+        this.locale = locale;
+        rawOffset = zone.getRawOffset();
+
+        hasWeekFields = pattern.indexOf('w') != -1
+                || pattern.indexOf('W') != -1;
+        Calendar calendar = new GregorianCalendar(zone, locale);
+        firstDayOfWeek = calendar.getFirstDayOfWeek();
+        minimalDaysInFirstWeek = calendar.getMinimalDaysInFirstWeek();
+        calendar.add(Calendar.YEAR, -80);
+        defaultCenturyStartYear = calendar.get(Calendar.YEAR);
+
+        DateFormatSymbols symbols = new DateFormatSymbols(locale);
+        eras = symbols.getEras();
+        months = symbols.getMonths();
+        shortMonths = symbols.getShortMonths();
+        weekdays = symbols.getWeekdays();
+        shortWeekdays = symbols.getShortWeekdays();
+        ampms = symbols.getAmPmStrings();
+        zoneNames = pattern.indexOf('z') == -1 ? null : findZoneNames(symbols
+                .getZoneStrings());
+    }
+
+    /**
+     * Answers a formatter of the given pattern for the default time zone and
+     * locale.
+     *
+     * @param pattern
+     *            the pattern, in the syntax of
+     *            {@link java.text.SimpleDateFormat}.
+     * @return the formatter.
+     * @throws NullPointerException
+     *             if {@code pattern} is {@code null}.
+     * @throws IllegalArgumentException
+     *             if {@code pattern} is not valid.
+     */
+    public static DateFormatter getInstance(String pattern) {
+        return new DateFormatter(pattern, TimeZone.getDefault(), Locale
+                .getDefault());
+    }
+
+    /**
+     * Answers a formatter of the given pattern for the given time zone and
+     * locale. Later changes to the time zone do not affect the formatter.
+     *
+     * @param pattern
+     *            the pattern, in the syntax of
+     *            {@link java.text.SimpleDateFormat}.
+     * @param zone
+     *            the time zone dates are formatted and parsed in.
+     * @param locale
+     *            the locale of the names of months, days and eras, and of
+     *            the week rules.
+     * @return the formatter.
+     * @throws NullPointerException
+     *             if one of the arguments is {@code null}.
+     * @throws IllegalArgumentException
+     *             if {@code pattern} is not valid.
+     */
+    public static DateFormatter getInstance(String pattern, TimeZone zone,
+            Locale locale) {
+        if (zone == null || locale == null) {
+            throw new NullPointerException();
+        }
+        return new DateFormatter(pattern, zone, locale);
+    }
+
+    /**
+     * Answers the pattern of this formatter.
+     *
+     * @return the pattern.
+     */
+    public String toPattern() {
+        return pattern;
+    }
+
+    /**
+     * Answers a copy of the time zone of this formatter.
+     *
+     * @return the time zone.
+     */
+    public TimeZone getTimeZone() {
+        return (TimeZone) zone.clone();
+    }
+
+    /**
+     * Answers the locale of this formatter.
+     *
+     * @return the locale.
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getName() + "[pattern=" + pattern + ",zone=" //$NON-NLS-1$ //$NON-NLS-2$
+                + zone.getID() + ",locale=" + locale + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static Element[] compile(String pattern) {
+        List<Element> elements = new ArrayList<Element>();
+        StringBuilder literal = new StringBuilder();
+        final int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            char next = pattern.charAt(i);
+            if (next == '\'') {
+                if (i + 1 < length && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                int end = i + 1;
+                while (true) {
+                    if (end == length) {
+                        // text.04=Unterminated quote {0}
+                        throw new IllegalArgumentException(Messages
+                                .getString("text.04")); //$NON-NLS-1$
+                    }
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < length
+                                && pattern.charAt(end + 1) == '\'') {
+                            literal.append('\'');
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(pattern.charAt(end++));
+                }
+                i = end + 1;
+            } else if ((next >= 'a' && next <= 'z')
+                    || (next >= 'A' && next <= 'Z')) {
+                int field = PATTERN_CHARS.indexOf(next);
+                if (field == -1) {
+                    // text.03=Unknown pattern character - '{0}'
+                    throw new IllegalArgumentException(Messages.getString(
+                            "text.03", next)); //$NON-NLS-1$
+                }
+                int count = 1;
+                while (i + count < length && pattern.charAt(i + count) == next) {
+                    count++;
+                }
+                if (literal.length() > 0) {
+                    elements.add(new Element(LITERAL, 0, literal.toString()));
+                    literal.setLength(0);
+                }
+                elements.add(new Element(field, count, null));
+                i += count;
+            } else {
+                literal.append(next);
+                i++;
+            }
+        }
+        if (literal.length() > 0) {
+            elements.add(new Element(LITERAL, 0, literal.toString()));
+        }
+
+        Element[] result = elements.toArray(new Element[elements.size()]);
+        for (i = 0; i < result.length - 1; i++) {
+            result[i].abutting = result[i].isNumber()
+                    && result[i + 1].isNumber();
+        }
+        return result;
+    }
+
+    private String[] findZoneNames(String[][] zoneStrings) {
+        String id = zone.getID();
+        for (String[] names : zoneStrings) {
+            if (id.equals(names[0])) {
+                return new String[] { names[1], names[2], names[3], names[4] };
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Formats the given date.
+     *
+     * @param date
+     *            the date to format.
+     * @return the formatted date.
+     */
+    public String format(Date date) {
+        return format(date.getTime(), new StringBuilder()).toString();
+    }
+
+    /**
+     * Formats the given time.
+     *
+     * @param millis
+     *            the time to format, in milliseconds since January 1, 1970
+     *            00:00:00 GMT.
+     * @return the formatted time.
+     */
+    public String format(long millis) {
+        return format(millis, new StringBuilder()).toString();
+    }
+
+    /**
+     * Formats the given time, appending it to the given buffer.
+     *
+     * @param millis
+     *            the time to format, in milliseconds since January 1, 1970
+     *            00:00:00 GMT.
+     * @param buffer
+     *            the buffer to append to.
+     * @return {@code buffer}.
+     */
+    public StringBuilder format(long millis, StringBuilder buffer) {
+        int[] fields = new int[Calendar.FIELD_COUNT];
+        computeFields(millis, fields);
+        for (Element element : elements) {
+            append(buffer, element, fields);
+        }
+        return buffer;
+    }
+
+    /**
+     * Formats the given time, appending it to the given {@code Appendable}.
+     *
+     * @param millis
+     *            the time to format, in milliseconds since January 1, 1970
+     *            00:00:00 GMT.
+     * @param out
+     *            the destination of the formatted time.
+     * @throws IOException
+     *             if appending to {@code out} fails.
+     */
+    public void formatTo(long millis, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            format(millis, (StringBuilder) out);
+        } else {
+            out.append(format(millis, new StringBuilder()));
+        }
+    }
+
+    /*
+     * Computes the fields of the time in the zone of this formatter, indexed
+     * by the Calendar field constants.
+     */
+    private void computeFields(long millis, int[] fields) {
+        int offset = zone.getOffset(millis);
+        long local = millis + offset;
+        if (local < GREGORIAN_CUTOVER) {
+            Calendar calendar = new GregorianCalendar(zone, locale);
+            calendar.setTimeInMillis(millis);
+            for (int i = 0; i < Calendar.FIELD_COUNT; i++) {
+                fields[i] = calendar.get(i);
+            }
+            return;
+        }
+
+        long days = local / ONE_DAY;
+        int time = (int) (local % ONE_DAY);
+        if (time < 0) {
+            days--;
+            time += ONE_DAY;
+        }
+
+        /*
+         * Split the days into years starting in March, so that the leap day
+         * is the last of the year, as described by Howard Hinnant's
+         * "chrono-Compatible Low-Level Date Algorithms".
+         */
+        long shifted = days + DAYS_0000_TO_1970;
+        long era = (shifted >= 0 ? shifted : shifted - DAYS_PER_400_YEARS + 1)
+                / DAYS_PER_400_YEARS;
+        int dayOfEra = (int) (shifted - era * DAYS_PER_400_YEARS);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra
+                / (DAYS_PER_400_YEARS - 1)) / 365;
+        int dayOfMarchYear = dayOfEra
+                - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int marchMonth = (5 * dayOfMarchYear + 2) / 153;
+        int dayOfMonth = dayOfMarchYear - (153 * marchMonth + 2) / 5 + 1;
+        int month = marchMonth < 10 ? marchMonth + 2 : marchMonth - 10;
+        int year = (int) (yearOfEra + era * 400) + (month < 2 ? 1 : 0);
+
+        int dayOfYear = DAYS_BEFORE_MONTH[month] + dayOfMonth
+                + (month > 1 && isLeapYear(year) ? 1 : 0);
+        // January 1, 1970 was a Thursday
+        int dayOfWeek = (int) ((days + 4) % 7);
+        dayOfWeek = (dayOfWeek < 0 ? dayOfWeek + 7 : dayOfWeek) + 1;
+
+        fields[Calendar.ERA] = GregorianCalendar.AD;
+        fields[Calendar.YEAR] = year;
+        fields[Calendar.MONTH] = month;
+        fields[Calendar.DAY_OF_MONTH] = dayOfMonth;
+        fields[Calendar.DAY_OF_YEAR] = dayOfYear;
+        fields[Calendar.DAY_OF_WEEK] = dayOfWeek;
+        fields[Calendar.DAY_OF_WEEK_IN_MONTH] = (dayOfMonth - 1) / 7 + 1;
+        if (hasWeekFields) {
+            fields[Calendar.WEEK_OF_YEAR] = weekOfYear(year, dayOfYear,
+                    dayOfWeek);
+            fields[Calendar.WEEK_OF_MONTH] = weekNumber(dayOfMonth, dayOfWeek);
+        }
+        int hour = time / (int) ONE_HOUR;
+        fields[Calendar.HOUR_OF_DAY] = hour;
+        fields[Calendar.AM_PM] = hour < 12 ? Calendar.AM : Calendar.PM;
+        fields[Calendar.HOUR] = hour % 12;
+        fields[Calendar.MINUTE] = time / (int) ONE_MINUTE % 60;
+        fields[Calendar.SECOND] = time / (int) ONE_SECOND % 60;
+        fields[Calendar.MILLISECOND] = time % (int) ONE_SECOND;
+        fields[Calendar.ZONE_OFFSET] = rawOffset;
+        fields[Calendar.DST_OFFSET] = offset - rawOffset;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /*
+     * Answers the number of the week of the given day, counting the first
+     * week with at least minimalDaysInFirstWeek days as week 1, and the days
+     * before it as week 0.
+     */
+    private int weekNumber(int day, int dayOfWeek) {
+        // the number of days of the first week before the first day
+        int before = ((dayOfWeek - day - firstDayOfWeek) % 7 + 8) % 7;
+        return (day - 1 + before) / 7
+                + (7 - before >= minimalDaysInFirstWeek ? 1 : 0);
+    }
+
+    private int weekOfYear(int year, int dayOfYear, int dayOfWeek) {
+        int week = weekNumber(dayOfYear, dayOfWeek);
+        if (week == 0) {
+            // the last week of the previous year
+            int lastDayOfWeek = (dayOfWeek - dayOfYear + 7 * 53 - 1) % 7 + 1;
+            return weekOfYear(year - 1, isLeapYear(year - 1) ? 366 : 365,
+                    lastDayOfWeek);
+        }
+        int daysInYear = isLeapYear(year) ? 366 : 365;
+        int nextDayOfWeek = (dayOfWeek + daysInYear - dayOfYear) % 7 + 1;
+        int before = (nextDayOfWeek - firstDayOfWeek + 7) % 7;
+        if (7 - before >= minimalDaysInFirstWeek
+                && dayOfYear > daysInYear - before) {
+            // the first week of the next year
+            return 1;
+        }
+        return week;
+    }
+
+    private void append(StringBuilder buffer, Element element, int[] fields) {
+        int count = element.count;
+        switch (element.field) {
+            case LITERAL:
+                buffer.append(element.literal);
+                break;
+            case DateFormat.ERA_FIELD:
+                buffer.append(eras[fields[Calendar.ERA]]);
+                break;
+            case DateFormat.YEAR_FIELD:
+                int year = fields[Calendar.YEAR];
+                if (count == 2) {
+                    appendNumber(buffer, 2, year % 100);
+                } else {
+                    appendNumber(buffer, count, year);
+                }
+                break;
+            case DateFormat.MONTH_FIELD:
+                int month = fields[Calendar.MONTH];
+                if (count <= 2) {
+                    appendNumber(buffer, count, month + 1);
+                } else if (count == 3) {
+                    buffer.append(shortMonths[month]);
+                } else {
+                    buffer.append(months[month]);
+                }
+                break;
+            case DateFormat.DATE_FIELD:
+                appendNumber(buffer, count, fields[Calendar.DAY_OF_MONTH]);
+                break;
+            case DateFormat.HOUR_OF_DAY1_FIELD: // k
+                int hour = fields[Calendar.HOUR_OF_DAY];
+                appendNumber(buffer, count, hour == 0 ? 24 : hour);
+                break;
+            case DateFormat.HOUR_OF_DAY0_FIELD: // H
+                appendNumber(buffer, count, fields[Calendar.HOUR_OF_DAY]);
+                break;
+            case DateFormat.MINUTE_FIELD:
+                appendNumber(buffer, count, fields[Calendar.MINUTE]);
+                break;
+            case DateFormat.SECOND_FIELD:
+                appendNumber(buffer, count, fields[Calendar.SECOND]);
+                break;
+            case DateFormat.MILLISECOND_FIELD:
+                appendNumber(buffer, count, fields[Calendar.MILLISECOND]);
+                break;
+            case DateFormat.DAY_OF_WEEK_FIELD:
+                int day = fields[Calendar.DAY_OF_WEEK];
+                buffer.append(count < 4 ? shortWeekdays[day] : weekdays[day]);
+                break;
+            case DateFormat.DAY_OF_YEAR_FIELD:
+                appendNumber(buffer, count, fields[Calendar.DAY_OF_YEAR]);
+                break;
+            case DateFormat.DAY_OF_WEEK_IN_MONTH_FIELD:
+                appendNumber(buffer, count,
+                        fields[Calendar.DAY_OF_WEEK_IN_MONTH]);
+                break;
+            case DateFormat.WEEK_OF_YEAR_FIELD:
+                appendNumber(buffer, count, fields[Calendar.WEEK_OF_YEAR]);
+                break;
+            case DateFormat.WEEK_OF_MONTH_FIELD:
+                appendNumber(buffer, count, fields[Calendar.WEEK_OF_MONTH]);
+                break;
+            case DateFormat.AM_PM_FIELD:
+                buffer.append(ampms[fields[Calendar.AM_PM]]);
+                break;
+            case DateFormat.HOUR1_FIELD: // h
+                hour = fields[Calendar.HOUR];
+                appendNumber(buffer, count, hour == 0 ? 12 : hour);
+                break;
+            case DateFormat.HOUR0_FIELD: // K
+                appendNumber(buffer, count, fields[Calendar.HOUR]);
+                break;
+            case DateFormat.TIMEZONE_FIELD: // z
+                int offset = fields[Calendar.ZONE_OFFSET]
+                        + fields[Calendar.DST_OFFSET];
+                if (zoneNames == null) {
+                    buffer.append("GMT"); //$NON-NLS-1$
+                    appendOffset(buffer, offset, true);
+                } else {
+                    int daylight = fields[Calendar.DST_OFFSET] == 0 ? 0 : 2;
+                    buffer.append(zoneNames[(count < 4 ? 1 : 0) + daylight]);
+                }
+                break;
+            case RFC822_TIMEZONE_FIELD: // Z
+                appendOffset(buffer, fields[Calendar.ZONE_OFFSET]
+                        + fields[Calendar.DST_OFFSET], false);
+                break;
+        }
+    }
+
+    private static void appendOffset(StringBuilder buffer, int offset,
+            boolean colon) {
+        char sign = '+';
+        if (offset < 0) {
+            sign = '-';
+            offset = -offset;
+        }
+        buffer.append(sign);
+        appendNumber(buffer, 2, offset / (int) ONE_HOUR);
+        if (colon) {
+            buffer.append(':');
+        }
+        appendNumber(buffer, 2, offset % (int) ONE_HOUR / (int) ONE_MINUTE);
+    }
+
+    /*
+     * Appends the non negative value with at least the given number of
+     * digits.
+     */
+    private static void appendNumber(StringBuilder buffer, int count,
+            int value) {
+        int digits = 1;
+        for (int power = 10; digits < 10 && value >= power; power *= 10) {
+            digits++;
+        }
+        for (; count > digits; count--) {
+            buffer.append('0');
+        }
+        if (digits <= 2) {
+            if (digits == 2) {
+                buffer.append((char) ('0' + value / 10));
+            }
+            buffer.append((char) ('0' + value % 10));
+        } else {
+            buffer.append(value);
+        }
+    }
+
+    /**
+     * Parses a date from the start of the given string.
+     *
+     * @param string
+     *            the string to parse.
+     * @return the date.
+     * @throws ParseException
+     *             if the start of {@code string} does not match the pattern.
+     */
+    public Date parse(String string) throws ParseException {
+        ParsePosition position = new ParsePosition(0);
+        Date date = parse(string, position);
+        if (date == null) {
+            // text.19=Unparseable date: {0}
+            throw new ParseException(
+                    Messages.getString("text.19", string), position.getErrorIndex()); //$NON-NLS-1$
+        }
+        return date;
+    }
+
+    /**
+     * Parses a date from the given string, starting at the index of the
+     * given position. On success the index of the position is set to the end
+     * of the parsed text; on failure it is left unchanged and the error index
+     * is set to where the text does not match the pattern.
+     *
+     * @param string
+     *            the string to parse.
+     * @param position
+     *            the position to start parsing at.
+     * @return the date, or {@code null} on failure.
+     */
+    public Date parse(String string, ParsePosition position) {
+        /*
+         * Parsed values are kept by pattern letter, with the zone offset in
+         * the slot of the time zone fields.
+         */
+        int[] values = new int[PATTERN_CHARS.length()];
+        int parsed = 0;
+        int twoDigitYear = -1;
+        final int start = position.getIndex();
+        int index = start;
+        for (Element element : elements) {
+            int end = parseElement(string, index, element, values);
+            if (end < 0) {
+                position.setErrorIndex(-end - 1);
+                return null;
+            }
+            if (element.field == DateFormat.YEAR_FIELD) {
+                /*
+                 * As in SimpleDateFormat, exactly two digits for "y" or "yy"
+                 * are a year in the default century; any other year is
+                 * taken literally.
+                 */
+                twoDigitYear = element.count <= 2 && end - index == 2 ? values[DateFormat.YEAR_FIELD]
+                        : -1;
+            }
+            if (element.field != LITERAL) {
+                parsed |= 1 << element.field;
+            }
+            index = end;
+        }
+
+        int year = 1970;
+        if ((parsed & (1 << DateFormat.YEAR_FIELD)) != 0) {
+            year = values[DateFormat.YEAR_FIELD];
+            if (twoDigitYear != -1) {
+                year = defaultCenturyStartYear / 100 * 100 + twoDigitYear;
+                if (year < defaultCenturyStartYear) {
+                    year += 100;
+                }
+            }
+        }
+        if ((parsed & (1 << DateFormat.ERA_FIELD)) != 0
+                && values[DateFormat.ERA_FIELD] == GregorianCalendar.BC) {
+            year = 1 - year;
+        }
+
+        int month = 0, day = 1;
+        if ((parsed & (1 << DateFormat.MONTH_FIELD | 1 << DateFormat.DATE_FIELD)) == 0
+                && (parsed & (1 << DateFormat.DAY_OF_YEAR_FIELD)) != 0) {
+            int dayOfYear = values[DateFormat.DAY_OF_YEAR_FIELD];
+            boolean leap = isLeapYear(year);
+            if (dayOfYear > (leap ? 366 : 365)) {
+                position.setErrorIndex(start);
+                return null;
+            }
+            while (month < 11
+                    && dayOfYear > DAYS_BEFORE_MONTH[month + 1]
+                            + (leap && month > 0 ? 1 : 0)) {
+                month++;
+            }
+            day = dayOfYear - DAYS_BEFORE_MONTH[month]
+                    - (leap && month > 1 ? 1 : 0);
+        } else {
+            if ((parsed & (1 << DateFormat.MONTH_FIELD)) != 0) {
+                month = values[DateFormat.MONTH_FIELD] - 1;
+            }
+            if ((parsed & (1 << DateFormat.DATE_FIELD)) != 0) {
+                day = values[DateFormat.DATE_FIELD];
+                int daysInMonth = month == 11 ? 31 : DAYS_BEFORE_MONTH[month + 1]
+                        - DAYS_BEFORE_MONTH[month];
+                if (month == 1 && isLeapYear(year)) {
+                    daysInMonth++;
+                }
+                if (day > daysInMonth) {
+                    position.setErrorIndex(start);
+                    return null;
+                }
+            }
+        }
+
+        int hour = 0;
+        if ((parsed & (1 << DateFormat.HOUR_OF_DAY0_FIELD)) != 0) {
+            hour = values[DateFormat.HOUR_OF_DAY0_FIELD];
+        } else if ((parsed & (1 << DateFormat.HOUR_OF_DAY1_FIELD)) != 0) {
+            hour = values[DateFormat.HOUR_OF_DAY1_FIELD] % 24;
+        } else {
+            if ((parsed & (1 << DateFormat.HOUR1_FIELD)) != 0) {
+                hour = values[DateFormat.HOUR1_FIELD] % 12;
+            } else if ((parsed & (1 << DateFormat.HOUR0_FIELD)) != 0) {
+                hour = values[DateFormat.HOUR0_FIELD];
+            }
+            if ((parsed & (1 << DateFormat.AM_PM_FIELD)) != 0
+                    && values[DateFormat.AM_PM_FIELD] == Calendar.PM) {
+                hour += 12;
+            }
+        }
+
+        long local = hour * ONE_HOUR + values[DateFormat.MINUTE_FIELD]
+                * ONE_MINUTE + values[DateFormat.SECOND_FIELD] * ONE_SECOND
+                + values[DateFormat.MILLISECOND_FIELD];
+        long millis;
+        if (year < 1583) {
+            Calendar calendar = new GregorianCalendar(zone, locale);
+            calendar.clear();
+            calendar.set(Calendar.ERA, year > 0 ? GregorianCalendar.AD
+                    : GregorianCalendar.BC);
+            calendar.set(year > 0 ? year : 1 - year, month, day);
+            millis = calendar.getTimeInMillis() + local;
+            if ((parsed & (1 << DateFormat.TIMEZONE_FIELD | 1 << RFC822_TIMEZONE_FIELD)) != 0) {
+                millis += calendar.get(Calendar.ZONE_OFFSET)
+                        + calendar.get(Calendar.DST_OFFSET)
+                        - values[DateFormat.TIMEZONE_FIELD];
+            }
+        } else {
+            local += daysFromCivil(year, month + 1, day) * ONE_DAY;
+            if ((parsed & (1 << DateFormat.TIMEZONE_FIELD | 1 << RFC822_TIMEZONE_FIELD)) != 0) {
+                millis = local - values[DateFormat.TIMEZONE_FIELD];
+            } else {
+                int offset = zone.getOffset(local - rawOffset);
+                if (zone.getOffset(local - offset) != offset) {
+                    // in the hour skipped when clocks are put forward
+                    offset = rawOffset;
+                }
+                int daylight = rawOffset + zone.getDSTSavings();
+                if (offset != daylight
+                        && zone.getOffset(local - daylight) == daylight) {
+                    // the earlier of the times repeated when clocks are put back
+                    offset = daylight;
+                }
+                millis = local - offset;
+            }
+        }
+        position.setIndex(index);
+        return new Date(millis);
+    }
+
+    /*
+     * Answers the days since January 1, 1970 of the given date of the
+     * proleptic Gregorian calendar, the month counting from 1.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        if (month <= 2) {
+            year--;
+        }
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfMarchYear = (153 * (month > 2 ? month - 3 : month + 9) + 2)
+                / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+                + dayOfMarchYear;
+        return (long) era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /*
+     * Parses the element at the given index, storing its value. Answers the
+     * index after the element, or -(error index + 1) if it does not match.
+     */
+    private int parseElement(String string, int index, Element element,
+            int[] values) {
+        final int length = string.length();
+        switch (element.field) {
+            case LITERAL:
+                String literal = element.literal;
+                if (!string.regionMatches(index, literal, 0, literal.length())) {
+                    return -index - 1;
+                }
+                return index + literal.length();
+            case DateFormat.ERA_FIELD:
+                return parseText(string, index, eras, null, values,
+                        element.field);
+            case DateFormat.MONTH_FIELD:
+                if (element.count >= 3) {
+                    int end = parseText(string, index, months, shortMonths,
+                            values, element.field);
+                    if (end >= 0) {
+                        values[element.field]++;
+                    }
+                    return end;
+                }
+                break;
+            case DateFormat.DAY_OF_WEEK_FIELD:
+                return parseText(string, index, weekdays, shortWeekdays,
+                        values, element.field);
+            case DateFormat.AM_PM_FIELD:
+                return parseText(string, index, ampms, null, values,
+                        element.field);
+            case DateFormat.TIMEZONE_FIELD:
+                return parseZone(string, index, values);
+            case RFC822_TIMEZONE_FIELD:
+                return parseOffset(string, index, false, values);
+        }
+
+        // a number, of count digits if another number follows
+        int limit = element.abutting ? Math.min(length, index + element.count)
+                : length;
+        int end = index, value = 0;
+        char next;
+        while (end < limit && end - index < 9
+                && (next = string.charAt(end)) >= '0' && next <= '9') {
+            value = value * 10 + next - '0';
+            end++;
+        }
+        if (end == index || value < MINIMUM[element.field]
+                || value > MAXIMUM[element.field]) {
+            return -index - 1;
+        }
+        values[element.field] = value;
+        return end;
+    }
+
+    /*
+     * Parses the longest of the names, ignoring case, storing its index.
+     */
+    private static int parseText(String string, int index, String[] names,
+            String[] shortNames, int[] values, int field) {
+        int best = longestMatch(string, index, names, -1, 0);
+        if (shortNames != null) {
+            best = longestMatch(string, index, shortNames, best,
+                    best == -1 ? 0 : names[best].length());
+        }
+        if (best == -1) {
+            return -index - 1;
+        }
+        values[field] = best;
+        int nameLength = names[best].length();
+        return index
+                + (string.regionMatches(true, index, names[best], 0,
+                        nameLength) ? nameLength : shortNames[best].length());
+    }
+
+    private static int longestMatch(String string, int index, String[] names,
+            int best, int bestLength) {
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            int nameLength = name.length();
+            if (nameLength > bestLength
+                    && string.regionMatches(true, index, name, 0, nameLength)) {
+                best = i;
+                bestLength = nameLength;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Parses GMT followed by an optional offset, an RFC 822 offset, or one
+     * of the names of the zone of this formatter, storing the offset.
+     */
+    private int parseZone(String string, int index, int[] values) {
+        if (string.regionMatches(index, "GMT", 0, 3)) { //$NON-NLS-1$
+            values[DateFormat.TIMEZONE_FIELD] = 0;
+            int end = index + 3;
+            if (end < string.length()
+                    && (string.charAt(end) == '+' || string.charAt(end) == '-')) {
+                return parseOffset(string, end, true, values);
+            }
+            return end;
+        }
+        if (zoneNames != null) {
+            for (int i = 0; i < zoneNames.length; i++) {
+                String name = zoneNames[i];
+                if (string.regionMatches(true, index, name, 0, name.length())) {
+                    values[DateFormat.TIMEZONE_FIELD] = rawOffset
+                            + (i < 2 ? 0 : zone.getDSTSavings());
+                    return index + name.length();
+                }
+            }
+        }
+        return parseOffset(string, index, false, values);
+    }
+
+    /*
+     * Parses a sign followed by hours and minutes, as hh:mm, h:mm or hh if
+     * colon is true, and as hhmm otherwise.
+     */
+    private static int parseOffset(String string, int index, boolean colon,
+            int[] values) {
+        final int length = string.length();
+        if (index >= length) {
+            return -index - 1;
+        }
+        char sign = string.charAt(index);
+        if (sign != '+' && sign != '-') {
+            return -index - 1;
+        }
+        int end = index + 1, digits = 0, hours = 0;
+        char next;
+        while (end < length && digits < (colon ? 2 : 4)
+                && (next = string.charAt(end)) >= '0' && next <= '9') {
+            hours = hours * 10 + next - '0';
+            digits++;
+            end++;
+        }
+        int minutes;
+        if (colon) {
+            if (digits == 0) {
+                return -index - 1;
+            }
+            minutes = 0;
+            if (end + 2 < length && string.charAt(end) == ':') {
+                char high = string.charAt(end + 1), low = string.charAt(end + 2);
+                if (high < '0' || high > '5' || low < '0' || low > '9') {
+                    return -index - 1;
+                }
+                minutes = (high - '0') * 10 + low - '0';
+                end += 3;
+            }
+        } else {
+            if (digits != 4) {
+                return -index - 1;
+            }
+            minutes = hours % 100;
+            hours /= 100;
+            if (minutes > 59) {
+                return -index - 1;
+            }
+        }
+        if (hours > 23) {
+            return -index - 1;
+        }
+        int offset = (int) (hours * ONE_HOUR + minutes * ONE_MINUTE);
+        values[DateFormat.TIMEZONE_FIELD] = sign == '-' ? -offset : offset;
+        return end;
+    }
+}
@@ -34,6 +34,7 @@ public class AllTests {
 		TestSuite suite = new TestSuite("All Text test suites");
 		// $JUnit-BEGIN$
 		suite.addTest(org.apache.harmony.text.tests.java.text.AllTests.suite());
+		suite.addTestSuite(DateFormatterTest.class);
 		// $JUnit-END$
 		return suite;
 	}
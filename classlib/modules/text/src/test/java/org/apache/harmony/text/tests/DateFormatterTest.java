@@ -0,0 +1,320 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.text.tests;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.apache.harmony.text.DateFormatter;
+
+public class DateFormatterTest extends TestCase {
+
+    private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+    private static final TimeZone NEW_YORK = TimeZone
+            .getTimeZone("America/New_York");
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#format(long)
+     */
+    public void test_formatJ() {
+        DateFormatter formatter = DateFormatter.getInstance(
+                "EEE, dd MMM yyyy HH:mm:ss 'GMT'", GMT, Locale.US);
+        assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", formatter.format(0));
+        assertEquals("Tue, 29 Feb 2000 23:59:59 GMT", formatter
+                .format(951868799000L));
+        assertEquals("Wed, 31 Dec 1969 23:59:59 GMT", formatter.format(-1000));
+
+        formatter = DateFormatter.getInstance(
+                "yyyy-MM-dd'T'HH:mm:ss.SSSZ", NEW_YORK, Locale.US);
+        assertEquals("2008-07-02T08:00:00.000-0400", formatter
+                .format(1215000000000L));
+        assertEquals("2008-01-15T07:00:00.123-0500", formatter
+                .format(1200398400123L));
+
+        formatter = DateFormatter.getInstance("''yy'' 'o''clock' h a K k",
+                GMT, Locale.US);
+        assertEquals("'70' o'clock 12 AM 0 24", formatter.format(0));
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#format(long)
+     */
+    public void test_formatJ_SimpleDateFormat() {
+        String[] patterns = { "G yyyy MMMM dd EEEE D F w W a hh KK kk HH",
+                "yy-M-d H:m:s.S Z", "yyyyMMddHHmmssSSS" };
+        Random random = new Random(1);
+        for (String pattern : patterns) {
+            DateFormatter formatter = DateFormatter.getInstance(pattern,
+                    NEW_YORK, Locale.US);
+            SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+            format.setTimeZone(NEW_YORK);
+            for (int i = 0; i < 1000; i++) {
+                long millis = random.nextLong() % 4000000000000L;
+                assertEquals(format.format(new Date(millis)), formatter
+                        .format(millis));
+            }
+        }
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#format(long)
+     */
+    public void test_formatJ_year() {
+        String[] patterns = { "y", "yy", "yyy", "yyyy", "yyyyy" };
+        GregorianCalendar calendar = new GregorianCalendar(GMT);
+        int[] years = { 5, 26, 205, 1999, 2008, 12345 };
+        for (String pattern : patterns) {
+            DateFormatter formatter = DateFormatter.getInstance(pattern, GMT,
+                    Locale.US);
+            SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+            format.setTimeZone(GMT);
+            for (int year : years) {
+                calendar.clear();
+                calendar.set(year, Calendar.JUNE, 1);
+                Date date = calendar.getTime();
+                assertEquals(pattern + " " + year, format.format(date),
+                        formatter.format(date.getTime()));
+            }
+        }
+        assertEquals("2008", DateFormatter.getInstance("y", GMT, Locale.US)
+                .format(1215000000000L));
+        assertEquals("08", DateFormatter.getInstance("yy", GMT, Locale.US)
+                .format(1215000000000L));
+        assertEquals("2008", DateFormatter.getInstance("yyy", GMT, Locale.US)
+                .format(1215000000000L));
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#format(long)
+     */
+    public void test_formatJ_julian() {
+        DateFormatter formatter = DateFormatter.getInstance("G yyyy-MM-dd",
+                GMT, Locale.US);
+        GregorianCalendar calendar = new GregorianCalendar(GMT);
+        calendar.clear();
+        calendar.set(1582, Calendar.OCTOBER, 4);
+        assertEquals("AD 1582-10-04", formatter.format(calendar
+                .getTimeInMillis()));
+        assertEquals("AD 1582-10-15", formatter.format(calendar
+                .getTimeInMillis()
+                + 24 * 3600 * 1000));
+        calendar.set(Calendar.ERA, GregorianCalendar.BC);
+        calendar.set(44, Calendar.MARCH, 15);
+        assertEquals("BC 0044-03-15", formatter.format(calendar
+                .getTimeInMillis()));
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#format(long,
+     *        java.lang.StringBuilder)
+     */
+    public void test_formatJLjava_lang_StringBuilder() {
+        DateFormatter formatter = DateFormatter.getInstance("HH:mm", GMT,
+                Locale.US);
+        StringBuilder buffer = new StringBuilder("at ");
+        assertSame(buffer, formatter.format(3600000, buffer));
+        assertEquals("at 01:00", buffer.toString());
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#formatTo(long,
+     *        java.lang.Appendable)
+     */
+    public void test_formatToJLjava_lang_Appendable() throws IOException {
+        DateFormatter formatter = DateFormatter.getInstance("HH:mm", GMT,
+                Locale.US);
+        StringWriter writer = new StringWriter();
+        formatter.formatTo(60000, writer);
+        assertEquals("00:01", writer.toString());
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#getInstance(java.lang.String,
+     *        java.util.TimeZone, java.util.Locale)
+     */
+    public void test_getInstanceLjava_lang_StringLjava_util_TimeZoneLjava_util_Locale() {
+        try {
+            DateFormatter.getInstance("yyyy 'at", GMT, Locale.US);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            DateFormatter.getInstance("yyyy b", GMT, Locale.US);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            DateFormatter.getInstance("yyyy", null, Locale.US);
+            fail("NullPointerException expected");
+        } catch (NullPointerException e) {
+            // expected
+        }
+
+        // the formatter keeps its own copy of the zone
+        TimeZone zone = TimeZone.getTimeZone("GMT");
+        DateFormatter formatter = DateFormatter.getInstance("HH", zone,
+                Locale.US);
+        zone.setRawOffset(3600000);
+        assertEquals("00", formatter.format(0));
+        assertEquals("GMT", formatter.getTimeZone().getID());
+        assertEquals("HH", formatter.toPattern());
+        assertEquals(Locale.US, formatter.getLocale());
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#parse(java.lang.String)
+     */
+    public void test_parseLjava_lang_String() throws ParseException {
+        DateFormatter formatter = DateFormatter.getInstance(
+                "EEE, dd MMM yyyy HH:mm:ss 'GMT'", GMT, Locale.US);
+        assertEquals(951868799000L, formatter.parse(
+                "Tue, 29 Feb 2000 23:59:59 GMT").getTime());
+        assertEquals(0, formatter.parse("thu, 01 JAN 1970 00:00:00 GMT")
+                .getTime());
+
+        formatter = DateFormatter.getInstance("yyyyMMddHHmmss", NEW_YORK,
+                Locale.US);
+        assertEquals(1215000000000L, formatter.parse("20080702080000")
+                .getTime());
+        // the earlier of the repeated times when clocks are put back
+        assertEquals(1225603800000L, formatter.parse("20081102013000")
+                .getTime());
+
+        formatter = DateFormatter.getInstance("dd MMMM yyyy HH:mm z",
+                NEW_YORK, Locale.US);
+        assertEquals(1215000000000L, formatter.parse(
+                "02 July 2008 08:00 GMT-04:00").getTime());
+        assertEquals(1215000000000L, formatter.parse(
+                "02 July 2008 12:00 GMT").getTime());
+        assertEquals(1215000000000L, formatter.parse(
+                "02 July 2008 08:00 -0400").getTime());
+
+        try {
+            formatter.parse("2 July");
+            fail("ParseException expected");
+        } catch (ParseException e) {
+            assertEquals(6, e.getErrorOffset());
+        }
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#parse(java.lang.String,
+     *        java.text.ParsePosition)
+     */
+    public void test_parseLjava_lang_StringLjava_text_ParsePosition() {
+        DateFormatter formatter = DateFormatter.getInstance("yy-MM-dd", GMT,
+                Locale.US);
+        ParsePosition position = new ParsePosition(3);
+        Date date = formatter.parse("on 08-02-29.", position);
+        assertEquals(1204243200000L, date.getTime());
+        assertEquals(11, position.getIndex());
+
+        position = new ParsePosition(0);
+        assertNull(formatter.parse("08-13-01", position));
+        assertEquals(3, position.getErrorIndex());
+        assertEquals(0, position.getIndex());
+
+        position = new ParsePosition(0);
+        assertNull(formatter.parse("07-02-29", position));
+        position = new ParsePosition(0);
+        assertNull(formatter.parse("08/02/29", position));
+        assertEquals(2, position.getErrorIndex());
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#parse(java.lang.String)
+     */
+    public void test_parseLjava_lang_String_year() throws ParseException {
+        String[] patterns = { "y", "yy", "yyy", "yyyy" };
+        String[] years = { "5", "26", "99", "026", "205", "2008", "0026" };
+        for (String pattern : patterns) {
+            DateFormatter formatter = DateFormatter.getInstance(pattern
+                    + " MM dd", GMT, Locale.US);
+            SimpleDateFormat format = new SimpleDateFormat(pattern + " MM dd",
+                    Locale.US);
+            format.setTimeZone(GMT);
+            for (String year : years) {
+                String text = year + " 06 01";
+                assertEquals(pattern + " " + year, format.parse(text)
+                        .getTime(), formatter.parse(text).getTime());
+            }
+        }
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#parse(java.lang.String)
+     */
+    public void test_parseLjava_lang_String_roundTrip() throws ParseException {
+        DateFormatter formatter = DateFormatter.getInstance(
+                "yyyy-MM-dd'T'HH:mm:ss.SSSZ", NEW_YORK, Locale.US);
+        Random random = new Random(2);
+        for (int i = 0; i < 1000; i++) {
+            long millis = random.nextLong() % 4000000000000L;
+            assertEquals(millis, formatter.parse(formatter.format(millis))
+                    .getTime());
+        }
+    }
+
+    /**
+     * @tests org.apache.harmony.text.DateFormatter#format(long)
+     */
+    public void test_formatJ_sharedAcrossThreads() throws Exception {
+        final DateFormatter formatter = DateFormatter.getInstance(
+                "yyyy-MM-dd HH:mm:ss.SSS", GMT, Locale.US);
+        final String[] failure = new String[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long seed = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 10000; i++) {
+                        long millis = random.nextLong() % 4000000000000L;
+                        try {
+                            if (formatter.parse(formatter.format(millis))
+                                    .getTime() != millis) {
+                                failure[0] = formatter.format(millis);
+                            }
+                        } catch (ParseException e) {
+                            failure[0] = e.getMessage();
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure[0]);
+    }
+}
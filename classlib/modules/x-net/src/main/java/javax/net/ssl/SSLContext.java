@@ -54,10 +54,8 @@ public class SSLContext {
         if (protocol == null) {
             throw new NullPointerException("protocol is null");
         }
-        synchronized (engine) {
-            engine.getInstance(protocol, null);
-            return new SSLContext((SSLContextSpi) engine.spi, engine.provider, protocol);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(protocol, null);
+        return new SSLContext((SSLContextSpi) sap.spi, sap.provider, protocol);
     }
 
     /**
@@ -117,10 +115,8 @@ public class SSLContext {
         if (protocol == null) {
             throw new NullPointerException("protocol is null");
         }
-        synchronized (engine) {
-            engine.getInstance(protocol, provider, null);
-            return new SSLContext((SSLContextSpi) engine.spi, provider, protocol);
-        }
+        Engine.SpiAndProvider sap = engine.newInstance(protocol, provider, null);
+        return new SSLContext((SSLContextSpi) sap.spi, provider, protocol);
     }
 
     private final Provider provider;
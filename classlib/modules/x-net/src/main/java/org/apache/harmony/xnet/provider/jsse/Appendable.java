@@ -30,4 +30,14 @@ public interface Appendable {
      */
     public void append(byte[] src);
 
+    /**
+     * Provides the additional data to be read. The data may be
+     * overwritten by the caller after the next record has been received.
+     * 
+     * @param src the array containing the data to be appended.
+     * @param offset the offset of the data in the array.
+     * @param length the length of the data.
+     */
+    public void append(byte[] src, int offset, int length);
+
 }
@@ -30,7 +30,6 @@ import java.security.PublicKey;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
-import java.util.Enumeration;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyAgreement;
@@ -38,8 +37,6 @@ import javax.crypto.interfaces.DHKey;
 import javax.crypto.interfaces.DHPublicKey;
 import javax.crypto.spec.DHParameterSpec;
 import javax.crypto.spec.DHPublicKeySpec;
-import javax.net.ssl.SSLSession;
-import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.X509ExtendedKeyManager;
 
 /**
@@ -609,15 +606,10 @@ public class ClientHandshakeImpl extends HandshakeProtocol {
             return null; // starts new session
         }
         
-        byte[] id;
-        SSLSession ses;
-        SSLSessionContext context = parameters.getClientSessionContext();
-        for (Enumeration<?> en = context.getIds(); en.hasMoreElements();) {
-            id = (byte[])en.nextElement();
-            ses = context.getSession(id);
-            if (host.equals(ses.getPeerHost()) && port == ses.getPeerPort()) {
-                return (SSLSessionImpl)((SSLSessionImpl)ses).clone(); // resume
-            }            
+        SSLSessionImpl ses = parameters.getClientSessionContext().getSession(
+                host, port);
+        if (ses != null) {
+            return (SSLSessionImpl) ses.clone(); // resume
         }
         return null; // starts new session
     }
@@ -20,6 +20,7 @@ package org.apache.harmony.xnet.provider.jsse;
 import org.apache.harmony.xnet.provider.jsse.Logger;
 
 import javax.crypto.Cipher;
+import javax.net.ssl.SSLProtocolException;
 
 /**
  * This abstract class is a base for Record Protocol operating environmet
@@ -76,7 +77,13 @@ public abstract class ConnectionState {
      * corresponding to the content data of specified size.
      */
     protected int getFragmentSize(int content_size) {
-        return encCipher.getOutputSize(content_size+hash_size);
+        int size = content_size + hash_size;
+        if (is_block_cipher) {
+            // padding_length byte plus the padding up to the block
+            // boundary (the block size is always 8)
+            size = (size + 8) & ~0x07;
+        }
+        return encCipher.getOutputSize(size);
     }
 
     /**
@@ -90,6 +97,29 @@ public abstract class ConnectionState {
         return decCipher.getOutputSize(generic_cipher_size)-hash_size;
     }
 
+    /**
+     * Checks that a received Generic[Stream|Block]Cipher structure
+     * of the specified size can hold the MAC, and for block ciphers
+     * the padding length byte in whole blocks. It is called before
+     * anything is decrypted, so that a short record can neither skip
+     * the MAC check nor disturb the cipher state.
+     * @throws AlertException if the structure is too short.
+     */
+    protected void checkFragmentSize(int len) {
+        int min_length = hash_size;
+        if (is_block_cipher) {
+            int block_size = decCipher.getBlockSize();
+            min_length = (hash_size + block_size) / block_size * block_size;
+            if (len % block_size != 0) {
+                min_length = Integer.MAX_VALUE;
+            }
+        }
+        if (len < min_length) {
+            throw new AlertException(AlertProtocol.BAD_RECORD_MAC,
+                    new SSLProtocolException("Bad record MAC"));
+        }
+    }
+
     /**
      * Creates the GenericStreamCipher or GenericBlockCipher
      * data structure for specified data of specified type.
@@ -110,8 +140,29 @@ public abstract class ConnectionState {
      * @param offset - the offset from which the data begins with.
      * @param len - the length of the data.
      */
-    protected abstract byte[] encrypt
-        (byte type, byte[] fragment, int offset, int len);
+    protected byte[] encrypt(byte type, byte[] fragment, int offset, int len) {
+        byte[] res = new byte[getFragmentSize(len)];
+        encrypt(type, fragment, offset, len, res, 0);
+        return res;
+    }
+
+    /**
+     * Creates the GenericStreamCipher or GenericBlockCipher
+     * data structure for specified data of specified type
+     * and places it into the provided array. The data is encrypted
+     * in place, so no intermediate arrays are created.
+     * @param type - the ContentType of the provided data
+     * @param fragment - the byte array containing the
+     * data to be encrypted under the current connection state.
+     * @param offset - the offset from which the data begins with.
+     * @param len - the length of the data.
+     * @param out - the array receiving the structure, it should have
+     * at least getFragmentSize(len) bytes of space at out_offset.
+     * @param out_offset - the offset of the structure in out.
+     * @return the length of the structure.
+     */
+    protected abstract int encrypt(byte type, byte[] fragment, int offset,
+            int len, byte[] out, int out_offset);
 
     /**
      * Retrieves the fragment of the Plaintext structure of
@@ -133,8 +184,32 @@ public abstract class ConnectionState {
      * @param offset - the offset from which the data begins with.
      * @param len - the length of the data.
      */
-    protected abstract byte[] decrypt
-        (byte type, byte[] fragment, int offset, int len);
+    protected byte[] decrypt(byte type, byte[] fragment, int offset,
+            int len) {
+        byte[] data = new byte[len];
+        int length = decrypt(type, fragment, offset, len, data, 0);
+        byte[] content = new byte[length];
+        System.arraycopy(data, 0, content, 0, length);
+        return content;
+    }
+
+    /**
+     * Retrieves the fragment of the Plaintext structure of
+     * the specified type from the provided data and places it
+     * into the provided array. The output may overlap the input
+     * at the same offset, so the data can be decrypted in place.
+     * @param type - the ContentType of the data to be decrypted.
+     * @param fragment - the byte array containing the
+     * data to be encrypted under the current connection state.
+     * @param offset - the offset from which the data begins with.
+     * @param len - the length of the data.
+     * @param out - the array receiving the plain data, it should have
+     * at least len bytes of space at out_offset.
+     * @param out_offset - the offset of the plain data in out.
+     * @return the length of the plain data.
+     */
+    protected abstract int decrypt(byte type, byte[] fragment, int offset,
+            int len, byte[] out, int out_offset);
 
     /**
      * Increments the sequence number.
@@ -48,6 +48,10 @@ public class ConnectionStateSSLv3 extends ConnectionState {
     // SSL v3 specification, p. 5.2.3)
     private final byte[] mac_material_part = new byte[3];
 
+    // Once created permanently used array receiving the MAC value
+    // of the income records
+    private byte[] mac_value;
+
     /**
      * Creates the instance of SSL v3 Connection State. All of the
      * security parameters are provided by session object.
@@ -63,6 +67,7 @@ public class ConnectionStateSSLv3 extends ConnectionState {
 
             boolean is_exportabe =  cipherSuite.isExportable();
             hash_size = cipherSuite.getMACLength();
+            mac_value = new byte[hash_size];
             int key_size = (is_exportabe)
                 ? cipherSuite.keyMaterial
                 : cipherSuite.expandedKeyMaterial;
@@ -216,15 +221,16 @@ public class ConnectionStateSSLv3 extends ConnectionState {
      * @throws AlertException if alert was occurred.
      */
     @Override
-    protected byte[] encrypt(byte type, byte[] fragment, int offset, int len) {
+    protected int encrypt(byte type, byte[] fragment, int offset, int len,
+            byte[] out, int out_offset) {
         try {
             int content_mac_length = len + hash_size;
             int padding_length = is_block_cipher
                     ? padding_length =
                         ((8 - (++content_mac_length & 0x07)) & 0x07)
                     : 0;
-            byte[] res = new byte[content_mac_length + padding_length];
-            System.arraycopy(fragment, offset, res, 0, len);
+            int length = content_mac_length + padding_length;
+            System.arraycopy(fragment, offset, out, out_offset, len);
 
             mac_material_part[0] = type;
             mac_material_part[1] = (byte) ((0x00FF00 & len) >> 8);
@@ -234,13 +240,13 @@ public class ConnectionStateSSLv3 extends ConnectionState {
             messageDigest.update(pad_1);
             messageDigest.update(write_seq_num);
             messageDigest.update(mac_material_part);
-            messageDigest.update(fragment, offset, len);
-            byte[] digest = messageDigest.digest();
+            messageDigest.update(out, out_offset, len);
+            // the inner digest is placed where the MAC value will be
+            messageDigest.digest(out, out_offset + len, hash_size);
             messageDigest.update(mac_write_secret);
             messageDigest.update(pad_2);
-            messageDigest.update(digest);
-            digest = messageDigest.digest();
-            System.arraycopy(digest, 0, res, len, hash_size);
+            messageDigest.update(out, out_offset + len, hash_size);
+            messageDigest.digest(out, out_offset + len, hash_size);
 
             //if (logger != null) {
             //    logger.println("MAC Material:");
@@ -251,8 +257,8 @@ public class ConnectionStateSSLv3 extends ConnectionState {
 
             if (is_block_cipher) {
                 // do padding:
-                Arrays.fill(res, content_mac_length-1,
-                        res.length, (byte) (padding_length));
+                Arrays.fill(out, out_offset + content_mac_length - 1,
+                        out_offset + length, (byte) (padding_length));
             }
             if (logger != null) {
                 logger.println("SSLRecordProtocol.encrypt: "
@@ -260,12 +266,11 @@ public class ConnectionStateSSLv3 extends ConnectionState {
                             ? "GenericBlockCipher with padding["
                                 +padding_length+"]:"
                             : "GenericStreamCipher:"));
-                logger.print(res);
+                logger.print(out, out_offset, length);
             }
-            byte[] rez = new byte[encCipher.getOutputSize(res.length)];
-            encCipher.update(res, 0, res.length, rez);
+            length = encCipher.update(out, out_offset, length, out, out_offset);
             incSequenceNumber(write_seq_num);
-            return rez;
+            return length;
         } catch (GeneralSecurityException e) {
             e.printStackTrace();
             throw new AlertException(AlertProtocol.INTERNAL_ERROR,
@@ -279,65 +284,86 @@ public class ConnectionStateSSLv3 extends ConnectionState {
      * @throws AlertException if alert was occured.
      */
     @Override
-    protected byte[] decrypt(byte type, byte[] fragment,
-            int offset, int len) {
-        // plain data of the Generic[Stream|Block]Cipher structure
-        byte[] data = decCipher.update(fragment, offset, len);
-        // the 'content' part of the structure
-        byte[] content;
-        if (is_block_cipher) {
-            // check padding
-            int padding_length = data[data.length-1];
-            for (int i=0; i<padding_length; i++) {
-                if (data[data.length-2-i] != padding_length) {
+    protected int decrypt(byte type, byte[] fragment, int offset, int len,
+            byte[] out, int out_offset) {
+        checkFragmentSize(len);
+        try {
+            // plain data of the Generic[Stream|Block]Cipher structure
+            int length =
+                decCipher.update(fragment, offset, len, out, out_offset);
+            // the length of the 'content' part of the structure
+            int content_length;
+            if (is_block_cipher) {
+                // check padding
+                if (length == 0) {
                     throw new AlertException(
                             AlertProtocol.DECRYPTION_FAILED,
                             new SSLProtocolException(
                                 "Received message has bad padding"));
                 }
+                int padding_length = out[out_offset+length-1] & 0xFF;
+                if (padding_length + 1 + hash_size > length) {
+                    throw new AlertException(
+                            AlertProtocol.DECRYPTION_FAILED,
+                            new SSLProtocolException(
+                                "Received message has bad padding"));
+                }
+                for (int i=0; i<padding_length; i++) {
+                    if (out[out_offset+length-2-i] != (byte) padding_length) {
+                        throw new AlertException(
+                                AlertProtocol.DECRYPTION_FAILED,
+                                new SSLProtocolException(
+                                    "Received message has bad padding"));
+                    }
+                }
+                content_length = length - hash_size - padding_length - 1;
+            } else {
+                content_length = length - hash_size;
+                if (content_length < 0) {
+                    throw new AlertException(AlertProtocol.BAD_RECORD_MAC,
+                            new SSLProtocolException("Bad record MAC"));
+                }
             }
-            content = new byte[data.length - hash_size - padding_length - 1];
-        } else {
-            content = new byte[data.length - hash_size];
-        }
 
-        byte[] mac_value;
-
-        mac_material_part[0] = type;
-        mac_material_part[1] = (byte) ((0x00FF00 & content.length) >> 8);
-        mac_material_part[2] = (byte) (0x0000FF & content.length);
-
-        messageDigest.update(mac_read_secret);
-        messageDigest.update(pad_1);
-        messageDigest.update(read_seq_num);
-        messageDigest.update(mac_material_part);
-        messageDigest.update(data, 0, content.length);
-        mac_value = messageDigest.digest();
-        messageDigest.update(mac_read_secret);
-        messageDigest.update(pad_2);
-        messageDigest.update(mac_value);
-        mac_value = messageDigest.digest();
-
-        if (logger != null) {
-            logger.println("Decrypted:");
-            logger.print(data);
-            //logger.println("MAC Material:");
-            //logger.print(read_seq_num);
-            //logger.print(mac_material_header);
-            //logger.print(data, 0, content.length);
-            logger.println("Expected mac value:");
-            logger.print(mac_value);
-        }
-        // checking the mac value
-        for (int i=0; i<hash_size; i++) {
-            if (mac_value[i] != data[i+content.length]) {
-                throw new AlertException(AlertProtocol.BAD_RECORD_MAC,
-                        new SSLProtocolException("Bad record MAC"));
+            mac_material_part[0] = type;
+            mac_material_part[1] = (byte) ((0x00FF00 & content_length) >> 8);
+            mac_material_part[2] = (byte) (0x0000FF & content_length);
+
+            messageDigest.update(mac_read_secret);
+            messageDigest.update(pad_1);
+            messageDigest.update(read_seq_num);
+            messageDigest.update(mac_material_part);
+            messageDigest.update(out, out_offset, content_length);
+            messageDigest.digest(mac_value, 0, hash_size);
+            messageDigest.update(mac_read_secret);
+            messageDigest.update(pad_2);
+            messageDigest.update(mac_value);
+            messageDigest.digest(mac_value, 0, hash_size);
+
+            if (logger != null) {
+                logger.println("Decrypted:");
+                logger.print(out, out_offset, length);
+                //logger.println("MAC Material:");
+                //logger.print(read_seq_num);
+                //logger.print(mac_material_header);
+                //logger.print(out, out_offset, content_length);
+                logger.println("Expected mac value:");
+                logger.print(mac_value);
+            }
+            // checking the mac value
+            for (int i=0; i<hash_size; i++) {
+                if (mac_value[i] != out[out_offset+content_length+i]) {
+                    throw new AlertException(AlertProtocol.BAD_RECORD_MAC,
+                            new SSLProtocolException("Bad record MAC"));
+                }
             }
+            incSequenceNumber(read_seq_num);
+            return content_length;
+        } catch (GeneralSecurityException e) {
+            e.printStackTrace();
+            throw new AlertException(AlertProtocol.INTERNAL_ERROR,
+                    new SSLProtocolException("Error during the decryption"));
         }
-        System.arraycopy(data, 0, content, 0, content.length);
-        incSequenceNumber(read_seq_num);
-        return content;
     }
 
     /**
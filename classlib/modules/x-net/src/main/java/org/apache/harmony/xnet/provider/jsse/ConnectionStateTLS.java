@@ -75,6 +75,10 @@ public class ConnectionStateTLS extends ConnectionState {
     //      2(TLSCompressed.length)
     private final byte[] mac_material_header = new byte[] {0, 3, 1, 0, 0};
 
+    // Once created permanently used array receiving the MAC value
+    // of the income records
+    private byte[] mac_value;
+
     /**
      * Creates the instance of TLS v1 Connection State. All of the
      * security parameters are provided by session object.
@@ -89,6 +93,7 @@ public class ConnectionStateTLS extends ConnectionState {
             CipherSuite cipherSuite = session.cipherSuite;
 
             hash_size = cipherSuite.getMACLength();
+            mac_value = new byte[hash_size];
             boolean is_exportabe =  cipherSuite.isExportable();
             int key_size = (is_exportabe)
                 ? cipherSuite.keyMaterial
@@ -233,14 +238,15 @@ public class ConnectionStateTLS extends ConnectionState {
      * @throws AlertException if alert was occurred.
      */
     @Override
-    protected byte[] encrypt(byte type, byte[] fragment, int offset, int len) {
+    protected int encrypt(byte type, byte[] fragment, int offset, int len,
+            byte[] out, int out_offset) {
         try {
             int content_mac_length = len + hash_size;
             int padding_length = is_block_cipher
                     ? ((8 - (++content_mac_length & 0x07)) & 0x07)
                     : 0;
-            byte[] res = new byte[content_mac_length + padding_length];
-            System.arraycopy(fragment, offset, res, 0, len);
+            int length = content_mac_length + padding_length;
+            System.arraycopy(fragment, offset, out, out_offset, len);
 
             mac_material_header[0] = type;
             mac_material_header[3] = (byte) ((0x00FF00 & len) >> 8);
@@ -248,8 +254,8 @@ public class ConnectionStateTLS extends ConnectionState {
 
             encMac.update(write_seq_num);
             encMac.update(mac_material_header);
-            encMac.update(fragment, offset, len);
-            encMac.doFinal(res, len);
+            encMac.update(out, out_offset, len);
+            encMac.doFinal(out, out_offset + len);
 
             //if (logger != null) {
             //    logger.println("MAC Material:");
@@ -260,17 +266,16 @@ public class ConnectionStateTLS extends ConnectionState {
 
             if (is_block_cipher) {
                 // do padding:
-                Arrays.fill(res, content_mac_length-1,
-                        res.length, (byte) (padding_length));
+                Arrays.fill(out, out_offset + content_mac_length - 1,
+                        out_offset + length, (byte) (padding_length));
             }
             if (logger != null) {
                 logger.println("SSLRecordProtocol.do_encryption: Generic"
                         + (is_block_cipher
                             ? "BlockCipher with padding["+padding_length+"]:"
                             : "StreamCipher:"));
-                logger.print(res);
+                logger.print(out, out_offset, length);
             }
-            byte[] rez = new byte[encCipher.getOutputSize(res.length)];
             // We should not call just doFinal because it reinitialize
             // the cipher, but as says rfc 2246:
             // "For stream ciphers that do not use a synchronization
@@ -280,9 +285,9 @@ public class ConnectionStateTLS extends ConnectionState {
             // "The IV for subsequent records is the last ciphertext block from
             // the previous record."
             // i.e. we should keep the cipher state.
-            encCipher.update(res, 0, res.length, rez);
+            length = encCipher.update(out, out_offset, length, out, out_offset);
             incSequenceNumber(write_seq_num);
-            return rez;
+            return length;
         } catch (GeneralSecurityException e) {
             e.printStackTrace();
             throw new AlertException(AlertProtocol.INTERNAL_ERROR,
@@ -297,56 +302,84 @@ public class ConnectionStateTLS extends ConnectionState {
      * @throws AlertException if alert was occurred.
      */
     @Override
-    protected byte[] decrypt(byte type, byte[] fragment,
-            int offset, int len) {
+    protected int decrypt(byte type, byte[] fragment, int offset, int len,
+            byte[] out, int out_offset) {
+        checkFragmentSize(len);
         // plain data of the Generic[Stream|Block]Cipher structure
-        byte[] data = decCipher.update(fragment, offset, len);
-        // the 'content' part of the structure
-        byte[] content;
+        int length;
+        try {
+            length = decCipher.update(fragment, offset, len, out, out_offset);
+        } catch (GeneralSecurityException e) {
+            e.printStackTrace();
+            throw new AlertException(AlertProtocol.INTERNAL_ERROR,
+                    new SSLProtocolException("Error during the decryption"));
+        }
+        // the length of the 'content' part of the structure
+        int content_length;
         if (is_block_cipher) {
             // check padding
-            int padding_length = data[data.length-1];
+            if (length == 0) {
+                throw new AlertException(
+                        AlertProtocol.DECRYPTION_FAILED,
+                        new SSLProtocolException(
+                            "Received message has bad padding"));
+            }
+            int padding_length = out[out_offset+length-1] & 0xFF;
+            if (padding_length + 1 + hash_size > length) {
+                throw new AlertException(
+                        AlertProtocol.DECRYPTION_FAILED,
+                        new SSLProtocolException(
+                            "Received message has bad padding"));
+            }
             for (int i=0; i<padding_length; i++) {
-                if (data[data.length-2-i] != padding_length) {
+                if (out[out_offset+length-2-i] != (byte) padding_length) {
                     throw new AlertException(
                             AlertProtocol.DECRYPTION_FAILED,
                             new SSLProtocolException(
                                 "Received message has bad padding"));
                 }
             }
-            content = new byte[data.length - hash_size - padding_length - 1];
+            content_length = length - hash_size - padding_length - 1;
         } else {
-            content = new byte[data.length - hash_size];
+            content_length = length - hash_size;
+            if (content_length < 0) {
+                throw new AlertException(AlertProtocol.BAD_RECORD_MAC,
+                        new SSLProtocolException("Bad record MAC"));
+            }
         }
 
         mac_material_header[0] = type;
-        mac_material_header[3] = (byte) ((0x00FF00 & content.length) >> 8);
-        mac_material_header[4] = (byte) (0x0000FF & content.length);
+        mac_material_header[3] = (byte) ((0x00FF00 & content_length) >> 8);
+        mac_material_header[4] = (byte) (0x0000FF & content_length);
 
         decMac.update(read_seq_num);
         decMac.update(mac_material_header);
-        decMac.update(data, 0, content.length); // mac.update(fragment);
-        byte[] mac_value = decMac.doFinal();
+        decMac.update(out, out_offset, content_length);
+        try {
+            decMac.doFinal(mac_value, 0);
+        } catch (GeneralSecurityException e) {
+            e.printStackTrace();
+            throw new AlertException(AlertProtocol.INTERNAL_ERROR,
+                    new SSLProtocolException("Error during the decryption"));
+        }
         if (logger != null) {
             logger.println("Decrypted:");
-            logger.print(data);
+            logger.print(out, out_offset, length);
             //logger.println("MAC Material:");
             //logger.print(read_seq_num);
             //logger.print(mac_material_header);
-            //logger.print(data, 0, content.length);
+            //logger.print(out, out_offset, content_length);
             logger.println("Expected mac value:");
             logger.print(mac_value);
         }
         // checking the mac value
         for (int i=0; i<hash_size; i++) {
-            if (mac_value[i] != data[i+content.length]) {
+            if (mac_value[i] != out[out_offset+content_length+i]) {
                 throw new AlertException(AlertProtocol.BAD_RECORD_MAC,
                         new SSLProtocolException("Bad record MAC"));
             }
         }
-        System.arraycopy(data, 0, content, 0, content.length);
         incSequenceNumber(read_seq_num);
-        return content;
+        return content_length;
     }
 }
-
@@ -191,7 +191,7 @@ public class HandshakeIODataStream
         append(src, 0, src.length);
     }
 
-    private void append(byte[] src, int from, int length) {
+    public void append(byte[] src, int from, int length) {
         if (read_pos == read_pos_end) {
             // start reading state after writing
             if (write_pos_beg != write_pos) {
@@ -71,11 +71,20 @@ public class SSLBufferedInput extends SSLInputStream {
      */
     @Override
     public int read() throws IOException {
-        // TODO: implement optimized read(int) 
-        // and read(byte[], int, int) methods
         bytik = in.get() & 0x00FF;
         consumed ++;
         return bytik;
     }
+
+    /**
+     * Reads the specified number of bytes in bulk. If there are not enough
+     * bytes in the source buffer, method throws
+     * java.nio.BufferUnderflowException and nothing is consumed.
+     */
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        in.get(b, off, len);
+        consumed += len;
+    }
 }
 
@@ -41,7 +41,7 @@ public class SSLContextImpl extends SSLContextSpi {
     // client session context contains the set of reusable
     // client-side SSL sessions
     private SSLSessionContextImpl clientSessionContext =
-        new SSLSessionContextImpl();
+        new SSLSessionContextImpl(true);
     // server session context contains the set of reusable
     // server-side SSL sessions
     private SSLSessionContextImpl serverSessionContext =
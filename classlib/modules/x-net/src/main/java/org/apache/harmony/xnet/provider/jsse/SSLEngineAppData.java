@@ -33,6 +33,11 @@ public class SSLEngineAppData implements org.apache.harmony.xnet.provider.jsse.A
      */
     byte[] buffer;
 
+    /**
+     * Offset and length of the data in the buffer.
+     */
+    private int offset, length;
+
     /**
      * Constructor
      */
@@ -43,12 +48,23 @@ public class SSLEngineAppData implements org.apache.harmony.xnet.provider.jsse.A
      * just the array reference is remembered into the buffer field.
      */
     public void append(byte[] src) {
+        append(src, 0, src.length);
+    }
+
+    /**
+     * Stores received data. The source data is not cloned, so it
+     * should be placed to the destination buffers before the next record
+     * is unwrapped.
+     */
+    public void append(byte[] src, int offset, int length) {
         if (buffer != null) {
             throw new AlertException(
                 AlertProtocol.INTERNAL_ERROR,
                 new SSLException("Attempt to override the data"));
         }
         buffer = src;
+        this.offset = offset;
+        this.length = length;
     }
 
     /**
@@ -59,13 +75,12 @@ public class SSLEngineAppData implements org.apache.harmony.xnet.provider.jsse.A
         if (buffer == null) {
             return 0;
         }
-        int pos = 0;
-        int len = buffer.length;
+        int pos = this.offset;
+        int len = this.offset + this.length;
         int rem;
         // write data to the buffers
         for (int i=offset; i<offset+length; i++) {
             rem = dsts[i].remaining();
-            // TODO: optimization work - use hasArray, array(), arraycopy
             if (len - pos < rem) {
                 // can fully write remaining data into buffer
                 dsts[i].put(buffer, pos, len - pos);
@@ -89,7 +104,7 @@ public class SSLEngineAppData implements org.apache.harmony.xnet.provider.jsse.A
                     + "into the destination buffers"));
         }
         buffer = null;
-        return len;
+        return this.length;
     }
 }
 
@@ -63,23 +63,33 @@ public class SSLEngineDataStream implements DataStream {
     }
 
     public byte[] getData(int length) {
-        // TODO: optimization work:
-        // use ByteBuffer.get(byte[],int,int)
-        // and ByteBuffer.hasArray() methods
+        int len = (length < available) ? length : available;
+        byte[] res = new byte[len];
+        getData(res, 0, len);
+        return res;
+    }
+
+    /**
+     * Places the data of specified length from the source buffers into
+     * the provided array. If the data size in the stream is less than
+     * specified length, all the data contained in the stream is placed.
+     * @return the number of the bytes placed into the array.
+     */
+    protected int getData(byte[] dst, int off, int length) {
         int len = (length < available) ? length : available;
         available -= len;
         consumed += len;
-        byte[] res = new byte[len];
-        int pos = 0;
-        loop:
-        for (; offset<limit; offset++) {
-            while (srcs[offset].hasRemaining()) {
-                res[pos++] = srcs[offset].get();
-                len --;
-                if (len == 0) {
-                    break loop;
-                }
+        int res = len;
+        for (; len > 0; offset++) {
+            ByteBuffer src = srcs[offset];
+            int rem = src.remaining();
+            if (len <= rem) {
+                src.get(dst, off, len);
+                break;
             }
+            src.get(dst, off, rem);
+            off += rem;
+            len -= rem;
         }
         return res;
     }
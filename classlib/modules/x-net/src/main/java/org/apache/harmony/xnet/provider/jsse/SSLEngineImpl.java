@@ -76,8 +76,7 @@ public class SSLEngineImpl extends SSLEngine {
 
     // in case of emergency situations when data could not be
     // placed in destination buffers it will be stored in this
-    // fields
-    private byte[] remaining_wrapped_data = null;
+    // field
     private byte[] remaining_hsh_data = null;
 
     // logger
@@ -669,40 +668,24 @@ public class SSLEngineImpl extends SSLEngine {
                         SSLEngineResult.HandshakeStatus.NEED_WRAP)) {
                 // so we wraps application data
                 dataStream.setSourceBuffers(srcs, offset, len);
-                if ((capacity < SSLRecordProtocol.MAX_SSL_PACKET_SIZE) &&
-                    (capacity < recordProtocol.getRecordSize(
-                                                 dataStream.available()))) {
+                int record_size = recordProtocol.getRecordSize(
+                        Math.min(dataStream.available(),
+                                SSLRecordProtocol.MAX_DATA_LENGTH));
+                if (capacity < record_size) {
                     if (logger != null) {
                         logger.println("The destination buffer("
                                 +capacity+") can not take the resulting packet("
-                                + recordProtocol.getRecordSize(
-                                    dataStream.available())+")");
+                                + record_size +")");
                     }
                     return new SSLEngineResult(
                             SSLEngineResult.Status.BUFFER_OVERFLOW,
                             handshakeStatus, 0, 0);
                 }
-                if (remaining_wrapped_data == null) {
-                    remaining_wrapped_data =
-                        recordProtocol.wrap(ContentType.APPLICATION_DATA,
-                                dataStream);
-                }
-                if (capacity < remaining_wrapped_data.length) {
-                    // It should newer happen because we checked the destination
-                    // buffer size, but there is a possibility
-                    // (if dest buffer was filled outside)
-                    // so we just remember the data into remaining_wrapped_data
-                    // and will enclose it during the the next call
-                    return new SSLEngineResult(
-                            SSLEngineResult.Status.BUFFER_OVERFLOW,
-                            handshakeStatus, dataStream.consumed(), 0);
-                } else {
-                    dst.put(remaining_wrapped_data);
-                    produced = remaining_wrapped_data.length;
-                    remaining_wrapped_data = null;
-                    return new SSLEngineResult(getEngineStatus(), 
-                            handshakeStatus, dataStream.consumed(), produced);
-                }
+                // the record is built right in the destination buffer
+                produced = recordProtocol.wrap(ContentType.APPLICATION_DATA,
+                        dataStream, dst);
+                return new SSLEngineResult(getEngineStatus(), 
+                        handshakeStatus, dataStream.consumed(), produced);
             } else {
                 if (remaining_hsh_data == null) {
                     remaining_hsh_data = handshakeProtocol.wrap();
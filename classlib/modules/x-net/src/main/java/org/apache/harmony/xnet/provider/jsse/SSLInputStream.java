@@ -114,6 +114,19 @@ public abstract class SSLInputStream extends InputStream {
         return res;
     }
 
+    /**
+     * Reads exactly the specified number of bytes into the provided array.
+     * @param b - the array receiving the data
+     * @param off - the offset in the array
+     * @param len - the number of bytes to be read
+     * @throws IOException if read operation could not be finished.
+     */
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        for (int i=0; i<len; i++) {
+            b[off+i] = (byte) read();
+        }
+    }
+
     /**
      * @see java.io.InputStream#read(byte[],int,int)
      */
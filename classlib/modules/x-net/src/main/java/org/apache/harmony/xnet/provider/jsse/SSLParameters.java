@@ -186,7 +186,8 @@ public class SSLParameters {
     protected static SSLParameters getDefault() throws KeyManagementException {
         if (defaultParameters == null) {
             defaultParameters = new SSLParameters(null, null, null,
-                    new SSLSessionContextImpl(), new SSLSessionContextImpl());
+                    new SSLSessionContextImpl(true),
+                    new SSLSessionContextImpl());
         }
         return (SSLParameters) defaultParameters.clone();
     }
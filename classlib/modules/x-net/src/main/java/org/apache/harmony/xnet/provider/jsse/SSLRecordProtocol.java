@@ -22,6 +22,8 @@ import org.apache.harmony.xnet.provider.jsse.SSLSessionImpl;
 import org.apache.harmony.xnet.provider.jsse.SSLInputStream;
 
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import javax.net.ssl.SSLProtocolException;
 
 /**
@@ -101,6 +103,15 @@ public class SSLRecordProtocol {
     // change cipher spec message content
     private static final byte[] change_cipher_spec_byte = new byte[] {1};
 
+    // the buffer receiving the income records, it is reused for all of the
+    // records, so the received application data should be consumed
+    // by appData before the next record is unwrapped
+    private byte[] readBuffer;
+
+    // the buffer in which the outcome records are built
+    // before they are placed into direct byte buffers
+    private byte[] writeBuffer;
+
     /**
      * Creates an instance of record protocol and tunes
      * up the client protocols to use ut.
@@ -199,23 +210,110 @@ public class SSLRecordProtocol {
      */
     protected byte[] wrap(byte content_type,
                        byte[] fragment, int offset, int len) {
+        checkDataLength(len);
+        byte[] record = new byte[getRecordSize(len)];
+        int length = wrap(content_type, fragment, offset, len, record, 0);
+        if (length != record.length) {
+            byte[] res = new byte[length];
+            System.arraycopy(record, 0, res, 0, length);
+            return res;
+        }
+        return record;
+    }
+
+    /**
+     * Depending on the Connection State (Session) encrypts and compress
+     * the provided data, and places the resulting TLSCiphertext structure
+     * into the destination buffer. The record is built directly in the
+     * backing array of heap buffers, direct buffers receive it
+     * by one bulk put.
+     * @param   content_type: int
+     * @param   fragment: byte[]
+     * @param   dst: the buffer receiving the record, it should have
+     * getRecordSize(len) bytes remaining.
+     * @return  the length of the record
+     */
+    protected int wrap(byte content_type, byte[] fragment, int offset,
+            int len, ByteBuffer dst) {
+        checkDataLength(len);
+        int size = getRecordSize(len);
+        if (dst.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        int length;
+        if (dst.hasArray()) {
+            int position = dst.position();
+            length = wrap(content_type, fragment, offset, len,
+                    dst.array(), dst.arrayOffset() + position);
+            dst.position(position + length);
+        } else {
+            byte[] record = getWriteBuffer(size);
+            length = wrap(content_type, fragment, offset, len, record, 0);
+            dst.put(record, 0, length);
+        }
+        return length;
+    }
+
+    /**
+     * Packs the data contained in the source buffers of the stream
+     * into TLSCiphertext structure placed into the destination buffer.
+     * The data is taken from the stream right into the place
+     * of the record fragment and is encrypted there, so
+     * it is copied only once.
+     * @param   content_type: int
+     * @param   dataStream: the stream with the data to be wrapped,
+     * no more than MAX_DATA_LENGTH bytes are consumed
+     * @param   dst: the buffer receiving the record, it should have
+     * getRecordSize(dataStream.available()) bytes remaining.
+     * @return  the length of the record
+     */
+    protected int wrap(byte content_type, SSLEngineDataStream dataStream,
+            ByteBuffer dst) {
+        int len = dataStream.available();
+        if (len > MAX_DATA_LENGTH) {
+            len = MAX_DATA_LENGTH;
+        }
+        int size = getRecordSize(len);
+        if (dst.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        int length;
+        if (dst.hasArray()) {
+            int position = dst.position();
+            byte[] record = dst.array();
+            int record_offset = dst.arrayOffset() + position;
+            dataStream.getData(record, record_offset + 5, len);
+            length = wrap(content_type, record, record_offset + 5, len,
+                    record, record_offset);
+            dst.position(position + length);
+        } else {
+            byte[] record = getWriteBuffer(size);
+            dataStream.getData(record, 5, len);
+            length = wrap(content_type, record, 5, len, record, 0);
+            dst.put(record, 0, length);
+        }
+        return length;
+    }
+
+    /**
+     * Builds the TLSCiphertext structure at the specified offset
+     * of the record array. The fragment may be placed in the record array
+     * at the position of the record fragment (record_offset + 5),
+     * in which case it is encrypted in place.
+     * @return  the length of the record
+     */
+    private int wrap(byte content_type, byte[] fragment, int offset, int len,
+            byte[] record, int record_offset) {
         if (logger != null) {
             logger.println("SSLRecordProtocol.wrap: TLSPlaintext.fragment["
                     +len+"]:");
             logger.print(fragment, offset, len);
         }
-        if (len > MAX_DATA_LENGTH) {
-            throw new AlertException(
-                AlertProtocol.INTERNAL_ERROR,
-                new SSLProtocolException(
-                    "The provided chunk of data is too big: " + len
-                    + " > MAX_DATA_LENGTH == "+MAX_DATA_LENGTH));
-        }
-        byte[] ciphered_fragment = fragment;
+        int length;
         if (activeWriteState != null) {
-            ciphered_fragment =
-                activeWriteState.encrypt(content_type, fragment, offset, len);
-            if (ciphered_fragment.length > MAX_CIPHERED_DATA_LENGTH) {
+            length = activeWriteState.encrypt(content_type, fragment, offset,
+                    len, record, record_offset + 5);
+            if (length > MAX_CIPHERED_DATA_LENGTH) {
                 throw new AlertException(
                     AlertProtocol.INTERNAL_ERROR,
                     new SSLProtocolException(
@@ -223,27 +321,41 @@ public class SSLRecordProtocol {
             }
             if (logger != null) {
                 logger.println("SSLRecordProtocol.wrap: TLSCiphertext.fragment["
-                        +ciphered_fragment.length+"]:");
-                logger.print(ciphered_fragment);
+                        +length+"]:");
+                logger.print(record, record_offset + 5, length);
             }
+        } else {
+            System.arraycopy(fragment, offset, record, record_offset + 5, len);
+            length = len;
         }
-        return packetize(content_type, version, ciphered_fragment);
-    }
-
-    private byte[] packetize(byte type, byte[] version, byte[] fragment) {
-        byte[] buff = new byte[5+fragment.length];
-        buff[0] = type;
+        record[record_offset] = content_type;
         if (version != null) {
-            buff[1] = version[0];
-            buff[2] = version[1];
+            record[record_offset + 1] = version[0];
+            record[record_offset + 2] = version[1];
         } else {
-            buff[1] = 3;
-            buff[2] = 1;
+            record[record_offset + 1] = 3;
+            record[record_offset + 2] = 1;
         }
-        buff[3] = (byte) ((0x00FF00 & fragment.length) >> 8);
-        buff[4] = (byte) (0x0000FF & fragment.length);
-        System.arraycopy(fragment, 0, buff, 5, fragment.length);
-        return buff;
+        record[record_offset + 3] = (byte) ((0x00FF00 & length) >> 8);
+        record[record_offset + 4] = (byte) (0x0000FF & length);
+        return 5 + length;
+    }
+
+    private void checkDataLength(int len) {
+        if (len > MAX_DATA_LENGTH) {
+            throw new AlertException(
+                AlertProtocol.INTERNAL_ERROR,
+                new SSLProtocolException(
+                    "The provided chunk of data is too big: " + len
+                    + " > MAX_DATA_LENGTH == "+MAX_DATA_LENGTH));
+        }
+    }
+
+    private byte[] getWriteBuffer(int size) {
+        if (writeBuffer == null || writeBuffer.length < size) {
+            writeBuffer = new byte[size];
+        }
+        return writeBuffer;
     }
 
     /**
@@ -287,9 +399,8 @@ public class SSLRecordProtocol {
                 };
         } else {
             change_cipher_spec_message =
-                packetize(ContentType.CHANGE_CIPHER_SPEC, version,
-                        activeWriteState.encrypt(ContentType.CHANGE_CIPHER_SPEC,
-                            change_cipher_spec_byte, 0, 1));
+                wrap(ContentType.CHANGE_CIPHER_SPEC,
+                        change_cipher_spec_byte, 0, 1);
         }
         setSession(session);
         activeWriteState = pendingConnectionState;
@@ -379,18 +490,24 @@ public class SSLRecordProtocol {
                     new SSLProtocolException(
                         "Received message is too big."));
         }
-        byte[] fragment = in.read(length);
+        if (readBuffer == null || readBuffer.length < length) {
+            readBuffer = new byte[length];
+        }
+        byte[] fragment = readBuffer;
+        in.readFully(fragment, 0, length);
         if (logger != null) {
-            logger.print(fragment);
+            logger.print(fragment, 0, length);
         }
         if (activeReadState != null) {
-            fragment = activeReadState.decrypt((byte) type, fragment);
+            // decrypt in place
+            length = activeReadState.decrypt((byte) type, fragment, 0,
+                    length, fragment, 0);
             if (logger != null) {
                 logger.println("TLSPlaintext.fragment:");
-                logger.print(fragment);
+                logger.print(fragment, 0, length);
             }
         }
-        if (fragment.length > MAX_DATA_LENGTH) {
+        if (length > MAX_DATA_LENGTH) {
             throw new AlertException(AlertProtocol.DECOMPRESSION_FAILURE,
                     new SSLProtocolException(
                         "Decompressed plain data is too big."));
@@ -407,18 +524,26 @@ public class SSLRecordProtocol {
                 activeReadState = pendingConnectionState;
                 break;
             case ContentType.ALERT:
+                // level and description
+                if (length != 2) {
+                    throw new AlertException(AlertProtocol.DECODE_ERROR,
+                            new SSLProtocolException(
+                                "Received alert has bad length: " + length));
+                }
                 alert(fragment[0], fragment[1]);
                 break;
             case ContentType.HANDSHAKE:
-                handshakeProtocol.unwrap(fragment);
+                byte[] handshake_fragment = new byte[length];
+                System.arraycopy(fragment, 0, handshake_fragment, 0, length);
+                handshakeProtocol.unwrap(handshake_fragment);
                 break;
             case ContentType.APPLICATION_DATA:
                 if (logger != null) {
                     logger.println(
                             "TLSCiphertext.unwrap: APP DATA["+length+"]:");
-                    logger.println(new String(fragment));
+                    logger.println(new String(fragment, 0, length));
                 }
-                appData.append(fragment);
+                appData.append(fragment, 0, length);
                 break;
             default:
                 throw new AlertException(AlertProtocol.UNEXPECTED_MESSAGE,
@@ -478,5 +603,7 @@ public class SSLRecordProtocol {
             activeWriteState.shutdown();
         }
         activeWriteState = null;
+        readBuffer = null;
+        writeBuffer = null;
     }
 }
@@ -16,9 +16,16 @@
  */
 package org.apache.harmony.xnet.provider.jsse;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSessionContext;
@@ -26,27 +33,81 @@ import javax.net.ssl.SSLSessionContext;
 /**
  * 
  * SSLSessionContext implementation
+ * <p>
+ * The sessions are kept in a number of independently locked stripes, each
+ * of them ordered from the least to the most recently used session, so that
+ * concurrent handshakes rarely contend and the session to be evicted is
+ * found in constant time. When the cache is full, the least recently used
+ * session of the stripe receiving the new session is evicted.
+ * Expired and invalidated sessions are removed when they are looked up,
+ * and the whole cache is swept for them from time to time
+ * as the cache is used.
  * @see javax.net.ssl.SSLSessionContext
  */
 public class SSLSessionContextImpl implements SSLSessionContext {
 
-    private int cacheSize = 0;
+    // number of the stripes, should be a power of two
+    private static final int STRIPES = 16;
 
-    private long timeout = 0;
+    // minimal interval between the sweeps of the cache in ms
+    private static final long SWEEP_INTERVAL = 10000;
 
-    private final Hashtable<IdKey, SSLSessionImpl> sessions = new Hashtable<IdKey, SSLSessionImpl>();
+    private volatile int cacheSize = 0;
+
+    private volatile long timeout = 0;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // the number of cached sessions
+    private final AtomicInteger size = new AtomicInteger();
+
+    // the most recent session for each peer, only maintained by
+    // client side contexts which look up the sessions to resume by peer
+    private final ConcurrentHashMap<String, SSLSessionImpl> sessionsByPeer;
+
+    // the time of the next sweep
+    private volatile long nextSweep;
+
+    // statistics; every lookup counts a hit or a miss, so these two are
+    // striped to keep handshaking threads off a shared cache line
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong expirations = new AtomicLong();
+
+    public SSLSessionContextImpl() {
+        this(false);
+    }
+
+    /**
+     * Creates the session context.
+     * @param clientSide whether the sessions will be looked up by peer
+     * @see #getSession(String, int)
+     */
+    SSLSessionContextImpl(boolean clientSide) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        sessionsByPeer = clientSide
+                ? new ConcurrentHashMap<String, SSLSessionImpl>()
+                : null;
+        nextSweep = System.currentTimeMillis() + SWEEP_INTERVAL;
+    }
 
     @SuppressWarnings("unchecked")
     public Enumeration getIds() {
-        return new Enumeration() {
-            Enumeration<IdKey> keys = sessions.keys();
-            public boolean hasMoreElements() {
-                return keys.hasMoreElements();
-            }
-            public Object nextElement() {
-                return keys.nextElement().id;
+        ArrayList<byte[]> ids = new ArrayList<byte[]>(size.get());
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (IdKey key : stripe.keySet()) {
+                    ids.add(key.id);
+                }
             }
-        };
+        }
+        return Collections.enumeration(ids);
     }
 
     /**
@@ -54,7 +115,64 @@ public class SSLSessionContextImpl implements SSLSessionContext {
      * @see javax.net.ssl.SSLSessionContext.getSession(byte[] sessionId)
      */
     public SSLSession getSession(byte[] sessionId) {      
-        return sessions.get(new IdKey(sessionId));
+        IdKey key = new IdKey(sessionId);
+        Stripe stripe = stripeFor(key);
+        SSLSessionImpl ses;
+        synchronized (stripe) {
+            ses = stripe.get(key);
+        }
+        if (ses != null && !ses.isValid()) {
+            // expired or invalidated
+            if (remove(stripe, key, ses)) {
+                expirations.incrementAndGet();
+            }
+            ses = null;
+        }
+        if (ses == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        sweepIfDue();
+        return ses;
+    }
+
+    /**
+     * Returns the most recent valid session established with the peer,
+     * or null if there is no such session.
+     */
+    SSLSessionImpl getSession(String host, int port) {
+        SSLSessionImpl ses = null;
+        if (sessionsByPeer != null) {
+            ses = sessionsByPeer.get(peerKey(host, port));
+        } else {
+            loop:
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    for (SSLSessionImpl s : stripe.values()) {
+                        if (host.equals(s.getPeerHost())
+                                && port == s.getPeerPort()) {
+                            ses = s;
+                            break loop;
+                        }
+                    }
+                }
+            }
+        }
+        if (ses != null && !ses.isValid()) {
+            IdKey key = new IdKey(ses.getId());
+            if (remove(stripeFor(key), key, ses)) {
+                expirations.incrementAndGet();
+            }
+            ses = null;
+        }
+        if (ses == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        sweepIfDue();
+        return ses;
     }
 
     /**
@@ -79,27 +197,56 @@ public class SSLSessionContextImpl implements SSLSessionContext {
             throw new IllegalArgumentException("size < 0");
         }
         cacheSize = size;
-        if (size > 0 && sessions.size() < size) {
-            // remove size-sessions.size() oldest sessions
-            removeOldest(size - sessions.size());
+        if (size > 0) {
+            // remove the sessions exceeding the new size
+            int failures = 0;
+            for (int i = 0; this.size.get() > size && failures < STRIPES; i++) {
+                if (removeOldest(stripes[i & (STRIPES - 1)], 0)) {
+                    failures = 0;
+                } else {
+                    failures++;
+                }
+            }
         }
-
     }
 
     public void setSessionTimeout(int seconds) throws IllegalArgumentException {
         if (seconds < 0) {
             throw new IllegalArgumentException("seconds < 0");
         }
-        timeout = seconds * 1000;
+        timeout = seconds * 1000L;
 
         // Check timeouts and remove expired sessions
-        for (Enumeration<IdKey> en = sessions.keys(); en.hasMoreElements();) {
-            IdKey key = en.nextElement();
-            SSLSessionImpl ses = (sessions.get(key));
-            if (!ses.isValid()) {
-                sessions.remove(key);
-            }
-        }
+        sweep();
+    }
+
+    /**
+     * Returns the number of successful session lookups.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of session lookups which found no valid session.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of sessions removed to keep the cache size.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the number of expired or invalidated sessions
+     * removed from the cache.
+     */
+    public long getExpiredCount() {
+        return expirations.get();
     }
 
     /**
@@ -107,25 +254,145 @@ public class SSLSessionContextImpl implements SSLSessionContext {
      * @param ses
      */
     void putSession(SSLSessionImpl ses) {
-        if (cacheSize > 0 && sessions.size() == cacheSize) {
-            // remove 1 oldest session
-            removeOldest(1);
-        }
         ses.context = this;
-        sessions.put(new IdKey(ses.getId()), ses);
+        IdKey key = new IdKey(ses.getId());
+        Stripe stripe = stripeFor(key);
+        SSLSessionImpl previous;
+        synchronized (stripe) {
+            previous = stripe.put(key, ses);
+        }
+        if (previous == null) {
+            int max = cacheSize;
+            if (size.incrementAndGet() > max && max > 0) {
+                // remove the least recently used session, preferably
+                // from the same stripe
+                if (!removeOldest(stripe, 1)) {
+                    for (int i = 1; i < STRIPES; i++) {
+                        if (removeOldest(stripes[(key.hash + i)
+                                & (STRIPES - 1)], 0)) {
+                            break;
+                        }
+                    }
+                }
+            }
+        } else if (previous != ses) {
+            unindex(previous);
+        }
+        index(ses);
+        sweepIfDue();
+    }
+
+    // removes the least recently used session of the stripe
+    // if the stripe contains more than keep sessions
+    private boolean removeOldest(Stripe stripe, int keep) {
+        SSLSessionImpl eldest;
+        synchronized (stripe) {
+            if (stripe.size() <= keep) {
+                return false;
+            }
+            Iterator<SSLSessionImpl> it = stripe.values().iterator();
+            eldest = it.next();
+            it.remove();
+        }
+        size.decrementAndGet();
+        evictions.incrementAndGet();
+        unindex(eldest);
+        return true;
+    }
+
+    // removes the session if it is still mapped to the key
+    private boolean remove(Stripe stripe, IdKey key, SSLSessionImpl ses) {
+        synchronized (stripe) {
+            SSLSessionImpl current = stripe.remove(key);
+            if (current != ses) {
+                if (current != null) {
+                    // the session has been replaced, restore the mapping
+                    stripe.put(key, current);
+                }
+                return false;
+            }
+        }
+        size.decrementAndGet();
+        unindex(ses);
+        return true;
+    }
+
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        if (now >= nextSweep) {
+            nextSweep = now + SWEEP_INTERVAL;
+            sweep();
+        }
+    }
+
+    // removes expired and invalidated sessions, one stripe at a time
+    private void sweep() {
+        ArrayList<SSLSessionImpl> removed = new ArrayList<SSLSessionImpl>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Iterator<SSLSessionImpl> it = stripe.values().iterator();
+                        it.hasNext();) {
+                    SSLSessionImpl ses = it.next();
+                    if (!ses.isValid()) {
+                        it.remove();
+                        removed.add(ses);
+                    }
+                }
+            }
+        }
+        size.addAndGet(-removed.size());
+        expirations.addAndGet(removed.size());
+        for (SSLSessionImpl ses : removed) {
+            unindex(ses);
+        }
+    }
+
+    private Stripe stripeFor(IdKey key) {
+        return stripes[key.hash & (STRIPES - 1)];
+    }
+
+    private void index(SSLSessionImpl ses) {
+        if (sessionsByPeer != null && ses.getPeerHost() != null) {
+            sessionsByPeer.put(peerKey(ses.getPeerHost(), ses.getPeerPort()),
+                    ses);
+        }
     }
 
-    // removes invalidated/oldest sessions from the session cache
-    private void removeOldest(int num) {
-        //TODO
-        // ses.context = null;
+    private void unindex(SSLSessionImpl ses) {
+        if (sessionsByPeer != null && ses.getPeerHost() != null) {
+            sessionsByPeer.remove(
+                    peerKey(ses.getPeerHost(), ses.getPeerPort()), ses);
+        }
+    }
+
+    private static String peerKey(String host, int port) {
+        return host + ':' + port;
     }
-    
-    private class IdKey {
-        private byte[] id;
+
+    /*
+     * Sessions of one stripe ordered from the least to the most
+     * recently used one. Guarded by its own monitor.
+     */
+    private static final class Stripe extends
+            LinkedHashMap<IdKey, SSLSessionImpl> {
+
+        private static final long serialVersionUID = 1L;
+
+        Stripe() {
+            super(16, 0.75f, true);
+        }
+    }
+
+    private static final class IdKey {
+        private final byte[] id;
+
+        private final int hash;
         
         private IdKey(byte[] id) {
             this.id = id;
+            int h = Arrays.hashCode(id);
+            // spread the bits used to choose the stripe
+            this.hash = h ^ (h >>> 16) ^ (h >>> 8);
         }
         
         @Override
@@ -138,7 +405,7 @@ public class SSLSessionContextImpl implements SSLSessionContext {
         
         @Override
         public int hashCode() {
-            return Arrays.hashCode(id);
+            return hash;
         }
     }
 
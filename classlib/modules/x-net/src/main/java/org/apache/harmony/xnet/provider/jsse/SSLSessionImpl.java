@@ -309,7 +309,8 @@ public class SSLSessionImpl implements SSLSession, Cloneable  {
 
     public boolean isValid() {
         if (isValid && context != null && context.getSessionTimeout() != 0
-                && lastAccessedTime + context.getSessionTimeout() > System.currentTimeMillis()) {
+                && lastAccessedTime + context.getSessionTimeout() * 1000L
+                        < System.currentTimeMillis()) {
             isValid = false;
         }
         return isValid;
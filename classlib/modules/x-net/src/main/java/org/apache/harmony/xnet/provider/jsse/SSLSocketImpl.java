@@ -29,6 +29,7 @@ import java.net.InetAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import javax.net.ssl.HandshakeCompletedEvent;
 import javax.net.ssl.HandshakeCompletedListener;
@@ -58,6 +59,9 @@ public class SSLSocketImpl extends SSLSocket {
     private SSLSocketInputStream appDataIS;
     // outcoming application data stream
     private SSLSocketOutputStream appDataOS;
+    // the buffer in which the records with outcoming application data
+    // are built, it is reused for all of the records
+    private ByteBuffer appDataRecord;
     // active session object
     private SSLSessionImpl session;
 
@@ -679,23 +683,22 @@ public class SSLSocketImpl extends SSLSocket {
             //logger.println(new String(data, offset, len));
         }
         try {
-            if (len < SSLRecordProtocol.MAX_DATA_LENGTH) {
-                output.write(recordProtocol.wrap(ContentType.APPLICATION_DATA,
-                            data, offset, len));
-            } else {
-                while (len >= SSLRecordProtocol.MAX_DATA_LENGTH) {
-                    output.write(recordProtocol.wrap(
-                                ContentType.APPLICATION_DATA, data, offset,
-                                SSLRecordProtocol.MAX_DATA_LENGTH));
-                    offset += SSLRecordProtocol.MAX_DATA_LENGTH;
-                    len -= SSLRecordProtocol.MAX_DATA_LENGTH;
-                }
-                if (len > 0) {
-                    output.write(
-                        recordProtocol.wrap(ContentType.APPLICATION_DATA,
-                                            data, offset, len));
-                }
+            if (appDataRecord == null) {
+                appDataRecord = ByteBuffer.allocate(
+                        SSLRecordProtocol.MAX_SSL_PACKET_SIZE);
             }
+            do {
+                int chunk = (len < SSLRecordProtocol.MAX_DATA_LENGTH)
+                    ? len
+                    : SSLRecordProtocol.MAX_DATA_LENGTH;
+                appDataRecord.clear();
+                recordProtocol.wrap(ContentType.APPLICATION_DATA,
+                        data, offset, chunk, appDataRecord);
+                output.write(appDataRecord.array(), 0,
+                        appDataRecord.position());
+                offset += chunk;
+                len -= chunk;
+            } while (len > 0);
         } catch (AlertException e) {
             // will throw exception
             reportFatalAlert(e.getDescriptionCode(), e.getReason());
@@ -133,16 +133,23 @@ public final class SSLSocketInputStream
      */
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
-        int read_b;
-        int i = 0;
-        do {
-            if ((read_b = read()) == -1) {
-                return (i == 0) ? -1 : i;
+        if (buffer == null) {
+            throw new IOException("Stream was closed.");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (pos == end) {
+            if (end_reached) {
+                return -1;
             }
-            b[off+i] = (byte) read_b;
-            i++;
-        } while ((available() != 0) && (i<len));
-        return i;
+            owner.needAppData();
+        }
+        // copy the data received in the buffer
+        int length = (end - pos < len) ? end - pos : len;
+        System.arraycopy(buffer, pos, b, off, length);
+        pos += length;
+        return length;
     }
 
     /**
@@ -173,7 +180,10 @@ public final class SSLSocketInputStream
          * itself, but it could be insecure.
          */
         public void append(byte[] src) {
-            int length = src.length;
+            append(src, 0, src.length);
+        }
+
+        public void append(byte[] src, int offset, int length) {
             if (size - (end - pos) < length) {
                 // If the size of the buffer is greater than or equals to
                 // SSLRecordProtocol.MAX_DATA_LENGTH this situation will
@@ -192,7 +202,7 @@ public final class SSLSocketInputStream
                 end -= pos;
                 pos = 0;
             }
-            System.arraycopy(src, 0, buffer, end, length);
+            System.arraycopy(src, offset, buffer, end, length);
             end = end + length;
         }
     }
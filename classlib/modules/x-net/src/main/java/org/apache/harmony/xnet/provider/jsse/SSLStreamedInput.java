@@ -53,5 +53,22 @@ public class SSLStreamedInput extends SSLInputStream {
         }
         return res;
     }
+
+    /**
+     * Reads the specified number of bytes from the underlying stream.
+     * @throws org.apache.harmony.xnet.provider.jsse.EndOfSourceException if
+     * the end of the underlying stream has been reached.
+     */
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int res = in.read(b, off, len);
+            if (res < 0) {
+                throw new EndOfSourceException();
+            }
+            off += res;
+            len -= res;
+        }
+    }
 }
 
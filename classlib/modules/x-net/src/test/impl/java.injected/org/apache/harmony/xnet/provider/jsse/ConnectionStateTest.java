@@ -0,0 +1,202 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.harmony.xnet.provider.jsse;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * ConnectionStateTLS and ConnectionStateSSLv3 test. A client state encrypts
+ * and the server state of the same session decrypts.
+ */
+public class ConnectionStateTest extends TestCase {
+
+    private static final CipherSuite[] SUITES = {
+            CipherSuite.TLS_RSA_WITH_3DES_EDE_CBC_SHA,
+            CipherSuite.TLS_RSA_WITH_RC4_128_MD5 };
+
+    private static final int[] LENGTHS = { 1, 7, 8, 100, 1000 };
+
+    private SSLSessionImpl clientSession;
+
+    private SSLSessionImpl serverSession;
+
+    private void createSessions(CipherSuite suite) {
+        SecureRandom sr = new SecureRandom();
+        serverSession = new SSLSessionImpl(suite, sr);
+        clientSession = new SSLSessionImpl(sr);
+        clientSession.cipherSuite = suite;
+        byte[] master_secret = new byte[48];
+        byte[] clientRandom = new byte[32];
+        byte[] serverRandom = new byte[32];
+        sr.nextBytes(master_secret);
+        sr.nextBytes(clientRandom);
+        sr.nextBytes(serverRandom);
+        serverSession.master_secret = clientSession.master_secret = master_secret;
+        serverSession.clientRandom = clientSession.clientRandom = clientRandom;
+        serverSession.serverRandom = clientSession.serverRandom = serverRandom;
+    }
+
+    private ConnectionState[] createStates(CipherSuite suite, boolean tls) {
+        createSessions(suite);
+        if (tls) {
+            return new ConnectionState[] {
+                    new ConnectionStateTLS(clientSession),
+                    new ConnectionStateTLS(serverSession) };
+        }
+        return new ConnectionState[] {
+                new ConnectionStateSSLv3(clientSession),
+                new ConnectionStateSSLv3(serverSession) };
+    }
+
+    private static byte[] data(int len) {
+        byte[] data = new byte[len];
+        for (int i = 0; i < len; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    /**
+     * encrypt/decrypt(byte, byte[], int, int, byte[], int) method testing:
+     * the record is built at an offset and decrypted in place.
+     */
+    public void testEncryptDecrypt_InPlace() {
+        for (int s = 0; s < SUITES.length; s++) {
+            for (int t = 0; t < 2; t++) {
+                ConnectionState[] states = createStates(SUITES[s], t == 0);
+                for (int i = 0; i < LENGTHS.length; i++) {
+                    int len = LENGTHS[i];
+                    byte[] data = data(len);
+                    byte[] fragment = new byte[len + 3];
+                    System.arraycopy(data, 0, fragment, 3, len);
+                    int size = states[0].getFragmentSize(len);
+                    byte[] record = new byte[size + 5];
+                    assertEquals(size, states[0].encrypt(
+                            ContentType.APPLICATION_DATA, fragment, 3, len,
+                            record, 5));
+                    assertEquals(len, states[1].decrypt(
+                            ContentType.APPLICATION_DATA, record, 5, size,
+                            record, 5));
+                    byte[] content = new byte[len];
+                    System.arraycopy(record, 5, content, 0, len);
+                    assertTrue(SUITES[s].getName() + " " + len, Arrays
+                            .equals(data, content));
+                }
+            }
+        }
+    }
+
+    /**
+     * encrypt(byte, byte[]) and decrypt(byte, byte[]) method testing.
+     */
+    public void testEncryptDecrypt() {
+        for (int s = 0; s < SUITES.length; s++) {
+            for (int t = 0; t < 2; t++) {
+                ConnectionState[] states = createStates(SUITES[s], t == 0);
+                for (int i = 0; i < LENGTHS.length; i++) {
+                    byte[] data = data(LENGTHS[i]);
+                    byte[] record = states[0].encrypt(ContentType.HANDSHAKE,
+                            data);
+                    assertEquals(states[0].getFragmentSize(data.length),
+                            record.length);
+                    assertTrue(Arrays.equals(data, states[1].decrypt(
+                            ContentType.HANDSHAKE, record)));
+                }
+            }
+        }
+    }
+
+    /**
+     * decrypt(byte, byte[], int, int, byte[], int) method testing with an
+     * empty fragment, which holds no MAC.
+     */
+    public void testDecrypt_Empty() {
+        for (int s = 0; s < SUITES.length; s++) {
+            for (int t = 0; t < 2; t++) {
+                ConnectionState[] states = createStates(SUITES[s], t == 0);
+                byte[] out = data(10);
+                try {
+                    states[1].decrypt(ContentType.ALERT, new byte[0], 0, 0,
+                            out, 0);
+                    fail("Expected AlertException was not thrown");
+                } catch (AlertException e) {
+                    assertEquals(AlertProtocol.BAD_RECORD_MAC, e
+                            .getDescriptionCode());
+                }
+                // the output is left alone
+                assertTrue(Arrays.equals(data(10), out));
+            }
+        }
+    }
+
+    /**
+     * decrypt(byte, byte[], int, int, byte[], int) method testing with a
+     * modified record.
+     */
+    public void testDecrypt_BadRecord() {
+        for (int s = 0; s < SUITES.length; s++) {
+            for (int t = 0; t < 2; t++) {
+                ConnectionState[] states = createStates(SUITES[s], t == 0);
+                byte[] record = states[0].encrypt(
+                        ContentType.APPLICATION_DATA, data(20));
+                record[3] ^= 1;
+                try {
+                    states[1].decrypt(ContentType.APPLICATION_DATA, record);
+                    fail("Expected AlertException was not thrown");
+                } catch (AlertException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * decrypt(byte, byte[], int, int, byte[], int) method testing with
+     * fragments too short for the MAC, or not in whole blocks.
+     */
+    public void testDecrypt_Short() {
+        for (int s = 0; s < SUITES.length; s++) {
+            for (int t = 0; t < 2; t++) {
+                ConnectionState[] states = createStates(SUITES[s], t == 0);
+                int[] lengths = { 3, 8, states[1].hash_size - 1 };
+                for (int i = 0; i < lengths.length; i++) {
+                    try {
+                        states[1].decrypt(ContentType.HANDSHAKE,
+                                new byte[lengths[i]]);
+                        fail("Expected AlertException was not thrown");
+                    } catch (AlertException e) {
+                        assertEquals(AlertProtocol.BAD_RECORD_MAC, e
+                                .getDescriptionCode());
+                    }
+                }
+            }
+        }
+    }
+
+    public static Test suite() {
+        return new TestSuite(ConnectionStateTest.class);
+    }
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(suite());
+    }
+}
@@ -84,4 +84,84 @@ public class SSLSessionContextImplTest extends TestCase {
         }
     }
 
+    public void testLeastRecentlyUsedEviction() {
+        SecureRandom sr = new SecureRandom();
+        SSLSessionContextImpl context = new SSLSessionContextImpl();
+        context.setSessionCacheSize(100);
+        SSLSessionImpl first = new SSLSessionImpl(
+                CipherSuite.TLS_RSA_WITH_RC4_128_MD5, sr);
+        context.putSession(first);
+        for (int i = 0; i < 500; i++) {
+            context.putSession(new SSLSessionImpl(
+                    CipherSuite.TLS_RSA_WITH_RC4_128_MD5, sr));
+            // keep the first session recently used
+            assertSame(first, context.getSession(first.getId()));
+        }
+        int count = 0;
+        for (Enumeration en = context.getIds(); en.hasMoreElements();) {
+            en.nextElement();
+            count++;
+        }
+        assertEquals(100, count);
+        assertEquals(401, context.getEvictionCount());
+        assertEquals(500, context.getHitCount());
+
+        context.setSessionCacheSize(10);
+        count = 0;
+        for (Enumeration en = context.getIds(); en.hasMoreElements();) {
+            en.nextElement();
+            count++;
+        }
+        assertEquals(10, count);
+    }
+
+    public void testInvalidatedSessionRemoved() {
+        SecureRandom sr = new SecureRandom();
+        SSLSessionContextImpl context = new SSLSessionContextImpl();
+        SSLSessionImpl ses = new SSLSessionImpl(
+                CipherSuite.TLS_RSA_WITH_RC4_128_MD5, sr);
+        context.putSession(ses);
+        assertSame(ses, context.getSession(ses.getId()));
+        ses.invalidate();
+        assertNull(context.getSession(ses.getId()));
+        assertFalse(context.getIds().hasMoreElements());
+        assertEquals(1, context.getHitCount());
+        assertEquals(1, context.getMissCount());
+        assertEquals(1, context.getExpiredCount());
+    }
+
+    public void testExpiredSessionRemoved() {
+        SecureRandom sr = new SecureRandom();
+        SSLSessionContextImpl context = new SSLSessionContextImpl();
+        context.setSessionTimeout(1);
+        SSLSessionImpl ses = new SSLSessionImpl(
+                CipherSuite.TLS_RSA_WITH_RC4_128_MD5, sr);
+        context.putSession(ses);
+        assertTrue(ses.isValid());
+        assertSame(ses, context.getSession(ses.getId()));
+        ses.lastAccessedTime -= 2000;
+        assertNull(context.getSession(ses.getId()));
+        assertFalse(ses.isValid());
+    }
+
+    public void testGetSessionByPeer() {
+        SecureRandom sr = new SecureRandom();
+        SSLSessionContextImpl context = new SSLSessionContextImpl(true);
+        SSLSessionImpl ses1 = new SSLSessionImpl(
+                CipherSuite.TLS_RSA_WITH_RC4_128_MD5, sr);
+        ses1.setPeer("host", 443);
+        SSLSessionImpl ses2 = new SSLSessionImpl(
+                CipherSuite.TLS_RSA_WITH_RC4_128_MD5, sr);
+        ses2.setPeer("host", 8443);
+        context.putSession(ses1);
+        context.putSession(ses2);
+        assertSame(ses1, context.getSession("host", 443));
+        assertSame(ses2, context.getSession("host", 8443));
+        assertNull(context.getSession("other", 443));
+
+        context.setSessionCacheSize(1);
+        assertNull(context.getSession("host", 443));
+        assertSame(ses2, context.getSession("host", 8443));
+    }
+
 }
\ No newline at end of file
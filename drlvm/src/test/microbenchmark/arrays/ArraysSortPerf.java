@@ -0,0 +1,163 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Times Arrays.sort and Arrays.parallelSort on int, double and Integer
+ * arrays of several sizes and degrees of presortedness: random, already
+ * sorted, reversed, sorted with one element in a hundred out of place,
+ * only a few distinct values, and ascending and descending runs of a
+ * thousand elements. Every result is checked to be sorted. The times are
+ * the total for sorting about ten million elements in each case.
+ * Usage: ArraysSortPerf [sizes...]
+ */
+class ArraysSortPerf {
+
+    static final String[] PATTERNS = { "random", "sorted", "reversed",
+            "nearly sorted", "few unique", "runs" };
+
+    static final int TOTAL = 10000000;
+
+    public static void main(String args[]) {
+        int[] sizes = { 1000, 100000, 1000000 };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int size : sizes) {
+            int rounds = Math.max(1, TOTAL / size);
+            for (int p = 0; p < PATTERNS.length; p++) {
+                int[] data = generate(p, size, new Random(size + p));
+
+                // warm up
+                sortInts(data, rounds / 10 + 1, false);
+                sortInts(data, rounds / 10 + 1, true);
+
+                System.out.println(size + " " + PATTERNS[p]
+                        + " int sort time:" + sortInts(data, rounds, false)
+                        + " parallel:" + sortInts(data, rounds, true)
+                        + " double sort time:"
+                        + sortDoubles(data, rounds, false) + " parallel:"
+                        + sortDoubles(data, rounds, true)
+                        + " Integer sort time:"
+                        + sortIntegers(data, rounds, false) + " parallel:"
+                        + sortIntegers(data, rounds, true));
+            }
+        }
+        System.out.println("PASSED!");
+    }
+
+    static int[] generate(int pattern, int size, Random random) {
+        int[] data = new int[size];
+        for (int i = 0; i < size; i++) {
+            switch (pattern) {
+                case 0:
+                    data[i] = random.nextInt();
+                    break;
+                case 1:
+                    data[i] = i;
+                    break;
+                case 2:
+                    data[i] = size - i;
+                    break;
+                case 3:
+                    data[i] = random.nextInt(100) == 0 ? random.nextInt(size)
+                            : i;
+                    break;
+                case 4:
+                    data[i] = random.nextInt(8);
+                    break;
+                default:
+                    data[i] = (i / 1000) % 2 == 0 ? i : -i;
+            }
+        }
+        return data;
+    }
+
+    static long sortInts(int[] data, int rounds, boolean parallel) {
+        long time = 0;
+        for (int r = 0; r < rounds; r++) {
+            int[] a = data.clone();
+            long t0 = System.currentTimeMillis();
+            if (parallel) {
+                Arrays.parallelSort(a);
+            } else {
+                Arrays.sort(a);
+            }
+            time += System.currentTimeMillis() - t0;
+            for (int i = 1; i < a.length; i++) {
+                if (a[i - 1] > a[i]) {
+                    throw new RuntimeException("FAILED: int[] not sorted");
+                }
+            }
+        }
+        return time;
+    }
+
+    static long sortDoubles(int[] data, int rounds, boolean parallel) {
+        double[] d = new double[data.length];
+        for (int i = 0; i < d.length; i++) {
+            d[i] = data[i] / 3.0;
+        }
+        long time = 0;
+        for (int r = 0; r < rounds; r++) {
+            double[] a = d.clone();
+            long t0 = System.currentTimeMillis();
+            if (parallel) {
+                Arrays.parallelSort(a);
+            } else {
+                Arrays.sort(a);
+            }
+            time += System.currentTimeMillis() - t0;
+            for (int i = 1; i < a.length; i++) {
+                if (a[i - 1] > a[i]) {
+                    throw new RuntimeException("FAILED: double[] not sorted");
+                }
+            }
+        }
+        return time;
+    }
+
+    static long sortIntegers(int[] data, int rounds, boolean parallel) {
+        Integer[] boxed = new Integer[data.length];
+        for (int i = 0; i < boxed.length; i++) {
+            boxed[i] = Integer.valueOf(data[i]);
+        }
+        long time = 0;
+        for (int r = 0; r < rounds; r++) {
+            Integer[] a = boxed.clone();
+            long t0 = System.currentTimeMillis();
+            if (parallel) {
+                Arrays.parallelSort(a);
+            } else {
+                Arrays.sort(a);
+            }
+            time += System.currentTimeMillis() - t0;
+            for (int i = 1; i < a.length; i++) {
+                if (a[i - 1].compareTo(a[i]) > 0) {
+                    throw new RuntimeException("FAILED: Integer[] not sorted");
+                }
+            }
+        }
+        return time;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.beans.BeanInfo;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.beans.XMLDecoder;
+import java.beans.XMLEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+
+import org.apache.harmony.beans.BeanAccessor;
+
+/**
+ * Round-trips a list of order beans through XMLEncoder and XMLDecoder from
+ * several threads at once, then times reading every property of a bean
+ * three ways: looking the read method up through the BeanInfo on each
+ * access as a data binding layer would, invoking a read method looked up
+ * once, and going through a BeanAccessor.
+ * Usage: XMLBeansPerf [threads] [iterations]
+ */
+public class XMLBeansPerf {
+
+    // Public, as the encoder only deals with accessible classes
+    public static class Customer {
+        private String name;
+        private String city;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getCity() { return city; }
+        public void setCity(String city) { this.city = city; }
+    }
+
+    public static class Order {
+        private int id;
+        private String symbol;
+        private double price;
+        private int quantity;
+        private boolean filled;
+        private Customer customer;
+
+        public int getId() { return id; }
+        public void setId(int id) { this.id = id; }
+        public String getSymbol() { return symbol; }
+        public void setSymbol(String symbol) { this.symbol = symbol; }
+        public double getPrice() { return price; }
+        public void setPrice(double price) { this.price = price; }
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+        public boolean isFilled() { return filled; }
+        public void setFilled(boolean filled) { this.filled = filled; }
+        public Customer getCustomer() { return customer; }
+        public void setCustomer(Customer customer) { this.customer = customer; }
+    }
+
+    static final int ORDERS = 50;
+
+    static ArrayList<Order> orders() {
+        ArrayList<Order> orders = new ArrayList<Order>();
+        for (int i = 0; i < ORDERS; i++) {
+            Customer customer = new Customer();
+            customer.setName("customer" + i % 7);
+            customer.setCity(i % 2 == 0 ? "Berlin" : "Paris");
+            Order order = new Order();
+            order.setId(i);
+            order.setSymbol("SYM" + i % 13);
+            order.setPrice(100 + i * 0.25);
+            order.setQuantity(i * 10);
+            order.setFilled(i % 3 == 0);
+            order.setCustomer(customer);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    static Object roundTrip(Object graph) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        XMLEncoder encoder = new XMLEncoder(bytes);
+        encoder.writeObject(graph);
+        encoder.close();
+        XMLDecoder decoder = new XMLDecoder(new ByteArrayInputStream(bytes
+                .toByteArray()));
+        Object result = decoder.readObject();
+        decoder.close();
+        return result;
+    }
+
+    static void check(ArrayList<?> result) {
+        if (result.size() != ORDERS) {
+            throw new RuntimeException("FAILED: " + result.size() + " orders");
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = (Order) result.get(i);
+            if (order.getId() != i || order.getQuantity() != i * 10
+                    || order.getPrice() != 100 + i * 0.25
+                    || order.isFilled() != (i % 3 == 0)
+                    || !order.getSymbol().equals("SYM" + i % 13)
+                    || !order.getCustomer().getName().equals("customer" + i % 7)) {
+                throw new RuntimeException("FAILED: order " + i + " differs");
+            }
+        }
+    }
+
+    static long roundTrips(int threads, final int iterations) throws Exception {
+        final ArrayList<Order> orders = orders();
+        final Throwable[] failure = new Throwable[1];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < iterations; j++) {
+                            check((ArrayList<?>) roundTrip(orders));
+                        }
+                    } catch (Throwable e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+        }
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < threads; i++) {
+            workers[i].start();
+        }
+        for (int i = 0; i < threads; i++) {
+            workers[i].join();
+        }
+        long time = System.currentTimeMillis() - t0;
+        if (failure[0] != null) {
+            throw new RuntimeException("FAILED: " + failure[0]);
+        }
+        return time;
+    }
+
+    static long readProperties(int mode, Order order, String[] names,
+            int times) throws Exception {
+        Method[] readers = new Method[names.length];
+        int[] indexes = new int[names.length];
+        BeanAccessor accessor = BeanAccessor.getAccessor(Order.class);
+        for (int i = 0; i < names.length; i++) {
+            readers[i] = new PropertyDescriptor(names[i], Order.class)
+                    .getReadMethod();
+            indexes[i] = accessor.indexOf(names[i]);
+        }
+        int hash = 0;
+        long t0 = System.currentTimeMillis();
+        for (int n = 0; n < times; n++) {
+            for (int i = 0; i < names.length; i++) {
+                Object value;
+                if (mode == 0) {
+                    value = null;
+                    BeanInfo info = Introspector.getBeanInfo(Order.class);
+                    PropertyDescriptor[] pds = info.getPropertyDescriptors();
+                    for (int j = 0; j < pds.length; j++) {
+                        if (pds[j].getName().equals(names[i])) {
+                            value = pds[j].getReadMethod().invoke(order,
+                                    (Object[]) null);
+                            break;
+                        }
+                    }
+                } else if (mode == 1) {
+                    value = readers[i].invoke(order, (Object[]) null);
+                } else {
+                    value = accessor.get(order, indexes[i]);
+                }
+                hash += value.hashCode();
+            }
+        }
+        long time = System.currentTimeMillis() - t0;
+        if (hash == 42) {
+            System.out.println(hash);
+        }
+        return time;
+    }
+
+    public static void main(String args[]) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        roundTrips(threads, iterations / 10 + 1); // warm up
+        for (int t = 1; t <= threads; t *= 2) {
+            long time = roundTrips(t, iterations);
+            System.out.println("XMLEncoder/XMLDecoder round trips threads: "
+                    + t + " time:" + time);
+        }
+
+        String[] names = { "id", "symbol", "price", "quantity", "filled",
+                "customer" };
+        String[] modes = { "BeanInfo lookup", "read method", "BeanAccessor" };
+        Order order = orders().get(1);
+        int times = iterations * 1000;
+        for (int mode = 0; mode < modes.length; mode++) {
+            readProperties(mode, order, names, times / 10); // warm up
+            long time = readProperties(mode, order, names, times);
+            System.out.println("property reads " + modes[mode] + " time:"
+                    + time);
+        }
+        System.out.println("PASSED!");
+    }
+}
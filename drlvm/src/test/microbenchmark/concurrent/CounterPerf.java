@@ -0,0 +1,141 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Increments one shared counter from 1, 2, 4, ... up to 32 threads, using
+ * an AtomicLong, a LongAdder and a maximum-keeping LongAccumulator, and
+ * prints the time and throughput of each.
+ * Usage: CounterPerf [increments per thread] [max threads]
+ */
+class CounterPerf {
+
+    interface Counter {
+        void add(long x);
+
+        long get();
+    }
+
+    static class AtomicCounter implements Counter {
+        final AtomicLong value = new AtomicLong();
+
+        public void add(long x) {
+            value.addAndGet(x);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    static class AdderCounter implements Counter {
+        final LongAdder value = new LongAdder();
+
+        public void add(long x) {
+            value.add(x);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+
+    static class MaxCounter implements Counter {
+        final LongAccumulator value = new LongAccumulator(
+                new LongBinaryOperator() {
+                    public long applyAsLong(long left, long right) {
+                        return Math.max(left, right);
+                    }
+                }, Long.MIN_VALUE);
+
+        public void add(long x) {
+            value.accumulate(x);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    static long run(final Counter counter, int threads, final int increments)
+            throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 1; i <= increments; i++) {
+                            counter.add(i);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        long t0 = System.currentTimeMillis();
+        start.countDown();
+        done.await();
+        return System.currentTimeMillis() - t0;
+    }
+
+    public static void main(String args[]) throws Exception {
+        int increments = args.length > 0 ? Integer.parseInt(args[0])
+                : 5000000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            // warm up
+            run(new AtomicCounter(), threads, increments / 10);
+            run(new AdderCounter(), threads, increments / 10);
+            run(new MaxCounter(), threads, increments / 10);
+
+            long sum = (long) increments * (increments + 1) / 2 * threads;
+            Counter atomic = new AtomicCounter();
+            long atomicTime = run(atomic, threads, increments);
+            Counter adder = new AdderCounter();
+            long adderTime = run(adder, threads, increments);
+            Counter max = new MaxCounter();
+            long maxTime = run(max, threads, increments);
+            if (atomic.get() != sum || adder.get() != sum
+                    || max.get() != increments) {
+                throw new RuntimeException("FAILED: wrong count");
+            }
+            long total = (long) threads * increments;
+            System.out.println("threads: " + threads + " AtomicLong time:"
+                    + atomicTime + " ops/ms: " + throughput(total, atomicTime)
+                    + " LongAdder time:" + adderTime + " ops/ms: "
+                    + throughput(total, adderTime)
+                    + " LongAccumulator time:" + maxTime + " ops/ms: "
+                    + throughput(total, maxTime));
+        }
+        System.out.println("PASSED!");
+    }
+
+    static long throughput(long operations, long time) {
+        return time == 0 ? operations : operations / time;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compares a ConcurrentSkipListMap with a synchronized TreeMap under a mix
+ * of lookups, updates and short range scans, running 1, 2, 4, ... up to 32
+ * threads against each map, and prints the throughput of both.
+ * Usage: SkipListMapPerf [keys] [operations per thread] [max threads]
+ */
+class SkipListMapPerf {
+
+    /*
+     * Out of 100 operations: 80 gets, 10 puts, 5 removes and 5 scans over
+     * the next 16 keys.
+     */
+    static final int PUT_PERCENT = 10;
+
+    static final int REMOVE_PERCENT = 5;
+
+    static final int SCAN_PERCENT = 5;
+
+    static final int SCAN_LENGTH = 16;
+
+    static class Worker extends Thread {
+        final SortedMap<Integer, Integer> map;
+        final boolean synchronizedScan;
+        final int keys, operations;
+        final CountDownLatch start, done;
+        int seed;
+        long checksum;
+
+        Worker(SortedMap<Integer, Integer> map, boolean synchronizedScan,
+                int keys, int operations, int seed, CountDownLatch start,
+                CountDownLatch done) {
+            this.map = map;
+            this.synchronizedScan = synchronizedScan;
+            this.keys = keys;
+            this.operations = operations;
+            this.seed = seed | 1;
+            this.start = start;
+            this.done = done;
+        }
+
+        int nextRandom() {
+            int r = seed;
+            r ^= r << 13;
+            r ^= r >>> 17;
+            r ^= r << 5;
+            seed = r;
+            return r & 0x7fffffff;
+        }
+
+        public void run() {
+            try {
+                start.await();
+                for (int i = 0; i < operations; i++) {
+                    int r = nextRandom();
+                    Integer key = Integer.valueOf(r % keys);
+                    int op = (r >>> 16) % 100;
+                    if (op < PUT_PERCENT) {
+                        map.put(key, key);
+                    } else if (op < PUT_PERCENT + REMOVE_PERCENT) {
+                        map.remove(key);
+                    } else if (op < PUT_PERCENT + REMOVE_PERCENT
+                            + SCAN_PERCENT) {
+                        checksum += scan(key);
+                    } else {
+                        Integer value = map.get(key);
+                        if (value != null) {
+                            checksum += value.intValue();
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        long scan(Integer from) {
+            SortedMap<Integer, Integer> tail = map.tailMap(from);
+            if (synchronizedScan) {
+                // iterating a synchronized map requires holding its lock
+                synchronized (map) {
+                    return sum(tail);
+                }
+            }
+            return sum(tail);
+        }
+
+        static long sum(SortedMap<Integer, Integer> tail) {
+            long sum = 0;
+            Iterator<Map.Entry<Integer, Integer>> it = tail.entrySet()
+                    .iterator();
+            for (int n = 0; n < SCAN_LENGTH && it.hasNext(); n++) {
+                sum += it.next().getValue().intValue();
+            }
+            return sum;
+        }
+    }
+
+    static long run(SortedMap<Integer, Integer> map, boolean synchronizedScan,
+            int keys, int threads, int operations) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Worker(map, synchronizedScan, keys, operations, 31 * t + 17,
+                    start, done).start();
+        }
+        long t0 = System.currentTimeMillis();
+        start.countDown();
+        done.await();
+        return System.currentTimeMillis() - t0;
+    }
+
+    static void fill(SortedMap<Integer, Integer> map, int keys) {
+        for (int i = 0; i < keys; i += 2) {
+            map.put(Integer.valueOf(i), Integer.valueOf(i));
+        }
+    }
+
+    static void check(SortedMap<Integer, Integer> map) {
+        Integer last = null;
+        for (Map.Entry<Integer, Integer> e : map.entrySet()) {
+            if (!e.getKey().equals(e.getValue())
+                    || (last != null && last.compareTo(e.getKey()) >= 0)) {
+                throw new RuntimeException("FAILED: map is corrupted");
+            }
+            last = e.getKey();
+        }
+    }
+
+    public static void main(String args[]) throws Exception {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1])
+                : 200000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            SortedMap<Integer, Integer> skipList = new ConcurrentSkipListMap<Integer, Integer>();
+            SortedMap<Integer, Integer> treeMap = Collections
+                    .synchronizedSortedMap(new TreeMap<Integer, Integer>());
+            fill(skipList, keys);
+            fill(treeMap, keys);
+            // warm up
+            run(skipList, false, keys, threads, operations / 10);
+            run(treeMap, true, keys, threads, operations / 10);
+
+            long skipListTime = run(skipList, false, keys, threads,
+                    operations);
+            long treeMapTime = run(treeMap, true, keys, threads, operations);
+            check(skipList);
+            check(treeMap);
+            long total = (long) threads * operations;
+            System.out.println("threads: " + threads + " skip list time:"
+                    + skipListTime + " ops/ms: "
+                    + throughput(total, skipListTime)
+                    + " synchronized tree map time:" + treeMapTime
+                    + " ops/ms: " + throughput(total, treeMapTime));
+        }
+        System.out.println("PASSED!");
+    }
+
+    static long throughput(long operations, long time) {
+        return time == 0 ? operations : operations / time;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs two divide-and-conquer jobs, a merge sort and a tree aggregation,
+ * on fork/join pools with parallelism from 1 to the number of processors
+ * and prints the time and the speedup over one worker for each.
+ * Usage: ForkJoinScalingPerf [size] [rounds] [max parallelism]
+ */
+class ForkJoinScalingPerf {
+
+    static final int THRESHOLD = 8192;
+
+    static class SortTask extends RecursiveAction {
+        final int[] a, tmp;
+        final int lo, hi;
+
+        SortTask(int[] a, int[] tmp, int lo, int hi) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo <= THRESHOLD) {
+                java.util.Arrays.sort(a, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(a, tmp, lo, mid),
+                    new SortTask(a, tmp, mid, hi));
+            System.arraycopy(a, lo, tmp, lo, hi - lo);
+            int i = lo, j = mid, k = lo;
+            while (i < mid && j < hi) {
+                a[k++] = tmp[i] <= tmp[j] ? tmp[i++] : tmp[j++];
+            }
+            while (i < mid) {
+                a[k++] = tmp[i++];
+            }
+            while (j < hi) {
+                a[k++] = tmp[j++];
+            }
+        }
+    }
+
+    static class Node {
+        final Node left, right;
+        final long value;
+
+        Node(Node left, Node right, long value) {
+            this.left = left;
+            this.right = right;
+            this.value = value;
+        }
+    }
+
+    static Node buildTree(int depth, long value) {
+        if (depth == 0) {
+            return new Node(null, null, value);
+        }
+        return new Node(buildTree(depth - 1, value * 2),
+                buildTree(depth - 1, value * 2 + 1), value);
+    }
+
+    static class AggregateTask extends RecursiveTask<Long> {
+        final Node node;
+        final int depth;
+
+        AggregateTask(Node node, int depth) {
+            this.node = node;
+            this.depth = depth;
+        }
+
+        static long sequential(Node node) {
+            if (node == null) {
+                return 0;
+            }
+            long v = node.value;
+            // some work per node, so that the job is not bound by memory
+            for (int i = 0; i < 32; i++) {
+                v = v * 6364136223846793005L + 1442695040888963407L;
+            }
+            return (v >>> 60) + sequential(node.left) + sequential(node.right);
+        }
+
+        protected Long compute() {
+            if (depth <= 10) {
+                return sequential(node);
+            }
+            AggregateTask left = new AggregateTask(node.left, depth - 1);
+            left.fork();
+            long right = new AggregateTask(node.right, depth - 1).compute();
+            return right + left.join() + sequential(new Node(null, null,
+                    node.value));
+        }
+    }
+
+    static long sort(ForkJoinPool pool, int[] source, int rounds) {
+        int[] a = new int[source.length];
+        int[] tmp = new int[source.length];
+        long t0 = System.currentTimeMillis();
+        for (int r = 0; r < rounds; r++) {
+            System.arraycopy(source, 0, a, 0, a.length);
+            pool.invoke(new SortTask(a, tmp, 0, a.length));
+        }
+        long time = System.currentTimeMillis() - t0;
+        for (int i = 1; i < a.length; i++) {
+            if (a[i - 1] > a[i]) {
+                throw new RuntimeException("FAILED: not sorted");
+            }
+        }
+        return time;
+    }
+
+    static long aggregate(ForkJoinPool pool, Node root, int depth,
+            int rounds, long expected) {
+        long t0 = System.currentTimeMillis();
+        for (int r = 0; r < rounds; r++) {
+            if (pool.invoke(new AggregateTask(root, depth)) != expected) {
+                throw new RuntimeException("FAILED: wrong aggregate");
+            }
+        }
+        return System.currentTimeMillis() - t0;
+    }
+
+    public static void main(String args[]) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 4000000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int maxParallelism = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        int[] source = new int[size];
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            source[i] = random.nextInt();
+        }
+        int depth = 31 - Integer.numberOfLeadingZeros(size / 4);
+        Node root = buildTree(depth, 1);
+        long expected = AggregateTask.sequential(root);
+
+        long sortBase = 0;
+        long aggregateBase = 0;
+        for (int p = 1; p <= maxParallelism; p++) {
+            ForkJoinPool pool = new ForkJoinPool(p);
+            // warm up
+            sort(pool, source, 1);
+            aggregate(pool, root, depth, 1, expected);
+
+            long sortTime = sort(pool, source, rounds);
+            long aggregateTime = aggregate(pool, root, depth, rounds,
+                    expected);
+            pool.shutdown();
+            if (p == 1) {
+                sortBase = sortTime;
+                aggregateBase = aggregateTime;
+            }
+            System.out.println("parallelism: " + p + " sort time:" + sortTime
+                    + " speedup: " + speedup(sortBase, sortTime)
+                    + " aggregate time:" + aggregateTime + " speedup: "
+                    + speedup(aggregateBase, aggregateTime) + " steals: "
+                    + pool.getStealCount());
+        }
+        System.out.println("PASSED!");
+    }
+
+    static String speedup(long base, long time) {
+        return time == 0 ? "-" : String.valueOf(Math.round(base * 100.0
+                / time) / 100.0);
+    }
+}
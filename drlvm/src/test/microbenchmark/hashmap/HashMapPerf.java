@@ -0,0 +1,184 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Times filling, searching and emptying a HashMap, a LinkedHashMap and a
+ * HashSet with keys of several distributions: distinct integers, integers
+ * differing only in their high bits, strings which all have the same hash
+ * code, as request parameters chosen by an attacker would, and comparable
+ * and non comparable keys of a single hash code.
+ * Usage: HashMapPerf [keys] [rounds]
+ */
+class HashMapPerf {
+
+    static class SameHashKey {
+        final int id;
+
+        SameHashKey(int id) {
+            this.id = id;
+        }
+
+        public int hashCode() {
+            return 42;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof SameHashKey && ((SameHashKey) o).id == id;
+        }
+    }
+
+    static class ComparableSameHashKey extends SameHashKey implements
+            Comparable<ComparableSameHashKey> {
+        ComparableSameHashKey(int id) {
+            super(id);
+        }
+
+        public int compareTo(ComparableSameHashKey o) {
+            return id < o.id ? -1 : (id == o.id ? 0 : 1);
+        }
+    }
+
+    static final String[] DISTRIBUTIONS = { "distinct integers",
+            "high bit integers", "same hash strings",
+            "same hash comparable", "same hash" };
+
+    static Object[] keys(int distribution, int count) {
+        Object[] keys = new Object[count];
+        for (int i = 0; i < count; i++) {
+            switch (distribution) {
+            case 0:
+                keys[i] = Integer.valueOf(i);
+                break;
+            case 1:
+                keys[i] = Integer.valueOf(i << 16);
+                break;
+            case 2:
+                keys[i] = sameHashString(i);
+                break;
+            case 3:
+                keys[i] = new ComparableSameHashKey(i);
+                break;
+            default:
+                keys[i] = new SameHashKey(i);
+            }
+        }
+        return keys;
+    }
+
+    /*
+     * "Aa" and "BB" have the same hash code, and so do all the strings made
+     * of as many of them.
+     */
+    static String sameHashString(int i) {
+        StringBuilder sb = new StringBuilder();
+        for (int bit = 0; bit < 20; bit++) {
+            sb.append((i & (1 << bit)) == 0 ? "Aa" : "BB");
+        }
+        return sb.toString();
+    }
+
+    public static void main(String args[]) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        for (int d = 0; d < DISTRIBUTIONS.length; d++) {
+            Object[] keys = keys(d, count);
+            // warm up
+            time(new HashMap<Object, Object>(), keys, 1);
+            time(new LinkedHashMap<Object, Object>(), keys, 1);
+            time(new HashSet<Object>(), keys, 1);
+
+            System.out.println(DISTRIBUTIONS[d] + " HashMap time:"
+                    + time(new HashMap<Object, Object>(), keys, rounds)
+                    + " LinkedHashMap time:"
+                    + time(new LinkedHashMap<Object, Object>(), keys, rounds)
+                    + " HashSet time:"
+                    + time(new HashSet<Object>(), keys, rounds));
+        }
+        System.out.println("PASSED!");
+    }
+
+    /*
+     * Puts all the keys, looks each up twice and removes them all, answering
+     * the time taken.
+     */
+    static long time(Object container, Object[] keys, int rounds) {
+        long t0 = System.currentTimeMillis();
+        for (int r = 0; r < rounds; r++) {
+            if (container instanceof Map) {
+                run((Map<Object, Object>) container, keys);
+            } else {
+                run((Set<Object>) container, keys);
+            }
+        }
+        return System.currentTimeMillis() - t0;
+    }
+
+    static void run(Map<Object, Object> map, Object[] keys) {
+        for (Object key : keys) {
+            map.put(key, key);
+        }
+        check(map.size() == keys.length);
+        for (int i = 0; i < 2; i++) {
+            for (Object key : keys) {
+                check(map.get(key) == key);
+            }
+        }
+        if (map instanceof LinkedHashMap) {
+            checkOrder(map.keySet(), keys);
+        }
+        for (Object key : keys) {
+            check(map.remove(key) == key);
+        }
+        check(map.isEmpty());
+    }
+
+    static void run(Set<Object> set, Object[] keys) {
+        for (Object key : keys) {
+            check(set.add(key));
+        }
+        for (int i = 0; i < 2; i++) {
+            for (Object key : keys) {
+                check(set.contains(key));
+            }
+        }
+        for (Object key : keys) {
+            check(set.remove(key));
+        }
+        check(set.isEmpty());
+    }
+
+    static void checkOrder(Collection<Object> ordered, Object[] keys) {
+        int i = 0;
+        for (Object key : ordered) {
+            check(key == keys[i++]);
+        }
+    }
+
+    static void check(boolean condition) {
+        if (!condition) {
+            throw new RuntimeException("FAILED");
+        }
+    }
+}
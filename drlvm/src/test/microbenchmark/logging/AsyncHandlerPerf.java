@@ -0,0 +1,112 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.io.OutputStream;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+import org.apache.harmony.logging.AsyncHandler;
+
+/**
+ * Logs from several threads at once through a StreamHandler and through an
+ * AsyncHandler, both formatting with SimpleFormatter, which asks every
+ * record for its source. Prints the time the logging threads spend in their
+ * logging calls, and the time until all records are written.
+ * Usage: AsyncHandlerPerf [threads] [records per thread]
+ */
+class AsyncHandlerPerf {
+
+    // Counts the lines written, and throws the bytes away
+    static class CountingOutputStream extends OutputStream {
+        int lines;
+
+        public synchronized void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        public synchronized void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+
+    static void serve(Logger logger, int request) {
+        logger.info("served request " + request);
+    }
+
+    static void run(String name, final Logger logger, Handler handler,
+            CountingOutputStream out, int threads, final int records)
+            throws Exception {
+        logger.addHandler(handler);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < records; j++) {
+                        serve(logger, j);
+                    }
+                }
+            };
+        }
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < threads; i++) {
+            workers[i].start();
+        }
+        for (int i = 0; i < threads; i++) {
+            workers[i].join();
+        }
+        long logged = System.currentTimeMillis() - t0;
+        handler.flush();
+        long written = System.currentTimeMillis() - t0;
+        logger.removeHandler(handler);
+        handler.close();
+
+        // SimpleFormatter writes two lines per record
+        if (out.lines != 2 * threads * records) {
+            throw new RuntimeException("FAILED: " + name + " wrote "
+                    + out.lines / 2 + " of " + threads * records + " records");
+        }
+        System.out.println(name + " threads: " + threads + " logging time:"
+                + logged + " written time:" + written);
+    }
+
+    public static void main(String args[]) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int records = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        Logger logger = Logger.getLogger("AsyncHandlerPerf");
+        logger.setUseParentHandlers(false);
+
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up
+            int n = round == 0 ? records / 10 + 1 : records;
+            CountingOutputStream out = new CountingOutputStream();
+            run("StreamHandler", logger, new StreamHandler(out,
+                    new SimpleFormatter()), out, threads, n);
+            out = new CountingOutputStream();
+            run("AsyncHandler", logger, new AsyncHandler(out,
+                    new SimpleFormatter()), out, threads, n);
+        }
+        System.out.println("PASSED!");
+    }
+}
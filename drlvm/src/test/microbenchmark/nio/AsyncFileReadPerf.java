@@ -0,0 +1,214 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.harmony.nio.internal.AsynchronousChannelGroupImpl;
+import org.apache.harmony.nio.internal.AsynchronousFileChannelImpl;
+import org.apache.harmony.nio.internal.CompletionHandler;
+
+/**
+ * Times random 4K reads from a file, as a database or key-value store does:
+ * from one thread through FileChannel, from several threads sharing a
+ * FileChannel, and through an asynchronous file channel that keeps many
+ * reads outstanding. Make the file larger than memory, or drop the page
+ * cache first, to time the disk rather than the cache.
+ * Usage: AsyncFileReadPerf [file megabytes] [reads] [queue depth] [threads]
+ */
+class AsyncFileReadPerf {
+
+    static final int BLOCK = 4096;
+
+    static final String[] OPERATIONS = { "FileChannel read",
+            "FileChannel read, threads", "asynchronous read, queue depth" };
+
+    public static void main(String args[]) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        int reads = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+        int blocks = megabytes * (1024 * 1024 / BLOCK);
+
+        File file = File.createTempFile("AsyncFileReadPerf", ".dat");
+        file.deleteOnExit();
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        FileChannel channel = randomAccessFile.getChannel();
+        ByteBuffer block = ByteBuffer.allocateDirect(BLOCK);
+        for (int n = 0; n < blocks; n++) {
+            // each block starts with its number so that reads can be checked
+            block.clear();
+            block.putInt(0, n);
+            channel.write(block);
+        }
+
+        AsynchronousChannelGroupImpl group = AsynchronousChannelGroupImpl
+                .withFixedThreadPool(threads);
+        AsynchronousFileChannelImpl asynchronous = AsynchronousFileChannelImpl
+                .open(file, "r", group);
+
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            // warm up
+            read(op, channel, asynchronous, blocks, reads / 10, depth, threads);
+            long t0 = System.currentTimeMillis();
+            read(op, channel, asynchronous, blocks, reads, depth, threads);
+            long time = Math.max(1, System.currentTimeMillis() - t0);
+            String name = OPERATIONS[op]
+                    + (op == 1 ? " " + threads : op == 2 ? " " + depth : "");
+            System.out.println(name + " time:" + time + " reads/s:"
+                    + (reads * 1000L / time));
+        }
+
+        asynchronous.close();
+        group.shutdown();
+        channel.close();
+        System.out.println("PASSED!");
+    }
+
+    static void read(int op, final FileChannel channel,
+            final AsynchronousFileChannelImpl asynchronous, final int blocks,
+            final int reads, int depth, int threads) throws Exception {
+        switch (op) {
+        case 0:
+            readBlocks(channel, blocks, reads, new Random(0));
+            break;
+        case 1:
+            final Throwable[] failure = new Throwable[1];
+            Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                final int seed = i;
+                final int count = reads / threads
+                        + (i < reads % threads ? 1 : 0);
+                workers[i] = new Thread() {
+                    public void run() {
+                        try {
+                            readBlocks(channel, blocks, count, new Random(seed));
+                        } catch (Throwable t) {
+                            failure[0] = t;
+                        }
+                    }
+                };
+            }
+            for (Thread worker : workers) {
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            if (failure[0] != null) {
+                throw new RuntimeException("FAILED", failure[0]);
+            }
+            break;
+        default:
+            readAsynchronously(asynchronous, blocks, reads, depth);
+        }
+    }
+
+    static void readBlocks(FileChannel channel, int blocks, int reads,
+            Random random) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK);
+        for (int n = 0; n < reads; n++) {
+            int number = random.nextInt(blocks);
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                channel.read(buffer, (long) number * BLOCK + buffer.position());
+            }
+            check(buffer.getInt(0) == number);
+        }
+    }
+
+    /*
+     * Keeps depth reads outstanding, each completion issuing the next read
+     * until all have been issued.
+     */
+    static void readAsynchronously(AsynchronousFileChannelImpl channel,
+            int blocks, int reads, int depth) throws Exception {
+        Reader reader = new Reader(channel, blocks, reads);
+        for (int i = 0; i < depth; i++) {
+            // the number of the block read rides after the block itself
+            reader.issue(ByteBuffer.allocateDirect(BLOCK + 4));
+        }
+        reader.done.await();
+        if (reader.failure != null) {
+            throw new RuntimeException("FAILED", reader.failure);
+        }
+    }
+
+    static class Reader implements CompletionHandler<Integer, ByteBuffer> {
+
+        final AsynchronousFileChannelImpl channel;
+
+        final int blocks;
+
+        final int reads;
+
+        final AtomicInteger issued = new AtomicInteger();
+
+        final CountDownLatch done;
+
+        final Random random = new Random(0);
+
+        volatile Throwable failure;
+
+        Reader(AsynchronousFileChannelImpl channel, int blocks, int reads) {
+            this.channel = channel;
+            this.blocks = blocks;
+            this.reads = reads;
+            done = new CountDownLatch(reads);
+        }
+
+        void issue(ByteBuffer buffer) {
+            if (issued.getAndIncrement() < reads) {
+                int number;
+                synchronized (random) {
+                    number = random.nextInt(blocks);
+                }
+                buffer.clear();
+                buffer.putInt(BLOCK, number);
+                buffer.limit(BLOCK);
+                channel.read(buffer, (long) number * BLOCK, buffer, this);
+            }
+        }
+
+        public void completed(Integer result, ByteBuffer buffer) {
+            buffer.limit(BLOCK + 4);
+            if (result.intValue() != BLOCK
+                    || buffer.getInt(0) != buffer.getInt(BLOCK)) {
+                failure = new RuntimeException("FAILED");
+            }
+            done.countDown();
+            issue(buffer);
+        }
+
+        public void failed(Throwable exc, ByteBuffer buffer) {
+            failure = exc;
+            done.countDown();
+            issue(buffer);
+        }
+    }
+
+    static void check(boolean condition) {
+        if (!condition) {
+            throw new RuntimeException("FAILED");
+        }
+    }
+}
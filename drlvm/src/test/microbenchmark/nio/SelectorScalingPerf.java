@@ -0,0 +1,127 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Times echo round trips over one loopback connection served by a selector
+ * which also has a growing number of idle connections registered, as a
+ * server with many mostly idle clients has. The round trip time should not
+ * grow with the number of idle connections. Run with
+ * -Djava.nio.channels.spi.SelectorProvider=org.apache.harmony.nio.internal.EpollSelectorProviderImpl
+ * to time the epoll selector. Every connection takes two file descriptors.
+ * Usage: SelectorScalingPerf [round trips] [connections]
+ */
+class SelectorScalingPerf {
+
+    public static void main(String args[]) throws IOException {
+        int roundTrips = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        Selector selector = Selector.open();
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        List<SocketChannel> channels = new ArrayList<SocketChannel>();
+
+        SocketChannel active = connect(server, selector, channels);
+        // warm up
+        time(selector, active, roundTrips / 10);
+        for (int idle = 1; idle <= connections; idle *= 10) {
+            while (channels.size() < idle * 2) {
+                connect(server, selector, channels);
+            }
+            System.out.println(idle + " idle connections time:"
+                    + time(selector, active, roundTrips));
+        }
+
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+        server.close();
+        selector.close();
+        System.out.println("PASSED!");
+    }
+
+    /*
+     * Opens a connection, registering the server end with the selector and
+     * answering the client end.
+     */
+    static SocketChannel connect(ServerSocketChannel server,
+            Selector selector, List<SocketChannel> channels)
+            throws IOException {
+        SocketChannel client = SocketChannel.open(server.socket()
+                .getLocalSocketAddress());
+        SocketChannel accepted = server.accept();
+        accepted.configureBlocking(false);
+        accepted.register(selector, SelectionKey.OP_READ);
+        channels.add(client);
+        channels.add(accepted);
+        return client;
+    }
+
+    static long time(Selector selector, SocketChannel client, int roundTrips)
+            throws IOException {
+        ByteBuffer request = ByteBuffer.allocate(1);
+        ByteBuffer echo = ByteBuffer.allocate(16);
+        ByteBuffer response = ByteBuffer.allocate(1);
+        long t0 = System.currentTimeMillis();
+        for (int n = 0; n < roundTrips; n++) {
+            request.clear();
+            request.put(0, (byte) n);
+            client.write(request);
+
+            // serve whatever the selector finds ready
+            int served = 0;
+            while (served == 0) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys()
+                        .iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    echo.clear();
+                    channel.read(echo);
+                    echo.flip();
+                    channel.write(echo);
+                    served++;
+                }
+            }
+            check(served == 1);
+
+            response.clear();
+            client.read(response);
+            check(response.get(0) == (byte) n);
+        }
+        return System.currentTimeMillis() - t0;
+    }
+
+    static void check(boolean condition) {
+        if (!condition) {
+            throw new RuntimeException("FAILED");
+        }
+    }
+}
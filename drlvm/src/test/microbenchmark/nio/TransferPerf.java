@@ -0,0 +1,165 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Times copying a file to another file and to a loopback socket with
+ * FileChannel.transferTo and transferFrom, against a loop through a direct
+ * buffer, as a static file server does. Reports the throughput and the CPU
+ * time of the copying thread per gigabyte copied.
+ * Usage: TransferPerf [file megabytes] [iterations]
+ */
+class TransferPerf {
+
+    static final String[] OPERATIONS = { "buffer loop to file",
+            "transferTo file", "transferFrom file", "buffer loop to socket",
+            "transferTo socket" };
+
+    static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static void main(String args[]) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long size = megabytes * 1024L * 1024L;
+
+        File source = File.createTempFile("TransferPerf", ".src");
+        File target = File.createTempFile("TransferPerf", ".dst");
+        source.deleteOnExit();
+        target.deleteOnExit();
+        RandomAccessFile sourceFile = new RandomAccessFile(source, "rw");
+        ByteBuffer block = ByteBuffer.allocate(1024 * 1024);
+        for (long written = 0; written < size; written += block.capacity()) {
+            block.clear();
+            sourceFile.getChannel().write(block);
+        }
+        FileChannel in = sourceFile.getChannel();
+        FileChannel out = new RandomAccessFile(target, "rw").getChannel();
+
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        SocketChannel socket = SocketChannel.open(server.socket()
+                .getLocalSocketAddress());
+        Thread drain = drain(server.accept());
+
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            // warm up
+            copy(op, in, out, socket, size);
+            long cpu = cpuTime();
+            long t0 = System.currentTimeMillis();
+            for (int n = 0; n < iterations; n++) {
+                copy(op, in, out, socket, size);
+            }
+            long time = Math.max(1, System.currentTimeMillis() - t0);
+            cpu = cpuTime() - cpu;
+            double gigabytes = (double) size * iterations
+                    / (1024 * 1024 * 1024);
+            System.out.println(OPERATIONS[op] + " time:" + time + " MB/s:"
+                    + (long) (gigabytes * 1024 * 1000 / time)
+                    + " CPU ms/GB:" + (long) (cpu / 1000000 / gigabytes));
+        }
+
+        socket.close();
+        drain.join();
+        in.close();
+        out.close();
+        server.close();
+        System.out.println("PASSED!");
+    }
+
+    /*
+     * Answers the CPU time of the current thread in nanoseconds, or 0 if the
+     * VM cannot measure it.
+     */
+    static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS
+                .getCurrentThreadCpuTime() : 0;
+    }
+
+    /*
+     * Starts a thread reading and discarding everything sent to the socket.
+     */
+    static Thread drain(final SocketChannel socket) {
+        Thread thread = new Thread() {
+            public void run() {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+                try {
+                    do {
+                        buffer.clear();
+                    } while (socket.read(buffer) >= 0);
+                    socket.close();
+                } catch (IOException e) {
+                    // the benchmark is over
+                }
+            }
+        };
+        thread.start();
+        return thread;
+    }
+
+    static void copy(int op, FileChannel in, FileChannel out,
+            SocketChannel socket, long size) throws IOException {
+        long copied = 0;
+        out.position(0);
+        switch (op) {
+        case 0:
+        case 3:
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            in.position(0);
+            while (in.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    copied += op == 0 ? out.write(buffer) : socket
+                            .write(buffer);
+                }
+                buffer.clear();
+            }
+            break;
+        case 1:
+            while (copied < size) {
+                copied += in.transferTo(copied, size - copied, out);
+            }
+            break;
+        case 2:
+            in.position(0);
+            while (copied < size) {
+                copied += out.transferFrom(in, copied, size - copied);
+            }
+            break;
+        default:
+            while (copied < size) {
+                copied += in.transferTo(copied, size - copied, socket);
+            }
+        }
+        check(copied == size);
+    }
+
+    static void check(boolean condition) {
+        if (!condition) {
+            throw new RuntimeException("FAILED");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Times moving int and long arrays in and out of heap and direct byte
+ * buffers of both byte orders, element by element and through the bulk
+ * methods of the int and long views, as binary protocol codecs do.
+ * Usage: ViewBufferPerf [elements] [iterations]
+ */
+class ViewBufferPerf {
+
+    static final String[] OPERATIONS = { "getInt loop", "IntBuffer get",
+            "putInt loop", "IntBuffer put", "getLong loop", "LongBuffer get",
+            "putLong loop", "LongBuffer put" };
+
+    public static void main(String args[]) {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        ByteOrder[] orders = { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN };
+        for (int direct = 0; direct < 2; direct++) {
+            for (ByteOrder order : orders) {
+                ByteBuffer buffer = direct == 0 ? ByteBuffer
+                        .allocate(elements * 8) : ByteBuffer
+                        .allocateDirect(elements * 8);
+                buffer.order(order);
+                String kind = (direct == 0 ? "heap " : "direct ") + order
+                        + " ";
+                for (int op = 0; op < OPERATIONS.length; op++) {
+                    // warm up
+                    time(op, buffer, elements, iterations / 10);
+                    System.out.println(kind + OPERATIONS[op] + " time:"
+                            + time(op, buffer, elements, iterations));
+                }
+            }
+        }
+        System.out.println("PASSED!");
+    }
+
+    static long time(int op, ByteBuffer buffer, int elements, int iterations) {
+        int[] ints = new int[elements];
+        long[] longs = new long[elements];
+        for (int i = 0; i < elements; i++) {
+            ints[i] = i * 0x01010101;
+            longs[i] = i * 0x0101010101010101L;
+        }
+        // the get operations read back what the put operations write
+        operate(op < 4 ? 2 : 6, buffer, ints, longs);
+        long t0 = System.currentTimeMillis();
+        for (int n = 0; n < iterations; n++) {
+            operate(op, buffer, ints, longs);
+        }
+        long time = System.currentTimeMillis() - t0;
+        check(ints[elements - 1] == (elements - 1) * 0x01010101);
+        check(longs[elements - 1] == (elements - 1) * 0x0101010101010101L);
+        return time;
+    }
+
+    static void operate(int op, ByteBuffer buffer, int[] ints, long[] longs) {
+        buffer.clear();
+        switch (op) {
+        case 0:
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = buffer.getInt(i << 2);
+            }
+            break;
+        case 1:
+            buffer.asIntBuffer().get(ints);
+            break;
+        case 2:
+            for (int i = 0; i < ints.length; i++) {
+                buffer.putInt(i << 2, ints[i]);
+            }
+            break;
+        case 3:
+            buffer.asIntBuffer().put(ints);
+            break;
+        case 4:
+            for (int i = 0; i < longs.length; i++) {
+                longs[i] = buffer.getLong(i << 3);
+            }
+            break;
+        case 5:
+            buffer.asLongBuffer().get(longs);
+            break;
+        case 6:
+            for (int i = 0; i < longs.length; i++) {
+                buffer.putLong(i << 3, longs[i]);
+            }
+            break;
+        default:
+            buffer.asLongBuffer().put(longs);
+        }
+    }
+
+    static void check(boolean condition) {
+        if (!condition) {
+            throw new RuntimeException("FAILED");
+        }
+    }
+}
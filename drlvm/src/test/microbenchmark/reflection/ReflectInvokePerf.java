@@ -0,0 +1,83 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Calls a getter, a setter with a primitive argument and a constructor through
+ * reflection, the way bean and dependency injection frameworks do. Run it
+ * once with the default settings and once with
+ * -Dorg.apache.harmony.reflect.inflationThreshold=-1 to compare the generated
+ * accessors with the native calls. Usage: ReflectInvokePerf [iterations]
+ */
+public class ReflectInvokePerf {
+
+    public static class Bean {
+        private int value;
+
+        public Bean() {
+        }
+
+        public Bean(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public void setValue(int value) {
+            this.value = value;
+        }
+    }
+
+    public static void main(String args[]) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+
+        Method getter = Bean.class.getMethod("getValue");
+        Method setter = Bean.class.getMethod("setValue", int.class);
+        Constructor<Bean> constructor = Bean.class.getConstructor(int.class);
+        Bean bean = new Bean();
+
+        // warm up
+        run(getter, setter, constructor, bean, iterations / 10);
+
+        long t0 = System.currentTimeMillis();
+        long sum = run(getter, setter, constructor, bean, iterations);
+        long time = System.currentTimeMillis() - t0;
+        if (sum != (long) iterations * (iterations - 1)) {
+            System.out.println("FAILED: wrong sum " + sum);
+            return;
+        }
+        System.out.println("iterations: " + iterations + " time:" + time);
+        System.out.println("PASSED!");
+    }
+
+    static long run(Method getter, Method setter, Constructor<Bean> constructor,
+            Bean bean, int iterations) throws Exception {
+        long sum = 0;
+        Object[] arg = new Object[1];
+        for (int i = 0; i < iterations; i++) {
+            arg[0] = Integer.valueOf(i);
+            setter.invoke(bean, arg);
+            sum += ((Integer) getter.invoke(bean)).intValue();
+            sum += constructor.newInstance(arg).value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Times Matcher.find for patterns on which a backtracking matcher takes
+ * time exponential in the length of the input, over doubling lengths, and
+ * for a couple of everyday patterns for comparison. Without the automaton
+ * engine, run with -Dorg.apache.harmony.regex.automaton=false, keep the
+ * maximum length small.
+ * Usage: RegexAutomatonPerf [maxLength]
+ */
+class RegexAutomatonPerf {
+
+    static final String[] PATHOLOGICAL = { "(a+)+b", "(a|aa)*b", "(a|a)*b",
+            "(?:a*a)+b", "^(\\w+\\s?)+$" };
+
+    static final String[] EVERYDAY = { "(\\d+)-(\\d+)-(\\d+)",
+            "[\\w.]+@\\w+\\.(com|org)", "status=(\\d{3})" };
+
+    static final String LINE = "2008-10-17 12:00:01,INFO,main,dev@harmony.org,"
+            + "request served in 12 ms,status=200,bytes=5120";
+
+    public static void main(String args[]) {
+        int maxLength = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        for (String regex : PATHOLOGICAL) {
+            Pattern p = Pattern.compile(regex);
+            StringBuilder sb = new StringBuilder();
+            for (int length = 8; length <= maxLength; length *= 2) {
+                sb.setLength(0);
+                for (int i = 0; i < length; i++) {
+                    sb.append('a');
+                }
+                String input = sb.append('!').toString();
+
+                long t0 = System.nanoTime();
+                boolean found = p.matcher(input).find();
+                long t = (System.nanoTime() - t0) / 1000;
+                if (found) {
+                    throw new RuntimeException("FAILED: " + regex);
+                }
+                System.out.println("\"" + regex + "\" length:" + length
+                        + " time(us):" + t);
+            }
+        }
+
+        for (String regex : EVERYDAY) {
+            Pattern p = Pattern.compile(regex);
+            if (!p.matcher(LINE).find()) {
+                throw new RuntimeException("FAILED: " + regex);
+            }
+            int iterations = 100000;
+            find(p, iterations / 10);
+            System.out.println("\"" + regex + "\" find time:"
+                    + find(p, iterations));
+        }
+        System.out.println("PASSED!");
+    }
+
+    static long find(Pattern p, int iterations) {
+        Matcher m = p.matcher(LINE);
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            m.reset();
+            while (m.find()) {
+            }
+        }
+        return System.currentTimeMillis() - t0;
+    }
+}
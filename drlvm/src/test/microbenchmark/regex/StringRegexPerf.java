@@ -0,0 +1,96 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the String regex convenience methods with compiling the
+ * expression on every call, which is what they used to do, for a single
+ * character, a literal, an escaped character and a real regular
+ * expression, and checks that both give the same results.
+ * Usage: StringRegexPerf [iterations]
+ */
+class StringRegexPerf {
+
+    static final String LINE = "2008-10-17 12:00:01,INFO,main,org.apache.harmony.Foo,"
+            + "request served in 12 ms,status=200,bytes=5120";
+
+    static final String[] EXPRESSIONS = { ",", "ms,", "\\.", "\\s+" };
+
+    public static void main(String args[]) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0])
+                : 1000000;
+
+        for (String expr : EXPRESSIONS) {
+            Pattern p = Pattern.compile(expr);
+            if (!Arrays.equals(p.split(LINE), LINE.split(expr))
+                    || !p.matcher(LINE).replaceAll("_").equals(
+                            LINE.replaceAll(expr, "_"))
+                    || !p.matcher(LINE).replaceFirst("_").equals(
+                            LINE.replaceFirst(expr, "_"))) {
+                throw new RuntimeException("FAILED: " + expr);
+            }
+
+            // warm up
+            split(expr, iterations / 10);
+            compileAndSplit(expr, iterations / 10);
+            replaceAll(expr, iterations / 10);
+            compileAndReplaceAll(expr, iterations / 10);
+
+            System.out.println("\"" + expr + "\" split time:"
+                    + split(expr, iterations) + " compile+split time:"
+                    + compileAndSplit(expr, iterations)
+                    + " replaceAll time:" + replaceAll(expr, iterations)
+                    + " compile+replaceAll time:"
+                    + compileAndReplaceAll(expr, iterations));
+        }
+        System.out.println("PASSED!");
+    }
+
+    static long split(String expr, int iterations) {
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            LINE.split(expr);
+        }
+        return System.currentTimeMillis() - t0;
+    }
+
+    static long compileAndSplit(String expr, int iterations) {
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            Pattern.compile(expr).split(LINE);
+        }
+        return System.currentTimeMillis() - t0;
+    }
+
+    static long replaceAll(String expr, int iterations) {
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            LINE.replaceAll(expr, "_");
+        }
+        return System.currentTimeMillis() - t0;
+    }
+
+    static long compileAndReplaceAll(String expr, int iterations) {
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            Pattern.compile(expr).matcher(LINE).replaceAll("_");
+        }
+        return System.currentTimeMillis() - t0;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Serializes and deserializes an order book like object graph from several
+ * threads at once, each thread using fresh streams for every round trip as
+ * an RMI call would. Usage: ObjectStreamPerf [threads] [iterations]
+ */
+class ObjectStreamPerf {
+
+    static class Instrument implements Serializable {
+        String symbol;
+        int lotSize;
+        double tickSize;
+        boolean active;
+
+        Instrument(String symbol, int lotSize, double tickSize) {
+            this.symbol = symbol;
+            this.lotSize = lotSize;
+            this.tickSize = tickSize;
+            this.active = true;
+        }
+    }
+
+    static class Order implements Serializable {
+        long id;
+        long timestamp;
+        double price;
+        int quantity;
+        short flags;
+        char side;
+        byte venue;
+        Instrument instrument;
+
+        Order(long id, Instrument instrument) {
+            this.id = id;
+            this.timestamp = id * 1000;
+            this.price = 100.0 + id / 100.0;
+            this.quantity = (int) (id % 1000);
+            this.flags = (short) id;
+            this.side = (id & 1) == 0 ? 'B' : 'S';
+            this.venue = (byte) (id % 7);
+            this.instrument = instrument;
+        }
+    }
+
+    static class Book implements Serializable {
+        String name;
+        long sequence;
+        List<Order> orders = new ArrayList<Order>();
+    }
+
+    static Book createBook(int size) {
+        Book book = new Book();
+        book.name = "BOOK";
+        Instrument[] instruments = new Instrument[10];
+        for (int i = 0; i < instruments.length; i++) {
+            instruments[i] = new Instrument("SYM" + i, 100, 0.01);
+        }
+        for (int i = 0; i < size; i++) {
+            book.orders.add(new Order(i, instruments[i % instruments.length]));
+        }
+        book.sequence = size;
+        return book;
+    }
+
+    static void roundTrip(Book book) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(book);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()));
+        Book copy = (Book) in.readObject();
+        if (copy.orders.size() != book.orders.size()) {
+            throw new RuntimeException("FAILED: lost orders");
+        }
+    }
+
+    static long run(int threads, final int iterations) throws Exception {
+        final Book book = createBook(1000);
+        Thread[] workers = new Thread[threads];
+        final Exception[] failure = new Exception[1];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < iterations; j++) {
+                            roundTrip(book);
+                        }
+                    } catch (Exception e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+        }
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < threads; i++) {
+            workers[i].start();
+        }
+        for (int i = 0; i < threads; i++) {
+            workers[i].join();
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return System.currentTimeMillis() - t0;
+    }
+
+    public static void main(String args[]) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        // warm up
+        run(threads, iterations / 10);
+
+        long time = run(threads, iterations);
+        System.out.println("threads: " + threads + " round trips: "
+                + threads * iterations + " time:" + time);
+        System.out.println("PASSED!");
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * Sends a bulk of application data over an SSL connection on the loopback
+ * interface and reports the throughput in MB/s. An anonymous cipher suite is
+ * used by default so that no key store is needed.
+ * Usage: SSLThroughputPerf [megabytes] [cipher suite]
+ */
+public class SSLThroughputPerf {
+
+    public static void main(String args[]) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        String suite = args.length > 1 ? args[1]
+                : "TLS_DH_anon_WITH_RC4_128_MD5";
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, null, null);
+
+        // warm up
+        transfer(context, suite, megabytes / 8);
+
+        long time = transfer(context, suite, megabytes);
+        System.out.println("suite: " + suite + " MB: " + megabytes
+                + " MB/s: " + (megabytes * 1000L / Math.max(time, 1))
+                + " time:" + time);
+        System.out.println("PASSED!");
+    }
+
+    static long transfer(SSLContext context, String suite, int megabytes)
+            throws Exception {
+        final SSLServerSocket server = (SSLServerSocket) context
+                .getServerSocketFactory().createServerSocket(0, 1,
+                        InetAddress.getByName("127.0.0.1"));
+        server.setEnabledCipherSuites(new String[] { suite });
+        final long total = (long) megabytes << 20;
+        final long[] received = new long[1];
+        final Exception[] failure = new Exception[1];
+        Thread reader = new Thread() {
+            public void run() {
+                try {
+                    SSLSocket socket = (SSLSocket) server.accept();
+                    InputStream in = socket.getInputStream();
+                    byte[] buffer = new byte[64 * 1024];
+                    int n;
+                    while (received[0] < total
+                            && (n = in.read(buffer)) != -1) {
+                        received[0] += n;
+                    }
+                    socket.close();
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            }
+        };
+        reader.start();
+
+        SSLSocket client = (SSLSocket) context.getSocketFactory()
+                .createSocket("127.0.0.1", server.getLocalPort());
+        client.setEnabledCipherSuites(new String[] { suite });
+        client.startHandshake();
+        OutputStream out = client.getOutputStream();
+        byte[] chunk = new byte[64 * 1024];
+        long t0 = System.currentTimeMillis();
+        for (long sent = 0; sent < total; sent += chunk.length) {
+            out.write(chunk);
+        }
+        out.flush();
+        reader.join();
+        long time = System.currentTimeMillis() - t0;
+        client.close();
+        server.close();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        if (received[0] != total) {
+            throw new RuntimeException("FAILED: received " + received[0]
+                    + " of " + total + " bytes");
+        }
+        return time;
+    }
+}
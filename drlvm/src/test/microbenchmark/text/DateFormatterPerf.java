@@ -0,0 +1,134 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.apache.harmony.text.DateFormatter;
+
+/**
+ * Times several threads formatting and parsing ISO 8601 timestamps with a
+ * new SimpleDateFormat for each call, with a SimpleDateFormat for each
+ * thread, and with a single DateFormatter shared by all the threads.
+ * Usage: DateFormatterPerf [threads] [iterations]
+ */
+class DateFormatterPerf {
+
+    static final String PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+    static final TimeZone ZONE = TimeZone.getTimeZone("America/New_York");
+
+    static final DateFormatter FORMATTER = DateFormatter.getInstance(PATTERN,
+            ZONE, Locale.US);
+
+    static final ThreadLocal<SimpleDateFormat> FORMATS = new ThreadLocal<SimpleDateFormat>() {
+        protected SimpleDateFormat initialValue() {
+            return newFormat();
+        }
+    };
+
+    static final String[] OPERATIONS = { "SimpleDateFormat per call format",
+            "SimpleDateFormat per thread format", "DateFormatter format",
+            "SimpleDateFormat per thread parse", "DateFormatter parse" };
+
+    public static void main(String args[]) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            // warm up
+            time(op, 1, iterations / 10);
+            System.out.println(OPERATIONS[op] + " time:"
+                    + time(op, threads, iterations));
+        }
+        System.out.println("PASSED!");
+    }
+
+    static SimpleDateFormat newFormat() {
+        SimpleDateFormat format = new SimpleDateFormat(PATTERN, Locale.US);
+        format.setTimeZone(ZONE);
+        return format;
+    }
+
+    /*
+     * Runs the operation the given number of times on each of the threads,
+     * answering the time taken for all of them to finish.
+     */
+    static long time(final int op, int threads, final int iterations)
+            throws InterruptedException {
+        final Throwable[] failure = new Throwable[1];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    try {
+                        long millis = 1215000000000L;
+                        StringBuilder buffer = new StringBuilder();
+                        for (int n = 0; n < iterations; n++) {
+                            operate(op, millis + n * 1001L, buffer);
+                        }
+                    } catch (Throwable t) {
+                        failure[0] = t;
+                    }
+                }
+            };
+        }
+        long t0 = System.currentTimeMillis();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long time = System.currentTimeMillis() - t0;
+        if (failure[0] != null) {
+            throw new RuntimeException("FAILED", failure[0]);
+        }
+        return time;
+    }
+
+    static void operate(int op, long millis, StringBuilder buffer)
+            throws ParseException {
+        switch (op) {
+        case 0:
+            check(newFormat().format(new Date(millis)).length() == 28);
+            break;
+        case 1:
+            check(FORMATS.get().format(new Date(millis)).length() == 28);
+            break;
+        case 2:
+            buffer.setLength(0);
+            check(FORMATTER.format(millis, buffer).length() == 28);
+            break;
+        case 3:
+            SimpleDateFormat format = FORMATS.get();
+            check(format.parse(format.format(new Date(millis))).getTime() == millis);
+            break;
+        default:
+            check(FORMATTER.parse(FORMATTER.format(millis)).getTime() == millis);
+        }
+    }
+
+    static void check(boolean condition) {
+        if (!condition) {
+            throw new RuntimeException("FAILED");
+        }
+    }
+}
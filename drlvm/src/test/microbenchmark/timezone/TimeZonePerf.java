@@ -0,0 +1,102 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Times several threads which all look up the default time zone, look up
+ * zones by ID and create calendars, as server threads formatting dates do.
+ * Usage: TimeZonePerf [threads] [iterations]
+ */
+class TimeZonePerf {
+
+    static final String[] IDS = { "America/New_York", "Europe/London",
+            "Asia/Tokyo", "Australia/Sydney", "GMT+05:30", "PST" };
+
+    static final String[] OPERATIONS = { "getDefault", "getTimeZone",
+            "new GregorianCalendar" };
+
+    public static void main(String args[]) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            // warm up
+            time(op, 1, iterations / 10);
+            System.out.println(OPERATIONS[op] + " time:"
+                    + time(op, threads, iterations));
+        }
+        System.out.println("PASSED!");
+    }
+
+    /*
+     * Runs the operation the given number of times on each of the threads,
+     * answering the time taken for all of them to finish.
+     */
+    static long time(final int op, int threads, final int iterations)
+            throws InterruptedException {
+        final Throwable[] failure = new Throwable[1];
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    try {
+                        for (int n = 0; n < iterations; n++) {
+                            operate(op, n);
+                        }
+                    } catch (Throwable t) {
+                        failure[0] = t;
+                    }
+                }
+            };
+        }
+        long t0 = System.currentTimeMillis();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long time = System.currentTimeMillis() - t0;
+        if (failure[0] != null) {
+            throw new RuntimeException("FAILED", failure[0]);
+        }
+        return time;
+    }
+
+    static void operate(int op, int i) {
+        switch (op) {
+        case 0:
+            check(TimeZone.getDefault() != null);
+            break;
+        case 1:
+            String id = IDS[i % IDS.length];
+            check(!TimeZone.getTimeZone(id).getID().equals("GMT"));
+            break;
+        default:
+            check(new GregorianCalendar().get(Calendar.YEAR) > 2000);
+        }
+    }
+
+    static void check(boolean condition) {
+        if (!condition) {
+            throw new RuntimeException("FAILED");
+        }
+    }
+}
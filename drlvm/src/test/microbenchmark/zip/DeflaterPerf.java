@@ -0,0 +1,145 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.harmony.archive.util.DeflaterPool;
+
+/**
+ * Compresses a small (1K) and a large (1M) payload of text-like data many
+ * times over, printing the throughput of three ways to do it: a new
+ * Deflater with byte arrays per payload, a pooled Deflater with byte arrays,
+ * and a pooled Deflater with direct buffers.
+ * Usage: DeflaterPerf [total MB per run]
+ */
+class DeflaterPerf {
+
+    static final int SMALL = 1024;
+
+    static final int LARGE = 1024 * 1024;
+
+    static final DeflaterPool pool = new DeflaterPool(
+            Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY, false, 4);
+
+    static byte[] payload(int size) {
+        String[] words = { "GET ", "/index.html ", "HTTP/1.1 ", "200 ", "OK ",
+                "Content-Type: ", "text/html\n", "<div class=\"row\">",
+                "</div>\n", "2009-03-14 ", "INFO ", "request served\n" };
+        byte[] data = new byte[size];
+        int seed = 17;
+        for (int i = 0; i < size;) {
+            seed = seed * 1103515245 + 12345;
+            String word = words[(seed >>> 16) % words.length];
+            for (int j = 0; j < word.length() && i < size; j++) {
+                data[i++] = (byte) word.charAt(j);
+            }
+        }
+        return data;
+    }
+
+    static int compress(Deflater deflater, byte[] in, byte[] out) {
+        deflater.setInput(in);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            length += deflater.deflate(out, length, out.length - length);
+        }
+        return length;
+    }
+
+    static int compress(Deflater deflater, ByteBuffer in, ByteBuffer out) {
+        in.rewind();
+        out.clear();
+        deflater.setInput(in);
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflater.deflate(out);
+        }
+        return out.position();
+    }
+
+    static long run(int mode, byte[] data, int times, byte[] check)
+            throws DataFormatException {
+        byte[] out = new byte[data.length + data.length / 100 + 64];
+        ByteBuffer directIn = ByteBuffer.allocateDirect(data.length);
+        directIn.put(data);
+        ByteBuffer directOut = ByteBuffer.allocateDirect(out.length);
+        int length = 0;
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < times; i++) {
+            if (mode == 0) {
+                Deflater deflater = new Deflater();
+                length = compress(deflater, data, out);
+                deflater.end();
+            } else {
+                Deflater deflater = pool.acquire();
+                if (mode == 1) {
+                    length = compress(deflater, data, out);
+                } else {
+                    length = compress(deflater, directIn, directOut);
+                }
+                pool.release(deflater);
+            }
+        }
+        long time = System.currentTimeMillis() - t0;
+        if (mode == 2) {
+            directOut.flip();
+            directOut.get(out, 0, length);
+        }
+        check(out, length, check);
+        return time;
+    }
+
+    static void check(byte[] compressed, int length, byte[] expected)
+            throws DataFormatException {
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed, 0, length);
+        byte[] result = new byte[expected.length + 1];
+        int n = inflater.inflate(result);
+        inflater.end();
+        if (n != expected.length) {
+            throw new RuntimeException("FAILED: inflated " + n + " of "
+                    + expected.length);
+        }
+        for (int i = 0; i < n; i++) {
+            if (result[i] != expected[i]) {
+                throw new RuntimeException("FAILED: differs at " + i);
+            }
+        }
+    }
+
+    public static void main(String args[]) throws Exception {
+        int totalMB = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        String[] modes = { "new byte[]", "pooled byte[]", "pooled direct" };
+        int[] sizes = { SMALL, LARGE };
+        for (int s = 0; s < sizes.length; s++) {
+            byte[] data = payload(sizes[s]);
+            int times = (int) ((long) totalMB * 1024 * 1024 / sizes[s]);
+            for (int mode = 0; mode < modes.length; mode++) {
+                run(mode, data, times / 10 + 1, data); // warm up
+                long time = run(mode, data, times, data);
+                System.out.println("size: " + sizes[s] + " " + modes[mode]
+                        + " time:" + time + " MB/s:"
+                        + (time == 0 ? "-" : "" + totalMB * 1000L / time));
+            }
+        }
+        System.out.println("PASSED!");
+    }
+}
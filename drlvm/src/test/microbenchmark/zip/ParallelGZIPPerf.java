@@ -0,0 +1,107 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.harmony.archive.util.ParallelGZIPOutputStream;
+
+/**
+ * Compresses a buffer of text-like data with GZIPOutputStream, then with
+ * ParallelGZIPOutputStream on 1, 2, 4, ... up to the given number of threads
+ * (the number of processors by default), printing the times and sizes and
+ * checking each result with GZIPInputStream.
+ * Usage: ParallelGZIPPerf [MB] [max threads]
+ */
+class ParallelGZIPPerf {
+
+    static byte[] payload(int size) {
+        String[] words = { "GET ", "/index.html ", "HTTP/1.1 ", "200 ", "OK ",
+                "Content-Type: ", "text/html\n", "<div class=\"row\">",
+                "</div>\n", "2009-03-14 ", "INFO ", "request served\n" };
+        byte[] data = new byte[size];
+        int seed = 17;
+        for (int i = 0; i < size;) {
+            seed = seed * 1103515245 + 12345;
+            String word = words[(seed >>> 16) % words.length];
+            for (int j = 0; j < word.length() && i < size; j++) {
+                data[i++] = (byte) word.charAt(j);
+            }
+        }
+        return data;
+    }
+
+    static long compress(byte[] data, int threads, ByteArrayOutputStream bytes)
+            throws Exception {
+        bytes.reset();
+        long t0 = System.currentTimeMillis();
+        OutputStream out = threads == 0 ? new GZIPOutputStream(bytes, 65536)
+                : new ParallelGZIPOutputStream(bytes, threads);
+        for (int i = 0; i < data.length; i += 65536) {
+            out.write(data, i, Math.min(65536, data.length - i));
+        }
+        out.close();
+        return System.currentTimeMillis() - t0;
+    }
+
+    static void check(byte[] compressed, byte[] expected) throws Exception {
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(
+                compressed));
+        byte[] buf = new byte[65536];
+        int total = 0;
+        int count;
+        while ((count = in.read(buf)) > 0) {
+            for (int i = 0; i < count; i++) {
+                if (buf[i] != expected[total + i]) {
+                    throw new RuntimeException("FAILED: differs at "
+                            + (total + i));
+                }
+            }
+            total += count;
+        }
+        in.close();
+        if (total != expected.length) {
+            throw new RuntimeException("FAILED: read " + total + " of "
+                    + expected.length);
+        }
+    }
+
+    public static void main(String args[]) throws Exception {
+        int mb = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        byte[] data = payload(mb * 1024 * 1024);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4);
+
+        compress(data, 0, bytes); // warm up
+        long time = compress(data, 0, bytes);
+        check(bytes.toByteArray(), data);
+        System.out.println("GZIPOutputStream size:" + bytes.size() + " time:"
+                + time);
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            compress(data, threads, bytes); // warm up
+            time = compress(data, threads, bytes);
+            check(bytes.toByteArray(), data);
+            System.out.println("threads: " + threads + " size:" + bytes.size()
+                    + " time:" + time);
+        }
+        System.out.println("PASSED!");
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Opens a JAR (the first boot class path entry by default), then reads all
+ * of its entries from 1, 2, 4, ... up to 16 threads and looks each entry up
+ * by name, printing the times. Run it once normally and once with
+ * -Dorg.apache.harmony.archive.zip.mapped=true to compare the shared file
+ * handle with the memory-mapped mode.
+ * Usage: ZipFilePerf [archive] [max threads]
+ */
+class ZipFilePerf {
+
+    static long readAll(final ZipFile zip, final List<String> names,
+            int threads) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final Exception[] failure = new Exception[1];
+        for (int t = 0; t < threads; t++) {
+            new Thread() {
+                public void run() {
+                    byte[] buf = new byte[4096];
+                    try {
+                        start.await();
+                        for (String name : names) {
+                            InputStream in = zip.getInputStream(zip
+                                    .getEntry(name));
+                            while (in.read(buf) > 0) {
+                            }
+                            in.close();
+                        }
+                    } catch (Exception e) {
+                        failure[0] = e;
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        long t0 = System.currentTimeMillis();
+        start.countDown();
+        done.await();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return System.currentTimeMillis() - t0;
+    }
+
+    public static void main(String args[]) throws Exception {
+        String archive = args.length > 0 ? args[0] : System.getProperty(
+                "sun.boot.class.path").split(File.pathSeparator)[0];
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        long t0 = System.currentTimeMillis();
+        ZipFile zip = new ZipFile(archive);
+        long openTime = System.currentTimeMillis() - t0;
+
+        List<String> names = new ArrayList<String>();
+        for (Enumeration<? extends ZipEntry> e = zip.entries(); e
+                .hasMoreElements();) {
+            names.add(e.nextElement().getName());
+        }
+        t0 = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            for (String name : names) {
+                if (zip.getEntry(name) == null) {
+                    throw new RuntimeException("FAILED: lost " + name);
+                }
+            }
+        }
+        long lookupTime = System.currentTimeMillis() - t0;
+        System.out.println(archive + ": " + names.size() + " entries, open time:"
+                + openTime + " lookup time (x10):" + lookupTime);
+
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            readAll(zip, names, threads); // warm up
+            System.out.println("threads: " + threads + " read time:"
+                    + readAll(zip, names, threads));
+        }
+        zip.close();
+        System.out.println("PASSED!");
+    }
+}
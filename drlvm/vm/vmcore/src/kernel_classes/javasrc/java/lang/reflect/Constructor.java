@@ -27,6 +27,8 @@ import java.lang.annotation.Annotation;
 import java.util.Arrays;
 
 import org.apache.harmony.lang.reflect.parser.Parser;
+import org.apache.harmony.luni.internal.reflect.AccessorGenerator;
+import org.apache.harmony.luni.internal.reflect.ConstructorAccessor;
 import org.apache.harmony.vm.VMGenericsAndAnnotations;
 import org.apache.harmony.vm.VMStack;
 
@@ -279,6 +281,10 @@ public final class Constructor<T> extends AccessibleObject implements Member, Ge
                                               getDeclaringClass(),
                                               getModifiers());
         }
+        ConstructorAccessor accessor = data.getAccessor();
+        if (accessor != null) {
+            return (T)accessor.newInstance(args);
+        }
         return (T)VMReflection.newClassInstance(data.vm_member_id, args);
     }
 
@@ -350,6 +356,18 @@ public final class Constructor<T> extends AccessibleObject implements Member, Ge
         Class<?>[] parameterTypes;
 
         TypeVariable<Constructor<T>>[] typeParameters;
+
+        /**
+         * bytecode accessor which replaces the native call once the constructor
+         * has been invoked often enough
+         */
+        private volatile ConstructorAccessor accessor;
+
+        /**
+         * number of native invocations, or -1 if no accessor is to be
+         * generated
+         */
+        private int invocations;
         final String descriptor;
 
         /**
@@ -405,5 +423,34 @@ public final class Constructor<T> extends AccessibleObject implements Member, Ge
             }
             return parameterTypes;
         }
+
+        /**
+         * Counts an invocation and answers the generated accessor if there
+         * is one, inflating the constructor when the threshold is passed.
+         * The counter is not synchronized: a lost update only delays the
+         * inflation.
+         */
+        ConstructorAccessor getAccessor() {
+            ConstructorAccessor result = accessor;
+            if (result == null && invocations >= 0) {
+                int threshold = AccessorGenerator.getInflationThreshold();
+                if (threshold < 0) {
+                    invocations = -1;
+                } else if (++invocations > threshold) {
+                    synchronized (this) {
+                        result = accessor;
+                        if (result == null && invocations >= 0) {
+                            result = AccessorGenerator.newConstructorAccessor(Constructor.this);
+                            if (result == null) {
+                                invocations = -1;
+                            } else {
+                                accessor = result;
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
     }
 }
@@ -28,6 +28,8 @@ import java.lang.annotation.Annotation;
 import java.util.Arrays;
 
 import org.apache.harmony.lang.reflect.parser.Parser;
+import org.apache.harmony.luni.internal.reflect.AccessorGenerator;
+import org.apache.harmony.luni.internal.reflect.MethodAccessor;
 import org.apache.harmony.vm.VMGenericsAndAnnotations;
 import org.apache.harmony.vm.VMStack;
 
@@ -313,6 +315,10 @@ public final class Method extends AccessibleObject implements Member, GenericDec
                 getModifiers()
             );
         }
+        MethodAccessor accessor = data.getAccessor();
+        if (accessor != null) {
+            return accessor.invoke(obj, args);
+        }
         return VMReflection.invokeMethod(data.vm_member_id, obj, args);
     }
 
@@ -408,6 +414,18 @@ public final class Method extends AccessibleObject implements Member, GenericDec
          */
         TypeVariable<Method>[] typeParameters;
 
+        /**
+         * bytecode accessor which replaces the native call once the method
+         * has been invoked often enough
+         */
+        private volatile MethodAccessor accessor;
+
+        /**
+         * number of native invocations, or -1 if no accessor is to be
+         * generated
+         */
+        private int invocations;
+
         /**
          * @param obj method handler
          */
@@ -464,5 +482,34 @@ public final class Method extends AccessibleObject implements Member, GenericDec
             }
             return returnType;
         }
+
+        /**
+         * Counts an invocation and answers the generated accessor if there
+         * is one, inflating the method when the threshold is passed.
+         * The counter is not synchronized: a lost update only delays the
+         * inflation.
+         */
+        MethodAccessor getAccessor() {
+            MethodAccessor result = accessor;
+            if (result == null && invocations >= 0) {
+                int threshold = AccessorGenerator.getInflationThreshold();
+                if (threshold < 0) {
+                    invocations = -1;
+                } else if (++invocations > threshold) {
+                    synchronized (this) {
+                        result = accessor;
+                        if (result == null && invocations >= 0) {
+                            result = AccessorGenerator.newMethodAccessor(Method.this);
+                            if (result == null) {
+                                invocations = -1;
+                            } else {
+                                accessor = result;
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
     }
 }